@@ -0,0 +1,158 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.benchmarks;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.PriceLevelOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of applying an order book delta and reading the top of the book afterwards,
+ * for the {@link PriceLevelOrderBook} and for a pair of boxed TreeMaps, which is how a local book
+ * would typically be held otherwise.
+ *
+ * <p>Each book is preloaded with {@code levels} bids and asks. The deltas are generated up front
+ * from a fixed seed so both books see the same sequence: about a quarter remove a level and the
+ * rest add or resize one, mostly near the top of the book as on a real feed.
+ *
+ * <p>Build with {@code mvn -P benchmarks package}, then run {@code
+ * java -jar bxbot-benchmarks/target/benchmarks.jar PriceLevelOrderBook}.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PriceLevelOrderBookBenchmark {
+
+  private static final int DELTA_COUNT = 1 << 16;
+  private static final long MID_PRICE = 5_000_000L;
+
+  @Param({"100", "1000", "10000"})
+  private int levels;
+
+  private final boolean[] deltaIsBuy = new boolean[DELTA_COUNT];
+  private final long[] deltaPrices = new long[DELTA_COUNT];
+  private final long[] deltaQuantities = new long[DELTA_COUNT];
+  private int nextDelta;
+
+  private PriceLevelOrderBook priceLevelBook;
+  private final PriceLevelOrderBook.LevelVisitor topOfBook = (price, quantity) -> topPrice = price;
+  private long topPrice;
+  private NavigableMap<Long, Long> treeMapBids;
+  private NavigableMap<Long, Long> treeMapAsks;
+
+  /** Builds the delta sequence and preloads both books. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Random random = new Random(42);
+    for (int i = 0; i < DELTA_COUNT; i++) {
+      final boolean buy = random.nextBoolean();
+      // Skewed towards the top of the book: half the deltas land in the best tenth of the levels.
+      final int distance =
+          random.nextBoolean() ? random.nextInt(Math.max(1, levels / 10)) : random.nextInt(levels);
+      deltaIsBuy[i] = buy;
+      deltaPrices[i] = buy ? MID_PRICE - 1 - distance : MID_PRICE + distance;
+      deltaQuantities[i] = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(100_000_000);
+    }
+
+    priceLevelBook = new PriceLevelOrderBook("btcusd", 2, 8);
+    treeMapBids = new TreeMap<>(Collections.reverseOrder());
+    treeMapAsks = new TreeMap<>();
+    for (int i = 0; i < levels; i++) {
+      final long quantity = 1 + random.nextInt(100_000_000);
+      priceLevelBook.setLevel(OrderType.BUY, MID_PRICE - 1 - i, quantity);
+      priceLevelBook.setLevel(OrderType.SELL, MID_PRICE + i, quantity);
+      treeMapBids.put(MID_PRICE - 1 - i, quantity);
+      treeMapAsks.put(MID_PRICE + i, quantity);
+    }
+  }
+
+  /**
+   * Applies one delta to the price-level book and reads the best bid and ask.
+   *
+   * @param blackhole sinks the top of the book.
+   */
+  @Benchmark
+  public void priceLevelOrderBook(Blackhole blackhole) {
+    final int i = nextDeltaIndex();
+    priceLevelBook.setLevel(
+        deltaIsBuy[i] ? OrderType.BUY : OrderType.SELL, deltaPrices[i], deltaQuantities[i]);
+    priceLevelBook.forEachLevel(OrderType.BUY, 1, topOfBook);
+    blackhole.consume(topPrice);
+    priceLevelBook.forEachLevel(OrderType.SELL, 1, topOfBook);
+    blackhole.consume(topPrice);
+  }
+
+  /**
+   * Applies one delta to the TreeMap book and reads the best bid and ask.
+   *
+   * @param blackhole sinks the top of the book.
+   */
+  @Benchmark
+  public void treeMapBaseline(Blackhole blackhole) {
+    final int i = nextDeltaIndex();
+    final NavigableMap<Long, Long> side = deltaIsBuy[i] ? treeMapBids : treeMapAsks;
+    if (deltaQuantities[i] == 0) {
+      side.remove(deltaPrices[i]);
+    } else {
+      side.put(deltaPrices[i], deltaQuantities[i]);
+    }
+    blackhole.consume(firstPrice(treeMapBids));
+    blackhole.consume(firstPrice(treeMapAsks));
+  }
+
+  private int nextDeltaIndex() {
+    final int i = nextDelta;
+    nextDelta = (i + 1) & (DELTA_COUNT - 1);
+    return i;
+  }
+
+  private static long firstPrice(NavigableMap<Long, Long> side) {
+    final Map.Entry<Long, Long> best = side.firstEntry();
+    return best == null ? 0 : best.getKey();
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.benchmarks;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of decoding the exchange responses recorded in {@code
+ * bxbot-exchanges/src/test/exchange-data}, using each Exchange Adapter's hand-written Gson type
+ * adapters and using Gson reflection, which is how the responses used to be decoded.
+ *
+ * <p>The reflection baseline decodes into the same response classes, mapping the JSON field names
+ * the way the old {@code @SerializedName} annotations did. The two responses that used to be
+ * decoded through the JSON tree, the Bitstamp balance and the Kraken ticker, are decoded into a
+ * {@link JsonObject} instead.
+ *
+ * <p>Build with {@code mvn -P benchmarks package}, then run {@code
+ * java -jar bxbot-benchmarks/target/benchmarks.jar ResponseDecoding} from the project root. Add
+ * {@code -prof gc} for the allocation rate. Set {@code -Dbxbot.exchangeData=<dir>} to run from
+ * anywhere else.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseDecodingBenchmark {
+
+  private static final String EXCHANGES_PACKAGE = "com.gazbert.bxbot.exchanges.";
+  private static final String EXCHANGE_DATA_DIR =
+      System.getProperty("bxbot.exchangeData", "bxbot-exchanges/src/test/exchange-data");
+
+  /*
+   * Recorded response -> {Exchange Adapter, response class}. A response class of the form
+   * Outer<Inner> is a generic response and one ending [] is an array.
+   */
+  private static final Map<String, String[]> RESPONSES = new HashMap<>();
+
+  static {
+    addResponse("bitfinex/account_infos.json", "Bitfinex", "BitfinexAccountInfos");
+    addResponse("bitfinex/balances.json", "Bitfinex", "BitfinexBalances");
+    addResponse("bitfinex/book.json", "Bitfinex", "BitfinexOrderBook");
+    addResponse("bitfinex/order_cancel.json", "Bitfinex", "BitfinexCancelOrderResponse");
+    addResponse("bitfinex/order_new_buy.json", "Bitfinex", "BitfinexNewOrderResponse");
+    addResponse("bitfinex/orders.json", "Bitfinex", "BitfinexOpenOrders");
+    addResponse("bitfinex/pubticker.json", "Bitfinex", "BitfinexTicker");
+    addResponse("bitstamp/balance.json", "Bitstamp", "BitstampBalance");
+    addResponse("bitstamp/buy.json", "Bitstamp", "BitstampOrderResponse");
+    addResponse("bitstamp/cancel_order.json", "Bitstamp", "BitstampCancelOrderResponse");
+    addResponse("bitstamp/open_orders.json", "Bitstamp", "BitstampOrderResponse[]");
+    addResponse("bitstamp/order_book.json", "Bitstamp", "BitstampOrderBook");
+    addResponse("bitstamp/ticker.json", "Bitstamp", "BitstampTicker");
+    addResponse("coinbasepro/accounts.json", "CoinbasePro", "CoinbaseProAccount[]");
+    addResponse("coinbasepro/book.json", "CoinbasePro", "CoinbaseProBookWrapper");
+    addResponse("coinbasepro/new_buy_order.json", "CoinbasePro", "CoinbaseProOrder");
+    addResponse("coinbasepro/orders.json", "CoinbasePro", "CoinbaseProOrder[]");
+    addResponse("coinbasepro/stats.json", "CoinbasePro", "CoinbaseProStats");
+    addResponse("coinbasepro/ticker.json", "CoinbasePro", "CoinbaseProTicker");
+    addResponse("gemini/balances.json", "Gemini", "GeminiBalances");
+    addResponse("gemini/book.json", "Gemini", "GeminiOrderBook");
+    addResponse("gemini/order_new_buy.json", "Gemini", "GeminiOpenOrder");
+    addResponse("gemini/orders.json", "Gemini", "GeminiOpenOrders");
+    addResponse("gemini/pubticker.json", "Gemini", "GeminiTicker");
+    addResponse("itbit/new_order_buy.json", "ItBit", "ItBitNewOrderResponse");
+    addResponse("itbit/order_book.json", "ItBit", "ItBitOrderBookWrapper");
+    addResponse("itbit/orders.json", "ItBit", "ItBitYourOrder[]");
+    addResponse("itbit/ticker.json", "ItBit", "ItBitTicker");
+    addResponse("itbit/wallets.json", "ItBit", "ItBitWallet[]");
+    addResponse("kraken/AddOrder-buy.json", "Kraken", "KrakenResponse<KrakenAddOrderResult>");
+    addResponse("kraken/Balance.json", "Kraken", "KrakenResponse<KrakenBalanceResult>");
+    addResponse("kraken/CancelOrder.json", "Kraken", "KrakenResponse<KrakenCancelOrderResult>");
+    addResponse("kraken/Depth.json", "Kraken", "KrakenResponse<KrakenMarketOrderBookResult>");
+    addResponse("kraken/OpenOrders.json", "Kraken", "KrakenResponse<KrakenOpenOrderResult>");
+    addResponse("kraken/Ticker.json", "Kraken", "KrakenResponse<KrakenTickerResult>");
+  }
+
+  @Param({
+    "bitfinex/account_infos.json",
+    "bitfinex/balances.json",
+    "bitfinex/book.json",
+    "bitfinex/order_cancel.json",
+    "bitfinex/order_new_buy.json",
+    "bitfinex/orders.json",
+    "bitfinex/pubticker.json",
+    "bitstamp/balance.json",
+    "bitstamp/buy.json",
+    "bitstamp/cancel_order.json",
+    "bitstamp/open_orders.json",
+    "bitstamp/order_book.json",
+    "bitstamp/ticker.json",
+    "coinbasepro/accounts.json",
+    "coinbasepro/book.json",
+    "coinbasepro/new_buy_order.json",
+    "coinbasepro/orders.json",
+    "coinbasepro/stats.json",
+    "coinbasepro/ticker.json",
+    "gemini/balances.json",
+    "gemini/book.json",
+    "gemini/order_new_buy.json",
+    "gemini/orders.json",
+    "gemini/pubticker.json",
+    "itbit/new_order_buy.json",
+    "itbit/order_book.json",
+    "itbit/orders.json",
+    "itbit/ticker.json",
+    "itbit/wallets.json",
+    "kraken/AddOrder-buy.json",
+    "kraken/Balance.json",
+    "kraken/CancelOrder.json",
+    "kraken/Depth.json",
+    "kraken/OpenOrders.json",
+    "kraken/Ticker.json"
+  })
+  private String response;
+
+  private String payload;
+  private Type responseType;
+  private Type reflectionType;
+  private Gson typeAdapterGson;
+  private Gson reflectionGson;
+
+  /**
+   * Loads the recorded response and builds both Gson instances.
+   *
+   * @throws Exception if the response or the Exchange Adapter cannot be loaded.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    final String[] decoding = RESPONSES.get(response);
+    if (decoding == null) {
+      throw new IllegalArgumentException("No response class for recorded response: " + response);
+    }
+    payload = readResponse(response);
+
+    final Class<?> adapterClass =
+        Class.forName(EXCHANGES_PACKAGE + decoding[0] + "ExchangeAdapter");
+    responseType = toType(adapterClass, decoding[1]);
+    typeAdapterGson = adapterGson(adapterClass);
+
+    final boolean decodedFromTree =
+        response.equals("bitstamp/balance.json") || response.equals("kraken/Ticker.json");
+    reflectionType = decodedFromTree ? JsonObject.class : responseType;
+    reflectionGson =
+        new GsonBuilder()
+            .setFieldNamingPolicy(
+                adapterClass.getSimpleName().startsWith("ItBit")
+                    ? FieldNamingPolicy.IDENTITY
+                    : FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .setDateFormat("yyyy-MM-dd HH:mm:ss")
+            .create();
+  }
+
+  /**
+   * Decodes the response with the Exchange Adapter's type adapters.
+   *
+   * @return the decoded response.
+   */
+  @Benchmark
+  public Object typeAdapters() {
+    return typeAdapterGson.fromJson(payload, responseType);
+  }
+
+  /**
+   * Decodes the response with Gson reflection.
+   *
+   * @return the decoded response.
+   */
+  @Benchmark
+  public Object reflectionBaseline() {
+    return reflectionGson.fromJson(payload, reflectionType);
+  }
+
+  private static void addResponse(String response, String exchange, String responseClass) {
+    RESPONSES.put(response, new String[] {exchange, responseClass});
+  }
+
+  static String readResponse(String response) throws IOException {
+    return new String(
+        Files.readAllBytes(Paths.get(EXCHANGE_DATA_DIR, response)), StandardCharsets.UTF_8);
+  }
+
+  /*
+   * The response classes are private to each Exchange Adapter, so they are looked up by name.
+   */
+  private static Type toType(Class<?> adapterClass, String responseClass)
+      throws ClassNotFoundException {
+    final int genericStart = responseClass.indexOf('<');
+    if (genericStart > 0) {
+      return TypeToken.getParameterized(
+              toType(adapterClass, responseClass.substring(0, genericStart)),
+              toType(
+                  adapterClass,
+                  responseClass.substring(genericStart + 1, responseClass.length() - 1)))
+          .getType();
+    }
+    if (responseClass.endsWith("[]")) {
+      return TypeToken.getArray(
+              toType(adapterClass, responseClass.substring(0, responseClass.length() - 2)))
+          .getType();
+    }
+    return Class.forName(adapterClass.getName() + "$" + responseClass);
+  }
+
+  /*
+   * Each Exchange Adapter builds its Gson, with its type adapters, when it is initialised. Only
+   * that step is run here so no exchange config or network is needed.
+   */
+  private static Gson adapterGson(Class<?> adapterClass) throws ReflectiveOperationException {
+    final Object exchangeAdapter = adapterClass.getConstructor().newInstance();
+    final Method initGson = adapterClass.getDeclaredMethod("initGson");
+    initGson.setAccessible(true);
+    initGson.invoke(exchangeAdapter);
+    final Field gson = adapterClass.getDeclaredField("gson");
+    gson.setAccessible(true);
+    return (Gson) gson.get(exchangeAdapter);
+  }
+}
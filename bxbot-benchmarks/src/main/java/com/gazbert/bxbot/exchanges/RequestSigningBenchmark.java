@@ -0,0 +1,258 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of each Exchange Adapter's authenticated request path: building the
+ * params, taking a nonce, encoding the payload, signing it with HMAC-SHA256/384/512 and going
+ * through {@link AbstractExchangeAdapter#sendNetworkRequest(URL, String, String, Map)}.
+ *
+ * <p>Each adapter sends a limit order, as that is its busiest signed call. No request leaves the
+ * JVM: the adapter's transport is replaced with one that hands back a canned response. This is
+ * why the benchmark lives in the Exchange Adapters' package.
+ *
+ * <p>Build with {@code mvn -P benchmarks package}, then run {@code
+ * java -jar bxbot-benchmarks/target/benchmarks.jar RequestSigning}. Add {@code -prof gc} for the
+ * allocation rate.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestSigningBenchmark {
+
+  /*
+   * Kraken loads its pair precision config when it is initialised, so the canned response must
+   * be a valid Kraken response. The other adapters do not read it.
+   */
+  private static final ExchangeHttpResponse CANNED_RESPONSE =
+      new ExchangeHttpResponse(200, "OK", "{\"error\":[],\"result\":{}}");
+
+  // Base64 so that it can be used as the Coinbase Pro and Kraken secret too.
+  private static final String SECRET =
+      "c2VjcmV0LWtleS1mb3ItcmVxdWVzdC1zaWduaW5nLWJlbmNobWFyay0wMTIzNDU2Nzg5";
+
+  @Param({"Bitfinex", "Bitstamp", "CoinbasePro", "Gemini", "ItBit", "Kraken"})
+  private String exchange;
+
+  private ExchangeAdapter exchangeAdapter;
+  private Method sendAuthenticatedRequest;
+  private Object[] requestArgs;
+  private Map<String, String> orderParams;
+
+  /**
+   * Initialises the Exchange Adapter with dummy credentials and a transport that never sends
+   * anything.
+   *
+   * @throws Exception if the Exchange Adapter cannot be created.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    final Class<?> adapterClass =
+        Class.forName(getClass().getPackageName() + "." + exchange + "ExchangeAdapter");
+    final Object adapter = adapterClass.getDeclaredConstructor().newInstance();
+    ((AbstractExchangeAdapter) adapter).setHttpTransport(RequestSigningBenchmark::cannedResponse);
+    exchangeAdapter = (ExchangeAdapter) adapter;
+    exchangeAdapter.init(new BenchmarkExchangeConfig());
+
+    orderParams = new HashMap<>();
+    orderParams.put("price", "9123.45");
+    switch (exchange) {
+      case "Bitfinex":
+        orderParams.put("symbol", "btcusd");
+        orderParams.put("amount", "0.01234567");
+        orderParams.put("exchange", "bitfinex");
+        orderParams.put("side", "buy");
+        orderParams.put("type", "exchange limit");
+        requestArgs = new Object[] {"order/new", null};
+        break;
+      case "Bitstamp":
+        orderParams.put("amount", "0.01234567");
+        orderParams.put("client_order_id", "bxbot-0123456789abcdef");
+        requestArgs = new Object[] {"buy/btcusd", null};
+        break;
+      case "CoinbasePro":
+        orderParams.put("client_oid", "0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0");
+        orderParams.put("side", "buy");
+        orderParams.put("product_id", "BTC-GBP");
+        orderParams.put("size", "0.01234567");
+        requestArgs = new Object[] {"POST", "orders", null};
+        break;
+      case "Gemini":
+        orderParams.put("client_order_id", "bxbot-0123456789abcdef");
+        orderParams.put("symbol", "btcusd");
+        orderParams.put("amount", "0.01234567");
+        orderParams.put("side", "buy");
+        orderParams.put("type", "exchange limit");
+        requestArgs = new Object[] {"order/new", null};
+        break;
+      case "ItBit":
+        orderParams.put("type", "limit");
+        orderParams.put("amount", "0.0123");
+        orderParams.put("instrument", "XBTUSD");
+        orderParams.put("currency", "XBT");
+        orderParams.put("side", "buy");
+        requestArgs =
+            new Object[] {"POST", "wallets/7e037345-1288-4c39-12fe-d0f99a475a98/orders", null};
+        break;
+      case "Kraken":
+        orderParams.put("pair", "XXBTZUSD");
+        orderParams.put("type", "buy");
+        orderParams.put("ordertype", "limit");
+        orderParams.put("volume", "0.01234567");
+        requestArgs = new Object[] {"AddOrder", null};
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown exchange: " + exchange);
+    }
+
+    final Class<?>[] parameterTypes =
+        requestArgs.length == 2
+            ? new Class<?>[] {String.class, Map.class}
+            : new Class<?>[] {String.class, String.class, Map.class};
+    sendAuthenticatedRequest =
+        adapterClass.getDeclaredMethod("sendAuthenticatedRequestToExchange", parameterTypes);
+    sendAuthenticatedRequest.setAccessible(true);
+  }
+
+  /**
+   * Builds, signs and 'sends' a limit order. The params are copied first because the adapters add
+   * the nonce and signature to them.
+   *
+   * @return the canned response.
+   * @throws Exception if the adapter fails to build the request.
+   */
+  @Benchmark
+  public Object signOrderRequest() throws Exception {
+    requestArgs[requestArgs.length - 1] = new HashMap<>(orderParams);
+    return sendAuthenticatedRequest.invoke(exchangeAdapter, requestArgs);
+  }
+
+  private static ExchangeHttpResponse cannedResponse(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      int timeoutInMillis) {
+    return CANNED_RESPONSE;
+  }
+
+  /*
+   * Config for all six adapters: the union of their auth and other config items.
+   */
+  private static class BenchmarkExchangeConfig
+      implements ExchangeConfig, AuthenticationConfig, NetworkConfig, OtherConfig {
+
+    private final Map<String, String> items = new HashMap<>();
+
+    BenchmarkExchangeConfig() {
+      items.put("key", "benchmark-api-key");
+      items.put("secret", SECRET);
+      items.put("client-id", "123456");
+      items.put("userId", "benchmark-user-id");
+      items.put("passphrase", "benchmark-passphrase");
+      items.put("buy-fee", "0.25");
+      items.put("sell-fee", "0.25");
+      items.put("time-server-bias", "0");
+      items.put("keep-alive-during-maintenance", "false");
+    }
+
+    @Override
+    public String getExchangeName() {
+      return "Benchmark";
+    }
+
+    @Override
+    public String getExchangeAdapter() {
+      return null;
+    }
+
+    @Override
+    public AuthenticationConfig getAuthenticationConfig() {
+      return this;
+    }
+
+    @Override
+    public NetworkConfig getNetworkConfig() {
+      return this;
+    }
+
+    @Override
+    public OtherConfig getOtherConfig() {
+      return this;
+    }
+
+    @Override
+    public String getItem(String name) {
+      return items.get(name);
+    }
+
+    @Override
+    public List<Integer> getNonFatalErrorCodes() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getNonFatalErrorMessages() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public Integer getConnectionTimeout() {
+      return 30;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.config.exchange;
+
+import com.gazbert.bxbot.exchange.api.CircuitBreakerConfig;
+import com.google.common.base.MoreObjects;
+
+/**
+ * Exchange API circuit breaker config.
+ *
+ * @author gazbert
+ */
+public class CircuitBreakerConfigImpl implements CircuitBreakerConfig {
+
+  private Integer failureRateThreshold;
+  private Integer slowCallDurationThreshold;
+  private Integer slowCallRateThreshold;
+  private Integer slidingWindowSize;
+  private Integer minimumNumberOfCalls;
+  private Integer waitDurationInOpenState;
+
+  @Override
+  public Integer getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  public void setFailureRateThreshold(Integer failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  @Override
+  public Integer getSlowCallDurationThreshold() {
+    return slowCallDurationThreshold;
+  }
+
+  public void setSlowCallDurationThreshold(Integer slowCallDurationThreshold) {
+    this.slowCallDurationThreshold = slowCallDurationThreshold;
+  }
+
+  @Override
+  public Integer getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  public void setSlowCallRateThreshold(Integer slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  @Override
+  public Integer getSlidingWindowSize() {
+    return slidingWindowSize;
+  }
+
+  public void setSlidingWindowSize(Integer slidingWindowSize) {
+    this.slidingWindowSize = slidingWindowSize;
+  }
+
+  @Override
+  public Integer getMinimumNumberOfCalls() {
+    return minimumNumberOfCalls;
+  }
+
+  public void setMinimumNumberOfCalls(Integer minimumNumberOfCalls) {
+    this.minimumNumberOfCalls = minimumNumberOfCalls;
+  }
+
+  @Override
+  public Integer getWaitDurationInOpenState() {
+    return waitDurationInOpenState;
+  }
+
+  public void setWaitDurationInOpenState(Integer waitDurationInOpenState) {
+    this.waitDurationInOpenState = waitDurationInOpenState;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+               .add("failureRateThreshold", failureRateThreshold)
+               .add("slowCallDurationThreshold", slowCallDurationThreshold)
+               .add("slowCallRateThreshold", slowCallRateThreshold)
+               .add("slidingWindowSize", slidingWindowSize)
+               .add("minimumNumberOfCalls", minimumNumberOfCalls)
+               .add("waitDurationInOpenState", waitDurationInOpenState)
+               .toString();
+  }
+}
@@ -23,8 +23,11 @@
 
 package com.gazbert.bxbot.core.config.exchange;
 
+import com.gazbert.bxbot.domain.exchange.CircuitBreakerConfig;
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 import com.gazbert.bxbot.domain.exchange.NetworkConfig;
+import com.gazbert.bxbot.domain.exchange.RateLimitConfig;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.logging.log4j.LogManager;
@@ -53,6 +56,39 @@ public final class ExchangeApiConfigBuilder {
     if (networkConfig != null) {
       final NetworkConfigImpl exchangeApiNetworkConfig = new NetworkConfigImpl();
       exchangeApiNetworkConfig.setConnectionTimeout(networkConfig.getConnectionTimeout());
+      exchangeApiNetworkConfig.setConnectionPoolSize(networkConfig.getConnectionPoolSize());
+      exchangeApiNetworkConfig.setConnectionIdleTimeout(networkConfig.getConnectionIdleTimeout());
+      exchangeApiNetworkConfig.setRateLimitPolicy(networkConfig.getRateLimitPolicy());
+      exchangeApiNetworkConfig.setMaxRateLimitWait(networkConfig.getMaxRateLimitWait());
+
+      final Map<String, RateLimitConfig> rateLimits = networkConfig.getRateLimits();
+      if (rateLimits != null && !rateLimits.isEmpty()) {
+        final Map<String, com.gazbert.bxbot.exchange.api.RateLimitConfig> exchangeApiRateLimits =
+            new HashMap<>();
+        rateLimits.forEach(
+            (endpoint, rateLimit) -> {
+              final RateLimitConfigImpl exchangeApiRateLimit = new RateLimitConfigImpl();
+              exchangeApiRateLimit.setRequestsPerSecond(rateLimit.getRequestsPerSecond());
+              exchangeApiRateLimit.setBurst(rateLimit.getBurst());
+              exchangeApiRateLimits.put(endpoint, exchangeApiRateLimit);
+            });
+        exchangeApiNetworkConfig.setRateLimits(exchangeApiRateLimits);
+      }
+
+      final CircuitBreakerConfig circuitBreaker = networkConfig.getCircuitBreaker();
+      if (circuitBreaker != null) {
+        final CircuitBreakerConfigImpl exchangeApiCircuitBreaker = new CircuitBreakerConfigImpl();
+        exchangeApiCircuitBreaker.setFailureRateThreshold(circuitBreaker.getFailureRateThreshold());
+        exchangeApiCircuitBreaker.setSlowCallDurationThreshold(
+            circuitBreaker.getSlowCallDurationThreshold());
+        exchangeApiCircuitBreaker.setSlowCallRateThreshold(
+            circuitBreaker.getSlowCallRateThreshold());
+        exchangeApiCircuitBreaker.setSlidingWindowSize(circuitBreaker.getSlidingWindowSize());
+        exchangeApiCircuitBreaker.setMinimumNumberOfCalls(circuitBreaker.getMinimumNumberOfCalls());
+        exchangeApiCircuitBreaker.setWaitDurationInOpenState(
+            circuitBreaker.getWaitDurationInOpenState());
+        exchangeApiNetworkConfig.setCircuitBreaker(exchangeApiCircuitBreaker);
+      }
 
       final List<Integer> nonFatalErrorCodes = networkConfig.getNonFatalErrorCodes();
       if (nonFatalErrorCodes != null && !nonFatalErrorCodes.isEmpty()) {
@@ -23,11 +23,14 @@
 
 package com.gazbert.bxbot.core.config.exchange;
 
+import com.gazbert.bxbot.exchange.api.CircuitBreakerConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
 import com.google.common.base.MoreObjects;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Exchange API Network config.
@@ -39,6 +42,12 @@ public class NetworkConfigImpl implements NetworkConfig {
   private Integer connectionTimeout;
   private List<Integer> nonFatalErrorCodes;
   private List<String> nonFatalErrorMessages;
+  private Integer connectionPoolSize;
+  private Integer connectionIdleTimeout;
+  private Map<String, RateLimitConfig> rateLimits;
+  private String rateLimitPolicy;
+  private Integer maxRateLimitWait;
+  private CircuitBreakerConfig circuitBreaker;
 
   public NetworkConfigImpl() {
     nonFatalErrorCodes = new ArrayList<>();
@@ -72,12 +81,72 @@ public class NetworkConfigImpl implements NetworkConfig {
     this.nonFatalErrorMessages = nonFatalErrorMessages;
   }
 
+  @Override
+  public Integer getConnectionPoolSize() {
+    return connectionPoolSize;
+  }
+
+  public void setConnectionPoolSize(Integer connectionPoolSize) {
+    this.connectionPoolSize = connectionPoolSize;
+  }
+
+  @Override
+  public Integer getConnectionIdleTimeout() {
+    return connectionIdleTimeout;
+  }
+
+  public void setConnectionIdleTimeout(Integer connectionIdleTimeout) {
+    this.connectionIdleTimeout = connectionIdleTimeout;
+  }
+
+  @Override
+  public Map<String, RateLimitConfig> getRateLimits() {
+    return rateLimits;
+  }
+
+  public void setRateLimits(Map<String, RateLimitConfig> rateLimits) {
+    this.rateLimits = rateLimits;
+  }
+
+  @Override
+  public String getRateLimitPolicy() {
+    return rateLimitPolicy;
+  }
+
+  public void setRateLimitPolicy(String rateLimitPolicy) {
+    this.rateLimitPolicy = rateLimitPolicy;
+  }
+
+  @Override
+  public Integer getMaxRateLimitWait() {
+    return maxRateLimitWait;
+  }
+
+  public void setMaxRateLimitWait(Integer maxRateLimitWait) {
+    this.maxRateLimitWait = maxRateLimitWait;
+  }
+
+  @Override
+  public CircuitBreakerConfig getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public void setCircuitBreaker(CircuitBreakerConfig circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
                .add("connectionTimeout", connectionTimeout)
                .add("nonFatalErrorCodes", nonFatalErrorCodes)
                .add("nonFatalErrorMessages", nonFatalErrorMessages)
+               .add("connectionPoolSize", connectionPoolSize)
+               .add("connectionIdleTimeout", connectionIdleTimeout)
+               .add("rateLimits", rateLimits)
+               .add("rateLimitPolicy", rateLimitPolicy)
+               .add("maxRateLimitWait", maxRateLimitWait)
+               .add("circuitBreaker", circuitBreaker)
                .toString();
   }
 }
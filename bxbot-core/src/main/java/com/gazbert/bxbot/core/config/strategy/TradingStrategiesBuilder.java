@@ -24,11 +24,13 @@
 package com.gazbert.bxbot.core.config.strategy;
 
 import com.gazbert.bxbot.core.config.market.MarketImpl;
+import com.gazbert.bxbot.core.exchange.TradeCycleCache;
 import com.gazbert.bxbot.domain.market.MarketConfig;
 import com.gazbert.bxbot.domain.strategy.StrategyConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.Market;
+import com.gazbert.bxbot.trading.api.TradingApi;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,19 +52,32 @@ public class TradingStrategiesBuilder {
 
   private static final Logger LOG = LogManager.getLogger();
   private TradingStrategyFactory tradingStrategyFactory;
+  private TradeCycleCache tradeCycleCache;
 
   @Autowired
   public void setTradingStrategyFactory(TradingStrategyFactory tradingStrategyFactory) {
     this.tradingStrategyFactory = tradingStrategyFactory;
   }
 
-  /** Builds the Trading Strategy execution list. */
+  @Autowired
+  public void setTradeCycleCache(TradeCycleCache tradeCycleCache) {
+    this.tradeCycleCache = tradeCycleCache;
+  }
+
+  /**
+   * Builds the Trading Strategy execution list.
+   *
+   * <p>If a Trade Cycle Cache has been set, the strategies are given the Exchange Adapter wrapped
+   * by it, so they share the adapter's read results for the length of a trade cycle.
+   */
   public List<TradingStrategy> buildStrategies(
       List<StrategyConfig> strategies,
       List<MarketConfig> markets,
       ExchangeAdapter exchangeAdapter) {
 
     final List<TradingStrategy> tradingStrategiesToExecute = new ArrayList<>();
+    final TradingApi tradingApi =
+        tradeCycleCache == null ? exchangeAdapter : tradeCycleCache.decorate(exchangeAdapter);
 
     // Register the strategies
     final Map<String, StrategyConfig> tradingStrategyConfigs = new HashMap<>();
@@ -124,7 +139,7 @@ public class TradingStrategiesBuilder {
          */
         final TradingStrategy strategyImpl =
             tradingStrategyFactory.createTradingStrategy(tradingStrategy);
-        strategyImpl.init(exchangeAdapter, tradingMarket, tradingStrategyConfig);
+        strategyImpl.init(tradingApi, tradingMarket, tradingStrategyConfig);
 
         LOG.info(
             () ->
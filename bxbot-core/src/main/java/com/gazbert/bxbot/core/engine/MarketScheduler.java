@@ -0,0 +1,255 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.core.engine.TradeCycleScheduler.OverrunPolicy;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Schedules the Trading Strategy for each Market on its own trade cycle interval.
+ *
+ * <p>Markets are held in a priority queue ordered by when their next trade cycle is due. The
+ * engine waits until the first Market is due and then takes every Market that is due at that time;
+ * Markets due at the same time are returned highest priority first. Once the engine has executed
+ * them, they are rescheduled using their own {@link TradeCycleScheduler}.
+ *
+ * <p>Not thread safe - only the engine thread should use it.
+ *
+ * @author gazbert
+ */
+class MarketScheduler {
+
+  /** Waits for the given number of nanoseconds. */
+  interface Sleeper {
+    void sleep(long nanos) throws InterruptedException;
+  }
+
+  /** A Market's Trading Strategy and its trade cycle schedule. */
+  static final class ScheduledMarket {
+
+    private final String marketName;
+    private final TradingStrategy tradingStrategy;
+    private final int priority;
+    private final TradeCycleScheduler tradeCycleScheduler;
+    private final long sequence;
+
+    private ScheduledMarket(
+        String marketName,
+        TradingStrategy tradingStrategy,
+        int priority,
+        TradeCycleScheduler tradeCycleScheduler,
+        long sequence) {
+      this.marketName = marketName;
+      this.tradingStrategy = tradingStrategy;
+      this.priority = priority;
+      this.tradeCycleScheduler = tradeCycleScheduler;
+      this.sequence = sequence;
+    }
+
+    String getMarketName() {
+      return marketName;
+    }
+
+    TradingStrategy getTradingStrategy() {
+      return tradingStrategy;
+    }
+
+    int getPriority() {
+      return priority;
+    }
+
+    long getNextCycleStart() {
+      return tradeCycleScheduler.getNextCycleStart();
+    }
+  }
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /*
+   * Due time first. Markets due at the same time run highest priority first, then in the order
+   * they were configured.
+   */
+  private static final Comparator<ScheduledMarket> DUE_ORDER =
+      Comparator.comparingLong(ScheduledMarket::getNextCycleStart)
+          .thenComparing(ScheduledMarket::getPriority, Comparator.reverseOrder())
+          .thenComparingLong(market -> market.sequence);
+
+  private final PriorityQueue<ScheduledMarket> scheduledMarkets = new PriorityQueue<>(DUE_ORDER);
+  private final List<ScheduledMarket> allMarkets = new ArrayList<>();
+  private final OverrunPolicy overrunPolicy;
+  private final long idleIntervalNanos;
+  private final LongSupplier nanoClock;
+  private final Sleeper sleeper;
+
+  /**
+   * Creates the scheduler.
+   *
+   * @param overrunPolicy the policy to apply when a Market's trade cycle overruns.
+   * @param idleIntervalNanos how long to wait between trade cycles if there are no Markets.
+   */
+  MarketScheduler(OverrunPolicy overrunPolicy, long idleIntervalNanos) {
+    this(overrunPolicy, idleIntervalNanos, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+  }
+
+  MarketScheduler(
+      OverrunPolicy overrunPolicy,
+      long idleIntervalNanos,
+      LongSupplier nanoClock,
+      Sleeper sleeper) {
+    this.overrunPolicy = overrunPolicy;
+    this.idleIntervalNanos = idleIntervalNanos;
+    this.nanoClock = nanoClock;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Adds a Market to the schedule. All Markets must be added before the scheduler is started.
+   *
+   * @param marketName the Market name, used for logging.
+   * @param tradingStrategy the Trading Strategy to execute for the Market.
+   * @param intervalNanos the Market's trade cycle interval in nanos.
+   * @param priority the Market's priority; higher values run first when Markets are due together.
+   */
+  void addMarket(
+      String marketName, TradingStrategy tradingStrategy, long intervalNanos, int priority) {
+    final TradeCycleScheduler tradeCycleScheduler =
+        new TradeCycleScheduler(marketName, intervalNanos, overrunPolicy, nanoClock);
+    allMarkets.add(
+        new ScheduledMarket(
+            marketName, tradingStrategy, priority, tradeCycleScheduler, allMarkets.size()));
+  }
+
+  /** Starts the schedule. Every Market is due straight away. */
+  void start() {
+    final long now = nanoClock.getAsLong();
+    for (final ScheduledMarket market : allMarkets) {
+      market.tradeCycleScheduler.start(now);
+      scheduledMarkets.add(market);
+    }
+  }
+
+  /**
+   * Waits until the next Market is due and returns all the Markets that are due, highest priority
+   * first. The caller must pass them to {@link #reschedule(List)} once they have been executed.
+   *
+   * <p>If no Markets have been added, it waits for the idle interval and returns no Markets.
+   *
+   * @return the Markets that are due.
+   * @throws InterruptedException if the thread is interrupted while waiting.
+   */
+  List<ScheduledMarket> awaitDueMarkets() throws InterruptedException {
+    final ScheduledMarket nextMarket = scheduledMarkets.peek();
+    if (nextMarket == null) {
+      sleeper.sleep(idleIntervalNanos);
+      return Collections.emptyList();
+    }
+
+    final long waitNanos = nextMarket.getNextCycleStart() - nanoClock.getAsLong();
+    if (waitNanos > 0) {
+      LOG.info(
+          () ->
+              "*** Sleeping "
+                  + TimeUnit.NANOSECONDS.toMillis(waitNanos)
+                  + "ms til next trade cycle for "
+                  + nextMarket.getMarketName()
+                  + "... ***");
+    }
+
+    // Sleeps are rounded to the millisecond, so one can end just before the Market is due.
+    long stillToWaitNanos = waitNanos;
+    while (stillToWaitNanos > 0) {
+      sleeper.sleep(stillToWaitNanos);
+      stillToWaitNanos = nextMarket.getNextCycleStart() - nanoClock.getAsLong();
+    }
+
+    final long now = nanoClock.getAsLong();
+    final List<ScheduledMarket> dueMarkets = new ArrayList<>();
+    while (!scheduledMarkets.isEmpty() && scheduledMarkets.peek().getNextCycleStart() <= now) {
+      dueMarkets.add(scheduledMarkets.poll());
+    }
+    dueMarkets.sort(
+        Comparator.comparing(ScheduledMarket::getPriority, Comparator.reverseOrder())
+            .thenComparingLong(market -> market.sequence));
+    return dueMarkets;
+  }
+
+  /**
+   * Puts Markets back on the schedule after their trade cycle has been executed, or has failed.
+   *
+   * @param executedMarkets the Markets returned by {@link #awaitDueMarkets()}.
+   */
+  void reschedule(List<ScheduledMarket> executedMarkets) {
+    for (final ScheduledMarket market : executedMarkets) {
+      market.tradeCycleScheduler.completeCycle();
+      scheduledMarkets.add(market);
+    }
+  }
+
+  /**
+   * Puts Markets back on the schedule after their trade cycle failed with a network error, to be
+   * retried once the given delay has passed. No other Market is run before then either, so the
+   * exchange is given the whole delay to recover.
+   *
+   * @param failedMarkets the Markets returned by {@link #awaitDueMarkets()}.
+   * @param delayNanos how long to wait before retrying.
+   */
+  void retryAfter(List<ScheduledMarket> failedMarkets, long delayNanos) {
+    final long retryAt = nanoClock.getAsLong() + delayNanos;
+    for (final ScheduledMarket market : failedMarkets) {
+      market.tradeCycleScheduler.postponeTo(retryAt);
+      scheduledMarkets.add(market);
+    }
+
+    final List<ScheduledMarket> dueBeforeRetry = new ArrayList<>();
+    while (!scheduledMarkets.isEmpty() && scheduledMarkets.peek().getNextCycleStart() < retryAt) {
+      dueBeforeRetry.add(scheduledMarkets.poll());
+    }
+    for (final ScheduledMarket market : dueBeforeRetry) {
+      market.tradeCycleScheduler.postponeTo(retryAt);
+      scheduledMarkets.add(market);
+    }
+  }
+
+  /**
+   * Returns how many trade cycles have overrun their interval, across all Markets.
+   *
+   * @return the overrun count.
+   */
+  long getOverrunCount() {
+    long overrunCount = 0;
+    for (final ScheduledMarket market : allMarkets) {
+      overrunCount += market.tradeCycleScheduler.getOverrunCount();
+    }
+    return overrunCount;
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import com.gazbert.bxbot.domain.engine.NetworkErrorBackoffConfig;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Works out how long the Trading Engine waits before retrying a trade cycle that failed with a
+ * network error.
+ *
+ * <p>The first retry waits the initial delay; each consecutive failure multiplies the delay by the
+ * multiplier, up to the max delay. Jitter then takes a random fraction off each delay, up to the
+ * jitter fraction, so bots that lost the exchange at the same time don't all retry at the same
+ * time. A successful trade cycle resets the delay.
+ *
+ * <p>Not thread safe - only the engine thread should use it.
+ *
+ * @author gazbert
+ */
+class NetworkErrorBackoff {
+
+  static final int DEFAULT_INITIAL_DELAY = 1;
+  static final double DEFAULT_MULTIPLIER = 2.0;
+  static final int DEFAULT_MAX_DELAY = 300;
+  static final double DEFAULT_JITTER = 0.5;
+
+  private final long initialDelayNanos;
+  private final double multiplier;
+  private final long maxDelayNanos;
+  private final double jitter;
+  private final DoubleSupplier random;
+
+  private int consecutiveErrors;
+  private long currentDelayNanos;
+
+  /**
+   * Creates the backoff.
+   *
+   * @param initialDelayNanos the delay before the first retry.
+   * @param multiplier what the delay is multiplied by after each consecutive failure.
+   * @param maxDelayNanos the longest delay.
+   * @param jitter the largest fraction of the delay that is randomly taken off it, 0 to 1.
+   * @param random the source of random numbers between 0 (inclusive) and 1 (exclusive).
+   */
+  NetworkErrorBackoff(
+      long initialDelayNanos,
+      double multiplier,
+      long maxDelayNanos,
+      double jitter,
+      DoubleSupplier random) {
+    if (initialDelayNanos < 1
+        || multiplier < 1
+        || maxDelayNanos < initialDelayNanos
+        || jitter < 0
+        || jitter > 1) {
+      throw new IllegalArgumentException(
+          "Network error backoff must have an initial delay of at least 1 second, a max delay no"
+              + " less than the initial delay, a multiplier of 1 or more and a jitter of 0 to 1.");
+    }
+    this.initialDelayNanos = initialDelayNanos;
+    this.multiplier = multiplier;
+    this.maxDelayNanos = maxDelayNanos;
+    this.jitter = jitter;
+    this.random = random;
+  }
+
+  /**
+   * Creates the backoff from config. Fields set in the Exchange Adapter's config override those in
+   * the Engine config; fields set in neither take their default.
+   *
+   * @param engineBackoff the Engine's backoff config, can be null.
+   * @param exchangeBackoff the Exchange Adapter's backoff config, can be null.
+   * @return the backoff, or null if neither config is set.
+   */
+  static NetworkErrorBackoff fromConfig(
+      NetworkErrorBackoffConfig engineBackoff, NetworkErrorBackoffConfig exchangeBackoff) {
+    if (engineBackoff == null && exchangeBackoff == null) {
+      return null;
+    }
+    final NetworkErrorBackoffConfig engine =
+        engineBackoff != null ? engineBackoff : new NetworkErrorBackoffConfig();
+    final NetworkErrorBackoffConfig exchange =
+        exchangeBackoff != null ? exchangeBackoff : new NetworkErrorBackoffConfig();
+
+    final int initialDelay =
+        firstSet(exchange.getInitialDelay(), engine.getInitialDelay(), DEFAULT_INITIAL_DELAY);
+    final int maxDelay =
+        firstSet(
+            exchange.getMaxDelay(),
+            engine.getMaxDelay(),
+            Math.max(initialDelay, DEFAULT_MAX_DELAY));
+    return new NetworkErrorBackoff(
+        TimeUnit.SECONDS.toNanos(initialDelay),
+        firstSet(exchange.getMultiplier(), engine.getMultiplier(), DEFAULT_MULTIPLIER),
+        TimeUnit.SECONDS.toNanos(maxDelay),
+        firstSet(exchange.getJitter(), engine.getJitter(), DEFAULT_JITTER),
+        () -> ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * Records a network error and returns how long to wait before retrying.
+   *
+   * @return the delay in nanos.
+   */
+  long nextDelay() {
+    consecutiveErrors++;
+    final double backoff = initialDelayNanos * Math.pow(multiplier, consecutiveErrors - 1.0);
+    final long cappedDelay = backoff >= maxDelayNanos ? maxDelayNanos : (long) backoff;
+    currentDelayNanos = cappedDelay - (long) (cappedDelay * jitter * random.getAsDouble());
+    return currentDelayNanos;
+  }
+
+  /**
+   * Records a successful trade cycle; the next network error waits the initial delay again.
+   *
+   * @return true if the engine was backing off.
+   */
+  boolean reset() {
+    final boolean wasBackingOff = consecutiveErrors > 0;
+    consecutiveErrors = 0;
+    currentDelayNanos = 0;
+    return wasBackingOff;
+  }
+
+  int getConsecutiveErrors() {
+    return consecutiveErrors;
+  }
+
+  long getCurrentDelayNanos() {
+    return currentDelayNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "NetworkErrorBackoff{initialDelay="
+        + TimeUnit.NANOSECONDS.toSeconds(initialDelayNanos)
+        + "s, multiplier="
+        + multiplier
+        + ", maxDelay="
+        + TimeUnit.NANOSECONDS.toSeconds(maxDelayNanos)
+        + "s, jitter="
+        + jitter
+        + "}";
+  }
+
+  private static <T> T firstSet(T exchangeValue, T engineValue, T defaultValue) {
+    if (exchangeValue != null) {
+      return exchangeValue;
+    }
+    return engineValue != null ? engineValue : defaultValue;
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Fixed-rate scheduler for the Trading Engine's trade cycles.
+ *
+ * <p>Cycle start times are kept on a fixed grid of interval sized slots measured from when the
+ * scheduler is started. At the end of each cycle the next start time is the next slot, so the time
+ * spent calling the exchange does not push the cadence out.
+ *
+ * <p>Each Market has its own scheduler; see {@link MarketScheduler}.
+ *
+ * <p>If a cycle runs past the start of the next slot it has overrun. The overrun is logged and
+ * counted, and the {@link OverrunPolicy} decides when the next cycle starts.
+ *
+ * @author gazbert
+ */
+class TradeCycleScheduler {
+
+  /** What to do when a trade cycle takes longer than the trade cycle interval. */
+  enum OverrunPolicy {
+    /** Drop the missed slots and start the next cycle at the next slot on the grid. */
+    SKIP,
+
+    /** Start the missed cycles immediately, one after the other, until back on the grid. */
+    CATCH_UP,
+
+    /** Start the next cycle immediately and re-anchor the grid on that cycle. */
+    BACK_TO_BACK;
+
+    /**
+     * Returns the policy for the given config value. Defaults to SKIP if no value is set.
+     *
+     * @param policy the policy name, case insensitive.
+     * @return the overrun policy.
+     * @throws IllegalArgumentException if the value is not a known policy.
+     */
+    static OverrunPolicy fromConfig(String policy) {
+      if (policy == null || policy.trim().isEmpty()) {
+        return SKIP;
+      }
+      return valueOf(policy.trim().toUpperCase(Locale.ENGLISH).replace('-', '_'));
+    }
+  }
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final String name;
+  private final long intervalNanos;
+  private final OverrunPolicy overrunPolicy;
+  private final LongSupplier nanoClock;
+
+  private long currentCycleStart;
+  private volatile long overrunCount;
+  private boolean started;
+
+  /**
+   * Creates the scheduler.
+   *
+   * @param name what is being scheduled, used for logging.
+   * @param intervalNanos the trade cycle interval in nanos.
+   * @param overrunPolicy the policy to apply when a cycle overruns.
+   * @param nanoClock the clock to measure cycles with, e.g. System::nanoTime.
+   */
+  TradeCycleScheduler(
+      String name, long intervalNanos, OverrunPolicy overrunPolicy, LongSupplier nanoClock) {
+    if (intervalNanos <= 0) {
+      throw new IllegalArgumentException("Trade cycle interval must be more than 0 for " + name);
+    }
+    this.name = name;
+    this.intervalNanos = intervalNanos;
+    this.overrunPolicy = overrunPolicy;
+    this.nanoClock = nanoClock;
+  }
+
+  /** Marks the start of the first trade cycle; the grid is anchored here. */
+  void start() {
+    start(nanoClock.getAsLong());
+  }
+
+  /**
+   * Anchors the grid at the given time, which becomes the start of the first trade cycle.
+   *
+   * @param firstCycleStart the first cycle start time in nanos.
+   */
+  void start(long firstCycleStart) {
+    currentCycleStart = firstCycleStart;
+    started = true;
+  }
+
+  /**
+   * Marks the end of the current trade cycle and works out when the next one should start.
+   *
+   * @return how long to wait in nanos before starting the next cycle; 0 to start it immediately.
+   * @see #getNextCycleStart()
+   */
+  long completeCycle() {
+    if (!started) {
+      throw new IllegalStateException("Trade cycle scheduler has not been started");
+    }
+
+    final long now = nanoClock.getAsLong();
+    final long nextSlot = currentCycleStart + intervalNanos;
+    final long overrun = now - nextSlot;
+
+    if (overrun <= 0) {
+      currentCycleStart = nextSlot;
+    } else {
+      overrunCount++;
+      final long cycleDuration = now - currentCycleStart;
+      LOG.warn(
+          () ->
+              name
+                  + " trade cycle overran its interval by "
+                  + TimeUnit.NANOSECONDS.toMillis(overrun)
+                  + "ms (cycle took "
+                  + TimeUnit.NANOSECONDS.toMillis(cycleDuration)
+                  + "ms). Overrun count: "
+                  + overrunCount
+                  + ". Applying overrun policy: "
+                  + overrunPolicy);
+
+      switch (overrunPolicy) {
+        case CATCH_UP:
+          currentCycleStart = nextSlot;
+          break;
+        case BACK_TO_BACK:
+          currentCycleStart = now;
+          break;
+        case SKIP:
+        default:
+          final long slotsMissed = overrun / intervalNanos + 1;
+          currentCycleStart = nextSlot + slotsMissed * intervalNanos;
+          break;
+      }
+    }
+    return Math.max(0, currentCycleStart - now);
+  }
+
+  /**
+   * Puts the next trade cycle back to the given time, e.g. to retry after a network error. The
+   * grid is re-anchored on that cycle.
+   *
+   * @param nextCycleStart the next cycle start time in nanos.
+   */
+  void postponeTo(long nextCycleStart) {
+    if (!started) {
+      throw new IllegalStateException("Trade cycle scheduler has not been started");
+    }
+    currentCycleStart = nextCycleStart;
+  }
+
+  /**
+   * Returns when the next trade cycle is due, on the clock the scheduler was created with. Before
+   * the first cycle completes, this is when the scheduler was started.
+   *
+   * @return the next cycle start time in nanos.
+   */
+  long getNextCycleStart() {
+    return currentCycleStart;
+  }
+
+  long getIntervalNanos() {
+    return intervalNanos;
+  }
+
+  long getOverrunCount() {
+    return overrunCount;
+  }
+
+  OverrunPolicy getOverrunPolicy() {
+    return overrunPolicy;
+  }
+}
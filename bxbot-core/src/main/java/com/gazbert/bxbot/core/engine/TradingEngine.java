@@ -26,11 +26,19 @@ package com.gazbert.bxbot.core.engine;
 import com.gazbert.bxbot.core.config.exchange.ExchangeApiConfigBuilder;
 import com.gazbert.bxbot.core.config.exchange.ExchangeConfigImpl;
 import com.gazbert.bxbot.core.config.strategy.TradingStrategiesBuilder;
+import com.gazbert.bxbot.core.engine.MarketScheduler.ScheduledMarket;
+import com.gazbert.bxbot.core.engine.TradeCycleScheduler.OverrunPolicy;
+import com.gazbert.bxbot.core.exchange.BalanceService;
+import com.gazbert.bxbot.core.exchange.ExchangeHealthIndicator;
+import com.gazbert.bxbot.core.exchange.ExchangeLatencyMetrics;
+import com.gazbert.bxbot.core.exchange.ExchangeRateLimitMetrics;
+import com.gazbert.bxbot.core.exchange.TradeCycleCache;
 import com.gazbert.bxbot.core.mail.EmailAlertMessageBuilder;
 import com.gazbert.bxbot.core.mail.EmailAlerter;
 import com.gazbert.bxbot.core.util.ConfigurableComponentFactory;
 import com.gazbert.bxbot.core.util.EmergencyStopChecker;
 import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.domain.engine.NetworkErrorBackoffConfig;
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 import com.gazbert.bxbot.domain.market.MarketConfig;
 import com.gazbert.bxbot.domain.strategy.StrategyConfig;
@@ -44,7 +52,15 @@ import com.gazbert.bxbot.strategy.api.TradingStrategy;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,15 +75,24 @@ import org.springframework.stereotype.Component;
  * shutdown.
  *
  * <p>The only time the bot does not fail hard and fast is for network issues connecting to the
- * exchange - it logs the error and retries at next trade cycle.
+ * exchange - it logs the error and retries at next trade cycle. If a network error backoff is
+ * configured, it retries after an exponentially growing delay instead, which is reset once a trade
+ * cycle succeeds.
  *
  * <p>To keep things simple:
  *
  * <ul>
- *   <li>The engine is single threaded.
+ *   <li>The engine is single threaded by default. If a strategyThreadPoolSize greater than 1 is
+ *       set in the Engine config, the Trading Strategies for each Market are executed concurrently
+ *       on a bounded thread pool and the trade cycle completes when the slowest Market completes.
+ *       Only enable this if your Exchange Adapter is safe to call from multiple threads.
  *   <li>The engine only supports trading on 1 exchange per instance of the bot, i.e. 1 Exchange
  *       Adapter per process.
  *   <li>The engine only supports 1 Trading Strategy per Market.
+ *   <li>Each Market's Trading Strategy is executed on the Market's own trade cycle interval if it
+ *       has one, else the engine's trade cycle interval. The Emergency Stop check is run once at
+ *       the start of every trade cycle, however many Markets are due in it. It reads the same
+ *       balances snapshot as the Trading Strategies.
  * </ul>
  *
  * @author gazbert
@@ -81,6 +106,7 @@ public class TradingEngine {
   private static final String CRITICAL_EMAIL_ALERT_SUBJECT = "CRITICAL Alert message from BX-bot";
   private static final String DETAILS_ERROR_MSG_LABEL = " Details: ";
   private static final String CAUSE_ERROR_MSG_LABEL = " Cause: ";
+  private static final String STRATEGY_THREAD_NAME_PREFIX = "bxbot-strategy-";
 
   private static final Object IS_RUNNING_MONITOR = new Object();
   private Thread engineThread;
@@ -91,6 +117,12 @@ public class TradingEngine {
   private List<TradingStrategy> tradingStrategies;
   private EngineConfig engineConfig;
   private ExchangeAdapter exchangeAdapter;
+  private String exchangeAdapterClassName;
+  private ExecutorService strategyExecutor;
+  private List<MarketConfig> tradingMarkets;
+  private MarketScheduler marketScheduler;
+  private NetworkErrorBackoff networkErrorBackoff;
+  private NetworkErrorBackoffConfig exchangeNetworkErrorBackoff;
 
   private final ExchangeConfigService exchangeConfigService;
   private final EngineConfigService engineConfigService;
@@ -98,6 +130,11 @@ public class TradingEngine {
   private final MarketConfigService marketConfigService;
 
   private final TradingStrategiesBuilder tradingStrategiesBuilder;
+  private final TradeCycleCache tradeCycleCache;
+  private final BalanceService balanceService;
+  private final ExchangeHealthIndicator exchangeHealthIndicator;
+  private final ExchangeLatencyMetrics exchangeLatencyMetrics;
+  private final ExchangeRateLimitMetrics exchangeRateLimitMetrics;
 
   /** Creates the Trading Engine. */
   @Autowired
@@ -107,7 +144,12 @@ public class TradingEngine {
       StrategyConfigService strategyConfigService,
       MarketConfigService marketConfigService,
       EmailAlerter emailAlerter,
-      TradingStrategiesBuilder tradingStrategiesBuilder) {
+      TradingStrategiesBuilder tradingStrategiesBuilder,
+      TradeCycleCache tradeCycleCache,
+      BalanceService balanceService,
+      ExchangeHealthIndicator exchangeHealthIndicator,
+      ExchangeLatencyMetrics exchangeLatencyMetrics,
+      ExchangeRateLimitMetrics exchangeRateLimitMetrics) {
 
     this.exchangeConfigService = exchangeConfigService;
     this.engineConfigService = engineConfigService;
@@ -115,6 +157,11 @@ public class TradingEngine {
     this.marketConfigService = marketConfigService;
     this.emailAlerter = emailAlerter;
     this.tradingStrategiesBuilder = tradingStrategiesBuilder;
+    this.tradeCycleCache = tradeCycleCache;
+    this.balanceService = balanceService;
+    this.exchangeHealthIndicator = exchangeHealthIndicator;
+    this.exchangeLatencyMetrics = exchangeLatencyMetrics;
+    this.exchangeRateLimitMetrics = exchangeRateLimitMetrics;
   }
 
   /** Starts the bot. */
@@ -138,9 +185,17 @@ public class TradingEngine {
   private void init() {
     LOG.info(() -> "Initialising Trading Engine...");
     // the sequence order of these methods is significant - don't change it.
-    exchangeAdapter = loadExchangeAdapter();
+    final ExchangeAdapter loadedExchangeAdapter = loadExchangeAdapter();
+    exchangeAdapterClassName = loadedExchangeAdapter.getClass().getName();
+    exchangeAdapter = exchangeLatencyMetrics.instrument(loadedExchangeAdapter);
+    exchangeHealthIndicator.setExchangeAdapter(exchangeAdapter);
+    exchangeRateLimitMetrics.setExchangeAdapter(exchangeAdapter);
     engineConfig = loadEngineConfig();
+    balanceService.init(exchangeAdapter, engineConfig);
     tradingStrategies = loadTradingStrategies();
+    strategyExecutor = createStrategyExecutor();
+    marketScheduler = createMarketScheduler();
+    networkErrorBackoff = createNetworkErrorBackoff();
   }
 
   /*
@@ -150,23 +205,44 @@ public class TradingEngine {
    */
   private void runMainControlLoop() {
     LOG.info(() -> "Starting Trading Engine for " + engineConfig.getBotId() + " ...");
+    marketScheduler.start();
     while (keepAlive) {
       try {
-        LOG.info(() -> "*** Starting next trade cycle... ***");
-
-        // Emergency Stop Check MUST run at start of every trade cycle.
-        if (isEmergencyStopLimitBreached()) {
-          break;
-        }
-
-        for (final TradingStrategy tradingStrategy : tradingStrategies) {
-          LOG.info(
-              () ->
-                  "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
-          tradingStrategy.execute();
+        final List<ScheduledMarket> dueMarkets = marketScheduler.awaitDueMarkets();
+        boolean networkError = false;
+        try {
+          LOG.info(() -> "*** Starting next trade cycle... ***");
+          tradeCycleCache.startTradeCycle();
+          balanceService.startTradeCycle();
+
+          // Emergency Stop Check MUST run at start of every trade cycle.
+          if (isEmergencyStopLimitBreached()) {
+            break;
+          }
+
+          executeTradingStrategies(dueMarkets);
+          resetNetworkErrorBackoff();
+          balanceService.refreshForNextTradeCycle();
+
+        } catch (ExchangeNetworkException e) {
+          networkError = true;
+          throw e;
+
+        } finally {
+          // Markets are always put back on the schedule, even if the trade cycle failed.
+          if (networkError && networkErrorBackoff != null) {
+            marketScheduler.retryAfter(dueMarkets, networkErrorBackoff.nextDelay());
+            exchangeHealthIndicator.setNetworkErrorBackoff(
+                networkErrorBackoff.getConsecutiveErrors(),
+                TimeUnit.NANOSECONDS.toMillis(networkErrorBackoff.getCurrentDelayNanos()));
+          } else {
+            marketScheduler.reschedule(dueMarkets);
+          }
         }
 
-        sleepUntilNextTradingCycle();
+      } catch (InterruptedException e) {
+        LOG.warn(() -> "Control Loop thread interrupted when sleeping before next trade cycle");
+        Thread.currentThread().interrupt();
 
       } catch (ExchangeNetworkException e) {
         handleExchangeNetworkException(e);
@@ -184,11 +260,170 @@ public class TradingEngine {
 
     // We've broken out of the control loop due to error or admin shutdown request
     LOG.fatal(() -> "BX-bot " + engineConfig.getBotId() + " is shutting down NOW!");
+    if (strategyExecutor != null) {
+      strategyExecutor.shutdownNow();
+    }
     synchronized (IS_RUNNING_MONITOR) {
       isRunning = false;
     }
   }
 
+  private void executeTradingStrategies(List<ScheduledMarket> dueMarkets) throws Exception {
+    if (strategyExecutor == null || dueMarkets.size() == 1) {
+      for (final ScheduledMarket dueMarket : dueMarkets) {
+        executeTradingStrategy(dueMarket.getTradingStrategy());
+      }
+    } else {
+      executeTradingStrategiesConcurrently(dueMarkets);
+    }
+  }
+
+  /*
+   * Executes each Market's Trading Strategy on the strategy thread pool and waits for all of them
+   * to complete - we never start the next trade cycle with strategies still running from the last.
+   * If any strategy fails, the most serious exception is rethrown so the existing exception
+   * handling policy is applied: a fatal error wins over an ExchangeNetworkException.
+   */
+  private void executeTradingStrategiesConcurrently(List<ScheduledMarket> dueMarkets)
+      throws Exception {
+    final List<Future<Void>> results = new ArrayList<>(dueMarkets.size());
+    for (final ScheduledMarket dueMarket : dueMarkets) {
+      final TradingStrategy tradingStrategy = dueMarket.getTradingStrategy();
+      results.add(
+          strategyExecutor.submit(
+              () -> {
+                executeTradingStrategy(tradingStrategy);
+                return null;
+              }));
+    }
+
+    Exception failure = null;
+    try {
+      for (final Future<Void> result : results) {
+        try {
+          result.get();
+        } catch (ExecutionException e) {
+          failure = mostSeriousFailure(failure, unwrapStrategyFailure(e));
+        }
+      }
+    } catch (InterruptedException e) {
+      LOG.warn(() -> "Control Loop thread interrupted when waiting for Trading Strategies");
+      results.forEach(result -> result.cancel(true));
+      Thread.currentThread().interrupt();
+      return;
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void executeTradingStrategy(TradingStrategy tradingStrategy)
+      throws TradingApiException, ExchangeNetworkException, StrategyException {
+    LOG.info(
+        () -> "Executing Trading Strategy ---> " + tradingStrategy.getClass().getSimpleName());
+    tradingStrategy.execute();
+  }
+
+  private static Exception unwrapStrategyFailure(ExecutionException e) {
+    final Throwable cause = e.getCause();
+    if (cause instanceof Exception) {
+      return (Exception) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return e;
+  }
+
+  private static Exception mostSeriousFailure(Exception current, Exception candidate) {
+    if (current == null) {
+      return candidate;
+    }
+    LOG.error(() -> "Additional Trading Strategy failure in same trade cycle", candidate);
+    if (current instanceof ExchangeNetworkException
+        && !(candidate instanceof ExchangeNetworkException)) {
+      return candidate;
+    }
+    return current;
+  }
+
+  /*
+   * Each Market is scheduled on its own trade cycle interval if it has one, else the engine's.
+   * The strategies are built in the same order as the enabled Markets they trade on.
+   */
+  private MarketScheduler createMarketScheduler() {
+    final OverrunPolicy overrunPolicy =
+        OverrunPolicy.fromConfig(engineConfig.getTradeCycleOverrunPolicy());
+    final long engineIntervalNanos =
+        TimeUnit.SECONDS.toNanos(engineConfig.getTradeCycleInterval());
+    LOG.info(
+        () ->
+            "Trade cycle interval is "
+                + engineConfig.getTradeCycleInterval()
+                + "s with overrun policy: "
+                + overrunPolicy);
+
+    final MarketScheduler scheduler = new MarketScheduler(overrunPolicy, engineIntervalNanos);
+    for (int i = 0; i < tradingStrategies.size(); i++) {
+      final MarketConfig market = tradingMarkets.get(i);
+      final long intervalNanos =
+          market.getTradeCycleInterval() == null
+              ? engineIntervalNanos
+              : TimeUnit.SECONDS.toNanos(market.getTradeCycleInterval());
+      final int priority = market.getPriority() == null ? 0 : market.getPriority();
+      LOG.info(
+          () ->
+              "Scheduling "
+                  + market.getName()
+                  + " market every "
+                  + TimeUnit.NANOSECONDS.toSeconds(intervalNanos)
+                  + "s with priority "
+                  + priority);
+      scheduler.addMarket(market.getName(), tradingStrategies.get(i), intervalNanos, priority);
+    }
+    return scheduler;
+  }
+
+  private NetworkErrorBackoff createNetworkErrorBackoff() {
+    final NetworkErrorBackoff backoff =
+        NetworkErrorBackoff.fromConfig(
+            engineConfig.getNetworkErrorBackoff(), exchangeNetworkErrorBackoff);
+    if (backoff == null) {
+      LOG.info(() -> "Trade cycles that fail with a network error will be retried next cycle");
+    } else {
+      LOG.info(() -> "Trade cycles that fail with a network error will be retried with " + backoff);
+    }
+    return backoff;
+  }
+
+  private void resetNetworkErrorBackoff() {
+    if (networkErrorBackoff != null && networkErrorBackoff.reset()) {
+      LOG.info(() -> "Exchange is reachable again - network error backoff has been reset");
+      exchangeHealthIndicator.setNetworkErrorBackoff(0, 0);
+    }
+  }
+
+  private ExecutorService createStrategyExecutor() {
+    final int poolSize =
+        Math.min(engineConfig.getStrategyThreadPoolSize(), tradingStrategies.size());
+    if (poolSize <= 1) {
+      LOG.info(() -> "Trading Strategies will be executed sequentially");
+      return null;
+    }
+
+    LOG.info(() -> "Trading Strategies will be executed concurrently using threads: " + poolSize);
+    final AtomicInteger threadCount = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        poolSize,
+        runnable -> {
+          final Thread thread =
+              new Thread(runnable, STRATEGY_THREAD_NAME_PREFIX + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
   /*
    * Shutdown the Trading Engine.
    * Might be called from a different thread.
@@ -206,18 +441,8 @@ public class TradingEngine {
     return isRunning;
   }
 
-  private void sleepUntilNextTradingCycle() {
-    LOG.info(
-        () ->
-            "*** Sleeping "
-                + engineConfig.getTradeCycleInterval()
-                + "s til next trade cycle... ***");
-    try {
-      Thread.sleep(engineConfig.getTradeCycleInterval() * 1000L);
-    } catch (InterruptedException e) {
-      LOG.warn(() -> "Control Loop thread interrupted when sleeping before next trade cycle");
-      Thread.currentThread().interrupt();
-    }
+  long getTradeCycleOverrunCount() {
+    return marketScheduler == null ? 0 : marketScheduler.getOverrunCount();
   }
 
   /*
@@ -225,19 +450,20 @@ public class TradingEngine {
    * Trading Engine. Current policy is to log it and sleep until next trade cycle.
    */
   private void handleExchangeNetworkException(ExchangeNetworkException e) {
-    final String errorMessage =
-        "A network error has occurred in Exchange Adapter! "
-            + "BX-bot will try again in "
-            + engineConfig.getTradeCycleInterval()
-            + "s...";
-    LOG.error(() -> errorMessage, e);
-
-    try {
-      Thread.sleep(engineConfig.getTradeCycleInterval() * 1000L);
-    } catch (InterruptedException e1) {
-      LOG.warn(() -> "Control Loop thread interrupted when sleeping before next trade cycle");
-      Thread.currentThread().interrupt();
+    final String errorMessage;
+    if (networkErrorBackoff == null) {
+      errorMessage =
+          "A network error has occurred in Exchange Adapter! "
+              + "BX-bot will try again at next trade cycle...";
+    } else {
+      errorMessage =
+          "A network error has occurred in Exchange Adapter! BX-bot will try again in "
+              + TimeUnit.NANOSECONDS.toMillis(networkErrorBackoff.getCurrentDelayNanos())
+              + "ms (consecutive network errors: "
+              + networkErrorBackoff.getConsecutiveErrors()
+              + ")...";
     }
+    LOG.error(() -> errorMessage, e);
   }
 
   /*
@@ -258,7 +484,7 @@ public class TradingEngine {
             e,
             engineConfig.getBotId(),
             engineConfig.getBotName(),
-            exchangeAdapter.getClass().getName()));
+            exchangeAdapterClassName));
     keepAlive = false;
   }
 
@@ -280,7 +506,7 @@ public class TradingEngine {
             e,
             engineConfig.getBotId(),
             engineConfig.getBotName(),
-            exchangeAdapter.getClass().getName()));
+            exchangeAdapterClassName));
     keepAlive = false;
   }
 
@@ -303,7 +529,7 @@ public class TradingEngine {
             e,
             engineConfig.getBotId(),
             engineConfig.getBotName(),
-            exchangeAdapter.getClass().getName()));
+            exchangeAdapterClassName));
     keepAlive = false;
   }
 
@@ -313,12 +539,16 @@ public class TradingEngine {
       return false; // by-pass the emergency stop check
     }
     return EmergencyStopChecker.isEmergencyStopLimitBreached(
-        exchangeAdapter, engineConfig, emailAlerter);
+        balanceService, exchangeAdapter, engineConfig, emailAlerter);
   }
 
   private ExchangeAdapter loadExchangeAdapter() {
     final ExchangeConfig exchangeConfig = exchangeConfigService.getExchangeConfig();
     LOG.info(() -> "Fetched Exchange config from repository: " + exchangeConfig);
+    exchangeNetworkErrorBackoff =
+        exchangeConfig.getNetworkConfig() == null
+            ? null
+            : exchangeConfig.getNetworkConfig().getNetworkErrorBackoff();
 
     final ExchangeAdapter adapter =
         ConfigurableComponentFactory.createComponent(exchangeConfig.getAdapter());
@@ -341,6 +571,7 @@ public class TradingEngine {
     LOG.info(() -> "Fetched Strategy config from repository: " + strategies);
     final List<MarketConfig> markets = marketConfigService.getAllMarketConfig();
     LOG.info(() -> "Fetched Markets config from repository: " + markets);
+    tradingMarkets = markets.stream().filter(MarketConfig::isEnabled).collect(Collectors.toList());
     return tradingStrategiesBuilder.buildStrategies(strategies, markets, exchangeAdapter);
   }
 }
@@ -0,0 +1,318 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Owns the bot's snapshot of its balances on the exchange.
+ *
+ * <p>The Emergency Stop check and the Trading Strategies read the same snapshot, so the balances
+ * are fetched from the exchange once per trade cycle, or once per balanceCacheTtl seconds if it is
+ * set in the Engine config. Creating or cancelling an order throws the snapshot away, as does an
+ * open order being filled, i.e. disappearing from, or shrinking in, the open orders the exchange
+ * returns.
+ *
+ * <p>If asyncBalanceRefresh is set in the Engine config, the next snapshot is fetched in the
+ * background once the trade cycle's strategies have been executed, so the next trade cycle does
+ * not wait for it. The snapshot is then up to a trade cycle interval old when the Emergency Stop
+ * check reads it.
+ *
+ * <p>It is thread safe.
+ *
+ * @author gazbert
+ */
+@Component
+public class BalanceService {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final String REFRESH_THREAD_NAME = "bxbot-balance-refresh";
+  private static final String NO_MARKET = "";
+
+  /** The balances fetched from the exchange, and the trade cycle they were fetched for. */
+  private static final class Snapshot {
+
+    private final BalanceInfo balanceInfo;
+    private final long generation;
+    private final long tradeCycle;
+    private final long fetchedAtNanos;
+
+    private Snapshot(
+        BalanceInfo balanceInfo, long generation, long tradeCycle, long fetchedAtNanos) {
+      this.balanceInfo = balanceInfo;
+      this.generation = generation;
+      this.tradeCycle = tradeCycle;
+      this.fetchedAtNanos = fetchedAtNanos;
+    }
+  }
+
+  /** A balances fetch in flight. */
+  private static final class Fetch {
+
+    private final long generation;
+    private final long tradeCycle;
+    private final CompletableFuture<Snapshot> outcome = new CompletableFuture<>();
+
+    private Fetch(long generation, long tradeCycle) {
+      this.generation = generation;
+      this.tradeCycle = tradeCycle;
+    }
+  }
+
+  /*
+   * The generation goes up every time the balances are known to have changed. A snapshot or fetch
+   * from an older generation might not include the change, so is never used.
+   */
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicLong tradeCycle = new AtomicLong();
+  private final AtomicLong fetchCount = new AtomicLong();
+  private final AtomicReference<Fetch> fetchInFlight = new AtomicReference<>();
+  private final Map<String, Map<String, BigDecimal>> openOrderQuantities =
+      new ConcurrentHashMap<>();
+  private volatile Snapshot snapshot;
+  private volatile TradingApi tradingApi;
+  private volatile long ttlNanos;
+  private volatile ExecutorService refreshExecutor;
+
+  /**
+   * Initialises the service. It must be called before the balances are read.
+   *
+   * @param tradingApi the Trading API to fetch the balances from, usually the Exchange Adapter.
+   * @param engineConfig the Trading Engine config.
+   */
+  public synchronized void init(TradingApi tradingApi, EngineConfig engineConfig) {
+    this.tradingApi = tradingApi;
+    ttlNanos = TimeUnit.SECONDS.toNanos(engineConfig.getBalanceCacheTtl());
+    if (ttlNanos == 0) {
+      LOG.info(() -> "Balances will be fetched once per trade cycle");
+    } else {
+      LOG.info(
+          () ->
+              "Balances will be fetched once every "
+                  + engineConfig.getBalanceCacheTtl()
+                  + "s");
+    }
+
+    if (engineConfig.isAsyncBalanceRefresh() && refreshExecutor == null) {
+      LOG.info(() -> "Balances will be refreshed in the background between trade cycles");
+      refreshExecutor =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                final Thread thread = new Thread(runnable, REFRESH_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    invalidate();
+  }
+
+  /** Starts a new trade cycle; if there is no balanceCacheTtl, the snapshot is now stale. */
+  public void startTradeCycle() {
+    tradeCycle.incrementAndGet();
+  }
+
+  /**
+   * Returns the balances snapshot, fetching it from the exchange if it is stale. If the balances
+   * are already being fetched, the caller waits for that fetch rather than making another.
+   *
+   * @return the balances on the exchange.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   * @throws TradingApiException if the exchange returned an error or the service has not been
+   *     initialised.
+   */
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    if (tradingApi == null) {
+      throw new TradingApiException("Balance Service has not been initialised");
+    }
+
+    final long currentGeneration = generation.get();
+    final long currentTradeCycle = tradeCycle.get();
+    final Snapshot current = snapshot;
+    if (isFresh(current, currentGeneration, currentTradeCycle)) {
+      return current.balanceInfo;
+    }
+
+    while (true) {
+      final Fetch inFlight = fetchInFlight.get();
+      if (inFlight != null
+          && inFlight.generation == currentGeneration
+          && inFlight.tradeCycle >= currentTradeCycle) {
+        LOG.debug(() -> "Waiting for balances fetch already in flight");
+        return awaitOutcome(inFlight).balanceInfo;
+      }
+
+      final Fetch fetch = new Fetch(currentGeneration, currentTradeCycle);
+      if (fetchInFlight.compareAndSet(inFlight, fetch)) {
+        runFetch(fetch, false);
+        return awaitOutcome(fetch).balanceInfo;
+      }
+    }
+  }
+
+  /**
+   * Throws the balances snapshot away. Called when an order has been created or cancelled.
+   */
+  public void invalidate() {
+    generation.incrementAndGet();
+    snapshot = null;
+  }
+
+  /**
+   * Checks a market's open orders against the ones seen last time. If any have been filled, or
+   * part filled, since then, the balances snapshot is thrown away.
+   *
+   * @param marketId the market the open orders are for.
+   * @param openOrders the open orders the exchange returned.
+   */
+  public void checkForFills(String marketId, List<OpenOrder> openOrders) {
+    final Map<String, BigDecimal> quantities = new HashMap<>();
+    for (final OpenOrder openOrder : openOrders) {
+      quantities.put(openOrder.getId(), openOrder.getQuantity());
+    }
+
+    final Map<String, BigDecimal> previousQuantities =
+        openOrderQuantities.put(marketId == null ? NO_MARKET : marketId, quantities);
+    if (previousQuantities == null) {
+      return;
+    }
+
+    for (final Map.Entry<String, BigDecimal> previous : previousQuantities.entrySet()) {
+      final BigDecimal quantity = quantities.get(previous.getKey());
+      final boolean filled = !quantities.containsKey(previous.getKey());
+      final boolean partFilled =
+          quantity != null
+              && previous.getValue() != null
+              && quantity.compareTo(previous.getValue()) != 0;
+      if (filled || partFilled) {
+        LOG.info(
+            () -> "Order " + previous.getKey() + " has been filled - balances snapshot is stale");
+        invalidate();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Fetches the balances for the next trade cycle in the background, if asyncBalanceRefresh is
+   * enabled and the snapshot will be stale by then. Called once the trade cycle's strategies have
+   * been executed.
+   */
+  public void refreshForNextTradeCycle() {
+    final ExecutorService executor = refreshExecutor;
+    if (executor == null || fetchInFlight.get() != null) {
+      return;
+    }
+
+    final long currentGeneration = generation.get();
+    final Snapshot current = snapshot;
+    if (ttlNanos > 0
+        && current != null
+        && current.generation == currentGeneration
+        && System.nanoTime() - current.fetchedAtNanos < ttlNanos / 2) {
+      return;
+    }
+
+    final Fetch fetch = new Fetch(currentGeneration, tradeCycle.get() + 1);
+    if (fetchInFlight.compareAndSet(null, fetch)) {
+      executor.execute(() -> runFetch(fetch, true));
+    }
+  }
+
+  /**
+   * Returns how many times the balances have been fetched from the exchange since the bot started.
+   *
+   * @return the balances fetch count.
+   */
+  public long getFetchCount() {
+    return fetchCount.get();
+  }
+
+  private boolean isFresh(Snapshot snapshot, long currentGeneration, long currentTradeCycle) {
+    if (snapshot == null || snapshot.generation != currentGeneration) {
+      return false;
+    }
+    if (ttlNanos == 0) {
+      return snapshot.tradeCycle >= currentTradeCycle;
+    }
+    return System.nanoTime() - snapshot.fetchedAtNanos < ttlNanos;
+  }
+
+  /*
+   * The fetch is taken out of flight before its outcome is published, so a caller arriving
+   * afterwards either uses the new snapshot or makes a fresh fetch.
+   */
+  private void runFetch(Fetch fetch, boolean inBackground) {
+    try {
+      final long fetchedAtNanos = System.nanoTime();
+      final BalanceInfo balanceInfo = tradingApi.getBalanceInfo();
+      fetchCount.incrementAndGet();
+      final Snapshot fetched =
+          new Snapshot(balanceInfo, fetch.generation, fetch.tradeCycle, fetchedAtNanos);
+      store(fetched);
+      fetchInFlight.compareAndSet(fetch, null);
+      fetch.outcome.complete(fetched);
+    } catch (Exception | Error e) {
+      if (inBackground) {
+        LOG.warn(() -> "Failed to refresh balances in the background", e);
+      }
+      fetchInFlight.compareAndSet(fetch, null);
+      fetch.outcome.completeExceptionally(e);
+    }
+  }
+
+  private synchronized void store(Snapshot fetched) {
+    final Snapshot current = snapshot;
+    if (fetched.generation == generation.get()
+        && (current == null
+            || current.generation != fetched.generation
+            || current.tradeCycle <= fetched.tradeCycle)) {
+      snapshot = fetched;
+    }
+  }
+
+  private static Snapshot awaitOutcome(Fetch fetch)
+      throws ExchangeNetworkException, TradingApiException {
+    return ExchangeCallOutcome.await(fetch.outcome, "balances");
+  }
+}
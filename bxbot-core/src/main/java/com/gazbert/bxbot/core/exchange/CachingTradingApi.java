@@ -0,0 +1,350 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * A Trading API decorator that remembers read results for the rest of the trade cycle.
+ *
+ * <p>Public reads (order book, best bid/ask, ticker, last price, fees) and private reads (open
+ * orders, balances) are cached per market until the next trade cycle starts. Creating or cancelling
+ * an order throws away the cached results for the affected market, and the balances, so the
+ * strategy sees the effect of its own orders. Failed calls are never cached.
+ *
+ * <p>If there is a {@link BalanceService}, the balances are read from it instead, so they are
+ * shared with the Emergency Stop check; it is also told about the open orders read, so it can spot
+ * filled orders.
+ *
+ * <p>It is thread safe, so can be shared by strategies executing concurrently.
+ *
+ * @author gazbert
+ */
+class CachingTradingApi implements TradingApi {
+
+  /** The cached Trading API reads. */
+  private enum ReadType {
+    MARKET_ORDERS,
+    MARKET_ORDERS_TO_DEPTH,
+    YOUR_OPEN_ORDERS,
+    LATEST_MARKET_PRICE,
+    TICKER,
+    BEST_BID_ASK,
+    BALANCE_INFO,
+    BUY_FEE,
+    SELL_FEE
+  }
+
+  /**
+   * A cache key: the read, the market it was for and, for depth-limited order books, the depth.
+   * Balances have no market.
+   */
+  private static final class CacheKey {
+
+    private final ReadType readType;
+    private final String marketId;
+    private final int maxLevels;
+
+    private CacheKey(ReadType readType, String marketId) {
+      this(readType, marketId, 0);
+    }
+
+    private CacheKey(ReadType readType, String marketId, int maxLevels) {
+      this.readType = readType;
+      this.marketId = marketId;
+      this.maxLevels = maxLevels;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final CacheKey that = (CacheKey) o;
+      return readType == that.readType
+          && maxLevels == that.maxLevels
+          && Objects.equals(marketId, that.marketId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(readType, marketId, maxLevels);
+    }
+  }
+
+  /** A Trading API read that can be cached. */
+  @FunctionalInterface
+  private interface Read<T> {
+    T call() throws ExchangeNetworkException, TradingApiException;
+  }
+
+  private final TradingApi delegate;
+  private final TradeCycleCache tradeCycleCache;
+  private final BalanceService balanceService;
+  private final Map<CacheKey, Object> cachedResults = new ConcurrentHashMap<>();
+  private volatile long cachedTradeCycle = -1;
+
+  CachingTradingApi(
+      TradingApi delegate, TradeCycleCache tradeCycleCache, BalanceService balanceService) {
+    this.delegate = delegate;
+    this.tradeCycleCache = tradeCycleCache;
+    this.balanceService = balanceService;
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public String getImplName() {
+    return delegate.getImplName();
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(ReadType.MARKET_ORDERS, marketId, () -> delegate.getMarketOrders(marketId));
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(
+        new CacheKey(ReadType.MARKET_ORDERS_TO_DEPTH, marketId, maxLevels),
+        () -> delegate.getMarketOrders(marketId, maxLevels));
+  }
+
+  @Override
+  public List<OpenOrder> getYourOpenOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(
+        ReadType.YOUR_OPEN_ORDERS,
+        marketId,
+        () -> {
+          final List<OpenOrder> openOrders = delegate.getYourOpenOrders(marketId);
+          if (balanceService != null && openOrders != null) {
+            balanceService.checkForFills(marketId, openOrders);
+          }
+          return openOrders;
+        });
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.createOrder(marketId, orderType, quantity, price);
+    } finally {
+      // Even if it failed, the order might have reached the exchange.
+      invalidate(marketId);
+    }
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, FixedPointDecimal quantity, FixedPointDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.createOrder(marketId, orderType, quantity, price);
+    } finally {
+      invalidate(marketId);
+    }
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.createOrder(marketId, orderType, quantity, price, clientOrderId);
+    } finally {
+      invalidate(marketId);
+    }
+  }
+
+  @Override
+  public boolean supportsClientOrderIds() {
+    return delegate.supportsClientOrderIds();
+  }
+
+  /*
+   * Never cached; it is used to find out if an order reached the exchange.
+   */
+  @Override
+  public OpenOrder getOpenOrderByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getOpenOrderByClientOrderId(marketId, clientOrderId);
+  }
+
+  /*
+   * Never cached, for the same reason.
+   */
+  @Override
+  public String getOrderIdByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getOrderIdByClientOrderId(marketId, clientOrderId);
+  }
+
+  @Override
+  public boolean cancelOrder(String orderId, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return delegate.cancelOrder(orderId, marketId);
+    } finally {
+      invalidate(marketId);
+    }
+  }
+
+  @Override
+  public BigDecimal getLatestMarketPrice(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(
+        ReadType.LATEST_MARKET_PRICE, marketId, () -> delegate.getLatestMarketPrice(marketId));
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    if (balanceService != null) {
+      return balanceService.getBalanceInfo();
+    }
+    return read(ReadType.BALANCE_INFO, null, delegate::getBalanceInfo);
+  }
+
+  @Override
+  public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return read(
+        ReadType.BUY_FEE,
+        marketId,
+        () -> delegate.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return read(
+        ReadType.SELL_FEE,
+        marketId,
+        () -> delegate.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    return read(ReadType.TICKER, marketId, () -> delegate.getTicker(marketId));
+  }
+
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(ReadType.BEST_BID_ASK, marketId, () -> delegate.getBestBidAsk(marketId));
+  }
+
+  /*
+   * Async calls go straight to the delegate's own async Trading API; they are not cached.
+   */
+  @Override
+  public AsyncTradingApi async(Executor executor) {
+    return delegate.async(executor);
+  }
+
+  private <T> T read(ReadType readType, String marketId, Read<T> read)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(new CacheKey(readType, marketId), read);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T read(CacheKey key, Read<T> read)
+      throws ExchangeNetworkException, TradingApiException {
+    evictIfNewTradeCycle();
+    final Object cachedResult = cachedResults.get(key);
+    if (cachedResult != null) {
+      tradeCycleCache.recordHit();
+      return (T) cachedResult;
+    }
+
+    tradeCycleCache.recordMiss();
+    final T result = read.call();
+    if (result != null) {
+      cachedResults.put(key, result);
+    }
+    return result;
+  }
+
+  private void evictIfNewTradeCycle() {
+    final long tradeCycle = tradeCycleCache.getTradeCycle();
+    if (tradeCycle != cachedTradeCycle) {
+      synchronized (this) {
+        if (tradeCycle != cachedTradeCycle) {
+          cachedResults.clear();
+          cachedTradeCycle = tradeCycle;
+        }
+      }
+    }
+  }
+
+  /*
+   * Some exchanges do not need the market id to cancel an order, so it can be null; we then
+   * don't know which market was affected and throw away all the private reads.
+   */
+  private void invalidate(String marketId) {
+    if (balanceService != null) {
+      balanceService.invalidate();
+    }
+    cachedResults.remove(new CacheKey(ReadType.BALANCE_INFO, null));
+    cachedResults
+        .keySet()
+        .removeIf(
+            key ->
+                key.readType != ReadType.BUY_FEE
+                    && key.readType != ReadType.SELL_FEE
+                    && (marketId == null
+                        ? key.readType == ReadType.YOUR_OPEN_ORDERS
+                        : marketId.equals(key.marketId)));
+  }
+}
@@ -0,0 +1,290 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A Trading API decorator that tags new orders with a client order id.
+ *
+ * <p>If the Exchange Adapter supports client order ids, orders placed without one are given a
+ * random UUID. If placing the order fails with an {@link ExchangeNetworkException}, the order is
+ * looked up by its client order id, whether it is open, filled or cancelled: if it reached the
+ * exchange, its order id is returned as though the call had succeeded; if not, the original
+ * exception is thrown.
+ *
+ * <p>An order that failed this way can be retried by placing it again with the same client order
+ * id. The order is looked up again before it is resent, so it is not placed twice if the first
+ * attempt reached the exchange after it was looked up. Orders placed without a client order id get
+ * a new one each time, so are not protected when retried.
+ *
+ * <p>It is thread safe, so can be shared by strategies executing concurrently.
+ *
+ * @author gazbert
+ */
+class ClientOrderIdTradingApi implements TradingApi {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** The max number of failed client order ids remembered, oldest forgotten first. */
+  private static final int MAX_UNCONFIRMED_CLIENT_ORDER_IDS = 1000;
+
+  private final TradingApi delegate;
+  private final Supplier<String> clientOrderIdGenerator;
+
+  /** Client order ids whose order failed and could not be found on the exchange. */
+  private final Set<String> unconfirmedClientOrderIds =
+      Collections.newSetFromMap(
+          Collections.synchronizedMap(
+              new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                  return size() > MAX_UNCONFIRMED_CLIENT_ORDER_IDS;
+                }
+              }));
+
+  ClientOrderIdTradingApi(TradingApi delegate) {
+    this(delegate, () -> UUID.randomUUID().toString());
+  }
+
+  ClientOrderIdTradingApi(TradingApi delegate, Supplier<String> clientOrderIdGenerator) {
+    this.delegate = delegate;
+    this.clientOrderIdGenerator = clientOrderIdGenerator;
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public String getImplName() {
+    return delegate.getImplName();
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getMarketOrders(marketId);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getMarketOrders(marketId, maxLevels);
+  }
+
+  @Override
+  public List<OpenOrder> getYourOpenOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getYourOpenOrders(marketId);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    if (!delegate.supportsClientOrderIds()) {
+      return delegate.createOrder(marketId, orderType, quantity, price);
+    }
+    return createOrder(marketId, orderType, quantity, price, clientOrderIdGenerator.get());
+  }
+
+  /*
+   * Orders tagged with a client order id go through the BigDecimal method; the fixed-point values
+   * are only passed on as they are if the exchange does not support client order ids.
+   */
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, FixedPointDecimal quantity, FixedPointDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    if (!delegate.supportsClientOrderIds()) {
+      return delegate.createOrder(marketId, orderType, quantity, price);
+    }
+    return createOrder(
+        marketId,
+        orderType,
+        quantity.toBigDecimal(),
+        price.toBigDecimal(),
+        clientOrderIdGenerator.get());
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    if (clientOrderId == null || !delegate.supportsClientOrderIds()) {
+      return delegate.createOrder(marketId, orderType, quantity, price, clientOrderId);
+    }
+
+    if (unconfirmedClientOrderIds.contains(clientOrderId)) {
+      // A retry: the failed order may have reached the exchange since it was looked up.
+      final String placedOrderId = delegate.getOrderIdByClientOrderId(marketId, clientOrderId);
+      if (placedOrderId != null) {
+        unconfirmedClientOrderIds.remove(clientOrderId);
+        LOG.info(
+            () ->
+                "Order with client order id "
+                    + clientOrderId
+                    + " is already on exchange - not resending it. Order id: "
+                    + placedOrderId);
+        return placedOrderId;
+      }
+    }
+
+    try {
+      final String orderId =
+          delegate.createOrder(marketId, orderType, quantity, price, clientOrderId);
+      unconfirmedClientOrderIds.remove(clientOrderId);
+      return orderId;
+    } catch (ExchangeNetworkException e) {
+      return findPlacedOrder(marketId, clientOrderId, e);
+    }
+  }
+
+  @Override
+  public boolean supportsClientOrderIds() {
+    return delegate.supportsClientOrderIds();
+  }
+
+  @Override
+  public OpenOrder getOpenOrderByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getOpenOrderByClientOrderId(marketId, clientOrderId);
+  }
+
+  @Override
+  public String getOrderIdByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getOrderIdByClientOrderId(marketId, clientOrderId);
+  }
+
+  @Override
+  public boolean cancelOrder(String orderId, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.cancelOrder(orderId, marketId);
+  }
+
+  @Override
+  public BigDecimal getLatestMarketPrice(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getLatestMarketPrice(marketId);
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    return delegate.getBalanceInfo();
+  }
+
+  @Override
+  public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return delegate.getPercentageOfBuyOrderTakenForExchangeFee(marketId);
+  }
+
+  @Override
+  public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return delegate.getPercentageOfSellOrderTakenForExchangeFee(marketId);
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    return delegate.getTicker(marketId);
+  }
+
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getBestBidAsk(marketId);
+  }
+
+  /*
+   * Async calls go straight to the delegate's own async Trading API; orders are only
+   * tagged if the caller passes in a client order id.
+   */
+  @Override
+  public AsyncTradingApi async(Executor executor) {
+    return delegate.async(executor);
+  }
+
+  /*
+   * The order is looked up in the order history as well as the open orders, so an order that has
+   * already been filled is found too. If it is not found, it never reached the exchange, or has not
+   * reached it yet; the caller gets the original exception, and the client order id is remembered
+   * so a retry looks for it again before resending it.
+   */
+  private String findPlacedOrder(
+      String marketId, String clientOrderId, ExchangeNetworkException createOrderError)
+      throws ExchangeNetworkException {
+    final String placedOrderId;
+    try {
+      placedOrderId = delegate.getOrderIdByClientOrderId(marketId, clientOrderId);
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      LOG.warn(() -> "Failed to look up order with client order id: " + clientOrderId, e);
+      unconfirmedClientOrderIds.add(clientOrderId);
+      createOrderError.addSuppressed(e);
+      throw createOrderError;
+    }
+
+    if (placedOrderId == null) {
+      LOG.warn(() -> "Order with client order id " + clientOrderId + " not found on exchange");
+      unconfirmedClientOrderIds.add(clientOrderId);
+      throw createOrderError;
+    }
+    unconfirmedClientOrderIds.remove(clientOrderId);
+    LOG.info(
+        () ->
+            "Order with client order id "
+                + clientOrderId
+                + " reached exchange despite network error. Order id: "
+                + placedOrderId);
+    return placedOrderId;
+  }
+}
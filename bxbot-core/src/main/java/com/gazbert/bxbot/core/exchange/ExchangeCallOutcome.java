@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Waits for the outcome of an exchange call made on another thread, and throws what the call threw
+ * as if it had been made on the waiting thread.
+ *
+ * @author gazbert
+ */
+final class ExchangeCallOutcome {
+
+  private ExchangeCallOutcome() {
+  }
+
+  /**
+   * Waits for the outcome of an exchange call.
+   *
+   * @param outcome the outcome of the call.
+   * @param call what the call is, for error messages, e.g. "balances".
+   * @param <T> the type the call returns.
+   * @return what the call returned.
+   * @throws ExchangeNetworkException if the call threw one, or the wait was interrupted.
+   * @throws TradingApiException if the call threw one, or some other checked exception.
+   */
+  static <T> T await(Future<T> outcome, String call)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      return outcome.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExchangeNetworkException("Interrupted whilst waiting for " + call, e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof ExchangeNetworkException) {
+        throw (ExchangeNetworkException) cause;
+      } else if (cause instanceof TradingApiException) {
+        throw (TradingApiException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new TradingApiException("Failed to get " + call, cause);
+    }
+  }
+}
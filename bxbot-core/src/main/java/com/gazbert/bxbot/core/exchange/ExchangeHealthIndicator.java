@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.exchange.api.CircuitBreakerState;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the state of the Exchange Adapter's circuit breaker and the Trading Engine's network
+ * error backoff in the bot's health, under the "exchange" key.
+ *
+ * <p>The health is always UP: an open circuit breaker or a backoff means the exchange is
+ * unavailable, not the bot, and the Trading Engine keeps running until it is reachable again.
+ *
+ * @author gazbert
+ */
+@Component
+public class ExchangeHealthIndicator implements HealthIndicator {
+
+  /** The health detail holding the circuit breaker state. */
+  public static final String CIRCUIT_BREAKER_DETAIL = "circuitBreaker";
+
+  /** The detail value used when the Exchange Adapter has no circuit breaker. */
+  public static final String CIRCUIT_BREAKER_DISABLED = "DISABLED";
+
+  /** The health detail holding the number of trade cycles in a row that failed. */
+  public static final String CONSECUTIVE_NETWORK_ERRORS_DETAIL = "consecutiveNetworkErrors";
+
+  /** The health detail holding how long the engine is waiting before it retries, in millis. */
+  public static final String NETWORK_ERROR_RETRY_DELAY_DETAIL = "networkErrorRetryDelay";
+
+  private volatile ExchangeAdapter exchangeAdapter;
+  private volatile int consecutiveNetworkErrors;
+  private volatile long networkErrorRetryDelayMillis;
+
+  /**
+   * Sets the Exchange Adapter to report on. Called by the Trading Engine once it has loaded it.
+   *
+   * @param exchangeAdapter the Exchange Adapter.
+   */
+  public void setExchangeAdapter(ExchangeAdapter exchangeAdapter) {
+    this.exchangeAdapter = exchangeAdapter;
+  }
+
+  /**
+   * Sets the Trading Engine's network error backoff state. Called by the Trading Engine whenever
+   * it changes.
+   *
+   * @param consecutiveNetworkErrors the number of trade cycles in a row that failed.
+   * @param networkErrorRetryDelayMillis how long the engine is waiting before it retries.
+   */
+  public void setNetworkErrorBackoff(
+      int consecutiveNetworkErrors, long networkErrorRetryDelayMillis) {
+    this.consecutiveNetworkErrors = consecutiveNetworkErrors;
+    this.networkErrorRetryDelayMillis = networkErrorRetryDelayMillis;
+  }
+
+  @Override
+  public Health health() {
+    final ExchangeAdapter adapter = exchangeAdapter;
+    final CircuitBreakerState state = adapter == null ? null : adapter.getCircuitBreakerState();
+    return Health.up()
+        .withDetail(CIRCUIT_BREAKER_DETAIL, state == null ? CIRCUIT_BREAKER_DISABLED : state.name())
+        .withDetail(CONSECUTIVE_NETWORK_ERRORS_DETAIL, consecutiveNetworkErrors)
+        .withDetail(NETWORK_ERROR_RETRY_DELAY_DETAIL, networkErrorRetryDelayMillis)
+        .build();
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeCallLatency;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Outcome;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Phase;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times the Exchange Adapter's Trading API calls and publishes their latency to Micrometer.
+ *
+ * <p>For every Trading API method, outcome and phase the adapter has recorded, it registers:
+ *
+ * <ul>
+ *   <li>{@value #LATENCY_PERCENTILE_METRIC} gauges for the median, 99th and 99.9th percentiles,
+ *       tagged with {@value #PERCENTILE_TAG}.
+ *   <li>A {@value #LATENCY_MAX_METRIC} gauge for the highest latency.
+ *   <li>A {@value #LATENCY_COUNT_METRIC} counter for the number of timings.
+ * </ul>
+ *
+ * <p>All of them are tagged with the adapter name, method, outcome and phase, and are in seconds.
+ * Meters are registered when a method first ends with a new outcome, so the registry only holds
+ * the calls the bot actually makes.
+ *
+ * @author gazbert
+ */
+@Component
+public class ExchangeLatencyMetrics implements MeterBinder {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** The gauges holding latency percentiles. */
+  public static final String LATENCY_PERCENTILE_METRIC = "bxbot.exchange.call.latency.percentile";
+
+  /** The gauge holding the highest latency. */
+  public static final String LATENCY_MAX_METRIC = "bxbot.exchange.call.latency.max";
+
+  /** The counter holding the number of timings. */
+  public static final String LATENCY_COUNT_METRIC = "bxbot.exchange.call.latency.count";
+
+  /** The tag holding the Exchange Adapter name. */
+  public static final String ADAPTER_TAG = "adapter";
+
+  /** The tag holding the Trading API method. */
+  public static final String METHOD_TAG = "method";
+
+  /** The tag holding how the calls ended: OK, NETWORK_ERROR or API_ERROR. */
+  public static final String OUTCOME_TAG = "outcome";
+
+  /** The tag holding the part of the calls: TOTAL, FIRST_BYTE or DECODE. */
+  public static final String PHASE_TAG = "phase";
+
+  /** The tag holding the percentile, as a fraction, e.g. 0.99. */
+  public static final String PERCENTILE_TAG = "phi";
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+  private static final List<ToLongFunction<ExchangeCallLatency>> PERCENTILE_VALUES =
+      List.of(
+          ExchangeCallLatency::getP50Nanos,
+          ExchangeCallLatency::getP99Nanos,
+          ExchangeCallLatency::getP999Nanos);
+
+  private final ConcurrentMap<String, Set<Outcome>> registeredOutcomes = new ConcurrentHashMap<>();
+  private volatile MeterRegistry meterRegistry;
+  private volatile ExchangeCallRecorder callRecorder;
+  private volatile String adapterName;
+
+  /**
+   * Wraps the Exchange Adapter so its Trading API calls are timed. Called by the Trading Engine
+   * once it has loaded it.
+   *
+   * @param exchangeAdapter the Exchange Adapter.
+   * @return the timed adapter, or the adapter itself if it has no call recorder.
+   */
+  public ExchangeAdapter instrument(ExchangeAdapter exchangeAdapter) {
+    final ExchangeCallRecorder recorder = exchangeAdapter.getCallRecorder();
+    if (recorder == null) {
+      LOG.info(() -> "Exchange Adapter does not time its calls: " + exchangeAdapter.getImplName());
+      return exchangeAdapter;
+    }
+    adapterName = exchangeAdapter.getImplName();
+    callRecorder = recorder;
+    registerNewMeters();
+    LOG.info(() -> "Trading API calls will be timed for: " + adapterName);
+    return new TimedExchangeAdapter(exchangeAdapter, new RegisteringCallRecorder(recorder));
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meterRegistry = registry;
+    registerNewMeters();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private void registerNewMeters() {
+    final MeterRegistry registry = meterRegistry;
+    final ExchangeCallRecorder recorder = callRecorder;
+    if (registry == null || recorder == null) {
+      return;
+    }
+    synchronized (registeredOutcomes) {
+      for (final ExchangeCallLatency latency : recorder.getLatencies()) {
+        final String tradingApiMethod = latency.getTradingApiMethod();
+        final Set<Outcome> outcomes =
+            registeredOutcomes.computeIfAbsent(
+                tradingApiMethod, method -> ConcurrentHashMap.newKeySet());
+        if (!outcomes.contains(latency.getOutcome())) {
+          for (final Phase phase : Phase.values()) {
+            registerMeters(registry, recorder, tradingApiMethod, latency.getOutcome(), phase);
+          }
+          outcomes.add(latency.getOutcome());
+        }
+      }
+    }
+  }
+
+  private void registerMeters(
+      MeterRegistry registry,
+      ExchangeCallRecorder recorder,
+      String tradingApiMethod,
+      Outcome outcome,
+      Phase phase) {
+
+    final Tags tags =
+        Tags.of(
+            ADAPTER_TAG, adapterName,
+            METHOD_TAG, tradingApiMethod,
+            OUTCOME_TAG, outcome.name(),
+            PHASE_TAG, phase.name());
+
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      final ToLongFunction<ExchangeCallLatency> percentile = PERCENTILE_VALUES.get(i);
+      Gauge.builder(
+              LATENCY_PERCENTILE_METRIC,
+              recorder,
+              r -> toSeconds(r.getLatency(tradingApiMethod, outcome, phase), percentile))
+          .tags(tags)
+          .tag(PERCENTILE_TAG, String.valueOf(PERCENTILES[i]))
+          .baseUnit("seconds")
+          .description("Exchange Adapter Trading API call latency percentile")
+          .register(registry);
+    }
+    Gauge.builder(
+            LATENCY_MAX_METRIC,
+            recorder,
+            r ->
+                toSeconds(
+                    r.getLatency(tradingApiMethod, outcome, phase),
+                    ExchangeCallLatency::getMaxNanos))
+        .tags(tags)
+        .baseUnit("seconds")
+        .description("Exchange Adapter Trading API call max latency")
+        .register(registry);
+    FunctionCounter.builder(
+            LATENCY_COUNT_METRIC,
+            recorder,
+            r -> {
+              final ExchangeCallLatency latency = r.getLatency(tradingApiMethod, outcome, phase);
+              return latency == null ? 0 : latency.getCount();
+            })
+        .tags(tags)
+        .description("Exchange Adapter Trading API calls timed")
+        .register(registry);
+  }
+
+  private static double toSeconds(
+      ExchangeCallLatency latency, ToLongFunction<ExchangeCallLatency> nanos) {
+    return latency == null ? Double.NaN : nanos.applyAsLong(latency) / NANOS_PER_SECOND;
+  }
+
+  /** Registers meters the first time a Trading API method ends with a new outcome. */
+  private class RegisteringCallRecorder implements ExchangeCallRecorder {
+
+    private final ExchangeCallRecorder delegate;
+
+    RegisteringCallRecorder(ExchangeCallRecorder delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Call start(String tradingApiMethod) {
+      final Call call = delegate.start(tradingApiMethod);
+      return outcome -> {
+        call.stop(outcome);
+        final Set<Outcome> outcomes = registeredOutcomes.get(tradingApiMethod);
+        if (outcomes == null || !outcomes.contains(outcome)) {
+          registerNewMeters();
+        }
+      };
+    }
+
+    @Override
+    public ExchangeCallLatency getLatency(String tradingApiMethod, Outcome outcome, Phase phase) {
+      return delegate.getLatency(tradingApiMethod, outcome, phase);
+    }
+
+    @Override
+    public List<ExchangeCallLatency> getLatencies() {
+      return delegate.getLatencies();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.RateLimiterMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes how the Exchange Adapter's client-side rate limiter has throttled its calls to
+ * Micrometer.
+ *
+ * <p>For every class of endpoint that has a rate limit, it registers:
+ *
+ * <ul>
+ *   <li>A {@value #THROTTLED_COUNT_METRIC} counter for the calls that had to wait for their turn.
+ *   <li>A {@value #THROTTLED_TIME_METRIC} counter for the time they spent waiting, in seconds.
+ *   <li>A {@value #REJECTED_COUNT_METRIC} counter for the calls that were rejected.
+ * </ul>
+ *
+ * <p>All of them are tagged with the adapter name and the endpoint class.
+ *
+ * @author gazbert
+ */
+@Component
+public class ExchangeRateLimitMetrics implements MeterBinder {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** The counter holding the number of calls that waited for their turn. */
+  public static final String THROTTLED_COUNT_METRIC = "bxbot.exchange.ratelimit.throttled.count";
+
+  /** The counter holding the time calls spent waiting for their turn. */
+  public static final String THROTTLED_TIME_METRIC = "bxbot.exchange.ratelimit.throttled.time";
+
+  /** The counter holding the number of calls that were rejected. */
+  public static final String REJECTED_COUNT_METRIC = "bxbot.exchange.ratelimit.rejected.count";
+
+  /** The tag holding the Exchange Adapter name. */
+  public static final String ADAPTER_TAG = "adapter";
+
+  /** The tag holding the class of endpoint: public, private or order-entry. */
+  public static final String ENDPOINT_TAG = "endpoint";
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private volatile MeterRegistry meterRegistry;
+  private volatile RateLimiterMetrics rateLimiterMetrics;
+  private volatile String adapterName;
+  private boolean registered;
+
+  /**
+   * Sets the Exchange Adapter to report on. Called by the Trading Engine once it has loaded it.
+   *
+   * @param exchangeAdapter the Exchange Adapter.
+   */
+  public void setExchangeAdapter(ExchangeAdapter exchangeAdapter) {
+    final RateLimiterMetrics metrics = exchangeAdapter.getRateLimiterMetrics();
+    if (metrics == null) {
+      LOG.info(() -> "Exchange Adapter does not rate limit its calls: " + exchangeAdapter.getImplName());
+      return;
+    }
+    adapterName = exchangeAdapter.getImplName();
+    rateLimiterMetrics = metrics;
+    registerMeters();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    meterRegistry = registry;
+    registerMeters();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private synchronized void registerMeters() {
+    final MeterRegistry registry = meterRegistry;
+    final RateLimiterMetrics metrics = rateLimiterMetrics;
+    if (registry == null || metrics == null || registered) {
+      return;
+    }
+    for (final String endpoint : metrics.getRateLimitedEndpoints()) {
+      final Tags tags = Tags.of(ADAPTER_TAG, adapterName, ENDPOINT_TAG, endpoint);
+      FunctionCounter.builder(
+              THROTTLED_COUNT_METRIC, metrics, m -> m.getThrottledCount(endpoint))
+          .tags(tags)
+          .description("Exchange Adapter calls that waited for the rate limiter")
+          .register(registry);
+      FunctionCounter.builder(
+              THROTTLED_TIME_METRIC,
+              metrics,
+              m -> m.getThrottledNanos(endpoint) / NANOS_PER_SECOND)
+          .tags(tags)
+          .baseUnit("seconds")
+          .description("Time Exchange Adapter calls spent waiting for the rate limiter")
+          .register(registry);
+      FunctionCounter.builder(REJECTED_COUNT_METRIC, metrics, m -> m.getRejectedCount(endpoint))
+          .tags(tags)
+          .description("Exchange Adapter calls rejected by the rate limiter")
+          .register(registry);
+    }
+    registered = true;
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A Trading API decorator that coalesces identical reads made at the same time.
+ *
+ * <p>If a read (order book, best bid/ask, ticker, last price, fees, open orders, balances) is
+ * already in flight for the same market, the caller waits for it rather than sending another
+ * request to the exchange. Every caller then gets the same result, or the same exception. Nothing
+ * is remembered once the read completes; creating and cancelling orders are never coalesced.
+ *
+ * <p>It is thread safe, so can be shared by strategies executing concurrently.
+ *
+ * @author gazbert
+ */
+class SingleFlightTradingApi implements TradingApi {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** The coalesced Trading API reads. */
+  private enum ReadType {
+    MARKET_ORDERS,
+    MARKET_ORDERS_TO_DEPTH,
+    YOUR_OPEN_ORDERS,
+    LATEST_MARKET_PRICE,
+    TICKER,
+    BEST_BID_ASK,
+    BALANCE_INFO,
+    BUY_FEE,
+    SELL_FEE
+  }
+
+  /**
+   * Identifies identical reads: the read, the market it is for and, for depth-limited order books,
+   * the depth. Balances have no market.
+   */
+  private static final class ReadKey {
+
+    private final ReadType readType;
+    private final String marketId;
+    private final int maxLevels;
+
+    private ReadKey(ReadType readType, String marketId, int maxLevels) {
+      this.readType = readType;
+      this.marketId = marketId;
+      this.maxLevels = maxLevels;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final ReadKey that = (ReadKey) o;
+      return readType == that.readType
+          && maxLevels == that.maxLevels
+          && Objects.equals(marketId, that.marketId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(readType, marketId, maxLevels);
+    }
+
+    @Override
+    public String toString() {
+      return readType + (marketId == null ? "" : " " + marketId);
+    }
+  }
+
+  /** A Trading API read that can be coalesced. */
+  @FunctionalInterface
+  private interface Read<T> {
+    T call() throws ExchangeNetworkException, TradingApiException;
+  }
+
+  private final TradingApi delegate;
+  private final ConcurrentMap<ReadKey, CompletableFuture<Object>> readsInFlight =
+      new ConcurrentHashMap<>();
+
+  SingleFlightTradingApi(TradingApi delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public String getImplName() {
+    return delegate.getImplName();
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(ReadType.MARKET_ORDERS, marketId, () -> delegate.getMarketOrders(marketId));
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(
+        new ReadKey(ReadType.MARKET_ORDERS_TO_DEPTH, marketId, maxLevels),
+        () -> delegate.getMarketOrders(marketId, maxLevels));
+  }
+
+  @Override
+  public List<OpenOrder> getYourOpenOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(ReadType.YOUR_OPEN_ORDERS, marketId, () -> delegate.getYourOpenOrders(marketId));
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.createOrder(marketId, orderType, quantity, price);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, FixedPointDecimal quantity, FixedPointDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.createOrder(marketId, orderType, quantity, price);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.createOrder(marketId, orderType, quantity, price, clientOrderId);
+  }
+
+  @Override
+  public boolean supportsClientOrderIds() {
+    return delegate.supportsClientOrderIds();
+  }
+
+  @Override
+  public OpenOrder getOpenOrderByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getOpenOrderByClientOrderId(marketId, clientOrderId);
+  }
+
+  @Override
+  public String getOrderIdByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.getOrderIdByClientOrderId(marketId, clientOrderId);
+  }
+
+  @Override
+  public boolean cancelOrder(String orderId, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return delegate.cancelOrder(orderId, marketId);
+  }
+
+  @Override
+  public BigDecimal getLatestMarketPrice(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(
+        ReadType.LATEST_MARKET_PRICE, marketId, () -> delegate.getLatestMarketPrice(marketId));
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    return read(ReadType.BALANCE_INFO, null, delegate::getBalanceInfo);
+  }
+
+  @Override
+  public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return read(
+        ReadType.BUY_FEE,
+        marketId,
+        () -> delegate.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return read(
+        ReadType.SELL_FEE,
+        marketId,
+        () -> delegate.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    return read(ReadType.TICKER, marketId, () -> delegate.getTicker(marketId));
+  }
+
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(ReadType.BEST_BID_ASK, marketId, () -> delegate.getBestBidAsk(marketId));
+  }
+
+  /*
+   * Async calls go straight to the delegate's own async Trading API; they are not coalesced.
+   */
+  @Override
+  public AsyncTradingApi async(Executor executor) {
+    return delegate.async(executor);
+  }
+
+  private <T> T read(ReadType readType, String marketId, Read<T> read)
+      throws ExchangeNetworkException, TradingApiException {
+    return read(new ReadKey(readType, marketId, 0), read);
+  }
+
+  /*
+   * The first caller makes the read; anyone else asking for the same read before it completes
+   * waits for its outcome. The read is taken out of flight before its outcome is published, so a
+   * caller arriving afterwards always makes a fresh read.
+   */
+  private <T> T read(ReadKey key, Read<T> read)
+      throws ExchangeNetworkException, TradingApiException {
+    final CompletableFuture<Object> readInFlight = new CompletableFuture<>();
+    final CompletableFuture<Object> existingRead = readsInFlight.putIfAbsent(key, readInFlight);
+    if (existingRead != null) {
+      LOG.debug(() -> "Joining read already in flight: " + key);
+      return awaitOutcome(key, existingRead);
+    }
+
+    try {
+      final T result = read.call();
+      readsInFlight.remove(key, readInFlight);
+      readInFlight.complete(result);
+      return result;
+    } catch (ExchangeNetworkException | TradingApiException | RuntimeException | Error e) {
+      readsInFlight.remove(key, readInFlight);
+      readInFlight.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T awaitOutcome(ReadKey key, CompletableFuture<Object> readInFlight)
+      throws ExchangeNetworkException, TradingApiException {
+    return (T) ExchangeCallOutcome.await(readInFlight, "read: " + key);
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.exchange.api.CircuitBreakerState;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Call;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Outcome;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.RateLimiterMetrics;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * An Exchange Adapter decorator that times every Trading API call that goes to the exchange, using
+ * the adapter's own call recorder.
+ *
+ * <p>The recorder is told which Trading API method is being called, so the requests the adapter
+ * sends can be timed against it. Calls the adapter makes on itself, e.g. a default method calling
+ * another Trading API method, are part of the outer call. Async calls are not timed here; the
+ * adapter records their requests as untimed.
+ *
+ * <p>It is thread safe, so can be shared by strategies executing concurrently.
+ *
+ * @author gazbert
+ */
+class TimedExchangeAdapter implements ExchangeAdapter {
+
+  private final ExchangeAdapter delegate;
+  private final ExchangeCallRecorder callRecorder;
+
+  TimedExchangeAdapter(ExchangeAdapter delegate, ExchangeCallRecorder callRecorder) {
+    this.delegate = delegate;
+    this.callRecorder = callRecorder;
+  }
+
+  @Override
+  public void init(ExchangeConfig config) {
+    delegate.init(config);
+  }
+
+  @Override
+  public CircuitBreakerState getCircuitBreakerState() {
+    return delegate.getCircuitBreakerState();
+  }
+
+  @Override
+  public ExchangeCallRecorder getCallRecorder() {
+    return callRecorder;
+  }
+
+  @Override
+  public RateLimiterMetrics getRateLimiterMetrics() {
+    return delegate.getRateLimiterMetrics();
+  }
+
+  @Override
+  public String getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public String getImplName() {
+    return delegate.getImplName();
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("getMarketOrders", () -> delegate.getMarketOrders(marketId));
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("getMarketOrders", () -> delegate.getMarketOrders(marketId, maxLevels));
+  }
+
+  @Override
+  public List<OpenOrder> getYourOpenOrders(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("getYourOpenOrders", () -> delegate.getYourOpenOrders(marketId));
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("createOrder", () -> delegate.createOrder(marketId, orderType, quantity, price));
+  }
+
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, FixedPointDecimal quantity, FixedPointDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("createOrder", () -> delegate.createOrder(marketId, orderType, quantity, price));
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time(
+        "createOrder",
+        () -> delegate.createOrder(marketId, orderType, quantity, price, clientOrderId));
+  }
+
+  @Override
+  public boolean supportsClientOrderIds() {
+    return delegate.supportsClientOrderIds();
+  }
+
+  @Override
+  public OpenOrder getOpenOrderByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time(
+        "getOpenOrderByClientOrderId",
+        () -> delegate.getOpenOrderByClientOrderId(marketId, clientOrderId));
+  }
+
+  @Override
+  public String getOrderIdByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time(
+        "getOrderIdByClientOrderId",
+        () -> delegate.getOrderIdByClientOrderId(marketId, clientOrderId));
+  }
+
+  @Override
+  public boolean cancelOrder(String orderId, String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("cancelOrder", () -> delegate.cancelOrder(orderId, marketId));
+  }
+
+  @Override
+  public BigDecimal getLatestMarketPrice(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("getLatestMarketPrice", () -> delegate.getLatestMarketPrice(marketId));
+  }
+
+  @Override
+  public BalanceInfo getBalanceInfo() throws ExchangeNetworkException, TradingApiException {
+    return time("getBalanceInfo", delegate::getBalanceInfo);
+  }
+
+  @Override
+  public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return time(
+        "getPercentageOfBuyOrderTakenForExchangeFee",
+        () -> delegate.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    return time(
+        "getPercentageOfSellOrderTakenForExchangeFee",
+        () -> delegate.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    return time("getTicker", () -> delegate.getTicker(marketId));
+  }
+
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    return time("getBestBidAsk", () -> delegate.getBestBidAsk(marketId));
+  }
+
+  @Override
+  public AsyncTradingApi async(Executor executor) {
+    return delegate.async(executor);
+  }
+
+  private <T> T time(String tradingApiMethod, TradingApiCall<T> tradingApiCall)
+      throws ExchangeNetworkException, TradingApiException {
+    final Call call = callRecorder.start(tradingApiMethod);
+    Outcome outcome = Outcome.API_ERROR;
+    try {
+      final T result = tradingApiCall.call();
+      outcome = Outcome.OK;
+      return result;
+    } catch (ExchangeNetworkException e) {
+      outcome = Outcome.NETWORK_ERROR;
+      throw e;
+    } finally {
+      call.stop(outcome);
+    }
+  }
+
+  /** A Trading API call. */
+  @FunctionalInterface
+  private interface TradingApiCall<T> {
+    T call() throws ExchangeNetworkException, TradingApiException;
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import com.gazbert.bxbot.trading.api.TradingApi;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the trade cycle scoped cache of Trading API read results.
+ *
+ * <p>The Trading Engine calls {@link #startTradeCycle()} at the start of every trade cycle; any
+ * results cached in the previous cycle are then thrown away. The Trading Strategies are given a
+ * {@link TradingApi} wrapped by {@link #decorate(TradingApi)} so that strategies reading the same
+ * market data in the same trade cycle only cause 1 call to the exchange, even when they read it at
+ * the same time.
+ *
+ * <p>If a {@link BalanceService} has been set, the balances are read from it rather than cached
+ * here.
+ *
+ * <p>The number of reads served from the cache and passed through to the exchange are published
+ * to Micrometer as the {@value #READ_COUNT_METRIC} counter, tagged with {@value #RESULT_TAG}.
+ *
+ * @author gazbert
+ */
+@Component
+public class TradeCycleCache implements MeterBinder {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** The counter holding the number of Trading API reads. */
+  public static final String READ_COUNT_METRIC = "bxbot.tradecycle.cache.read.count";
+
+  /** The tag holding whether the reads were served from the cache: hit or miss. */
+  public static final String RESULT_TAG = "result";
+
+  private final AtomicLong tradeCycle = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private BalanceService balanceService;
+
+  @Autowired
+  public void setBalanceService(BalanceService balanceService) {
+    this.balanceService = balanceService;
+  }
+
+  /**
+   * Wraps the Trading API so its read results are cached for the rest of the trade cycle.
+   * Identical reads that miss the cache at the same time are coalesced into 1 call to the
+   * exchange. New orders are tagged with a client order id if the exchange supports it.
+   *
+   * @param tradingApi the Trading API to wrap, usually the Exchange Adapter.
+   * @return the caching Trading API.
+   */
+  public TradingApi decorate(TradingApi tradingApi) {
+    LOG.info(
+        () -> "Trading API reads will be cached per trade cycle for: " + tradingApi.getImplName());
+    return new ClientOrderIdTradingApi(
+        new CachingTradingApi(new SingleFlightTradingApi(tradingApi), this, balanceService));
+  }
+
+  /** Starts a new trade cycle; everything cached in the previous cycle is now stale. */
+  public void startTradeCycle() {
+    tradeCycle.incrementAndGet();
+  }
+
+  /**
+   * Returns the current trade cycle number. It increases by 1 every trade cycle.
+   *
+   * @return the current trade cycle number.
+   */
+  public long getTradeCycle() {
+    return tradeCycle.get();
+  }
+
+  /**
+   * Returns how many reads have been served from the cache since the bot started.
+   *
+   * @return the cache hit count.
+   */
+  public long getHitCount() {
+    return hitCount.get();
+  }
+
+  /**
+   * Returns how many reads have been passed through to the exchange since the bot started.
+   *
+   * @return the cache miss count.
+   */
+  public long getMissCount() {
+    return missCount.get();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder(READ_COUNT_METRIC, hitCount, AtomicLong::get)
+        .tag(RESULT_TAG, "hit")
+        .description("Trading API reads served from the trade cycle cache")
+        .register(registry);
+    FunctionCounter.builder(READ_COUNT_METRIC, missCount, AtomicLong::get)
+        .tag(RESULT_TAG, "miss")
+        .description("Trading API reads passed through to the exchange")
+        .register(registry);
+  }
+
+  void recordHit() {
+    hitCount.incrementAndGet();
+  }
+
+  void recordMiss() {
+    missCount.incrementAndGet();
+  }
+}
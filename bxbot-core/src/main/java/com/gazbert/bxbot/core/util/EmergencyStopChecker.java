@@ -23,6 +23,7 @@
 
 package com.gazbert.bxbot.core.util;
 
+import com.gazbert.bxbot.core.exchange.BalanceService;
 import com.gazbert.bxbot.core.mail.EmailAlertMessageBuilder;
 import com.gazbert.bxbot.core.mail.EmailAlerter;
 import com.gazbert.bxbot.domain.engine.EngineConfig;
@@ -67,6 +68,10 @@ public class EmergencyStopChecker {
    *       this has happened.
    * </ul>
    *
+   * <p>The balance is read from the Balance Service, so the Trading Strategies can use the same
+   * balances snapshot in the trade cycle.
+   *
+   * @param balanceService the Balance Service to read the balance from.
    * @param exchangeAdapter the adapter used to connect to the exchange.
    * @param engineConfig the Trading Engine config.
    * @param emailAlerter the Email Alerter.
@@ -75,7 +80,10 @@ public class EmergencyStopChecker {
    * @throws ExchangeNetworkException if a temporary network exception has occurred.
    */
   public static boolean isEmergencyStopLimitBreached(
-      ExchangeAdapter exchangeAdapter, EngineConfig engineConfig, EmailAlerter emailAlerter)
+      BalanceService balanceService,
+      ExchangeAdapter exchangeAdapter,
+      EngineConfig engineConfig,
+      EmailAlerter emailAlerter)
       throws TradingApiException, ExchangeNetworkException {
 
     boolean isEmergencyStopLimitBreached = true;
@@ -84,7 +92,7 @@ public class EmergencyStopChecker {
 
     BalanceInfo balanceInfo;
     try {
-      balanceInfo = exchangeAdapter.getBalanceInfo();
+      balanceInfo = balanceService.getBalanceInfo();
     } catch (TradingApiException e) {
       final String errorMsg =
           "Failed to get Balance info from exchange to perform Emergency Stop check - letting"
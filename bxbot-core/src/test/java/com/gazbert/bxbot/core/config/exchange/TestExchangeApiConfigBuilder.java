@@ -25,8 +25,10 @@ package com.gazbert.bxbot.core.config.exchange;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.gazbert.bxbot.domain.exchange.CircuitBreakerConfig;
 import com.gazbert.bxbot.domain.exchange.ExchangeConfig;
 import com.gazbert.bxbot.domain.exchange.NetworkConfig;
+import com.gazbert.bxbot.domain.exchange.RateLimitConfig;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -49,6 +51,19 @@ public class TestExchangeApiConfigBuilder {
   private static final String SECRET_FEE_CONFIG_ITEM_VALUE = "secret-key";
 
   private static final Integer CONNECTION_TIMEOUT = 30;
+  private static final Integer CONNECTION_POOL_SIZE = 8;
+  private static final Integer CONNECTION_IDLE_TIMEOUT = 60;
+  private static final String RATE_LIMIT_POLICY = "fail-fast";
+  private static final Integer MAX_RATE_LIMIT_WAIT = 5;
+  private static final String ORDER_ENTRY_ENDPOINT = "order-entry";
+  private static final Double ORDER_ENTRY_REQUESTS_PER_SECOND = 0.5;
+  private static final Integer ORDER_ENTRY_BURST = 2;
+  private static final Integer FAILURE_RATE_THRESHOLD = 50;
+  private static final Integer SLOW_CALL_DURATION_THRESHOLD = 10;
+  private static final Integer SLOW_CALL_RATE_THRESHOLD = 80;
+  private static final Integer SLIDING_WINDOW_SIZE = 20;
+  private static final Integer MINIMUM_NUMBER_OF_CALLS = 10;
+  private static final Integer WAIT_DURATION_IN_OPEN_STATE = 60;
   private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503);
   private static final List<String> NON_FATAL_ERROR_MESSAGES =
       Arrays.asList("Connection refused", "Remote host closed connection during handshake");
@@ -73,6 +88,29 @@ public class TestExchangeApiConfigBuilder {
 
     assertThat(exchangeApiConfig.getNetworkConfig().getConnectionTimeout())
         .isEqualTo(CONNECTION_TIMEOUT);
+    assertThat(exchangeApiConfig.getNetworkConfig().getConnectionPoolSize())
+        .isEqualTo(CONNECTION_POOL_SIZE);
+    assertThat(exchangeApiConfig.getNetworkConfig().getConnectionIdleTimeout())
+        .isEqualTo(CONNECTION_IDLE_TIMEOUT);
+    assertThat(exchangeApiConfig.getNetworkConfig().getRateLimitPolicy())
+        .isEqualTo(RATE_LIMIT_POLICY);
+    assertThat(exchangeApiConfig.getNetworkConfig().getMaxRateLimitWait())
+        .isEqualTo(MAX_RATE_LIMIT_WAIT);
+    final com.gazbert.bxbot.exchange.api.RateLimitConfig orderEntryRateLimit =
+        exchangeApiConfig.getNetworkConfig().getRateLimits().get(ORDER_ENTRY_ENDPOINT);
+    assertThat(orderEntryRateLimit.getRequestsPerSecond())
+        .isEqualTo(ORDER_ENTRY_REQUESTS_PER_SECOND);
+    assertThat(orderEntryRateLimit.getBurst()).isEqualTo(ORDER_ENTRY_BURST);
+    final com.gazbert.bxbot.exchange.api.CircuitBreakerConfig circuitBreaker =
+        exchangeApiConfig.getNetworkConfig().getCircuitBreaker();
+    assertThat(circuitBreaker.getFailureRateThreshold()).isEqualTo(FAILURE_RATE_THRESHOLD);
+    assertThat(circuitBreaker.getSlowCallDurationThreshold())
+        .isEqualTo(SLOW_CALL_DURATION_THRESHOLD);
+    assertThat(circuitBreaker.getSlowCallRateThreshold()).isEqualTo(SLOW_CALL_RATE_THRESHOLD);
+    assertThat(circuitBreaker.getSlidingWindowSize()).isEqualTo(SLIDING_WINDOW_SIZE);
+    assertThat(circuitBreaker.getMinimumNumberOfCalls()).isEqualTo(MINIMUM_NUMBER_OF_CALLS);
+    assertThat(circuitBreaker.getWaitDurationInOpenState())
+        .isEqualTo(WAIT_DURATION_IN_OPEN_STATE);
     assertThat(exchangeApiConfig.getNetworkConfig().getNonFatalErrorCodes())
         .isEqualTo(NON_FATAL_ERROR_CODES);
     assertThat(exchangeApiConfig.getNetworkConfig().getNonFatalErrorMessages())
@@ -112,6 +150,12 @@ public class TestExchangeApiConfigBuilder {
 
     assertThat(exchangeApiConfig.getNetworkConfig().getConnectionTimeout())
         .isEqualTo(CONNECTION_TIMEOUT);
+    assertThat(exchangeApiConfig.getNetworkConfig().getConnectionPoolSize()).isNull();
+    assertThat(exchangeApiConfig.getNetworkConfig().getConnectionIdleTimeout()).isNull();
+    assertThat(exchangeApiConfig.getNetworkConfig().getRateLimits()).isNull();
+    assertThat(exchangeApiConfig.getNetworkConfig().getRateLimitPolicy()).isNull();
+    assertThat(exchangeApiConfig.getNetworkConfig().getMaxRateLimitWait()).isNull();
+    assertThat(exchangeApiConfig.getNetworkConfig().getCircuitBreaker()).isNull();
     assertThat(exchangeApiConfig.getNetworkConfig().getNonFatalErrorCodes()).isEmpty();
     assertThat(exchangeApiConfig.getNetworkConfig().getNonFatalErrorMessages()).isEmpty();
 
@@ -133,6 +177,26 @@ public class TestExchangeApiConfigBuilder {
     networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
     networkConfig.setNonFatalErrorCodes(NON_FATAL_ERROR_CODES);
     networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
+    networkConfig.setConnectionPoolSize(CONNECTION_POOL_SIZE);
+    networkConfig.setConnectionIdleTimeout(CONNECTION_IDLE_TIMEOUT);
+    networkConfig.setRateLimitPolicy(RATE_LIMIT_POLICY);
+    networkConfig.setMaxRateLimitWait(MAX_RATE_LIMIT_WAIT);
+
+    final RateLimitConfig orderEntryRateLimit = new RateLimitConfig();
+    orderEntryRateLimit.setRequestsPerSecond(ORDER_ENTRY_REQUESTS_PER_SECOND);
+    orderEntryRateLimit.setBurst(ORDER_ENTRY_BURST);
+    final Map<String, RateLimitConfig> rateLimits = new HashMap<>();
+    rateLimits.put(ORDER_ENTRY_ENDPOINT, orderEntryRateLimit);
+    networkConfig.setRateLimits(rateLimits);
+
+    final CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    circuitBreaker.setFailureRateThreshold(FAILURE_RATE_THRESHOLD);
+    circuitBreaker.setSlowCallDurationThreshold(SLOW_CALL_DURATION_THRESHOLD);
+    circuitBreaker.setSlowCallRateThreshold(SLOW_CALL_RATE_THRESHOLD);
+    circuitBreaker.setSlidingWindowSize(SLIDING_WINDOW_SIZE);
+    circuitBreaker.setMinimumNumberOfCalls(MINIMUM_NUMBER_OF_CALLS);
+    circuitBreaker.setWaitDurationInOpenState(WAIT_DURATION_IN_OPEN_STATE);
+    networkConfig.setCircuitBreaker(circuitBreaker);
     return networkConfig;
   }
 
@@ -27,8 +27,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 
 /**
@@ -39,6 +42,10 @@ import org.junit.Test;
 public class TestNetworkConfigImpl {
 
   private static final Integer CONNECTION_TIMEOUT = 30;
+  private static final Integer CONNECTION_POOL_SIZE = 8;
+  private static final Integer CONNECTION_IDLE_TIMEOUT = 60;
+  private static final String RATE_LIMIT_POLICY = "wait";
+  private static final Integer MAX_RATE_LIMIT_WAIT = 5;
   private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
   private static final List<String> NON_FATAL_ERROR_MESSAGES =
       Arrays.asList(
@@ -53,6 +60,12 @@ public class TestNetworkConfigImpl {
     assertNull(networkConfig.getConnectionTimeout());
     assertTrue(networkConfig.getNonFatalErrorCodes().isEmpty());
     assertTrue(networkConfig.getNonFatalErrorMessages().isEmpty());
+    assertNull(networkConfig.getConnectionPoolSize());
+    assertNull(networkConfig.getConnectionIdleTimeout());
+    assertNull(networkConfig.getRateLimits());
+    assertNull(networkConfig.getRateLimitPolicy());
+    assertNull(networkConfig.getMaxRateLimitWait());
+    assertNull(networkConfig.getCircuitBreaker());
   }
 
   @Test
@@ -68,5 +81,29 @@ public class TestNetworkConfigImpl {
 
     networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
     assertEquals(NON_FATAL_ERROR_MESSAGES, networkConfig.getNonFatalErrorMessages());
+
+    networkConfig.setConnectionPoolSize(CONNECTION_POOL_SIZE);
+    assertEquals(CONNECTION_POOL_SIZE, networkConfig.getConnectionPoolSize());
+
+    networkConfig.setConnectionIdleTimeout(CONNECTION_IDLE_TIMEOUT);
+    assertEquals(CONNECTION_IDLE_TIMEOUT, networkConfig.getConnectionIdleTimeout());
+
+    final RateLimitConfigImpl publicRateLimit = new RateLimitConfigImpl();
+    publicRateLimit.setRequestsPerSecond(1.0);
+    publicRateLimit.setBurst(5);
+    final Map<String, RateLimitConfig> rateLimits =
+        Collections.singletonMap("public", publicRateLimit);
+    networkConfig.setRateLimits(rateLimits);
+    assertEquals(rateLimits, networkConfig.getRateLimits());
+
+    networkConfig.setRateLimitPolicy(RATE_LIMIT_POLICY);
+    assertEquals(RATE_LIMIT_POLICY, networkConfig.getRateLimitPolicy());
+
+    networkConfig.setMaxRateLimitWait(MAX_RATE_LIMIT_WAIT);
+    assertEquals(MAX_RATE_LIMIT_WAIT, networkConfig.getMaxRateLimitWait());
+
+    final CircuitBreakerConfigImpl circuitBreaker = new CircuitBreakerConfigImpl();
+    networkConfig.setCircuitBreaker(circuitBreaker);
+    assertEquals(circuitBreaker, networkConfig.getCircuitBreaker());
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.config.exchange;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests Rate Limit Config exchange API config object behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestRateLimitConfigImpl {
+
+  private static final Double REQUESTS_PER_SECOND = 0.5;
+  private static final Integer BURST = 3;
+
+  @Test
+  public void testInitialisationWorksAsExpected() {
+    final RateLimitConfigImpl rateLimitConfig = new RateLimitConfigImpl();
+    assertNull(rateLimitConfig.getRequestsPerSecond());
+    assertNull(rateLimitConfig.getBurst());
+  }
+
+  @Test
+  public void testSettersWorkAsExpected() {
+    final RateLimitConfigImpl rateLimitConfig = new RateLimitConfigImpl();
+
+    rateLimitConfig.setRequestsPerSecond(REQUESTS_PER_SECOND);
+    assertEquals(REQUESTS_PER_SECOND, rateLimitConfig.getRequestsPerSecond());
+
+    rateLimitConfig.setBurst(BURST);
+    assertEquals(BURST, rateLimitConfig.getBurst());
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.core.engine.MarketScheduler.ScheduledMarket;
+import com.gazbert.bxbot.core.engine.TradeCycleScheduler.OverrunPolicy;
+import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Market Scheduler behaves as expected.
+ *
+ * <p>A fake clock is used; sleeping just moves the clock on.
+ *
+ * @author gazbert
+ */
+public class TestMarketScheduler {
+
+  private static final long ENGINE_INTERVAL = 1000L;
+
+  private long now;
+  private List<Long> sleeps;
+
+  private TradingStrategy btcUsdStrategy;
+  private TradingStrategy ltcBtcStrategy;
+  private TradingStrategy ethUsdStrategy;
+
+  @Before
+  public void setupForEachTest() {
+    now = 0L;
+    sleeps = new ArrayList<>();
+    btcUsdStrategy = EasyMock.createMock(TradingStrategy.class);
+    ltcBtcStrategy = EasyMock.createMock(TradingStrategy.class);
+    ethUsdStrategy = EasyMock.createMock(TradingStrategy.class);
+  }
+
+  @Test
+  public void testAllMarketsAreDueWhenStartedInPriorityOrder() throws Exception {
+    final MarketScheduler scheduler = createScheduler();
+    scheduler.addMarket("LTC/BTC", ltcBtcStrategy, 5000L, 0);
+    scheduler.addMarket("BTC/USD", btcUsdStrategy, 1000L, 10);
+    scheduler.addMarket("ETH/USD", ethUsdStrategy, 1000L, 0);
+    scheduler.start();
+
+    final List<ScheduledMarket> dueMarkets = scheduler.awaitDueMarkets();
+    assertTrue(sleeps.isEmpty());
+    assertEquals(3, dueMarkets.size());
+    assertSame(btcUsdStrategy, dueMarkets.get(0).getTradingStrategy());
+    assertSame(ltcBtcStrategy, dueMarkets.get(1).getTradingStrategy());
+    assertSame(ethUsdStrategy, dueMarkets.get(2).getTradingStrategy());
+  }
+
+  @Test
+  public void testEachMarketRunsOnItsOwnInterval() throws Exception {
+    final MarketScheduler scheduler = createScheduler();
+    scheduler.addMarket("BTC/USD", btcUsdStrategy, 1000L, 0);
+    scheduler.addMarket("LTC/BTC", ltcBtcStrategy, 3000L, 0);
+    scheduler.start();
+
+    int btcUsdCycles = 0;
+    int ltcBtcCycles = 0;
+    while (now < 5000L) {
+      final List<ScheduledMarket> dueMarkets = scheduler.awaitDueMarkets();
+      for (final ScheduledMarket dueMarket : dueMarkets) {
+        if (dueMarket.getTradingStrategy() == btcUsdStrategy) {
+          btcUsdCycles++;
+        } else {
+          ltcBtcCycles++;
+        }
+      }
+      now += 100; // cycle took 100
+      scheduler.reschedule(dueMarkets);
+    }
+
+    assertEquals(6, btcUsdCycles);
+    assertEquals(2, ltcBtcCycles);
+    assertEquals(0, scheduler.getOverrunCount());
+  }
+
+  @Test
+  public void testMarketsAreRescheduledAndOverrunsCounted() throws Exception {
+    final MarketScheduler scheduler = createScheduler();
+    scheduler.addMarket("BTC/USD", btcUsdStrategy, 1000L, 0);
+    scheduler.start();
+
+    final List<ScheduledMarket> dueMarkets = scheduler.awaitDueMarkets();
+    now += 1500; // overran by 500
+    scheduler.reschedule(dueMarkets);
+    assertEquals(1, scheduler.getOverrunCount());
+
+    // SKIP policy: next cycle is at the next slot on the grid
+    assertEquals(1, scheduler.awaitDueMarkets().size());
+    assertEquals(Long.valueOf(500), sleeps.get(0));
+    assertEquals(2000, now);
+  }
+
+  @Test
+  public void testFailedMarketsAreRetriedAfterDelayAndOtherMarketsWaitForIt() throws Exception {
+    final MarketScheduler scheduler = createScheduler();
+    scheduler.addMarket("BTC/USD", btcUsdStrategy, 1000L, 0);
+    scheduler.addMarket("LTC/BTC", ltcBtcStrategy, 1000L, 0);
+    scheduler.addMarket("ETH/USD", ethUsdStrategy, 10000L, 0);
+    scheduler.start();
+
+    List<ScheduledMarket> dueMarkets = scheduler.awaitDueMarkets();
+    now += 100;
+    scheduler.reschedule(dueMarkets);
+
+    // BTC/USD and LTC/BTC are due at 1000 and fail; ETH/USD is not due until 10000.
+    dueMarkets = scheduler.awaitDueMarkets();
+    assertEquals(2, dueMarkets.size());
+    scheduler.retryAfter(dueMarkets.subList(0, 1), 250L);
+    scheduler.reschedule(dueMarkets.subList(1, 2));
+
+    // A later network error: LTC/BTC would be due at 2000 but waits for the retry at 3250 too.
+    now = 3000L;
+    scheduler.retryAfter(new ArrayList<>(), 250L);
+    dueMarkets = scheduler.awaitDueMarkets();
+    assertEquals(3250L, now);
+    assertEquals(2, dueMarkets.size());
+    assertSame(btcUsdStrategy, dueMarkets.get(0).getTradingStrategy());
+    assertSame(ltcBtcStrategy, dueMarkets.get(1).getTradingStrategy());
+
+    // Once the retry succeeds, the grid is re-anchored on it.
+    scheduler.reschedule(dueMarkets);
+    assertEquals(2, scheduler.awaitDueMarkets().size());
+    assertEquals(4250L, now);
+  }
+
+  @Test
+  public void testSleepsAgainIfWokenBeforeTheNextMarketIsDue() throws Exception {
+    final MarketScheduler scheduler =
+        new MarketScheduler(
+            OverrunPolicy.SKIP,
+            ENGINE_INTERVAL,
+            () -> now,
+            nanos -> {
+              sleeps.add(nanos);
+              now += nanos > 1 ? nanos - 1 : nanos; // wakes early, as a rounded sleep can
+            });
+    scheduler.addMarket("BTC/USD", btcUsdStrategy, 1000L, 0);
+    scheduler.start();
+    scheduler.reschedule(scheduler.awaitDueMarkets());
+
+    assertEquals(1, scheduler.awaitDueMarkets().size());
+    assertEquals(Arrays.asList(1000L, 1L), sleeps);
+    assertEquals(1000L, now);
+  }
+
+  @Test
+  public void testWaitsForIdleIntervalWhenThereAreNoMarkets() throws Exception {
+    final MarketScheduler scheduler = createScheduler();
+    scheduler.start();
+
+    assertTrue(scheduler.awaitDueMarkets().isEmpty());
+    assertEquals(Long.valueOf(ENGINE_INTERVAL), sleeps.get(0));
+  }
+
+  private MarketScheduler createScheduler() {
+    return new MarketScheduler(
+        OverrunPolicy.SKIP,
+        ENGINE_INTERVAL,
+        () -> now,
+        nanos -> {
+          sleeps.add(nanos);
+          now += nanos;
+        });
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.domain.engine.NetworkErrorBackoffConfig;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+/**
+ * Tests the Network Error Backoff behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestNetworkErrorBackoff {
+
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private double random;
+
+  @Test
+  public void testDelayGrowsExponentiallyUpToMaxDelay() {
+    final NetworkErrorBackoff backoff = createBackoff(0);
+
+    assertEquals(ONE_SECOND, backoff.nextDelay());
+    assertEquals(2 * ONE_SECOND, backoff.nextDelay());
+    assertEquals(4 * ONE_SECOND, backoff.nextDelay());
+    assertEquals(8 * ONE_SECOND, backoff.nextDelay());
+    assertEquals(10 * ONE_SECOND, backoff.nextDelay());
+    for (int i = 0; i < 2000; i++) {
+      assertEquals(10 * ONE_SECOND, backoff.nextDelay()); // no overflow
+    }
+    assertEquals(2005, backoff.getConsecutiveErrors());
+    assertEquals(10 * ONE_SECOND, backoff.getCurrentDelayNanos());
+  }
+
+  @Test
+  public void testJitterTakesRandomFractionOffDelay() {
+    final NetworkErrorBackoff backoff = createBackoff(0.5);
+
+    random = 0.0;
+    assertEquals(ONE_SECOND, backoff.nextDelay());
+    random = 0.5;
+    assertEquals(ONE_SECOND + ONE_SECOND / 2, backoff.nextDelay()); // 2s less a quarter
+    random = 0.999;
+    assertTrue(backoff.nextDelay() > 2 * ONE_SECOND); // 4s less just under a half
+  }
+
+  @Test
+  public void testResetStartsAgainFromInitialDelay() {
+    final NetworkErrorBackoff backoff = createBackoff(0);
+    assertFalse(backoff.reset());
+
+    backoff.nextDelay();
+    backoff.nextDelay();
+    assertTrue(backoff.reset());
+    assertEquals(0, backoff.getConsecutiveErrors());
+    assertEquals(0, backoff.getCurrentDelayNanos());
+    assertEquals(ONE_SECOND, backoff.nextDelay());
+  }
+
+  @Test
+  public void testNoBackoffIfNotConfigured() {
+    assertNull(NetworkErrorBackoff.fromConfig(null, null));
+  }
+
+  @Test
+  public void testDefaultsAreUsedForMissingConfig() {
+    final NetworkErrorBackoff backoff =
+        NetworkErrorBackoff.fromConfig(new NetworkErrorBackoffConfig(), null);
+    assertEquals(
+        "NetworkErrorBackoff{initialDelay=1s, multiplier=2.0, maxDelay=300s, jitter=0.5}",
+        backoff.toString());
+  }
+
+  @Test
+  public void testExchangeConfigOverridesEngineConfig() {
+    final NetworkErrorBackoffConfig engineBackoff = new NetworkErrorBackoffConfig();
+    engineBackoff.setInitialDelay(5);
+    engineBackoff.setMultiplier(3.0);
+    engineBackoff.setMaxDelay(600);
+    engineBackoff.setJitter(0.1);
+
+    final NetworkErrorBackoffConfig exchangeBackoff = new NetworkErrorBackoffConfig();
+    exchangeBackoff.setInitialDelay(2);
+    exchangeBackoff.setJitter(0.0);
+
+    assertEquals(
+        "NetworkErrorBackoff{initialDelay=2s, multiplier=3.0, maxDelay=600s, jitter=0.0}",
+        NetworkErrorBackoff.fromConfig(engineBackoff, exchangeBackoff).toString());
+    assertEquals(
+        "NetworkErrorBackoff{initialDelay=2s, multiplier=2.0, maxDelay=300s, jitter=0.0}",
+        NetworkErrorBackoff.fromConfig(null, exchangeBackoff).toString());
+  }
+
+  @Test
+  public void testDefaultMaxDelayIsNeverLessThanInitialDelay() {
+    final NetworkErrorBackoffConfig engineBackoff = new NetworkErrorBackoffConfig();
+    engineBackoff.setInitialDelay(900);
+    assertEquals(
+        "NetworkErrorBackoff{initialDelay=900s, multiplier=2.0, maxDelay=900s, jitter=0.5}",
+        NetworkErrorBackoff.fromConfig(engineBackoff, null).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMaxDelayLessThanInitialDelayIsRejected() {
+    final NetworkErrorBackoffConfig engineBackoff = new NetworkErrorBackoffConfig();
+    engineBackoff.setInitialDelay(60);
+    engineBackoff.setMaxDelay(30);
+    NetworkErrorBackoff.fromConfig(engineBackoff, null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testJitterOverOneIsRejected() {
+    createBackoff(1.5);
+  }
+
+  private NetworkErrorBackoff createBackoff(double jitter) {
+    return new NetworkErrorBackoff(ONE_SECOND, 2.0, 10 * ONE_SECOND, jitter, () -> random);
+  }
+}
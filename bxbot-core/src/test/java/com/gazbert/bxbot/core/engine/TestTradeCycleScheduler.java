@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import com.gazbert.bxbot.core.engine.TradeCycleScheduler.OverrunPolicy;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Trade Cycle Scheduler behaves as expected.
+ *
+ * <p>A fake clock is used so we can control exactly how long each trade cycle takes.
+ *
+ * @author gazbert
+ */
+public class TestTradeCycleScheduler {
+
+  private static final long INTERVAL = 1000L;
+
+  private long now;
+
+  @Before
+  public void setupForEachTest() {
+    now = 5000L;
+  }
+
+  @Test
+  public void testOnlyWaitsForWhatIsLeftOfInterval() {
+    final TradeCycleScheduler scheduler = createScheduler(OverrunPolicy.SKIP);
+    scheduler.start();
+
+    now += 300; // cycle took 300
+    assertEquals(700, scheduler.completeCycle());
+    assertEquals(6000, scheduler.getNextCycleStart());
+    now += 700;
+
+    now += 950; // cycle took 950
+    assertEquals(50, scheduler.completeCycle());
+    assertEquals(0, scheduler.getOverrunCount());
+  }
+
+  @Test
+  public void testCyclesDoNotDriftWhenSleepOvershoots() {
+    final TradeCycleScheduler scheduler = createScheduler(OverrunPolicy.SKIP);
+    scheduler.start();
+
+    now += 200;
+    assertEquals(800, scheduler.completeCycle());
+    now += 810; // woke up 10 late
+
+    now += 200;
+    assertEquals(790, scheduler.completeCycle()); // still on the original grid
+  }
+
+  @Test
+  public void testSkipPolicyWaitsForNextSlotOnGrid() {
+    final TradeCycleScheduler scheduler = createScheduler(OverrunPolicy.SKIP);
+    scheduler.start();
+
+    now += 2300; // overran by 1300
+    assertEquals(700, scheduler.completeCycle());
+    assertEquals(1, scheduler.getOverrunCount());
+
+    now += 700;
+    now += 100;
+    assertEquals(900, scheduler.completeCycle());
+    assertEquals(1, scheduler.getOverrunCount());
+  }
+
+  @Test
+  public void testCatchUpPolicyRunsMissedCyclesImmediately() {
+    final TradeCycleScheduler scheduler = createScheduler(OverrunPolicy.CATCH_UP);
+    scheduler.start();
+
+    now += 2300; // overran by 1300
+    assertEquals(0, scheduler.completeCycle());
+
+    now += 100; // still behind the slot after
+    assertEquals(0, scheduler.completeCycle());
+
+    now += 100; // back on the grid
+    assertEquals(500, scheduler.completeCycle());
+    assertEquals(2, scheduler.getOverrunCount());
+  }
+
+  @Test
+  public void testBackToBackPolicyReanchorsGrid() {
+    final TradeCycleScheduler scheduler = createScheduler(OverrunPolicy.BACK_TO_BACK);
+    scheduler.start();
+
+    now += 2300;
+    assertEquals(0, scheduler.completeCycle());
+    assertEquals(1, scheduler.getOverrunCount());
+
+    now += 100;
+    assertEquals(900, scheduler.completeCycle());
+    assertEquals(1, scheduler.getOverrunCount());
+  }
+
+  @Test
+  public void testOverrunPolicyIsParsedFromConfig() {
+    assertEquals(OverrunPolicy.SKIP, OverrunPolicy.fromConfig(null));
+    assertEquals(OverrunPolicy.SKIP, OverrunPolicy.fromConfig(" "));
+    assertEquals(OverrunPolicy.SKIP, OverrunPolicy.fromConfig("skip"));
+    assertEquals(OverrunPolicy.CATCH_UP, OverrunPolicy.fromConfig("catch-up"));
+    assertEquals(OverrunPolicy.BACK_TO_BACK, OverrunPolicy.fromConfig("Back_To_Back"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownOverrunPolicyIsRejected() {
+    OverrunPolicy.fromConfig("whenever");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCycleCannotCompleteBeforeSchedulerIsStarted() {
+    createScheduler(OverrunPolicy.SKIP).completeCycle();
+  }
+
+  @Test
+  public void testPostponedCycleReAnchorsGrid() {
+    final TradeCycleScheduler scheduler = createScheduler(OverrunPolicy.SKIP);
+    scheduler.start();
+
+    now += 200; // cycle failed after 200
+    scheduler.postponeTo(now + 300);
+    assertEquals(5500, scheduler.getNextCycleStart());
+    now += 300;
+
+    now += 100;
+    assertEquals(900, scheduler.completeCycle());
+    assertEquals(6500, scheduler.getNextCycleStart());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testCycleCannotBePostponedBeforeSchedulerIsStarted() {
+    createScheduler(OverrunPolicy.SKIP).postponeTo(now);
+  }
+
+  private TradeCycleScheduler createScheduler(OverrunPolicy overrunPolicy) {
+    return new TradeCycleScheduler("BTC/USD", INTERVAL, overrunPolicy, () -> now);
+  }
+}
@@ -30,13 +30,20 @@ import static org.easymock.EasyMock.contains;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 import com.gazbert.bxbot.core.config.strategy.TradingStrategiesBuilder;
 import com.gazbert.bxbot.core.config.strategy.TradingStrategyFactory;
+import com.gazbert.bxbot.core.exchange.BalanceService;
+import com.gazbert.bxbot.core.exchange.ExchangeHealthIndicator;
+import com.gazbert.bxbot.core.exchange.ExchangeLatencyMetrics;
+import com.gazbert.bxbot.core.exchange.ExchangeRateLimitMetrics;
+import com.gazbert.bxbot.core.exchange.TradeCycleCache;
 import com.gazbert.bxbot.core.mail.EmailAlerter;
 import com.gazbert.bxbot.core.util.ConfigurableComponentFactory;
 import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.domain.engine.NetworkErrorBackoffConfig;
 import com.gazbert.bxbot.domain.exchange.NetworkConfig;
 import com.gazbert.bxbot.domain.market.MarketConfig;
 import com.gazbert.bxbot.domain.strategy.StrategyConfig;
@@ -60,8 +67,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -137,6 +146,11 @@ public class TestTradingEngine {
   private static final String MARKET_COUNTER_CURRENCY = "USD";
   private static final boolean MARKET_IS_ENABLED = true;
 
+  private static final String MARKET_2_NAME = "LTC/USD";
+  private static final String MARKET_2_ID = "ltc_usd";
+  private static final String MARKET_2_BASE_CURRENCY = "LTC";
+  private static final int STRATEGY_THREAD_POOL_SIZE = 2;
+
   // Mocks used by all tests
   private ExchangeAdapter exchangeAdapter;
   private TradingStrategy tradingStrategy;
@@ -147,6 +161,11 @@ public class TestTradingEngine {
   private MarketConfigService marketConfigService;
 
   private TradingStrategiesBuilder tradingStrategiesBuilder;
+  private TradeCycleCache tradeCycleCache;
+  private BalanceService balanceService;
+  private ExchangeHealthIndicator exchangeHealthIndicator;
+  private ExchangeLatencyMetrics exchangeLatencyMetrics;
+  private ExchangeRateLimitMetrics exchangeRateLimitMetrics;
 
   /**
    * Mock out Config subsystem; we're not testing it here - has its own unit tests.
@@ -168,6 +187,12 @@ public class TestTradingEngine {
     final TradingStrategyFactory tradingStrategyFactory = new TradingStrategyFactory();
     tradingStrategiesBuilder = new TradingStrategiesBuilder();
     tradingStrategiesBuilder.setTradingStrategyFactory(tradingStrategyFactory);
+    tradeCycleCache = new TradeCycleCache();
+    balanceService = new BalanceService();
+    tradeCycleCache.setBalanceService(balanceService);
+    exchangeHealthIndicator = new ExchangeHealthIndicator();
+    exchangeLatencyMetrics = new ExchangeLatencyMetrics();
+    exchangeRateLimitMetrics = new ExchangeRateLimitMetrics();
 
     PowerMock.mockStatic(ConfigurableComponentFactory.class);
   }
@@ -183,7 +208,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
     assertFalse(tradingEngine.isRunning());
 
     PowerMock.verifyAll();
@@ -222,7 +252,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
     tradingEngine.start();
 
     await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
@@ -249,7 +284,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -295,7 +335,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -308,6 +353,8 @@ public class TestTradingEngine {
     await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
     assertFalse(tradingEngine.isRunning());
 
+    assertTrue(tradeCycleCache.getTradeCycle() > 0);
+
     PowerMock.verifyAll();
   }
 
@@ -350,7 +397,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     tradingEngine.start();
 
@@ -403,7 +455,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     tradingEngine.start();
 
@@ -456,7 +513,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     tradingEngine.start();
 
@@ -506,7 +568,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     tradingEngine.start();
 
@@ -559,7 +626,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -581,6 +653,85 @@ public class TestTradingEngine {
     PowerMock.verifyAll();
   }
 
+  /*
+   * Tests the engine backs off after an ExchangeNetworkException when a network error backoff is
+   * configured, reports it in the exchange health, and resets it once a trade cycle succeeds.
+   */
+  @Test
+  public void testEngineBacksOffAfterExchangeNetworkExceptionAndResetsOnSuccess()
+      throws Exception {
+    setupExchangeAdapterConfigExpectations();
+    final EngineConfig engineConfig = someEngineConfig();
+    final NetworkErrorBackoffConfig networkErrorBackoff = new NetworkErrorBackoffConfig();
+    networkErrorBackoff.setInitialDelay(1);
+    networkErrorBackoff.setJitter(0.0);
+    engineConfig.setNetworkErrorBackoff(networkErrorBackoff);
+    expect(engineConfigService.getEngineConfig()).andReturn(engineConfig);
+    setupStrategyAndMarketConfigExpectations();
+
+    final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+    balancesAvailable.put(ENGINE_EMERGENCY_STOP_CURRENCY, new BigDecimal("0.5"));
+    final BalanceInfo balanceInfo = PowerMock.createMock(BalanceInfo.class);
+
+    // Emergency Stop Check in 1st trade cycle fails with a network error
+    expect(exchangeAdapter.getBalanceInfo())
+        .andThrow(new ExchangeNetworkException("Connection reset"));
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).atLeastOnce();
+    expect(balanceInfo.getBalancesAvailable()).andReturn(balancesAvailable).atLeastOnce();
+    expect(exchangeAdapter.getCircuitBreakerState()).andReturn(null).anyTimes();
+
+    final CountDownLatch retried = new CountDownLatch(1);
+    final CountDownLatch resetReported = new CountDownLatch(1);
+    tradingStrategy.execute();
+    expectLastCall()
+        .andAnswer(
+            () -> {
+              final Map<String, Object> details = exchangeHealthIndicator.health().getDetails();
+              assertEquals(1, details.get("consecutiveNetworkErrors"));
+              assertEquals(1000L, details.get("networkErrorRetryDelay"));
+              retried.countDown();
+              return null;
+            });
+    tradingStrategy.execute();
+    expectLastCall()
+        .andAnswer(
+            () -> {
+              final Map<String, Object> details = exchangeHealthIndicator.health().getDetails();
+              assertEquals(0, details.get("consecutiveNetworkErrors"));
+              resetReported.countDown();
+              return null;
+            })
+        .anyTimes();
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
+
+    final Executor executor = Executors.newSingleThreadExecutor();
+    executor.execute(tradingEngine::start);
+
+    assertTrue(retried.await(5, TimeUnit.SECONDS));
+    assertTrue(resetReported.await(5, TimeUnit.SECONDS));
+    tradingEngine.shutdown();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
   /*
    * Tests the engine cannot be started more than once.
    */
@@ -610,7 +761,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
 
@@ -653,7 +809,12 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
     tradingEngine.start();
 
     await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
@@ -690,7 +851,58 @@ public class TestTradingEngine {
             strategyConfigService,
             marketConfigService,
             emailAlerter,
-            tradingStrategiesBuilder);
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
+
+    final Executor executor = Executors.newSingleThreadExecutor();
+    executor.execute(tradingEngine::start);
+
+    await().until(engineStateChanged(tradingEngine, EngineState.RUNNING));
+    assertTrue(tradingEngine.isRunning());
+
+    tradingEngine.shutdown();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
+  /*
+   * Tests the engine executes the strategies for each market concurrently when a strategy thread
+   * pool is configured, and can then be shutdown.
+   */
+  @Test
+  public void testEngineExecutesTradingStrategiesConcurrentlyAndCanBeShutdownSuccessfully()
+      throws Exception {
+    final TradingStrategy tradingStrategy2 = PowerMock.createMock(TradingStrategy.class);
+    setupConfigLoadingExpectationsForConcurrentStrategies(tradingStrategy2);
+
+    // expect both Trading Strategies to be invoked
+    tradingStrategy.execute();
+    expectLastCall().atLeastOnce();
+    tradingStrategy2.execute();
+    expectLastCall().atLeastOnce();
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
 
     final Executor executor = Executors.newSingleThreadExecutor();
     executor.execute(tradingEngine::start);
@@ -706,6 +918,52 @@ public class TestTradingEngine {
     PowerMock.verifyAll();
   }
 
+  /*
+   * Tests the engine applies the usual exception handling policy when a strategy running on the
+   * strategy thread pool throws a StrategyException - we expect the engine to shutdown.
+   */
+  @Test
+  public void testEngineShutsDownWhenConcurrentlyExecutedTradingStrategyThrowsStrategyException()
+      throws Exception {
+    final TradingStrategy tradingStrategy2 = PowerMock.createMock(TradingStrategy.class);
+    setupConfigLoadingExpectationsForConcurrentStrategies(tradingStrategy2);
+
+    final String exceptionErrorMsg = "Eeek! My other strat just broke. Please shutdown!";
+
+    // expect 1st strategy to succeed and 2nd strategy to fail in the same trade cycle
+    tradingStrategy.execute();
+    tradingStrategy2.execute();
+    expectLastCall().andThrow(new StrategyException(exceptionErrorMsg));
+
+    // expect Email Alert to be sent
+    emailAlerter.sendMessage(
+        eq(CRITICAL_EMAIL_ALERT_SUBJECT),
+        contains("A FATAL error has occurred in Trading Strategy! Details: " + exceptionErrorMsg));
+
+    PowerMock.replayAll();
+
+    final TradingEngine tradingEngine =
+        new TradingEngine(
+            exchangeConfigService,
+            engineConfigService,
+            strategyConfigService,
+            marketConfigService,
+            emailAlerter,
+            tradingStrategiesBuilder,
+            tradeCycleCache,
+            balanceService,
+            exchangeHealthIndicator,
+            exchangeLatencyMetrics,
+            exchangeRateLimitMetrics);
+
+    tradingEngine.start();
+
+    await().until(engineStateChanged(tradingEngine, EngineState.SHUTDOWN));
+    assertFalse(tradingEngine.isRunning());
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  private utils
   // --------------------------------------------------------------------------
@@ -715,6 +973,8 @@ public class TestTradingEngine {
     expect(ConfigurableComponentFactory.createComponent(EXCHANGE_ADAPTER_IMPL_CLASS))
         .andReturn(exchangeAdapter);
     expect(exchangeAdapter.getImplName()).andReturn(EXCHANGE_NAME).anyTimes();
+    expect(exchangeAdapter.getCallRecorder()).andReturn(null);
+    expect(exchangeAdapter.getRateLimiterMetrics()).andReturn(null);
     exchangeAdapter.init(anyObject(ExchangeConfig.class));
   }
 
@@ -725,6 +985,8 @@ public class TestTradingEngine {
     expect(ConfigurableComponentFactory.createComponent(EXCHANGE_ADAPTER_IMPL_CLASS))
         .andReturn(exchangeAdapter);
     expect(exchangeAdapter.getImplName()).andReturn(EXCHANGE_NAME).anyTimes();
+    expect(exchangeAdapter.getCallRecorder()).andReturn(null);
+    expect(exchangeAdapter.getRateLimiterMetrics()).andReturn(null);
     exchangeAdapter.init(anyObject(ExchangeConfig.class));
   }
 
@@ -748,6 +1010,27 @@ public class TestTradingEngine {
         anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
   }
 
+  private void setupConfigLoadingExpectationsForConcurrentStrategies(
+      TradingStrategy tradingStrategy2) {
+    setupExchangeAdapterConfigExpectations();
+    expect(engineConfigService.getEngineConfig())
+        .andReturn(someEngineConfigForConcurrentStrategies());
+    expect(strategyConfigService.getAllStrategyConfig()).andReturn(allTheStrategiesConfig());
+    expect(marketConfigService.getAllMarketConfig()).andReturn(twoMarketsConfig());
+    expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS))
+        .andReturn(tradingStrategy);
+    expect(ConfigurableComponentFactory.createComponent(STRATEGY_IMPL_CLASS))
+        .andReturn(tradingStrategy2);
+    tradingStrategy.init(
+        eq(exchangeAdapter),
+        anyObject(Market.class),
+        anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+    tradingStrategy2.init(
+        eq(exchangeAdapter),
+        anyObject(Market.class),
+        anyObject(com.gazbert.bxbot.strategy.api.StrategyConfig.class));
+  }
+
   private void setupConfigLoadingExpectations() {
     setupExchangeAdapterConfigExpectations();
     setupEngineConfigExpectations();
@@ -828,6 +1111,12 @@ public class TestTradingEngine {
     return engineConfig;
   }
 
+  private static EngineConfig someEngineConfigForConcurrentStrategies() {
+    final EngineConfig engineConfig = someEngineConfigForNoEmergencyStopCheck();
+    engineConfig.setStrategyThreadPoolSize(STRATEGY_THREAD_POOL_SIZE);
+    return engineConfig;
+  }
+
   private static List<StrategyConfig> allTheStrategiesConfig() {
     final Map<String, String> configItems = new HashMap<>();
     configItems.put(STRATEGY_CONFIG_ITEM_NAME, STRATEGY_CONFIG_ITEM_VALUE);
@@ -860,6 +1149,19 @@ public class TestTradingEngine {
     return allMarkets;
   }
 
+  private static List<MarketConfig> twoMarketsConfig() {
+    final List<MarketConfig> allMarkets = allTheMarketsConfig();
+    allMarkets.add(
+        new MarketConfig(
+            MARKET_2_ID,
+            MARKET_2_NAME,
+            MARKET_2_BASE_CURRENCY,
+            MARKET_COUNTER_CURRENCY,
+            MARKET_IS_ENABLED,
+            STRATEGY_ID));
+    return allMarkets;
+  }
+
   private Callable<Boolean> engineStateChanged(TradingEngine engine, EngineState engineState) {
     return () -> {
       boolean stateChanged = false;
@@ -0,0 +1,211 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.awaitility.Awaitility.await;
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Balance Service behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestBalanceService {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final String ORDER_ID = "12345";
+  private static final String OTHER_ORDER_ID = "67890";
+  private static final int BALANCE_CACHE_TTL = 60;
+
+  private TradingApi exchangeAdapter;
+  private BalanceInfo balanceInfo;
+  private BalanceInfo updatedBalanceInfo;
+  private EngineConfig engineConfig;
+  private BalanceService balanceService;
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(TradingApi.class);
+    balanceInfo = EasyMock.createMock(BalanceInfo.class);
+    updatedBalanceInfo = EasyMock.createMock(BalanceInfo.class);
+    engineConfig = new EngineConfig();
+    balanceService = new BalanceService();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testReadingBalancesBeforeInitThrowsException() throws Exception {
+    balanceService.getBalanceInfo();
+  }
+
+  @Test
+  public void testBalancesAreFetchedOncePerTradeCycle() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).andReturn(updatedBalanceInfo);
+    EasyMock.replay(exchangeAdapter);
+
+    balanceService.init(exchangeAdapter, engineConfig);
+    balanceService.startTradeCycle();
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    balanceService.startTradeCycle();
+    assertSame(updatedBalanceInfo, balanceService.getBalanceInfo());
+    assertSame(updatedBalanceInfo, balanceService.getBalanceInfo());
+
+    assertEquals(2, balanceService.getFetchCount());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testBalancesAreKeptAcrossTradeCyclesForTtl() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).once();
+    EasyMock.replay(exchangeAdapter);
+
+    engineConfig.setBalanceCacheTtl(BALANCE_CACHE_TTL);
+    balanceService.init(exchangeAdapter, engineConfig);
+    balanceService.startTradeCycle();
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    balanceService.startTradeCycle();
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testInvalidateThrowsBalancesAway() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).andReturn(updatedBalanceInfo);
+    EasyMock.replay(exchangeAdapter);
+
+    engineConfig.setBalanceCacheTtl(BALANCE_CACHE_TTL);
+    balanceService.init(exchangeAdapter, engineConfig);
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    balanceService.invalidate();
+    assertSame(updatedBalanceInfo, balanceService.getBalanceInfo());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testFilledOrdersThrowBalancesAway() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo())
+        .andReturn(balanceInfo)
+        .andReturn(updatedBalanceInfo)
+        .andReturn(balanceInfo);
+    EasyMock.replay(exchangeAdapter);
+
+    final OpenOrder order = someOpenOrder(ORDER_ID, "2.0");
+    final OpenOrder otherOrder = someOpenOrder(OTHER_ORDER_ID, "1.0");
+    final OpenOrder otherOrderPartFilled = someOpenOrder(OTHER_ORDER_ID, "0.5");
+
+    engineConfig.setBalanceCacheTtl(BALANCE_CACHE_TTL);
+    balanceService.init(exchangeAdapter, engineConfig);
+    balanceService.checkForFills(MARKET_ID, Arrays.asList(order, otherOrder));
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    // nothing filled
+    balanceService.checkForFills(MARKET_ID, Arrays.asList(order, otherOrder));
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    // order filled
+    balanceService.checkForFills(MARKET_ID, Collections.singletonList(otherOrder));
+    assertSame(updatedBalanceInfo, balanceService.getBalanceInfo());
+
+    // other order part filled
+    balanceService.checkForFills(MARKET_ID, Collections.singletonList(otherOrderPartFilled));
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testFailedFetchesAreNotRemembered() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo())
+        .andThrow(new ExchangeNetworkException("Timeout"))
+        .andReturn(balanceInfo);
+    EasyMock.replay(exchangeAdapter);
+
+    balanceService.init(exchangeAdapter, engineConfig);
+    balanceService.startTradeCycle();
+    try {
+      balanceService.getBalanceInfo();
+    } catch (ExchangeNetworkException e) {
+      // expected
+    }
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testBalancesAreRefreshedInBackgroundForNextTradeCycle() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).andReturn(updatedBalanceInfo);
+    EasyMock.replay(exchangeAdapter);
+
+    engineConfig.setAsyncBalanceRefresh(true);
+    balanceService.init(exchangeAdapter, engineConfig);
+    balanceService.startTradeCycle();
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    balanceService.refreshForNextTradeCycle();
+    await().until(() -> balanceService.getFetchCount() == 2);
+
+    balanceService.startTradeCycle();
+    assertSame(updatedBalanceInfo, balanceService.getBalanceInfo());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testBalancesAreNotRefreshedInBackgroundUnlessEnabled() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).once();
+    EasyMock.replay(exchangeAdapter);
+
+    balanceService.init(exchangeAdapter, engineConfig);
+    balanceService.startTradeCycle();
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+
+    balanceService.refreshForNextTradeCycle();
+    assertEquals(1, balanceService.getFetchCount());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  private static OpenOrder someOpenOrder(String id, String quantity) {
+    final OpenOrder openOrder = EasyMock.createMock(OpenOrder.class);
+    expect(openOrder.getId()).andStubReturn(id);
+    expect(openOrder.getQuantity()).andStubReturn(new BigDecimal(quantity));
+    EasyMock.replay(openOrder);
+    return openOrder;
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import com.gazbert.bxbot.domain.engine.EngineConfig;
+import com.gazbert.bxbot.exchanges.BitstampExchangeAdapter;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.ExecutorAsyncTradingApi;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Caching Trading API behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestCachingTradingApi {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final String OTHER_MARKET_ID = "ltcusd";
+  private static final String ORDER_ID = "12345";
+
+  private TradingApi exchangeAdapter;
+  private MarketOrderBook marketOrderBook;
+  private MarketOrderBook otherMarketOrderBook;
+  private BalanceInfo balanceInfo;
+  private Ticker ticker;
+  private BestBidAsk bestBidAsk;
+  private TradeCycleCache tradeCycleCache;
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(TradingApi.class);
+    marketOrderBook = EasyMock.createMock(MarketOrderBook.class);
+    otherMarketOrderBook = EasyMock.createMock(MarketOrderBook.class);
+    balanceInfo = EasyMock.createMock(BalanceInfo.class);
+    ticker = EasyMock.createMock(Ticker.class);
+    bestBidAsk = EasyMock.createMock(BestBidAsk.class);
+    tradeCycleCache = new TradeCycleCache();
+    expect(exchangeAdapter.getImplName()).andStubReturn("Dummy Exchange");
+  }
+
+  @Test
+  public void testReadsAreCachedForTheTradeCycle() throws Exception {
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook).once();
+    expect(exchangeAdapter.getMarketOrders(OTHER_MARKET_ID))
+        .andReturn(otherMarketOrderBook)
+        .once();
+    expect(exchangeAdapter.getTicker(MARKET_ID)).andReturn(ticker).once();
+    expect(exchangeAdapter.getBestBidAsk(MARKET_ID)).andReturn(bestBidAsk).once();
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).once();
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+
+    assertSame(marketOrderBook, tradingApi.getMarketOrders(MARKET_ID));
+    assertSame(marketOrderBook, tradingApi.getMarketOrders(MARKET_ID));
+    assertSame(otherMarketOrderBook, tradingApi.getMarketOrders(OTHER_MARKET_ID));
+    assertSame(ticker, tradingApi.getTicker(MARKET_ID));
+    assertSame(ticker, tradingApi.getTicker(MARKET_ID));
+    assertSame(bestBidAsk, tradingApi.getBestBidAsk(MARKET_ID));
+    assertSame(bestBidAsk, tradingApi.getBestBidAsk(MARKET_ID));
+    assertSame(balanceInfo, tradingApi.getBalanceInfo());
+    assertSame(balanceInfo, tradingApi.getBalanceInfo());
+
+    assertEquals(4, tradeCycleCache.getHitCount());
+    assertEquals(5, tradeCycleCache.getMissCount());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testHitsAndMissesArePublishedToMicrometer() throws Exception {
+    expect(exchangeAdapter.getTicker(MARKET_ID)).andReturn(ticker).once();
+    EasyMock.replay(exchangeAdapter);
+
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    tradeCycleCache.bindTo(meterRegistry);
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+
+    assertSame(ticker, tradingApi.getTicker(MARKET_ID));
+    assertSame(ticker, tradingApi.getTicker(MARKET_ID));
+    assertSame(ticker, tradingApi.getTicker(MARKET_ID));
+
+    assertEquals(2, readCount(meterRegistry, "hit"), 0);
+    assertEquals(1, readCount(meterRegistry, "miss"), 0);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testDecoratedExchangeAdapterReturnsItsNativeAsyncApi() {
+    final BitstampExchangeAdapter bitstampExchangeAdapter = new BitstampExchangeAdapter();
+    final TradingApi tradingApi = tradeCycleCache.decorate(bitstampExchangeAdapter);
+
+    final AsyncTradingApi asyncTradingApi = tradingApi.async(Runnable::run);
+
+    assertFalse(asyncTradingApi instanceof ExecutorAsyncTradingApi);
+    assertSame(bitstampExchangeAdapter.async(Runnable::run).getClass(), asyncTradingApi.getClass());
+  }
+
+  @Test
+  public void testDepthLimitedOrderBooksAreCachedPerDepth() throws Exception {
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID, 1)).andReturn(marketOrderBook).once();
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID, 10)).andReturn(otherMarketOrderBook).once();
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+
+    assertSame(marketOrderBook, tradingApi.getMarketOrders(MARKET_ID, 1));
+    assertSame(otherMarketOrderBook, tradingApi.getMarketOrders(MARKET_ID, 10));
+    assertSame(marketOrderBook, tradingApi.getMarketOrders(MARKET_ID, 1));
+    assertSame(otherMarketOrderBook, tradingApi.getMarketOrders(MARKET_ID, 10));
+
+    assertEquals(2, tradeCycleCache.getHitCount());
+    assertEquals(2, tradeCycleCache.getMissCount());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCachedReadsAreThrownAwayAtNextTradeCycle() throws Exception {
+    expect(exchangeAdapter.getLatestMarketPrice(MARKET_ID))
+        .andReturn(new BigDecimal("100.0"))
+        .andReturn(new BigDecimal("101.0"));
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+    assertEquals(new BigDecimal("100.0"), tradingApi.getLatestMarketPrice(MARKET_ID));
+    assertEquals(new BigDecimal("100.0"), tradingApi.getLatestMarketPrice(MARKET_ID));
+
+    tradeCycleCache.startTradeCycle();
+    assertEquals(new BigDecimal("101.0"), tradingApi.getLatestMarketPrice(MARKET_ID));
+
+    assertEquals(1, tradeCycleCache.getHitCount());
+    assertEquals(2, tradeCycleCache.getMissCount());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCreatingOrderThrowsAwayCachedReadsForThatMarket() throws Exception {
+    final List<OpenOrder> noOrders = Collections.emptyList();
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(noOrders).times(2);
+    expect(exchangeAdapter.getMarketOrders(OTHER_MARKET_ID))
+        .andReturn(otherMarketOrderBook)
+        .once();
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(2);
+    expect(
+            exchangeAdapter.createOrder(
+                MARKET_ID, OrderType.BUY, new BigDecimal("1.0"), new BigDecimal("100.0")))
+        .andReturn(ORDER_ID);
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(false);
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    tradingApi.getMarketOrders(OTHER_MARKET_ID);
+    tradingApi.getBalanceInfo();
+
+    assertEquals(
+        ORDER_ID,
+        tradingApi.createOrder(
+            MARKET_ID, OrderType.BUY, new BigDecimal("1.0"), new BigDecimal("100.0")));
+
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    tradingApi.getMarketOrders(OTHER_MARKET_ID);
+    tradingApi.getBalanceInfo();
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCreatingFixedPointOrderThrowsAwayCachedReadsForThatMarket() throws Exception {
+    final List<OpenOrder> noOrders = Collections.emptyList();
+    final FixedPointDecimal quantity = FixedPointDecimal.of(10, 1);
+    final FixedPointDecimal price = FixedPointDecimal.of(1000, 1);
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(noOrders).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, quantity, price))
+        .andReturn(ORDER_ID);
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(false);
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+    tradingApi.getYourOpenOrders(MARKET_ID);
+
+    assertEquals(ORDER_ID, tradingApi.createOrder(MARKET_ID, OrderType.BUY, quantity, price));
+
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCancellingOrderWithoutMarketIdThrowsAwayAllCachedOpenOrders()
+      throws Exception {
+    final List<OpenOrder> noOrders = Collections.emptyList();
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(noOrders).times(2);
+    expect(exchangeAdapter.getYourOpenOrders(OTHER_MARKET_ID)).andReturn(noOrders).times(2);
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook).once();
+    expect(exchangeAdapter.cancelOrder(ORDER_ID, null)).andReturn(true);
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    tradingApi.getYourOpenOrders(OTHER_MARKET_ID);
+    tradingApi.getMarketOrders(MARKET_ID);
+
+    tradingApi.cancelOrder(ORDER_ID, null);
+
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    tradingApi.getYourOpenOrders(OTHER_MARKET_ID);
+    tradingApi.getMarketOrders(MARKET_ID);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testBalancesAreSharedWithBalanceServiceAndFillsThrowThemAway() throws Exception {
+    final OpenOrder openOrder = EasyMock.createMock(OpenOrder.class);
+    expect(openOrder.getId()).andStubReturn(ORDER_ID);
+    expect(openOrder.getQuantity()).andStubReturn(new BigDecimal("1.0"));
+    EasyMock.replay(openOrder);
+
+    final List<OpenOrder> noOrders = Collections.emptyList();
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID))
+        .andReturn(Collections.singletonList(openOrder))
+        .andReturn(noOrders);
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo).times(2);
+    EasyMock.replay(exchangeAdapter);
+
+    final BalanceService balanceService = new BalanceService();
+    balanceService.init(exchangeAdapter, new EngineConfig());
+    tradeCycleCache.setBalanceService(balanceService);
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+
+    tradeCycleCache.startTradeCycle();
+    balanceService.startTradeCycle();
+    assertSame(balanceInfo, balanceService.getBalanceInfo());
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    assertSame(balanceInfo, tradingApi.getBalanceInfo());
+    assertEquals(1, balanceService.getFetchCount());
+
+    // the order has been filled by the next trade cycle
+    tradeCycleCache.startTradeCycle();
+    tradingApi.getYourOpenOrders(MARKET_ID);
+    assertSame(balanceInfo, tradingApi.getBalanceInfo());
+    assertEquals(2, balanceService.getFetchCount());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testFailedReadsAreNotCached() throws Exception {
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID))
+        .andThrow(new ExchangeNetworkException("Timeout"))
+        .andReturn(marketOrderBook);
+    EasyMock.replay(exchangeAdapter);
+
+    final TradingApi tradingApi = tradeCycleCache.decorate(exchangeAdapter);
+    tradeCycleCache.startTradeCycle();
+    try {
+      tradingApi.getMarketOrders(MARKET_ID);
+    } catch (ExchangeNetworkException e) {
+      // expected
+    }
+    assertSame(marketOrderBook, tradingApi.getMarketOrders(MARKET_ID));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  private static double readCount(MeterRegistry meterRegistry, String result) {
+    return meterRegistry
+        .get(TradeCycleCache.READ_COUNT_METRIC)
+        .tag(TradeCycleCache.RESULT_TAG, result)
+        .functionCounter()
+        .count();
+  }
+}
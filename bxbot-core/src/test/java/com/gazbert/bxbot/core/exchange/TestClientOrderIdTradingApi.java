@@ -0,0 +1,306 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Client Order Id Trading API behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestClientOrderIdTradingApi {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final String ORDER_ID = "order-123";
+  private static final String CLIENT_ORDER_ID = "client-123";
+  private static final BigDecimal QUANTITY = new BigDecimal("0.1");
+  private static final BigDecimal PRICE = new BigDecimal("100");
+
+  private TradingApi exchangeAdapter;
+  private OpenOrder openOrder;
+  private ClientOrderIdTradingApi clientOrderIdTradingApi;
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(TradingApi.class);
+    openOrder = EasyMock.createMock(OpenOrder.class);
+    clientOrderIdTradingApi = new ClientOrderIdTradingApi(exchangeAdapter, () -> CLIENT_ORDER_ID);
+  }
+
+  @Test
+  public void testOrderIsTaggedWithClientOrderIdIfExchangeSupportsIt() throws Exception {
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID, clientOrderIdTradingApi.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testOrderIsNotTaggedIfExchangeDoesNotSupportClientOrderIds() throws Exception {
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(false);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID, clientOrderIdTradingApi.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testFixedPointOrderIsTaggedWithClientOrderIdIfExchangeSupportsIt()
+      throws Exception {
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID,
+        clientOrderIdTradingApi.createOrder(
+            MARKET_ID, OrderType.BUY, FixedPointDecimal.of(1, 1), FixedPointDecimal.of(100, 0)));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testFixedPointOrderIsPassedOnAsItIsIfExchangeDoesNotSupportClientOrderIds()
+      throws Exception {
+    final FixedPointDecimal quantity = FixedPointDecimal.of(1, 1);
+    final FixedPointDecimal price = FixedPointDecimal.of(100, 0);
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(false);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, quantity, price))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID, clientOrderIdTradingApi.createOrder(MARKET_ID, OrderType.SELL, quantity, price));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testOrderThatReachedExchangeIsFoundAfterNetworkError() throws Exception {
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andThrow(new ExchangeNetworkException("timed out"));
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID, clientOrderIdTradingApi.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testNetworkErrorIsThrownIfOrderIsNotOnExchange() throws Exception {
+    final ExchangeNetworkException networkError = new ExchangeNetworkException("timed out");
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andThrow(networkError);
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID)).andReturn(null);
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      clientOrderIdTradingApi.createOrder(
+          MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertSame(networkError, e);
+    }
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testNetworkErrorIsThrownIfOrderLookupFails() throws Exception {
+    final ExchangeNetworkException networkError = new ExchangeNetworkException("timed out");
+    final TradingApiException lookupError = new TradingApiException("lookup failed");
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andThrow(networkError);
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andThrow(lookupError);
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      clientOrderIdTradingApi.createOrder(
+          MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertSame(networkError, e);
+      assertSame(lookupError, e.getSuppressed()[0]);
+    }
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testRetryIsNotResentIfFailedOrderHasSinceReachedExchange() throws Exception {
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andThrow(new ExchangeNetworkException("timed out"));
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andReturn(null)
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertFirstAttemptFails();
+    assertEquals(
+        ORDER_ID,
+        clientOrderIdTradingApi.createOrder(
+            MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testRetryIsResentIfFailedOrderIsStillNotOnExchange() throws Exception {
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andThrow(new ExchangeNetworkException("timed out"))
+        .andReturn(ORDER_ID);
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andReturn(null)
+        .times(2);
+    EasyMock.replay(exchangeAdapter);
+
+    assertFirstAttemptFails();
+    assertEquals(
+        ORDER_ID,
+        clientOrderIdTradingApi.createOrder(
+            MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testRetryIsNotResentIfFailedOrderCannotBeLookedUp() throws Exception {
+    final ExchangeNetworkException lookupError = new ExchangeNetworkException("timed out again");
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true).times(2);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID))
+        .andThrow(new ExchangeNetworkException("timed out"));
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andReturn(null)
+        .andThrow(lookupError);
+    EasyMock.replay(exchangeAdapter);
+
+    assertFirstAttemptFails();
+    try {
+      clientOrderIdTradingApi.createOrder(
+          MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertSame(lookupError, e);
+    }
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testNetworkErrorIsThrownWithoutLookupIfThereIsNoClientOrderId() throws Exception {
+    final ExchangeNetworkException networkError = new ExchangeNetworkException("timed out");
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, null))
+        .andThrow(networkError);
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      clientOrderIdTradingApi.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE, null);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertSame(networkError, e);
+    }
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testOtherCallsArePassedStraightThrough() throws Exception {
+    expect(exchangeAdapter.getImplName()).andReturn("Test Adapter");
+    expect(exchangeAdapter.getVersion()).andReturn("1.2");
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID)).andReturn(null);
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID, 5)).andReturn(null);
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(null);
+    expect(exchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID)).andReturn(true);
+    expect(exchangeAdapter.getLatestMarketPrice(MARKET_ID)).andReturn(PRICE);
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(null);
+    expect(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID))
+        .andReturn(BigDecimal.ONE);
+    expect(exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID))
+        .andReturn(BigDecimal.TEN);
+    expect(exchangeAdapter.getTicker(MARKET_ID)).andReturn(null);
+    expect(exchangeAdapter.getBestBidAsk(MARKET_ID)).andReturn(null);
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true);
+    expect(exchangeAdapter.getOpenOrderByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andReturn(openOrder);
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals("Test Adapter", clientOrderIdTradingApi.getImplName());
+    assertEquals("1.2", clientOrderIdTradingApi.getVersion());
+    clientOrderIdTradingApi.getMarketOrders(MARKET_ID);
+    clientOrderIdTradingApi.getMarketOrders(MARKET_ID, 5);
+    clientOrderIdTradingApi.getYourOpenOrders(MARKET_ID);
+    assertEquals(true, clientOrderIdTradingApi.cancelOrder(ORDER_ID, MARKET_ID));
+    assertEquals(PRICE, clientOrderIdTradingApi.getLatestMarketPrice(MARKET_ID));
+    clientOrderIdTradingApi.getBalanceInfo();
+    assertEquals(
+        BigDecimal.ONE,
+        clientOrderIdTradingApi.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID));
+    assertEquals(
+        BigDecimal.TEN,
+        clientOrderIdTradingApi.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID));
+    clientOrderIdTradingApi.getTicker(MARKET_ID);
+    clientOrderIdTradingApi.getBestBidAsk(MARKET_ID);
+    assertEquals(true, clientOrderIdTradingApi.supportsClientOrderIds());
+    assertSame(
+        openOrder, clientOrderIdTradingApi.getOpenOrderByClientOrderId(MARKET_ID, CLIENT_ORDER_ID));
+    assertEquals(
+        ORDER_ID, clientOrderIdTradingApi.getOrderIdByClientOrderId(MARKET_ID, CLIENT_ORDER_ID));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  private void assertFirstAttemptFails() throws Exception {
+    try {
+      clientOrderIdTradingApi.createOrder(
+          MARKET_ID, OrderType.BUY, QUANTITY, PRICE, CLIENT_ORDER_ID);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertEquals("timed out", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Test;
+
+/**
+ * Tests waiting for the outcome of an exchange call behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeCallOutcome {
+
+  @Test
+  public void testReturnsWhatTheCallReturned() throws Exception {
+    assertEquals("result", ExchangeCallOutcome.await(completedWith("result"), "read"));
+  }
+
+  @Test
+  public void testRethrowsTradingApiExceptionsTheCallThrew() {
+    final ExchangeNetworkException networkException = new ExchangeNetworkException("timeout");
+    final TradingApiException tradingApiException = new TradingApiException("bad request");
+    final IllegalStateException runtimeException = new IllegalStateException("bug");
+
+    assertSame(networkException, failureOf(failedWith(networkException)));
+    assertSame(tradingApiException, failureOf(failedWith(tradingApiException)));
+    assertSame(runtimeException, failureOf(failedWith(runtimeException)));
+  }
+
+  @Test
+  public void testWrapsOtherCheckedExceptionsTheCallThrew() {
+    final IOException ioException = new IOException("disk full");
+
+    final Throwable failure = failureOf(failedWith(ioException));
+    assertTrue(failure instanceof TradingApiException);
+    assertEquals("Failed to get read", failure.getMessage());
+    assertSame(ioException, failure.getCause());
+  }
+
+  @Test
+  public void testInterruptedWaitIsNetworkExceptionAndKeepsInterruptStatus() {
+    Thread.currentThread().interrupt();
+    try {
+      ExchangeCallOutcome.await(new CompletableFuture<>(), "read");
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertEquals("Interrupted whilst waiting for read", e.getMessage());
+      assertTrue(Thread.interrupted());
+    } catch (TradingApiException e) {
+      fail("Expected ExchangeNetworkException");
+    }
+  }
+
+  private static CompletableFuture<Object> completedWith(Object result) {
+    return CompletableFuture.completedFuture(result);
+  }
+
+  private static CompletableFuture<Object> failedWith(Throwable failure) {
+    final CompletableFuture<Object> outcome = new CompletableFuture<>();
+    outcome.completeExceptionally(failure);
+    return outcome;
+  }
+
+  private static Throwable failureOf(CompletableFuture<Object> outcome) {
+    try {
+      ExchangeCallOutcome.await(outcome, "read");
+    } catch (Exception e) {
+      return e;
+    }
+    throw new AssertionError("Expected the call's failure to be thrown");
+  }
+}
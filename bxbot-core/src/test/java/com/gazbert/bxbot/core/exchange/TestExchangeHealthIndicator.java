@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+
+import com.gazbert.bxbot.exchange.api.CircuitBreakerState;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import org.easymock.EasyMock;
+import org.junit.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Tests the Exchange Health Indicator behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeHealthIndicator {
+
+  @Test
+  public void testCircuitBreakerIsReportedDisabledBeforeExchangeAdapterIsLoaded() {
+    final Health health = new ExchangeHealthIndicator().health();
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals("DISABLED", health.getDetails().get("circuitBreaker"));
+  }
+
+  @Test
+  public void testCircuitBreakerIsReportedDisabledIfAdapterHasNone() {
+    final ExchangeAdapter exchangeAdapter = EasyMock.createMock(ExchangeAdapter.class);
+    expect(exchangeAdapter.getCircuitBreakerState()).andReturn(null);
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeHealthIndicator healthIndicator = new ExchangeHealthIndicator();
+    healthIndicator.setExchangeAdapter(exchangeAdapter);
+    assertEquals("DISABLED", healthIndicator.health().getDetails().get("circuitBreaker"));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCircuitBreakerStateIsReported() {
+    final ExchangeAdapter exchangeAdapter = EasyMock.createMock(ExchangeAdapter.class);
+    expect(exchangeAdapter.getCircuitBreakerState()).andReturn(CircuitBreakerState.OPEN);
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeHealthIndicator healthIndicator = new ExchangeHealthIndicator();
+    healthIndicator.setExchangeAdapter(exchangeAdapter);
+    final Health health = healthIndicator.health();
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals("OPEN", health.getDetails().get("circuitBreaker"));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testNetworkErrorBackoffIsReported() {
+    final ExchangeHealthIndicator healthIndicator = new ExchangeHealthIndicator();
+    Health health = healthIndicator.health();
+    assertEquals(0, health.getDetails().get("consecutiveNetworkErrors"));
+    assertEquals(0L, health.getDetails().get("networkErrorRetryDelay"));
+
+    healthIndicator.setNetworkErrorBackoff(3, 4000L);
+    health = healthIndicator.health();
+    assertEquals(Status.UP, health.getStatus());
+    assertEquals(3, health.getDetails().get("consecutiveNetworkErrors"));
+    assertEquals(4000L, health.getDetails().get("networkErrorRetryDelay"));
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeCallLatency;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Outcome;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Phase;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Exchange Latency Metrics behave as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeLatencyMetrics {
+
+  private static final String ADAPTER_NAME = "Bitstamp REST API v2";
+  private static final String MARKET_ID = "btcusd";
+
+  private ExchangeAdapter exchangeAdapter;
+  private FixedCallRecorder callRecorder;
+  private MeterRegistry meterRegistry;
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(ExchangeAdapter.class);
+    callRecorder = new FixedCallRecorder();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  public void testAdapterWithoutCallRecorderIsNotWrapped() {
+    expect(exchangeAdapter.getCallRecorder()).andReturn(null);
+    expect(exchangeAdapter.getImplName()).andReturn(ADAPTER_NAME).anyTimes();
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeLatencyMetrics latencyMetrics = new ExchangeLatencyMetrics();
+    latencyMetrics.bindTo(meterRegistry);
+    assertSame(exchangeAdapter, latencyMetrics.instrument(exchangeAdapter));
+    assertTrue(meterRegistry.getMeters().isEmpty());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testMetersAreRegisteredForLatenciesAlreadyRecorded() {
+    callRecorder.record("getBalanceInfo", Outcome.OK, Phase.FIRST_BYTE, 4, 20_000_000L);
+    expect(exchangeAdapter.getCallRecorder()).andReturn(callRecorder);
+    expect(exchangeAdapter.getImplName()).andReturn(ADAPTER_NAME).anyTimes();
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeLatencyMetrics latencyMetrics = new ExchangeLatencyMetrics();
+    final ExchangeAdapter timedExchangeAdapter = latencyMetrics.instrument(exchangeAdapter);
+    assertTrue(timedExchangeAdapter instanceof TimedExchangeAdapter);
+    latencyMetrics.bindTo(meterRegistry);
+
+    assertEquals(
+        0.02, percentile("getBalanceInfo", Outcome.OK, Phase.FIRST_BYTE, "0.99").value(), 0);
+    assertEquals(
+        0.02, percentile("getBalanceInfo", Outcome.OK, Phase.FIRST_BYTE, "0.5").value(), 0);
+    assertEquals(
+        0.02, percentile("getBalanceInfo", Outcome.OK, Phase.FIRST_BYTE, "0.999").value(), 0);
+    assertEquals(4, count("getBalanceInfo", Outcome.OK, Phase.FIRST_BYTE).count(), 0);
+    assertEquals(0, count("getBalanceInfo", Outcome.OK, Phase.TOTAL).count(), 0);
+    assertTrue(Double.isNaN(max("getBalanceInfo", Outcome.OK, Phase.TOTAL).value()));
+    assertNull(
+        meterRegistry
+            .find(ExchangeLatencyMetrics.LATENCY_COUNT_METRIC)
+            .tag(ExchangeLatencyMetrics.OUTCOME_TAG, Outcome.NETWORK_ERROR.name())
+            .functionCounter());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testMetersAreRegisteredWhenCallFirstEndsWithNewOutcome() throws Exception {
+    expect(exchangeAdapter.getCallRecorder()).andReturn(callRecorder);
+    expect(exchangeAdapter.getImplName()).andReturn(ADAPTER_NAME).anyTimes();
+    expect(exchangeAdapter.getLatestMarketPrice(MARKET_ID)).andReturn(BigDecimal.TEN).times(2);
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeLatencyMetrics latencyMetrics = new ExchangeLatencyMetrics();
+    latencyMetrics.bindTo(meterRegistry);
+    final ExchangeAdapter timedExchangeAdapter = latencyMetrics.instrument(exchangeAdapter);
+    assertTrue(meterRegistry.getMeters().isEmpty());
+
+    timedExchangeAdapter.getLatestMarketPrice(MARKET_ID);
+    assertEquals(1, count("getLatestMarketPrice", Outcome.OK, Phase.TOTAL).count(), 0);
+    assertEquals(0.001, max("getLatestMarketPrice", Outcome.OK, Phase.TOTAL).value(), 0);
+
+    timedExchangeAdapter.getLatestMarketPrice(MARKET_ID);
+    assertEquals(2, count("getLatestMarketPrice", Outcome.OK, Phase.TOTAL).count(), 0);
+
+    // 3 percentiles, max and count, for each phase
+    assertEquals(15, meterRegistry.getMeters().size());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  private Gauge percentile(String method, Outcome outcome, Phase phase, String phi) {
+    return meterRegistry
+        .get(ExchangeLatencyMetrics.LATENCY_PERCENTILE_METRIC)
+        .tags(
+            ExchangeLatencyMetrics.ADAPTER_TAG, ADAPTER_NAME,
+            ExchangeLatencyMetrics.METHOD_TAG, method,
+            ExchangeLatencyMetrics.OUTCOME_TAG, outcome.name(),
+            ExchangeLatencyMetrics.PHASE_TAG, phase.name(),
+            ExchangeLatencyMetrics.PERCENTILE_TAG, phi)
+        .gauge();
+  }
+
+  private Gauge max(String method, Outcome outcome, Phase phase) {
+    return meterRegistry
+        .get(ExchangeLatencyMetrics.LATENCY_MAX_METRIC)
+        .tags(
+            ExchangeLatencyMetrics.METHOD_TAG, method,
+            ExchangeLatencyMetrics.OUTCOME_TAG, outcome.name(),
+            ExchangeLatencyMetrics.PHASE_TAG, phase.name())
+        .gauge();
+  }
+
+  private FunctionCounter count(String method, Outcome outcome, Phase phase) {
+    return meterRegistry
+        .get(ExchangeLatencyMetrics.LATENCY_COUNT_METRIC)
+        .tags(
+            ExchangeLatencyMetrics.METHOD_TAG, method,
+            ExchangeLatencyMetrics.OUTCOME_TAG, outcome.name(),
+            ExchangeLatencyMetrics.PHASE_TAG, phase.name())
+        .functionCounter();
+  }
+
+  /** Records every call as taking 1 milli. */
+  private static class FixedCallRecorder implements ExchangeCallRecorder {
+
+    private final Map<String, ExchangeCallLatency> latencies = new ConcurrentHashMap<>();
+
+    void record(String method, Outcome outcome, Phase phase, long count, long nanos) {
+      latencies.put(
+          method + outcome + phase,
+          new ExchangeCallLatency(method, outcome, phase, count, nanos, nanos, nanos, nanos));
+    }
+
+    @Override
+    public Call start(String tradingApiMethod) {
+      return outcome -> {
+        final ExchangeCallLatency total = getLatency(tradingApiMethod, outcome, Phase.TOTAL);
+        record(
+            tradingApiMethod,
+            outcome,
+            Phase.TOTAL,
+            total == null ? 1 : total.getCount() + 1,
+            1_000_000L);
+      };
+    }
+
+    @Override
+    public ExchangeCallLatency getLatency(String tradingApiMethod, Outcome outcome, Phase phase) {
+      return latencies.get(tradingApiMethod + outcome + phase);
+    }
+
+    @Override
+    public List<ExchangeCallLatency> getLatencies() {
+      return new ArrayList<>(latencies.values());
+    }
+  }
+}
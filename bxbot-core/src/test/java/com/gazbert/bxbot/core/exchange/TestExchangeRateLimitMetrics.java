@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.RateLimiterMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Exchange Rate Limit Metrics behave as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeRateLimitMetrics {
+
+  private static final String ADAPTER_NAME = "Bitstamp REST API v2";
+
+  private ExchangeAdapter exchangeAdapter;
+  private FixedRateLimiterMetrics rateLimiterMetrics;
+  private MeterRegistry meterRegistry;
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(ExchangeAdapter.class);
+    rateLimiterMetrics = new FixedRateLimiterMetrics();
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  public void testNoMetersAreRegisteredForAdapterWithoutRateLimiter() {
+    expect(exchangeAdapter.getRateLimiterMetrics()).andReturn(null);
+    expect(exchangeAdapter.getImplName()).andReturn(ADAPTER_NAME).anyTimes();
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeRateLimitMetrics rateLimitMetrics = new ExchangeRateLimitMetrics();
+    rateLimitMetrics.bindTo(meterRegistry);
+    rateLimitMetrics.setExchangeAdapter(exchangeAdapter);
+    assertTrue(meterRegistry.getMeters().isEmpty());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testMetersAreRegisteredForEachRateLimitedEndpoint() {
+    rateLimiterMetrics.throttledCounts.put("private", 2L);
+    rateLimiterMetrics.throttledNanos.put("private", 1_500_000_000L);
+    rateLimiterMetrics.rejectedCounts.put("order-entry", 3L);
+    expect(exchangeAdapter.getRateLimiterMetrics()).andReturn(rateLimiterMetrics);
+    expect(exchangeAdapter.getImplName()).andReturn(ADAPTER_NAME).anyTimes();
+    EasyMock.replay(exchangeAdapter);
+
+    final ExchangeRateLimitMetrics rateLimitMetrics = new ExchangeRateLimitMetrics();
+    rateLimitMetrics.setExchangeAdapter(exchangeAdapter);
+    assertTrue(meterRegistry.getMeters().isEmpty());
+    rateLimitMetrics.bindTo(meterRegistry);
+
+    assertEquals(2, counter(ExchangeRateLimitMetrics.THROTTLED_COUNT_METRIC, "private"), 0);
+    assertEquals(1.5, counter(ExchangeRateLimitMetrics.THROTTLED_TIME_METRIC, "private"), 0);
+    assertEquals(0, counter(ExchangeRateLimitMetrics.REJECTED_COUNT_METRIC, "private"), 0);
+    assertEquals(3, counter(ExchangeRateLimitMetrics.REJECTED_COUNT_METRIC, "order-entry"), 0);
+
+    // The counters read the rate limiter's latest values.
+    rateLimiterMetrics.throttledCounts.put("private", 5L);
+    assertEquals(5, counter(ExchangeRateLimitMetrics.THROTTLED_COUNT_METRIC, "private"), 0);
+
+    // 3 counters for each endpoint class
+    assertEquals(6, meterRegistry.getMeters().size());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  private double counter(String name, String endpoint) {
+    final FunctionCounter counter =
+        meterRegistry
+            .get(name)
+            .tag(ExchangeRateLimitMetrics.ADAPTER_TAG, ADAPTER_NAME)
+            .tag(ExchangeRateLimitMetrics.ENDPOINT_TAG, endpoint)
+            .functionCounter();
+    return counter.count();
+  }
+
+  /** Rate limiter metrics with values set by the tests. */
+  private static class FixedRateLimiterMetrics implements RateLimiterMetrics {
+
+    private final Map<String, Long> throttledCounts = new HashMap<>();
+    private final Map<String, Long> throttledNanos = new HashMap<>();
+    private final Map<String, Long> rejectedCounts = new HashMap<>();
+
+    @Override
+    public List<String> getRateLimitedEndpoints() {
+      return Arrays.asList("private", "order-entry");
+    }
+
+    @Override
+    public long getThrottledCount(String endpoint) {
+      return throttledCounts.getOrDefault(endpoint, 0L);
+    }
+
+    @Override
+    public long getThrottledNanos(String endpoint) {
+      return throttledNanos.getOrDefault(endpoint, 0L);
+    }
+
+    @Override
+    public long getRejectedCount(String endpoint) {
+      return rejectedCounts.getOrDefault(endpoint, 0L);
+    }
+  }
+}
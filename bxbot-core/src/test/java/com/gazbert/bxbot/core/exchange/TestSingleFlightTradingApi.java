@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import java.math.BigDecimal;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Single Flight Trading API behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestSingleFlightTradingApi {
+
+  private static final String MARKET_ID = "btcusd";
+
+  private TradingApi exchangeAdapter;
+  private MarketOrderBook marketOrderBook;
+  private BalanceInfo balanceInfo;
+  private SingleFlightTradingApi singleFlightTradingApi;
+
+  private final CountDownLatch readStarted = new CountDownLatch(1);
+  private final CountDownLatch releaseRead = new CountDownLatch(1);
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(TradingApi.class);
+    marketOrderBook = EasyMock.createMock(MarketOrderBook.class);
+    balanceInfo = EasyMock.createMock(BalanceInfo.class);
+    singleFlightTradingApi = new SingleFlightTradingApi(exchangeAdapter);
+  }
+
+  @Test(timeout = 10000)
+  public void testConcurrentIdenticalReadsShareOneCall() throws Exception {
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID))
+        .andAnswer(
+            () -> {
+              readStarted.countDown();
+              releaseRead.await();
+              return marketOrderBook;
+            })
+        .once();
+    EasyMock.replay(exchangeAdapter);
+
+    final FutureTask<MarketOrderBook> firstRead =
+        startRead(() -> singleFlightTradingApi.getMarketOrders(MARKET_ID));
+    readStarted.await();
+    final FutureTask<MarketOrderBook> joinedRead =
+        startRead(() -> singleFlightTradingApi.getMarketOrders(MARKET_ID));
+    releaseRead.countDown();
+
+    assertSame(marketOrderBook, firstRead.get());
+    assertSame(marketOrderBook, joinedRead.get());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test(timeout = 10000)
+  public void testConcurrentIdenticalReadsShareTheSameException() throws Exception {
+    final ExchangeNetworkException exchangeNetworkException =
+        new ExchangeNetworkException("Timeout");
+    expect(exchangeAdapter.getBalanceInfo())
+        .andAnswer(
+            () -> {
+              readStarted.countDown();
+              releaseRead.await();
+              throw exchangeNetworkException;
+            })
+        .once();
+    EasyMock.replay(exchangeAdapter);
+
+    final FutureTask<BalanceInfo> firstRead = startRead(singleFlightTradingApi::getBalanceInfo);
+    readStarted.await();
+    final FutureTask<BalanceInfo> joinedRead = startRead(singleFlightTradingApi::getBalanceInfo);
+    releaseRead.countDown();
+
+    assertSame(exchangeNetworkException, getFailure(firstRead));
+    assertSame(exchangeNetworkException, getFailure(joinedRead));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCompletedReadsAreNotRemembered() throws Exception {
+    expect(exchangeAdapter.getBalanceInfo()).andThrow(new ExchangeNetworkException("Timeout"));
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      singleFlightTradingApi.getBalanceInfo();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      // the next read is sent to the exchange
+    }
+    assertSame(balanceInfo, singleFlightTradingApi.getBalanceInfo());
+    assertSame(balanceInfo, singleFlightTradingApi.getBalanceInfo());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testOrdersArePassedStraightThrough() throws Exception {
+    final BigDecimal quantity = new BigDecimal("0.1");
+    final BigDecimal price = new BigDecimal("100");
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, quantity, price))
+        .andReturn("1")
+        .andReturn("2");
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, quantity, price, "client-3"))
+        .andReturn("3");
+    expect(
+            exchangeAdapter.createOrder(
+                MARKET_ID,
+                OrderType.BUY,
+                FixedPointDecimal.valueOf(quantity),
+                FixedPointDecimal.valueOf(price)))
+        .andReturn("4");
+    expect(exchangeAdapter.getOpenOrderByClientOrderId(MARKET_ID, "client-3")).andReturn(null);
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-3")).andReturn("3");
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true);
+    expect(exchangeAdapter.cancelOrder("1", MARKET_ID)).andReturn(true);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        "1", singleFlightTradingApi.createOrder(MARKET_ID, OrderType.BUY, quantity, price));
+    assertEquals(
+        "2", singleFlightTradingApi.createOrder(MARKET_ID, OrderType.BUY, quantity, price));
+    assertEquals(
+        "3",
+        singleFlightTradingApi.createOrder(MARKET_ID, OrderType.BUY, quantity, price, "client-3"));
+    assertEquals(
+        "4",
+        singleFlightTradingApi.createOrder(
+            MARKET_ID,
+            OrderType.BUY,
+            FixedPointDecimal.valueOf(quantity),
+            FixedPointDecimal.valueOf(price)));
+    assertNull(singleFlightTradingApi.getOpenOrderByClientOrderId(MARKET_ID, "client-3"));
+    assertEquals("3", singleFlightTradingApi.getOrderIdByClientOrderId(MARKET_ID, "client-3"));
+    assertTrue(singleFlightTradingApi.supportsClientOrderIds());
+    assertTrue(singleFlightTradingApi.cancelOrder("1", MARKET_ID));
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  private static Throwable getFailure(FutureTask<?> read) throws InterruptedException {
+    try {
+      read.get();
+      fail("Expected the read to fail");
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+  }
+
+  /*
+   * Starts the read on its own thread and, if a read is already in flight, waits until it has
+   * joined it.
+   */
+  private <T> FutureTask<T> startRead(Callable<T> read)
+      throws InterruptedException {
+    final FutureTask<T> futureRead = new FutureTask<>(read);
+    final Thread reader = new Thread(futureRead);
+    reader.start();
+    if (readStarted.getCount() == 0) {
+      while (reader.getState() != Thread.State.WAITING) {
+        Thread.sleep(1);
+      }
+    }
+    return futureRead;
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.core.exchange;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeCallLatency;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Outcome;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Phase;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Timed Exchange Adapter behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestTimedExchangeAdapter {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final String ORDER_ID = "order-123";
+  private static final BigDecimal QUANTITY = new BigDecimal("0.1");
+  private static final BigDecimal PRICE = new BigDecimal("100");
+
+  private ExchangeAdapter exchangeAdapter;
+  private RecordingCallRecorder callRecorder;
+  private TimedExchangeAdapter timedExchangeAdapter;
+
+  @Before
+  public void setupForEachTest() {
+    exchangeAdapter = EasyMock.createMock(ExchangeAdapter.class);
+    callRecorder = new RecordingCallRecorder();
+    timedExchangeAdapter = new TimedExchangeAdapter(exchangeAdapter, callRecorder);
+  }
+
+  @Test
+  public void testSuccessfulCallIsTimedAsOk() throws Exception {
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID, timedExchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, QUANTITY, PRICE));
+    assertEquals(Collections.singletonList("createOrder:OK"), callRecorder.stoppedCalls);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testFixedPointOrderIsPassedOnAndTimed() throws Exception {
+    final FixedPointDecimal quantity = FixedPointDecimal.valueOf(QUANTITY);
+    final FixedPointDecimal price = FixedPointDecimal.valueOf(PRICE);
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, quantity, price))
+        .andReturn(ORDER_ID);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals(
+        ORDER_ID, timedExchangeAdapter.createOrder(MARKET_ID, OrderType.BUY, quantity, price));
+    assertEquals(Collections.singletonList("createOrder:OK"), callRecorder.stoppedCalls);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testNetworkErrorIsTimedAsNetworkError() throws Exception {
+    final ExchangeNetworkException networkError = new ExchangeNetworkException("timeout");
+    expect(exchangeAdapter.getBalanceInfo()).andThrow(networkError);
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      timedExchangeAdapter.getBalanceInfo();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertSame(networkError, e);
+    }
+    assertEquals(
+        Collections.singletonList("getBalanceInfo:NETWORK_ERROR"), callRecorder.stoppedCalls);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testTradingApiErrorIsTimedAsApiError() throws Exception {
+    expect(exchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID))
+        .andThrow(new TradingApiException("Invalid nonce"));
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      timedExchangeAdapter.cancelOrder(ORDER_ID, MARKET_ID);
+      fail("Expected TradingApiException");
+    } catch (TradingApiException e) {
+      // expected
+    }
+    assertEquals(Collections.singletonList("cancelOrder:API_ERROR"), callRecorder.stoppedCalls);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testUnexpectedErrorIsTimedAsApiError() throws Exception {
+    expect(exchangeAdapter.getTicker(MARKET_ID)).andThrow(new IllegalStateException("bug"));
+    EasyMock.replay(exchangeAdapter);
+
+    try {
+      timedExchangeAdapter.getTicker(MARKET_ID);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertEquals(Collections.singletonList("getTicker:API_ERROR"), callRecorder.stoppedCalls);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testCallsThatDoNotGoToExchangeAreNotTimed() {
+    expect(exchangeAdapter.getImplName()).andReturn("Bitstamp");
+    expect(exchangeAdapter.supportsClientOrderIds()).andReturn(true);
+    expect(exchangeAdapter.getCircuitBreakerState()).andReturn(null);
+    expect(exchangeAdapter.getRateLimiterMetrics()).andReturn(null);
+    EasyMock.replay(exchangeAdapter);
+
+    assertEquals("Bitstamp", timedExchangeAdapter.getImplName());
+    assertTrue(timedExchangeAdapter.supportsClientOrderIds());
+    assertNull(timedExchangeAdapter.getCircuitBreakerState());
+    assertNull(timedExchangeAdapter.getRateLimiterMetrics());
+    assertSame(callRecorder, timedExchangeAdapter.getCallRecorder());
+    assertTrue(callRecorder.stoppedCalls.isEmpty());
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  @Test
+  public void testEveryTradingApiCallIsTimed() throws Exception {
+    final BalanceInfo balanceInfo = EasyMock.createMock(BalanceInfo.class);
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID)).andReturn(null);
+    expect(exchangeAdapter.getMarketOrders(MARKET_ID, 10)).andReturn(null);
+    expect(exchangeAdapter.getYourOpenOrders(MARKET_ID)).andReturn(Collections.emptyList());
+    expect(exchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE, "client-1"))
+        .andReturn(ORDER_ID);
+    expect(exchangeAdapter.getOpenOrderByClientOrderId(MARKET_ID, "client-1")).andReturn(null);
+    expect(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-1")).andReturn(ORDER_ID);
+    expect(exchangeAdapter.getLatestMarketPrice(MARKET_ID)).andReturn(PRICE);
+    expect(exchangeAdapter.getBalanceInfo()).andReturn(balanceInfo);
+    expect(exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID))
+        .andReturn(BigDecimal.ONE);
+    expect(exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID))
+        .andReturn(BigDecimal.ONE);
+    expect(exchangeAdapter.getBestBidAsk(MARKET_ID)).andReturn(null);
+    EasyMock.replay(exchangeAdapter);
+
+    timedExchangeAdapter.getMarketOrders(MARKET_ID);
+    timedExchangeAdapter.getMarketOrders(MARKET_ID, 10);
+    timedExchangeAdapter.getYourOpenOrders(MARKET_ID);
+    timedExchangeAdapter.createOrder(MARKET_ID, OrderType.SELL, QUANTITY, PRICE, "client-1");
+    timedExchangeAdapter.getOpenOrderByClientOrderId(MARKET_ID, "client-1");
+    assertEquals(ORDER_ID, timedExchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-1"));
+    timedExchangeAdapter.getLatestMarketPrice(MARKET_ID);
+    assertSame(balanceInfo, timedExchangeAdapter.getBalanceInfo());
+    timedExchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+    timedExchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID);
+    timedExchangeAdapter.getBestBidAsk(MARKET_ID);
+
+    assertEquals(
+        List.of(
+            "getMarketOrders:OK",
+            "getMarketOrders:OK",
+            "getYourOpenOrders:OK",
+            "createOrder:OK",
+            "getOpenOrderByClientOrderId:OK",
+            "getOrderIdByClientOrderId:OK",
+            "getLatestMarketPrice:OK",
+            "getBalanceInfo:OK",
+            "getPercentageOfBuyOrderTakenForExchangeFee:OK",
+            "getPercentageOfSellOrderTakenForExchangeFee:OK",
+            "getBestBidAsk:OK"),
+        callRecorder.stoppedCalls);
+    EasyMock.verify(exchangeAdapter);
+  }
+
+  /** Remembers the calls stopped, as method:outcome. */
+  private static class RecordingCallRecorder implements ExchangeCallRecorder {
+
+    private final List<String> stoppedCalls = new ArrayList<>();
+
+    @Override
+    public Call start(String tradingApiMethod) {
+      return outcome -> stoppedCalls.add(tradingApiMethod + ":" + outcome);
+    }
+
+    @Override
+    public ExchangeCallLatency getLatency(String tradingApiMethod, Outcome outcome, Phase phase) {
+      return null;
+    }
+
+    @Override
+    public List<ExchangeCallLatency> getLatencies() {
+      return Collections.emptyList();
+    }
+  }
+}
@@ -42,6 +42,7 @@ public class BotStatus {
   private String displayName;
   private String status;
   private Date datetime;
+  private String exchangeCircuitBreakerState;
 
   // Required by ConfigurableComponentFactory
   public BotStatus() {
@@ -87,6 +88,14 @@ public class BotStatus {
     this.datetime = datetime != null ? new Date(datetime.getTime()) : null;
   }
 
+  public String getExchangeCircuitBreakerState() {
+    return exchangeCircuitBreakerState;
+  }
+
+  public void setExchangeCircuitBreakerState(String exchangeCircuitBreakerState) {
+    this.exchangeCircuitBreakerState = exchangeCircuitBreakerState;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
@@ -94,6 +103,7 @@ public class BotStatus {
         .add("displayName", displayName)
         .add("status", status)
         .add("datetime", getDatetime())
+        .add("exchangeCircuitBreakerState", exchangeCircuitBreakerState)
         .toString();
   }
 }
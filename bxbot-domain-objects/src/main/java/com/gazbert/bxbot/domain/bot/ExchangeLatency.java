@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.domain.bot;
+
+import com.google.common.base.MoreObjects;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+/**
+ * Domain object representing the latency of an Exchange Adapter's Trading API calls, for 1
+ * method, outcome and phase. Latencies are in millis.
+ *
+ * @author gazbert
+ */
+@ApiModel
+public class ExchangeLatency {
+
+  @ApiModelProperty(required = true, position = 1)
+  private String adapter;
+
+  private String tradingApiMethod;
+  private String outcome;
+  private String phase;
+  private long count;
+  private double p50Millis;
+  private double p99Millis;
+  private double p999Millis;
+  private double maxMillis;
+
+  public String getAdapter() {
+    return adapter;
+  }
+
+  public void setAdapter(String adapter) {
+    this.adapter = adapter;
+  }
+
+  public String getTradingApiMethod() {
+    return tradingApiMethod;
+  }
+
+  public void setTradingApiMethod(String tradingApiMethod) {
+    this.tradingApiMethod = tradingApiMethod;
+  }
+
+  public String getOutcome() {
+    return outcome;
+  }
+
+  public void setOutcome(String outcome) {
+    this.outcome = outcome;
+  }
+
+  public String getPhase() {
+    return phase;
+  }
+
+  public void setPhase(String phase) {
+    this.phase = phase;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  public double getP50Millis() {
+    return p50Millis;
+  }
+
+  public void setP50Millis(double p50Millis) {
+    this.p50Millis = p50Millis;
+  }
+
+  public double getP99Millis() {
+    return p99Millis;
+  }
+
+  public void setP99Millis(double p99Millis) {
+    this.p99Millis = p99Millis;
+  }
+
+  public double getP999Millis() {
+    return p999Millis;
+  }
+
+  public void setP999Millis(double p999Millis) {
+    this.p999Millis = p999Millis;
+  }
+
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  public void setMaxMillis(double maxMillis) {
+    this.maxMillis = maxMillis;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("adapter", adapter)
+        .add("tradingApiMethod", tradingApiMethod)
+        .add("outcome", outcome)
+        .add("phase", phase)
+        .add("count", count)
+        .add("p50Millis", p50Millis)
+        .add("p99Millis", p99Millis)
+        .add("p999Millis", p999Millis)
+        .add("maxMillis", maxMillis)
+        .toString();
+  }
+}
@@ -28,8 +28,10 @@ import com.google.common.base.Objects;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import java.math.BigDecimal;
+import javax.validation.Valid;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
 
 /**
  * Domain object representing the Engine config.
@@ -51,6 +53,21 @@ public class EngineConfig {
   @Min(value = 1, message = "Trace Cycle Interval must be more than 1 second")
   private int tradeCycleInterval;
 
+  @Pattern(
+      regexp = "(?i)skip|catch[-_]up|back[-_]to[-_]back",
+      message = "Trade Cycle Overrun Policy must be one of: skip, catch-up, back-to-back")
+  private String tradeCycleOverrunPolicy;
+
+  @Min(value = 0, message = "Strategy Thread Pool Size must be 0 or more")
+  private int strategyThreadPoolSize;
+
+  @Min(value = 0, message = "Balance Cache TTL must be 0 or more")
+  private int balanceCacheTtl;
+
+  private boolean asyncBalanceRefresh;
+
+  @Valid private NetworkErrorBackoffConfig networkErrorBackoff;
+
   // Required by ConfigurableComponentFactory
   public EngineConfig() {
   }
@@ -110,6 +127,46 @@ public class EngineConfig {
     this.tradeCycleInterval = tradeCycleInterval;
   }
 
+  public String getTradeCycleOverrunPolicy() {
+    return tradeCycleOverrunPolicy;
+  }
+
+  public void setTradeCycleOverrunPolicy(String tradeCycleOverrunPolicy) {
+    this.tradeCycleOverrunPolicy = tradeCycleOverrunPolicy;
+  }
+
+  public int getStrategyThreadPoolSize() {
+    return strategyThreadPoolSize;
+  }
+
+  public void setStrategyThreadPoolSize(int strategyThreadPoolSize) {
+    this.strategyThreadPoolSize = strategyThreadPoolSize;
+  }
+
+  public int getBalanceCacheTtl() {
+    return balanceCacheTtl;
+  }
+
+  public void setBalanceCacheTtl(int balanceCacheTtl) {
+    this.balanceCacheTtl = balanceCacheTtl;
+  }
+
+  public boolean isAsyncBalanceRefresh() {
+    return asyncBalanceRefresh;
+  }
+
+  public void setAsyncBalanceRefresh(boolean asyncBalanceRefresh) {
+    this.asyncBalanceRefresh = asyncBalanceRefresh;
+  }
+
+  public NetworkErrorBackoffConfig getNetworkErrorBackoff() {
+    return networkErrorBackoff;
+  }
+
+  public void setNetworkErrorBackoff(NetworkErrorBackoffConfig networkErrorBackoff) {
+    this.networkErrorBackoff = networkErrorBackoff;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -135,6 +192,11 @@ public class EngineConfig {
         .add("emergencyStopCurrency", emergencyStopCurrency)
         .add("emergencyStopBalance", emergencyStopBalance)
         .add("tradeCycleInterval", tradeCycleInterval)
+        .add("tradeCycleOverrunPolicy", tradeCycleOverrunPolicy)
+        .add("strategyThreadPoolSize", strategyThreadPoolSize)
+        .add("balanceCacheTtl", balanceCacheTtl)
+        .add("asyncBalanceRefresh", asyncBalanceRefresh)
+        .add("networkErrorBackoff", networkErrorBackoff)
         .toString();
   }
 }
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.domain.engine;
+
+import com.google.common.base.MoreObjects;
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+
+/**
+ * Domain object representing the config for how long the Trading Engine backs off before retrying
+ * a trade cycle that failed with a network error.
+ *
+ * <p>It is set in the Engine config and can be overridden per Exchange Adapter in the Exchange
+ * network config.
+ *
+ * @author gazbert
+ */
+public class NetworkErrorBackoffConfig {
+
+  @Min(message = "Initial delay must be at least 1 second", value = 1)
+  private Integer initialDelay;
+
+  @DecimalMin(message = "Multiplier must be 1 or more", value = "1")
+  private Double multiplier;
+
+  @Min(message = "Max delay must be at least 1 second", value = 1)
+  private Integer maxDelay;
+
+  @DecimalMin(message = "Jitter must be 0 or more", value = "0")
+  @DecimalMax(message = "Jitter must be 1 or less", value = "1")
+  private Double jitter;
+
+  public Integer getInitialDelay() {
+    return initialDelay;
+  }
+
+  public void setInitialDelay(Integer initialDelay) {
+    this.initialDelay = initialDelay;
+  }
+
+  public Double getMultiplier() {
+    return multiplier;
+  }
+
+  public void setMultiplier(Double multiplier) {
+    this.multiplier = multiplier;
+  }
+
+  public Integer getMaxDelay() {
+    return maxDelay;
+  }
+
+  public void setMaxDelay(Integer maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  public Double getJitter() {
+    return jitter;
+  }
+
+  public void setJitter(Double jitter) {
+    this.jitter = jitter;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("initialDelay", initialDelay)
+        .add("multiplier", multiplier)
+        .add("maxDelay", maxDelay)
+        .add("jitter", jitter)
+        .toString();
+  }
+}
@@ -23,10 +23,14 @@
 
 package com.gazbert.bxbot.domain.exchange;
 
+import com.gazbert.bxbot.domain.engine.NetworkErrorBackoffConfig;
 import com.google.common.base.MoreObjects;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.Pattern;
 
 /**
  * Domain object representing the Exchange Network config.
@@ -41,6 +45,26 @@ public class NetworkConfig {
   private List<Integer> nonFatalErrorCodes;
   private List<String> nonFatalErrorMessages;
 
+  @Min(message = "Connection pool size must be at least 1", value = 1)
+  private Integer connectionPoolSize;
+
+  @Min(message = "Connection idle timeout must be at least 1 second", value = 1)
+  private Integer connectionIdleTimeout;
+
+  private Map<String, RateLimitConfig> rateLimits;
+
+  @Pattern(
+      regexp = "(?i)wait|fail[-_]fast",
+      message = "Rate Limit Policy must be one of: wait, fail-fast")
+  private String rateLimitPolicy;
+
+  @Min(message = "Max rate limit wait must be 0 or more seconds", value = 0)
+  private Integer maxRateLimitWait;
+
+  @Valid private CircuitBreakerConfig circuitBreaker;
+
+  @Valid private NetworkErrorBackoffConfig networkErrorBackoff;
+
   public NetworkConfig() {
     nonFatalErrorCodes = new ArrayList<>();
     nonFatalErrorMessages = new ArrayList<>();
@@ -70,12 +94,75 @@ public class NetworkConfig {
     this.nonFatalErrorMessages = nonFatalErrorMessages;
   }
 
+  public Integer getConnectionPoolSize() {
+    return connectionPoolSize;
+  }
+
+  public void setConnectionPoolSize(Integer connectionPoolSize) {
+    this.connectionPoolSize = connectionPoolSize;
+  }
+
+  public Integer getConnectionIdleTimeout() {
+    return connectionIdleTimeout;
+  }
+
+  public void setConnectionIdleTimeout(Integer connectionIdleTimeout) {
+    this.connectionIdleTimeout = connectionIdleTimeout;
+  }
+
+  public Map<String, RateLimitConfig> getRateLimits() {
+    return rateLimits;
+  }
+
+  public void setRateLimits(Map<String, RateLimitConfig> rateLimits) {
+    this.rateLimits = rateLimits;
+  }
+
+  public String getRateLimitPolicy() {
+    return rateLimitPolicy;
+  }
+
+  public void setRateLimitPolicy(String rateLimitPolicy) {
+    this.rateLimitPolicy = rateLimitPolicy;
+  }
+
+  public Integer getMaxRateLimitWait() {
+    return maxRateLimitWait;
+  }
+
+  public void setMaxRateLimitWait(Integer maxRateLimitWait) {
+    this.maxRateLimitWait = maxRateLimitWait;
+  }
+
+  public CircuitBreakerConfig getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public void setCircuitBreaker(CircuitBreakerConfig circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  public NetworkErrorBackoffConfig getNetworkErrorBackoff() {
+    return networkErrorBackoff;
+  }
+
+  public void setNetworkErrorBackoff(NetworkErrorBackoffConfig networkErrorBackoff) {
+    this.networkErrorBackoff = networkErrorBackoff;
+  }
+
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
         .add("connectionTimeout", connectionTimeout)
         .add("nonFatalErrorCodes", nonFatalErrorCodes)
         .add("nonFatalErrorMessages", nonFatalErrorMessages)
+        .add("connectionPoolSize", connectionPoolSize)
+        .add("connectionIdleTimeout", connectionIdleTimeout)
+        .add("rateLimits", rateLimits)
+        .add("rateLimitPolicy", rateLimitPolicy)
+        .add("maxRateLimitWait", maxRateLimitWait)
+        .add("circuitBreaker", circuitBreaker)
+        .add("networkErrorBackoff", networkErrorBackoff)
         .toString();
   }
 }
@@ -27,6 +27,7 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
+import javax.validation.constraints.Min;
 
 /**
  * Domain object representing a Market config.
@@ -45,6 +46,11 @@ public class MarketConfig {
   private boolean enabled;
   private String tradingStrategyId;
 
+  @Min(value = 1, message = "Market Trade Cycle Interval must be more than 1 second")
+  private Integer tradeCycleInterval;
+
+  private Integer priority;
+
   // Required by ConfigurableComponentFactory
   public MarketConfig() {
   }
@@ -57,6 +63,8 @@ public class MarketConfig {
     this.counterCurrency = other.counterCurrency;
     this.enabled = other.enabled;
     this.tradingStrategyId = other.tradingStrategyId;
+    this.tradeCycleInterval = other.tradeCycleInterval;
+    this.priority = other.priority;
   }
 
   /** Creates a new MarketConfig. */
@@ -124,6 +132,22 @@ public class MarketConfig {
     this.tradingStrategyId = tradingStrategyId;
   }
 
+  public Integer getTradeCycleInterval() {
+    return tradeCycleInterval;
+  }
+
+  public void setTradeCycleInterval(Integer tradeCycleInterval) {
+    this.tradeCycleInterval = tradeCycleInterval;
+  }
+
+  public Integer getPriority() {
+    return priority;
+  }
+
+  public void setPriority(Integer priority) {
+    this.priority = priority;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -150,6 +174,8 @@ public class MarketConfig {
         .add("counterCurrency", counterCurrency)
         .add("enabled", enabled)
         .add("tradingStrategyId", tradingStrategyId)
+        .add("tradeCycleInterval", tradeCycleInterval)
+        .add("priority", priority)
         .toString();
   }
 }
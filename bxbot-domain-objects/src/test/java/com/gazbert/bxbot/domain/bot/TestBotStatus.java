@@ -41,6 +41,7 @@ public class TestBotStatus {
   private static final String DISPLAY_NAME = "Avro 707";
   private static final String STATUS = "running";
   private static final Date DATE = new Date();
+  private static final String CIRCUIT_BREAKER_STATE = "CLOSED";
 
   @Test
   public void testInitialisationWorksAsExpected() {
@@ -64,6 +65,7 @@ public class TestBotStatus {
     assertNull(botStatus.getDisplayName());
     assertNull(botStatus.getStatus());
     assertNull(botStatus.getDatetime());
+    assertNull(botStatus.getExchangeCircuitBreakerState());
 
     botStatus.setBotId(BOT_ID);
     assertEquals(BOT_ID, botStatus.getBotId());
@@ -79,12 +81,17 @@ public class TestBotStatus {
 
     botStatus.setDatetime(DATE);
     assertEquals(DATE.getTime(), botStatus.getDatetime().getTime());
+
+    botStatus.setExchangeCircuitBreakerState(CIRCUIT_BREAKER_STATE);
+    assertEquals(CIRCUIT_BREAKER_STATE, botStatus.getExchangeCircuitBreakerState());
   }
 
   @Test
   public void testToStringWorksAsExpected() {
     final BotStatus botStatus = new BotStatus(BOT_ID, DISPLAY_NAME, STATUS, DATE);
+    botStatus.setExchangeCircuitBreakerState(CIRCUIT_BREAKER_STATE);
     assertTrue(botStatus.toString().startsWith(
         "BotStatus{botId=avro-707_1, displayName=Avro 707, status=running, datetime="));
+    assertTrue(botStatus.toString().endsWith(", exchangeCircuitBreakerState=CLOSED}"));
   }
 }
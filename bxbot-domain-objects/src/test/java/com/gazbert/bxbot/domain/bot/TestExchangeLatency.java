@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.domain.bot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests an ExchangeLatency domain object behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeLatency {
+
+  private static final String ADAPTER = "Bitstamp REST API v2";
+  private static final String TRADING_API_METHOD = "createOrder";
+  private static final String OUTCOME = "OK";
+  private static final String PHASE = "TOTAL";
+  private static final long COUNT = 42;
+  private static final double P50_MILLIS = 12.5;
+  private static final double P99_MILLIS = 80.25;
+  private static final double P999_MILLIS = 310.0;
+  private static final double MAX_MILLIS = 512.75;
+
+  @Test
+  public void testSettersWorkAsExpected() {
+    final ExchangeLatency exchangeLatency = new ExchangeLatency();
+    assertNull(exchangeLatency.getAdapter());
+    assertNull(exchangeLatency.getTradingApiMethod());
+    assertNull(exchangeLatency.getOutcome());
+    assertNull(exchangeLatency.getPhase());
+    assertEquals(0, exchangeLatency.getCount());
+
+    exchangeLatency.setAdapter(ADAPTER);
+    assertEquals(ADAPTER, exchangeLatency.getAdapter());
+
+    exchangeLatency.setTradingApiMethod(TRADING_API_METHOD);
+    assertEquals(TRADING_API_METHOD, exchangeLatency.getTradingApiMethod());
+
+    exchangeLatency.setOutcome(OUTCOME);
+    assertEquals(OUTCOME, exchangeLatency.getOutcome());
+
+    exchangeLatency.setPhase(PHASE);
+    assertEquals(PHASE, exchangeLatency.getPhase());
+
+    exchangeLatency.setCount(COUNT);
+    assertEquals(COUNT, exchangeLatency.getCount());
+
+    exchangeLatency.setP50Millis(P50_MILLIS);
+    assertEquals(P50_MILLIS, exchangeLatency.getP50Millis(), 0);
+
+    exchangeLatency.setP99Millis(P99_MILLIS);
+    assertEquals(P99_MILLIS, exchangeLatency.getP99Millis(), 0);
+
+    exchangeLatency.setP999Millis(P999_MILLIS);
+    assertEquals(P999_MILLIS, exchangeLatency.getP999Millis(), 0);
+
+    exchangeLatency.setMaxMillis(MAX_MILLIS);
+    assertEquals(MAX_MILLIS, exchangeLatency.getMaxMillis(), 0);
+  }
+
+  @Test
+  public void testToStringWorksAsExpected() {
+    final ExchangeLatency exchangeLatency = new ExchangeLatency();
+    exchangeLatency.setAdapter(ADAPTER);
+    exchangeLatency.setTradingApiMethod(TRADING_API_METHOD);
+    exchangeLatency.setOutcome(OUTCOME);
+    exchangeLatency.setPhase(PHASE);
+    exchangeLatency.setCount(COUNT);
+    exchangeLatency.setP50Millis(P50_MILLIS);
+    exchangeLatency.setP99Millis(P99_MILLIS);
+    exchangeLatency.setP999Millis(P999_MILLIS);
+    exchangeLatency.setMaxMillis(MAX_MILLIS);
+    assertEquals(
+        "ExchangeLatency{adapter=Bitstamp REST API v2, tradingApiMethod=createOrder, outcome=OK,"
+            + " phase=TOTAL, count=42, p50Millis=12.5, p99Millis=80.25, p999Millis=310.0,"
+            + " maxMillis=512.75}",
+        exchangeLatency.toString());
+  }
+}
@@ -24,8 +24,10 @@
 package com.gazbert.bxbot.domain.engine;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.math.BigDecimal;
 import org.junit.Test;
@@ -42,6 +44,9 @@ public class TestEngineConfig {
   private static final String EMERGENCY_STOP_CURRENCY = "BTC";
   private static final BigDecimal EMERGENCY_STOP_BALANCE = new BigDecimal("1.5");
   private static final int TRADE_CYCLE_INTERVAL = 30;
+  private static final String TRADE_CYCLE_OVERRUN_POLICY = "catch-up";
+  private static final int STRATEGY_THREAD_POOL_SIZE = 4;
+  private static final int BALANCE_CACHE_TTL = 60;
 
   @Test
   public void testInitialisationWorksAsExpected() {
@@ -58,6 +63,11 @@ public class TestEngineConfig {
     assertEquals(EMERGENCY_STOP_CURRENCY, engineConfig.getEmergencyStopCurrency());
     assertEquals(EMERGENCY_STOP_BALANCE, engineConfig.getEmergencyStopBalance());
     assertEquals(TRADE_CYCLE_INTERVAL, engineConfig.getTradeCycleInterval());
+    assertNull(engineConfig.getTradeCycleOverrunPolicy());
+    assertEquals(0, engineConfig.getStrategyThreadPoolSize());
+    assertEquals(0, engineConfig.getBalanceCacheTtl());
+    assertFalse(engineConfig.isAsyncBalanceRefresh());
+    assertNull(engineConfig.getNetworkErrorBackoff());
   }
 
   @Test
@@ -68,6 +78,11 @@ public class TestEngineConfig {
     assertNull(engineConfig.getEmergencyStopCurrency());
     assertNull(engineConfig.getEmergencyStopBalance());
     assertEquals(0, engineConfig.getTradeCycleInterval());
+    assertNull(engineConfig.getTradeCycleOverrunPolicy());
+    assertEquals(0, engineConfig.getStrategyThreadPoolSize());
+    assertEquals(0, engineConfig.getBalanceCacheTtl());
+    assertFalse(engineConfig.isAsyncBalanceRefresh());
+    assertNull(engineConfig.getNetworkErrorBackoff());
 
     engineConfig.setBotId(BOT_ID);
     assertEquals(BOT_ID, engineConfig.getBotId());
@@ -83,6 +98,22 @@ public class TestEngineConfig {
 
     engineConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
     assertEquals(TRADE_CYCLE_INTERVAL, engineConfig.getTradeCycleInterval());
+
+    engineConfig.setTradeCycleOverrunPolicy(TRADE_CYCLE_OVERRUN_POLICY);
+    assertEquals(TRADE_CYCLE_OVERRUN_POLICY, engineConfig.getTradeCycleOverrunPolicy());
+
+    engineConfig.setStrategyThreadPoolSize(STRATEGY_THREAD_POOL_SIZE);
+    assertEquals(STRATEGY_THREAD_POOL_SIZE, engineConfig.getStrategyThreadPoolSize());
+
+    engineConfig.setBalanceCacheTtl(BALANCE_CACHE_TTL);
+    assertEquals(BALANCE_CACHE_TTL, engineConfig.getBalanceCacheTtl());
+
+    engineConfig.setAsyncBalanceRefresh(true);
+    assertTrue(engineConfig.isAsyncBalanceRefresh());
+
+    final NetworkErrorBackoffConfig networkErrorBackoff = new NetworkErrorBackoffConfig();
+    engineConfig.setNetworkErrorBackoff(networkErrorBackoff);
+    assertEquals(networkErrorBackoff, engineConfig.getNetworkErrorBackoff());
   }
 
   @Test
@@ -159,7 +190,9 @@ public class TestEngineConfig {
 
     assertEquals(
         "EngineConfig{botId=avro-707_1, botName=Avro 707, emergencyStopCurrency=BTC, "
-            + "emergencyStopBalance=1.5, tradeCycleInterval=30}",
+            + "emergencyStopBalance=1.5, tradeCycleInterval=30, "
+            + "tradeCycleOverrunPolicy=null, strategyThreadPoolSize=0, balanceCacheTtl=0, "
+            + "asyncBalanceRefresh=false, networkErrorBackoff=null}",
         engineConfig.toString());
   }
 }
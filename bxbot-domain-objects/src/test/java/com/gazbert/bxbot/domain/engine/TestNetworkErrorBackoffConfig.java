@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.domain.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests NetworkErrorBackoffConfig domain object behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestNetworkErrorBackoffConfig {
+
+  private static final Integer INITIAL_DELAY = 2;
+  private static final Double MULTIPLIER = 1.5;
+  private static final Integer MAX_DELAY = 600;
+  private static final Double JITTER = 0.25;
+
+  @Test
+  public void testInitialisationWorksAsExpected() {
+    final NetworkErrorBackoffConfig backoffConfig = new NetworkErrorBackoffConfig();
+    assertNull(backoffConfig.getInitialDelay());
+    assertNull(backoffConfig.getMultiplier());
+    assertNull(backoffConfig.getMaxDelay());
+    assertNull(backoffConfig.getJitter());
+  }
+
+  @Test
+  public void testSettersWorkAsExpected() {
+    final NetworkErrorBackoffConfig backoffConfig = new NetworkErrorBackoffConfig();
+
+    backoffConfig.setInitialDelay(INITIAL_DELAY);
+    assertEquals(INITIAL_DELAY, backoffConfig.getInitialDelay());
+
+    backoffConfig.setMultiplier(MULTIPLIER);
+    assertEquals(MULTIPLIER, backoffConfig.getMultiplier());
+
+    backoffConfig.setMaxDelay(MAX_DELAY);
+    assertEquals(MAX_DELAY, backoffConfig.getMaxDelay());
+
+    backoffConfig.setJitter(JITTER);
+    assertEquals(JITTER, backoffConfig.getJitter());
+  }
+
+  @Test
+  public void testToStringWorksAsExpected() {
+    final NetworkErrorBackoffConfig backoffConfig = new NetworkErrorBackoffConfig();
+    backoffConfig.setInitialDelay(INITIAL_DELAY);
+    backoffConfig.setMultiplier(MULTIPLIER);
+    backoffConfig.setMaxDelay(MAX_DELAY);
+    backoffConfig.setJitter(JITTER);
+
+    assertEquals(
+        "NetworkErrorBackoffConfig{initialDelay=2, multiplier=1.5, maxDelay=600, jitter=0.25}",
+        backoffConfig.toString());
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.domain.exchange;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests CircuitBreakerConfig domain object behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestCircuitBreakerConfig {
+
+  private static final Integer FAILURE_RATE_THRESHOLD = 50;
+  private static final Integer SLOW_CALL_DURATION_THRESHOLD = 10;
+  private static final Integer SLOW_CALL_RATE_THRESHOLD = 80;
+  private static final Integer SLIDING_WINDOW_SIZE = 20;
+  private static final Integer MINIMUM_NUMBER_OF_CALLS = 10;
+  private static final Integer WAIT_DURATION_IN_OPEN_STATE = 60;
+
+  @Test
+  public void testInitialisationWorksAsExpected() {
+    final CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+    assertNull(circuitBreakerConfig.getFailureRateThreshold());
+    assertNull(circuitBreakerConfig.getSlowCallDurationThreshold());
+    assertNull(circuitBreakerConfig.getSlowCallRateThreshold());
+    assertNull(circuitBreakerConfig.getSlidingWindowSize());
+    assertNull(circuitBreakerConfig.getMinimumNumberOfCalls());
+    assertNull(circuitBreakerConfig.getWaitDurationInOpenState());
+  }
+
+  @Test
+  public void testSettersWorkAsExpected() {
+    final CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+
+    circuitBreakerConfig.setFailureRateThreshold(FAILURE_RATE_THRESHOLD);
+    assertEquals(FAILURE_RATE_THRESHOLD, circuitBreakerConfig.getFailureRateThreshold());
+
+    circuitBreakerConfig.setSlowCallDurationThreshold(SLOW_CALL_DURATION_THRESHOLD);
+    assertEquals(SLOW_CALL_DURATION_THRESHOLD, circuitBreakerConfig.getSlowCallDurationThreshold());
+
+    circuitBreakerConfig.setSlowCallRateThreshold(SLOW_CALL_RATE_THRESHOLD);
+    assertEquals(SLOW_CALL_RATE_THRESHOLD, circuitBreakerConfig.getSlowCallRateThreshold());
+
+    circuitBreakerConfig.setSlidingWindowSize(SLIDING_WINDOW_SIZE);
+    assertEquals(SLIDING_WINDOW_SIZE, circuitBreakerConfig.getSlidingWindowSize());
+
+    circuitBreakerConfig.setMinimumNumberOfCalls(MINIMUM_NUMBER_OF_CALLS);
+    assertEquals(MINIMUM_NUMBER_OF_CALLS, circuitBreakerConfig.getMinimumNumberOfCalls());
+
+    circuitBreakerConfig.setWaitDurationInOpenState(WAIT_DURATION_IN_OPEN_STATE);
+    assertEquals(WAIT_DURATION_IN_OPEN_STATE, circuitBreakerConfig.getWaitDurationInOpenState());
+  }
+
+  @Test
+  public void testToStringWorksAsExpected() {
+    final CircuitBreakerConfig circuitBreakerConfig = new CircuitBreakerConfig();
+    circuitBreakerConfig.setFailureRateThreshold(FAILURE_RATE_THRESHOLD);
+    circuitBreakerConfig.setSlowCallDurationThreshold(SLOW_CALL_DURATION_THRESHOLD);
+    circuitBreakerConfig.setSlowCallRateThreshold(SLOW_CALL_RATE_THRESHOLD);
+    circuitBreakerConfig.setSlidingWindowSize(SLIDING_WINDOW_SIZE);
+    circuitBreakerConfig.setMinimumNumberOfCalls(MINIMUM_NUMBER_OF_CALLS);
+    circuitBreakerConfig.setWaitDurationInOpenState(WAIT_DURATION_IN_OPEN_STATE);
+
+    assertEquals(
+        "CircuitBreakerConfig{failureRateThreshold=50, slowCallDurationThreshold=10, "
+            + "slowCallRateThreshold=80, slidingWindowSize=20, minimumNumberOfCalls=10, "
+            + "waitDurationInOpenState=60}",
+        circuitBreakerConfig.toString());
+  }
+}
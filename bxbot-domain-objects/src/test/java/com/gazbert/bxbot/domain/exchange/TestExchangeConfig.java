@@ -86,7 +86,9 @@ public class TestExchangeConfig {
         "ExchangeConfig{name=Bitstamp, "
             + "adapter=com.gazbert.bxbot.exchanges.TestExchangeAdapter, "
             + "networkConfig=NetworkConfig{connectionTimeout=null, nonFatalErrorCodes=[], "
-            + "nonFatalErrorMessages=[]}, otherConfig={}}",
+            + "nonFatalErrorMessages=[], connectionPoolSize=null, connectionIdleTimeout=null, "
+            + "rateLimits=null, rateLimitPolicy=null, maxRateLimitWait=null, "
+            + "circuitBreaker=null, networkErrorBackoff=null}, otherConfig={}}",
         exchangeConfig.toString());
   }
 }
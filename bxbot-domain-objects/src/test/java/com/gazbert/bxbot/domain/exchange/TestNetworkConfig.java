@@ -27,8 +27,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import com.gazbert.bxbot.domain.engine.NetworkErrorBackoffConfig;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.junit.Test;
 
 /**
@@ -39,6 +42,10 @@ import org.junit.Test;
 public class TestNetworkConfig {
 
   private static final Integer CONNECTION_TIMEOUT = 30;
+  private static final Integer CONNECTION_POOL_SIZE = 8;
+  private static final Integer CONNECTION_IDLE_TIMEOUT = 60;
+  private static final String RATE_LIMIT_POLICY = "wait";
+  private static final Integer MAX_RATE_LIMIT_WAIT = 5;
   private static final List<Integer> NON_FATAL_ERROR_CODES = Arrays.asList(502, 503, 504);
   private static final List<String> NON_FATAL_ERROR_MESSAGES =
       Arrays.asList(
@@ -52,6 +59,12 @@ public class TestNetworkConfig {
     assertNull(networkConfig.getConnectionTimeout());
     assertTrue(networkConfig.getNonFatalErrorCodes().isEmpty());
     assertTrue(networkConfig.getNonFatalErrorMessages().isEmpty());
+    assertNull(networkConfig.getConnectionPoolSize());
+    assertNull(networkConfig.getConnectionIdleTimeout());
+    assertNull(networkConfig.getRateLimits());
+    assertNull(networkConfig.getRateLimitPolicy());
+    assertNull(networkConfig.getMaxRateLimitWait());
+    assertNull(networkConfig.getCircuitBreaker());
   }
 
   @Test
@@ -66,6 +79,30 @@ public class TestNetworkConfig {
 
     networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
     assertEquals(NON_FATAL_ERROR_MESSAGES, networkConfig.getNonFatalErrorMessages());
+
+    networkConfig.setConnectionPoolSize(CONNECTION_POOL_SIZE);
+    assertEquals(CONNECTION_POOL_SIZE, networkConfig.getConnectionPoolSize());
+
+    networkConfig.setConnectionIdleTimeout(CONNECTION_IDLE_TIMEOUT);
+    assertEquals(CONNECTION_IDLE_TIMEOUT, networkConfig.getConnectionIdleTimeout());
+
+    final Map<String, RateLimitConfig> rateLimits = createRateLimits();
+    networkConfig.setRateLimits(rateLimits);
+    assertEquals(rateLimits, networkConfig.getRateLimits());
+
+    networkConfig.setRateLimitPolicy(RATE_LIMIT_POLICY);
+    assertEquals(RATE_LIMIT_POLICY, networkConfig.getRateLimitPolicy());
+
+    networkConfig.setMaxRateLimitWait(MAX_RATE_LIMIT_WAIT);
+    assertEquals(MAX_RATE_LIMIT_WAIT, networkConfig.getMaxRateLimitWait());
+
+    final CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    networkConfig.setCircuitBreaker(circuitBreaker);
+    assertEquals(circuitBreaker, networkConfig.getCircuitBreaker());
+
+    final NetworkErrorBackoffConfig networkErrorBackoff = new NetworkErrorBackoffConfig();
+    networkConfig.setNetworkErrorBackoff(networkErrorBackoff);
+    assertEquals(networkErrorBackoff, networkConfig.getNetworkErrorBackoff());
   }
 
   @Test
@@ -74,11 +111,29 @@ public class TestNetworkConfig {
     networkConfig.setConnectionTimeout(CONNECTION_TIMEOUT);
     networkConfig.setNonFatalErrorCodes(NON_FATAL_ERROR_CODES);
     networkConfig.setNonFatalErrorMessages(NON_FATAL_ERROR_MESSAGES);
+    networkConfig.setConnectionPoolSize(CONNECTION_POOL_SIZE);
+    networkConfig.setConnectionIdleTimeout(CONNECTION_IDLE_TIMEOUT);
+    networkConfig.setRateLimits(createRateLimits());
+    networkConfig.setRateLimitPolicy(RATE_LIMIT_POLICY);
+    networkConfig.setMaxRateLimitWait(MAX_RATE_LIMIT_WAIT);
 
     assertEquals(
         "NetworkConfig{connectionTimeout=30, nonFatalErrorCodes=[502, 503, 504],"
             + " nonFatalErrorMessages=[Connection refused, Connection reset, "
-            + "Remote host closed connection during handshake]}",
+            + "Remote host closed connection during handshake], "
+            + "connectionPoolSize=8, connectionIdleTimeout=60, "
+            + "rateLimits={public=RateLimitConfig{requestsPerSecond=1.0, burst=5}}, "
+            + "rateLimitPolicy=wait, maxRateLimitWait=5, circuitBreaker=null, "
+            + "networkErrorBackoff=null}",
         networkConfig.toString());
   }
+
+  private static Map<String, RateLimitConfig> createRateLimits() {
+    final RateLimitConfig rateLimitConfig = new RateLimitConfig();
+    rateLimitConfig.setRequestsPerSecond(1.0);
+    rateLimitConfig.setBurst(5);
+    final Map<String, RateLimitConfig> rateLimits = new LinkedHashMap<>();
+    rateLimits.put("public", rateLimitConfig);
+    return rateLimits;
+  }
 }
@@ -43,6 +43,8 @@ public class TestMarketConfig {
   private static final String COUNTER_CURRENCY = "USD";
   private static final boolean IS_ENABLED = true;
   private static final String TRADING_STRATEGY = "macd_trend_follower";
+  private static final Integer TRADE_CYCLE_INTERVAL = 120;
+  private static final Integer PRIORITY = 10;
 
   @Test
   public void testInitialisationWorksAsExpected() {
@@ -55,6 +57,8 @@ public class TestMarketConfig {
     assertEquals(COUNTER_CURRENCY, marketConfig.getCounterCurrency());
     assertEquals(IS_ENABLED, marketConfig.isEnabled());
     assertEquals(TRADING_STRATEGY, marketConfig.getTradingStrategyId());
+    assertNull(marketConfig.getTradeCycleInterval());
+    assertNull(marketConfig.getPriority());
   }
 
   @Test
@@ -66,6 +70,8 @@ public class TestMarketConfig {
     assertNull(marketConfig.getCounterCurrency());
     assertFalse(marketConfig.isEnabled());
     assertNull(marketConfig.getTradingStrategyId());
+    assertNull(marketConfig.getTradeCycleInterval());
+    assertNull(marketConfig.getPriority());
 
     marketConfig.setId(ID);
     assertEquals(ID, marketConfig.getId());
@@ -84,15 +90,25 @@ public class TestMarketConfig {
 
     marketConfig.setTradingStrategyId(TRADING_STRATEGY);
     assertEquals(TRADING_STRATEGY, marketConfig.getTradingStrategyId());
+
+    marketConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+    assertEquals(TRADE_CYCLE_INTERVAL, marketConfig.getTradeCycleInterval());
+
+    marketConfig.setPriority(PRIORITY);
+    assertEquals(PRIORITY, marketConfig.getPriority());
   }
 
   @Test
   public void testCloningWorksAsExpected() {
     final MarketConfig marketConfig =
         new MarketConfig(ID, NAME, BASE_CURRENCY, COUNTER_CURRENCY, IS_ENABLED, TRADING_STRATEGY);
+    marketConfig.setTradeCycleInterval(TRADE_CYCLE_INTERVAL);
+    marketConfig.setPriority(PRIORITY);
     final MarketConfig clonedMarketConfig = new MarketConfig(marketConfig);
 
     assertEquals(clonedMarketConfig, marketConfig);
+    assertEquals(TRADE_CYCLE_INTERVAL, clonedMarketConfig.getTradeCycleInterval());
+    assertEquals(PRIORITY, clonedMarketConfig.getPriority());
   }
 
   @Test
@@ -134,7 +150,8 @@ public class TestMarketConfig {
 
     assertEquals(
         "MarketConfig{id=gemini_usd/btc, name=BTC/USD, baseCurrency=BTC,"
-            + " counterCurrency=USD, enabled=true, tradingStrategyId=macd_trend_follower}",
+            + " counterCurrency=USD, enabled=true, tradingStrategyId=macd_trend_follower,"
+            + " tradeCycleInterval=null, priority=null}",
         market1.toString());
   }
 }
@@ -0,0 +1,75 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchange.api;
+
+/**
+ * Encapsulates the (optional) circuit breaker config for an Exchange Adapter.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public interface CircuitBreakerConfig {
+
+  /**
+   * Fetches (optional) percentage of failed calls in the sliding window that trips the breaker.
+   *
+   * @return the failure rate threshold if present, null otherwise.
+   */
+  Integer getFailureRateThreshold();
+
+  /**
+   * Fetches (optional) time in seconds after which a call is counted as slow.
+   *
+   * @return the slow call duration threshold if present, null otherwise.
+   */
+  Integer getSlowCallDurationThreshold();
+
+  /**
+   * Fetches (optional) percentage of slow calls in the sliding window that trips the breaker.
+   *
+   * @return the slow call rate threshold if present, null otherwise.
+   */
+  Integer getSlowCallRateThreshold();
+
+  /**
+   * Fetches (optional) number of most recent calls the failure and slow call rates are taken over.
+   *
+   * @return the sliding window size if present, null otherwise.
+   */
+  Integer getSlidingWindowSize();
+
+  /**
+   * Fetches (optional) number of calls that must have been made before the breaker can trip.
+   *
+   * @return the minimum number of calls if present, null otherwise.
+   */
+  Integer getMinimumNumberOfCalls();
+
+  /**
+   * Fetches (optional) time in seconds the breaker stays open before it lets a probe call through.
+   *
+   * @return the wait duration in open state if present, null otherwise.
+   */
+  Integer getWaitDurationInOpenState();
+}
@@ -29,8 +29,11 @@ import com.gazbert.bxbot.trading.api.TradingApi;
  * All Exchange Adapters must implement this interface. It's main purpose is for the Trading Engine
  * to pass the adapter its configuration on startup.
  *
- * <p>The Trading Engine will send only 1 thread through the Exchange Adapter code at a time - you
- * do not have to code for concurrency.
+ * <p>Thread safety: {@link #init(ExchangeConfig)} is called once, before any other method, and
+ * must return before the adapter is used. After that, the Trading API methods may be called from
+ * more than one thread at a time, so an adapter must be safe for concurrent use. In particular,
+ * every authenticated call must get its own increasing nonce, and request signing must not share
+ * mutable state, e.g. a {@link javax.crypto.Mac}, between calls.
  *
  * @author gazbert
  * @since 1.0
@@ -43,4 +46,34 @@ public interface ExchangeAdapter extends TradingApi {
    * @param config configuration for the Exchange Adapter.
    */
   void init(ExchangeConfig config);
+
+  /**
+   * Returns the state of the adapter's circuit breaker, if it has one.
+   *
+   * @return the circuit breaker state, or null if the adapter has no circuit breaker.
+   * @since 1.2
+   */
+  default CircuitBreakerState getCircuitBreakerState() {
+    return null;
+  }
+
+  /**
+   * Returns the recorder timing the adapter's Trading API calls, if it has one.
+   *
+   * @return the call recorder, or null if the adapter does not time its calls.
+   * @since 1.2
+   */
+  default ExchangeCallRecorder getCallRecorder() {
+    return null;
+  }
+
+  /**
+   * Returns the metrics of the adapter's client-side rate limiter, if it has one.
+   *
+   * @return the rate limiter metrics, or null if the adapter does not rate limit its calls.
+   * @since 1.2
+   */
+  default RateLimiterMetrics getRateLimiterMetrics() {
+    return null;
+  }
 }
@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.api;
+
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Outcome;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Phase;
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the latency of a Trading API method's calls, for 1 outcome and phase.
+ *
+ * <p>Percentiles are accurate to within about 2% of the true value.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public final class ExchangeCallLatency {
+
+  private final String tradingApiMethod;
+  private final Outcome outcome;
+  private final Phase phase;
+  private final long count;
+  private final long p50Nanos;
+  private final long p99Nanos;
+  private final long p999Nanos;
+  private final long maxNanos;
+
+  /**
+   * Creates the snapshot.
+   *
+   * @param tradingApiMethod the name of the Trading API method.
+   * @param outcome how the calls ended.
+   * @param phase the part of the calls.
+   * @param count the number of timings recorded.
+   * @param p50Nanos the median latency in nanos.
+   * @param p99Nanos the 99th percentile latency in nanos.
+   * @param p999Nanos the 99.9th percentile latency in nanos.
+   * @param maxNanos the highest latency in nanos.
+   */
+  public ExchangeCallLatency(
+      String tradingApiMethod,
+      Outcome outcome,
+      Phase phase,
+      long count,
+      long p50Nanos,
+      long p99Nanos,
+      long p999Nanos,
+      long maxNanos) {
+    this.tradingApiMethod = tradingApiMethod;
+    this.outcome = outcome;
+    this.phase = phase;
+    this.count = count;
+    this.p50Nanos = p50Nanos;
+    this.p99Nanos = p99Nanos;
+    this.p999Nanos = p999Nanos;
+    this.maxNanos = maxNanos;
+  }
+
+  public String getTradingApiMethod() {
+    return tradingApiMethod;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  public Phase getPhase() {
+    return phase;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getP999Nanos() {
+    return p999Nanos;
+  }
+
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("tradingApiMethod", tradingApiMethod)
+        .add("outcome", outcome)
+        .add("phase", phase)
+        .add("count", count)
+        .add("p50Nanos", p50Nanos)
+        .add("p99Nanos", p99Nanos)
+        .add("p999Nanos", p999Nanos)
+        .add("maxNanos", maxNanos)
+        .toString();
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.api;
+
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.util.List;
+
+/**
+ * Records how long an Exchange Adapter's Trading API calls take.
+ *
+ * <p>Every call is timed from start to finish. The adapter can also time the phases of a call:
+ * waiting for the exchange to start responding, and reading and decoding the response. Timings are
+ * split by Trading API method and by how the call ended.
+ *
+ * <p>Implementations must be thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public interface ExchangeCallRecorder {
+
+  /** How a Trading API call ended. */
+  enum Outcome {
+
+    /** The call returned normally. */
+    OK,
+
+    /**
+     * The call threw an {@link ExchangeNetworkException}.
+     */
+    NETWORK_ERROR,
+
+    /**
+     * The call threw a {@link TradingApiException}, or some other unexpected exception.
+     */
+    API_ERROR
+  }
+
+  /** The part of a Trading API call being timed. */
+  enum Phase {
+
+    /** The whole call. */
+    TOTAL,
+
+    /**
+     * From sending a request to receiving the response headers. A call that sends more than 1
+     * request records each one.
+     */
+    FIRST_BYTE,
+
+    /** The rest of the call: reading and decoding the responses into Trading API types. */
+    DECODE
+  }
+
+  /** A Trading API call being timed. */
+  interface Call {
+
+    /**
+     * Stops timing the call and records it.
+     *
+     * @param outcome how the call ended.
+     */
+    void stop(Outcome outcome);
+  }
+
+  /**
+   * Starts timing a Trading API call made on the calling thread. The call must be stopped on the
+   * same thread.
+   *
+   * @param tradingApiMethod the name of the Trading API method being called, e.g. createOrder.
+   * @return the call being timed.
+   */
+  Call start(String tradingApiMethod);
+
+  /**
+   * Returns the latency of a Trading API method's calls.
+   *
+   * @param tradingApiMethod the name of the Trading API method.
+   * @param outcome how the calls ended.
+   * @param phase the part of the calls.
+   * @return the latency, or null if no calls have been recorded for it.
+   */
+  ExchangeCallLatency getLatency(String tradingApiMethod, Outcome outcome, Phase phase);
+
+  /**
+   * Returns the latency of every Trading API method, outcome and phase recorded so far.
+   *
+   * @return the latencies.
+   */
+  List<ExchangeCallLatency> getLatencies();
+}
@@ -24,6 +24,7 @@
 package com.gazbert.bxbot.exchange.api;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Encapsulates any (optional) Network configuration for an Exchange Adapter.
@@ -53,4 +54,68 @@ public interface NetworkConfig {
    * @return the connection timeout value if present, null otherwise.
    */
   Integer getConnectionTimeout();
+
+  /**
+   * Fetches (optional) maximum number of concurrent connections the Exchange Adapter may hold open
+   * to the exchange.
+   *
+   * @return the connection pool size if present, null otherwise.
+   * @since 1.2
+   */
+  default Integer getConnectionPoolSize() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) time in seconds an idle keep-alive connection is held in the pool before it
+   * is closed.
+   *
+   * @return the connection idle timeout if present, null otherwise.
+   * @since 1.2
+   */
+  default Integer getConnectionIdleTimeout() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) client-side rate limits, keyed by endpoint class: public, private and
+   * order-entry.
+   *
+   * @return the rate limits if present, null otherwise.
+   * @since 1.2
+   */
+  default Map<String, RateLimitConfig> getRateLimits() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) policy for calls that would breach a rate limit: wait or fail-fast.
+   *
+   * @return the rate limit policy if present, null otherwise.
+   * @since 1.2
+   */
+  default String getRateLimitPolicy() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) max time in seconds a call will wait for a rate limit before failing.
+   *
+   * @return the max rate limit wait if present, null otherwise.
+   * @since 1.2
+   */
+  default Integer getMaxRateLimitWait() {
+    return null;
+  }
+
+  /**
+   * Fetches (optional) circuit breaker config. The Exchange Adapter only has a circuit breaker if
+   * it is set.
+   *
+   * @return the circuit breaker config if present, null otherwise.
+   * @since 1.2
+   */
+  default CircuitBreakerConfig getCircuitBreaker() {
+    return null;
+  }
 }
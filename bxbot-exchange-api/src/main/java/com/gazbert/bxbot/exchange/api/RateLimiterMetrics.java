@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchange.api;
+
+import java.util.List;
+
+/**
+ * Reports how an Exchange Adapter's client-side rate limiter has throttled its calls.
+ *
+ * <p>Calls are rate limited by class of endpoint, e.g. public, private or order-entry. A call that
+ * breaches its limit either waits for its turn, and is counted as throttled, or is rejected.
+ *
+ * <p>Implementations must be thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public interface RateLimiterMetrics {
+
+  /**
+   * Returns the classes of endpoint that have a rate limit.
+   *
+   * @return the endpoint classes, as named in the exchange config, e.g. order-entry.
+   */
+  List<String> getRateLimitedEndpoints();
+
+  /**
+   * Returns the number of calls to a class of endpoint that had to wait for their turn.
+   *
+   * @param endpoint the endpoint class, as named in the exchange config.
+   * @return the throttled call count.
+   */
+  long getThrottledCount(String endpoint);
+
+  /**
+   * Returns the total time calls to a class of endpoint have spent waiting for their turn.
+   *
+   * @param endpoint the endpoint class, as named in the exchange config.
+   * @return the time spent throttled in nanos.
+   */
+  long getThrottledNanos(String endpoint);
+
+  /**
+   * Returns the number of calls to a class of endpoint that were rejected.
+   *
+   * @param endpoint the endpoint class, as named in the exchange config.
+   * @return the rejected call count.
+   */
+  long getRejectedCount(String endpoint);
+}
@@ -82,10 +82,16 @@ public class GeminiIT {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     otherConfig = createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
+    expect(otherConfig.getItem("market-data-stream")).andReturn(null);
+    expect(otherConfig.getItem("base-url")).andReturn(null);
 
     exchangeConfig = createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
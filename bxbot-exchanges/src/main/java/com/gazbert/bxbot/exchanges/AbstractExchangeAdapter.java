@@ -24,33 +24,52 @@
 package com.gazbert.bxbot.exchanges;
 
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
+import com.gazbert.bxbot.exchange.api.CircuitBreakerConfig;
+import com.gazbert.bxbot.exchange.api.CircuitBreakerState;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+import com.gazbert.bxbot.exchange.api.RateLimiterMetrics;
+import com.gazbert.bxbot.exchanges.ExchangeCallMetrics.TimedCall;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.net.UnknownHostException;
-import java.nio.charset.StandardCharsets;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.UnresolvedAddressException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -59,6 +78,9 @@ import org.apache.logging.log4j.Logger;
  *
  * <p>Exchange Adapters should extend this class.
  *
+ * <p>Once the adapter has been initialised, the plumbing provided here is safe for concurrent use:
+ * the HTTP transport, rate limiter, nonce generation, request signing and call timing.
+ *
  * @author gazbert
  * @since 1.0
  */
@@ -73,6 +95,10 @@ abstract class AbstractExchangeAdapter {
       "Failed to connect to Exchange due to socket timeout.";
   private static final String IO_5XX_TIMEOUT_ERROR_MSG =
       "Failed to connect to Exchange due to 5xx timeout.";
+  private static final String EXCHANGE_IS_DEAD_ERROR_MSG =
+      "Failed to connect to Exchange. It's dead Jim!";
+  private static final String INTERRUPTED_ERROR_MSG =
+      "Interrupted whilst waiting to call Exchange.";
   private static final String AUTHENTICATION_CONFIG_MISSING =
       "authenticationConfig is missing in exchange.yaml file.";
   private static final String NETWORK_CONFIG_MISSING =
@@ -85,11 +111,29 @@ abstract class AbstractExchangeAdapter {
   private static final String CONNECTION_TIMEOUT_PROPERTY_NAME = "connection-timeout";
   private static final String NON_FATAL_ERROR_CODES_PROPERTY_NAME = "non-fatal-error-codes";
   private static final String NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME = "non-fatal-error-messages";
+  private static final String CONNECTION_POOL_SIZE_PROPERTY_NAME = "connection-pool-size";
+  private static final String CONNECTION_IDLE_TIMEOUT_PROPERTY_NAME = "connection-idle-timeout";
+  private static final String RATE_LIMITS_PROPERTY_NAME = "rate-limits";
+  private static final String CIRCUIT_BREAKER_PROPERTY_NAME = "circuit-breaker";
+  private static final String BASE_URL_PROPERTY_NAME = "base-url";
+  private static final String CIRCUIT_OPEN_ERROR_MSG =
+      "Circuit breaker is open - call was not sent to Exchange.";
+
+  /** Order book depth that fetches every level the exchange sends by default. */
+  static final int ALL_MARKET_ORDER_LEVELS = Integer.MAX_VALUE;
 
   private final Set<Integer> nonFatalNetworkErrorCodes;
   private final Set<String> nonFatalNetworkErrorMessages;
+  private final NonceGenerator nonceGenerator = new NonceGenerator();
+  private final ExchangeCallMetrics callMetrics = new ExchangeCallMetrics();
 
   private int connectionTimeout;
+  private Integer connectionPoolSize;
+  private Integer connectionIdleTimeout;
+  private volatile ExchangeHttpTransport httpTransport;
+  private ExchangeRateLimiter rateLimiter;
+  private ExchangeCircuitBreaker circuitBreaker;
+  private volatile RequestSigner requestSigner;
   private DecimalFormatSymbols decimalFormatSymbols;
 
   /**
@@ -113,8 +157,7 @@ abstract class AbstractExchangeAdapter {
    * @param url the URL to invoke.
    * @param postData optional post data to send. This can be null.
    * @param httpMethod the HTTP method to use, e.g. GET, POST, DELETE
-   * @param requestHeaders optional request headers to set on the {@link URLConnection} used to
-   *     invoke the Exchange.
+   * @param requestHeaders optional request headers to set on the request sent to the Exchange.
    * @return the response from the Exchange.
    * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
    *     This exception allows for recovery from temporary network issues.
@@ -125,97 +168,303 @@ abstract class AbstractExchangeAdapter {
       URL url, String httpMethod, String postData, Map<String, String> requestHeaders)
       throws TradingApiException, ExchangeNetworkException {
 
-    HttpURLConnection exchangeConnection = null;
-    final StringBuilder exchangeResponse = new StringBuilder();
+    final long permit = acquireCircuitBreakerPermission();
 
+    final ExchangeHttpResponse exchangeResponse;
+    long sentAtNanos = 0;
+    long firstByteNanos = 0;
     try {
-      LOG.debug(() -> "Using following URL for API call: " + url);
-
-      exchangeConnection = (HttpURLConnection) url.openConnection();
-      exchangeConnection.setUseCaches(false);
-      exchangeConnection.setDoOutput(true);
-      exchangeConnection.setRequestMethod(httpMethod); // GET|POST|DELETE
-
-      setRequestHeaders(exchangeConnection, requestHeaders);
-
-      // Add a timeout so we don't get blocked indefinitely; timeout on URLConnection is in millis.
-      final int timeoutInMillis = connectionTimeout * 1000;
-      exchangeConnection.setConnectTimeout(timeoutInMillis);
-      exchangeConnection.setReadTimeout(timeoutInMillis);
+      if (rateLimiter != null) {
+        final Endpoint endpoint = getRateLimitedEndpoint(url, httpMethod);
+        if (!rateLimiter.acquire(endpoint)) {
+          releaseCircuitBreakerPermission(permit);
+          final String errorMsg =
+              "Rate limit for " + endpoint + " endpoints reached - call was not sent to Exchange.";
+          LOG.error(errorMsg);
+          throw new ExchangeNetworkException(errorMsg);
+        }
+      }
 
+      LOG.debug(() -> "Using following URL for API call: " + url);
       if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
         LOG.debug(() -> "Doing POST with request body: " + postData);
-        try (final OutputStreamWriter outputPostStream =
-            new OutputStreamWriter(exchangeConnection.getOutputStream(), StandardCharsets.UTF_8)) {
-          outputPostStream.write(postData);
-        }
       }
 
-      // Grab the response - we just block here as per Connection API
-      try (final BufferedReader responseInputStream =
-          new BufferedReader(
-              new InputStreamReader(exchangeConnection.getInputStream(), StandardCharsets.UTF_8))) {
-
-        // Read the JSON response lines into our response buffer
-        String responseLine;
-        while ((responseLine = responseInputStream.readLine()) != null) {
-          exchangeResponse.append(responseLine);
-        }
+      // Add a timeout so we don't get blocked indefinitely; transport timeout is in millis.
+      final int timeoutInMillis = connectionTimeout * 1000;
+      final Map<String, String> headers = buildRequestHeaders(requestHeaders);
+      sentAtNanos = System.nanoTime();
+      exchangeResponse =
+          getHttpTransport().send(url, httpMethod, postData, headers, timeoutInMillis);
+      firstByteNanos = System.nanoTime() - sentAtNanos;
 
-        return new ExchangeHttpResponse(
-            exchangeConnection.getResponseCode(),
-            exchangeConnection.getResponseMessage(),
-            exchangeResponse.toString());
+      // Only hand back a live stream when the adapter will decode it and nothing needs the raw
+      // payload - errors and debug logging still get the full String.
+      final int statusCode = exchangeResponse.getStatusCode();
+      if (!isStreamedResponse(url)
+          || statusCode < HttpURLConnection.HTTP_OK
+          || statusCode >= HttpURLConnection.HTTP_MULT_CHOICE
+          || LogManager.getLogger(getClass()).isDebugEnabled()) {
+        exchangeResponse.readPayload();
       }
 
-    } catch (MalformedURLException e) {
-      final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-      LOG.error(errorMsg, e);
-      throw new TradingApiException(errorMsg, e);
+    } catch (IOException e) {
+      final Exception ioError = adaptIoException(e);
+      recordCircuitBreakerOutcome(permit, sentAtNanos, ioError);
+      throw rethrow(ioError);
 
-    } catch (SocketTimeoutException e) {
-      final String errorMsg = IO_SOCKET_TIMEOUT_ERROR_MSG;
+    } catch (InterruptedException e) {
+      releaseCircuitBreakerPermission(permit);
+      Thread.currentThread().interrupt();
+      final String errorMsg = INTERRUPTED_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new ExchangeNetworkException(errorMsg, e);
 
-    } catch (FileNotFoundException | UnknownHostException e) {
-      // Huobi started throwing FileNotFoundException as of 8 Nov 2015.
-      // EC2 started throwing UnknownHostException for BTC-e, GDAX, as of 14 July 2016 :-/
-      final String errorMsg = "Failed to connect to Exchange. It's dead Jim!";
-      LOG.error(errorMsg, e);
-      throw new ExchangeNetworkException(errorMsg, e);
+    } catch (RuntimeException e) {
+      releaseCircuitBreakerPermission(permit);
+      throw e;
+    }
 
-    } catch (IOException e) {
-      try {
-        if (errorMessageIsRecoverableNetworkError(e)) {
-          final String errorMsg =
-              "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
-          LOG.error(errorMsg, e);
-          throw new ExchangeNetworkException(errorMsg, e);
-
-        } else if (errorCodeIsRecoverableNetworkError(exchangeConnection)) {
-          final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG;
-          LOG.error(errorMsg, e);
-          throw new ExchangeNetworkException(errorMsg, e);
-
-        } else {
-          // Game over!
-          String errorMsg = extractIoErrorMessage(exchangeConnection);
-          LOG.error(errorMsg, e);
-          throw new TradingApiException(errorMsg, e);
-        }
+    final Exception statusCodeError = checkStatusCode(url, exchangeResponse);
+    recordCircuitBreakerOutcome(permit, sentAtNanos, statusCodeError);
+    callMetrics.recordFirstByte(callMetrics.currentCall(), firstByteNanos, statusCodeError);
+    if (statusCodeError != null) {
+      throw rethrow(statusCodeError);
+    }
+    return exchangeResponse;
+  }
 
-      } catch (IOException e1) {
-        final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-        LOG.error(errorMsg, e1);
-        throw new TradingApiException(errorMsg, e1);
-      }
+  /**
+   * Makes a request to the Exchange without blocking the calling thread. The response payload is
+   * always read in full before the returned future completes.
+   *
+   * <p>Failures are mapped onto the Trading API exceptions exactly as {@link
+   * #sendNetworkRequest(URL, String, String, Map)} maps them, and complete the future
+   * exceptionally. If the call has to wait for a rate limit token, it is sent when the token is
+   * due rather than waiting on the calling thread.
+   *
+   * @param url the URL to invoke.
+   * @param postData optional post data to send. This can be null.
+   * @param httpMethod the HTTP method to use, e.g. GET, POST, DELETE
+   * @param requestHeaders optional request headers to set on the request sent to the Exchange.
+   * @return the response from the Exchange.
+   */
+  CompletableFuture<ExchangeHttpResponse> sendNetworkRequestAsync(
+      URL url, String httpMethod, String postData, Map<String, String> requestHeaders) {
 
-    } finally {
-      if (exchangeConnection != null) {
-        exchangeConnection.disconnect();
+    final long permit;
+    try {
+      permit = acquireCircuitBreakerPermission();
+    } catch (ExchangeNetworkException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    long rateLimitWaitNanos = 0;
+    if (rateLimiter != null) {
+      final Endpoint endpoint = getRateLimitedEndpoint(url, httpMethod);
+      rateLimitWaitNanos = rateLimiter.reserve(endpoint);
+      if (rateLimitWaitNanos == ExchangeRateLimiter.NOT_PERMITTED) {
+        releaseCircuitBreakerPermission(permit);
+        final String errorMsg =
+            "Rate limit for " + endpoint + " endpoints reached - call was not sent to Exchange.";
+        LOG.error(errorMsg);
+        return CompletableFuture.failedFuture(new ExchangeNetworkException(errorMsg));
       }
     }
+
+    LOG.debug(() -> "Using following URL for async API call: " + url);
+    if (httpMethod.equalsIgnoreCase("POST") && postData != null) {
+      LOG.debug(() -> "Doing async POST with request body: " + postData);
+    }
+
+    final int timeoutInMillis = connectionTimeout * 1000;
+    final Map<String, String> headers = buildRequestHeaders(requestHeaders);
+    final ExchangeHttpTransport transport = getHttpTransport();
+    final TimedCall call = callMetrics.currentCall();
+    final AtomicLong sentAtNanos = new AtomicLong();
+    final CompletableFuture<ExchangeHttpResponse> sent;
+    if (rateLimitWaitNanos > 0) {
+      final Executor whenTokenIsDue =
+          CompletableFuture.delayedExecutor(rateLimitWaitNanos, TimeUnit.NANOSECONDS);
+      sent =
+          CompletableFuture.runAsync(() -> sentAtNanos.set(System.nanoTime()), whenTokenIsDue)
+              .thenCompose(
+                  tokenIsDue ->
+                      transport.sendAsync(url, httpMethod, postData, headers, timeoutInMillis));
+    } else {
+      sentAtNanos.set(System.nanoTime());
+      sent = transport.sendAsync(url, httpMethod, postData, headers, timeoutInMillis);
+    }
+
+    return sent.handle(
+        (exchangeResponse, failure) -> {
+          if (failure != null) {
+            final Throwable cause = unwrap(failure);
+            if (cause instanceof IOException) {
+              final Exception ioError = adaptIoException((IOException) cause);
+              recordCircuitBreakerOutcome(permit, sentAtNanos.get(), ioError);
+              throw new CompletionException(ioError);
+            }
+            releaseCircuitBreakerPermission(permit);
+            if (cause instanceof InterruptedException) {
+              final String errorMsg = INTERRUPTED_ERROR_MSG;
+              LOG.error(errorMsg, cause);
+              throw new CompletionException(new ExchangeNetworkException(errorMsg, cause));
+            }
+            final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
+            LOG.error(errorMsg, cause);
+            throw new CompletionException(new TradingApiException(errorMsg, cause));
+          }
+          final Exception statusCodeError = checkStatusCode(url, exchangeResponse);
+          recordCircuitBreakerOutcome(permit, sentAtNanos.get(), statusCodeError);
+          callMetrics.recordFirstByte(
+              call, System.nanoTime() - sentAtNanos.get(), statusCodeError);
+          if (statusCodeError != null) {
+            throw new CompletionException(statusCodeError);
+          }
+          return exchangeResponse;
+        });
+  }
+
+  /**
+   * Adapts the response to an async call, e.g. decodes it into a Trading API type, on the given
+   * executor. The returned future completes exceptionally with the Trading API exception itself,
+   * not a {@link CompletionException} wrapping it. Anything else the adapter throws is wrapped in a
+   * {@link TradingApiException}, as the blocking Trading API calls do.
+   *
+   * @param response the response to the async call.
+   * @param adapter adapts the response.
+   * @param executor runs the adapter.
+   * @param unexpectedErrorMsg the message for a wrapped exception.
+   * @param <T> the adapted type.
+   * @return the adapted response.
+   */
+  static <T> CompletableFuture<T> adaptResponseAsync(
+      CompletableFuture<ExchangeHttpResponse> response,
+      ResponseAdapter<T> adapter,
+      Executor executor,
+      String unexpectedErrorMsg) {
+
+    final CompletableFuture<T> adapted = new CompletableFuture<>();
+    response
+        .whenCompleteAsync(
+            (exchangeResponse, failure) -> {
+              if (failure != null) {
+                adapted.completeExceptionally(unwrap(failure));
+                return;
+              }
+              try {
+                adapted.complete(adapter.adapt(exchangeResponse));
+              } catch (ExchangeNetworkException | TradingApiException e) {
+                adapted.completeExceptionally(e);
+              } catch (Exception e) {
+                LOG.error(unexpectedErrorMsg, e);
+                adapted.completeExceptionally(new TradingApiException(unexpectedErrorMsg, e));
+              }
+            },
+            executor)
+        .exceptionally(
+            rejected -> {
+              // Only gets here if the executor rejected the adapter.
+              adapted.completeExceptionally(unwrap(rejected));
+              return null;
+            });
+    return adapted;
+  }
+
+  /**
+   * Adapts an Exchange response into a Trading API type.
+   *
+   * @param <T> the adapted type.
+   */
+  @FunctionalInterface
+  interface ResponseAdapter<T> {
+
+    /**
+     * Adapts the response.
+     *
+     * @param response the response from the Exchange.
+     * @return the adapted response.
+     * @throws Exception if the response cannot be adapted.
+     */
+    T adapt(ExchangeHttpResponse response) throws Exception;
+  }
+
+  /**
+   * Tells the adapter whether the response from the given URL should be left streaming from the
+   * exchange, rather than read into a String before it is returned. Adapters should only return
+   * true for URLs whose successful responses they always decode using {@link
+   * ExchangeHttpResponse#fromJson(Gson, Type)}, e.g. the order book, so the connection is always
+   * released. The default is false.
+   *
+   * @param url the URL being invoked.
+   * @return true if the response should be streamed, false otherwise.
+   */
+  boolean isStreamedResponse(URL url) {
+    return false;
+  }
+
+  /**
+   * Tells the adapter whether a 404 from the given URL is an answer, e.g. the looked up order does
+   * not exist, rather than a sign the exchange is down. Such responses are handed back to the
+   * caller instead of being thrown as an {@link ExchangeNetworkException}. The default is false.
+   *
+   * @param url the URL being invoked.
+   * @return true if a 404 response should be handed back, false otherwise.
+   */
+  boolean isNotFoundResponseExpected(URL url) {
+    return false;
+  }
+
+  /**
+   * Tells the rate limiter which class of endpoint the given call is for. Adapters should override
+   * this to pick out their public and order-entry calls. The default is {@link Endpoint#PRIVATE}.
+   *
+   * @param url the URL being invoked.
+   * @param httpMethod the HTTP method being used.
+   * @return the class of endpoint being called.
+   */
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    return Endpoint.PRIVATE;
+  }
+
+  /**
+   * Returns the rate limiter's metrics: how many calls it has throttled or rejected, and how long
+   * they waited.
+   *
+   * @return the rate limiter metrics, or null if no rate limits are configured.
+   */
+  public RateLimiterMetrics getRateLimiterMetrics() {
+    return rateLimiter;
+  }
+
+  /**
+   * Returns the circuit breaker, so its state and metrics can be read.
+   *
+   * @return the circuit breaker, or null if none is configured.
+   */
+  ExchangeCircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * Returns the state of the circuit breaker.
+   *
+   * @return the circuit breaker state, or null if none is configured.
+   */
+  public CircuitBreakerState getCircuitBreakerState() {
+    final ExchangeCircuitBreaker breaker = circuitBreaker;
+    return breaker == null ? null : breaker.getState();
+  }
+
+  /**
+   * Returns the recorder timing the adapter's Trading API calls. The time to first byte of every
+   * request sent is added to the call being timed on the sending thread.
+   *
+   * @return the call recorder.
+   */
+  public ExchangeCallRecorder getCallRecorder() {
+    return callMetrics;
   }
 
   /**
@@ -253,6 +502,28 @@ abstract class AbstractExchangeAdapter {
       nonFatalNetworkErrorMessages.addAll(nonFatalErrorMessagesFromConfig);
     }
     LOG.info(() -> NON_FATAL_ERROR_MESSAGES_PROPERTY_NAME + ": " + nonFatalNetworkErrorMessages);
+
+    connectionPoolSize = networkConfig.getConnectionPoolSize();
+    LOG.info(() -> CONNECTION_POOL_SIZE_PROPERTY_NAME + ": " + connectionPoolSize);
+
+    connectionIdleTimeout = networkConfig.getConnectionIdleTimeout();
+    LOG.info(() -> CONNECTION_IDLE_TIMEOUT_PROPERTY_NAME + ": " + connectionIdleTimeout);
+
+    rateLimiter = createRateLimiter(networkConfig);
+    LOG.info(() -> RATE_LIMITS_PROPERTY_NAME + ": " + rateLimiter);
+
+    circuitBreaker = createCircuitBreaker(networkConfig.getCircuitBreaker());
+    LOG.info(() -> CIRCUIT_BREAKER_PROPERTY_NAME + ": " + circuitBreaker);
+  }
+
+  /**
+   * Replaces the transport used to send requests to the Exchange. The default is a pooled,
+   * keep-alive {@link PooledHttpClientTransport} created on first use from the network config.
+   *
+   * @param httpTransport the transport to use.
+   */
+  void setHttpTransport(ExchangeHttpTransport httpTransport) {
+    this.httpTransport = httpTransport;
   }
 
   /**
@@ -317,6 +588,35 @@ abstract class AbstractExchangeAdapter {
     return assertItemExists(itemName, itemValue);
   }
 
+  /**
+   * Fetches the (optional) base URL from the other config. It replaces the scheme, host and port of
+   * the live exchange, e.g. to run the adapter against a mock exchange; the adapter still adds its
+   * API paths to it.
+   *
+   * @param otherConfig other config for the adapter. This can be null.
+   * @param defaultBaseUrl the base URL of the live exchange.
+   * @return the base URL from the other config if set, the default otherwise. It always ends in a
+   *     '/'.
+   * @throws IllegalArgumentException if the base URL in the other config is not a valid URL.
+   */
+  String getBaseUrl(OtherConfig otherConfig, String defaultBaseUrl) {
+    final String baseUrl = otherConfig == null ? null : otherConfig.getItem(BASE_URL_PROPERTY_NAME);
+    if (baseUrl == null || baseUrl.isBlank()) {
+      return defaultBaseUrl;
+    }
+
+    final String trimmedBaseUrl = baseUrl.trim();
+    try {
+      new URL(trimmedBaseUrl);
+    } catch (MalformedURLException e) {
+      final String errorMsg = BASE_URL_PROPERTY_NAME + " is not a valid URL: " + baseUrl;
+      LOG.error(errorMsg, e);
+      throw new IllegalArgumentException(errorMsg, e);
+    }
+    LOG.info(() -> BASE_URL_PROPERTY_NAME + ": " + trimmedBaseUrl);
+    return trimmedBaseUrl.endsWith("/") ? trimmedBaseUrl : trimmedBaseUrl + "/";
+  }
+
   /**
    * Sorts the request params alphabetically (uses natural ordering) and returns them as a query
    * string.
@@ -350,12 +650,95 @@ abstract class AbstractExchangeAdapter {
     return decimalFormatSymbols;
   }
 
-  /** Wrapper for holding Exchange HTTP response. */
+  /**
+   * Returns the connection timeout from the network config.
+   *
+   * @return the connection timeout in secs.
+   */
+  int getConnectionTimeout() {
+    return connectionTimeout;
+  }
+
+  /**
+   * Sets up the signer for authenticated API calls. Called once from the adapter's init.
+   *
+   * @param algorithm the HMAC algorithm the exchange signs with, e.g. HmacSHA512.
+   * @param secret the API secret.
+   * @throws NoSuchAlgorithmException if the algorithm is not installed.
+   * @throws InvalidKeyException if the secret is not a valid key for the algorithm.
+   */
+  void initRequestSigner(String algorithm, byte[] secret)
+      throws NoSuchAlgorithmException, InvalidKeyException {
+    requestSigner = new RequestSigner(algorithm, secret);
+  }
+
+  /**
+   * Returns the signer for authenticated API calls. It can be shared by concurrent calls.
+   *
+   * @return the signer.
+   * @throws IllegalStateException if the signer has not been set up.
+   */
+  RequestSigner getRequestSigner() {
+    final RequestSigner signer = requestSigner;
+    if (signer == null) {
+      final String errorMsg = "MAC Message security layer has not been initialized.";
+      LOG.error(errorMsg);
+      throw new IllegalStateException(errorMsg);
+    }
+    return signer;
+  }
+
+  /**
+   * Returns the nonce for the next authenticated API call. Safe to call concurrently: every call
+   * gets a nonce greater than the one before.
+   *
+   * @return the nonce.
+   */
+  long nextNonce() {
+    return nonceGenerator.next();
+  }
+
+  /**
+   * Checks the max number of order book levels requested by a Trading Strategy.
+   *
+   * @param maxLevels the max number of levels on each side of the book.
+   * @throws IllegalArgumentException if maxLevels is less than 1.
+   */
+  static void validateMaxLevels(int maxLevels) {
+    if (maxLevels < 1) {
+      throw new IllegalArgumentException("maxLevels must be at least 1 but was: " + maxLevels);
+    }
+  }
+
+  /**
+   * Returns true if the exception was thrown because the exchange answered with the given HTTP
+   * status code, e.g. a 400 when cancelling an order id it does not recognise.
+   *
+   * @param e the exception thrown by {@link #sendNetworkRequest(URL, String, String, Map)}.
+   * @param statusCode the HTTP status code.
+   * @return true if the exchange answered with the status code.
+   */
+  static boolean isHttpStatusError(Exception e, int statusCode) {
+    return e.getCause() instanceof ExchangeHttpStatusException
+        && ((ExchangeHttpStatusException) e.getCause()).getStatusCode() == statusCode;
+  }
+
+  /**
+   * Wrapper for holding Exchange HTTP response.
+   *
+   * <p>The payload is either held as a String, or as a reader over the response body that is still
+   * being received from the exchange. A streamed payload is decoded straight off the wire by {@link
+   * #fromJson(Gson, Type)}; calling {@link #getPayload()} (or logging the response) first reads it
+   * into a String instead. Once decoded from the stream, the raw payload is no longer available.
+   */
   static class ExchangeHttpResponse {
 
+    private static final String STREAMED_PAYLOAD = "<streamed>";
+
     private final int statusCode;
     private final String reasonPhrase;
-    private final String payload;
+    private String payload;
+    private Reader payloadReader;
 
     ExchangeHttpResponse(int statusCode, String reasonPhrase, String payload) {
       this.statusCode = statusCode;
@@ -363,6 +746,12 @@ abstract class AbstractExchangeAdapter {
       this.payload = payload;
     }
 
+    ExchangeHttpResponse(int statusCode, String reasonPhrase, Reader payloadReader) {
+      this.statusCode = statusCode;
+      this.reasonPhrase = reasonPhrase;
+      this.payloadReader = payloadReader;
+    }
+
     String getReasonPhrase() {
       return reasonPhrase;
     }
@@ -371,70 +760,392 @@ abstract class AbstractExchangeAdapter {
       return statusCode;
     }
 
-    String getPayload() {
+    /**
+     * Returns the raw payload, reading the rest of a streamed payload into a String if needed.
+     *
+     * @return the payload.
+     * @throws UncheckedIOException if a streamed payload could not be read.
+     */
+    synchronized String getPayload() {
+      try {
+        return readPayload();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    /**
+     * Decodes the JSON payload. A streamed payload is decoded as it arrives, without building the
+     * raw String first.
+     *
+     * @param gson the Gson instance to decode with.
+     * @param typeOfT the type to decode to.
+     * @param <T> the type to decode to.
+     * @return the decoded payload.
+     * @throws ExchangeNetworkException if the rest of a streamed payload could not be read.
+     */
+    synchronized <T> T fromJson(Gson gson, Type typeOfT) throws ExchangeNetworkException {
+      if (payloadReader == null) {
+        return gson.fromJson(payload, typeOfT);
+      }
+
+      final Reader reader = payloadReader;
+      payloadReader = null;
+      payload = STREAMED_PAYLOAD;
+      try {
+        final T decoded = gson.fromJson(reader, typeOfT);
+        reader.close();
+        return decoded;
+      } catch (JsonIOException | IOException e) {
+        closeQuietly(reader);
+        throw streamReadFailed(e);
+      } catch (JsonSyntaxException e) {
+        closeQuietly(reader);
+        // Gson reports an I/O error part way through the stream as a syntax error.
+        if (e.getCause() instanceof IOException) {
+          throw streamReadFailed(e);
+        }
+        throw e;
+      } catch (RuntimeException e) {
+        closeQuietly(reader);
+        throw e;
+      }
+    }
+
+    private static ExchangeNetworkException streamReadFailed(Exception e) {
+      final String errorMsg = "Failed to read response from Exchange.";
+      LOG.error(errorMsg, e);
+      return new ExchangeNetworkException(errorMsg, e);
+    }
+
+    private static void closeQuietly(Reader reader) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        LOG.debug("Failed to close response stream.", e);
+      }
+    }
+
+    /*
+     * Reads a streamed payload into a String. Lines are joined without their terminators, as
+     * exchange responses have always been read.
+     */
+    synchronized String readPayload() throws IOException {
+      if (payloadReader != null) {
+        try (BufferedReader reader = new BufferedReader(payloadReader)) {
+          payloadReader = null;
+          payload = reader.lines().collect(Collectors.joining());
+        } catch (UncheckedIOException e) {
+          throw e.getCause();
+        }
+      }
       return payload;
     }
 
+    synchronized boolean isPayloadStreamed() {
+      return payloadReader != null;
+    }
+
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("statusCode", statusCode)
           .add("reasonPhrase", reasonPhrase)
-          .add("payload", payload)
+          .add("payload", getPayload())
           .toString();
     }
   }
 
+  /**
+   * The cause of the exception thrown for an error status code. It keeps the status code, as the
+   * IOException thrown by the old HttpURLConnection transport did in its message.
+   */
+  static class ExchangeHttpStatusException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    ExchangeHttpStatusException(int statusCode) {
+      super("Server returned HTTP response code: " + statusCode);
+      this.statusCode = statusCode;
+    }
+
+    int getStatusCode() {
+      return statusCode;
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Util methods
   // --------------------------------------------------------------------------
 
-  private void setRequestHeaders(
-      HttpURLConnection exchangeConnection, Map<String, String> requestHeaders) {
+  private ExchangeHttpTransport getHttpTransport() {
+    ExchangeHttpTransport transport = httpTransport;
+    if (transport == null) {
+      synchronized (this) {
+        transport = httpTransport;
+        if (transport == null) {
+          transport =
+              new PooledHttpClientTransport(
+                  connectionTimeout * 1000, connectionPoolSize, connectionIdleTimeout);
+          httpTransport = transport;
+        }
+      }
+    }
+    return transport;
+  }
+
+  private ExchangeRateLimiter createRateLimiter(NetworkConfig networkConfig) {
+    final Map<String, RateLimitConfig> rateLimits = networkConfig.getRateLimits();
+    if (rateLimits == null || rateLimits.isEmpty()) {
+      return null;
+    }
+
+    // Don't wait longer for a token than we would for the exchange to answer.
+    final Integer maxRateLimitWait = networkConfig.getMaxRateLimitWait();
+    final long maxWaitInSecs = maxRateLimitWait != null ? maxRateLimitWait : connectionTimeout;
+
+    final ExchangeRateLimiter limiter =
+        new ExchangeRateLimiter(
+            ExchangeRateLimiter.Policy.fromConfig(networkConfig.getRateLimitPolicy()),
+            TimeUnit.SECONDS.toNanos(maxWaitInSecs));
+
+    for (final Map.Entry<String, RateLimitConfig> rateLimit : rateLimits.entrySet()) {
+      final RateLimitConfig rateLimitConfig = rateLimit.getValue();
+      if (rateLimitConfig == null || rateLimitConfig.getRequestsPerSecond() == null) {
+        final String errorMsg =
+            RATE_LIMITS_PROPERTY_NAME
+                + " "
+                + rateLimit.getKey()
+                + " must have a requestsPerSecond value.";
+        LOG.error(errorMsg);
+        throw new IllegalArgumentException(errorMsg);
+      }
+
+      final Endpoint endpoint;
+      try {
+        endpoint = Endpoint.fromConfig(rateLimit.getKey());
+      } catch (IllegalArgumentException e) {
+        final String errorMsg =
+            RATE_LIMITS_PROPERTY_NAME
+                + " "
+                + rateLimit.getKey()
+                + " is not one of: public, private, order-entry.";
+        LOG.error(errorMsg);
+        throw new IllegalArgumentException(errorMsg, e);
+      }
+
+      final double requestsPerSecond = rateLimitConfig.getRequestsPerSecond();
+      final Integer burst = rateLimitConfig.getBurst();
+      limiter.setRateLimit(
+          endpoint,
+          requestsPerSecond,
+          burst != null ? burst : (int) Math.max(1, Math.ceil(requestsPerSecond)));
+    }
+    return limiter;
+  }
+
+  private static ExchangeCircuitBreaker createCircuitBreaker(CircuitBreakerConfig config) {
+    if (config == null) {
+      return null;
+    }
+
+    final Integer slowCallDurationThreshold = config.getSlowCallDurationThreshold();
+    try {
+      return new ExchangeCircuitBreaker(
+          valueOrDefault(
+              config.getFailureRateThreshold(),
+              ExchangeCircuitBreaker.DEFAULT_FAILURE_RATE_THRESHOLD),
+          slowCallDurationThreshold == null
+              ? 0
+              : TimeUnit.SECONDS.toNanos(slowCallDurationThreshold),
+          valueOrDefault(
+              config.getSlowCallRateThreshold(),
+              ExchangeCircuitBreaker.DEFAULT_SLOW_CALL_RATE_THRESHOLD),
+          valueOrDefault(
+              config.getSlidingWindowSize(), ExchangeCircuitBreaker.DEFAULT_SLIDING_WINDOW_SIZE),
+          valueOrDefault(
+              config.getMinimumNumberOfCalls(),
+              ExchangeCircuitBreaker.DEFAULT_MINIMUM_NUMBER_OF_CALLS),
+          TimeUnit.SECONDS.toNanos(
+              valueOrDefault(
+                  config.getWaitDurationInOpenState(),
+                  ExchangeCircuitBreaker.DEFAULT_WAIT_DURATION_IN_OPEN_STATE)),
+          System::nanoTime);
+    } catch (IllegalArgumentException e) {
+      final String errorMsg = CIRCUIT_BREAKER_PROPERTY_NAME + " config is invalid: " + config;
+      LOG.error(errorMsg);
+      throw new IllegalArgumentException(errorMsg, e);
+    }
+  }
+
+  private static int valueOrDefault(Integer value, int defaultValue) {
+    return value != null ? value : defaultValue;
+  }
+
+  /*
+   * Returns the call's circuit breaker permit, which is handed back with the call's outcome.
+   */
+  private long acquireCircuitBreakerPermission() throws ExchangeNetworkException {
+    if (circuitBreaker == null) {
+      return ExchangeCircuitBreaker.NOT_PERMITTED;
+    }
+    final long permit = circuitBreaker.tryAcquirePermission();
+    if (permit == ExchangeCircuitBreaker.NOT_PERMITTED) {
+      LOG.error(CIRCUIT_OPEN_ERROR_MSG);
+      throw new ExchangeNetworkException(CIRCUIT_OPEN_ERROR_MSG);
+    }
+    return permit;
+  }
+
+  private void releaseCircuitBreakerPermission(long permit) {
+    if (circuitBreaker != null) {
+      circuitBreaker.releasePermission(permit);
+    }
+  }
+
+  /*
+   * Only network errors count against the exchange; an error it answered with shows it is alive.
+   */
+  private void recordCircuitBreakerOutcome(long permit, long sentAtNanos, Exception error) {
+    if (circuitBreaker == null) {
+      return;
+    }
+    final long durationNanos = System.nanoTime() - sentAtNanos;
+    if (error instanceof ExchangeNetworkException) {
+      circuitBreaker.onFailure(permit, durationNanos);
+    } else {
+      circuitBreaker.onSuccess(permit, durationNanos);
+    }
+  }
+
+  /*
+   * Maps an I/O failure onto an ExchangeNetworkException if the call can be retried, or a
+   * TradingApiException if not.
+   */
+  private Exception adaptIoException(IOException e) {
+    if (e instanceof MalformedURLException) {
+      final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
+      LOG.error(errorMsg, e);
+      return new TradingApiException(errorMsg, e);
+
+    } else if (e instanceof SocketTimeoutException || e instanceof HttpTimeoutException) {
+      final String errorMsg = IO_SOCKET_TIMEOUT_ERROR_MSG;
+      LOG.error(errorMsg, e);
+      return new ExchangeNetworkException(errorMsg, e);
+
+    } else if (exchangeIsUnreachable(e)) {
+      // Huobi started throwing FileNotFoundException as of 8 Nov 2015.
+      // EC2 started throwing UnknownHostException for BTC-e, GDAX, as of 14 July 2016 :-/
+      final String errorMsg = EXCHANGE_IS_DEAD_ERROR_MSG;
+      LOG.error(errorMsg, e);
+      return new ExchangeNetworkException(errorMsg, e);
+
+    } else if (errorMessageIsRecoverableNetworkError(e)) {
+      final String errorMsg =
+          "Failed to connect to Exchange. SSL Connection was refused or reset by the server.";
+      LOG.error(errorMsg, e);
+      return new ExchangeNetworkException(errorMsg, e);
+
+    } else {
+      // Game over!
+      final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
+      LOG.error(errorMsg, e);
+      return new TradingApiException(errorMsg, e);
+    }
+  }
+
+  /*
+   * Returns the exception for an error status code, or null if the call succeeded.
+   */
+  private Exception checkStatusCode(URL url, ExchangeHttpResponse exchangeResponse) {
+    final int statusCode = exchangeResponse.getStatusCode();
+    if (statusCode == HttpURLConnection.HTTP_NOT_FOUND && isNotFoundResponseExpected(url)) {
+      return null;
+
+    } else if (statusCode == HttpURLConnection.HTTP_NOT_FOUND
+        || statusCode == HttpURLConnection.HTTP_GONE) {
+      // The old HttpURLConnection transport surfaced these as a FileNotFoundException.
+      final String errorMsg = EXCHANGE_IS_DEAD_ERROR_MSG;
+      LOG.error(() -> errorMsg + " " + exchangeResponse);
+      return new ExchangeNetworkException(errorMsg, new ExchangeHttpStatusException(statusCode));
+
+    } else if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+      if (nonFatalNetworkErrorCodes.contains(statusCode)) {
+        final String errorMsg = IO_5XX_TIMEOUT_ERROR_MSG;
+        LOG.error(() -> errorMsg + " " + exchangeResponse);
+        return new ExchangeNetworkException(errorMsg, new ExchangeHttpStatusException(statusCode));
+
+      } else {
+        // Game over! Check for any clue in the response...
+        final String errorMsg =
+            UNEXPECTED_IO_ERROR_MSG + " ErrorStream Response: " + exchangeResponse.getPayload();
+        LOG.error(errorMsg);
+        return new TradingApiException(errorMsg, new ExchangeHttpStatusException(statusCode));
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Throws the given Trading API exception if it is an ExchangeNetworkException, else returns it
+   * as a TradingApiException to be thrown by the caller.
+   */
+  private static TradingApiException rethrow(Exception e) throws ExchangeNetworkException {
+    if (e instanceof ExchangeNetworkException) {
+      throw (ExchangeNetworkException) e;
+    } else if (e instanceof TradingApiException) {
+      return (TradingApiException) e;
+    }
+    return new TradingApiException(e.getMessage(), e);
+  }
+
+  private static Throwable unwrap(Throwable failure) {
+    return failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause()
+        : failure;
+  }
+
+  private static Map<String, String> buildRequestHeaders(Map<String, String> requestHeaders) {
+    final Map<String, String> headers = new LinkedHashMap<>();
+
     // Er, perhaps, we need to be a bit more stealth here...
     // This was needed for some exchanges back in the day!
-    exchangeConnection.setRequestProperty(
+    headers.put(
         "User-Agent",
         "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
             + "Chrome/74.0.3729.169 Safari/537.36");
 
     if (requestHeaders != null) {
       for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
-        exchangeConnection.setRequestProperty(requestHeader.getKey(), requestHeader.getValue());
+        headers.put(requestHeader.getKey(), requestHeader.getValue());
         LOG.debug(() -> "Setting following request header: " + requestHeader);
       }
     }
+    return headers;
   }
 
-  private boolean errorMessageIsRecoverableNetworkError(Exception e) {
-    return e.getMessage() != null && nonFatalNetworkErrorMessages.contains(e.getMessage());
-  }
-
-  private boolean errorCodeIsRecoverableNetworkError(HttpURLConnection exchangeConnection)
-      throws IOException {
-    return (exchangeConnection != null
-        && nonFatalNetworkErrorCodes.contains(exchangeConnection.getResponseCode()));
+  private static boolean exchangeIsUnreachable(IOException e) {
+    // The JDK HTTP client wraps a failed DNS lookup in a ConnectException.
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof FileNotFoundException
+          || cause instanceof UnknownHostException
+          || cause instanceof UnresolvedAddressException) {
+        return true;
+      }
+    }
+    return false;
   }
 
-  private String extractIoErrorMessage(HttpURLConnection exchangeConnection) throws IOException {
-    String errorMsg = UNEXPECTED_IO_ERROR_MSG;
-    // Check for any clue in the response...
-    if (exchangeConnection != null) {
-      final InputStream rawErrorStream = exchangeConnection.getErrorStream();
-      if (rawErrorStream != null) {
-        try (final BufferedReader errorInputStream =
-            new BufferedReader(new InputStreamReader(rawErrorStream, StandardCharsets.UTF_8))) {
-
-          final StringBuilder errorResponse = new StringBuilder();
-          String errorLine;
-          while ((errorLine = errorInputStream.readLine()) != null) {
-            errorResponse.append(errorLine);
-          }
-          errorMsg += " ErrorStream Response: " + errorResponse;
-        }
+  private boolean errorMessageIsRecoverableNetworkError(Exception e) {
+    // The JDK HTTP client can wrap the original I/O failure, so check the causes too.
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause.getMessage() != null && nonFatalNetworkErrorMessages.contains(cause.getMessage())) {
+        return true;
       }
     }
-    return errorMsg;
+    return false;
   }
 
   private static String assertItemExists(String itemName, String itemValue) {
@@ -26,14 +26,16 @@ package com.gazbert.bxbot.exchanges;
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
-import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
@@ -43,12 +45,13 @@ import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -59,8 +62,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -83,9 +84,8 @@ import org.apache.logging.log4j.Logger;
  * href="https://www.bitfinex.com/pages/fees">here.</a> This adapter will use the <em>Taker</em>
  * fees to keep things simple for now.
  *
- * <p>The Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single
- * thread in order to preserve trade execution order. The {@link URLConnection} achieves this by
- * blocking/waiting on the input stream (response) for each API call.
+ * <p>The Exchange Adapter is thread safe once it has been initialised; the Trading API calls can be
+ * made from more than one thread at a time.
  *
  * <p>The {@link TradingApi} calls will throw a {@link ExchangeNetworkException} if a network error
  * occurs trying to connect to the exchange. A {@link TradingApiException} is thrown for
@@ -99,10 +99,8 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
 
   private static final Logger LOG = LogManager.getLogger();
 
+  private static final String BITFINEX_BASE_URL = "https://api.bitfinex.com/";
   private static final String BITFINEX_API_VERSION = "v1";
-  private static final String PUBLIC_API_BASE_URL =
-      "https://api.bitfinex.com/" + BITFINEX_API_VERSION + "/";
-  private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
   private static final String UNEXPECTED_ERROR_MSG =
       "Unexpected error has occurred in Bitfinex Exchange Adapter. ";
@@ -127,12 +125,12 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
 
+  private String publicApiBaseUrl = BITFINEX_BASE_URL + BITFINEX_API_VERSION + "/";
+  private String authenticatedApiUrl = publicApiBaseUrl;
+
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private boolean initializedMacAuthentication = false;
-  private long nonce = 0;
 
   private Gson gson;
 
@@ -141,8 +139,8 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     LOG.info(() -> "About to initialise Bitfinex ExchangeConfig: " + config);
     setAuthenticationConfig(config);
     setNetworkConfig(config);
+    setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
     initSecureMessageLayer();
     initGson();
   }
@@ -155,36 +153,27 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws TradingApiException, ExchangeNetworkException {
+    validateMaxLevels(maxLevels);
     try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
+      // Without limits, the exchange sends its default depth of 50 levels each side.
+      final String limits =
+          maxLevels == ALL_MARKET_ORDER_LEVELS
+              ? ""
+              : "?limit_bids=" + maxLevels + "&limit_asks=" + maxLevels;
+      final ExchangeHttpResponse response =
+          sendPublicRequestToExchange("book/" + marketId + limits);
       LOG.debug(() -> "Market Orders response: " + response);
 
       final BitfinexOrderBook orderBook =
-          gson.fromJson(response.getPayload(), BitfinexOrderBook.class);
-
-      final List<MarketOrder> buyOrders = new ArrayList<>();
-      for (BitfinexMarketOrder bitfinexBuyOrder : orderBook.bids) {
-        final MarketOrder buyOrder =
-            new MarketOrderImpl(
-                OrderType.BUY,
-                bitfinexBuyOrder.price,
-                bitfinexBuyOrder.amount,
-                bitfinexBuyOrder.price.multiply(bitfinexBuyOrder.amount));
-        buyOrders.add(buyOrder);
-      }
-
-      final List<MarketOrder> sellOrders = new ArrayList<>();
-      for (BitfinexMarketOrder bitfinexSellOrder : orderBook.asks) {
-        final MarketOrder sellOrder =
-            new MarketOrderImpl(
-                OrderType.SELL,
-                bitfinexSellOrder.price,
-                bitfinexSellOrder.amount,
-                bitfinexSellOrder.price.multiply(bitfinexSellOrder.amount));
-        sellOrders.add(sellOrder);
-      }
+          response.fromJson(gson, BitfinexOrderBook.class);
 
-      return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+      return orderBook.levels.forMarket(marketId, maxLevels);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -344,7 +333,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       return true;
 
     } catch (ExchangeNetworkException | TradingApiException e) {
-      if (e.getCause() != null && e.getCause().getMessage().contains("400")) {
+      if (isHttpStatusError(e, HttpURLConnection.HTTP_BAD_REQUEST)) {
         final String errorMsg =
             "Failed to cancel order on exchange. Did not recognise Order Id: " + orderId;
         LOG.error(errorMsg, e);
@@ -503,37 +492,30 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    // The ticker is a fraction of the size of the order book.
+    final Ticker ticker = getTicker(marketId);
+    return new BestBidAskImpl(ticker.getBid(), ticker.getAsk());
+  }
+
   // --------------------------------------------------------------------------
   //  GSON classes for JSON responses.
   //  See https://www.bitfinex.com/pages/api
   // --------------------------------------------------------------------------
 
-  /** GSON class for a market Order Book. */
+  /**
+   * GSON class for a market Order Book. The bids and asks are read straight into the columns of an
+   * order book; the market is set when it is adapted. Each order's timestamp is skipped.
+   */
   private static class BitfinexOrderBook {
 
-    BitfinexMarketOrder[] bids;
-    BitfinexMarketOrder[] asks;
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this).add("bids", bids).add("asks", asks).toString();
-    }
-  }
-
-  /** GSON class for a Market Order. */
-  private static class BitfinexMarketOrder {
-
-    BigDecimal price;
-    BigDecimal amount;
-    String timestamp;
-
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add(PRICE, price)
-          .add(AMOUNT, amount)
-          .add(TIMESTAMP, timestamp)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("levels", levels).toString();
     }
   }
 
@@ -547,69 +529,34 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
 
     long id;
     String symbol;
-    String exchange;
     BigDecimal price;
-
-    @SerializedName("avg_execution_price")
-    BigDecimal avgExecutionPrice;
-
     String side; // e.g. "sell"
     String type; // e.g. "exchange limit"
     String timestamp;
-
-    @SerializedName("is_live")
-    boolean isLive;
-
-    @SerializedName("is_cancelled")
-    boolean isCancelled;
-
-    @SerializedName("is_hidden")
-    boolean isHidden;
-
-    @SerializedName("was_forced")
-    boolean wasForced;
-
-    @SerializedName("original_amount")
     BigDecimal originalAmount;
-
-    @SerializedName("remaining_amount")
     BigDecimal remainingAmount;
 
-    @SerializedName("executed_amount")
-    BigDecimal executedAmount;
-
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
-          .add(ID, id)
-          .add(SYMBOL, symbol)
-          .add(EXCHANGE, exchange)
-          .add(PRICE, price)
-          .add(AVG_EXECUTION_PRICE, avgExecutionPrice)
+          .add("id", id)
+          .add("symbol", symbol)
+          .add("price", price)
           .add("side", side)
           .add("type", type)
-          .add(TIMESTAMP, timestamp)
-          .add(IS_LIVE, isLive)
-          .add(IS_CANCELLED, isCancelled)
-          .add(IS_HIDDEN, isHidden)
-          .add(WAS_FORCED, wasForced)
-          .add(ORIGINAL_AMOUNT, originalAmount)
-          .add(REMAINING_AMOUNT, remainingAmount)
-          .add(EXECUTED_AMOUNT, executedAmount)
+          .add("timestamp", timestamp)
+          .add("originalAmount", originalAmount)
+          .add("remainingAmount", remainingAmount)
           .toString();
     }
   }
 
-  /** GSON class for a Bitfinex 'pubticker' API call response. */
+  /** GSON class for a Bitfinex 'pubticker' API call response. The mid price is skipped. */
   private static class BitfinexTicker {
 
-    BigDecimal mid;
     BigDecimal bid;
     BigDecimal ask;
-
-    @SerializedName("last_price")
     BigDecimal lastPrice;
-
     BigDecimal low;
     BigDecimal high;
     BigDecimal volume;
@@ -618,14 +565,13 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
-          .add("mid", mid)
           .add("bid", bid)
           .add("ask", ask)
           .add("lastPrice", lastPrice)
           .add("low", low)
           .add("high", high)
           .add("volume", volume)
-          .add(TIMESTAMP, timestamp)
+          .add("timestamp", timestamp)
           .toString();
     }
   }
@@ -635,7 +581,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
    *
    * <p>This is a lot of work to just get the exchange fees!
    *
-   * <p>We want the taker fees.
+   * <p>We want the taker fees; the maker fees and the fees per pair are skipped.
    *
    * <pre>
    *  [
@@ -670,47 +616,11 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
   /** GSON class for holding Bitfinex Account Info. */
   private static class BitfinexAccountInfo {
 
-    @SerializedName("maker_fees")
-    BigDecimal makerFees;
-
-    @SerializedName("taker_fees")
-    BigDecimal takerFees;
-
-    BitfinexPairFees fees;
-
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("makerFees", makerFees)
-          .add("takerFees", takerFees)
-          .add("fees", fees)
-          .toString();
-    }
-  }
-
-  /** GSON class for holding Bitfinex Pair Fees. */
-  private static class BitfinexPairFees extends ArrayList<BitfinexPairFee> {
-    private static final long serialVersionUID = 1516526641473401953L;
-  }
-
-  /** GSON class for holding Bitfinex Pair Fee. */
-  private static class BitfinexPairFee {
-
-    String pairs;
-
-    @SerializedName("maker_fees")
-    BigDecimal makerFees;
-
-    @SerializedName("taker_fees")
     BigDecimal takerFees;
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("pairs", pairs)
-          .add("makerFees", makerFees)
-          .add("takerFees", takerFees)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("takerFees", takerFees).toString();
     }
   }
 
@@ -755,7 +665,6 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
 
     String type;
     String currency;
-    BigDecimal amount;
     BigDecimal available;
 
     @Override
@@ -763,129 +672,230 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       return MoreObjects.toStringHelper(this)
           .add("type", type)
           .add("currency", currency)
-          .add(AMOUNT, amount)
           .add("available", available)
           .toString();
     }
   }
 
-  /** GSON class for Bitfinex 'order/new' response. */
+  /** GSON class for Bitfinex 'order/new' response. Only the order id is used. */
   private static class BitfinexNewOrderResponse {
 
-    long id; // same as order_id
-    String symbol;
-    String exchange;
-    BigDecimal price;
-
-    @SerializedName("avg_execution_price")
-    BigDecimal avgExecutionPrice;
-
-    String side; // e.g. "sell"
-    String type; // e.g. "exchange limit"
-    String timestamp;
-
-    @SerializedName("is_live")
-    boolean isLive;
-
-    @SerializedName("is_cancelled")
-    boolean isCancelled;
+    long orderId; // same as id
 
-    @SerializedName("is_hidden")
-    boolean isHidden;
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("orderId", orderId).toString();
+    }
+  }
 
-    @SerializedName("was_forced")
-    boolean wasForced;
+  /** GSON class for Bitfinex 'order/cancel' response. Only the id is used. */
+  private static class BitfinexCancelOrderResponse {
 
-    @SerializedName("original_amount")
-    BigDecimal originalAmount;
+    long id; // only get this param; there is no order_id
 
-    @SerializedName("remaining_amount")
-    BigDecimal remainingAmount;
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this).add("id", id).toString();
+    }
+  }
 
-    @SerializedName("executed_amount")
-    BigDecimal executedAmount;
+  // --------------------------------------------------------------------------
+  //  GSON type adapters for JSON responses.
+  //  They read the fields above and skip everything else.
+  // --------------------------------------------------------------------------
 
-    @SerializedName("order_id")
-    long orderId; // same as id
+  /** Reads a Bitfinex order book response. */
+  private static class BitfinexOrderBookTypeAdapter
+      extends ResponseTypeAdapter<BitfinexOrderBook> {
 
     @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add(ID, id)
-          .add(SYMBOL, symbol)
-          .add(EXCHANGE, exchange)
-          .add(PRICE, price)
-          .add(AVG_EXECUTION_PRICE, avgExecutionPrice)
-          .add("side", side)
-          .add("type", type)
-          .add(TIMESTAMP, timestamp)
-          .add(IS_LIVE, isLive)
-          .add(IS_CANCELLED, isCancelled)
-          .add(IS_HIDDEN, isHidden)
-          .add(WAS_FORCED, wasForced)
-          .add(ORIGINAL_AMOUNT, originalAmount)
-          .add(REMAINING_AMOUNT, remainingAmount)
-          .add(EXECUTED_AMOUNT, executedAmount)
-          .add("orderId", orderId)
-          .toString();
+    BitfinexOrderBook readValue(JsonReader in) throws IOException {
+      final BitfinexOrderBook orderBook = new BitfinexOrderBook();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bids":
+            nextObjectLevels(in, "price", "amount", orderBook.levels::addBuyOrder);
+            break;
+          case "asks":
+            nextObjectLevels(in, "price", "amount", orderBook.levels::addSellOrder);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return orderBook;
     }
   }
 
-  /** GSON class for Bitfinex 'order/cancel' response. */
-  private static class BitfinexCancelOrderResponse {
+  /** Reads an order from a Bitfinex 'orders' response. */
+  private static class BitfinexOpenOrderTypeAdapter
+      extends ResponseTypeAdapter<BitfinexOpenOrder> {
 
-    long id; // only get this param; there is no order_id
-    String symbol;
-    String exchange;
-    BigDecimal price;
+    @Override
+    BitfinexOpenOrder readValue(JsonReader in) throws IOException {
+      final BitfinexOpenOrder openOrder = new BitfinexOpenOrder();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            openOrder.id = nextLong(in, 0);
+            break;
+          case "symbol":
+            openOrder.symbol = nextString(in);
+            break;
+          case "price":
+            openOrder.price = nextBigDecimal(in);
+            break;
+          case "side":
+            openOrder.side = nextString(in);
+            break;
+          case "type":
+            openOrder.type = nextString(in);
+            break;
+          case "timestamp":
+            openOrder.timestamp = nextString(in);
+            break;
+          case "original_amount":
+            openOrder.originalAmount = nextBigDecimal(in);
+            break;
+          case "remaining_amount":
+            openOrder.remainingAmount = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return openOrder;
+    }
+  }
 
-    @SerializedName("avg_execution_price")
-    BigDecimal avgExecutionPrice;
+  /** Reads a Bitfinex 'pubticker' response. */
+  private static class BitfinexTickerTypeAdapter extends ResponseTypeAdapter<BitfinexTicker> {
 
-    String side; // e.g. "sell"
-    String type; // e.g. "exchange limit"
-    String timestamp;
+    @Override
+    BitfinexTicker readValue(JsonReader in) throws IOException {
+      final BitfinexTicker ticker = new BitfinexTicker();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bid":
+            ticker.bid = nextBigDecimal(in);
+            break;
+          case "ask":
+            ticker.ask = nextBigDecimal(in);
+            break;
+          case "last_price":
+            ticker.lastPrice = nextBigDecimal(in);
+            break;
+          case "low":
+            ticker.low = nextBigDecimal(in);
+            break;
+          case "high":
+            ticker.high = nextBigDecimal(in);
+            break;
+          case "volume":
+            ticker.volume = nextBigDecimal(in);
+            break;
+          case "timestamp":
+            ticker.timestamp = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return ticker;
+    }
+  }
 
-    @SerializedName("is_live")
-    boolean isLive;
+  /** Reads an account from a Bitfinex 'account_infos' response. */
+  private static class BitfinexAccountInfoTypeAdapter
+      extends ResponseTypeAdapter<BitfinexAccountInfo> {
 
-    @SerializedName("is_cancelled")
-    boolean isCancelled;
+    @Override
+    BitfinexAccountInfo readValue(JsonReader in) throws IOException {
+      final BitfinexAccountInfo accountInfo = new BitfinexAccountInfo();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("taker_fees".equals(in.nextName())) {
+          accountInfo.takerFees = nextBigDecimal(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return accountInfo;
+    }
+  }
 
-    @SerializedName("is_hidden")
-    boolean isHidden;
+  /** Reads an account balance from a Bitfinex 'balances' response. */
+  private static class BitfinexAccountBalanceTypeAdapter
+      extends ResponseTypeAdapter<BitfinexAccountBalance> {
 
-    @SerializedName("was_forced")
-    boolean wasForced;
+    @Override
+    BitfinexAccountBalance readValue(JsonReader in) throws IOException {
+      final BitfinexAccountBalance accountBalance = new BitfinexAccountBalance();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "type":
+            accountBalance.type = nextString(in);
+            break;
+          case "currency":
+            accountBalance.currency = nextString(in);
+            break;
+          case "available":
+            accountBalance.available = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return accountBalance;
+    }
+  }
 
-    @SerializedName("original_amount")
-    BigDecimal originalAmount;
+  /** Reads a Bitfinex 'order/new' response. */
+  private static class BitfinexNewOrderResponseTypeAdapter
+      extends ResponseTypeAdapter<BitfinexNewOrderResponse> {
 
-    @SerializedName("remaining_amount")
-    BigDecimal remainingAmount;
+    @Override
+    BitfinexNewOrderResponse readValue(JsonReader in) throws IOException {
+      final BitfinexNewOrderResponse newOrderResponse = new BitfinexNewOrderResponse();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("order_id".equals(in.nextName())) {
+          newOrderResponse.orderId = nextLong(in, 0);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return newOrderResponse;
+    }
+  }
 
-    @SerializedName("executed_amount")
-    BigDecimal executedAmount;
+  /** Reads a Bitfinex 'order/cancel' response. */
+  private static class BitfinexCancelOrderResponseTypeAdapter
+      extends ResponseTypeAdapter<BitfinexCancelOrderResponse> {
 
     @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add(ID, id)
-          .add(SYMBOL, symbol)
-          .add(EXCHANGE, exchange)
-          .add(PRICE, price)
-          .add(AVG_EXECUTION_PRICE, avgExecutionPrice)
-          .add("side", side)
-          .add("type", type)
-          .add(TIMESTAMP, timestamp)
-          .add(IS_LIVE, isLive)
-          .add(IS_CANCELLED, isCancelled)
-          .add(IS_HIDDEN, isHidden)
-          .add(WAS_FORCED, wasForced)
-          .add(ORIGINAL_AMOUNT, originalAmount)
-          .add(REMAINING_AMOUNT, remainingAmount)
-          .add(EXECUTED_AMOUNT, executedAmount)
-          .toString();
+    BitfinexCancelOrderResponse readValue(JsonReader in) throws IOException {
+      final BitfinexCancelOrderResponse cancelOrderResponse = new BitfinexCancelOrderResponse();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("id".equals(in.nextName())) {
+          cancelOrderResponse.id = nextLong(in, 0);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return cancelOrderResponse;
     }
   }
 
@@ -893,10 +903,27 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
   //  Transport layer methods
   // --------------------------------------------------------------------------
 
+  @Override
+  boolean isStreamedResponse(URL url) {
+    // The order book is always decoded straight off the wire.
+    return url.getPath().contains("/book/");
+  }
+
+  @Override
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/order/")) {
+      return Endpoint.ORDER_ENTRY;
+    }
+    return path.contains("/book/") || path.contains("/pubticker/")
+        ? Endpoint.PUBLIC
+        : Endpoint.PRIVATE;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
       throws ExchangeNetworkException, TradingApiException {
     try {
-      final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
+      final URL url = new URL(publicApiBaseUrl + apiMethod);
       return makeNetworkRequest(url, "GET", null, createHeaderParamMap());
 
     } catch (MalformedURLException e) {
@@ -936,11 +963,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       String apiMethod, Map<String, Object> params)
       throws ExchangeNetworkException, TradingApiException {
 
-    if (!initializedMacAuthentication) {
-      final String errorMsg = "MAC Message security layer has not been initialized.";
-      LOG.error(errorMsg);
-      throw new IllegalStateException(errorMsg);
-    }
+    final RequestSigner signer = getRequestSigner();
 
     try {
       if (params == null) {
@@ -949,8 +972,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       }
 
       // nonce is required by Bitfinex in every request
-      params.put("nonce", Long.toString(nonce));
-      nonce++; // increment ready for next call.
+      params.put("nonce", Long.toString(nextNonce()));
 
       // must include the method in request param too
       params.put("request", "/" + BITFINEX_API_VERSION + "/" + apiMethod);
@@ -968,21 +990,19 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
       requestHeaders.put("X-BFX-PAYLOAD", base64payload);
 
       // Add the signature
-      mac.reset(); // force reset
-      mac.update(base64payload.getBytes(StandardCharsets.UTF_8));
-
       /*
        * signature = HMAC-SHA384(payload, api-secret) as hexadecimal - MUST be in LOWERCASE else
        * signature fails. See:
        * http://bitcoin.stackexchange.com/questions/25835/bitfinex-api-call-returns-400-bad-request
        */
-      final String signature = toHex(mac.doFinal()).toLowerCase();
+      final String signature =
+          toHex(signer.sign(base64payload.getBytes(StandardCharsets.UTF_8))).toLowerCase();
       requestHeaders.put("X-BFX-SIGNATURE", signature);
 
       // payload is JSON for this exchange
       requestHeaders.put("Content-Type", "application/json");
 
-      final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
+      final URL url = new URL(authenticatedApiUrl + apiMethod);
       return makeNetworkRequest(url, "POST", paramsInJson, requestHeaders);
 
     } catch (MalformedURLException e) {
@@ -1008,11 +1028,7 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA384");
-      mac = Mac.getInstance("HmacSHA384");
-      mac.init(keyspec);
-      initializedMacAuthentication = true;
+      initRequestSigner("HmacSHA384", secret.getBytes(StandardCharsets.UTF_8));
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
       LOG.error(errorMsg, e);
@@ -1034,12 +1050,43 @@ public final class BitfinexExchangeAdapter extends AbstractExchangeAdapter
     secret = getAuthenticationConfigItem(authenticationConfig, SECRET_PROPERTY_NAME);
   }
 
+  private void setOtherConfig(ExchangeConfig exchangeConfig) {
+    // Optional for this adapter, so not fetched with getOtherConfig.
+    final OtherConfig otherConfig = exchangeConfig.getOtherConfig();
+    publicApiBaseUrl = getBaseUrl(otherConfig, BITFINEX_BASE_URL) + BITFINEX_API_VERSION + "/";
+    authenticatedApiUrl = publicApiBaseUrl;
+  }
+
   // --------------------------------------------------------------------------
   //  Util methods
   // --------------------------------------------------------------------------
 
   private void initGson() {
+    final BitfinexOpenOrderTypeAdapter openOrderTypeAdapter = new BitfinexOpenOrderTypeAdapter();
+    final BitfinexAccountInfoTypeAdapter accountInfoTypeAdapter =
+        new BitfinexAccountInfoTypeAdapter();
+    final BitfinexAccountBalanceTypeAdapter accountBalanceTypeAdapter =
+        new BitfinexAccountBalanceTypeAdapter();
+
     final GsonBuilder gsonBuilder = new GsonBuilder();
+    gsonBuilder.registerTypeAdapter(BitfinexOrderBook.class, new BitfinexOrderBookTypeAdapter());
+    gsonBuilder.registerTypeAdapter(BitfinexOpenOrder.class, openOrderTypeAdapter);
+    gsonBuilder.registerTypeAdapter(
+        BitfinexOpenOrders.class,
+        ResponseTypeAdapter.listAdapter(BitfinexOpenOrders::new, openOrderTypeAdapter::read));
+    gsonBuilder.registerTypeAdapter(BitfinexTicker.class, new BitfinexTickerTypeAdapter());
+    gsonBuilder.registerTypeAdapter(BitfinexAccountInfo.class, accountInfoTypeAdapter);
+    gsonBuilder.registerTypeAdapter(
+        BitfinexAccountInfos.class,
+        ResponseTypeAdapter.listAdapter(BitfinexAccountInfos::new, accountInfoTypeAdapter::read));
+    gsonBuilder.registerTypeAdapter(BitfinexAccountBalance.class, accountBalanceTypeAdapter);
+    gsonBuilder.registerTypeAdapter(
+        BitfinexBalances.class,
+        ResponseTypeAdapter.listAdapter(BitfinexBalances::new, accountBalanceTypeAdapter::read));
+    gsonBuilder.registerTypeAdapter(
+        BitfinexNewOrderResponse.class, new BitfinexNewOrderResponseTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        BitfinexCancelOrderResponse.class, new BitfinexCancelOrderResponseTypeAdapter());
     gson = gsonBuilder.create();
   }
 
@@ -26,14 +26,17 @@ package com.gazbert.bxbot.exchanges;
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
-import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
@@ -43,18 +46,14 @@ import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
-import com.google.gson.annotations.SerializedName;
-import java.lang.reflect.Field;
-import java.lang.reflect.Type;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
@@ -67,8 +66,11 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -88,14 +90,22 @@ import org.apache.logging.log4j.Logger;
  *     {"error": "Order not found"}
  * </pre>
  *
- * <p>This Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single
- * thread in order to preserve trade execution order. The {@link URLConnection} achieves this by
- * blocking/waiting on the input stream (response) for each API call.
+ * <p>This Exchange Adapter is thread safe once it has been initialised; the Trading API calls can
+ * be made from more than one thread at a time. {@link #async(Executor)} returns a Trading API
+ * that sends the calls without blocking a thread on the exchange.
  *
  * <p>The {@link TradingApi} calls will throw a {@link ExchangeNetworkException} if a network error
  * occurs trying to connect to the exchange. A {@link TradingApiException} is thrown for
  * <em>all</em> other failures.
  *
+ * <p>The fees come back with the balances. They are cached for the {@code fee-cache-ttl} set in
+ * the optional {@code otherConfig} (in secs, default 1 hour; 0 turns the cache off), and refreshed
+ * in the background before they expire. Every balance fetch refreshes them too.
+ *
+ * <p>Orders placed with a client order id are sent with Bitstamp's {@code client_order_id}, which
+ * comes back in the open orders response. Orders are looked up by client order id with the {@code
+ * order_status} call, which finds them whether they are open, filled or cancelled.
+ *
  * <p>NOTE: Bitstamp requires all price values to be limited to 2 decimal places when creating
  * orders. This adapter truncates any prices with more than 2 decimal places and rounds using {@link
  * java.math.RoundingMode#HALF_EVEN}, E.g. 250.176 would be sent to the exchange as 250.18.
@@ -107,7 +117,8 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
 
   private static final Logger LOG = LogManager.getLogger();
 
-  private static final String API_BASE_URL = "https://www.bitstamp.net/api/v2/";
+  private static final String BITSTAMP_BASE_URL = "https://www.bitstamp.net/";
+  private static final String API_PATH = "api/v2/";
 
   private static final String UNEXPECTED_ERROR_MSG =
       "Unexpected error has occurred in Bitstamp Exchange Adapter. ";
@@ -116,29 +127,37 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
 
   private static final String AMOUNT = "amount";
   private static final String BALANCE = "balance";
+  private static final String CLIENT_ORDER_ID = "client_order_id";
+  private static final String ORDER_NOT_FOUND_ERROR = "Order not found";
   private static final String PRICE = "price";
 
   private static final String CLIENT_ID_PROPERTY_NAME = "client-id";
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
+  private static final String FEE_CACHE_TTL_PROPERTY_NAME = "fee-cache-ttl";
+
+  private static final long DEFAULT_FEE_CACHE_TTL_SECS = 3600;
+
+  private String apiBaseUrl = BITSTAMP_BASE_URL + API_PATH;
 
   private String clientId = "";
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private long nonce = 0;
-  private boolean initializedMacAuthentication = false;
 
   private Gson gson;
 
+  private long feeCacheTtlNanos;
+  private volatile BitstampFeeSchedule feeSchedule;
+  private final AtomicBoolean feeScheduleRefreshing = new AtomicBoolean();
+
   @Override
   public void init(ExchangeConfig config) {
     LOG.info(() -> "About to initialise Bitstamp ExchangeConfig: " + config);
     setAuthenticationConfig(config);
     setNetworkConfig(config);
+    setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
     initSecureMessageLayer();
     initGson();
   }
@@ -151,38 +170,16 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
-    try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("order_book/" + marketId);
-      LOG.debug(() -> "Market Orders response: " + response);
-
-      final BitstampOrderBook bitstampOrderBook =
-          gson.fromJson(response.getPayload(), BitstampOrderBook.class);
-
-      final List<MarketOrder> buyOrders = new ArrayList<>();
-      final List<List<BigDecimal>> bitstampBuyOrders = bitstampOrderBook.bids;
-      for (final List<BigDecimal> order : bitstampBuyOrders) {
-        final MarketOrder buyOrder =
-            new MarketOrderImpl(
-                OrderType.BUY,
-                order.get(0), // price
-                order.get(1), // quantity
-                order.get(0).multiply(order.get(1)));
-        buyOrders.add(buyOrder);
-      }
-
-      final List<MarketOrder> sellOrders = new ArrayList<>();
-      final List<List<BigDecimal>> bitstampSellOrders = bitstampOrderBook.asks;
-      for (final List<BigDecimal> order : bitstampSellOrders) {
-        final MarketOrder sellOrder =
-            new MarketOrderImpl(
-                OrderType.SELL,
-                order.get(0), // price
-                order.get(1), // quantity
-                order.get(0).multiply(order.get(1)));
-        sellOrders.add(sellOrder);
-      }
+    return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+  }
 
-      return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws TradingApiException, ExchangeNetworkException {
+    validateMaxLevels(maxLevels);
+    try {
+      return adaptMarketOrders(
+          sendPublicRequestToExchange("order_book/" + marketId), marketId, maxLevels);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -197,40 +194,8 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   public List<OpenOrder> getYourOpenOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
     try {
-      final ExchangeHttpResponse response =
-          sendAuthenticatedRequestToExchange("open_orders/" + marketId, null);
-      LOG.debug(() -> "Open Orders response: " + response);
-
-      final BitstampOrderResponse[] myOpenOrders =
-          gson.fromJson(response.getPayload(), BitstampOrderResponse[].class);
-
-      // No need to filter on marketId; exchange does this for us.
-      final List<OpenOrder> ordersToReturn = new ArrayList<>();
-      for (final BitstampOrderResponse openOrder : myOpenOrders) {
-        OrderType orderType;
-        if (openOrder.type == 0) {
-          orderType = OrderType.BUY;
-        } else if (openOrder.type == 1) {
-          orderType = OrderType.SELL;
-        } else {
-          throw new TradingApiException(
-              "Unrecognised order type received in getYourOpenOrders(). Value: " + openOrder.type);
-        }
-
-        final OpenOrder order =
-            new OpenOrderImpl(
-                Long.toString(openOrder.id),
-                openOrder.datetime,
-                marketId,
-                orderType,
-                openOrder.price,
-                openOrder.amount,
-                null, // orig_quantity - not provided by stamp :-(
-                openOrder.price.multiply(openOrder.amount) // total - not provided by stamp :-(
-                );
-        ordersToReturn.add(order);
-      }
-      return ordersToReturn;
+      return adaptYourOpenOrders(
+          sendAuthenticatedRequestToExchange("open_orders/" + marketId, null), marketId);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -245,47 +210,49 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
-    try {
-      final Map<String, String> params = createRequestParamMap();
+    return createOrder(marketId, orderType, quantity, price, null);
+  }
 
-      // note we need to limit price to 2 decimal places else exchange will barf
-      params.put(PRICE, new DecimalFormat("#.##", getDecimalFormatSymbols()).format(price));
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final Map<String, String> params = createOrderParams(quantity, price, clientOrderId);
+      return adaptCreateOrder(
+          sendAuthenticatedRequestToExchange(createOrderApiMethod(marketId, orderType), params));
 
-      // note we need to limit amount to 8 decimal places else exchange will barf
-      params.put(
-          AMOUNT, new DecimalFormat("#.########", getDecimalFormatSymbols()).format(quantity));
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
 
-      final ExchangeHttpResponse response;
-      if (orderType == OrderType.BUY) {
-        // buying BTC
-        response = sendAuthenticatedRequestToExchange("buy/" + marketId, params);
-      } else if (orderType == OrderType.SELL) {
-        // selling BTC
-        response = sendAuthenticatedRequestToExchange("sell/" + marketId, params);
-      } else {
-        final String errorMsg =
-            "Invalid order type: "
-                + orderType
-                + " - Can only be "
-                + OrderType.BUY.getStringValue()
-                + " or "
-                + OrderType.SELL.getStringValue();
-        LOG.error(errorMsg);
-        throw new IllegalArgumentException(errorMsg);
-      }
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
 
-      LOG.debug(() -> "Create Order response: " + response);
+  /*
+   * Bitstamp echoes the client_order_id back in the open_orders response.
+   */
+  @Override
+  public boolean supportsClientOrderIds() {
+    return true;
+  }
 
-      final BitstampOrderResponse createOrderResponse =
-          gson.fromJson(response.getPayload(), BitstampOrderResponse.class);
-      final long id = createOrderResponse.id;
-      if (id == 0) {
-        final String errorMsg = "Failed to place order on exchange. Error response: " + response;
-        LOG.error(errorMsg);
-        throw new TradingApiException(errorMsg);
-      } else {
-        return Long.toString(createOrderResponse.id);
-      }
+  /*
+   * marketId is not needed for looking up orders on this exchange.
+   */
+  @Override
+  public String getOrderIdByClientOrderId(String marketIdNotNeeded, String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final Map<String, String> params = createRequestParamMap();
+      params.put(CLIENT_ORDER_ID, clientOrderId);
+      return adaptOrderStatus(sendAuthenticatedRequestToExchange("order_status", params));
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -305,20 +272,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     try {
       final Map<String, String> params = createRequestParamMap();
       params.put("id", orderId);
-
-      final ExchangeHttpResponse response =
-          sendAuthenticatedRequestToExchange("cancel_order", params);
-      LOG.debug(() -> "Cancel Order response: " + response);
-
-      final BitstampCancelOrderResponse cancelOrderResponse =
-          gson.fromJson(response.getPayload(), BitstampCancelOrderResponse.class);
-      if (!orderId.equals(String.valueOf(cancelOrderResponse.id))) {
-        final String errorMsg = "Failed to cancel order on exchange. Error response: " + response;
-        LOG.error(errorMsg);
-        return false;
-      } else {
-        return true;
-      }
+      return adaptCancelOrder(sendAuthenticatedRequestToExchange("cancel_order", params), orderId);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -333,12 +287,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   public BigDecimal getLatestMarketPrice(String marketId)
       throws TradingApiException, ExchangeNetworkException {
     try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("ticker/" + marketId);
-      LOG.debug(() -> "Latest Market Price response: " + response);
-
-      final BitstampTicker bitstampTicker =
-          gson.fromJson(response.getPayload(), BitstampTicker.class);
-      return bitstampTicker.last;
+      return adaptLatestMarketPrice(sendPublicRequestToExchange("ticker/" + marketId));
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -352,26 +301,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   @Override
   public BalanceInfo getBalanceInfo() throws TradingApiException, ExchangeNetworkException {
     try {
-      final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange(BALANCE, null);
-      LOG.debug(() -> "Balance Info response: " + response);
-
-      final BitstampBalance balances = gson.fromJson(response.getPayload(), BitstampBalance.class);
-
-      final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
-      balancesAvailable.put("BTC", balances.btcAvailable);
-      balancesAvailable.put("USD", balances.usdAvailable);
-      balancesAvailable.put("EUR", balances.eurAvailable);
-      balancesAvailable.put("LTC", balances.ltcAvailable);
-      balancesAvailable.put("XRP", balances.xrpAvailable);
-
-      final Map<String, BigDecimal> balancesOnOrder = new HashMap<>();
-      balancesOnOrder.put("BTC", balances.btcReserved);
-      balancesOnOrder.put("USD", balances.usdReserved);
-      balancesOnOrder.put("EUR", balances.eurReserved);
-      balancesOnOrder.put("LTC", balances.ltcReserved);
-      balancesOnOrder.put("XRP", balances.xrpReserved);
-
-      return new BalanceInfoImpl(balancesAvailable, balancesOnOrder);
+      return adaptBalanceInfo(sendAuthenticatedRequestToExchange(BALANCE, null));
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -386,30 +316,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId)
       throws TradingApiException, ExchangeNetworkException {
     try {
-      final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange(BALANCE, null);
-      LOG.debug(() -> "Buy Fee response: " + response);
-
-      final BitstampBalance balances = gson.fromJson(response.getPayload(), BitstampBalance.class);
-
-      // Ouch!
-      final Class<?> clazz = balances.getClass();
-      final Field[] fields = clazz.getDeclaredFields();
-      for (final Field field : fields) {
-        if (field.getName().startsWith(marketId)) {
-          final BigDecimal fee = (BigDecimal) field.get(balances);
-          // adapt the % into BigDecimal format
-          return fee.divide(new BigDecimal("100"), 8, RoundingMode.HALF_UP);
-        }
-      }
-
-      final String errorMsg =
-          "Unable to map marketId to currency balances returned from the Exchange. "
-              + "MarketId: "
-              + marketId
-              + " BitstampBalances: "
-              + balances;
-      LOG.error(errorMsg);
-      throw new IllegalArgumentException(errorMsg);
+      return getFeeSchedule().getFee(marketId);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -424,30 +331,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId)
       throws TradingApiException, ExchangeNetworkException {
     try {
-      final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange(BALANCE, null);
-      LOG.debug(() -> "Sell Fee response: " + response);
-
-      final BitstampBalance balances = gson.fromJson(response.getPayload(), BitstampBalance.class);
-
-      // Ouch!
-      final Class<?> clazz = balances.getClass();
-      final Field[] fields = clazz.getDeclaredFields();
-      for (final Field field : fields) {
-        if (field.getName().startsWith(marketId) && field.getName().endsWith("Fee")) {
-          final BigDecimal fee = (BigDecimal) field.get(balances);
-          // adapt the % into BigDecimal format
-          return fee.divide(new BigDecimal("100"), 8, RoundingMode.HALF_UP);
-        }
-      }
-
-      final String errorMsg =
-          "Unable to map marketId to currency balances returned from the Exchange. "
-              + "MarketId: "
-              + marketId
-              + " BitstampBalances: "
-              + balances;
-      LOG.error(errorMsg);
-      throw new IllegalArgumentException(errorMsg);
+      return getFeeSchedule().getFee(marketId);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -465,23 +349,8 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
 
   @Override
   public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
-
     try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("ticker/" + marketId);
-      LOG.debug(() -> "Ticker response: " + response);
-
-      final BitstampTicker bitstampTicker =
-          gson.fromJson(response.getPayload(), BitstampTicker.class);
-      return new TickerImpl(
-          bitstampTicker.last,
-          bitstampTicker.bid,
-          bitstampTicker.ask,
-          bitstampTicker.low,
-          bitstampTicker.high,
-          bitstampTicker.open,
-          bitstampTicker.volume,
-          bitstampTicker.vwap,
-          bitstampTicker.timestamp);
+      return adaptTicker(sendPublicRequestToExchange("ticker/" + marketId));
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -492,121 +361,496 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     }
   }
 
-  // --------------------------------------------------------------------------
-  //  GSON classes for JSON responses.
-  //  See https://www.bitstamp.net/api/
-  // --------------------------------------------------------------------------
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    // The ticker is a fraction of the size of the order book.
+    final Ticker ticker = getTicker(marketId);
+    return new BestBidAskImpl(ticker.getBid(), ticker.getAsk());
+  }
 
   /**
-   * GSON class for holding Bitstamp Balance response from balance API call. Updated for v2 API -
-   * markets correct as of 25 June 2017. Well this is fun - why not return a map of reserved, map of
-   * available, etc... ;-(
+   * Returns a non-blocking Trading API for Bitstamp. Requests are sent with the HTTP client's own
+   * non-blocking I/O, so no thread waits on the exchange; the executor is only used to decode the
+   * responses.
+   *
+   * @param executor decodes the exchange responses.
+   * @return the async Trading API.
    */
-  private static class BitstampBalance {
+  @Override
+  public AsyncTradingApi async(Executor executor) {
+    return new BitstampAsyncTradingApi(executor);
+  }
 
-    @SerializedName("btc_available")
-    BigDecimal btcAvailable;
+  // --------------------------------------------------------------------------
+  //  Async Bitstamp API Calls adapted to the Trading API.
+  //  They share the request building and response adapting with the blocking calls.
+  // --------------------------------------------------------------------------
 
-    @SerializedName("btc_balance")
-    BigDecimal btcBalance;
+  /** The non-blocking Bitstamp Trading API. */
+  private class BitstampAsyncTradingApi implements AsyncTradingApi {
 
-    @SerializedName("btc_reserved")
-    BigDecimal btcReserved;
+    private final Executor executor;
 
-    @SerializedName("btceur_fee")
-    BigDecimal btceurFee;
+    BitstampAsyncTradingApi(Executor executor) {
+      this.executor = executor;
+    }
 
-    @SerializedName("btcusd_fee")
-    BigDecimal btcusdFee;
+    @Override
+    public String getImplName() {
+      return BitstampExchangeAdapter.this.getImplName();
+    }
 
-    @SerializedName("eur_available")
-    BigDecimal eurAvailable;
+    @Override
+    public CompletableFuture<MarketOrderBook> getMarketOrders(String marketId) {
+      return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+    }
 
-    @SerializedName("eur_balance")
-    BigDecimal eurBalance;
+    @Override
+    public CompletableFuture<MarketOrderBook> getMarketOrders(String marketId, int maxLevels) {
+      validateMaxLevels(maxLevels);
+      return call(
+          () -> sendPublicRequestToExchangeAsync("order_book/" + marketId),
+          response -> adaptMarketOrders(response, marketId, maxLevels));
+    }
 
-    @SerializedName("eur_reserved")
-    BigDecimal eurReserved;
+    @Override
+    public CompletableFuture<List<OpenOrder>> getYourOpenOrders(String marketId) {
+      return call(
+          () -> sendAuthenticatedRequestToExchangeAsync("open_orders/" + marketId, null),
+          response -> adaptYourOpenOrders(response, marketId));
+    }
 
-    @SerializedName("eurusd_fee")
-    BigDecimal eurusdFee;
+    @Override
+    public CompletableFuture<String> createOrder(
+        String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+      return createOrder(marketId, orderType, quantity, price, null);
+    }
 
-    @SerializedName("ltc_available")
-    BigDecimal ltcAvailable;
+    @Override
+    public CompletableFuture<String> createOrder(
+        String marketId,
+        OrderType orderType,
+        BigDecimal quantity,
+        BigDecimal price,
+        String clientOrderId) {
+      return call(
+          () ->
+              sendAuthenticatedRequestToExchangeAsync(
+                  createOrderApiMethod(marketId, orderType),
+                  createOrderParams(quantity, price, clientOrderId)),
+          BitstampExchangeAdapter.this::adaptCreateOrder);
+    }
 
-    @SerializedName("ltc_balance")
-    BigDecimal ltcBalance;
+    @Override
+    public CompletableFuture<Boolean> cancelOrder(String orderId, String marketIdNotNeeded) {
+      return call(
+          () -> {
+            final Map<String, String> params = createRequestParamMap();
+            params.put("id", orderId);
+            return sendAuthenticatedRequestToExchangeAsync("cancel_order", params);
+          },
+          response -> adaptCancelOrder(response, orderId));
+    }
 
-    @SerializedName("ltc_reserved")
-    BigDecimal ltcReserved;
+    @Override
+    public CompletableFuture<BigDecimal> getLatestMarketPrice(String marketId) {
+      return call(
+          () -> sendPublicRequestToExchangeAsync("ticker/" + marketId),
+          BitstampExchangeAdapter.this::adaptLatestMarketPrice);
+    }
 
-    @SerializedName("ltcbtc_fee")
-    BigDecimal ltcbtcFee;
+    @Override
+    public CompletableFuture<BalanceInfo> getBalanceInfo() {
+      return call(
+          () -> sendAuthenticatedRequestToExchangeAsync(BALANCE, null),
+          BitstampExchangeAdapter.this::adaptBalanceInfo);
+    }
 
-    @SerializedName("ltceur_fee")
-    BigDecimal ltceurFee;
+    @Override
+    public CompletableFuture<BigDecimal> getPercentageOfBuyOrderTakenForExchangeFee(
+        String marketId) {
+      return getFee(marketId);
+    }
 
-    @SerializedName("ltcusd_fee")
-    BigDecimal ltcusdFee;
+    @Override
+    public CompletableFuture<BigDecimal> getPercentageOfSellOrderTakenForExchangeFee(
+        String marketId) {
+      return getFee(marketId);
+    }
 
-    @SerializedName("usd_available")
-    BigDecimal usdAvailable;
+    @Override
+    public CompletableFuture<Ticker> getTicker(String marketId) {
+      return call(
+          () -> sendPublicRequestToExchangeAsync("ticker/" + marketId),
+          BitstampExchangeAdapter.this::adaptTicker);
+    }
 
-    @SerializedName("usd_balance")
-    BigDecimal usdBalance;
+    @Override
+    public CompletableFuture<BestBidAsk> getBestBidAsk(String marketId) {
+      // The ticker is a fraction of the size of the order book.
+      return getTicker(marketId)
+          .thenApply(ticker -> new BestBidAskImpl(ticker.getBid(), ticker.getAsk()));
+    }
 
-    @SerializedName("usd_reserved")
-    BigDecimal usdReserved;
+    private CompletableFuture<BigDecimal> getFee(String marketId) {
+      final BitstampFeeSchedule cachedFeeSchedule = getCachedFeeSchedule();
+      if (cachedFeeSchedule == null) {
+        return call(
+            () -> sendAuthenticatedRequestToExchangeAsync(BALANCE, null),
+            response -> adaptBalance(response).getFee(marketId));
+      }
+      try {
+        return CompletableFuture.completedFuture(cachedFeeSchedule.getFee(marketId));
+      } catch (Exception e) {
+        LOG.error(UNEXPECTED_ERROR_MSG, e);
+        return CompletableFuture.failedFuture(new TradingApiException(UNEXPECTED_ERROR_MSG, e));
+      }
+    }
 
-    @SerializedName("xrp_available")
-    BigDecimal xrpAvailable;
+    /*
+     * Anything thrown building the request fails the future, as it would fail the blocking call.
+     */
+    private <T> CompletableFuture<T> call(
+        Callable<CompletableFuture<ExchangeHttpResponse>> request, ResponseAdapter<T> adapter) {
+      final CompletableFuture<ExchangeHttpResponse> response;
+      try {
+        response = request.call();
+      } catch (Exception e) {
+        LOG.error(UNEXPECTED_ERROR_MSG, e);
+        return CompletableFuture.failedFuture(new TradingApiException(UNEXPECTED_ERROR_MSG, e));
+      }
+      return adaptResponseAsync(response, adapter, executor, UNEXPECTED_ERROR_MSG);
+    }
+  }
 
-    @SerializedName("xrp_balance")
-    BigDecimal xrpBalance;
+  // --------------------------------------------------------------------------
+  //  Bitstamp API requests and responses adapted to the Trading API.
+  // --------------------------------------------------------------------------
 
-    @SerializedName("xrp_reserved")
-    BigDecimal xrpReserved;
+  private MarketOrderBook adaptMarketOrders(
+      ExchangeHttpResponse response, String marketId, int maxLevels)
+      throws ExchangeNetworkException, TradingApiException {
+    LOG.debug(() -> "Market Orders response: " + response);
+
+    final BitstampOrderBook bitstampOrderBook = response.fromJson(gson, BitstampOrderBook.class);
+
+    // Bitstamp has no depth param and always sends the full book; only adapt what was asked for.
+    return bitstampOrderBook.levels.forMarket(marketId, maxLevels);
+  }
+
+  private List<OpenOrder> adaptYourOpenOrders(ExchangeHttpResponse response, String marketId)
+      throws TradingApiException {
+    LOG.debug(() -> "Open Orders response: " + response);
+
+    final BitstampOrderResponse[] myOpenOrders =
+        gson.fromJson(response.getPayload(), BitstampOrderResponse[].class);
+
+    // No need to filter on marketId; exchange does this for us.
+    final List<OpenOrder> ordersToReturn = new ArrayList<>();
+    for (final BitstampOrderResponse openOrder : myOpenOrders) {
+      OrderType orderType;
+      if (openOrder.type == 0) {
+        orderType = OrderType.BUY;
+      } else if (openOrder.type == 1) {
+        orderType = OrderType.SELL;
+      } else {
+        throw new TradingApiException(
+            "Unrecognised order type received in getYourOpenOrders(). Value: " + openOrder.type);
+      }
+
+      final OpenOrderImpl order =
+          new OpenOrderImpl(
+              Long.toString(openOrder.id),
+              openOrder.datetime,
+              marketId,
+              orderType,
+              openOrder.price,
+              openOrder.amount,
+              null, // orig_quantity - not provided by stamp :-(
+              openOrder.price.multiply(openOrder.amount) // total - not provided by stamp :-(
+              );
+      order.setClientOrderId(openOrder.clientOrderId);
+      ordersToReturn.add(order);
+    }
+    return ordersToReturn;
+  }
+
+  private Map<String, String> createOrderParams(
+      BigDecimal quantity, BigDecimal price, String clientOrderId) {
+    final Map<String, String> params = createRequestParamMap();
+
+    if (clientOrderId != null) {
+      params.put(CLIENT_ORDER_ID, clientOrderId);
+    }
+
+    // note we need to limit price to 2 decimal places else exchange will barf
+    params.put(PRICE, new DecimalFormat("#.##", getDecimalFormatSymbols()).format(price));
+
+    // note we need to limit amount to 8 decimal places else exchange will barf
+    params.put(AMOUNT, new DecimalFormat("#.########", getDecimalFormatSymbols()).format(quantity));
+    return params;
+  }
+
+  private static String createOrderApiMethod(String marketId, OrderType orderType) {
+    if (orderType == OrderType.BUY) {
+      // buying BTC
+      return "buy/" + marketId;
+    } else if (orderType == OrderType.SELL) {
+      // selling BTC
+      return "sell/" + marketId;
+    } else {
+      final String errorMsg =
+          "Invalid order type: "
+              + orderType
+              + " - Can only be "
+              + OrderType.BUY.getStringValue()
+              + " or "
+              + OrderType.SELL.getStringValue();
+      LOG.error(errorMsg);
+      throw new IllegalArgumentException(errorMsg);
+    }
+  }
+
+  private String adaptCreateOrder(ExchangeHttpResponse response) throws TradingApiException {
+    LOG.debug(() -> "Create Order response: " + response);
+
+    final BitstampOrderResponse createOrderResponse =
+        gson.fromJson(response.getPayload(), BitstampOrderResponse.class);
+    final long id = createOrderResponse.id;
+    if (id == 0) {
+      final String errorMsg = "Failed to place order on exchange. Error response: " + response;
+      LOG.error(errorMsg);
+      throw new TradingApiException(errorMsg);
+    } else {
+      return Long.toString(createOrderResponse.id);
+    }
+  }
+
+  /*
+   * Bitstamp answers an unknown client order id with an "Order not found" error.
+   */
+  private String adaptOrderStatus(ExchangeHttpResponse response) throws TradingApiException {
+    LOG.debug(() -> "Order Status response: " + response);
+
+    final BitstampOrderResponse orderStatusResponse =
+        gson.fromJson(response.getPayload(), BitstampOrderResponse.class);
+    if (orderStatusResponse.id != 0) {
+      return Long.toString(orderStatusResponse.id);
+    } else if (orderStatusResponse.error != null
+        && orderStatusResponse.error.startsWith(ORDER_NOT_FOUND_ERROR)) {
+      return null;
+    } else {
+      final String errorMsg =
+          "Failed to get order status from exchange. Error response: " + response;
+      LOG.error(errorMsg);
+      throw new TradingApiException(errorMsg);
+    }
+  }
+
+  private boolean adaptCancelOrder(ExchangeHttpResponse response, String orderId) {
+    LOG.debug(() -> "Cancel Order response: " + response);
+
+    final BitstampCancelOrderResponse cancelOrderResponse =
+        gson.fromJson(response.getPayload(), BitstampCancelOrderResponse.class);
+    if (!orderId.equals(String.valueOf(cancelOrderResponse.id))) {
+      final String errorMsg = "Failed to cancel order on exchange. Error response: " + response;
+      LOG.error(errorMsg);
+      return false;
+    } else {
+      return true;
+    }
+  }
+
+  private BigDecimal adaptLatestMarketPrice(ExchangeHttpResponse response) {
+    LOG.debug(() -> "Latest Market Price response: " + response);
+
+    final BitstampTicker bitstampTicker =
+        gson.fromJson(response.getPayload(), BitstampTicker.class);
+    return bitstampTicker.last;
+  }
+
+  private BalanceInfo adaptBalanceInfo(ExchangeHttpResponse response) {
+    LOG.debug(() -> "Balance Info response: " + response);
+
+    final BitstampBalance balances = adaptBalance(response).balances;
+
+    final Map<String, BigDecimal> balancesAvailable = new HashMap<>();
+    balancesAvailable.put("BTC", balances.btcAvailable);
+    balancesAvailable.put("USD", balances.usdAvailable);
+    balancesAvailable.put("EUR", balances.eurAvailable);
+    balancesAvailable.put("LTC", balances.ltcAvailable);
+    balancesAvailable.put("XRP", balances.xrpAvailable);
+
+    final Map<String, BigDecimal> balancesOnOrder = new HashMap<>();
+    balancesOnOrder.put("BTC", balances.btcReserved);
+    balancesOnOrder.put("USD", balances.usdReserved);
+    balancesOnOrder.put("EUR", balances.eurReserved);
+    balancesOnOrder.put("LTC", balances.ltcReserved);
+    balancesOnOrder.put("XRP", balances.xrpReserved);
+
+    return new BalanceInfoImpl(balancesAvailable, balancesOnOrder);
+  }
 
-    @SerializedName("xrpbtc_fee")
-    BigDecimal xrpbtcFee;
+  /*
+   * The fees come in the same payload as the balances, so every balance response refreshes the
+   * cached fee schedule.
+   */
+  private BitstampFeeSchedule adaptBalance(ExchangeHttpResponse response) {
+    final BitstampFeeSchedule latestFeeSchedule =
+        new BitstampFeeSchedule(
+            gson.fromJson(response.getPayload(), BitstampBalance.class), System.nanoTime());
+    feeSchedule = latestFeeSchedule;
+    return latestFeeSchedule;
+  }
 
-    @SerializedName("xrpeur_fee")
-    BigDecimal xrpeurFee;
+  private BitstampFeeSchedule getFeeSchedule()
+      throws ExchangeNetworkException, TradingApiException {
+    final BitstampFeeSchedule cachedFeeSchedule = getCachedFeeSchedule();
+    if (cachedFeeSchedule != null) {
+      return cachedFeeSchedule;
+    }
+    final ExchangeHttpResponse response = sendAuthenticatedRequestToExchange(BALANCE, null);
+    LOG.debug(() -> "Fee response: " + response);
+    return adaptBalance(response);
+  }
 
-    @SerializedName("xrpusd_fee")
-    BigDecimal xrpusdFee;
+  /*
+   * Returns the cached fee schedule, or null if it has expired. Once it is half way to expiring,
+   * a fresh one is fetched in the background so callers rarely wait for it.
+   */
+  private BitstampFeeSchedule getCachedFeeSchedule() {
+    final BitstampFeeSchedule cachedFeeSchedule = feeSchedule;
+    if (cachedFeeSchedule == null) {
+      return null;
+    }
+    final long age = System.nanoTime() - cachedFeeSchedule.fetchedAt;
+    if (age >= feeCacheTtlNanos) {
+      return null;
+    }
+    if (age >= feeCacheTtlNanos / 2) {
+      refreshFeeScheduleInBackground();
+    }
+    return cachedFeeSchedule;
+  }
+
+  private void refreshFeeScheduleInBackground() {
+    if (!feeScheduleRefreshing.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      sendAuthenticatedRequestToExchangeAsync(BALANCE, null)
+          .thenAccept(this::adaptBalance)
+          .whenComplete(
+              (refreshed, failure) -> {
+                feeScheduleRefreshing.set(false);
+                if (failure != null) {
+                  LOG.warn("Failed to refresh Bitstamp fee schedule in the background.", failure);
+                }
+              });
+    } catch (RuntimeException e) {
+      feeScheduleRefreshing.set(false);
+      LOG.warn("Failed to refresh Bitstamp fee schedule in the background.", e);
+    }
+  }
+
+  private Ticker adaptTicker(ExchangeHttpResponse response) {
+    LOG.debug(() -> "Ticker response: " + response);
+
+    final BitstampTicker bitstampTicker =
+        gson.fromJson(response.getPayload(), BitstampTicker.class);
+    return new TickerImpl(
+        bitstampTicker.last,
+        bitstampTicker.bid,
+        bitstampTicker.ask,
+        bitstampTicker.low,
+        bitstampTicker.high,
+        bitstampTicker.open,
+        bitstampTicker.volume,
+        bitstampTicker.vwap,
+        bitstampTicker.timestamp);
+  }
+
+  // --------------------------------------------------------------------------
+  //  GSON classes for JSON responses.
+  //  See https://www.bitstamp.net/api/
+  // --------------------------------------------------------------------------
+
+  /**
+   * GSON class for holding Bitstamp Balance response from balance API call. Updated for v2 API -
+   * markets correct as of 25 June 2017. Well this is fun - why not return a map of reserved, map of
+   * available, etc... ;-(
+   *
+   * <p>The {@code <market>_fee} fields are collected into {@link #fees} by market id; the {@code
+   * <currency>_balance} fields are never used and are skipped.
+   */
+  private static class BitstampBalance {
+
+    BigDecimal btcAvailable;
+    BigDecimal btcReserved;
+    BigDecimal eurAvailable;
+    BigDecimal eurReserved;
+    BigDecimal ltcAvailable;
+    BigDecimal ltcReserved;
+    BigDecimal usdAvailable;
+    BigDecimal usdReserved;
+    BigDecimal xrpAvailable;
+    BigDecimal xrpReserved;
+    final Map<String, BigDecimal> fees = new HashMap<>(); // as a %
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("btcAvailable", btcAvailable)
-          .add("btcBalance", btcBalance)
           .add("btcReserved", btcReserved)
-          .add("btceurFee", btceurFee)
-          .add("btcusdFee", btcusdFee)
           .add("eurAvailable", eurAvailable)
-          .add("eurBalance", eurBalance)
           .add("eurReserved", eurReserved)
-          .add("eurusdFee", eurusdFee)
           .add("ltcAvailable", ltcAvailable)
-          .add("ltcBalance", ltcBalance)
           .add("ltcReserved", ltcReserved)
-          .add("ltcbtcFee", ltcbtcFee)
-          .add("ltceurFee", ltceurFee)
-          .add("ltcUsdFee", ltcusdFee)
           .add("usdAvailable", usdAvailable)
-          .add("usdBalance", usdBalance)
           .add("usdReserved", usdReserved)
           .add("xrpAvailable", xrpAvailable)
-          .add("xrpBalance", xrpBalance)
           .add("xrpReserved", xrpReserved)
-          .add("xrpbtcFee", xrpbtcFee)
-          .add("xrpeurFee", xrpeurFee)
-          .add("xrpusdFee", xrpusdFee)
+          .add("fees", fees)
           .toString();
     }
   }
 
+  /** The fees for every market, as returned in a Bitstamp balance response. */
+  private static class BitstampFeeSchedule {
+
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    final BitstampBalance balances;
+    final long fetchedAt;
+    private final Map<String, BigDecimal> feesByMarketId = new HashMap<>();
+
+    BitstampFeeSchedule(BitstampBalance balances, long fetchedAt) {
+      this.balances = balances;
+      this.fetchedAt = fetchedAt;
+      for (final Map.Entry<String, BigDecimal> fee : balances.fees.entrySet()) {
+        // adapt the % into BigDecimal format
+        feesByMarketId.put(
+            fee.getKey(), fee.getValue().divide(ONE_HUNDRED, 8, RoundingMode.HALF_UP));
+      }
+    }
+
+    BigDecimal getFee(String marketId) {
+      final BigDecimal fee = feesByMarketId.get(marketId);
+      if (fee == null) {
+        final String errorMsg =
+            "Unable to map marketId to currency balances returned from the Exchange. "
+                + "MarketId: "
+                + marketId
+                + " BitstampBalances: "
+                + balances;
+        LOG.error(errorMsg);
+        throw new IllegalArgumentException(errorMsg);
+      }
+      return fee;
+    }
+  }
+
   /**
    * GSON class for holding Bitstamp Order Book response from order_book API call.
    *
@@ -621,20 +865,16 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
    * </pre>
    *
    * <p>Each is a list of open orders and each order is represented as a list of price and amount.
+   * They are read straight into the columns of an order book; the market is set when it is adapted.
+   * The timestamp is skipped.
    */
   private static class BitstampOrderBook {
 
-    long timestamp; // unix timestamp
-    List<List<BigDecimal>> bids;
-    List<List<BigDecimal>> asks;
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("timestamp", timestamp)
-          .add("bids", bids)
-          .add("asks", asks)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("levels", levels).toString();
     }
   }
 
@@ -667,7 +907,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     }
   }
 
-  /** GSON class for Bitstamp create order response. */
+  /** GSON class for Bitstamp create order and order status responses. */
   private static class BitstampOrderResponse {
 
     long id;
@@ -675,6 +915,8 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     int type; // 0 = buy; 1 = sell
     BigDecimal price;
     BigDecimal amount;
+    String clientOrderId;
+    String error;
 
     @Override
     public String toString() {
@@ -684,32 +926,162 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
           .add("type", type)
           .add(PRICE, price)
           .add(AMOUNT, amount)
+          .add(CLIENT_ORDER_ID, clientOrderId)
+          .add("error", error)
           .toString();
     }
   }
 
-  /** GSON class for Bitstamp cancel order response. */
+  /** GSON class for Bitstamp cancel order response. Only the id is used. */
   private static class BitstampCancelOrderResponse {
 
     long id;
-    BigDecimal price;
-    BigDecimal amount;
-    int type; // 0 = buy; 1 = sell
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("id", id)
-          .add(PRICE, price)
-          .add(AMOUNT, amount)
-          .add("type", type)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("id", id).toString();
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  //  GSON type adapters for JSON responses.
+  //  They read the fields above and skip everything else.
+  // --------------------------------------------------------------------------
+
+  /** Reads a Bitstamp balance response, collecting the fees by market id. */
+  private static class BitstampBalanceTypeAdapter extends ResponseTypeAdapter<BitstampBalance> {
+
+    private static final String FEE_FIELD_SUFFIX = "_fee";
+
+    @Override
+    BitstampBalance readValue(JsonReader in) throws IOException {
+      final BitstampBalance balance = new BitstampBalance();
+      in.beginObject();
+      while (in.hasNext()) {
+        final String name = in.nextName();
+        switch (name) {
+          case "btc_available":
+            balance.btcAvailable = nextBigDecimal(in);
+            break;
+          case "btc_reserved":
+            balance.btcReserved = nextBigDecimal(in);
+            break;
+          case "eur_available":
+            balance.eurAvailable = nextBigDecimal(in);
+            break;
+          case "eur_reserved":
+            balance.eurReserved = nextBigDecimal(in);
+            break;
+          case "ltc_available":
+            balance.ltcAvailable = nextBigDecimal(in);
+            break;
+          case "ltc_reserved":
+            balance.ltcReserved = nextBigDecimal(in);
+            break;
+          case "usd_available":
+            balance.usdAvailable = nextBigDecimal(in);
+            break;
+          case "usd_reserved":
+            balance.usdReserved = nextBigDecimal(in);
+            break;
+          case "xrp_available":
+            balance.xrpAvailable = nextBigDecimal(in);
+            break;
+          case "xrp_reserved":
+            balance.xrpReserved = nextBigDecimal(in);
+            break;
+          default:
+            if (name.endsWith(FEE_FIELD_SUFFIX)) {
+              final BigDecimal fee = nextBigDecimal(in);
+              if (fee != null) {
+                balance.fees.put(
+                    name.substring(0, name.length() - FEE_FIELD_SUFFIX.length()), fee);
+              }
+            } else {
+              in.skipValue();
+            }
+        }
+      }
+      in.endObject();
+      return balance;
+    }
+  }
+
+  /** Reads a Bitstamp order book response. */
+  private static class BitstampOrderBookTypeAdapter
+      extends ResponseTypeAdapter<BitstampOrderBook> {
+
+    @Override
+    BitstampOrderBook readValue(JsonReader in) throws IOException {
+      final BitstampOrderBook orderBook = new BitstampOrderBook();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bids":
+            nextArrayLevels(in, orderBook.levels::addBuyOrder);
+            break;
+          case "asks":
+            nextArrayLevels(in, orderBook.levels::addSellOrder);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return orderBook;
+    }
+  }
+
+  /** Reads a Bitstamp ticker response. */
+  private static class BitstampTickerTypeAdapter extends ResponseTypeAdapter<BitstampTicker> {
+
+    @Override
+    BitstampTicker readValue(JsonReader in) throws IOException {
+      final BitstampTicker ticker = new BitstampTicker();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "high":
+            ticker.high = nextBigDecimal(in);
+            break;
+          case "last":
+            ticker.last = nextBigDecimal(in);
+            break;
+          case "timestamp":
+            ticker.timestamp = nextLong(in);
+            break;
+          case "bid":
+            ticker.bid = nextBigDecimal(in);
+            break;
+          case "vwap":
+            ticker.vwap = nextBigDecimal(in);
+            break;
+          case "volume":
+            ticker.volume = nextBigDecimal(in);
+            break;
+          case "low":
+            ticker.low = nextBigDecimal(in);
+            break;
+          case "ask":
+            ticker.ask = nextBigDecimal(in);
+            break;
+          case "open":
+            ticker.open = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return ticker;
     }
   }
 
   /**
-   * Deserializer needed because stamp Date format is different in open_order response and causes
-   * default GSON parsing to barf.
+   * Reads a Bitstamp order response, as returned for open orders and created orders.
+   *
+   * <p>The datetime is parsed here because stamp Date format is different in open_order response
+   * and causes default GSON parsing to barf.
    *
    * <pre>
    * [main] 2014-05-25 20:51:31,074 ERROR BitstampExchangeAdapter  - Failed to parse a Bitstamp date
@@ -722,25 +1094,92 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
    * at com.google.gson.TreeTypeAdapter.read(TreeTypeAdapter.java:58)
    * </pre>
    */
-  private static class BitstampDateDeserializer implements JsonDeserializer<Date> {
+  private static class BitstampOrderResponseTypeAdapter
+      extends ResponseTypeAdapter<BitstampOrderResponse> {
 
-    private final SimpleDateFormat bitstampDateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    // SimpleDateFormat is not thread safe and the adapter can be called from many threads.
+    private final ThreadLocal<SimpleDateFormat> bitstampDateFormat =
+        ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM-dd HH:mm:ss"));
 
-    BitstampDateDeserializer() {
+    @Override
+    BitstampOrderResponse readValue(JsonReader in) throws IOException {
+      final BitstampOrderResponse order = new BitstampOrderResponse();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            order.id = nextLong(in, 0);
+            break;
+          case "datetime":
+            order.datetime = nextDate(in);
+            break;
+          case "type":
+            order.type = (int) nextLong(in, 0);
+            break;
+          case PRICE:
+            order.price = nextBigDecimal(in);
+            break;
+          case AMOUNT:
+            order.amount = nextBigDecimal(in);
+            break;
+          case CLIENT_ORDER_ID:
+            order.clientOrderId = nextString(in);
+            break;
+          case "error":
+            order.error = nextError(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return order;
+    }
+
+    private Date nextDate(JsonReader in) throws IOException {
+      final String date = nextString(in);
+      if (date == null) {
+        return null;
+      }
+      try {
+        return bitstampDateFormat.get().parse(date);
+      } catch (ParseException e) {
+        final String errorMsg = "Failed to parse a Bitstamp date!";
+        LOG.error(errorMsg, e);
+        throw new JsonParseException(errorMsg, e);
+      }
     }
 
-    public Date deserialize(JsonElement json, Type type, JsonDeserializationContext context) {
-      Date dateFromBitstamp = null;
-      if (json.isJsonPrimitive()) {
-        try {
-          dateFromBitstamp = bitstampDateFormat.parse(json.getAsString());
-        } catch (ParseException e) {
-          final String errorMsg = "DateDeserializer failed to parse a Bitstamp date!";
-          LOG.error(errorMsg, e);
-          throw new JsonParseException(errorMsg, e);
+    /*
+     * The error is usually a message, but can be an object of errors by field; only messages are
+     * needed.
+     */
+    private String nextError(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.STRING) {
+        return in.nextString();
+      }
+      in.skipValue();
+      return null;
+    }
+  }
+
+  /** Reads a Bitstamp cancel order response. */
+  private static class BitstampCancelOrderResponseTypeAdapter
+      extends ResponseTypeAdapter<BitstampCancelOrderResponse> {
+
+    @Override
+    BitstampCancelOrderResponse readValue(JsonReader in) throws IOException {
+      final BitstampCancelOrderResponse cancelOrderResponse = new BitstampCancelOrderResponse();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("id".equals(in.nextName())) {
+          cancelOrderResponse.id = nextLong(in, 0);
+        } else {
+          in.skipValue();
         }
       }
-      return dateFromBitstamp;
+      in.endObject();
+      return cancelOrderResponse;
     }
   }
 
@@ -748,10 +1187,27 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
   //  Transport layer methods
   // --------------------------------------------------------------------------
 
+  @Override
+  boolean isStreamedResponse(URL url) {
+    // The order book is always decoded straight off the wire.
+    return url.getPath().contains("/order_book/");
+  }
+
+  @Override
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/buy/") || path.contains("/sell/") || path.contains("/cancel_order/")) {
+      return Endpoint.ORDER_ENTRY;
+    }
+    return path.contains("/order_book/") || path.contains("/ticker/")
+        ? Endpoint.PUBLIC
+        : Endpoint.PRIVATE;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
       throws ExchangeNetworkException, TradingApiException {
     try {
-      final URL url = new URL(API_BASE_URL + apiMethod);
+      final URL url = new URL(apiBaseUrl + apiMethod);
       return makeNetworkRequest(url, "GET", null, createHeaderParamMap());
 
     } catch (MalformedURLException e) {
@@ -761,72 +1217,108 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     }
   }
 
+  private CompletableFuture<ExchangeHttpResponse> sendPublicRequestToExchangeAsync(
+      String apiMethod) {
+    try {
+      final URL url = new URL(apiBaseUrl + apiMethod);
+      return makeNetworkRequestAsync(url, "GET", null, createHeaderParamMap());
+
+    } catch (MalformedURLException e) {
+      final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
+      LOG.error(errorMsg, e);
+      return CompletableFuture.failedFuture(new TradingApiException(errorMsg, e));
+    }
+  }
+
   private ExchangeHttpResponse sendAuthenticatedRequestToExchange(
       String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
+    try {
+      final String postData = createAuthenticatedPostData(params);
 
-    if (!initializedMacAuthentication) {
-      final String errorMsg = "MAC Message security layer has not been initialized.";
-      LOG.error(errorMsg);
-      throw new IllegalStateException(errorMsg);
+      // MUST have the trailing slash else exchange barfs...
+      final URL url = new URL(apiBaseUrl + apiMethod + "/");
+      return makeNetworkRequest(url, "POST", postData, createAuthenticatedHeaderParamMap());
+
+    } catch (MalformedURLException e) {
+      final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
+      LOG.error(errorMsg, e);
+      throw new TradingApiException(errorMsg, e);
     }
+  }
 
+  private CompletableFuture<ExchangeHttpResponse> sendAuthenticatedRequestToExchangeAsync(
+      String apiMethod, Map<String, String> params) {
     try {
-      // Setup common params for the API call
-      if (params == null) {
-        params = createRequestParamMap();
-      }
-
-      params.put("key", key);
-      params.put("nonce", Long.toString(nonce));
-
-      // Create MAC message for signature
-      // message = nonce + client_id + api_key
-      mac.reset(); // force reset
-      mac.update(String.valueOf(nonce).getBytes(StandardCharsets.UTF_8));
-      mac.update(clientId.getBytes(StandardCharsets.UTF_8));
-      mac.update(key.getBytes(StandardCharsets.UTF_8));
-
-      /*
-       * Signature is a HMAC-SHA256 encoded message containing: nonce, client ID and API key.
-       * The HMAC-SHA256 code must be generated using a secret key that was generated with your
-       * API key.
-       * This code must be converted to it's hexadecimal representation (64 uppercase characters).
-       *
-       * signature = hmac.new(API_SECRET, msg=message, digestmod=hashlib.sha256).hexdigest().upper()
-       */
-      final String signature = toHex(mac.doFinal()).toUpperCase();
-      params.put("signature", signature);
-
-      // increment ready for next call...
-      nonce++;
-
-      // Build the URL with query param args in it
-      final StringBuilder postData = new StringBuilder();
-      for (final Map.Entry<String, String> param : params.entrySet()) {
-        if (postData.length() > 0) {
-          postData.append("&");
-        }
-        postData.append(param.getKey());
-        postData.append("=");
-        postData.append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
-      }
-
-      // Request headers required by Exchange
-      final Map<String, String> requestHeaders = createHeaderParamMap();
-      requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
+      final String postData = createAuthenticatedPostData(params);
 
       // MUST have the trailing slash else exchange barfs...
-      final URL url = new URL(API_BASE_URL + apiMethod + "/");
-      return makeNetworkRequest(url, "POST", postData.toString(), requestHeaders);
+      final URL url = new URL(apiBaseUrl + apiMethod + "/");
+      return makeNetworkRequestAsync(url, "POST", postData, createAuthenticatedHeaderParamMap());
 
     } catch (MalformedURLException e) {
       final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
       LOG.error(errorMsg, e);
-      throw new TradingApiException(errorMsg, e);
+      return CompletableFuture.failedFuture(new TradingApiException(errorMsg, e));
     }
   }
 
+  /*
+   * Adds the key, nonce and signature to the params and form-encodes them.
+   */
+  private String createAuthenticatedPostData(Map<String, String> params) {
+    final RequestSigner signer = getRequestSigner();
+
+    // Setup common params for the API call
+    if (params == null) {
+      params = createRequestParamMap();
+    }
+
+    final long nonce = nextNonce();
+    params.put("key", key);
+    params.put("nonce", Long.toString(nonce));
+
+    // Create MAC message for signature
+    // message = nonce + client_id + api_key
+    final byte[] macDigest =
+        signer.sign(
+            String.valueOf(nonce).getBytes(StandardCharsets.UTF_8),
+            clientId.getBytes(StandardCharsets.UTF_8),
+            key.getBytes(StandardCharsets.UTF_8));
+
+    /*
+     * Signature is a HMAC-SHA256 encoded message containing: nonce, client ID and API key.
+     * The HMAC-SHA256 code must be generated using a secret key that was generated with your
+     * API key.
+     * This code must be converted to it's hexadecimal representation (64 uppercase characters).
+     *
+     * signature = hmac.new(API_SECRET, msg=message, digestmod=hashlib.sha256).hexdigest().upper()
+     */
+    final String signature = toHex(macDigest).toUpperCase();
+    params.put("signature", signature);
+
+    // Build the URL with query param args in it
+    final StringBuilder postData = new StringBuilder();
+    for (final Map.Entry<String, String> param : params.entrySet()) {
+      if (postData.length() > 0) {
+        postData.append("&");
+      }
+      postData.append(param.getKey());
+      postData.append("=");
+      postData.append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+    }
+    return postData.toString();
+  }
+
+  /*
+   * Request headers required by Exchange.
+   */
+  private Map<String, String> createAuthenticatedHeaderParamMap() {
+    final Map<String, String> requestHeaders = createHeaderParamMap();
+    requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
+    return requestHeaders;
+  }
+
   private String toHex(byte[] byteArrayToConvert) {
     final StringBuilder hexString = new StringBuilder();
     for (final byte aByte : byteArrayToConvert) {
@@ -843,11 +1335,7 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-      mac = Mac.getInstance("HmacSHA256");
-      mac.init(keyspec);
-      initializedMacAuthentication = true;
+      initRequestSigner("HmacSHA256", secret.getBytes(StandardCharsets.UTF_8));
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
       LOG.error(errorMsg, e);
@@ -870,13 +1358,38 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
     secret = getAuthenticationConfigItem(authenticationConfig, SECRET_PROPERTY_NAME);
   }
 
+  private void setOtherConfig(ExchangeConfig exchangeConfig) {
+    // Optional for this adapter, so not fetched with getOtherConfig.
+    final OtherConfig otherConfig = exchangeConfig.getOtherConfig();
+    final String feeCacheTtlInConfig =
+        otherConfig == null ? null : otherConfig.getItem(FEE_CACHE_TTL_PROPERTY_NAME);
+    final long feeCacheTtlSecs =
+        feeCacheTtlInConfig == null
+            ? DEFAULT_FEE_CACHE_TTL_SECS
+            : Long.parseLong(feeCacheTtlInConfig.trim());
+    if (feeCacheTtlSecs < 0) {
+      throw new IllegalArgumentException(
+          FEE_CACHE_TTL_PROPERTY_NAME + " must not be negative but was: " + feeCacheTtlSecs);
+    }
+    LOG.info(() -> FEE_CACHE_TTL_PROPERTY_NAME + ": " + feeCacheTtlSecs);
+    feeCacheTtlNanos = TimeUnit.SECONDS.toNanos(feeCacheTtlSecs);
+
+    apiBaseUrl = getBaseUrl(otherConfig, BITSTAMP_BASE_URL) + API_PATH;
+  }
+
   // --------------------------------------------------------------------------
   //  Util methods
   // --------------------------------------------------------------------------
 
   private void initGson() {
     final GsonBuilder gsonBuilder = new GsonBuilder();
-    gsonBuilder.registerTypeAdapter(Date.class, new BitstampDateDeserializer());
+    gsonBuilder.registerTypeAdapter(BitstampBalance.class, new BitstampBalanceTypeAdapter());
+    gsonBuilder.registerTypeAdapter(BitstampOrderBook.class, new BitstampOrderBookTypeAdapter());
+    gsonBuilder.registerTypeAdapter(BitstampTicker.class, new BitstampTickerTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        BitstampOrderResponse.class, new BitstampOrderResponseTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        BitstampCancelOrderResponse.class, new BitstampCancelOrderResponseTypeAdapter());
     gson = gsonBuilder.create();
   }
 
@@ -902,4 +1415,12 @@ public class BitstampExchangeAdapter extends AbstractExchangeAdapter implements
       throws TradingApiException, ExchangeNetworkException {
     return super.sendNetworkRequest(url, httpMethod, postData, requestHeaders);
   }
+
+  /*
+   * Hack for unit-testing async transport layer.
+   */
+  private CompletableFuture<ExchangeHttpResponse> makeNetworkRequestAsync(
+      URL url, String httpMethod, String postData, Map<String, String> requestHeaders) {
+    return super.sendNetworkRequestAsync(url, httpMethod, postData, requestHeaders);
+  }
 }
@@ -28,14 +28,15 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
-import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
@@ -45,7 +46,8 @@ import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.HttpURLConnection;
@@ -63,8 +65,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -95,9 +95,8 @@ import org.apache.logging.log4j.Logger;
  * orders. This adapter truncates any prices with more than 2 decimal places and rounds using {@link
  * java.math.RoundingMode#HALF_EVEN}, E.g. 250.176 would be sent to the exchange as 250.18.
  *
- * <p>The Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single
- * thread in order to preserve trade execution order. The {@link URLConnection} achieves this by
- * blocking/waiting on the input stream (response) for each API call.
+ * <p>The Exchange Adapter is thread safe once it has been initialised; the Trading API calls can be
+ * made from more than one thread at a time.
  *
  * <p>The {@link TradingApi} calls will throw a {@link ExchangeNetworkException} if a network error
  * occurs trying to connect to the exchange. A {@link TradingApiException} is thrown for
@@ -111,8 +110,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
   private static final Logger LOG = LogManager.getLogger();
 
-  private static final String PUBLIC_API_BASE_URL = "https://api.pro.coinbase.com/";
-  private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
+  private static final String COINBASE_PRO_BASE_URL = "https://api.pro.coinbase.com/";
 
   private static final String UNEXPECTED_ERROR_MSG =
       "Unexpected error has occurred in COINBASE PRO Exchange Adapter. ";
@@ -120,7 +118,9 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
       "Failed to connect to Exchange due to unexpected IO error.";
 
   private static final String PRODUCTS = "products/";
+  private static final String ORDERS_BY_CLIENT_OID = "orders/client:";
   private static final String PRICE = "price";
+  private static final String CLIENT_OID = "client_oid";
 
   private static final String PASSPHRASE_PROPERTY_NAME = "passphrase";
   private static final String KEY_PROPERTY_NAME = "key";
@@ -134,12 +134,13 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   private BigDecimal sellFeePercentage;
   private Long timeServerBias;
 
+  private String publicApiBaseUrl = COINBASE_PRO_BASE_URL;
+  private String authenticatedApiUrl = publicApiBaseUrl;
+
   private String passphrase = "";
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private boolean initializedMacAuthentication = false;
 
   private Gson gson;
 
@@ -163,6 +164,17 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
+    return createOrder(marketId, orderType, quantity, price, null);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
     try {
       /*
        * Build Limit Order: https://docs.pro.coinbase.com/#place-a-new-order
@@ -171,10 +183,14 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
        *                                Cancel
        * post_only param optional     - defaults to 'false'
        * time_in_force param optional - defaults to 'GTC' Good til Cancel
-       * client_oid param is optional - thia adapter does not use it.
+       * client_oid param is optional - only sent if we have a client order id.
        */
       final Map<String, String> params = createRequestParamMap();
 
+      if (clientOrderId != null) {
+        params.put(CLIENT_OID, clientOrderId);
+      }
+
       if (orderType == OrderType.BUY) {
         params.put("side", "buy");
       } else if (orderType == OrderType.SELL) {
@@ -297,7 +313,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
                       + openOrder.side);
           }
 
-          final OpenOrder order =
+          final OpenOrderImpl order =
               new OpenOrderImpl(
                   openOrder.id,
                   Date.from(Instant.parse(openOrder.createdAt)),
@@ -309,6 +325,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
                   openOrder.size, // orig quantity
                   openOrder.price.multiply(openOrder.size) // total - not provided by COINBASE PRO
                   );
+          order.setClientOrderId(openOrder.clientOid);
 
           ordersToReturn.add(order);
         }
@@ -329,12 +346,59 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  @Override
+  public boolean supportsClientOrderIds() {
+    return true;
+  }
+
+  /*
+   * The orders/client:<client_oid> lookup finds open and done, i.e. filled or cancelled, orders. It
+   * answers 404 if the exchange has no order with the client order id.
+   */
+  @Override
+  public String getOrderIdByClientOrderId(String marketId, String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final ExchangeHttpResponse response =
+          sendAuthenticatedRequestToExchange("GET", ORDERS_BY_CLIENT_OID + clientOrderId, null);
+
+      LOG.debug(() -> "Order by client order id response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final CoinbaseProOrder coinbaseProOrder =
+            gson.fromJson(response.getPayload(), CoinbaseProOrder.class);
+        return coinbaseProOrder.id;
+      } else if (response.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+        return null;
+      } else {
+        final String errorMsg = "Failed to get your order from exchange. Details: " + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws TradingApiException, ExchangeNetworkException {
+    validateMaxLevels(maxLevels);
     try {
       final Map<String, String> params = createRequestParamMap();
-      params.put("level", "2"); //  "2" = Top 50 bids and asks (aggregated)
+      // "1" = best bid and ask only, "2" = top 50 bids and asks (aggregated)
+      params.put("level", maxLevels == 1 ? "1" : "2");
 
       final ExchangeHttpResponse response =
           sendPublicRequestToExchange(PRODUCTS + marketId + "/book", params);
@@ -343,30 +407,10 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
         final CoinbaseProBookWrapper orderBook =
-            gson.fromJson(response.getPayload(), CoinbaseProBookWrapper.class);
-
-        final List<MarketOrder> buyOrders = new ArrayList<>();
-        for (CoinbaseProMarketOrder coinbaseProBuyOrder : orderBook.bids) {
-          final MarketOrder buyOrder =
-              new MarketOrderImpl(
-                  OrderType.BUY,
-                  coinbaseProBuyOrder.get(0),
-                  coinbaseProBuyOrder.get(1),
-                  coinbaseProBuyOrder.get(0).multiply(coinbaseProBuyOrder.get(1)));
-          buyOrders.add(buyOrder);
-        }
+            response.fromJson(gson, CoinbaseProBookWrapper.class);
 
-        final List<MarketOrder> sellOrders = new ArrayList<>();
-        for (CoinbaseProMarketOrder coinbaseProSellOrder : orderBook.asks) {
-          final MarketOrder sellOrder =
-              new MarketOrderImpl(
-                  OrderType.SELL,
-                  coinbaseProSellOrder.get(0),
-                  coinbaseProSellOrder.get(1),
-                  coinbaseProSellOrder.get(0).multiply(coinbaseProSellOrder.get(1)));
-          sellOrders.add(sellOrder);
-        }
-        return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+        // Level 2 always sends the top 50; only adapt what was asked for.
+        return orderBook.levels.forMarket(marketId, maxLevels);
 
       } else {
         final String errorMsg =
@@ -532,6 +576,36 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+    try {
+      // Just the ticker: unlike getTicker, we don't need the 24hr stats.
+      final ExchangeHttpResponse response =
+          sendPublicRequestToExchange(PRODUCTS + marketId + "/ticker", null);
+
+      LOG.debug(() -> "Best Bid/Ask response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final CoinbaseProTicker coinbaseProTicker =
+            gson.fromJson(response.getPayload(), CoinbaseProTicker.class);
+        return new BestBidAskImpl(coinbaseProTicker.bid, coinbaseProTicker.ask);
+
+      } else {
+        final String errorMsg = "Failed to get market ticker from exchange. Details: " + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  GSON classes for JSON responses.
   //  See https://docs.pro.coinbase.com/#api
@@ -541,94 +615,53 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
    * GSON class for COINBASE PRO '/orders' API call response.
    *
    * <p>There are other critters in here different to what is spec'd:
-   * https://docs.pro.coinbase.com/#list-orders
+   * https://docs.pro.coinbase.com/#list-orders - only the fields below are used.
    */
   private static class CoinbaseProOrder {
 
     String id;
     BigDecimal price;
     BigDecimal size;
-
-    @SerializedName("product_id")
     String productId; // e.g. "BTC-GBP", "BTC-USD"
-
     String side; // "buy" or "sell"
-    String stp; // Self-Trade Prevention flag, e.g. "dc"
-    String type; // order type, e.g. "limit"
-
-    @SerializedName("time_in_force")
-    String timeInForce; // e.g. "GTC" (Good Til Cancelled)
-
-    @SerializedName("post_only")
-    boolean postOnly; // shows in book + provides exchange liquidity, but will not execute
-
-    @SerializedName("created_at")
     String createdAt; // e.g. "2014-11-14 06:39:55.189376+00"
-
-    @SerializedName("fill_fees")
-    BigDecimal fillFees;
-
-    @SerializedName("filled_size")
     BigDecimal filledSize;
-
-    String status; // e.g. "open"
-    boolean settled;
+    String clientOid;
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("id", id)
-          .add(PRICE, price)
+          .add("price", price)
           .add("size", size)
           .add("productId", productId)
           .add("side", side)
-          .add("stp", stp)
-          .add("type", type)
-          .add("timeInForce", timeInForce)
-          .add("postOnly", postOnly)
           .add("createdAt", createdAt)
-          .add("fillFees", fillFees)
           .add("filledSize", filledSize)
-          .add("status", status)
-          .add("settled", settled)
+          .add("clientOid", clientOid)
           .toString();
     }
   }
 
-  /** GSON class for COINBASE PRO '/products/{marketId}/book' API call response. */
+  /**
+   * GSON class for COINBASE PRO '/products/{marketId}/book' API call response. The bids and asks
+   * are read straight into the columns of an order book; the market is set when it is adapted.
+   * Each order is an array of price, amount and number of orders; the number of orders is skipped.
+   */
   private static class CoinbaseProBookWrapper {
 
-    long sequence;
-    List<CoinbaseProMarketOrder> bids;
-    List<CoinbaseProMarketOrder> asks;
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("sequence", sequence)
-          .add("bids", bids)
-          .add("asks", asks)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("levels", levels).toString();
     }
   }
 
-  /**
-   * GSON class for holding Market Orders. First element in array is price, second element is
-   * amount, third is number of orders.
-   */
-  private static class CoinbaseProMarketOrder extends ArrayList<BigDecimal> {
-
-    private static final long serialVersionUID = -4919711220797077759L;
-  }
-
   /** GSON class for COINBASE PRO '/products/{marketId}/ticker' API call response. */
   private static class CoinbaseProTicker {
 
-    @SerializedName("trade_id")
-    long tradeId;
-
     BigDecimal price;
-    BigDecimal size;
     BigDecimal bid;
     BigDecimal ask;
     BigDecimal volume;
@@ -637,9 +670,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
-          .add("tradeId", tradeId)
-          .add(PRICE, price)
-          .add("size", size)
+          .add("price", price)
           .add("bid", bid)
           .add("ask", ask)
           .add("volume", volume)
@@ -654,11 +685,6 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
     BigDecimal open;
     BigDecimal high;
     BigDecimal low;
-    BigDecimal volume;
-    BigDecimal last;
-
-    @SerializedName("volume_30day")
-    String volume30Day;
 
     @Override
     public String toString() {
@@ -666,9 +692,6 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
           .add("open", open)
           .add("high", high)
           .add("low", low)
-          .add("volume", volume)
-          .add("last", last)
-          .add("volume30Day", volume30Day)
           .toString();
     }
   }
@@ -676,32 +699,206 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
   /** GSON class for COINBASE PRO '/accounts' API call response. */
   private static class CoinbaseProAccount {
 
-    String id;
     String currency;
-    BigDecimal balance; // e.g. "0.0000000000000000"
     BigDecimal hold;
     BigDecimal available;
 
-    @SerializedName("profile_id") // no idea what this is?!
-    String profileId;
-
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
-          .add("id", id)
           .add("currency", currency)
-          .add("balance", balance)
           .add("hold", hold)
           .add("available", available)
-          .add("profileId", profileId)
           .toString();
     }
   }
 
+  // --------------------------------------------------------------------------
+  //  GSON type adapters for JSON responses.
+  //  They read the fields above and skip everything else.
+  // --------------------------------------------------------------------------
+
+  /** Reads a COINBASE PRO order. */
+  private static class CoinbaseProOrderTypeAdapter extends ResponseTypeAdapter<CoinbaseProOrder> {
+
+    @Override
+    CoinbaseProOrder readValue(JsonReader in) throws IOException {
+      final CoinbaseProOrder order = new CoinbaseProOrder();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            order.id = nextString(in);
+            break;
+          case "price":
+            order.price = nextBigDecimal(in);
+            break;
+          case "size":
+            order.size = nextBigDecimal(in);
+            break;
+          case "product_id":
+            order.productId = nextString(in);
+            break;
+          case "side":
+            order.side = nextString(in);
+            break;
+          case "created_at":
+            order.createdAt = nextString(in);
+            break;
+          case "filled_size":
+            order.filledSize = nextBigDecimal(in);
+            break;
+          case CLIENT_OID:
+            order.clientOid = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return order;
+    }
+  }
+
+  /** Reads a COINBASE PRO order book. */
+  private static class CoinbaseProBookWrapperTypeAdapter
+      extends ResponseTypeAdapter<CoinbaseProBookWrapper> {
+
+    @Override
+    CoinbaseProBookWrapper readValue(JsonReader in) throws IOException {
+      final CoinbaseProBookWrapper orderBook = new CoinbaseProBookWrapper();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bids":
+            nextArrayLevels(in, orderBook.levels::addBuyOrder);
+            break;
+          case "asks":
+            nextArrayLevels(in, orderBook.levels::addSellOrder);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return orderBook;
+    }
+  }
+
+  /** Reads a COINBASE PRO ticker. */
+  private static class CoinbaseProTickerTypeAdapter
+      extends ResponseTypeAdapter<CoinbaseProTicker> {
+
+    @Override
+    CoinbaseProTicker readValue(JsonReader in) throws IOException {
+      final CoinbaseProTicker ticker = new CoinbaseProTicker();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "price":
+            ticker.price = nextBigDecimal(in);
+            break;
+          case "bid":
+            ticker.bid = nextBigDecimal(in);
+            break;
+          case "ask":
+            ticker.ask = nextBigDecimal(in);
+            break;
+          case "volume":
+            ticker.volume = nextBigDecimal(in);
+            break;
+          case "time":
+            ticker.time = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return ticker;
+    }
+  }
+
+  /** Reads COINBASE PRO 24 hour stats. */
+  private static class CoinbaseProStatsTypeAdapter extends ResponseTypeAdapter<CoinbaseProStats> {
+
+    @Override
+    CoinbaseProStats readValue(JsonReader in) throws IOException {
+      final CoinbaseProStats stats = new CoinbaseProStats();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "open":
+            stats.open = nextBigDecimal(in);
+            break;
+          case "high":
+            stats.high = nextBigDecimal(in);
+            break;
+          case "low":
+            stats.low = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return stats;
+    }
+  }
+
+  /** Reads a COINBASE PRO account. */
+  private static class CoinbaseProAccountTypeAdapter
+      extends ResponseTypeAdapter<CoinbaseProAccount> {
+
+    @Override
+    CoinbaseProAccount readValue(JsonReader in) throws IOException {
+      final CoinbaseProAccount account = new CoinbaseProAccount();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "currency":
+            account.currency = nextString(in);
+            break;
+          case "hold":
+            account.hold = nextBigDecimal(in);
+            break;
+          case "available":
+            account.available = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return account;
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Transport layer methods
   // --------------------------------------------------------------------------
 
+  @Override
+  boolean isStreamedResponse(URL url) {
+    // The order book is always decoded straight off the wire.
+    return url.getPath().endsWith("/book");
+  }
+
+  @Override
+  boolean isNotFoundResponseExpected(URL url) {
+    // An unknown client order id is a 404, not a dead exchange.
+    return url.getPath().contains("/" + ORDERS_BY_CLIENT_OID);
+  }
+
+  @Override
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/orders") && !"GET".equalsIgnoreCase(httpMethod)) {
+      return Endpoint.ORDER_ENTRY;
+    }
+    return path.contains("/" + PRODUCTS) ? Endpoint.PUBLIC : Endpoint.PRIVATE;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(
       String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
@@ -731,7 +928,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
         requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
       }
 
-      final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod + queryString);
+      final URL url = new URL(publicApiBaseUrl + apiMethod + queryString);
       return makeNetworkRequest(url, "GET", null, requestHeaders);
 
     } catch (MalformedURLException e) {
@@ -784,11 +981,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
       String httpMethod, String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
 
-    if (!initializedMacAuthentication) {
-      final String errorMsg = "MAC Message security layer has not been initialized.";
-      LOG.error(errorMsg);
-      throw new IllegalStateException(errorMsg);
-    }
+    final RequestSigner signer = getRequestSigner();
 
     try {
       if (params == null) {
@@ -818,21 +1011,21 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
           LOG.debug(() -> "Query param string: " + queryParams);
 
           if (params.isEmpty()) {
-            invocationUrl = AUTHENTICATED_API_URL + apiMethod;
+            invocationUrl = authenticatedApiUrl + apiMethod;
           } else {
-            invocationUrl = AUTHENTICATED_API_URL + apiMethod + "?" + queryParams;
+            invocationUrl = authenticatedApiUrl + apiMethod + "?" + queryParams;
           }
           break;
 
         case "POST":
           LOG.debug(() -> "Building secure POST request...");
-          invocationUrl = AUTHENTICATED_API_URL + apiMethod;
+          invocationUrl = authenticatedApiUrl + apiMethod;
           requestBody = gson.toJson(params);
           break;
 
         case "DELETE":
           LOG.debug(() -> "Building secure DELETE request...");
-          invocationUrl = AUTHENTICATED_API_URL + apiMethod;
+          invocationUrl = authenticatedApiUrl + apiMethod;
           break;
 
         default:
@@ -850,9 +1043,9 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
           timestamp + httpMethod.toUpperCase() + "/" + apiMethod + requestBody;
 
       // Sign the signature string and Base64 encode it
-      mac.reset();
-      mac.update(signatureBuilder.getBytes(StandardCharsets.UTF_8));
-      final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
+      final String signature =
+          DatatypeConverter.printBase64Binary(
+              signer.sign(signatureBuilder.getBytes(StandardCharsets.UTF_8)));
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -883,10 +1076,7 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
       // COINBASE PRO secret is in Base64 so we must decode it first.
       final byte[] decodedBase64Secret = DatatypeConverter.parseBase64Binary(secret);
 
-      final SecretKeySpec keyspec = new SecretKeySpec(decodedBase64Secret, "HmacSHA256");
-      mac = Mac.getInstance("HmacSHA256");
-      mac.init(keyspec);
-      initializedMacAuthentication = true;
+      initRequestSigner("HmacSHA256", decodedBase64Secret);
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA256 installed?";
       LOG.error(errorMsg, e);
@@ -926,6 +1116,9 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
         getOtherConfigItem(otherConfig, SERVER_TIME_BIAS_PROPERTY_NAME);
     timeServerBias = Long.parseLong(serverTimeBiasInConfig);
     LOG.info(() -> "Time server bias in long format: " + timeServerBias);
+
+    publicApiBaseUrl = getBaseUrl(otherConfig, COINBASE_PRO_BASE_URL);
+    authenticatedApiUrl = publicApiBaseUrl;
   }
 
   // --------------------------------------------------------------------------
@@ -934,6 +1127,12 @@ public final class CoinbaseProExchangeAdapter extends AbstractExchangeAdapter
 
   private void initGson() {
     final GsonBuilder gsonBuilder = new GsonBuilder();
+    gsonBuilder.registerTypeAdapter(CoinbaseProOrder.class, new CoinbaseProOrderTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        CoinbaseProBookWrapper.class, new CoinbaseProBookWrapperTypeAdapter());
+    gsonBuilder.registerTypeAdapter(CoinbaseProTicker.class, new CoinbaseProTickerTypeAdapter());
+    gsonBuilder.registerTypeAdapter(CoinbaseProStats.class, new CoinbaseProStatsTypeAdapter());
+    gsonBuilder.registerTypeAdapter(CoinbaseProAccount.class, new CoinbaseProAccountTypeAdapter());
     gson = gsonBuilder.create();
   }
 
@@ -0,0 +1,256 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.ExchangeCallLatency;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Times an Exchange Adapter's Trading API calls in {@link LatencyHistogram}s, 1 per Trading API
+ * method, outcome and phase.
+ *
+ * <p>The call being timed is held in a thread local, so {@link AbstractExchangeAdapter} can add
+ * the time to first byte of each request it sends without the adapters passing anything down. An
+ * async request is recorded against the call that sent it, whichever thread it completes on; the
+ * transport reads the whole response before an async request completes, so its time to first byte
+ * includes reading the body. The decode phase is the rest of the call, so for calls that send
+ * several requests at once it is underestimated. Calls that got no response have no decode phase.
+ * The JDK HTTP client does not report when a connection was opened, so on the few requests that
+ * need a new connection, connecting is part of the time to first byte.
+ *
+ * <p>Requests sent outside a timed call, e.g. while the adapter initialises, are recorded against
+ * {@link #UNTIMED_METHOD}, using the outcome of the request itself.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class ExchangeCallMetrics implements ExchangeCallRecorder {
+
+  /** The method requests sent outside a timed Trading API call are recorded against. */
+  static final String UNTIMED_METHOD = "untimed";
+
+  private static final Outcome[] OUTCOMES = Outcome.values();
+  private static final Phase[] PHASES = Phase.values();
+
+  private final ThreadLocal<TimedCall> currentCall = new ThreadLocal<>();
+  private final ConcurrentMap<String, MethodHistograms> methodHistograms =
+      new ConcurrentHashMap<>();
+  private final LongSupplier nanoClock;
+
+  ExchangeCallMetrics() {
+    this(System::nanoTime);
+  }
+
+  ExchangeCallMetrics(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+  }
+
+  @Override
+  public Call start(String tradingApiMethod) {
+    final TimedCall call = new TimedCall(tradingApiMethod, currentCall.get());
+    currentCall.set(call);
+    return call;
+  }
+
+  @Override
+  public ExchangeCallLatency getLatency(String tradingApiMethod, Outcome outcome, Phase phase) {
+    final MethodHistograms histograms = methodHistograms.get(tradingApiMethod);
+    if (histograms == null) {
+      return null;
+    }
+    final LatencyHistogram histogram = histograms.get(outcome, phase);
+    return histogram == null ? null : snapshot(tradingApiMethod, outcome, phase, histogram);
+  }
+
+  @Override
+  public List<ExchangeCallLatency> getLatencies() {
+    final List<ExchangeCallLatency> latencies = new ArrayList<>();
+    methodHistograms.forEach(
+        (tradingApiMethod, histograms) -> {
+          for (final Outcome outcome : OUTCOMES) {
+            for (final Phase phase : PHASES) {
+              final LatencyHistogram histogram = histograms.get(outcome, phase);
+              if (histogram != null) {
+                latencies.add(snapshot(tradingApiMethod, outcome, phase, histogram));
+              }
+            }
+          }
+        });
+    return latencies;
+  }
+
+  /**
+   * Returns the call being timed on the calling thread, so a request sent asynchronously can be
+   * recorded against it.
+   *
+   * @return the current call, or null if no call is being timed.
+   */
+  TimedCall currentCall() {
+    return currentCall.get();
+  }
+
+  /**
+   * Records the time to first byte of a request.
+   *
+   * @param call the call that sent the request, or null if it was sent outside a timed call.
+   * @param firstByteNanos the time from sending the request to receiving the response headers.
+   * @param error the error the response was mapped to, or null if it succeeded.
+   */
+  void recordFirstByte(TimedCall call, long firstByteNanos, Exception error) {
+    if (call != null) {
+      call.addFirstByte(firstByteNanos);
+    } else {
+      histogram(UNTIMED_METHOD, outcomeOf(error), Phase.FIRST_BYTE).record(firstByteNanos);
+    }
+  }
+
+  /**
+   * Maps an error onto the outcome of the call that threw it.
+   *
+   * @param error the error, or null if there was none.
+   * @return the outcome.
+   */
+  static Outcome outcomeOf(Exception error) {
+    if (error == null) {
+      return Outcome.OK;
+    }
+    return error instanceof ExchangeNetworkException ? Outcome.NETWORK_ERROR : Outcome.API_ERROR;
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private LatencyHistogram histogram(String tradingApiMethod, Outcome outcome, Phase phase) {
+    return methodHistograms
+        .computeIfAbsent(tradingApiMethod, method -> new MethodHistograms())
+        .getOrCreate(outcome, phase);
+  }
+
+  private static ExchangeCallLatency snapshot(
+      String tradingApiMethod, Outcome outcome, Phase phase, LatencyHistogram histogram) {
+    return new ExchangeCallLatency(
+        tradingApiMethod,
+        outcome,
+        phase,
+        histogram.getCount(),
+        histogram.getValueAtPercentile(50),
+        histogram.getValueAtPercentile(99),
+        histogram.getValueAtPercentile(99.9),
+        histogram.getMax());
+  }
+
+  /** A Trading API method's histograms, created when first recorded to. */
+  private static class MethodHistograms {
+
+    private final AtomicReferenceArray<LatencyHistogram> histograms =
+        new AtomicReferenceArray<>(OUTCOMES.length * PHASES.length);
+
+    LatencyHistogram get(Outcome outcome, Phase phase) {
+      return histograms.get(outcome.ordinal() * PHASES.length + phase.ordinal());
+    }
+
+    LatencyHistogram getOrCreate(Outcome outcome, Phase phase) {
+      final int index = outcome.ordinal() * PHASES.length + phase.ordinal();
+      final LatencyHistogram histogram = histograms.get(index);
+      if (histogram != null) {
+        return histogram;
+      }
+      histograms.compareAndSet(index, null, new LatencyHistogram());
+      return histograms.get(index);
+    }
+  }
+
+  /** A Trading API call being timed. */
+  final class TimedCall implements Call {
+
+    private final String tradingApiMethod;
+    private final TimedCall enclosingCall;
+    private final long startedAtNanos;
+    private long[] firstByteNanos = new long[1];
+    private int requestCount;
+    private boolean stopped;
+
+    private TimedCall(String tradingApiMethod, TimedCall enclosingCall) {
+      this.tradingApiMethod = tradingApiMethod;
+      this.enclosingCall = enclosingCall;
+      startedAtNanos = nanoClock.getAsLong();
+    }
+
+    @Override
+    public void stop(Outcome outcome) {
+      final long totalNanos = nanoClock.getAsLong() - startedAtNanos;
+      if (currentCall.get() == this) {
+        if (enclosingCall == null) {
+          currentCall.remove();
+        } else {
+          currentCall.set(enclosingCall);
+        }
+      }
+
+      final long[] requests;
+      synchronized (this) {
+        if (stopped) {
+          return;
+        }
+        stopped = true;
+        requests = Arrays.copyOf(firstByteNanos, requestCount);
+      }
+
+      histogram(tradingApiMethod, outcome, Phase.TOTAL).record(totalNanos);
+      if (requests.length == 0) {
+        return; // nothing came back from the exchange, so there was nothing to decode
+      }
+      final LatencyHistogram firstByte = histogram(tradingApiMethod, outcome, Phase.FIRST_BYTE);
+      long networkNanos = 0;
+      for (final long request : requests) {
+        firstByte.record(request);
+        networkNanos += request;
+      }
+      histogram(tradingApiMethod, outcome, Phase.DECODE).record(totalNanos - networkNanos);
+    }
+
+    // Async requests can complete on another thread, and after the call has stopped.
+    private synchronized void addFirstByte(long nanos) {
+      if (stopped) {
+        return;
+      }
+      if (requestCount == firstByteNanos.length) {
+        firstByteNanos = Arrays.copyOf(firstByteNanos, requestCount * 2);
+      }
+      firstByteNanos[requestCount++] = nanos;
+    }
+  }
+}
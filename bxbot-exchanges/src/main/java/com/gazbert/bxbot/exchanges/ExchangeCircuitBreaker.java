@@ -0,0 +1,310 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.CircuitBreakerState;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Circuit breaker for the calls an Exchange Adapter makes.
+ *
+ * <p>While the breaker is CLOSED, the outcome of the most recent calls is kept in a sliding
+ * window. A call fails if the exchange could not be reached, timed out or answered with a non-fatal
+ * error code; it is slow if it took longer than the slow call duration threshold. Once the window
+ * holds the minimum number of calls, the breaker trips OPEN if the failure rate or the slow call
+ * rate reaches its threshold.
+ *
+ * <p>While the breaker is OPEN, calls fail fast without being sent. Once the wait duration has
+ * passed, it goes HALF_OPEN and lets a single probe call through: if the probe succeeds the breaker
+ * closes, else it opens again. Other calls fail fast while the probe is in flight.
+ *
+ * <p>Each call that is let through is given a permit, which it hands back with its outcome. Only
+ * the probe's permit can close or reopen a HALF_OPEN breaker, and calls let through before the
+ * breaker last tripped no longer count, so a slow call that finishes late cannot settle the probe.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class ExchangeCircuitBreaker {
+
+  static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+  static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+  static final int DEFAULT_SLIDING_WINDOW_SIZE = 20;
+  static final int DEFAULT_MINIMUM_NUMBER_OF_CALLS = 10;
+  static final int DEFAULT_WAIT_DURATION_IN_OPEN_STATE = 60;
+
+  /**
+   * Returned by {@link #tryAcquirePermission()} when a call must fail fast.
+   */
+  static final long NOT_PERMITTED = -1;
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final int failureRateThreshold;
+  private final long slowCallDurationNanos;
+  private final int slowCallRateThreshold;
+  private final int minimumNumberOfCalls;
+  private final long waitDurationInOpenStateNanos;
+  private final LongSupplier nanoClock;
+
+  // The sliding window of call outcomes: a ring buffer of the most recent calls.
+  private final boolean[] failedCalls;
+  private final boolean[] slowCalls;
+  private int nextCall;
+  private int callCount;
+  private int failedCallCount;
+  private int slowCallCount;
+
+  private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+  private long openedAtNanos;
+  private long nextPermit;
+  private long firstPermitOfWindow;
+  private long probePermit = NOT_PERMITTED;
+  private long tripCount;
+  private long rejectedCount;
+
+  /**
+   * Creates the circuit breaker.
+   *
+   * @param failureRateThreshold the percentage of failed calls that trips the breaker.
+   * @param slowCallDurationNanos calls taking longer than this are slow; 0 means never.
+   * @param slowCallRateThreshold the percentage of slow calls that trips the breaker.
+   * @param slidingWindowSize the number of most recent calls the rates are taken over.
+   * @param minimumNumberOfCalls the number of calls needed in the window before it can trip.
+   * @param waitDurationInOpenStateNanos how long the breaker stays open before it lets a probe
+   *     call through.
+   * @param nanoClock the source of monotonic time in nanos.
+   */
+  ExchangeCircuitBreaker(
+      int failureRateThreshold,
+      long slowCallDurationNanos,
+      int slowCallRateThreshold,
+      int slidingWindowSize,
+      int minimumNumberOfCalls,
+      long waitDurationInOpenStateNanos,
+      LongSupplier nanoClock) {
+
+    if (failureRateThreshold < 1
+        || failureRateThreshold > 100
+        || slowCallRateThreshold < 1
+        || slowCallRateThreshold > 100
+        || slowCallDurationNanos < 0
+        || slidingWindowSize < 1
+        || minimumNumberOfCalls < 1
+        || waitDurationInOpenStateNanos < 1) {
+      throw new IllegalArgumentException(
+          "Circuit breaker thresholds must be between 1 and 100 percent, and the window size, "
+              + "minimum number of calls and wait duration at least 1.");
+    }
+
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallDurationNanos = slowCallDurationNanos;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.minimumNumberOfCalls = Math.min(minimumNumberOfCalls, slidingWindowSize);
+    this.waitDurationInOpenStateNanos = waitDurationInOpenStateNanos;
+    this.nanoClock = nanoClock;
+    failedCalls = new boolean[slidingWindowSize];
+    slowCalls = new boolean[slidingWindowSize];
+  }
+
+  /**
+   * Asks if a call can be sent. Every call let through must be followed by {@link
+   * #onSuccess(long, long)}, {@link #onFailure(long, long)} or {@link #releasePermission(long)},
+   * passing back the permit it was given.
+   *
+   * @return the call's permit if it can be sent, else {@link #NOT_PERMITTED} if it must fail fast.
+   */
+  synchronized long tryAcquirePermission() {
+    if (state == CircuitBreakerState.OPEN
+        && nanoClock.getAsLong() - openedAtNanos >= waitDurationInOpenStateNanos) {
+      state = CircuitBreakerState.HALF_OPEN;
+      LOG.info(() -> "Circuit breaker is HALF_OPEN - sending a probe call to the Exchange.");
+    }
+
+    if (state == CircuitBreakerState.CLOSED) {
+      return nextPermit++;
+    }
+    if (state == CircuitBreakerState.HALF_OPEN && probePermit == NOT_PERMITTED) {
+      probePermit = nextPermit++;
+      return probePermit;
+    }
+    rejectedCount++;
+    return NOT_PERMITTED;
+  }
+
+  /**
+   * Records a call that reached the exchange and got an answer.
+   *
+   * @param permit the permit the call was given.
+   * @param durationNanos how long the call took.
+   */
+  synchronized void onSuccess(long permit, long durationNanos) {
+    recordCall(permit, false, isSlow(durationNanos));
+  }
+
+  /**
+   * Records a call that failed because of the exchange or the network.
+   *
+   * @param permit the permit the call was given.
+   * @param durationNanos how long the call took.
+   */
+  synchronized void onFailure(long permit, long durationNanos) {
+    recordCall(permit, true, isSlow(durationNanos));
+  }
+
+  /**
+   * Hands back the permission for a call that was not sent, or whose outcome tells us nothing
+   * about the exchange, e.g. it was interrupted.
+   *
+   * @param permit the permit the call was given.
+   */
+  synchronized void releasePermission(long permit) {
+    if (permit == probePermit) {
+      probePermit = NOT_PERMITTED;
+    }
+  }
+
+  /**
+   * Returns the state of the breaker.
+   *
+   * @return the state.
+   */
+  synchronized CircuitBreakerState getState() {
+    if (state == CircuitBreakerState.OPEN
+        && nanoClock.getAsLong() - openedAtNanos >= waitDurationInOpenStateNanos) {
+      // Report it as it will be for the next call.
+      return CircuitBreakerState.HALF_OPEN;
+    }
+    return state;
+  }
+
+  /**
+   * Returns the number of times the breaker has tripped open.
+   *
+   * @return the trip count.
+   */
+  synchronized long getTripCount() {
+    return tripCount;
+  }
+
+  /**
+   * Returns the number of calls that failed fast without being sent.
+   *
+   * @return the rejected call count.
+   */
+  synchronized long getRejectedCount() {
+    return rejectedCount;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ExchangeCircuitBreaker{state="
+        + state
+        + ", failureRateThreshold="
+        + failureRateThreshold
+        + "%, slowCallDuration="
+        + TimeUnit.NANOSECONDS.toMillis(slowCallDurationNanos)
+        + "ms, slowCallRateThreshold="
+        + slowCallRateThreshold
+        + "%, slidingWindowSize="
+        + failedCalls.length
+        + ", minimumNumberOfCalls="
+        + minimumNumberOfCalls
+        + ", waitDurationInOpenState="
+        + TimeUnit.NANOSECONDS.toSeconds(waitDurationInOpenStateNanos)
+        + "s}";
+  }
+
+  private boolean isSlow(long durationNanos) {
+    return slowCallDurationNanos > 0 && durationNanos > slowCallDurationNanos;
+  }
+
+  private void recordCall(long permit, boolean failed, boolean slow) {
+    if (permit == probePermit) {
+      probePermit = NOT_PERMITTED;
+      if (failed || slow) {
+        open("probe call " + (failed ? "failed" : "was slow"));
+      } else {
+        resetWindow();
+        state = CircuitBreakerState.CLOSED;
+        LOG.info(() -> "Circuit breaker is CLOSED - probe call to the Exchange succeeded.");
+      }
+      return;
+    }
+
+    if (state != CircuitBreakerState.CLOSED || permit < firstPermitOfWindow) {
+      // A call sent before the breaker last tripped; it no longer counts.
+      return;
+    }
+
+    if (callCount == failedCalls.length) {
+      failedCallCount -= failedCalls[nextCall] ? 1 : 0;
+      slowCallCount -= slowCalls[nextCall] ? 1 : 0;
+    } else {
+      callCount++;
+    }
+    failedCalls[nextCall] = failed;
+    slowCalls[nextCall] = slow;
+    failedCallCount += failed ? 1 : 0;
+    slowCallCount += slow ? 1 : 0;
+    nextCall = (nextCall + 1) % failedCalls.length;
+
+    if (callCount >= minimumNumberOfCalls) {
+      final int failureRate = failedCallCount * 100 / callCount;
+      final int slowCallRate = slowCallCount * 100 / callCount;
+      if (failureRate >= failureRateThreshold) {
+        open("failure rate is " + failureRate + "%");
+      } else if (slowCallDurationNanos > 0 && slowCallRate >= slowCallRateThreshold) {
+        open("slow call rate is " + slowCallRate + "%");
+      }
+    }
+  }
+
+  private void open(String reason) {
+    resetWindow();
+    state = CircuitBreakerState.OPEN;
+    openedAtNanos = nanoClock.getAsLong();
+    tripCount++;
+    LOG.warn(
+        () ->
+            "Circuit breaker is OPEN - "
+                + reason
+                + ". Calls to the Exchange will fail fast for the next "
+                + TimeUnit.NANOSECONDS.toSeconds(waitDurationInOpenStateNanos)
+                + "s.");
+  }
+
+  private void resetWindow() {
+    firstPermitOfWindow = nextPermit;
+    nextCall = 0;
+    callCount = 0;
+    failedCallCount = 0;
+    slowCallCount = 0;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The transport the Exchange Adapters use to send HTTP requests to the exchange.
+ *
+ * <p>Implementations only move bytes: they return whatever status code the exchange sends back
+ * and throw {@link IOException} for anything that goes wrong on the wire. Mapping responses and
+ * failures onto the Trading API exceptions is done by {@link AbstractExchangeAdapter}, so every
+ * transport behaves the same way as far as the Trading Strategies are concerned.
+ *
+ * <p>Implementations must be thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+interface ExchangeHttpTransport {
+
+  /**
+   * Sends a request to the exchange and blocks until the response headers have been received.
+   *
+   * @param url the URL to invoke.
+   * @param httpMethod the HTTP method to use, e.g. GET, POST, DELETE
+   * @param postData optional post data to send. This is only sent for POST requests and can be
+   *     null.
+   * @param requestHeaders the request headers to set. This can be empty, but not null.
+   * @param timeoutInMillis the connect and read timeout in millis.
+   * @return the response from the exchange, whatever its status code. The payload may still be
+   *     streaming; it must be read or closed to release the connection.
+   * @throws IOException if the request could not be sent or the response could not be read.
+   * @throws InterruptedException if the calling thread was interrupted while waiting.
+   */
+  ExchangeHttpResponse send(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      int timeoutInMillis)
+      throws IOException, InterruptedException;
+
+  /**
+   * Sends a request to the exchange without blocking the calling thread. The returned future
+   * completes once the whole response has been read, so its payload is never streaming.
+   *
+   * <p>The default implementation sends the request on the calling thread. Transports that can
+   * do non-blocking I/O should override it.
+   *
+   * @param url the URL to invoke.
+   * @param httpMethod the HTTP method to use, e.g. GET, POST, DELETE
+   * @param postData optional post data to send. This is only sent for POST requests and can be
+   *     null.
+   * @param requestHeaders the request headers to set. This can be empty, but not null.
+   * @param timeoutInMillis the connect and read timeout in millis.
+   * @return the response from the exchange, whatever its status code. The future completes
+   *     exceptionally with an {@link IOException} if the request could not be sent or the response
+   *     could not be read.
+   */
+  default CompletableFuture<ExchangeHttpResponse> sendAsync(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      int timeoutInMillis) {
+
+    try {
+      final ExchangeHttpResponse response =
+          send(url, httpMethod, postData, requestHeaders, timeoutInMillis);
+      response.readPayload();
+      return CompletableFuture.completedFuture(response);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+}
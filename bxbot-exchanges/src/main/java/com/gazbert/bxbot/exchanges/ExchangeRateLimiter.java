@@ -0,0 +1,375 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchange.api.RateLimiterMetrics;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Client-side token bucket rate limiter for the calls an Exchange Adapter makes.
+ *
+ * <p>Each class of endpoint (public, private, order-entry) has its own bucket. A bucket holds up to
+ * its burst size of tokens and refills at the configured requests per second; every call takes a
+ * token. When the bucket is empty, the call either waits for its token or is rejected, depending
+ * on the policy. Waiting calls reserve their token up front, so concurrent callers are let through
+ * in turn at the configured rate.
+ *
+ * <p>Endpoint classes without a configured limit are not throttled.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class ExchangeRateLimiter implements RateLimiterMetrics {
+
+  /** Waits for the given number of nanoseconds. */
+  interface Sleeper {
+    void sleep(long nanos) throws InterruptedException;
+  }
+
+  /** The classes of exchange endpoint that can be rate limited. */
+  enum Endpoint {
+    /** Market data calls that need no authentication. */
+    PUBLIC("public"),
+
+    /** Authenticated account calls, e.g. balances and open orders. */
+    PRIVATE("private"),
+
+    /** Authenticated calls that create or cancel orders. */
+    ORDER_ENTRY("order-entry");
+
+    private final String configName;
+
+    Endpoint(String configName) {
+      this.configName = configName;
+    }
+
+    /**
+     * Returns the endpoint class for the given config key.
+     *
+     * @param name the config key, case insensitive, e.g. order-entry
+     * @return the endpoint class.
+     * @throws IllegalArgumentException if the key is not a known endpoint class.
+     */
+    static Endpoint fromConfig(String name) {
+      return valueOf(name.trim().toUpperCase(Locale.ENGLISH).replace('-', '_'));
+    }
+
+    @Override
+    public String toString() {
+      return configName;
+    }
+  }
+
+  /** What to do with a call that would breach its rate limit. */
+  enum Policy {
+    /** Wait for a token, for up to the max wait time. */
+    WAIT,
+
+    /** Reject the call immediately. */
+    FAIL_FAST;
+
+    /**
+     * Returns the policy for the given config value. Defaults to WAIT if no value is set.
+     *
+     * @param policy the policy name, case insensitive.
+     * @return the policy.
+     * @throws IllegalArgumentException if the value is not a known policy.
+     */
+    static Policy fromConfig(String policy) {
+      if (policy == null || policy.trim().isEmpty()) {
+        return WAIT;
+      }
+      return valueOf(policy.trim().toUpperCase(Locale.ENGLISH).replace('-', '_'));
+    }
+  }
+
+  /**
+   * Returned by {@link #reserve(Endpoint)} when a call must not be sent.
+   */
+  static final long NOT_PERMITTED = -1;
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final Map<Endpoint, TokenBucket> buckets = new EnumMap<>(Endpoint.class);
+  private final Policy policy;
+  private final long maxWaitNanos;
+  private final LongSupplier nanoClock;
+  private final Sleeper sleeper;
+
+  /**
+   * Creates the rate limiter.
+   *
+   * @param policy what to do with calls that would breach a limit.
+   * @param maxWaitNanos the longest a call will wait for a token under the WAIT policy.
+   */
+  ExchangeRateLimiter(Policy policy, long maxWaitNanos) {
+    this(policy, maxWaitNanos, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+  }
+
+  /**
+   * Creates the rate limiter using the given clock and sleeper.
+   *
+   * @param policy what to do with calls that would breach a limit.
+   * @param maxWaitNanos the longest a call will wait for a token under the WAIT policy.
+   * @param nanoClock the source of monotonic time in nanos.
+   * @param sleeper used to wait for a token.
+   */
+  ExchangeRateLimiter(
+      Policy policy, long maxWaitNanos, LongSupplier nanoClock, Sleeper sleeper) {
+    this.policy = policy;
+    this.maxWaitNanos = maxWaitNanos;
+    this.nanoClock = nanoClock;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Sets the limit for a class of endpoint. Must be called before the limiter is shared.
+   *
+   * @param endpoint the endpoint class.
+   * @param requestsPerSecond the sustained rate; must be more than 0.
+   * @param burst the number of calls that can be made back to back; must be at least 1.
+   */
+  void setRateLimit(Endpoint endpoint, double requestsPerSecond, int burst) {
+    if (requestsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException(
+          "Rate limit for "
+              + endpoint
+              + " endpoints must have requestsPerSecond > 0 and burst >= 1 but was: "
+              + requestsPerSecond
+              + "/"
+              + burst);
+    }
+    buckets.put(endpoint, new TokenBucket(requestsPerSecond, burst, nanoClock.getAsLong()));
+  }
+
+  /**
+   * Takes a token for a call to the given class of endpoint, waiting for one if the policy allows.
+   *
+   * @param endpoint the endpoint class being called.
+   * @return true if the call can go ahead, false if it breaches the limit and must not be sent.
+   * @throws InterruptedException if interrupted whilst waiting for a token.
+   */
+  boolean acquire(Endpoint endpoint) throws InterruptedException {
+    final long waitNanos = reserve(endpoint);
+    if (waitNanos == NOT_PERMITTED) {
+      return false;
+    }
+    if (waitNanos > 0) {
+      sleeper.sleep(waitNanos);
+    }
+    return true;
+  }
+
+  /**
+   * Reserves a token for a call to the given class of endpoint without waiting for it. Used by
+   * calls that must not block: the caller delays sending the call by the time returned.
+   *
+   * @param endpoint the endpoint class being called.
+   * @return how long in nanos the call must wait before it is sent, or {@link #NOT_PERMITTED} if
+   *     it breaches the limit and must not be sent.
+   */
+  long reserve(Endpoint endpoint) {
+    final TokenBucket bucket = buckets.get(endpoint);
+    if (bucket == null) {
+      return 0;
+    }
+
+    final long allowedWaitNanos = policy == Policy.WAIT ? maxWaitNanos : 0;
+    final long waitNanos = bucket.reserve(nanoClock.getAsLong(), allowedWaitNanos);
+    if (waitNanos == NOT_PERMITTED) {
+      bucket.rejectedCalls.increment();
+      LOG.warn(() -> "Rate limit for " + endpoint + " endpoints reached - rejecting call.");
+      return NOT_PERMITTED;
+    }
+
+    if (waitNanos > 0) {
+      bucket.throttledCalls.increment();
+      bucket.throttledNanos.add(waitNanos);
+      LOG.debug(
+          () ->
+              "Rate limit for "
+                  + endpoint
+                  + " endpoints reached - waiting "
+                  + TimeUnit.NANOSECONDS.toMillis(waitNanos)
+                  + "ms.");
+    }
+    return waitNanos;
+  }
+
+  /**
+   * Returns true if a limit is set for the given class of endpoint.
+   *
+   * @param endpoint the endpoint class.
+   * @return true if calls to the endpoint class are rate limited.
+   */
+  boolean isRateLimited(Endpoint endpoint) {
+    return buckets.containsKey(endpoint);
+  }
+
+  @Override
+  public List<String> getRateLimitedEndpoints() {
+    final List<String> endpoints = new ArrayList<>(buckets.size());
+    for (final Endpoint endpoint : buckets.keySet()) {
+      endpoints.add(endpoint.toString());
+    }
+    return endpoints;
+  }
+
+  /**
+   * Returns the number of calls to the given class of endpoint that had to wait for a token.
+   *
+   * @param endpoint the endpoint class.
+   * @return the throttled call count.
+   */
+  long getThrottledCount(Endpoint endpoint) {
+    final TokenBucket bucket = buckets.get(endpoint);
+    return bucket == null ? 0 : bucket.throttledCalls.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalArgumentException if the endpoint is not a known endpoint class.
+   */
+  @Override
+  public long getThrottledCount(String endpoint) {
+    return getThrottledCount(Endpoint.fromConfig(endpoint));
+  }
+
+  /**
+   * Returns the total time calls to the given class of endpoint have spent waiting for a token.
+   *
+   * @param endpoint the endpoint class.
+   * @return the time spent throttled in nanos.
+   */
+  long getThrottledNanos(Endpoint endpoint) {
+    final TokenBucket bucket = buckets.get(endpoint);
+    return bucket == null ? 0 : bucket.throttledNanos.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalArgumentException if the endpoint is not a known endpoint class.
+   */
+  @Override
+  public long getThrottledNanos(String endpoint) {
+    return getThrottledNanos(Endpoint.fromConfig(endpoint));
+  }
+
+  /**
+   * Returns the number of calls to the given class of endpoint that were rejected.
+   *
+   * @param endpoint the endpoint class.
+   * @return the rejected call count.
+   */
+  long getRejectedCount(Endpoint endpoint) {
+    final TokenBucket bucket = buckets.get(endpoint);
+    return bucket == null ? 0 : bucket.rejectedCalls.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws IllegalArgumentException if the endpoint is not a known endpoint class.
+   */
+  @Override
+  public long getRejectedCount(String endpoint) {
+    return getRejectedCount(Endpoint.fromConfig(endpoint));
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder limits = new StringBuilder();
+    buckets.forEach(
+        (endpoint, bucket) -> {
+          if (limits.length() > 0) {
+            limits.append(", ");
+          }
+          limits.append(endpoint).append('=').append(bucket);
+        });
+    return "ExchangeRateLimiter{policy=" + policy + ", limits={" + limits + "}}";
+  }
+
+  /** Token bucket for one class of endpoint. */
+  private static final class TokenBucket {
+
+    private final double requestsPerSecond;
+    private final double tokensPerNano;
+    private final int capacity;
+    private double tokens;
+    private long lastRefill;
+
+    private final LongAdder throttledCalls = new LongAdder();
+    private final LongAdder throttledNanos = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    TokenBucket(double requestsPerSecond, int capacity, long now) {
+      this.requestsPerSecond = requestsPerSecond;
+      this.tokensPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+      this.capacity = capacity;
+      this.tokens = capacity;
+      this.lastRefill = now;
+    }
+
+    /*
+     * Takes a token, going into debt if need be. Returns how long the caller must wait before its
+     * token is due, or NOT_PERMITTED (taking nothing) if that is longer than it is allowed to wait.
+     */
+    synchronized long reserve(long now, long allowedWaitNanos) {
+      if (now > lastRefill) {
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+      }
+
+      if (tokens >= 1) {
+        tokens -= 1;
+        return 0;
+      }
+
+      final long waitNanos = (long) Math.ceil((1 - tokens) / tokensPerNano);
+      if (waitNanos > allowedWaitNanos) {
+        return NOT_PERMITTED;
+      }
+      tokens -= 1;
+      return waitNanos;
+    }
+
+    @Override
+    public String toString() {
+      return requestsPerSecond + "/s burst " + capacity;
+    }
+  }
+}
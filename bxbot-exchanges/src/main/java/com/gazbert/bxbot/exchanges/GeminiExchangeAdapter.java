@@ -27,39 +27,43 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
-import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApi;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -73,8 +77,12 @@ import org.apache.logging.log4j.Logger;
  * of calling the {@link #sendPublicRequestToExchange(String)} and {@link
  * #sendAuthenticatedRequestToExchange(String, Map)} methods. Use it at our own risk! </strong>
  *
- * <p>The adapter only supports the REST implementation of the <a
- * href="https://docs.gemini.com/rest-api/">Trading API</a>.
+ * <p>The adapter uses the REST implementation of the <a
+ * href="https://docs.gemini.com/rest-api/">Trading API</a>. If the optional market-data-stream
+ * item in the otherConfig is set to true, the order book, best bid/ask, last price and ticker are
+ * instead served from Gemini's <a href="https://docs.gemini.com/websocket-api/#market-data">market
+ * data stream</a> while it is in sync; the REST calls are used until it is, and whenever the
+ * stream is lost.
  *
  * <p>Gemini operates <a href="https://docs.gemini.com/rest-api/#rate-limits">rate limits</a>:
  *
@@ -96,9 +104,11 @@ import org.apache.logging.log4j.Logger;
  * sent to the exchange as 250.18. For the "ethbtc" market, price currency (BTC) values are limited
  * to 5 decimal places - the adapter will truncate and round accordingly.
  *
- * <p>The Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single
- * thread in order to preserve trade execution order. The {@link URLConnection} achieves this by
- * blocking/waiting on the input stream (response) for each API call.
+ * <p>Orders placed with a client order id are sent with Gemini's {@code client_order_id}, which
+ * comes back in the active orders and order status responses.
+ *
+ * <p>The Exchange Adapter is thread safe once it has been initialised; the Trading API calls can be
+ * made from more than one thread at a time.
  *
  * <p>The {@link TradingApi} calls will throw a {@link ExchangeNetworkException} if a network error
  * occurs trying to connect to the exchange. A {@link TradingApiException} is thrown for
@@ -112,10 +122,8 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
 
   private static final Logger LOG = LogManager.getLogger();
 
+  private static final String GEMINI_BASE_URL = "https://api.gemini.com/";
   private static final String GEMINI_API_VERSION = "v1";
-  private static final String PUBLIC_API_BASE_URL =
-      "https://api.gemini.com/" + GEMINI_API_VERSION + "/";
-  private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
   private static final String UNEXPECTED_ERROR_MSG =
       "Unexpected error has occurred in Gemini Exchange Adapter. ";
@@ -124,12 +132,14 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
 
   private static final String AMOUNT = "amount";
   private static final String PRICE = "price";
+  private static final String CLIENT_ORDER_ID = "client_order_id";
 
   private static final String KEY_PROPERTY_NAME = "key";
   private static final String SECRET_PROPERTY_NAME = "secret";
 
   private static final String BUY_FEE_PROPERTY_NAME = "buy-fee";
   private static final String SELL_FEE_PROPERTY_NAME = "sell-fee";
+  private static final String MARKET_DATA_STREAM_PROPERTY_NAME = "market-data-stream";
 
   /*
    * Markets on the exchange. Used for determining order price truncation/rounding policy.
@@ -153,15 +163,17 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   private BigDecimal buyFeePercentage;
   private BigDecimal sellFeePercentage;
 
+  private String publicApiBaseUrl = GEMINI_BASE_URL + GEMINI_API_VERSION + "/";
+  private String authenticatedApiUrl = publicApiBaseUrl;
+
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private boolean initializedMacAuthentication = false;
-  private long nonce = 0;
 
   private Gson gson;
 
+  private MarketDataFeed marketDataFeed;
+
   @Override
   public void init(ExchangeConfig config) {
     LOG.info(() -> "About to initialise Gemini ExchangeConfig: " + config);
@@ -169,7 +181,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     setNetworkConfig(config);
     setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
     initSecureMessageLayer();
     initGson();
   }
@@ -183,9 +194,24 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
+    return createOrder(marketId, orderType, quantity, price, null);
+  }
+
+  @Override
+  public String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
     try {
       final Map<String, String> params = createRequestParamMap();
 
+      if (clientOrderId != null) {
+        params.put(CLIENT_ORDER_ID, clientOrderId);
+      }
+
       params.put("symbol", marketId);
 
       // note we need to limit amount and price to 6 decimal places else exchange will barf with 400
@@ -256,6 +282,53 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  @Override
+  public boolean supportsClientOrderIds() {
+    return true;
+  }
+
+  /*
+   * The order/status lookup finds active and closed, i.e. filled or cancelled, orders. Looked up
+   * by client order id, it answers with a list of the matching orders, and a 400 HTTP Status if
+   * there are none.
+   */
+  @Override
+  public String getOrderIdByClientOrderId(String marketIdNotNeeded, String clientOrderId)
+      throws TradingApiException, ExchangeNetworkException {
+    try {
+      final Map<String, String> params = createRequestParamMap();
+      params.put(CLIENT_ORDER_ID, clientOrderId);
+
+      final ExchangeHttpResponse response =
+          sendAuthenticatedRequestToExchange("order/status", params);
+
+      LOG.debug(() -> "Order Status response: " + response);
+
+      final String payload = response.getPayload();
+      final List<GeminiOpenOrder> geminiOrders =
+          payload.trim().startsWith("[")
+              ? gson.fromJson(payload, GeminiOpenOrders.class)
+              : List.of(gson.fromJson(payload, GeminiOpenOrder.class));
+      for (final GeminiOpenOrder geminiOrder : geminiOrders) {
+        if (clientOrderId.equals(geminiOrder.clientOrderId)) {
+          return Long.toString(geminiOrder.orderId);
+        }
+      }
+      return null;
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      if (isHttpStatusError(e, HttpURLConnection.HTTP_BAD_REQUEST)) {
+        return null;
+      } else {
+        throw e;
+      }
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
   @Override
   public boolean cancelOrder(String orderId, String marketIdNotNeeded)
       throws TradingApiException, ExchangeNetworkException {
@@ -274,7 +347,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
       return true;
 
     } catch (ExchangeNetworkException | TradingApiException e) {
-      if (e.getCause() != null && e.getCause().getMessage().contains("400")) {
+      if (isHttpStatusError(e, HttpURLConnection.HTTP_BAD_REQUEST)) {
         final String errorMsg =
             "Failed to cancel order on exchange. Did not recognise Order Id: " + orderId;
         LOG.error(errorMsg, e);
@@ -321,7 +394,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
                     + geminiOpenOrder.type);
         }
 
-        final OpenOrder order =
+        final OpenOrderImpl order =
             new OpenOrderImpl(
                 Long.toString(geminiOpenOrder.orderId),
                 Date.from(Instant.ofEpochMilli(geminiOpenOrder.timestampms)),
@@ -333,6 +406,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
                 geminiOpenOrder.price.multiply(
                     geminiOpenOrder.originalAmount) // total - not provided by Gemini :-(
                 );
+        order.setClientOrderId(geminiOpenOrder.clientOrderId);
 
         ordersToReturn.add(order);
       }
@@ -350,36 +424,33 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws TradingApiException, ExchangeNetworkException {
+    validateMaxLevels(maxLevels);
+    if (marketDataFeed != null) {
+      final MarketOrderBook streamedOrderBook = marketDataFeed.getMarketOrders(marketId, maxLevels);
+      if (streamedOrderBook != null) {
+        return streamedOrderBook;
+      }
+    }
     try {
-      final ExchangeHttpResponse response = sendPublicRequestToExchange("book/" + marketId);
+      // Without limits, the exchange sends its default depth of 50 levels each side.
+      final String limits =
+          maxLevels == ALL_MARKET_ORDER_LEVELS
+              ? ""
+              : "?limit_bids=" + maxLevels + "&limit_asks=" + maxLevels;
+      final ExchangeHttpResponse response =
+          sendPublicRequestToExchange("book/" + marketId + limits);
 
       LOG.debug(() -> "Market Orders response: " + response);
 
-      final GeminiOrderBook orderBook = gson.fromJson(response.getPayload(), GeminiOrderBook.class);
-
-      final List<MarketOrder> buyOrders = new ArrayList<>();
-      for (GeminiMarketOrder geminiBuyOrder : orderBook.bids) {
-        final MarketOrder buyOrder =
-            new MarketOrderImpl(
-                OrderType.BUY,
-                geminiBuyOrder.price,
-                geminiBuyOrder.amount,
-                geminiBuyOrder.price.multiply(geminiBuyOrder.amount));
-        buyOrders.add(buyOrder);
-      }
+      final GeminiOrderBook orderBook = response.fromJson(gson, GeminiOrderBook.class);
 
-      final List<MarketOrder> sellOrders = new ArrayList<>();
-      for (GeminiMarketOrder geminiSellOrder : orderBook.asks) {
-        final MarketOrder sellOrder =
-            new MarketOrderImpl(
-                OrderType.SELL,
-                geminiSellOrder.price,
-                geminiSellOrder.amount,
-                geminiSellOrder.price.multiply(geminiSellOrder.amount));
-        sellOrders.add(sellOrder);
-      }
-
-      return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+      return orderBook.levels.forMarket(marketId, maxLevels);
 
     } catch (ExchangeNetworkException | TradingApiException e) {
       throw e;
@@ -393,6 +464,12 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public BigDecimal getLatestMarketPrice(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    if (marketDataFeed != null) {
+      final BigDecimal streamedPrice = marketDataFeed.getLatestMarketPrice(marketId);
+      if (streamedPrice != null) {
+        return streamedPrice;
+      }
+    }
     try {
       final ExchangeHttpResponse response = sendPublicRequestToExchange("pubticker/" + marketId);
 
@@ -410,6 +487,74 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    if (marketDataFeed != null) {
+      final BestBidAsk streamedBestBidAsk = marketDataFeed.getBestBidAsk(marketId);
+      if (streamedBestBidAsk != null) {
+        return streamedBestBidAsk;
+      }
+    }
+    try {
+      // The ticker is a fraction of the size of the order book.
+      final ExchangeHttpResponse response = sendPublicRequestToExchange("pubticker/" + marketId);
+
+      LOG.debug(() -> "Best Bid/Ask response: " + response);
+
+      if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
+        final GeminiTicker ticker = gson.fromJson(response.getPayload(), GeminiTicker.class);
+        return new BestBidAskImpl(ticker.bid, ticker.ask);
+
+      } else {
+        final String errorMsg = "Failed to get best bid/ask from exchange. Details: " + response;
+        LOG.error(errorMsg);
+        throw new TradingApiException(errorMsg);
+      }
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
+  @Override
+  public Ticker getTicker(String marketId) throws TradingApiException, ExchangeNetworkException {
+    if (marketDataFeed != null) {
+      final Ticker streamedTicker = marketDataFeed.getTicker(marketId);
+      if (streamedTicker != null) {
+        return streamedTicker;
+      }
+    }
+    try {
+      final ExchangeHttpResponse response = sendPublicRequestToExchange("pubticker/" + marketId);
+
+      LOG.debug(() -> "Ticker response: " + response);
+
+      final GeminiTicker ticker = gson.fromJson(response.getPayload(), GeminiTicker.class);
+      return new TickerImpl(
+          ticker.last,
+          ticker.bid,
+          ticker.ask,
+          null, // low not supplied by Gemini
+          null, // high not supplied by Gemini
+          null, // open not supplied by Gemini
+          null, // volume is keyed by currency, so not adapted
+          null, // vwap not supplied by Gemini
+          ticker.volume != null ? ticker.volume.timestamp : null);
+
+    } catch (ExchangeNetworkException | TradingApiException e) {
+      throw e;
+
+    } catch (Exception e) {
+      LOG.error(UNEXPECTED_ERROR_MSG, e);
+      throw new TradingApiException(UNEXPECTED_ERROR_MSG, e);
+    }
+  }
+
   @Override
   public BalanceInfo getBalanceInfo() throws TradingApiException, ExchangeNetworkException {
     try {
@@ -469,28 +614,18 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   //  See https://docs.gemini.com/rest-api/
   // --------------------------------------------------------------------------
 
-  /** GSON class for a market Order Book. */
+  /**
+   * GSON class for a market Order Book. The bids and asks are read straight into the columns of an
+   * order book; the market is set when it is adapted. Each order's timestamp is ignored as per the
+   * API spec.
+   */
   private static class GeminiOrderBook {
 
-    List<GeminiMarketOrder> bids;
-    List<GeminiMarketOrder> asks;
-
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this).add("bids", bids).add("asks", asks).toString();
-    }
-  }
-
-  /** GSON class for a Market Order. */
-  private static class GeminiMarketOrder {
-
-    BigDecimal price;
-    BigDecimal amount;
-    // ignore the timestamp attribute as per the API spec
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this).add(PRICE, price).add(AMOUNT, amount).toString();
+      return MoreObjects.toStringHelper(this).add("levels", levels).toString();
     }
   }
 
@@ -502,23 +637,20 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
 
   /**
    * GSON class for holding account type balance info. This adapter only supports type 'exchange'.
+   * Only the available balance is used.
    */
   private static class GeminiAccountBalance {
 
     String type;
     String currency;
-    BigDecimal amount;
     BigDecimal available;
-    BigDecimal availableForWithdrawal;
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("type", type)
           .add("currency", currency)
-          .add(AMOUNT, amount)
           .add("available", available)
-          .add("availableForWithdrawal", availableForWithdrawal)
           .toString();
     }
   }
@@ -529,7 +661,6 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     BigDecimal bid;
     BigDecimal ask;
     BigDecimal last;
-    BigDecimal low;
     GeminiVolume volume;
 
     @Override
@@ -538,30 +669,22 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
           .add("bid", bid)
           .add("ask", ask)
           .add("last", last)
-          .add("low", low)
           .add("volume", volume)
           .toString();
     }
   }
 
-  /** GSON class for holding volume information in the Ticker response. */
+  /**
+   * GSON class for holding volume information in the Ticker response. The volumes are keyed by
+   * currency, so only the timestamp is used.
+   */
   private static class GeminiVolume {
 
-    @SerializedName("BTC")
-    BigDecimal btc;
-
-    @SerializedName("USD")
-    BigDecimal usd;
-
     long timestamp;
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("btc", btc)
-          .add("usd", usd)
-          .add("timestamp", timestamp)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("timestamp", timestamp).toString();
     }
   }
 
@@ -574,75 +697,207 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   /** GSON class representing an open order on the exchange. */
   private static class GeminiOpenOrder {
 
-    @SerializedName("order_id")
     long orderId; // use this value for order id as per the API spec
-
-    long id;
     String symbol;
-    String exchange;
     BigDecimal price;
-
-    @SerializedName("avg_execution_price")
-    BigDecimal avgExecutionPrice;
-
     String side; // buy|sell
     String type; // exchange limit
-    String timestamp; // timestamp as a String
     long timestampms; // timestamp in millis as a long
-
-    @SerializedName("is_live")
-    boolean isLive;
-
-    @SerializedName("is_cancelled")
-    boolean isCancelled;
-
-    @SerializedName("is_hidden")
-    boolean isHidden;
-
-    @SerializedName("was_forced")
-    boolean wasForced;
-
-    @SerializedName("remaining_amount")
     BigDecimal remainingAmount;
-
-    @SerializedName("executed_amount")
-    BigDecimal executedAmount;
-
-    @SerializedName("original_amount")
     BigDecimal originalAmount;
+    String clientOrderId;
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("orderId", orderId)
-          .add("id", id)
           .add("symbol", symbol)
-          .add("exchange", exchange)
           .add(PRICE, price)
-          .add("avgExecutionPrice", avgExecutionPrice)
           .add("side", side)
           .add("type", type)
-          .add("timestamp", timestamp)
           .add("timestampms", timestampms)
-          .add("isLive", isLive)
-          .add("isCancelled", isCancelled)
-          .add("isHidden", isHidden)
-          .add("wasForced", wasForced)
           .add("remainingAmount", remainingAmount)
-          .add("executedAmount", executedAmount)
           .add("originalAmount", originalAmount)
+          .add("clientOrderId", clientOrderId)
           .toString();
     }
   }
 
+  // --------------------------------------------------------------------------
+  //  GSON type adapters for JSON responses.
+  //  They read the fields above and skip everything else.
+  // --------------------------------------------------------------------------
+
+  /** Reads a Gemini order book. */
+  private static class GeminiOrderBookTypeAdapter extends ResponseTypeAdapter<GeminiOrderBook> {
+
+    @Override
+    GeminiOrderBook readValue(JsonReader in) throws IOException {
+      final GeminiOrderBook orderBook = new GeminiOrderBook();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bids":
+            nextObjectLevels(in, PRICE, AMOUNT, orderBook.levels::addBuyOrder);
+            break;
+          case "asks":
+            nextObjectLevels(in, PRICE, AMOUNT, orderBook.levels::addSellOrder);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return orderBook;
+    }
+  }
+
+  /** Reads a Gemini account balance. */
+  private static class GeminiAccountBalanceTypeAdapter
+      extends ResponseTypeAdapter<GeminiAccountBalance> {
+
+    @Override
+    GeminiAccountBalance readValue(JsonReader in) throws IOException {
+      final GeminiAccountBalance accountBalance = new GeminiAccountBalance();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "type":
+            accountBalance.type = nextString(in);
+            break;
+          case "currency":
+            accountBalance.currency = nextString(in);
+            break;
+          case "available":
+            accountBalance.available = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return accountBalance;
+    }
+  }
+
+  /** Reads a Gemini ticker. */
+  private static class GeminiTickerTypeAdapter extends ResponseTypeAdapter<GeminiTicker> {
+
+    @Override
+    GeminiTicker readValue(JsonReader in) throws IOException {
+      final GeminiTicker ticker = new GeminiTicker();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bid":
+            ticker.bid = nextBigDecimal(in);
+            break;
+          case "ask":
+            ticker.ask = nextBigDecimal(in);
+            break;
+          case "last":
+            ticker.last = nextBigDecimal(in);
+            break;
+          case "volume":
+            ticker.volume = nextVolume(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return ticker;
+    }
+
+    private static GeminiVolume nextVolume(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      final GeminiVolume volume = new GeminiVolume();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("timestamp".equals(in.nextName())) {
+          volume.timestamp = nextLong(in, 0);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return volume;
+    }
+  }
+
+  /** Reads a Gemini order, as returned for open orders and created orders. */
+  private static class GeminiOpenOrderTypeAdapter extends ResponseTypeAdapter<GeminiOpenOrder> {
+
+    @Override
+    GeminiOpenOrder readValue(JsonReader in) throws IOException {
+      final GeminiOpenOrder openOrder = new GeminiOpenOrder();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "order_id":
+            openOrder.orderId = nextLong(in, 0);
+            break;
+          case "symbol":
+            openOrder.symbol = nextString(in);
+            break;
+          case PRICE:
+            openOrder.price = nextBigDecimal(in);
+            break;
+          case "side":
+            openOrder.side = nextString(in);
+            break;
+          case "type":
+            openOrder.type = nextString(in);
+            break;
+          case "timestampms":
+            openOrder.timestampms = nextLong(in, 0);
+            break;
+          case "remaining_amount":
+            openOrder.remainingAmount = nextBigDecimal(in);
+            break;
+          case "original_amount":
+            openOrder.originalAmount = nextBigDecimal(in);
+            break;
+          case CLIENT_ORDER_ID:
+            openOrder.clientOrderId = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return openOrder;
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Transport layer
   // --------------------------------------------------------------------------
 
+  @Override
+  boolean isStreamedResponse(URL url) {
+    // The order book is always decoded straight off the wire.
+    return url.getPath().contains("/book/");
+  }
+
+  @Override
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/order/")) {
+      return Endpoint.ORDER_ENTRY;
+    }
+    return path.contains("/book/") || path.contains("/pubticker/")
+        ? Endpoint.PUBLIC
+        : Endpoint.PRIVATE;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
       throws ExchangeNetworkException, TradingApiException {
     try {
-      final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
+      final URL url = new URL(publicApiBaseUrl + apiMethod);
       return makeNetworkRequest(url, "GET", null, createRequestParamMap());
 
     } catch (MalformedURLException e) {
@@ -697,11 +952,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
       String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
 
-    if (!initializedMacAuthentication) {
-      final String errorMsg = "MAC Message security layer has not been initialized.";
-      LOG.error(errorMsg);
-      throw new IllegalStateException(errorMsg);
-    }
+    final RequestSigner signer = getRequestSigner();
 
     try {
       if (params == null) {
@@ -713,8 +964,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
       params.put("request", "/" + GEMINI_API_VERSION + "/" + apiMethod);
 
       // nonce is required by Gemini in every request
-      params.put("nonce", Long.toString(nonce));
-      nonce++;
+      params.put("nonce", Long.toString(nextNonce()));
 
       // JSON-ify the param dictionary
       final String paramsInJson = gson.toJson(params);
@@ -724,9 +974,8 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
           DatatypeConverter.printBase64Binary(paramsInJson.getBytes(StandardCharsets.UTF_8));
 
       // Create the signature
-      mac.reset(); // force reset
-      mac.update(base64payload.getBytes(StandardCharsets.UTF_8));
-      final String signature = toHex(mac.doFinal()).toLowerCase();
+      final String signature =
+          toHex(signer.sign(base64payload.getBytes(StandardCharsets.UTF_8))).toLowerCase();
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -737,7 +986,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
       // payload is JSON for this exchange
       requestHeaders.put("Content-Type", "application/json");
 
-      final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
+      final URL url = new URL(authenticatedApiUrl + apiMethod);
       return makeNetworkRequest(url, "POST", paramsInJson, requestHeaders);
 
     } catch (MalformedURLException e) {
@@ -763,11 +1012,7 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA384");
-      mac = Mac.getInstance("HmacSHA384");
-      mac.init(keyspec);
-      initializedMacAuthentication = true;
+      initRequestSigner("HmacSHA384", secret.getBytes(StandardCharsets.UTF_8));
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA384 installed?";
       LOG.error(errorMsg, e);
@@ -801,6 +1046,17 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
     sellFeePercentage =
         new BigDecimal(sellFeeInConfig).divide(new BigDecimal("100"), 8, RoundingMode.HALF_UP);
     LOG.info(() -> "Sell fee % in BigDecimal format: " + sellFeePercentage);
+
+    // Optional; the REST API is polled for market data unless this is set.
+    final String marketDataStream = otherConfig.getItem(MARKET_DATA_STREAM_PROPERTY_NAME);
+    if (Boolean.parseBoolean(marketDataStream)) {
+      LOG.info(
+          () -> "Market data will be streamed from " + GeminiMarketDataFeed.MARKET_DATA_STREAM_URL);
+      marketDataFeed = new GeminiMarketDataFeed(Duration.ofSeconds(getConnectionTimeout()));
+    }
+
+    publicApiBaseUrl = getBaseUrl(otherConfig, GEMINI_BASE_URL) + GEMINI_API_VERSION + "/";
+    authenticatedApiUrl = publicApiBaseUrl;
   }
 
   // --------------------------------------------------------------------------
@@ -808,7 +1064,21 @@ public final class GeminiExchangeAdapter extends AbstractExchangeAdapter
   // --------------------------------------------------------------------------
 
   private void initGson() {
+    final GeminiAccountBalanceTypeAdapter accountBalanceTypeAdapter =
+        new GeminiAccountBalanceTypeAdapter();
+    final GeminiOpenOrderTypeAdapter openOrderTypeAdapter = new GeminiOpenOrderTypeAdapter();
+
     final GsonBuilder gsonBuilder = new GsonBuilder();
+    gsonBuilder.registerTypeAdapter(GeminiOrderBook.class, new GeminiOrderBookTypeAdapter());
+    gsonBuilder.registerTypeAdapter(GeminiAccountBalance.class, accountBalanceTypeAdapter);
+    gsonBuilder.registerTypeAdapter(
+        GeminiBalances.class,
+        ResponseTypeAdapter.listAdapter(GeminiBalances::new, accountBalanceTypeAdapter::read));
+    gsonBuilder.registerTypeAdapter(GeminiTicker.class, new GeminiTickerTypeAdapter());
+    gsonBuilder.registerTypeAdapter(GeminiOpenOrder.class, openOrderTypeAdapter);
+    gsonBuilder.registerTypeAdapter(
+        GeminiOpenOrders.class,
+        ResponseTypeAdapter.listAdapter(GeminiOpenOrders::new, openOrderTypeAdapter::read));
     gson = gsonBuilder.create();
   }
 
@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Streaming market data feed handler for Gemini. The market data API is documented <a
+ * href="https://docs.gemini.com/websocket-api/#market-data">here</a>.
+ *
+ * <p>Gemini streams a market as soon as the WebSocket is opened: the first message carries the
+ * whole book as "initial" change events, and later messages carry the new remaining quantity at
+ * each changed price level, plus any trades. Every message, heartbeats included, has a socket
+ * sequence number that starts at 0 on each connection; a missing number means a message was lost
+ * and the book is resynced.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+final class GeminiMarketDataFeed extends MarketDataFeed {
+
+  static final String MARKET_DATA_STREAM_URL = "wss://api.gemini.com/v1/marketdata/";
+
+  /*
+   * Gemini sends a heartbeat every 5 seconds when asked to, so a market that has been quiet for
+   * three heartbeats is treated as lost.
+   */
+  private static final Duration STALE_AFTER = Duration.ofSeconds(15);
+  private static final Duration RESYNC_DELAY = Duration.ofSeconds(1);
+
+  private static final String CHANGE_EVENT = "change";
+  private static final String TRADE_EVENT = "trade";
+  private static final String BID_SIDE = "bid";
+
+  private final String streamUrl;
+  private final Gson gson =
+      new GsonBuilder()
+          .registerTypeAdapter(
+              GeminiMarketDataMessage.class, new GeminiMarketDataMessageTypeAdapter())
+          .create();
+
+  /**
+   * Creates the feed handler for the live exchange.
+   *
+   * @param connectionTimeout the WebSocket connect timeout.
+   */
+  GeminiMarketDataFeed(Duration connectionTimeout) {
+    this(MARKET_DATA_STREAM_URL, connectionTimeout, STALE_AFTER, RESYNC_DELAY, System::nanoTime);
+  }
+
+  GeminiMarketDataFeed(
+      String streamUrl,
+      Duration connectionTimeout,
+      Duration staleAfter,
+      Duration resyncDelay,
+      LongSupplier nanoClock) {
+    super("Gemini", connectionTimeout, staleAfter, resyncDelay, nanoClock);
+    this.streamUrl = streamUrl;
+  }
+
+  @Override
+  URI getStreamUri(String marketId) {
+    return URI.create(streamUrl + marketId + "?heartbeat=true");
+  }
+
+  @Override
+  void onMessage(StreamedMarket market, String message) throws StreamGapException {
+    final GeminiMarketDataMessage marketData =
+        gson.fromJson(message, GeminiMarketDataMessage.class);
+    checkSequence(market, marketData.socketSequence, 0);
+
+    if (marketData.events != null) {
+      for (final GeminiMarketDataEvent event : marketData.events) {
+        if (CHANGE_EVENT.equals(event.type)) {
+          market
+              .getOrderBook()
+              .update(
+                  BID_SIDE.equals(event.side) ? OrderType.BUY : OrderType.SELL,
+                  event.price,
+                  event.remaining);
+        } else if (TRADE_EVENT.equals(event.type)) {
+          market.setLastPrice(event.price);
+        }
+      }
+    }
+
+    if (marketData.socketSequence == 0) {
+      market.markSynced();
+    }
+  }
+
+  /** GSON class for a market data message. Heartbeats have no events. */
+  private static class GeminiMarketDataMessage {
+
+    long socketSequence;
+
+    List<GeminiMarketDataEvent> events;
+  }
+
+  /** GSON class for a book change or trade event. */
+  private static class GeminiMarketDataEvent {
+
+    String type;
+    String side;
+    BigDecimal price;
+    BigDecimal remaining;
+  }
+
+  /** Reads a market data message, skipping the fields the feed does not use. */
+  private static class GeminiMarketDataMessageTypeAdapter
+      extends ResponseTypeAdapter<GeminiMarketDataMessage> {
+
+    @Override
+    GeminiMarketDataMessage readValue(JsonReader in) throws IOException {
+      final GeminiMarketDataMessage message = new GeminiMarketDataMessage();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "socket_sequence":
+            message.socketSequence = nextLong(in, 0);
+            break;
+          case "events":
+            message.events = nextList(in, GeminiMarketDataMessageTypeAdapter::nextEvent);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return message;
+    }
+
+    private static GeminiMarketDataEvent nextEvent(JsonReader in) throws IOException {
+      final GeminiMarketDataEvent event = new GeminiMarketDataEvent();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "type":
+            event.type = nextString(in);
+            break;
+          case "side":
+            event.side = nextString(in);
+            break;
+          case "price":
+            event.price = nextBigDecimal(in);
+            break;
+          case "remaining":
+            event.remaining = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return event;
+    }
+  }
+}
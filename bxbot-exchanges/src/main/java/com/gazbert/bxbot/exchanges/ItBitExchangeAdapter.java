@@ -27,14 +27,15 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
-import com.gazbert.bxbot.trading.api.MarketOrder;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
@@ -44,7 +45,8 @@ import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.HttpURLConnection;
@@ -53,7 +55,6 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.time.Instant;
@@ -62,8 +63,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.function.Supplier;
 import javax.xml.bind.DatatypeConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -106,9 +106,8 @@ import org.apache.logging.log4j.Logger;
  * config-item is set to true in the exchange.yaml config file, the bot will stay alive and wait
  * until the next trade cycle.
  *
- * <p>The Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single
- * thread in order to preserve trade execution order. The {@link URLConnection} achieves this by
- * blocking/waiting on the input stream (response) for each API call.
+ * <p>The Exchange Adapter is thread safe once it has been initialised; the Trading API calls can be
+ * made from more than one thread at a time.
  *
  * <p>The {@link TradingApi} calls will throw a {@link ExchangeNetworkException} if a network error
  * occurs trying to connect to the exchange. A {@link TradingApiException} is thrown for
@@ -121,10 +120,8 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
 
   private static final Logger LOG = LogManager.getLogger();
 
+  private static final String ITBIT_BASE_URL = "https://api.itbit.com/";
   private static final String ITBIT_API_VERSION = "v1";
-  private static final String PUBLIC_API_BASE_URL =
-      "https://api.itbit.com/" + ITBIT_API_VERSION + "/";
-  private static final String AUTHENTICATED_API_URL = PUBLIC_API_BASE_URL;
 
   private static final String UNEXPECTED_ERROR_MSG =
       "Unexpected error has occurred in itBit Exchange Adapter. ";
@@ -152,16 +149,16 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
   private BigDecimal buyFeePercentage;
   private BigDecimal sellFeePercentage;
 
-  private String walletId;
+  private volatile String walletId;
   private boolean keepAliveDuringMaintenance;
 
+  private String publicApiBaseUrl = ITBIT_BASE_URL + ITBIT_API_VERSION + "/";
+  private String authenticatedApiUrl = publicApiBaseUrl;
+
   private String userId = "";
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private boolean initializedMacAuthentication = false;
-  private long nonce = 0;
 
   private Gson gson;
 
@@ -172,7 +169,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     setNetworkConfig(config);
     setOtherConfig(config);
 
-    nonce = System.currentTimeMillis() / 1000;
     initSecureMessageLayer();
     initGson();
   }
@@ -366,6 +362,13 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws TradingApiException, ExchangeNetworkException {
+    validateMaxLevels(maxLevels);
 
     ExchangeHttpResponse response = null;
 
@@ -378,31 +381,10 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
 
         final ItBitOrderBookWrapper orderBook =
-            gson.fromJson(response.getPayload(), ItBitOrderBookWrapper.class);
-
-        final List<MarketOrder> buyOrders = new ArrayList<>();
-        for (ItBitMarketOrder itBitBuyOrder : orderBook.bids) {
-          final MarketOrder buyOrder =
-              new MarketOrderImpl(
-                  OrderType.BUY,
-                  itBitBuyOrder.get(0),
-                  itBitBuyOrder.get(1),
-                  itBitBuyOrder.get(0).multiply(itBitBuyOrder.get(1)));
-          buyOrders.add(buyOrder);
-        }
-
-        final List<MarketOrder> sellOrders = new ArrayList<>();
-        for (ItBitMarketOrder itBitSellOrder : orderBook.asks) {
-          final MarketOrder sellOrder =
-              new MarketOrderImpl(
-                  OrderType.SELL,
-                  itBitSellOrder.get(0),
-                  itBitSellOrder.get(1),
-                  itBitSellOrder.get(0).multiply(itBitSellOrder.get(1)));
-          sellOrders.add(sellOrder);
-        }
+            response.fromJson(gson, ItBitOrderBookWrapper.class);
 
-        return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+        // itBit has no depth param and always sends the full book; only adapt what was asked for.
+        return orderBook.levels.forMarket(marketId, maxLevels);
       } else {
         final String errorMsg =
             "Failed to get market order book from exchange. Details: " + response;
@@ -578,6 +560,14 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     }
   }
 
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    // The ticker is a fraction of the size of the order book.
+    final Ticker ticker = getTicker(marketId);
+    return new BestBidAskImpl(ticker.getBid(), ticker.getAsk());
+  }
+
   // --------------------------------------------------------------------------
   //  GSON classes for JSON responses.
   //  See https://api.itbit.com/docs
@@ -621,107 +611,69 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
   private static class ItBitYourOrder {
 
     String id;
-    String walletId;
     String side; // 'buy' or 'sell'
     String instrument; // the marketId e.g. 'XBTUSD'
-    String type; // order type e.g. "limit"
     BigDecimal amount; // the original amount
-    BigDecimal displayAmount; // ??? not documented in the REST API
     BigDecimal price;
-    BigDecimal volumeWeightedAveragePrice;
     BigDecimal amountFilled;
     String createdTime; // e.g. "2015-10-01T18:10:39.3930000Z"
-    String status; // e.g. "open"
-    String clientOrderIdentifier; // cool - broker support :-)
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("id", id)
-          .add("walletId", walletId)
           .add("side", side)
           .add("instrument", instrument)
-          .add("type", type)
           .add("amount", amount)
-          .add("displayAmount", displayAmount)
           .add("price", price)
-          .add("volumeWeightedAveragePrice", volumeWeightedAveragePrice)
           .add("amountFilled", amountFilled)
           .add("createdTime", createdTime)
-          .add("status", status)
-          .add("clientOrderIdentifier", clientOrderIdentifier)
           .toString();
     }
   }
 
   /**
    * GSON class for holding itBit ticker returned from: "Get Order Book"
-   * /markets/{tickerSymbol}/order_book API call.
+   * /markets/{tickerSymbol}/order_book API call. The bids and asks, each an array of price and
+   * amount, are read straight into the columns of an order book; the market is set when it is
+   * adapted.
    */
   private static class ItBitOrderBookWrapper {
 
-    List<ItBitMarketOrder> bids;
-    List<ItBitMarketOrder> asks;
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this).add("bids", bids).add("asks", asks).toString();
+      return MoreObjects.toStringHelper(this).add("levels", levels).toString();
     }
   }
 
-  /**
-   * GSON class for holding Market Orders. First element in array is price, second element is
-   * amount.
-   */
-  private static class ItBitMarketOrder extends ArrayList<BigDecimal> {
-
-    private static final long serialVersionUID = -4959711260747077759L;
-  }
-
   /**
    * GSON class for holding itBit ticker returned from: "Get Ticker" /markets/{tickerSymbol}/ticker
-   * API call.
+   * API call. The amounts, and the figures for today, are skipped.
    */
   private static class ItBitTicker {
 
-    String pair; // e.g. XBTUSD
     BigDecimal bid;
-    BigDecimal bidAmt;
     BigDecimal ask;
-    BigDecimal askAmt;
     BigDecimal lastPrice;
-    BigDecimal lastAmt;
     BigDecimal volume24h;
-    BigDecimal volumeToday;
     BigDecimal high24h;
     BigDecimal low24h;
-    BigDecimal highToday;
-    BigDecimal lowToday;
     BigDecimal openToday;
-    BigDecimal vwapToday;
     BigDecimal vwap24h;
-
-    @SerializedName("serverTimeUTC")
     String serverTimeUtc;
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
-          .add("pair", pair)
           .add("bid", bid)
-          .add("bidAmt", bidAmt)
           .add("ask", ask)
-          .add("askAmt", askAmt)
           .add("lastPrice", lastPrice)
-          .add("lastAmt", lastAmt)
           .add("volume24h", volume24h)
-          .add("volumeToday", volumeToday)
           .add("high24h", high24h)
           .add("low24h", low24h)
-          .add("highToday", highToday)
-          .add("lowToday", lowToday)
           .add("openToday", openToday)
-          .add("vwapToday", vwapToday)
           .add("vwap24h", vwap24h)
           .add("serverTimeUtc", serverTimeUtc)
           .toString();
@@ -735,18 +687,11 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
   private static class ItBitWallet {
 
     String id;
-    String userId;
-    String name;
     List<ItBitBalance> balances;
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this)
-          .add("id", id)
-          .add(USER_ID_PROPERTY_NAME, userId)
-          .add("name", name)
-          .add("balances", balances)
-          .toString();
+      return MoreObjects.toStringHelper(this).add("id", id).add("balances", balances).toString();
     }
   }
 
@@ -754,27 +699,230 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
   private static class ItBitBalance {
 
     BigDecimal availableBalance;
-    BigDecimal totalBalance;
     String currency; // e.g. USD
 
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
           .add("availableBalance", availableBalance)
-          .add("totalBalance", totalBalance)
           .add("currency", currency)
           .toString();
     }
   }
 
+  // --------------------------------------------------------------------------
+  //  GSON type adapters for JSON responses.
+  //  They read the fields above and skip everything else.
+  // --------------------------------------------------------------------------
+
+  /** Reads an itBit cancel order error response. */
+  private static class ItBitCancelOrderResponseTypeAdapter
+      extends ResponseTypeAdapter<ItBitCancelOrderResponse> {
+
+    @Override
+    ItBitCancelOrderResponse readValue(JsonReader in) throws IOException {
+      final ItBitCancelOrderResponse cancelOrderResponse = new ItBitCancelOrderResponse();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "code":
+            cancelOrderResponse.code = nextString(in);
+            break;
+          case "description":
+            cancelOrderResponse.description = nextString(in);
+            break;
+          case "requestId":
+            cancelOrderResponse.requestId = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return cancelOrderResponse;
+    }
+  }
+
+  /**
+   * Reads an itBit order, as returned for your orders and created orders.
+   *
+   * @param <T> the order class.
+   */
+  private static class ItBitYourOrderTypeAdapter<T extends ItBitYourOrder>
+      extends ResponseTypeAdapter<T> {
+
+    private final Supplier<T> orderFactory;
+
+    ItBitYourOrderTypeAdapter(Supplier<T> orderFactory) {
+      this.orderFactory = orderFactory;
+    }
+
+    @Override
+    T readValue(JsonReader in) throws IOException {
+      final T order = orderFactory.get();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            order.id = nextString(in);
+            break;
+          case "side":
+            order.side = nextString(in);
+            break;
+          case "instrument":
+            order.instrument = nextString(in);
+            break;
+          case "amount":
+            order.amount = nextBigDecimal(in);
+            break;
+          case "price":
+            order.price = nextBigDecimal(in);
+            break;
+          case "amountFilled":
+            order.amountFilled = nextBigDecimal(in);
+            break;
+          case "createdTime":
+            order.createdTime = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return order;
+    }
+  }
+
+  /** Reads an itBit order book. */
+  private static class ItBitOrderBookWrapperTypeAdapter
+      extends ResponseTypeAdapter<ItBitOrderBookWrapper> {
+
+    @Override
+    ItBitOrderBookWrapper readValue(JsonReader in) throws IOException {
+      final ItBitOrderBookWrapper orderBook = new ItBitOrderBookWrapper();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bids":
+            nextArrayLevels(in, orderBook.levels::addBuyOrder);
+            break;
+          case "asks":
+            nextArrayLevels(in, orderBook.levels::addSellOrder);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return orderBook;
+    }
+  }
+
+  /** Reads an itBit ticker. */
+  private static class ItBitTickerTypeAdapter extends ResponseTypeAdapter<ItBitTicker> {
+
+    @Override
+    ItBitTicker readValue(JsonReader in) throws IOException {
+      final ItBitTicker ticker = new ItBitTicker();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bid":
+            ticker.bid = nextBigDecimal(in);
+            break;
+          case "ask":
+            ticker.ask = nextBigDecimal(in);
+            break;
+          case "lastPrice":
+            ticker.lastPrice = nextBigDecimal(in);
+            break;
+          case "volume24h":
+            ticker.volume24h = nextBigDecimal(in);
+            break;
+          case "high24h":
+            ticker.high24h = nextBigDecimal(in);
+            break;
+          case "low24h":
+            ticker.low24h = nextBigDecimal(in);
+            break;
+          case "openToday":
+            ticker.openToday = nextBigDecimal(in);
+            break;
+          case "vwap24h":
+            ticker.vwap24h = nextBigDecimal(in);
+            break;
+          case "serverTimeUTC":
+            ticker.serverTimeUtc = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return ticker;
+    }
+  }
+
+  /** Reads an itBit wallet. */
+  private static class ItBitWalletTypeAdapter extends ResponseTypeAdapter<ItBitWallet> {
+
+    @Override
+    ItBitWallet readValue(JsonReader in) throws IOException {
+      final ItBitWallet wallet = new ItBitWallet();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "id":
+            wallet.id = nextString(in);
+            break;
+          case "balances":
+            wallet.balances = nextList(in, ItBitWalletTypeAdapter::nextBalance);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return wallet;
+    }
+
+    private static ItBitBalance nextBalance(JsonReader in) throws IOException {
+      final ItBitBalance balance = new ItBitBalance();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "availableBalance":
+            balance.availableBalance = nextBigDecimal(in);
+            break;
+          case "currency":
+            balance.currency = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return balance;
+    }
+  }
+
   // --------------------------------------------------------------------------
   //  Transport layer
   // --------------------------------------------------------------------------
 
+  @Override
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains("/orders") && !"GET".equalsIgnoreCase(httpMethod)) {
+      return Endpoint.ORDER_ENTRY;
+    }
+    return path.contains("/" + MARKETS_RESOURCE + "/") ? Endpoint.PUBLIC : Endpoint.PRIVATE;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(String apiMethod)
       throws ExchangeNetworkException, TradingApiException {
     try {
-      final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod);
+      final URL url = new URL(publicApiBaseUrl + apiMethod);
       return makeNetworkRequest(url, "GET", null, createHeaderParamMap());
 
     } catch (MalformedURLException e) {
@@ -793,18 +941,14 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       String httpMethod, String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
 
-    if (!initializedMacAuthentication) {
-      final String errorMsg = "MAC Message security layer has not been initialized.";
-      LOG.error(errorMsg);
-      throw new IllegalStateException(errorMsg);
-    }
+    final RequestSigner signer = getRequestSigner();
 
     try {
       // Generate new UNIX time in secs
       final String unixTime = Long.toString(System.currentTimeMillis());
 
-      // increment nonce for use in this call
-      nonce++;
+      // new nonce for use in this call
+      final long nonce = nextNonce();
 
       if (params == null) {
         // create empty map for non-param API calls
@@ -842,10 +986,10 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
           LOG.debug(() -> "Query param string: " + queryParams);
 
           if (params.isEmpty()) {
-            invocationUrl = AUTHENTICATED_API_URL + apiMethod;
+            invocationUrl = authenticatedApiUrl + apiMethod;
             signatureParamList.add(invocationUrl);
           } else {
-            invocationUrl = AUTHENTICATED_API_URL + apiMethod + "?" + queryParams;
+            invocationUrl = authenticatedApiUrl + apiMethod + "?" + queryParams;
             signatureParamList.add(invocationUrl);
           }
 
@@ -856,7 +1000,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         case "POST":
           LOG.debug(() -> "Building secure POST request...");
 
-          invocationUrl = AUTHENTICATED_API_URL + apiMethod;
+          invocationUrl = authenticatedApiUrl + apiMethod;
           signatureParamList.add(invocationUrl);
 
           requestBody = gson.toJson(params);
@@ -866,7 +1010,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
         case "DELETE":
           LOG.debug(() -> "Building secure DELETE request...");
 
-          invocationUrl = AUTHENTICATED_API_URL + apiMethod;
+          invocationUrl = authenticatedApiUrl + apiMethod;
           signatureParamList.add(invocationUrl);
           signatureParamList.add(
               requestBodyForSignature); // request body is empty JSON string for a DELETE
@@ -897,18 +1041,15 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       final String noncePrependedToJson = nonce + signatureParamsInJson;
 
       // Construct the SHA-256 hash of the noncePrependedToJson. Call this the message hash.
-      final MessageDigest md = MessageDigest.getInstance("SHA-256");
-      md.update(noncePrependedToJson.getBytes(StandardCharsets.UTF_8));
-      final byte[] messageHash = md.digest();
+      final byte[] messageHash =
+          RequestSigner.sha256(noncePrependedToJson.getBytes(StandardCharsets.UTF_8));
 
       // Prepend the UTF-8 encoded request URL to the message hash.
       // Generate the SHA-512 HMAC of the prependRequestUrlToMsgHash using your API secret as the
       // key.
-      mac.reset(); // force reset
-      mac.update(invocationUrl.getBytes(StandardCharsets.UTF_8));
-      mac.update(messageHash);
-
-      final String signature = DatatypeConverter.printBase64Binary(mac.doFinal());
+      final String signature =
+          DatatypeConverter.printBase64Binary(
+              signer.sign(invocationUrl.getBytes(StandardCharsets.UTF_8), messageHash));
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -930,11 +1071,6 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
       final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new TradingApiException(errorMsg, e);
-
-    } catch (NoSuchAlgorithmException e) {
-      final String errorMsg = "Failed to create SHA-256 digest when building message signature.";
-      LOG.error(errorMsg, e);
-      throw new TradingApiException(errorMsg, e);
     }
   }
 
@@ -946,11 +1082,7 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
    */
   private void initSecureMessageLayer() {
     try {
-      final SecretKeySpec keyspec =
-          new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
-      mac = Mac.getInstance("HmacSHA512");
-      mac.init(keyspec);
-      initializedMacAuthentication = true;
+      initRequestSigner("HmacSHA512", secret.getBytes(StandardCharsets.UTF_8));
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HMAC-SHA512 installed?";
       LOG.error(errorMsg, e);
@@ -994,6 +1126,9 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     } else {
       LOG.info(() -> KEEP_ALIVE_DURING_MAINTENANCE_PROPERTY_NAME + " is not set in exchange.yaml");
     }
+
+    publicApiBaseUrl = getBaseUrl(otherConfig, ITBIT_BASE_URL) + ITBIT_API_VERSION + "/";
+    authenticatedApiUrl = publicApiBaseUrl;
   }
 
   // --------------------------------------------------------------------------
@@ -1078,6 +1213,16 @@ public final class ItBitExchangeAdapter extends AbstractExchangeAdapter implemen
     // https://api.itbit.com/v1/wallets?userId=56DA621F -->
     // https://api.itbit.com/v1/wallets?userId\u003d56DA621F
     final GsonBuilder gsonBuilder = new GsonBuilder().disableHtmlEscaping();
+    gsonBuilder.registerTypeAdapter(
+        ItBitCancelOrderResponse.class, new ItBitCancelOrderResponseTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        ItBitNewOrderResponse.class, new ItBitYourOrderTypeAdapter<>(ItBitNewOrderResponse::new));
+    gsonBuilder.registerTypeAdapter(
+        ItBitYourOrder.class, new ItBitYourOrderTypeAdapter<>(ItBitYourOrder::new));
+    gsonBuilder.registerTypeAdapter(
+        ItBitOrderBookWrapper.class, new ItBitOrderBookWrapperTypeAdapter());
+    gsonBuilder.registerTypeAdapter(ItBitTicker.class, new ItBitTickerTypeAdapter());
+    gsonBuilder.registerTypeAdapter(ItBitWallet.class, new ItBitWalletTypeAdapter());
     gson = gsonBuilder.create();
   }
 
@@ -31,15 +31,17 @@ import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
 import com.gazbert.bxbot.exchange.api.PairPrecisionConfig;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
 import com.gazbert.bxbot.exchanges.config.PairPrecisionConfigImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.BalanceInfoImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderBookImpl;
-import com.gazbert.bxbot.exchanges.trading.api.impl.MarketOrderImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
 import com.gazbert.bxbot.exchanges.trading.api.impl.OpenOrderImpl;
 import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
-import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
@@ -49,12 +51,12 @@ import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -65,19 +67,18 @@ import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.function.IntFunction;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -119,9 +120,8 @@ import org.apache.logging.log4j.Logger;
  * config-item is set to true in the exchange.yaml config file, the bot will stay alive and wait
  * until the next trade cycle.
  *
- * <p>The Exchange Adapter is <em>not</em> thread safe. It expects to be called using a single
- * thread in order to preserve trade execution order. The {@link URLConnection} achieves this by
- * blocking/waiting on the input stream (response) for each API call.
+ * <p>The Exchange Adapter is thread safe once it has been initialised; the Trading API calls can be
+ * made from more than one thread at a time.
  *
  * <p>The {@link TradingApi} calls will throw a {@link ExchangeNetworkException} if a network error
  * occurs trying to connect to the exchange. A {@link TradingApiException} is thrown for
@@ -139,10 +139,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   private static final String KRAKEN_API_VERSION = "0";
   private static final String KRAKEN_PUBLIC_PATH = "/public/";
   private static final String KRAKEN_PRIVATE_PATH = "/private/";
-  private static final String PUBLIC_API_BASE_URL =
-      KRAKEN_BASE_URI + KRAKEN_API_VERSION + KRAKEN_PUBLIC_PATH;
-  private static final String AUTHENTICATED_API_URL =
-      KRAKEN_BASE_URI + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH;
 
   private static final String UNEXPECTED_ERROR_MSG =
       "Unexpected error has occurred in Kraken Exchange Adapter. ";
@@ -178,19 +174,17 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
 
   private PairPrecisionConfig pairPrecisionConfig;
 
-  private long nonce = 0;
-
   private BigDecimal buyFeePercentage;
   private BigDecimal sellFeePercentage;
 
   private boolean keepAliveDuringMaintenance;
 
+  private String publicApiBaseUrl = KRAKEN_BASE_URI + KRAKEN_API_VERSION + KRAKEN_PUBLIC_PATH;
+  private String authenticatedApiUrl = KRAKEN_BASE_URI + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH;
+
   private String key = "";
   private String secret = "";
 
-  private Mac mac;
-  private boolean initializedMacAuthentication = false;
-
   private Gson gson;
 
   @Override
@@ -199,10 +193,9 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     initGson();
     setAuthenticationConfig(config);
     setNetworkConfig(config);
-    loadPairPrecisionConfig();
     setOtherConfig(config);
+    loadPairPrecisionConfig();
 
-    nonce = System.currentTimeMillis();
     initSecureMessageLayer();
   }
 
@@ -214,12 +207,22 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   @Override
   public MarketOrderBook getMarketOrders(String marketId)
       throws TradingApiException, ExchangeNetworkException {
+    return getMarketOrders(marketId, ALL_MARKET_ORDER_LEVELS);
+  }
+
+  @Override
+  public MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws TradingApiException, ExchangeNetworkException {
+    validateMaxLevels(maxLevels);
 
     ExchangeHttpResponse response;
 
     try {
       final Map<String, String> params = createRequestParamMap();
       params.put("pair", marketId);
+      if (maxLevels != ALL_MARKET_ORDER_LEVELS) {
+        params.put("count", String.valueOf(maxLevels));
+      }
 
       response = sendPublicRequestToExchange("Depth", params);
       LOG.debug(() -> "Market Orders response: " + response);
@@ -227,19 +230,21 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       if (response.getStatusCode() == HttpURLConnection.HTTP_OK) {
         final Type resultType =
             new TypeToken<KrakenResponse<KrakenMarketOrderBookResult>>() {}.getType();
-        final KrakenResponse krakenResponse = gson.fromJson(response.getPayload(), resultType);
+        final KrakenResponse krakenResponse = response.fromJson(gson, resultType);
 
         final List errors = krakenResponse.error;
         if (errors == null || errors.isEmpty()) {
-          return adaptKrakenOrderBook(krakenResponse, marketId);
+          return adaptKrakenOrderBook(krakenResponse, marketId, maxLevels);
 
         } else {
-          if (isExchangeUndergoingMaintenance(response) && keepAliveDuringMaintenance) {
+          // The order book is streamed, so check the decoded errors rather than the raw payload.
+          if (errors.contains(EXCHANGE_UNDERGOING_MAINTENANCE_RESPONSE)
+              && keepAliveDuringMaintenance) {
             LOG.warn(() -> UNDER_MAINTENANCE_WARNING_MESSAGE);
             throw new ExchangeNetworkException(UNDER_MAINTENANCE_WARNING_MESSAGE);
           }
 
-          final String errorMsg = FAILED_TO_GET_MARKET_ORDERS + response;
+          final String errorMsg = FAILED_TO_GET_MARKET_ORDERS + krakenResponse;
           LOG.error(errorMsg);
           throw new TradingApiException(errorMsg);
         }
@@ -308,6 +313,34 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   public String createOrder(
       String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws TradingApiException, ExchangeNetworkException {
+    return createOrder(
+        marketId,
+        orderType,
+        precision -> formatDecimal(quantity, precision),
+        precision -> formatDecimal(price, precision));
+  }
+
+  /*
+   * Rounds the quantity and price to the pair's precision on their longs, so no BigDecimal or
+   * DecimalFormat is created.
+   */
+  @Override
+  public String createOrder(
+      String marketId, OrderType orderType, FixedPointDecimal quantity, FixedPointDecimal price)
+      throws TradingApiException, ExchangeNetworkException {
+    return createOrder(
+        marketId,
+        orderType,
+        precision -> formatDecimal(quantity, precision),
+        precision -> formatDecimal(price, precision));
+  }
+
+  private String createOrder(
+      String marketId,
+      OrderType orderType,
+      IntFunction<String> quantityFormatter,
+      IntFunction<String> priceFormatter)
+      throws TradingApiException, ExchangeNetworkException {
 
     ExchangeHttpResponse response;
 
@@ -331,13 +364,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
         throw new IllegalArgumentException(errorMsg);
       }
 
-      String pricePrecision = "#." + "#".repeat(pairPrecisionConfig.getPricePrecision(marketId));
-      String volumePrecision = "#." + "#".repeat(pairPrecisionConfig.getVolumePrecision(marketId));
-
       params.put("ordertype", "limit"); // this exchange adapter only supports limit orders
-      params.put(PRICE, new DecimalFormat(pricePrecision, getDecimalFormatSymbols()).format(price));
+      params.put(PRICE, priceFormatter.apply(pairPrecisionConfig.getPricePrecision(marketId)));
       params.put(
-          "volume", new DecimalFormat(volumePrecision, getDecimalFormatSymbols()).format(quantity));
+          "volume", quantityFormatter.apply(pairPrecisionConfig.getVolumePrecision(marketId)));
 
       response = sendAuthenticatedRequestToExchange("AddOrder", params);
       LOG.debug(() -> "Create Order response: " + response);
@@ -599,6 +629,14 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
+  @Override
+  public BestBidAsk getBestBidAsk(String marketId)
+      throws TradingApiException, ExchangeNetworkException {
+    // The ticker is a fraction of the size of the order book.
+    final Ticker ticker = getTicker(marketId);
+    return new BestBidAskImpl(ticker.getBid(), ticker.getAsk());
+  }
+
   // --------------------------------------------------------------------------
   //  GSON classes for JSON responses.
   //  See https://www.kraken.com/en-gb/help/api
@@ -645,7 +683,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     private static final long serialVersionUID = -4919711010747027759L;
   }
 
-  /** GSON class that wraps a Ticker API call result. */
+  /**
+   * GSON class that wraps a Ticker API call result. The keys are the Kraken ticker params, e.g. 'c'
+   * for the last trade closed price.
+   */
   private static class KrakenTickerResult extends HashMap<String, String> {
 
     private static final long serialVersionUID = -4913711010647027759L;
@@ -654,31 +695,41 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
-  private static class KrakenAssetPairsConfig extends HashMap<String, Object> {
+  /** GSON class that wraps an AssetPairs API call result. */
+  private static class KrakenAssetPairsConfig extends HashMap<String, KrakenAssetPair> {
 
     private static final long serialVersionUID = -9226840830768795L;
 
     PairPrecisionConfig loadPrecisionConfig() {
-      Gson gson = new Gson();
       Map<String, Integer> prices = new HashMap<>();
       Map<String, Integer> volumes = new HashMap<>();
 
-      for (Entry<String, Object> entry : this.entrySet()) {
-        JsonElement jsonElement = gson.toJsonTree(entry);
-
-        JsonObject jsonObject = jsonElement.getAsJsonObject().get("value").getAsJsonObject();
-        String name = jsonObject.get("altname").getAsString();
-        int price = jsonObject.get("pair_decimals").getAsInt();
-        int volume = jsonObject.get("lot_decimals").getAsInt();
-
-        prices.put(name, price);
-        volumes.put(name, volume);
+      for (KrakenAssetPair assetPair : values()) {
+        prices.put(assetPair.altname, assetPair.pairDecimals);
+        volumes.put(assetPair.altname, assetPair.lotDecimals);
       }
 
       return new PairPrecisionConfigImpl(prices, volumes);
     }
   }
 
+  /** GSON class for the precision of a Kraken asset pair. The rest of the pair is skipped. */
+  private static class KrakenAssetPair {
+
+    String altname;
+    int pairDecimals;
+    int lotDecimals;
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("altname", altname)
+          .add("pairDecimals", pairDecimals)
+          .add("lotDecimals", lotDecimals)
+          .toString();
+    }
+  }
+
   /** GSON class that wraps an Open Order API call result - your open orders. */
   private static class KrakenOpenOrderResult {
 
@@ -693,41 +744,18 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   /** GSON class the represents a Kraken Open Order. */
   private static class KrakenOpenOrder {
 
-    String refid;
-    String userref;
-    String status;
     double opentm;
-    double starttm;
-    double expiretm;
     KrakenOpenOrderDescription descr;
     BigDecimal vol;
-
-    @SerializedName("vol_exec")
     BigDecimal volExec;
 
-    BigDecimal cost;
-    BigDecimal fee;
-    BigDecimal price;
-    String misc;
-    String oflags;
-
     @Override
     public String toString() {
       return MoreObjects.toStringHelper(this)
-          .add("refid", refid)
-          .add("userref", userref)
-          .add("status", status)
           .add("opentm", opentm)
-          .add("starttm", starttm)
-          .add("expiretm", expiretm)
           .add("descr", descr)
           .add("vol", vol)
           .add("volExec", volExec)
-          .add("cost", cost)
-          .add("fee", fee)
-          .add(PRICE, price)
-          .add("misc", misc)
-          .add("oflags", oflags)
           .toString();
     }
   }
@@ -739,9 +767,6 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     String type;
     String ordertype;
     BigDecimal price;
-    BigDecimal price2;
-    String leverage;
-    String order;
 
     @Override
     public String toString() {
@@ -750,33 +775,18 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
           .add("type", type)
           .add("ordertype", ordertype)
           .add(PRICE, price)
-          .add("price2", price2)
-          .add("leverage", leverage)
-          .add("order", order)
           .toString();
     }
   }
 
-  /** GSON class representing an AddOrder result. */
+  /** GSON class representing an AddOrder result. The order description is skipped. */
   private static class KrakenAddOrderResult {
 
-    KrakenAddOrderResultDescription descr;
     List<String> txid; // why is this a list/array?
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this).add("descr", descr).add("txid", txid).toString();
-    }
-  }
-
-  /** GSON class representing an AddOrder result description. */
-  private static class KrakenAddOrderResultDescription {
-
-    String order;
-
-    @Override
-    public String toString() {
-      return MoreObjects.toStringHelper(this).add("order", order).toString();
+      return MoreObjects.toStringHelper(this).add("txid", txid).toString();
     }
   }
 
@@ -791,110 +801,297 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     }
   }
 
-  /** GSON class for a Market Order Book. */
+  /**
+   * GSON class for a Market Order Book. The bids and asks are read straight into the columns of an
+   * order book; the market is set when it is adapted. Each order is an array of price, amount and
+   * UNIX time; the time is skipped.
+   */
   private static class KrakenOrderBook {
 
-    List<KrakenMarketOrder> bids;
-    List<KrakenMarketOrder> asks;
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
 
     @Override
     public String toString() {
-      return MoreObjects.toStringHelper(this).add("bids", bids).add("asks", asks).toString();
+      return MoreObjects.toStringHelper(this).add("levels", levels).toString();
     }
   }
 
+  // --------------------------------------------------------------------------
+  //  GSON type adapters for JSON responses.
+  //  They read the fields above and skip everything else.
+  // --------------------------------------------------------------------------
+
   /**
-   * GSON class for holding Market Orders. First element in array is price, second element is
-   * amount, 3rd is UNIX time.
+   * Creates the type adapters for {@link KrakenResponse}s. The error list is read here and the
+   * result is read by the type adapter for the result Type.
    */
-  private static class KrakenMarketOrder extends ArrayList<BigDecimal> {
+  private static class KrakenResponseTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (type.getRawType() != KrakenResponse.class
+          || !(type.getType() instanceof ParameterizedType)) {
+        return null;
+      }
+      final Type resultType = ((ParameterizedType) type.getType()).getActualTypeArguments()[0];
+      return (TypeAdapter<T>) newResponseTypeAdapter(gson.getAdapter(TypeToken.get(resultType)));
+    }
+
+    private static <R> TypeAdapter<KrakenResponse<R>> newResponseTypeAdapter(
+        TypeAdapter<R> resultTypeAdapter) {
+      return new ResponseTypeAdapter<>() {
+        @Override
+        KrakenResponse<R> readValue(JsonReader in) throws IOException {
+          final KrakenResponse<R> krakenResponse = new KrakenResponse<>();
+          in.beginObject();
+          while (in.hasNext()) {
+            switch (in.nextName()) {
+              case "error":
+                krakenResponse.error = nextList(in, ResponseTypeAdapter::nextString);
+                break;
+              case "result":
+                krakenResponse.result = resultTypeAdapter.read(in);
+                break;
+              default:
+                in.skipValue();
+            }
+          }
+          in.endObject();
+          return krakenResponse;
+        }
+      };
+    }
+  }
+
+  /** Reads a Kraken order book. */
+  private static class KrakenOrderBookTypeAdapter extends ResponseTypeAdapter<KrakenOrderBook> {
 
-    private static final long serialVersionUID = -4959711260742077759L;
+    @Override
+    KrakenOrderBook readValue(JsonReader in) throws IOException {
+      final KrakenOrderBook orderBook = new KrakenOrderBook();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "bids":
+            nextArrayLevels(in, orderBook.levels::addBuyOrder);
+            break;
+          case "asks":
+            nextArrayLevels(in, orderBook.levels::addSellOrder);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return orderBook;
+    }
   }
 
   /**
-   * Custom GSON Deserializer for Ticker API call result.
+   * Reads a Ticker API call result.
    *
    * <p>Have to do this because last entry in the Ticker param map is a String, not an array like
-   * the rest of 'em!
+   * the rest of 'em! Only the value of each param that is adapted is kept, e.g. the price of the
+   * last trade closed.
    */
-  private static class KrakenTickerResultDeserializer
-      implements JsonDeserializer<KrakenTickerResult> {
-
-    KrakenTickerResultDeserializer() {
-    }
-
-    public KrakenTickerResult deserialize(
-        JsonElement json, Type type, JsonDeserializationContext context) {
+  private static class KrakenTickerResultTypeAdapter
+      extends ResponseTypeAdapter<KrakenTickerResult> {
 
+    @Override
+    KrakenTickerResult readValue(JsonReader in) throws IOException {
       final KrakenTickerResult krakenTickerResult = new KrakenTickerResult();
-      if (json.isJsonObject()) {
+      in.beginObject();
+
+      // assume 1 (KV) entry as per API spec - the K is the market id, the V is a Map of ticker
+      // params
+      if (in.hasNext()) {
+        in.nextName();
+        in.beginObject();
+        while (in.hasNext()) {
+          final String key = in.nextName();
+          switch (key) {
+            case "c": // last trade closed
+            case "b": // bid
+            case "a": // ask
+              krakenTickerResult.put(key, nextArrayElement(in, 0));
+              break;
+            case "l": // low
+            case "h": // high
+            case "v": // volume
+            case "p": // vwap
+              krakenTickerResult.put(key, nextArrayElement(in, 1)); // last 24 hours
+              break;
+            case "o": // open
+              krakenTickerResult.put(key, nextString(in));
+              break;
+            default:
+              in.skipValue();
+          }
+        }
+        in.endObject();
+      }
 
-        final JsonObject jsonObject = json.getAsJsonObject();
+      while (in.hasNext()) {
+        in.nextName();
+        in.skipValue();
+      }
+      in.endObject();
+      return krakenTickerResult;
+    }
 
-        // assume 1 (KV) entry as per API spec - the K is the market id, the V is a Map of ticker
-        // params
-        final JsonElement tickerParams = jsonObject.entrySet().iterator().next().getValue();
+    private static String nextArrayElement(JsonReader in, int index) throws IOException {
+      String element = null;
+      in.beginArray();
+      for (int i = 0; in.hasNext(); i++) {
+        if (i == index) {
+          element = nextString(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endArray();
+      return element;
+    }
+  }
 
-        final JsonObject tickerMap = tickerParams.getAsJsonObject();
-        for (Map.Entry<String, JsonElement> jsonTickerParam : tickerMap.entrySet()) {
+  /** Reads an asset pair from an AssetPairs API call result. */
+  private static class KrakenAssetPairTypeAdapter extends ResponseTypeAdapter<KrakenAssetPair> {
 
-          final String key = jsonTickerParam.getKey();
-          switch (key) {
-            case "c":
-              final List<String> lastTradeDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("c", lastTradeDetails.get(0));
-              break;
+    @Override
+    KrakenAssetPair readValue(JsonReader in) throws IOException {
+      final KrakenAssetPair assetPair = new KrakenAssetPair();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "altname":
+            assetPair.altname = nextString(in);
+            break;
+          case "pair_decimals":
+            assetPair.pairDecimals = (int) nextLong(in, 0);
+            break;
+          case "lot_decimals":
+            assetPair.lotDecimals = (int) nextLong(in, 0);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return assetPair;
+    }
+  }
 
-            case "b":
-              final List<String> bidDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("b", bidDetails.get(0));
-              break;
+  /** Reads an Open Order API call result. */
+  private static class KrakenOpenOrderResultTypeAdapter
+      extends ResponseTypeAdapter<KrakenOpenOrderResult> {
 
-            case "a":
-              final List<String> askDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("a", askDetails.get(0));
-              break;
+    private final TypeAdapter<Map<String, KrakenOpenOrder>> openOrdersTypeAdapter =
+        mapAdapter(LinkedHashMap::new, KrakenOpenOrderResultTypeAdapter::nextOpenOrder);
 
-            case "l":
-              final List<String> lowDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("l", lowDetails.get(1));
-              break;
+    @Override
+    KrakenOpenOrderResult readValue(JsonReader in) throws IOException {
+      final KrakenOpenOrderResult openOrderResult = new KrakenOpenOrderResult();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("open".equals(in.nextName())) {
+          openOrderResult.open = openOrdersTypeAdapter.read(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return openOrderResult;
+    }
 
-            case "h":
-              final List<String> highDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("h", highDetails.get(1));
-              break;
+    private static KrakenOpenOrder nextOpenOrder(JsonReader in) throws IOException {
+      final KrakenOpenOrder openOrder = new KrakenOpenOrder();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "opentm":
+            openOrder.opentm = in.nextDouble();
+            break;
+          case "descr":
+            openOrder.descr = nextDescription(in);
+            break;
+          case "vol":
+            openOrder.vol = nextBigDecimal(in);
+            break;
+          case "vol_exec":
+            openOrder.volExec = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return openOrder;
+    }
 
-            case "o":
-              final String openDetails =
-                  context.deserialize(jsonTickerParam.getValue(), String.class);
-              krakenTickerResult.put("o", openDetails);
-              break;
+    private static KrakenOpenOrderDescription nextDescription(JsonReader in) throws IOException {
+      final KrakenOpenOrderDescription description = new KrakenOpenOrderDescription();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "pair":
+            description.pair = nextString(in);
+            break;
+          case "type":
+            description.type = nextString(in);
+            break;
+          case "ordertype":
+            description.ordertype = nextString(in);
+            break;
+          case PRICE:
+            description.price = nextBigDecimal(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return description;
+    }
+  }
 
-            case "v":
-              final List<String> volumeDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("v", volumeDetails.get(1));
-              break;
+  /** Reads an AddOrder result. */
+  private static class KrakenAddOrderResultTypeAdapter
+      extends ResponseTypeAdapter<KrakenAddOrderResult> {
 
-            case "p":
-              final List<String> vWapDetails =
-                  context.deserialize(jsonTickerParam.getValue(), List.class);
-              krakenTickerResult.put("p", vWapDetails.get(1));
-              break;
+    @Override
+    KrakenAddOrderResult readValue(JsonReader in) throws IOException {
+      final KrakenAddOrderResult addOrderResult = new KrakenAddOrderResult();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("txid".equals(in.nextName())) {
+          addOrderResult.txid = nextList(in, ResponseTypeAdapter::nextString);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return addOrderResult;
+    }
+  }
 
-            default:
-              LOG.warn(() -> "Received unexpected Ticker param - ignoring: " + key);
-          }
+  /** Reads a CancelOrder result. */
+  private static class KrakenCancelOrderResultTypeAdapter
+      extends ResponseTypeAdapter<KrakenCancelOrderResult> {
+
+    @Override
+    KrakenCancelOrderResult readValue(JsonReader in) throws IOException {
+      final KrakenCancelOrderResult cancelOrderResult = new KrakenCancelOrderResult();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("count".equals(in.nextName())) {
+          cancelOrderResult.count = (int) nextLong(in, 0);
+        } else {
+          in.skipValue();
         }
       }
-      return krakenTickerResult;
+      in.endObject();
+      return cancelOrderResult;
     }
   }
 
@@ -902,6 +1099,23 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   //  Transport layer methods
   // --------------------------------------------------------------------------
 
+  @Override
+  boolean isStreamedResponse(URL url) {
+    // The order book is always decoded straight off the wire.
+    return url.getPath().endsWith("/Depth");
+  }
+
+  @Override
+  Endpoint getRateLimitedEndpoint(URL url, String httpMethod) {
+    final String path = url.getPath();
+    if (path.contains(KRAKEN_PUBLIC_PATH)) {
+      return Endpoint.PUBLIC;
+    }
+    return path.endsWith("/AddOrder") || path.endsWith("/CancelOrder")
+        ? Endpoint.ORDER_ENTRY
+        : Endpoint.PRIVATE;
+  }
+
   private ExchangeHttpResponse sendPublicRequestToExchange(
       String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
@@ -929,7 +1143,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
         requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
       }
 
-      final URL url = new URL(PUBLIC_API_BASE_URL + apiMethod + queryString);
+      final URL url = new URL(publicApiBaseUrl + apiMethod + queryString);
       return makeNetworkRequest(url, "GET", null, requestHeaders);
 
     } catch (MalformedURLException e) {
@@ -960,11 +1174,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       String apiMethod, Map<String, String> params)
       throws ExchangeNetworkException, TradingApiException {
 
-    if (!initializedMacAuthentication) {
-      final String errorMsg = "MAC Message security layer has not been initialized.";
-      LOG.error(errorMsg);
-      throw new IllegalStateException(errorMsg);
-    }
+    final RequestSigner signer = getRequestSigner();
 
     try {
       if (params == null) {
@@ -975,7 +1185,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       // The nonce is required by Kraken in every request.
       // It MUST be incremented each time and the nonce param MUST match the value used in
       // signature.
-      nonce++;
+      final long nonce = nextNonce();
       params.put("nonce", Long.toString(nonce));
 
       // Build the URL with query param args in it - yuk!
@@ -996,17 +1206,13 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       final String noncePrependedToPostData = Long.toString(nonce) + postData;
 
       // Create sha256 hash of nonce and post data:
-      final MessageDigest md = MessageDigest.getInstance("SHA-256");
-      md.update(noncePrependedToPostData.getBytes(StandardCharsets.UTF_8));
-      final byte[] messageHash = md.digest();
+      final byte[] messageHash =
+          RequestSigner.sha256(noncePrependedToPostData.getBytes(StandardCharsets.UTF_8));
 
       // Create hmac_sha512 digest of path and previous sha256 hash
-      mac.reset(); // force reset
-      mac.update(pathInBytes);
-      mac.update(messageHash);
-
       // Signature in Base64
-      final String signature = Base64.getEncoder().encodeToString(mac.doFinal());
+      final String signature =
+          Base64.getEncoder().encodeToString(signer.sign(pathInBytes, messageHash));
 
       // Request headers required by Exchange
       final Map<String, String> requestHeaders = createHeaderParamMap();
@@ -1014,10 +1220,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       requestHeaders.put("API-Key", key);
       requestHeaders.put("API-Sign", signature);
 
-      final URL url = new URL(AUTHENTICATED_API_URL + apiMethod);
+      final URL url = new URL(authenticatedApiUrl + apiMethod);
       return makeNetworkRequest(url, "POST", postData.toString(), requestHeaders);
 
-    } catch (MalformedURLException | NoSuchAlgorithmException e) {
+    } catch (MalformedURLException e) {
       final String errorMsg = UNEXPECTED_IO_ERROR_MSG;
       LOG.error(errorMsg, e);
       throw new TradingApiException(errorMsg, e);
@@ -1035,10 +1241,7 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
       // Kraken secret key is in Base64, so we need to decode it first
       final byte[] base64DecodedSecret = Base64.getDecoder().decode(secret);
 
-      final SecretKeySpec keyspec = new SecretKeySpec(base64DecodedSecret, "HmacSHA512");
-      mac = Mac.getInstance("HmacSHA512");
-      mac.init(keyspec);
-      initializedMacAuthentication = true;
+      initRequestSigner("HmacSHA512", base64DecodedSecret);
     } catch (NoSuchAlgorithmException e) {
       final String errorMsg = "Failed to setup MAC security. HINT: Is HmacSHA512 installed?";
       LOG.error(errorMsg, e);
@@ -1081,6 +1284,10 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     } else {
       LOG.info(() -> KEEP_ALIVE_DURING_MAINTENANCE_PROPERTY_NAME + " is not set in exchange.yaml");
     }
+
+    final String baseUrl = getBaseUrl(otherConfig, KRAKEN_BASE_URI);
+    publicApiBaseUrl = baseUrl + KRAKEN_API_VERSION + KRAKEN_PUBLIC_PATH;
+    authenticatedApiUrl = baseUrl + KRAKEN_API_VERSION + KRAKEN_PRIVATE_PATH;
   }
 
   private void loadPairPrecisionConfig() {
@@ -1165,38 +1372,15 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
     return openOrders;
   }
 
-  private MarketOrderBookImpl adaptKrakenOrderBook(KrakenResponse krakenResponse, String marketId)
-      throws TradingApiException {
+  private ColumnarMarketOrderBook adaptKrakenOrderBook(
+      KrakenResponse krakenResponse, String marketId, int maxLevels) throws TradingApiException {
 
     // Assume we'll always get something here if errors array is empty; else blow fast wih NPE
     final KrakenMarketOrderBookResult krakenOrderBookResult =
         (KrakenMarketOrderBookResult) krakenResponse.result;
     final Optional<KrakenOrderBook> first = krakenOrderBookResult.values().stream().findFirst();
     if (first.isPresent()) {
-      final KrakenOrderBook krakenOrderBook = first.get();
-
-      final List<MarketOrder> buyOrders = new ArrayList<>();
-      for (KrakenMarketOrder krakenBuyOrder : krakenOrderBook.bids) {
-        final MarketOrder buyOrder =
-            new MarketOrderImpl(
-                OrderType.BUY,
-                krakenBuyOrder.get(0),
-                krakenBuyOrder.get(1),
-                krakenBuyOrder.get(0).multiply(krakenBuyOrder.get(1)));
-        buyOrders.add(buyOrder);
-      }
-
-      final List<MarketOrder> sellOrders = new ArrayList<>();
-      for (KrakenMarketOrder krakenSellOrder : krakenOrderBook.asks) {
-        final MarketOrder sellOrder =
-            new MarketOrderImpl(
-                OrderType.SELL,
-                krakenSellOrder.get(0),
-                krakenSellOrder.get(1),
-                krakenSellOrder.get(0).multiply(krakenSellOrder.get(1)));
-        sellOrders.add(sellOrder);
-      }
-      return new MarketOrderBookImpl(marketId, sellOrders, buyOrders);
+      return first.get().levels.forMarket(marketId, maxLevels);
     } else {
       final String errorMsg = FAILED_TO_GET_MARKET_ORDERS + krakenResponse;
       LOG.error(errorMsg);
@@ -1259,11 +1443,46 @@ public final class KrakenExchangeAdapter extends AbstractExchangeAdapter
   }
 
   private void initGson() {
+    final KrakenOrderBookTypeAdapter orderBookTypeAdapter = new KrakenOrderBookTypeAdapter();
+    final KrakenAssetPairTypeAdapter assetPairTypeAdapter = new KrakenAssetPairTypeAdapter();
+
     final GsonBuilder gsonBuilder = new GsonBuilder();
-    gsonBuilder.registerTypeAdapter(KrakenTickerResult.class, new KrakenTickerResultDeserializer());
+    gsonBuilder.registerTypeAdapterFactory(new KrakenResponseTypeAdapterFactory());
+    gsonBuilder.registerTypeAdapter(KrakenOrderBook.class, orderBookTypeAdapter);
+    gsonBuilder.registerTypeAdapter(
+        KrakenMarketOrderBookResult.class,
+        ResponseTypeAdapter.mapAdapter(
+            KrakenMarketOrderBookResult::new, orderBookTypeAdapter::read));
+    gsonBuilder.registerTypeAdapter(
+        KrakenBalanceResult.class,
+        ResponseTypeAdapter.mapAdapter(
+            KrakenBalanceResult::new, ResponseTypeAdapter::nextBigDecimal));
+    gsonBuilder.registerTypeAdapter(KrakenTickerResult.class, new KrakenTickerResultTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        KrakenAssetPairsConfig.class,
+        ResponseTypeAdapter.mapAdapter(KrakenAssetPairsConfig::new, assetPairTypeAdapter::read));
+    gsonBuilder.registerTypeAdapter(
+        KrakenOpenOrderResult.class, new KrakenOpenOrderResultTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        KrakenAddOrderResult.class, new KrakenAddOrderResultTypeAdapter());
+    gsonBuilder.registerTypeAdapter(
+        KrakenCancelOrderResult.class, new KrakenCancelOrderResultTypeAdapter());
     gson = gsonBuilder.create();
   }
 
+  private String formatDecimal(BigDecimal value, int precision) {
+    return new DecimalFormat("#." + "#".repeat(precision), getDecimalFormatSymbols()).format(value);
+  }
+
+  /*
+   * Same output as the DecimalFormat: rounded half even, without trailing zeros.
+   */
+  private static String formatDecimal(FixedPointDecimal value, int precision) {
+    final FixedPointDecimal rounded =
+        value.getScale() > precision ? value.setScale(precision, RoundingMode.HALF_EVEN) : value;
+    return rounded.stripTrailingZeros().toString();
+  }
+
   private static boolean isExchangeUndergoingMaintenance(ExchangeHttpResponse response) {
     if (response != null) {
       final String payload = response.getPayload();
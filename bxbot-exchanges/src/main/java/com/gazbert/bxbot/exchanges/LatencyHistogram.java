@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanos, in the style of HdrHistogram.
+ *
+ * <p>Buckets are log-linear: values below 128 get a bucket each, and every power of 2 above that
+ * is split into 64 buckets, so a recorded value is never more than 1/64 (about 1.6%) above or below
+ * the value reported for it. Values above {@link #HIGHEST_TRACKABLE_VALUE} (about 68 secs) are
+ * counted in the top bucket. The whole histogram is under 16KB and never resizes.
+ *
+ * <p>Recording is a couple of atomic increments with no allocation, so it can sit on every call.
+ * Reads are not atomic with respect to concurrent recording, which is fine for monitoring.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class LatencyHistogram {
+
+  /** The highest value given its own bucket. */
+  static final long HIGHEST_TRACKABLE_VALUE = (1L << 36) - 1;
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = indexOf(HIGHEST_TRACKABLE_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong totalCount = new AtomicLong();
+  private final AtomicLong maxValue = new AtomicLong();
+
+  /**
+   * Records a value. Negative values are recorded as 0.
+   *
+   * @param nanos the value to record.
+   */
+  void record(long nanos) {
+    final long value = Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_VALUE));
+    counts.incrementAndGet(indexOf(value));
+    totalCount.incrementAndGet();
+    maxValue.accumulateAndGet(Math.max(0, nanos), Math::max);
+  }
+
+  /**
+   * Returns the number of values recorded.
+   *
+   * @return the count.
+   */
+  long getCount() {
+    return totalCount.get();
+  }
+
+  /**
+   * Returns the highest value recorded.
+   *
+   * @return the max, or 0 if nothing has been recorded.
+   */
+  long getMax() {
+    return maxValue.get();
+  }
+
+  /**
+   * Returns the value at the given percentile: the highest value in the bucket that holds it,
+   * capped at the highest value recorded.
+   *
+   * @param percentile the percentile, from 0 to 100.
+   * @return the value, or 0 if nothing has been recorded.
+   */
+  long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    final long count = totalCount.get();
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile * count / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValueIn(i), getMax());
+      }
+    }
+    // Only gets here if values were recorded while we were counting.
+    return getMax();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  /*
+   * Values below 2 * SUB_BUCKET_COUNT index themselves. Above that, the value is shifted down
+   * until it falls in [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT) and the shift picks the range.
+   */
+  static int indexOf(long value) {
+    final int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+  }
+
+  static long lowestValueIn(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final int shift = (index >> SUB_BUCKET_BITS) - 1;
+    return (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+  }
+
+  static long highestValueIn(int index) {
+    return lowestValueIn(index + 1) - 1;
+  }
+}
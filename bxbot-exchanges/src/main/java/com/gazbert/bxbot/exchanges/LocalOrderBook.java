@@ -0,0 +1,117 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
+import com.gazbert.bxbot.exchanges.trading.api.impl.PriceLevelOrderBook;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+
+/**
+ * An order book for a single market that is kept up to date from an exchange's market data stream.
+ *
+ * <p>The book holds the quantity at each price level in a {@link PriceLevelOrderBook}. A feed
+ * handler loads it from the exchange's snapshot and then applies each delta as it arrives; a zero
+ * quantity removes the level. Trading Strategies are handed a copy of the top of the book, so they
+ * never see it change under them.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class LocalOrderBook {
+
+  /* Satoshi precision; enough for the prices and amounts the exchanges send. */
+  private static final int PRICE_SCALE = 8;
+  private static final int QUANTITY_SCALE = 8;
+
+  private final String marketId;
+  private final PriceLevelOrderBook levels;
+
+  LocalOrderBook(String marketId) {
+    this.marketId = marketId;
+    this.levels = new PriceLevelOrderBook(marketId, PRICE_SCALE, QUANTITY_SCALE);
+  }
+
+  /**
+   * Sets the quantity at a price level.
+   *
+   * @param side the side of the book: BUY for bids, SELL for asks.
+   * @param price the price of the level.
+   * @param quantity the new total quantity at the level. Zero removes the level.
+   * @throws IllegalArgumentException if the price or quantity has more than 8 decimal places.
+   */
+  synchronized void update(OrderType side, BigDecimal price, BigDecimal quantity) {
+    levels.setLevel(side, price, quantity);
+  }
+
+  /** Removes all levels, ready for a new snapshot. */
+  synchronized void clear() {
+    levels.clear();
+  }
+
+  synchronized BigDecimal getBestBid() {
+    return levels.getBestBid();
+  }
+
+  synchronized BigDecimal getBestAsk() {
+    return levels.getBestAsk();
+  }
+
+  synchronized FixedPointDecimal getFixedPointBestBid() {
+    return levels.getFixedPointBestBid();
+  }
+
+  synchronized FixedPointDecimal getFixedPointBestAsk() {
+    return levels.getFixedPointBestAsk();
+  }
+
+  /**
+   * Returns a copy of the top of the book.
+   *
+   * @param maxLevels the max number of levels to copy from each side.
+   * @return the market order book, best prices first.
+   */
+  synchronized MarketOrderBook toMarketOrderBook(int maxLevels) {
+    final ColumnarMarketOrderBook orderBook =
+        new ColumnarMarketOrderBook(
+            marketId,
+            Math.min(levels.getLevelCount(OrderType.BUY), maxLevels),
+            Math.min(levels.getLevelCount(OrderType.SELL), maxLevels));
+    levels.forEachLevel(
+        OrderType.BUY,
+        maxLevels,
+        (price, quantity) ->
+            orderBook.addBuyOrder(price, PRICE_SCALE, quantity, QUANTITY_SCALE));
+    levels.forEachLevel(
+        OrderType.SELL,
+        maxLevels,
+        (price, quantity) ->
+            orderBook.addSellOrder(price, PRICE_SCALE, quantity, QUANTITY_SCALE));
+    return orderBook;
+  }
+}
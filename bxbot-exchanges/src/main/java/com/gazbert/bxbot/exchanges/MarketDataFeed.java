@@ -0,0 +1,405 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.Ticker;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Base class for an exchange's streaming market data feed handler.
+ *
+ * <p>The first time a market is asked for, the handler opens a WebSocket to the exchange for it.
+ * The exchange-specific subclass decodes each message and applies the book snapshot and deltas to
+ * the market's {@link LocalOrderBook}, and records the last trade price. Reads are then served from
+ * memory instead of polling the exchange's REST API.
+ *
+ * <p>A market is only served from memory while it is in sync: its snapshot has been loaded and a
+ * message (a heartbeat will do) has arrived within the stale timeout. Otherwise the read methods
+ * return null and the Exchange Adapter falls back to its REST call. If the subclass spots a gap in
+ * the stream, or the connection drops or goes stale, the book is thrown away and the handler
+ * reconnects to get a fresh snapshot.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+abstract class MarketDataFeed {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  /** Thrown by a feed handler when it finds the stream has skipped a message. */
+  static final class StreamGapException extends Exception {
+
+    private static final long serialVersionUID = -2284714542302218561L;
+
+    StreamGapException(String message) {
+      super(message);
+    }
+  }
+
+  /** The streamed state of a single market. */
+  static final class StreamedMarket {
+
+    private final String marketId;
+    private final LocalOrderBook orderBook;
+    private final AtomicInteger connection = new AtomicInteger();
+    private volatile WebSocket webSocket;
+    private volatile boolean synced;
+    private volatile long lastMessageNanos;
+    private volatile FixedPointDecimal lastPrice;
+    private long lastSequence;
+
+    StreamedMarket(String marketId) {
+      this.marketId = marketId;
+      this.orderBook = new LocalOrderBook(marketId);
+    }
+
+    String getMarketId() {
+      return marketId;
+    }
+
+    LocalOrderBook getOrderBook() {
+      return orderBook;
+    }
+
+    /** Called by the feed handler once the book snapshot has been loaded. */
+    void markSynced() {
+      synced = true;
+    }
+
+    /* Held as a fixed-point decimal so the streamed ticker is read without creating BigDecimals. */
+    void setLastPrice(BigDecimal lastPrice) {
+      this.lastPrice = FixedPointDecimal.valueOf(lastPrice);
+    }
+  }
+
+  private final String exchangeName;
+  private final HttpClient httpClient;
+  private final long staleAfterNanos;
+  private final long resyncDelayMillis;
+  private final LongSupplier nanoClock;
+  private final ScheduledExecutorService reconnector;
+  private final Map<String, StreamedMarket> markets = new ConcurrentHashMap<>();
+  private volatile boolean closed;
+
+  /**
+   * Creates the feed handler.
+   *
+   * @param exchangeName the exchange name, used for logging and thread names.
+   * @param connectionTimeout the WebSocket connect timeout.
+   * @param staleAfter how long a market can go without a message before it is out of sync.
+   * @param resyncDelay how long to wait before reconnecting after the stream is lost.
+   * @param nanoClock the source of monotonic time in nanos.
+   */
+  MarketDataFeed(
+      String exchangeName,
+      Duration connectionTimeout,
+      Duration staleAfter,
+      Duration resyncDelay,
+      LongSupplier nanoClock) {
+
+    this.exchangeName = exchangeName;
+    this.httpClient = HttpClient.newBuilder().connectTimeout(connectionTimeout).build();
+    this.staleAfterNanos = staleAfter.toNanos();
+    this.resyncDelayMillis = resyncDelay.toMillis();
+    this.nanoClock = nanoClock;
+    this.reconnector =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              final Thread thread = new Thread(runnable, exchangeName + "-market-data");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Returns the URI of the stream for a market.
+   *
+   * @param marketId the market id.
+   * @return the WebSocket URI.
+   */
+  abstract URI getStreamUri(String marketId);
+
+  /**
+   * Returns the message to send to subscribe to a market once connected. Exchanges that stream a
+   * market on connect can leave this as null.
+   *
+   * @param marketId the market id.
+   * @return the subscribe message, or null if none is needed.
+   */
+  String getSubscribeMessage(String marketId) {
+    return null;
+  }
+
+  /**
+   * Decodes a message from the stream and applies it to the market.
+   *
+   * @param market the market the message is for.
+   * @param message the complete message.
+   * @throws StreamGapException if a message has been missed and the market must be resynced.
+   */
+  abstract void onMessage(StreamedMarket market, String message) throws StreamGapException;
+
+  /**
+   * Checks a message's sequence number follows on from the last one seen on this connection.
+   *
+   * @param market the market the message is for.
+   * @param sequence the message sequence number.
+   * @param firstSequence the sequence number the exchange starts each connection with.
+   * @throws StreamGapException if the sequence number is not the expected one.
+   */
+  static void checkSequence(StreamedMarket market, long sequence, long firstSequence)
+      throws StreamGapException {
+    final long expected;
+    if (market.lastSequence == Long.MIN_VALUE) {
+      expected = firstSequence;
+    } else {
+      expected = market.lastSequence + 1;
+    }
+    if (sequence != expected) {
+      throw new StreamGapException(
+          "Expected sequence " + expected + " but got " + sequence + " for " + market.marketId);
+    }
+    market.lastSequence = sequence;
+  }
+
+  /**
+   * Returns the top of the streamed order book.
+   *
+   * @param marketId the market id.
+   * @param maxLevels the max number of levels to return from each side of the book.
+   * @return the order book, or null if the market is not in sync.
+   */
+  MarketOrderBook getMarketOrders(String marketId, int maxLevels) {
+    final StreamedMarket market = getSyncedMarket(marketId);
+    return market == null ? null : market.orderBook.toMarketOrderBook(maxLevels);
+  }
+
+  /**
+   * Returns the best bid and ask from the streamed order book.
+   *
+   * @param marketId the market id.
+   * @return the best bid and ask, or null if the market is not in sync.
+   */
+  BestBidAsk getBestBidAsk(String marketId) {
+    final StreamedMarket market = getSyncedMarket(marketId);
+    return market == null
+        ? null
+        : BestBidAskImpl.fromFixedPoint(
+            market.orderBook.getFixedPointBestBid(), market.orderBook.getFixedPointBestAsk());
+  }
+
+  /**
+   * Returns the last trade price seen on the stream.
+   *
+   * @param marketId the market id.
+   * @return the last price, or null if the market is not in sync or no trade has been seen yet.
+   */
+  BigDecimal getLatestMarketPrice(String marketId) {
+    final StreamedMarket market = getSyncedMarket(marketId);
+    final FixedPointDecimal lastPrice = market == null ? null : market.lastPrice;
+    return lastPrice == null ? null : lastPrice.toBigDecimal();
+  }
+
+  /**
+   * Returns a ticker built from the stream. Only the last, bid and ask prices are set.
+   *
+   * @param marketId the market id.
+   * @return the ticker, or null if the market is not in sync or no trade has been seen yet.
+   */
+  Ticker getTicker(String marketId) {
+    final StreamedMarket market = getSyncedMarket(marketId);
+    final FixedPointDecimal lastPrice = market == null ? null : market.lastPrice;
+    if (lastPrice == null) {
+      return null;
+    }
+    return TickerImpl.fromFixedPoint(
+        lastPrice,
+        market.orderBook.getFixedPointBestBid(),
+        market.orderBook.getFixedPointBestAsk(),
+        null);
+  }
+
+  /** Closes all streams. The handler cannot be used afterwards. */
+  void close() {
+    closed = true;
+    reconnector.shutdownNow();
+    for (final StreamedMarket market : markets.values()) {
+      final WebSocket webSocket = market.webSocket;
+      if (webSocket != null) {
+        webSocket.abort();
+      }
+    }
+  }
+
+  private StreamedMarket getSyncedMarket(String marketId) {
+    if (closed) {
+      return null;
+    }
+    final StreamedMarket market = markets.computeIfAbsent(marketId, this::subscribe);
+    if (!market.synced) {
+      return null;
+    }
+    if (nanoClock.getAsLong() - market.lastMessageNanos > staleAfterNanos) {
+      resync(market, market.connection.get(), "no message within stale timeout");
+      return null;
+    }
+    return market;
+  }
+
+  private StreamedMarket subscribe(String marketId) {
+    LOG.info(() -> "Subscribing to " + exchangeName + " market data stream for " + marketId);
+    final StreamedMarket market = new StreamedMarket(marketId);
+    connect(market);
+    return market;
+  }
+
+  private void connect(StreamedMarket market) {
+    if (closed) {
+      return;
+    }
+    final int connection = market.connection.get();
+    market.lastSequence = Long.MIN_VALUE;
+    httpClient
+        .newWebSocketBuilder()
+        .buildAsync(getStreamUri(market.marketId), new MarketListener(market, connection))
+        .whenComplete(
+            (webSocket, error) -> {
+              if (error != null) {
+                resync(market, connection, "failed to connect: " + error);
+              } else if (market.connection.get() != connection) {
+                webSocket.abort(); // resynced while connecting
+              } else {
+                market.webSocket = webSocket;
+              }
+            });
+  }
+
+  /*
+   * Throws away the book and schedules a reconnect. Only the first caller for a given connection
+   * does anything, so late events from an old connection cannot tear down its replacement.
+   */
+  private void resync(StreamedMarket market, int connection, String reason) {
+    if (!market.connection.compareAndSet(connection, connection + 1)) {
+      return;
+    }
+    LOG.warn(
+        () ->
+            "Resyncing "
+                + exchangeName
+                + " market data stream for "
+                + market.marketId
+                + " - "
+                + reason);
+
+    market.synced = false;
+    market.orderBook.clear();
+    final WebSocket webSocket = market.webSocket;
+    if (webSocket != null) {
+      webSocket.abort();
+    }
+    if (!closed) {
+      reconnector.schedule(() -> connect(market), resyncDelayMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Listens to the stream for one connection to a market. */
+  private final class MarketListener implements WebSocket.Listener {
+
+    private final StreamedMarket market;
+    private final int connection;
+    private final StringBuilder message = new StringBuilder();
+
+    MarketListener(StreamedMarket market, int connection) {
+      this.market = market;
+      this.connection = connection;
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+      LOG.info(() -> exchangeName + " market data stream open for " + market.marketId);
+      final String subscribeMessage = getSubscribeMessage(market.marketId);
+      if (subscribeMessage != null) {
+        webSocket.sendText(subscribeMessage, true);
+      }
+      webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+      message.append(data);
+      if (last) {
+        final String completeMessage = message.toString();
+        message.setLength(0);
+        if (market.connection.get() != connection) {
+          return null;
+        }
+        market.lastMessageNanos = nanoClock.getAsLong();
+        try {
+          onMessage(market, completeMessage);
+        } catch (StreamGapException e) {
+          resync(market, connection, e.getMessage());
+          return null;
+        } catch (RuntimeException e) {
+          LOG.error("Failed to apply " + exchangeName + " market data: " + completeMessage, e);
+          resync(market, connection, "unreadable message");
+          return null;
+        }
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+      resync(market, connection, "stream closed by exchange: " + statusCode + " " + reason);
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+      resync(market, connection, "stream error: " + error);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Generates the nonces sent with authenticated API calls.
+ *
+ * <p>Exchanges reject a call whose nonce is not greater than the last one they saw for the API
+ * key. Each nonce is the current time in millis, or one more than the last nonce handed out if the
+ * clock has not moved on since, so nonces keep increasing across restarts as well as between
+ * calls.
+ *
+ * <p>This class is thread safe: concurrent callers always get distinct, increasing nonces.
+ * However, calls made concurrently can still reach the exchange out of nonce order. Exchanges
+ * that enforce strict ordering need a nonce window configured on the API key to accept them.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class NonceGenerator {
+
+  private final AtomicLong lastNonce = new AtomicLong();
+  private final LongSupplier clock;
+
+  /** Creates a nonce generator that uses the system clock. */
+  NonceGenerator() {
+    this(System::currentTimeMillis);
+  }
+
+  /**
+   * Creates a nonce generator.
+   *
+   * @param clock supplies the current time in millis.
+   */
+  NonceGenerator(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the next nonce.
+   *
+   * @return a nonce greater than any previously returned.
+   */
+  long next() {
+    final long now = clock.getAsLong();
+    return lastNonce.updateAndGet(last -> Math.max(last + 1, now));
+  }
+}
@@ -0,0 +1,384 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * An {@link ExchangeHttpTransport} backed by a single, long-lived {@link HttpClient}.
+ *
+ * <p>The client keeps connections to the exchange alive between calls, so a trade cycle no longer
+ * pays for a TCP connect and TLS handshake on every API call. HTTP/2 is used when the exchange
+ * supports it (several calls then share the one connection); otherwise the client falls back to
+ * HTTP/1.1 keep-alive.
+ *
+ * <p>The JDK client sizes its connection pool and idle timeout from JVM-wide system properties that
+ * are read once, when the first client is created. They are only set here if they have not already
+ * been set on the command line, and then apply to every JDK HTTP client in the JVM - including the
+ * other Exchange Adapters'. The pool size is also used to cap the number of requests in flight at
+ * once, so concurrent Trading Strategies cannot open more connections than configured.
+ *
+ * <p>Response bodies are handed back unread, so large payloads can be decoded as they arrive.
+ * HTTP/2 has no reason phrase, so responses from this transport always have a null reason phrase.
+ *
+ * <p>The JDK client's request timeout only covers waiting for the response headers. The body must
+ * then be read within the same timeout, or the read fails with an {@link HttpTimeoutException}, as
+ * the read timeout of the old HttpURLConnection transport did.
+ *
+ * <p>Async requests use the client's own non-blocking I/O. When every request permit is taken, an
+ * async request queues for one on a single background thread rather than on the caller's thread.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class PooledHttpClientTransport implements ExchangeHttpTransport {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  static final String CONNECTION_POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+  static final String KEEP_ALIVE_TIMEOUT_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+  private static final String POST = "POST";
+
+  private final HttpClient httpClient;
+  private final Semaphore requestPermits;
+  private final Executor permitWaiter;
+  private final ScheduledExecutorService bodyReadWatchdog;
+
+  /**
+   * Creates the transport.
+   *
+   * @param connectionTimeoutInMillis the connect timeout in millis.
+   * @param connectionPoolSize the max number of connections to hold open. Null means no limit.
+   * @param connectionIdleTimeoutInSecs how long an idle connection is kept before being closed.
+   *     Null means use the JDK default.
+   */
+  PooledHttpClientTransport(
+      int connectionTimeoutInMillis,
+      Integer connectionPoolSize,
+      Integer connectionIdleTimeoutInSecs) {
+
+    if (connectionPoolSize != null) {
+      setSystemPropertyIfAbsent(CONNECTION_POOL_SIZE_PROPERTY, connectionPoolSize);
+      requestPermits = new Semaphore(connectionPoolSize, true);
+      permitWaiter =
+          Executors.newSingleThreadExecutor(
+              runnable -> {
+                final Thread thread = new Thread(runnable, "bxbot-http-permit-waiter");
+                thread.setDaemon(true);
+                return thread;
+              });
+    } else {
+      requestPermits = null;
+      permitWaiter = null;
+    }
+    if (connectionIdleTimeoutInSecs != null) {
+      setSystemPropertyIfAbsent(KEEP_ALIVE_TIMEOUT_PROPERTY, connectionIdleTimeoutInSecs);
+    }
+
+    final ScheduledThreadPoolExecutor watchdog =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              final Thread thread = new Thread(runnable, "bxbot-http-body-read-watchdog");
+              thread.setDaemon(true);
+              return thread;
+            });
+    watchdog.setRemoveOnCancelPolicy(true);
+    bodyReadWatchdog = watchdog;
+
+    httpClient =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(connectionTimeoutInMillis))
+            .build();
+  }
+
+  @Override
+  public ExchangeHttpResponse send(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      int timeoutInMillis)
+      throws IOException, InterruptedException {
+
+    final HttpRequest request =
+        buildRequest(url, httpMethod, postData, requestHeaders, timeoutInMillis);
+
+    if (requestPermits != null) {
+      requestPermits.acquire();
+    }
+    boolean bodyHandedOver = false;
+    try {
+      final HttpResponse<InputStream> response =
+          httpClient.send(request, BodyHandlers.ofInputStream());
+
+      // The body is read by the caller; the connection (and request permit) is released when the
+      // body is closed. If the exchange stalls part way through, the watchdog closes it for us.
+      final ResponseBodyInputStream body =
+          new ResponseBodyInputStream(response.body(), requestPermits, timeoutInMillis);
+      body.closeOnTimeout(bodyReadWatchdog);
+      final ExchangeHttpResponse exchangeResponse =
+          new ExchangeHttpResponse(
+              response.statusCode(), null, new InputStreamReader(body, StandardCharsets.UTF_8));
+      bodyHandedOver = true;
+      return exchangeResponse;
+
+    } finally {
+      if (requestPermits != null && !bodyHandedOver) {
+        requestPermits.release();
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<ExchangeHttpResponse> sendAsync(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      int timeoutInMillis) {
+
+    final HttpRequest request;
+    try {
+      request = buildRequest(url, httpMethod, postData, requestHeaders, timeoutInMillis);
+    } catch (MalformedURLException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    if (requestPermits == null) {
+      return sendAsync(request, timeoutInMillis);
+    }
+    final CompletableFuture<Void> permitAcquired =
+        requestPermits.tryAcquire()
+            ? CompletableFuture.completedFuture(null)
+            : CompletableFuture.runAsync(requestPermits::acquireUninterruptibly, permitWaiter);
+    return permitAcquired
+        .thenCompose(acquired -> sendAsync(request, timeoutInMillis))
+        .whenComplete((response, failure) -> requestPermits.release());
+  }
+
+  private CompletableFuture<ExchangeHttpResponse> sendAsync(
+      HttpRequest request, int timeoutInMillis) {
+
+    final CompletableFuture<ExchangeHttpResponse> exchangeResponse = new CompletableFuture<>();
+    final AtomicReference<ScheduledFuture<?>> bodyReadTimeout = new AtomicReference<>();
+    httpClient
+        .sendAsync(
+            request,
+            responseInfo -> {
+              // The headers have arrived; the body now has to arrive within the timeout too.
+              final Runnable timeOut =
+                  () -> exchangeResponse.completeExceptionally(bodyReadTimedOut(timeoutInMillis));
+              bodyReadTimeout.set(
+                  bodyReadWatchdog.schedule(timeOut, timeoutInMillis, TimeUnit.MILLISECONDS));
+              return BodySubscribers.ofString(StandardCharsets.UTF_8);
+            })
+        .whenComplete(
+            (response, failure) -> {
+              final ScheduledFuture<?> timeout = bodyReadTimeout.get();
+              if (timeout != null) {
+                timeout.cancel(false);
+              }
+              if (failure != null) {
+                exchangeResponse.completeExceptionally(failure);
+              } else {
+                // Lines are joined without their terminators, as ExchangeHttpResponse.readPayload()
+                // does.
+                exchangeResponse.complete(
+                    new ExchangeHttpResponse(
+                        response.statusCode(),
+                        null,
+                        response.body().lines().collect(Collectors.joining())));
+              }
+            });
+    return exchangeResponse;
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private static HttpRequest buildRequest(
+      URL url,
+      String httpMethod,
+      String postData,
+      Map<String, String> requestHeaders,
+      int timeoutInMillis)
+      throws MalformedURLException {
+
+    final HttpRequest.Builder requestBuilder;
+    try {
+      requestBuilder =
+          HttpRequest.newBuilder(url.toURI()).timeout(Duration.ofMillis(timeoutInMillis));
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      final MalformedURLException malformedUrlException = new MalformedURLException(e.getMessage());
+      malformedUrlException.initCause(e);
+      throw malformedUrlException;
+    }
+
+    for (final Map.Entry<String, String> requestHeader : requestHeaders.entrySet()) {
+      requestBuilder.setHeader(requestHeader.getKey(), requestHeader.getValue());
+    }
+
+    if (POST.equalsIgnoreCase(httpMethod) && postData != null) {
+      requestBuilder.method(POST, BodyPublishers.ofString(postData, StandardCharsets.UTF_8));
+    } else {
+      requestBuilder.method(httpMethod, BodyPublishers.noBody());
+    }
+    return requestBuilder.build();
+  }
+
+  private static HttpTimeoutException bodyReadTimedOut(int timeoutInMillis) {
+    return new HttpTimeoutException(
+        "Response body not read within " + timeoutInMillis + "ms of the headers");
+  }
+
+  /**
+   * Releases the request permit, once, when the response body is closed. A body that is still
+   * being read when its timeout is up is closed by the watchdog, which fails the read.
+   */
+  private static class ResponseBodyInputStream extends FilterInputStream {
+
+    private final Semaphore requestPermits;
+    private final int timeoutInMillis;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean timedOut;
+    private volatile ScheduledFuture<?> readTimeout;
+
+    ResponseBodyInputStream(InputStream body, Semaphore requestPermits, int timeoutInMillis) {
+      super(body);
+      this.requestPermits = requestPermits;
+      this.timeoutInMillis = timeoutInMillis;
+    }
+
+    void closeOnTimeout(ScheduledExecutorService watchdog) {
+      readTimeout = watchdog.schedule(this::timeOut, timeoutInMillis, TimeUnit.MILLISECONDS);
+      if (closed.get()) {
+        readTimeout.cancel(false);
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      try {
+        return super.read();
+      } catch (IOException e) {
+        throw readFailure(e);
+      }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      try {
+        return super.read(buffer, offset, length);
+      } catch (IOException e) {
+        throw readFailure(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed.compareAndSet(false, true)) {
+        final ScheduledFuture<?> timeout = readTimeout;
+        if (timeout != null) {
+          timeout.cancel(false);
+        }
+        try {
+          super.close();
+        } finally {
+          if (requestPermits != null) {
+            requestPermits.release();
+          }
+        }
+      }
+    }
+
+    private void timeOut() {
+      timedOut = true;
+      try {
+        close();
+      } catch (IOException e) {
+        LOG.debug("Failed to close timed out response stream.", e);
+      }
+    }
+
+    private IOException readFailure(IOException e) {
+      if (!timedOut) {
+        return e;
+      }
+      final HttpTimeoutException timeoutException = bodyReadTimedOut(timeoutInMillis);
+      timeoutException.initCause(e);
+      return timeoutException;
+    }
+  }
+
+  private static void setSystemPropertyIfAbsent(String name, int value) {
+    final String existingValue = System.getProperty(name);
+    if (existingValue == null) {
+      System.setProperty(name, String.valueOf(value));
+      LOG.info(() -> name + ": " + value);
+    } else if (!existingValue.equals(String.valueOf(value))) {
+      LOG.warn(
+          () ->
+              name
+                  + " is already set to "
+                  + existingValue
+                  + " - ignoring configured value of "
+                  + value);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs authenticated API calls with an HMAC of the API secret.
+ *
+ * <p>A {@link Mac} is stateful and not thread safe, so each thread signs with its own instance,
+ * created from the same key on first use. The same goes for the SHA-256 digests some exchanges
+ * want hashed into the message.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class RequestSigner {
+
+  private static final ThreadLocal<MessageDigest> SHA_256 =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+              // Every Java platform is required to support SHA-256.
+              throw new IllegalStateException("SHA-256 is not available", e);
+            }
+          });
+
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> macs;
+
+  /**
+   * Creates a signer.
+   *
+   * @param algorithm the HMAC algorithm, e.g. HmacSHA512.
+   * @param secret the API secret.
+   * @throws NoSuchAlgorithmException if the algorithm is not installed.
+   * @throws InvalidKeyException if the secret is not a valid key for the algorithm.
+   */
+  RequestSigner(String algorithm, byte[] secret)
+      throws NoSuchAlgorithmException, InvalidKeyException {
+    key = new SecretKeySpec(secret, algorithm);
+    // Fail fast on a bad algorithm or key, rather than on the first signed call.
+    final Mac first = newMac();
+    macs =
+        ThreadLocal.withInitial(
+            () -> {
+              try {
+                return newMac();
+              } catch (GeneralSecurityException e) {
+                // Creating the first Mac succeeded, so this cannot happen.
+                throw new IllegalStateException("Failed to create " + algorithm + " MAC", e);
+              }
+            });
+    macs.set(first);
+  }
+
+  /**
+   * Returns the HMAC of the given message parts, in order.
+   *
+   * @param parts the message parts.
+   * @return the signature.
+   */
+  byte[] sign(byte[]... parts) {
+    final Mac mac = macs.get();
+    mac.reset();
+    for (final byte[] part : parts) {
+      mac.update(part);
+    }
+    return mac.doFinal();
+  }
+
+  /**
+   * Returns the SHA-256 hash of the given data.
+   *
+   * @param data the data to hash.
+   * @return the hash.
+   */
+  static byte[] sha256(byte[] data) {
+    final MessageDigest digest = SHA_256.get();
+    digest.reset();
+    return digest.digest(data);
+  }
+
+  private Mac newMac() throws NoSuchAlgorithmException, InvalidKeyException {
+    final Mac mac = Mac.getInstance(key.getAlgorithm());
+    mac.init(key);
+    return mac;
+  }
+}
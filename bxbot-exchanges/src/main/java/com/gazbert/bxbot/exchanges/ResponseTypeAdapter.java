@@ -0,0 +1,364 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Base class for the hand-written Gson type adapters that decode exchange responses.
+ *
+ * <p>Gson decodes a class it has no type adapter for by reflection, creating every field it finds
+ * in the JSON. The Exchange Adapters register a subclass of this for each of their response
+ * classes instead: it reads the response as a stream of tokens, sets the fields the adapter uses,
+ * and skips the rest without decoding them.
+ *
+ * <p>A JSON null decodes to null, as it does for Gson's own adapters. Responses are only written
+ * if something asks Gson for one, e.g. to log it, so {@link #write(JsonWriter, Object)} just
+ * writes the response by reflection, as Gson would without this adapter.
+ *
+ * @param <T> the response class.
+ * @author gazbert
+ * @since 1.2
+ */
+abstract class ResponseTypeAdapter<T> extends TypeAdapter<T> {
+
+  /**
+   * Writes responses by reflection. Order book levels are views onto their book's columns, so they
+   * are written as their values instead.
+   */
+  private static final Gson RESPONSE_WRITER =
+      new GsonBuilder()
+          .registerTypeHierarchyAdapter(
+              MarketOrder.class, (JsonSerializer<MarketOrder>) ResponseTypeAdapter::writeLevel)
+          .create();
+
+  /** Reads one value from the stream. */
+  @FunctionalInterface
+  interface ValueReader<V> {
+    V read(JsonReader in) throws IOException;
+  }
+
+  /** Adds one order book level, as the decimal strings the exchange sent, to a side of a book. */
+  @FunctionalInterface
+  interface LevelConsumer {
+    void add(String price, String quantity);
+  }
+
+  @Override
+  public final T read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return readValue(in);
+  }
+
+  @Override
+  public final void write(JsonWriter out, T value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    writeValue(out, value, RESPONSE_WRITER.getAdapter(value.getClass()));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> void writeValue(JsonWriter out, Object value, TypeAdapter<V> adapter)
+      throws IOException {
+    adapter.write(out, (V) value);
+  }
+
+  private static JsonElement writeLevel(
+      MarketOrder order, Type type, JsonSerializationContext context) {
+    final JsonObject level = new JsonObject();
+    level.addProperty("type", order.getType().name());
+    level.addProperty("price", order.getPrice());
+    level.addProperty("quantity", order.getQuantity());
+    return level;
+  }
+
+  /**
+   * Reads a non-null value.
+   *
+   * @param in the JSON stream, positioned at the start of the value.
+   * @return the decoded value.
+   * @throws IOException if the value cannot be read.
+   */
+  abstract T readValue(JsonReader in) throws IOException;
+
+  /**
+   * Creates an adapter that reads a JSON array into a list, e.g. a response class that extends
+   * ArrayList.
+   *
+   * @param listFactory creates the list.
+   * @param elementReader reads each element.
+   * @param <L> the list type.
+   * @param <E> the element type.
+   * @return the list adapter.
+   */
+  static <L extends List<E>, E> ResponseTypeAdapter<L> listAdapter(
+      Supplier<L> listFactory, ValueReader<E> elementReader) {
+    return new ResponseTypeAdapter<>() {
+      @Override
+      L readValue(JsonReader in) throws IOException {
+        return readList(in, listFactory.get(), elementReader);
+      }
+    };
+  }
+
+  /**
+   * Creates an adapter that reads a JSON object into a map keyed by field name, e.g. a response
+   * class that extends HashMap.
+   *
+   * @param mapFactory creates the map.
+   * @param valueReader reads each field value.
+   * @param <M> the map type.
+   * @param <V> the value type.
+   * @return the map adapter.
+   */
+  static <M extends Map<String, V>, V> ResponseTypeAdapter<M> mapAdapter(
+      Supplier<M> mapFactory, ValueReader<V> valueReader) {
+    return new ResponseTypeAdapter<>() {
+      @Override
+      M readValue(JsonReader in) throws IOException {
+        final M map = mapFactory.get();
+        in.beginObject();
+        while (in.hasNext()) {
+          map.put(in.nextName(), valueReader.read(in));
+        }
+        in.endObject();
+        return map;
+      }
+    };
+  }
+
+  /**
+   * Reads a JSON array into a new ArrayList.
+   *
+   * @param in the JSON stream.
+   * @param elementReader reads each element.
+   * @param <E> the element type.
+   * @return the list, or null if the value is null.
+   * @throws IOException if the array cannot be read.
+   */
+  static <E> List<E> nextList(JsonReader in, ValueReader<E> elementReader) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return readList(in, new ArrayList<>(), elementReader);
+  }
+
+  /**
+   * Reads order book levels sent as arrays, e.g. [["521.88", "10.00000000"], ...], into a side of
+   * a book. The price and quantity are the first two elements; anything after them is skipped.
+   *
+   * @param in the JSON stream.
+   * @param levels adds each level to the book.
+   * @throws IOException if the levels cannot be read.
+   */
+  static void nextArrayLevels(JsonReader in, LevelConsumer levels) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return;
+    }
+    in.beginArray();
+    while (in.hasNext()) {
+      in.beginArray();
+      final String price = nextLevelValue(in);
+      final String quantity = nextLevelValue(in);
+      while (in.hasNext()) {
+        in.skipValue();
+      }
+      in.endArray();
+      addLevel(levels, price, quantity);
+    }
+    in.endArray();
+  }
+
+  /**
+   * Reads order book levels sent as objects, e.g. [{"price": "521.88", "amount": "10.0"}, ...],
+   * into a side of a book. Fields other than the price and quantity are skipped.
+   *
+   * @param in the JSON stream.
+   * @param priceName the name of the price field.
+   * @param quantityName the name of the quantity field.
+   * @param levels adds each level to the book.
+   * @throws IOException if the levels cannot be read.
+   */
+  static void nextObjectLevels(
+      JsonReader in, String priceName, String quantityName, LevelConsumer levels)
+      throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return;
+    }
+    in.beginArray();
+    while (in.hasNext()) {
+      String price = null;
+      String quantity = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        final String name = in.nextName();
+        if (priceName.equals(name)) {
+          price = nextLevelValue(in);
+        } else if (quantityName.equals(name)) {
+          quantity = nextLevelValue(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      addLevel(levels, price, quantity);
+    }
+    in.endArray();
+  }
+
+  /**
+   * Reads a JSON string or number as a BigDecimal.
+   *
+   * @param in the JSON stream.
+   * @return the value, or null if it is null.
+   * @throws IOException if the value is not a decimal.
+   */
+  static BigDecimal nextBigDecimal(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    final String value = in.nextString();
+    try {
+      return new BigDecimal(value);
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException("Failed to parse '" + value + "' as BigDecimal", e);
+    }
+  }
+
+  /**
+   * Reads a JSON string, number or boolean as a String.
+   *
+   * @param in the JSON stream.
+   * @return the value, or null if it is null.
+   * @throws IOException if the value is not a string.
+   */
+  static String nextString(JsonReader in) throws IOException {
+    final JsonToken token = in.peek();
+    if (token == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+  }
+
+  /**
+   * Reads a JSON number, or a string holding one, as a Long.
+   *
+   * @param in the JSON stream.
+   * @return the value, or null if it is null.
+   * @throws IOException if the value is not a long.
+   */
+  static Long nextLong(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    return in.nextLong();
+  }
+
+  /**
+   * Reads a JSON number, or a string holding one, as a long.
+   *
+   * @param in the JSON stream.
+   * @param valueIfNull the value to return if the JSON value is null.
+   * @return the value.
+   * @throws IOException if the value is not a long.
+   */
+  static long nextLong(JsonReader in, long valueIfNull) throws IOException {
+    final Long value = nextLong(in);
+    return value == null ? valueIfNull : value;
+  }
+
+  /**
+   * Reads a JSON boolean as a boolean.
+   *
+   * @param in the JSON stream.
+   * @return the value, or false if it is null.
+   * @throws IOException if the value is not a boolean.
+   */
+  static boolean nextBoolean(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return false;
+    }
+    return in.nextBoolean();
+  }
+
+  private static String nextLevelValue(JsonReader in) throws IOException {
+    if (!in.hasNext()) {
+      throw new JsonSyntaxException("Order book level is missing its price or quantity");
+    }
+    return in.nextString();
+  }
+
+  private static void addLevel(LevelConsumer levels, String price, String quantity) {
+    if (price == null || quantity == null) {
+      throw new JsonSyntaxException("Order book level is missing its price or quantity");
+    }
+    try {
+      levels.add(price, quantity);
+    } catch (NumberFormatException e) {
+      throw new JsonSyntaxException(
+          "Failed to parse order book level [" + price + ", " + quantity + "]", e);
+    }
+  }
+
+  private static <L extends List<E>, E> L readList(
+      JsonReader in, L list, ValueReader<E> elementReader) throws IOException {
+    in.beginArray();
+    while (in.hasNext()) {
+      list.add(elementReader.read(in));
+    }
+    in.endArray();
+    return list;
+  }
+}
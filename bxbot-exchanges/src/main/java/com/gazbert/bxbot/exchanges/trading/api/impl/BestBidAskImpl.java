@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.google.common.base.MoreObjects;
+import java.math.BigDecimal;
+
+/**
+ * A BestBidAsk implementation that can be used by Exchange Adapters.
+ *
+ * <p>One created from fixed-point prices hands them back from {@link #getFixedPointBid()} and
+ * {@link #getFixedPointAsk()} as they are, and only creates a {@link BigDecimal} if one is asked
+ * for.
+ *
+ * @author gazbert
+ */
+public final class BestBidAskImpl implements BestBidAsk {
+
+  private BigDecimal bid;
+  private BigDecimal ask;
+  private FixedPointDecimal fixedPointBid;
+  private FixedPointDecimal fixedPointAsk;
+
+  /** Creates a new BestBidAsk. */
+  public BestBidAskImpl(BigDecimal bid, BigDecimal ask) {
+    this.bid = bid;
+    this.ask = ask;
+  }
+
+  /**
+   * Creates a new BestBidAsk from fixed-point prices.
+   *
+   * @param bid the highest buy order price, or null if there are no buy orders.
+   * @param ask the lowest sell order price, or null if there are no sell orders.
+   * @return the best bid and ask.
+   * @since 1.2
+   */
+  public static BestBidAskImpl fromFixedPoint(FixedPointDecimal bid, FixedPointDecimal ask) {
+    final BestBidAskImpl bestBidAsk = new BestBidAskImpl(null, null);
+    bestBidAsk.fixedPointBid = bid;
+    bestBidAsk.fixedPointAsk = ask;
+    return bestBidAsk;
+  }
+
+  @Override
+  public BigDecimal getBid() {
+    if (bid == null && fixedPointBid != null) {
+      bid = fixedPointBid.toBigDecimal();
+    }
+    return bid;
+  }
+
+  public void setBid(BigDecimal bid) {
+    this.bid = bid;
+    this.fixedPointBid = null;
+  }
+
+  @Override
+  public BigDecimal getAsk() {
+    if (ask == null && fixedPointAsk != null) {
+      ask = fixedPointAsk.toBigDecimal();
+    }
+    return ask;
+  }
+
+  public void setAsk(BigDecimal ask) {
+    this.ask = ask;
+    this.fixedPointAsk = null;
+  }
+
+  @Override
+  public FixedPointDecimal getFixedPointBid() {
+    return fixedPointBid != null ? fixedPointBid : BestBidAsk.super.getFixedPointBid();
+  }
+
+  @Override
+  public FixedPointDecimal getFixedPointAsk() {
+    return fixedPointAsk != null ? fixedPointAsk : BestBidAsk.super.getFixedPointAsk();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this).add("bid", getBid()).add("ask", getAsk()).toString();
+  }
+}
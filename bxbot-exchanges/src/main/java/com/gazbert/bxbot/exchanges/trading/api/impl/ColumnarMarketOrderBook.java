@@ -0,0 +1,429 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.common.base.MoreObjects;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A compact MarketOrderBook implementation that can be used by Exchange Adapters.
+ *
+ * <p>Instead of a {@link MarketOrder} object holding three {@link BigDecimal}s for every level, the
+ * prices and quantities of each side of the book are held in parallel fixed-point arrays: an
+ * unscaled long and a scale per value. The {@link MarketOrder}s returned by {@link
+ * #getBuyOrders()} and {@link #getSellOrders()} are lightweight views created on access, and each
+ * level's total is only worked out if it is asked for. A large book costs a fraction of the heap
+ * and allocations of a {@link MarketOrderBookImpl}. Reading a level as a {@link FixedPointDecimal}
+ * does not create a {@link BigDecimal} at all.
+ *
+ * <p>Values with more than 18 significant digits do not fit a long; they are kept as they are.
+ *
+ * <p>Adapters fill the book level by level, best price first, as they parse the exchange response.
+ * Levels can be added as the decimal strings the exchange sent, or as unscaled longs and scales;
+ * neither creates a {@link BigDecimal} for a value that fits a long. It must not be changed once
+ * it has been handed to a Trading Strategy.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public final class ColumnarMarketOrderBook implements MarketOrderBook {
+
+  private static final int DEFAULT_EXPECTED_LEVELS = 16;
+
+  private final String marketId;
+  private final Side buyOrders;
+  private final Side sellOrders;
+
+  /**
+   * Creates a new empty Market Order Book.
+   *
+   * @param marketId the market id.
+   */
+  public ColumnarMarketOrderBook(String marketId) {
+    this(marketId, DEFAULT_EXPECTED_LEVELS, DEFAULT_EXPECTED_LEVELS);
+  }
+
+  /**
+   * Creates a new empty Market Order Book sized for the given number of levels.
+   *
+   * @param marketId the market id.
+   * @param expectedBuyLevels the number of buy levels the book is expected to hold.
+   * @param expectedSellLevels the number of sell levels the book is expected to hold.
+   */
+  public ColumnarMarketOrderBook(String marketId, int expectedBuyLevels, int expectedSellLevels) {
+    this(
+        marketId,
+        new Side(OrderType.BUY, expectedBuyLevels),
+        new Side(OrderType.SELL, expectedSellLevels));
+  }
+
+  private ColumnarMarketOrderBook(String marketId, Side buyOrders, Side sellOrders) {
+    this.marketId = marketId;
+    this.buyOrders = buyOrders;
+    this.sellOrders = sellOrders;
+  }
+
+  /**
+   * Adds the next (lower priced) buy level to the book.
+   *
+   * @param price the price of the level.
+   * @param quantity the quantity at the level.
+   */
+  public void addBuyOrder(BigDecimal price, BigDecimal quantity) {
+    buyOrders.add(price, quantity);
+  }
+
+  /**
+   * Adds the next (lower priced) buy level to the book, parsing the decimal strings the exchange
+   * sent.
+   *
+   * @param price the price of the level.
+   * @param quantity the quantity at the level.
+   * @throws NumberFormatException if the price or quantity is not a decimal number.
+   */
+  public void addBuyOrder(String price, String quantity) {
+    buyOrders.add(price, quantity);
+  }
+
+  /**
+   * Adds the next (lower priced) buy level to the book, given as unscaled values and scales.
+   *
+   * @param unscaledPrice the unscaled price of the level.
+   * @param priceScale the scale of the price.
+   * @param unscaledQuantity the unscaled quantity at the level.
+   * @param quantityScale the scale of the quantity.
+   */
+  public void addBuyOrder(
+      long unscaledPrice, int priceScale, long unscaledQuantity, int quantityScale) {
+    buyOrders.add(unscaledPrice, priceScale, unscaledQuantity, quantityScale);
+  }
+
+  /**
+   * Adds the next (higher priced) sell level to the book.
+   *
+   * @param price the price of the level.
+   * @param quantity the quantity at the level.
+   */
+  public void addSellOrder(BigDecimal price, BigDecimal quantity) {
+    sellOrders.add(price, quantity);
+  }
+
+  /**
+   * Adds the next (higher priced) sell level to the book, parsing the decimal strings the exchange
+   * sent.
+   *
+   * @param price the price of the level.
+   * @param quantity the quantity at the level.
+   * @throws NumberFormatException if the price or quantity is not a decimal number.
+   */
+  public void addSellOrder(String price, String quantity) {
+    sellOrders.add(price, quantity);
+  }
+
+  /**
+   * Adds the next (higher priced) sell level to the book, given as unscaled values and scales.
+   *
+   * @param unscaledPrice the unscaled price of the level.
+   * @param priceScale the scale of the price.
+   * @param unscaledQuantity the unscaled quantity at the level.
+   * @param quantityScale the scale of the quantity.
+   */
+  public void addSellOrder(
+      long unscaledPrice, int priceScale, long unscaledQuantity, int quantityScale) {
+    sellOrders.add(unscaledPrice, priceScale, unscaledQuantity, quantityScale);
+  }
+
+  /**
+   * Returns a copy of the top of this book for a market. Adapters that parse the whole book before
+   * they know how many levels were asked for use this to keep only those.
+   *
+   * @param marketId the market id.
+   * @param maxLevels the max number of levels to copy from each side.
+   * @return the market order book, best prices first.
+   */
+  public ColumnarMarketOrderBook forMarket(String marketId, int maxLevels) {
+    return new ColumnarMarketOrderBook(
+        marketId, buyOrders.copyOf(maxLevels), sellOrders.copyOf(maxLevels));
+  }
+
+  @Override
+  public String getMarketId() {
+    return marketId;
+  }
+
+  @Override
+  public List<MarketOrder> getSellOrders() {
+    return sellOrders;
+  }
+
+  @Override
+  public List<MarketOrder> getBuyOrders() {
+    return buyOrders;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("marketId", marketId)
+        .add("sellOrders", sellOrders)
+        .add("buyOrders", buyOrders)
+        .toString();
+  }
+
+  /** One side of the book. A read-only list of views over its levels. */
+  private static final class Side extends AbstractList<MarketOrder> implements RandomAccess {
+
+    private final OrderType type;
+    private final DecimalColumn prices;
+    private final DecimalColumn quantities;
+
+    Side(OrderType type, int expectedLevels) {
+      this(type, new DecimalColumn(expectedLevels), new DecimalColumn(expectedLevels));
+    }
+
+    private Side(OrderType type, DecimalColumn prices, DecimalColumn quantities) {
+      this.type = type;
+      this.prices = prices;
+      this.quantities = quantities;
+    }
+
+    void add(BigDecimal price, BigDecimal quantity) {
+      prices.add(price);
+      quantities.add(quantity);
+    }
+
+    void add(String price, String quantity) {
+      prices.add(price);
+      quantities.add(quantity);
+    }
+
+    void add(long unscaledPrice, int priceScale, long unscaledQuantity, int quantityScale) {
+      prices.add(unscaledPrice, priceScale);
+      quantities.add(unscaledQuantity, quantityScale);
+    }
+
+    Side copyOf(int maxLevels) {
+      final int levels = Math.min(size(), maxLevels);
+      return new Side(type, prices.copyOf(levels), quantities.copyOf(levels));
+    }
+
+    @Override
+    public MarketOrder get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return new Level(this, index);
+    }
+
+    @Override
+    public int size() {
+      return prices.size();
+    }
+  }
+
+  /** A view of one level of the book. */
+  private static final class Level implements MarketOrder {
+
+    private final Side side;
+    private final int index;
+    private BigDecimal total;
+
+    Level(Side side, int index) {
+      this.side = side;
+      this.index = index;
+    }
+
+    @Override
+    public OrderType getType() {
+      return side.type;
+    }
+
+    @Override
+    public BigDecimal getPrice() {
+      return side.prices.get(index);
+    }
+
+    @Override
+    public BigDecimal getQuantity() {
+      return side.quantities.get(index);
+    }
+
+    @Override
+    public FixedPointDecimal getFixedPointPrice() {
+      return side.prices.getFixedPoint(index);
+    }
+
+    @Override
+    public FixedPointDecimal getFixedPointQuantity() {
+      return side.quantities.getFixedPoint(index);
+    }
+
+    @Override
+    public BigDecimal getTotal() {
+      if (total == null) {
+        total = getPrice().multiply(getQuantity());
+      }
+      return total;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(MarketOrder.class)
+          .add("type", getType())
+          .add("price", getPrice())
+          .add("quantity", getQuantity())
+          .add("total", getTotal())
+          .toString();
+    }
+  }
+
+  /** A growable column of decimals held as unscaled longs and scales. */
+  private static final class DecimalColumn {
+
+    private static final int MAX_LONG_PRECISION = 18;
+
+    private long[] unscaledValues;
+    private int[] scales;
+    private BigDecimal[] tooBigForLong;
+    private int size;
+
+    DecimalColumn(int expectedSize) {
+      final int capacity = Math.max(1, expectedSize);
+      unscaledValues = new long[capacity];
+      scales = new int[capacity];
+    }
+
+    private DecimalColumn(long[] unscaledValues, int[] scales, BigDecimal[] tooBigForLong) {
+      this.unscaledValues = unscaledValues;
+      this.scales = scales;
+      this.tooBigForLong = tooBigForLong;
+      this.size = unscaledValues.length;
+    }
+
+    void add(BigDecimal value) {
+      if (value.precision() <= MAX_LONG_PRECISION) {
+        // Moving the point to the end keeps the value compact; unscaledValue() makes a BigInteger.
+        add(value.scaleByPowerOfTen(value.scale()).longValue(), value.scale());
+      } else {
+        ensureCapacity();
+        if (tooBigForLong == null) {
+          tooBigForLong = new BigDecimal[unscaledValues.length];
+        }
+        tooBigForLong[size++] = value;
+      }
+    }
+
+    void add(long unscaledValue, int scale) {
+      ensureCapacity();
+      unscaledValues[size] = unscaledValue;
+      scales[size] = scale;
+      size++;
+    }
+
+    /*
+     * Plain decimals of up to 18 digits, e.g. "0.01000000", are read straight into the column.
+     * Anything else, e.g. an exponent or more digits, is left to BigDecimal.
+     */
+    void add(String value) {
+      final int length = value.length();
+      int index = 0;
+      boolean negative = false;
+      if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+        negative = value.charAt(0) == '-';
+        index++;
+      }
+
+      long unscaledValue = 0;
+      int digits = 0;
+      int scale = -1;
+      for (; index < length; index++) {
+        final char c = value.charAt(index);
+        if (c == '.' && scale < 0) {
+          scale = 0;
+        } else if (c >= '0' && c <= '9' && digits < MAX_LONG_PRECISION) {
+          unscaledValue = unscaledValue * 10 + (c - '0');
+          digits++;
+          if (scale >= 0) {
+            scale++;
+          }
+        } else {
+          break;
+        }
+      }
+
+      if (index < length || digits == 0) {
+        add(new BigDecimal(value));
+      } else {
+        add(negative ? -unscaledValue : unscaledValue, Math.max(0, scale));
+      }
+    }
+
+    DecimalColumn copyOf(int newSize) {
+      return new DecimalColumn(
+          Arrays.copyOf(unscaledValues, newSize),
+          Arrays.copyOf(scales, newSize),
+          tooBigForLong == null ? null : Arrays.copyOf(tooBigForLong, newSize));
+    }
+
+    private void ensureCapacity() {
+      if (size == unscaledValues.length) {
+        final int capacity = size + (size >> 1) + 1;
+        unscaledValues = Arrays.copyOf(unscaledValues, capacity);
+        scales = Arrays.copyOf(scales, capacity);
+        if (tooBigForLong != null) {
+          tooBigForLong = Arrays.copyOf(tooBigForLong, capacity);
+        }
+      }
+    }
+
+    BigDecimal get(int index) {
+      if (tooBigForLong != null && tooBigForLong[index] != null) {
+        return tooBigForLong[index];
+      }
+      return BigDecimal.valueOf(unscaledValues[index], scales[index]);
+    }
+
+    FixedPointDecimal getFixedPoint(int index) {
+      final int scale = scales[index];
+      if ((tooBigForLong != null && tooBigForLong[index] != null)
+          || scale < 0
+          || scale > FixedPointDecimal.MAX_SCALE) {
+        return FixedPointDecimal.valueOf(get(index));
+      }
+      return FixedPointDecimal.of(unscaledValues[index], scale);
+    }
+
+    int size() {
+      return size;
+    }
+  }
+}
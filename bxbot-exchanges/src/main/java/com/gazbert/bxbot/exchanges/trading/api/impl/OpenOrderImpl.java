@@ -45,6 +45,7 @@ public final class OpenOrderImpl implements OpenOrder {
   private BigDecimal quantity;
   private BigDecimal originalQuantity;
   private BigDecimal total;
+  private String clientOrderId;
 
   /** Creates a new Open Order. */
   public OpenOrderImpl(
@@ -139,6 +140,15 @@ public final class OpenOrderImpl implements OpenOrder {
     this.total = total;
   }
 
+  @Override
+  public String getClientOrderId() {
+    return clientOrderId;
+  }
+
+  public void setClientOrderId(String clientOrderId) {
+    this.clientOrderId = clientOrderId;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -169,6 +179,7 @@ public final class OpenOrderImpl implements OpenOrder {
         .add("quantity", quantity)
         .add("originalQuantity", originalQuantity)
         .add("total", total)
+        .add("clientOrderId", clientOrderId)
         .toString();
   }
 }
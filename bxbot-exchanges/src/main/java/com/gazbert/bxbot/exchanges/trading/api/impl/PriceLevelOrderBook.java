@@ -0,0 +1,613 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.google.common.base.MoreObjects;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An incrementally updated order book of price levels, for applying book deltas from streaming
+ * feeds and REST diffs without rebuilding the book.
+ *
+ * <p>Prices and quantities are held as fixed-point longs at the scales given when the book is
+ * created. Each side is an AVL tree of levels stored in primitive arrays, threaded with a
+ * best-first linked list:
+ *
+ * <ul>
+ *   <li>setting, replacing and removing a level is O(log n);
+ *   <li>the best bid and ask are O(1);
+ *   <li>walking the top N levels is O(N) and allocates nothing when using {@link
+ *       #forEachLevel(OrderType, int, LevelVisitor)};
+ *   <li>the cumulative quantity at or better than a price is O(log n), as each tree node also holds
+ *       the total quantity beneath it.
+ * </ul>
+ *
+ * <p>The {@link MarketOrderBook} lists are live, best-first views of the book, so existing Trading
+ * Strategies can use it unchanged. Iterating a view while the book is being updated throws a
+ * {@link ConcurrentModificationException}.
+ *
+ * <p>This class is not thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public final class PriceLevelOrderBook implements MarketOrderBook {
+
+  /** Receives the levels of one side of the book, best price first. */
+  @FunctionalInterface
+  public interface LevelVisitor {
+
+    /**
+     * Called for each level.
+     *
+     * @param price the fixed-point price of the level.
+     * @param quantity the fixed-point quantity at the level.
+     */
+    void visit(long price, long quantity);
+  }
+
+  private static final int DEFAULT_EXPECTED_LEVELS = 64;
+
+  private final String marketId;
+  private final int priceScale;
+  private final int quantityScale;
+  private final Side bids;
+  private final Side asks;
+
+  /**
+   * Creates a new empty order book.
+   *
+   * @param marketId the market id.
+   * @param priceScale the number of decimal places prices are held to.
+   * @param quantityScale the number of decimal places quantities are held to.
+   */
+  public PriceLevelOrderBook(String marketId, int priceScale, int quantityScale) {
+    this.marketId = marketId;
+    this.priceScale = priceScale;
+    this.quantityScale = quantityScale;
+    this.bids = new Side(OrderType.BUY, DEFAULT_EXPECTED_LEVELS);
+    this.asks = new Side(OrderType.SELL, DEFAULT_EXPECTED_LEVELS);
+  }
+
+  /**
+   * Sets the quantity at a price level, adding the level if it is new.
+   *
+   * @param side the side of the book: BUY for bids, SELL for asks.
+   * @param price the price of the level.
+   * @param quantity the new total quantity at the level. Zero removes the level.
+   * @throws IllegalArgumentException if the price or quantity has more decimal places than the
+   *     book holds, does not fit the book's fixed-point range, or the quantity is negative.
+   */
+  public void setLevel(OrderType side, BigDecimal price, BigDecimal quantity) {
+    setLevel(side, toFixedPoint(price, priceScale), toFixedPoint(quantity, quantityScale));
+  }
+
+  /**
+   * Sets the quantity at a price level, adding the level if it is new.
+   *
+   * @param side the side of the book: BUY for bids, SELL for asks.
+   * @param price the fixed-point price of the level.
+   * @param quantity the new fixed-point total quantity at the level. Zero removes the level.
+   * @throws IllegalArgumentException if the quantity is negative.
+   */
+  public void setLevel(OrderType side, long price, long quantity) {
+    if (quantity < 0) {
+      throw new IllegalArgumentException("Quantity cannot be negative: " + quantity);
+    }
+    final Side levels = getSide(side);
+    if (quantity == 0) {
+      levels.remove(price);
+    } else {
+      levels.put(price, quantity);
+    }
+  }
+
+  /** Removes every level from both sides of the book. */
+  public void clear() {
+    bids.reset();
+    asks.reset();
+  }
+
+  /**
+   * Returns the best bid price.
+   *
+   * @return the highest bid price, or null if there are no bids.
+   */
+  public BigDecimal getBestBid() {
+    return bids.isEmpty() ? null : BigDecimal.valueOf(bids.bestPrice(), priceScale);
+  }
+
+  /**
+   * Returns the best ask price.
+   *
+   * @return the lowest ask price, or null if there are no asks.
+   */
+  public BigDecimal getBestAsk() {
+    return asks.isEmpty() ? null : BigDecimal.valueOf(asks.bestPrice(), priceScale);
+  }
+
+  /**
+   * Returns the best bid price as a fixed-point decimal, at the book's price scale.
+   *
+   * @return the highest bid price, or null if there are no bids.
+   */
+  public FixedPointDecimal getFixedPointBestBid() {
+    return bids.isEmpty() ? null : FixedPointDecimal.of(bids.bestPrice(), priceScale);
+  }
+
+  /**
+   * Returns the best ask price as a fixed-point decimal, at the book's price scale.
+   *
+   * @return the lowest ask price, or null if there are no asks.
+   */
+  public FixedPointDecimal getFixedPointBestAsk() {
+    return asks.isEmpty() ? null : FixedPointDecimal.of(asks.bestPrice(), priceScale);
+  }
+
+  /**
+   * Returns the number of levels on one side of the book.
+   *
+   * @param side the side of the book.
+   * @return the number of levels.
+   */
+  public int getLevelCount(OrderType side) {
+    return getSide(side).size();
+  }
+
+  /**
+   * Visits the top levels of one side of the book, best price first.
+   *
+   * @param side the side of the book.
+   * @param maxLevels the max number of levels to visit.
+   * @param visitor the visitor.
+   * @return the number of levels visited.
+   */
+  public int forEachLevel(OrderType side, int maxLevels, LevelVisitor visitor) {
+    return getSide(side).forEachLevel(maxLevels, visitor);
+  }
+
+  /**
+   * Returns the total quantity on one side of the book at the given price or better, i.e. how much
+   * could be filled by a market order down (bids) or up (asks) to that price.
+   *
+   * @param side the side of the book.
+   * @param throughPrice the worst price to include.
+   * @return the cumulative quantity.
+   */
+  public BigDecimal getCumulativeQuantity(OrderType side, BigDecimal throughPrice) {
+    return BigDecimal.valueOf(
+        getSide(side).cumulativeQuantity(toFixedPoint(throughPrice, priceScale)), quantityScale);
+  }
+
+  public int getPriceScale() {
+    return priceScale;
+  }
+
+  public int getQuantityScale() {
+    return quantityScale;
+  }
+
+  @Override
+  public String getMarketId() {
+    return marketId;
+  }
+
+  @Override
+  public List<MarketOrder> getSellOrders() {
+    return asks;
+  }
+
+  @Override
+  public List<MarketOrder> getBuyOrders() {
+    return bids;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("marketId", marketId)
+        .add("sellOrders", asks)
+        .add("buyOrders", bids)
+        .toString();
+  }
+
+  private Side getSide(OrderType side) {
+    return side == OrderType.BUY ? bids : asks;
+  }
+
+  private static long toFixedPoint(BigDecimal value, int scale) {
+    try {
+      return value.setScale(scale).unscaledValue().longValueExact();
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException(
+          value + " cannot be held as a fixed-point value with " + scale + " decimal places", e);
+    }
+  }
+
+  /**
+   * One side of the book. An AVL tree in book order (best price first), so the in-order successor
+   * of a level is the next worse level.
+   */
+  private final class Side extends AbstractList<MarketOrder> {
+
+    private static final int NIL = -1;
+
+    private final OrderType type;
+    private final boolean highestFirst;
+
+    private long[] prices;
+    private long[] quantities;
+    private long[] subtreeQuantities;
+    private int[] left;
+    private int[] right;
+    private int[] heights;
+    private int[] worse;
+    private int[] better;
+
+    private int root = NIL;
+    private int best = NIL;
+    private int size;
+    private int nodesUsed;
+    private int freeNodes = NIL;
+
+    Side(OrderType type, int expectedLevels) {
+      this.type = type;
+      this.highestFirst = type == OrderType.BUY;
+      allocate(Math.max(1, expectedLevels));
+    }
+
+    long bestPrice() {
+      return prices[best];
+    }
+
+    void put(long price, long quantity) {
+      root = insert(root, price, quantity, NIL, NIL);
+      modCount++;
+    }
+
+    void remove(long price) {
+      root = delete(root, price);
+      modCount++;
+    }
+
+    void reset() {
+      root = NIL;
+      best = NIL;
+      size = 0;
+      nodesUsed = 0;
+      freeNodes = NIL;
+      modCount++;
+    }
+
+    int forEachLevel(int maxLevels, LevelVisitor visitor) {
+      int visited = 0;
+      for (int node = best; node != NIL && visited < maxLevels; node = worse[node]) {
+        visitor.visit(prices[node], quantities[node]);
+        visited++;
+      }
+      return visited;
+    }
+
+    long cumulativeQuantity(long throughPrice) {
+      long total = 0;
+      int node = root;
+      while (node != NIL) {
+        if (compare(prices[node], throughPrice) <= 0) {
+          total += subtreeQuantity(left[node]) + quantities[node];
+          node = right[node];
+        } else {
+          node = left[node];
+        }
+      }
+      return total;
+    }
+
+    @Override
+    public MarketOrder get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      int node = best;
+      for (int i = 0; i < index; i++) {
+        node = worse[node];
+      }
+      return level(node);
+    }
+
+    @Override
+    public Iterator<MarketOrder> iterator() {
+      return new Iterator<>() {
+        private final int expectedModCount = modCount;
+        private int next = best;
+
+        @Override
+        public boolean hasNext() {
+          return next != NIL;
+        }
+
+        @Override
+        public MarketOrder next() {
+          if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+          }
+          if (next == NIL) {
+            throw new NoSuchElementException();
+          }
+          final MarketOrder level = level(next);
+          next = worse[next];
+          return level;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    private MarketOrder level(int node) {
+      return new Level(
+          type,
+          BigDecimal.valueOf(prices[node], priceScale),
+          BigDecimal.valueOf(quantities[node], quantityScale));
+    }
+
+    /* Negative if price a is better than price b. */
+    private int compare(long a, long b) {
+      return highestFirst ? Long.compare(b, a) : Long.compare(a, b);
+    }
+
+    /*
+     * Inserts or replaces a level. The closest better and worse levels are tracked on the way
+     * down, so a new level can be linked into the best-first list where it lands.
+     */
+    private int insert(int node, long price, long quantity, int betterLevel, int worseLevel) {
+      if (node == NIL) {
+        return newLevel(price, quantity, betterLevel, worseLevel);
+      }
+      // The child is assigned from a local: inserting can grow the arrays, and left[node] = ...
+      // would otherwise write into the array that was current before the call.
+      final int cmp = compare(price, prices[node]);
+      if (cmp < 0) {
+        final int child = insert(left[node], price, quantity, betterLevel, node);
+        left[node] = child;
+      } else if (cmp > 0) {
+        final int child = insert(right[node], price, quantity, node, worseLevel);
+        right[node] = child;
+      } else {
+        quantities[node] = quantity;
+      }
+      return rebalance(node);
+    }
+
+    private int delete(int node, long price) {
+      if (node == NIL) {
+        return NIL;
+      }
+      final int cmp = compare(price, prices[node]);
+      if (cmp < 0) {
+        left[node] = delete(left[node], price);
+        return rebalance(node);
+      } else if (cmp > 0) {
+        right[node] = delete(right[node], price);
+        return rebalance(node);
+      }
+
+      final int replacement;
+      if (left[node] == NIL) {
+        replacement = right[node];
+      } else if (right[node] == NIL) {
+        replacement = left[node];
+      } else {
+        // With two children, the next worse level is the leftmost node of the right subtree.
+        // Lift it into this node's place.
+        final int successor = worse[node];
+        right[successor] = detachLeftmost(right[node]);
+        left[successor] = left[node];
+        replacement = rebalance(successor);
+      }
+      unlink(node);
+      freeLevel(node);
+      return replacement;
+    }
+
+    private int detachLeftmost(int node) {
+      if (left[node] == NIL) {
+        return right[node];
+      }
+      left[node] = detachLeftmost(left[node]);
+      return rebalance(node);
+    }
+
+    private int rebalance(int node) {
+      update(node);
+      final int balance = height(left[node]) - height(right[node]);
+      if (balance > 1) {
+        if (height(left[left[node]]) < height(right[left[node]])) {
+          left[node] = rotateLeft(left[node]);
+        }
+        return rotateRight(node);
+      } else if (balance < -1) {
+        if (height(right[right[node]]) < height(left[right[node]])) {
+          right[node] = rotateRight(right[node]);
+        }
+        return rotateLeft(node);
+      }
+      return node;
+    }
+
+    private int rotateRight(int node) {
+      final int pivot = left[node];
+      left[node] = right[pivot];
+      right[pivot] = node;
+      update(node);
+      update(pivot);
+      return pivot;
+    }
+
+    private int rotateLeft(int node) {
+      final int pivot = right[node];
+      right[node] = left[pivot];
+      left[pivot] = node;
+      update(node);
+      update(pivot);
+      return pivot;
+    }
+
+    private void update(int node) {
+      heights[node] = 1 + Math.max(height(left[node]), height(right[node]));
+      subtreeQuantities[node] =
+          subtreeQuantity(left[node]) + quantities[node] + subtreeQuantity(right[node]);
+    }
+
+    private int height(int node) {
+      return node == NIL ? 0 : heights[node];
+    }
+
+    private long subtreeQuantity(int node) {
+      return node == NIL ? 0 : subtreeQuantities[node];
+    }
+
+    private int newLevel(long price, long quantity, int betterLevel, int worseLevel) {
+      final int node;
+      if (freeNodes != NIL) {
+        node = freeNodes;
+        freeNodes = worse[node];
+      } else {
+        if (nodesUsed == prices.length) {
+          allocate(nodesUsed + (nodesUsed >> 1) + 1);
+        }
+        node = nodesUsed++;
+      }
+      prices[node] = price;
+      quantities[node] = quantity;
+      subtreeQuantities[node] = quantity;
+      left[node] = NIL;
+      right[node] = NIL;
+      heights[node] = 1;
+
+      better[node] = betterLevel;
+      worse[node] = worseLevel;
+      if (betterLevel == NIL) {
+        best = node;
+      } else {
+        worse[betterLevel] = node;
+      }
+      if (worseLevel != NIL) {
+        better[worseLevel] = node;
+      }
+      size++;
+      return node;
+    }
+
+    private void unlink(int node) {
+      if (better[node] == NIL) {
+        best = worse[node];
+      } else {
+        worse[better[node]] = worse[node];
+      }
+      if (worse[node] != NIL) {
+        better[worse[node]] = better[node];
+      }
+    }
+
+    private void freeLevel(int node) {
+      worse[node] = freeNodes;
+      freeNodes = node;
+      size--;
+    }
+
+    private void allocate(int capacity) {
+      prices = prices == null ? new long[capacity] : Arrays.copyOf(prices, capacity);
+      quantities = quantities == null ? new long[capacity] : Arrays.copyOf(quantities, capacity);
+      subtreeQuantities =
+          subtreeQuantities == null
+              ? new long[capacity]
+              : Arrays.copyOf(subtreeQuantities, capacity);
+      left = left == null ? new int[capacity] : Arrays.copyOf(left, capacity);
+      right = right == null ? new int[capacity] : Arrays.copyOf(right, capacity);
+      heights = heights == null ? new int[capacity] : Arrays.copyOf(heights, capacity);
+      worse = worse == null ? new int[capacity] : Arrays.copyOf(worse, capacity);
+      better = better == null ? new int[capacity] : Arrays.copyOf(better, capacity);
+    }
+  }
+
+  /** A copy of one level of the book, taken when it was read. */
+  private static final class Level implements MarketOrder {
+
+    private final OrderType type;
+    private final BigDecimal price;
+    private final BigDecimal quantity;
+    private BigDecimal total;
+
+    Level(OrderType type, BigDecimal price, BigDecimal quantity) {
+      this.type = type;
+      this.price = price;
+      this.quantity = quantity;
+    }
+
+    @Override
+    public OrderType getType() {
+      return type;
+    }
+
+    @Override
+    public BigDecimal getPrice() {
+      return price;
+    }
+
+    @Override
+    public BigDecimal getQuantity() {
+      return quantity;
+    }
+
+    @Override
+    public BigDecimal getTotal() {
+      if (total == null) {
+        total = price.multiply(quantity);
+      }
+      return total;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(MarketOrder.class)
+          .add("type", type)
+          .add("price", price)
+          .add("quantity", quantity)
+          .add("total", getTotal())
+          .toString();
+    }
+  }
+}
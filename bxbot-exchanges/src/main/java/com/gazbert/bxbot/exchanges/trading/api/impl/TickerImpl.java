@@ -23,6 +23,7 @@
 
 package com.gazbert.bxbot.exchanges.trading.api.impl;
 
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
 import com.gazbert.bxbot.trading.api.Ticker;
 import com.google.common.base.MoreObjects;
 import java.math.BigDecimal;
@@ -30,6 +31,9 @@ import java.math.BigDecimal;
 /**
  * A Ticker implementation that can be used by Exchange Adapters.
  *
+ * <p>One created from fixed-point prices hands the last, bid and ask prices back from the {@code
+ * getFixedPoint*} methods as they are, and only creates a {@link BigDecimal} if one is asked for.
+ *
  * @author gazbert
  */
 public final class TickerImpl implements Ticker {
@@ -43,6 +47,9 @@ public final class TickerImpl implements Ticker {
   private BigDecimal volume;
   private BigDecimal vwap;
   private Long timestamp;
+  private FixedPointDecimal fixedPointLast;
+  private FixedPointDecimal fixedPointBid;
+  private FixedPointDecimal fixedPointAsk;
 
   /** Creates a new TicketImpl. */
   public TickerImpl(
@@ -67,31 +74,78 @@ public final class TickerImpl implements Ticker {
     this.timestamp = timestamp;
   }
 
+  /**
+   * Creates a new Ticker with only the last, bid and ask prices set, from fixed-point prices.
+   *
+   * @param last the last trade price.
+   * @param bid the highest buy order price, or null if there are no buy orders.
+   * @param ask the lowest sell order price, or null if there are no sell orders.
+   * @param timestamp the current time on the exchange, or null if not known.
+   * @return the ticker.
+   * @since 1.2
+   */
+  public static TickerImpl fromFixedPoint(
+      FixedPointDecimal last, FixedPointDecimal bid, FixedPointDecimal ask, Long timestamp) {
+    final TickerImpl ticker =
+        new TickerImpl(null, null, null, null, null, null, null, null, timestamp);
+    ticker.fixedPointLast = last;
+    ticker.fixedPointBid = bid;
+    ticker.fixedPointAsk = ask;
+    return ticker;
+  }
+
   @Override
   public BigDecimal getLast() {
+    if (last == null && fixedPointLast != null) {
+      last = fixedPointLast.toBigDecimal();
+    }
     return last;
   }
 
   public void setLast(BigDecimal last) {
     this.last = last;
+    this.fixedPointLast = null;
+  }
+
+  @Override
+  public FixedPointDecimal getFixedPointLast() {
+    return fixedPointLast != null ? fixedPointLast : Ticker.super.getFixedPointLast();
   }
 
   @Override
   public BigDecimal getBid() {
+    if (bid == null && fixedPointBid != null) {
+      bid = fixedPointBid.toBigDecimal();
+    }
     return bid;
   }
 
   public void setBid(BigDecimal bid) {
     this.bid = bid;
+    this.fixedPointBid = null;
+  }
+
+  @Override
+  public FixedPointDecimal getFixedPointBid() {
+    return fixedPointBid != null ? fixedPointBid : Ticker.super.getFixedPointBid();
   }
 
   @Override
   public BigDecimal getAsk() {
+    if (ask == null && fixedPointAsk != null) {
+      ask = fixedPointAsk.toBigDecimal();
+    }
     return ask;
   }
 
   public void setAsk(BigDecimal ask) {
     this.ask = ask;
+    this.fixedPointAsk = null;
+  }
+
+  @Override
+  public FixedPointDecimal getFixedPointAsk() {
+    return fixedPointAsk != null ? fixedPointAsk : Ticker.super.getFixedPointAsk();
   }
 
   @Override
@@ -151,9 +205,9 @@ public final class TickerImpl implements Ticker {
   @Override
   public String toString() {
     return MoreObjects.toStringHelper(this)
-        .add("last", last)
-        .add("bid", bid)
-        .add("ask", ask)
+        .add("last", getLast())
+        .add("bid", getBid())
+        .add("ask", getAsk())
         .add("low", low)
         .add("high", high)
         .add("open", open)
@@ -0,0 +1,222 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * A local stand-in for an exchange's WebSocket market data stream.
+ *
+ * <p>Each client that connects is sent the next recording of frames in turn; once they have all
+ * been used, the last one is replayed. The connection is then held open until the client goes
+ * away, or until {@link #closeClients()} is called. Only the bits of RFC 6455 the feed handlers
+ * need are supported: the opening handshake, unmasked text frames and the close frame.
+ *
+ * @author gazbert
+ */
+final class ReplayingWebSocketServer implements Closeable {
+
+  private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+  private static final int TEXT_FRAME = 0x81;
+  private static final int CLOSE_FRAME = 0x88;
+
+  private final ServerSocket serverSocket;
+  private final List<List<String>> recordings;
+  private final List<String> requestPaths = new CopyOnWriteArrayList<>();
+  private final List<Socket> clients = new CopyOnWriteArrayList<>();
+
+  /**
+   * Starts the server on a free local port.
+   *
+   * @param recordings the frames to replay to each connection in turn.
+   * @throws IOException if the server cannot be started.
+   */
+  ReplayingWebSocketServer(List<List<String>> recordings) throws IOException {
+    this.recordings = recordings;
+    serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    final Thread acceptor = new Thread(this::acceptClients, "replaying-websocket-server");
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  /**
+   * Loads a recording of frames: one frame per line, blank lines ignored.
+   *
+   * @param path the recording file.
+   * @return the frames.
+   * @throws IOException if the file cannot be read.
+   */
+  static List<String> loadRecording(String path) throws IOException {
+    return Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8).stream()
+        .filter(line -> !line.isBlank())
+        .collect(Collectors.toList());
+  }
+
+  String getUrl() {
+    return "ws://" + serverSocket.getInetAddress().getHostAddress() + ":"
+        + serverSocket.getLocalPort() + "/";
+  }
+
+  int getConnectionCount() {
+    return requestPaths.size();
+  }
+
+  List<String> getRequestPaths() {
+    return requestPaths;
+  }
+
+  /** Sends a close frame to every connected client. */
+  void closeClients() throws IOException {
+    for (final Socket client : clients) {
+      synchronized (client) {
+        final OutputStream out = client.getOutputStream();
+        out.write(new byte[] {(byte) CLOSE_FRAME, 2, 0x03, (byte) 0xE8}); // 1000 normal closure
+        out.flush();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (final Socket client : clients) {
+      client.close();
+    }
+  }
+
+  private void acceptClients() {
+    while (!serverSocket.isClosed()) {
+      try {
+        final Socket client = serverSocket.accept();
+        final int connection = requestPaths.size();
+        final Thread replayer = new Thread(() -> replay(client, connection));
+        replayer.setDaemon(true);
+        replayer.start();
+      } catch (IOException e) {
+        // closed
+      }
+    }
+  }
+
+  private void replay(Socket client, int connection) {
+    try {
+      final InputStream in = client.getInputStream();
+      final String requestPath = handshake(client, in);
+      clients.add(client);
+      requestPaths.add(requestPath);
+
+      final List<String> frames = recordings.get(Math.min(connection, recordings.size() - 1));
+      for (final String frame : frames) {
+        synchronized (client) {
+          writeTextFrame(client.getOutputStream(), frame);
+        }
+      }
+
+      // Hold the connection open, ignoring anything the client sends, until it goes away.
+      while (in.read() != -1) {
+        // discard
+      }
+    } catch (Exception e) {
+      // client gone
+    } finally {
+      clients.remove(client);
+      try {
+        client.close();
+      } catch (IOException e) {
+        // ignore
+      }
+    }
+  }
+
+  private static String handshake(Socket client, InputStream in) throws Exception {
+    // Read a byte at a time, so none of the frames that follow the request are swallowed.
+    final StringBuilder request = new StringBuilder();
+    while (request.indexOf("\r\n\r\n") < 0) {
+      final int nextByte = in.read();
+      if (nextByte == -1) {
+        throw new EOFException("Client went away during handshake");
+      }
+      request.append((char) nextByte);
+    }
+
+    final String[] lines = request.toString().split("\r\n");
+    String key = null;
+    for (final String header : lines) {
+      if (header.toLowerCase(Locale.ROOT).startsWith("sec-websocket-key:")) {
+        key = header.substring(header.indexOf(':') + 1).trim();
+      }
+    }
+
+    final byte[] digest =
+        MessageDigest.getInstance("SHA-1")
+            .digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.ISO_8859_1));
+    final String response =
+        "HTTP/1.1 101 Switching Protocols\r\n"
+            + "Upgrade: websocket\r\n"
+            + "Connection: Upgrade\r\n"
+            + "Sec-WebSocket-Accept: "
+            + Base64.getEncoder().encodeToString(digest)
+            + "\r\n\r\n";
+    final OutputStream out = client.getOutputStream();
+    out.write(response.getBytes(StandardCharsets.ISO_8859_1));
+    out.flush();
+
+    return lines[0].split(" ")[1];
+  }
+
+  private static void writeTextFrame(OutputStream out, String text) throws IOException {
+    final byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+    out.write(TEXT_FRAME);
+    if (payload.length < 126) {
+      out.write(payload.length);
+    } else if (payload.length < 65536) {
+      out.write(126);
+      out.write(payload.length >>> 8);
+      out.write(payload.length);
+    } else {
+      out.write(127);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        out.write((int) ((long) payload.length >>> shift));
+      }
+    }
+    out.write(payload);
+    out.flush();
+  }
+}
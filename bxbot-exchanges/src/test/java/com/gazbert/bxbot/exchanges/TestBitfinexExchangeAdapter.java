@@ -28,6 +28,7 @@ import static org.easymock.EasyMock.anyString;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -37,6 +38,7 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
@@ -149,11 +151,16 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
     expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
     // optional config not needed for this adapter
+    expect(exchangeConfig.getOtherConfig()).andReturn(null);
   }
 
   // --------------------------------------------------------------------------
@@ -351,6 +358,22 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testCancelOrderReturnsFalseIfExchangeDoesNotRecogniseOrderId() throws Exception {
+    final BitfinexExchangeAdapter exchangeAdapter = new BitfinexExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                400, "Bad Request", "{\"message\":\"Order could not be cancelled.\"}"));
+
+    // marketId arg not needed for cancelling orders on this exchange.
+    assertFalse(exchangeAdapter.cancelOrder(ORDER_ID_TO_CANCEL, null));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testCancelOrderHandlesExchangeNetworkException() throws Exception {
     final BitfinexExchangeAdapter exchangeAdapter =
@@ -448,6 +471,53 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitfinexExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            BOOK + "/" + MARKET_ID + "?limit_bids=2&limit_asks=2")
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 2);
+
+    // assert some key stuff; we're not testing GSON here.
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+
+    final BigDecimal buyPrice = new BigDecimal("239.43");
+    final BigDecimal buyQuantity = new BigDecimal("5.0");
+    final BigDecimal buyTotal = buyPrice.multiply(buyQuantity);
+
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertSame(OrderType.BUY, marketOrderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(buyPrice));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(buyQuantity));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getTotal().compareTo(buyTotal));
+
+    final BigDecimal sellPrice = new BigDecimal("239.53");
+    final BigDecimal sellQuantity = new BigDecimal("6.35595596");
+    final BigDecimal sellTotal = sellPrice.multiply(sellQuantity);
+
+    assertEquals(2, marketOrderBook.getSellOrders().size());
+    assertSame(OrderType.SELL, marketOrderBook.getSellOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(sellPrice));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(sellQuantity));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getTotal().compareTo(sellTotal));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
     final BitfinexExchangeAdapter exchangeAdapter =
@@ -978,6 +1048,36 @@ public class TestBitfinexExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Best Bid/Ask tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingBestBidAskSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(PUB_TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitfinexExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitfinexExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            PUB_TICKER + "/" + MARKET_ID)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(MARKET_ID);
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("236.3")));
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("236.1")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Non Exchange visiting tests
   // --------------------------------------------------------------------------
@@ -32,12 +32,16 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.trading.api.AsyncTradingApi;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
@@ -56,6 +60,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -91,6 +97,10 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
       "./src/test/exchange-data/bitstamp/ticker.json";
   private static final String BUY_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/buy.json";
   private static final String SELL_JSON_RESPONSE = "./src/test/exchange-data/bitstamp/sell.json";
+  private static final String ORDER_STATUS_JSON_RESPONSE =
+      "./src/test/exchange-data/bitstamp/order_status.json";
+  private static final String ORDER_STATUS_NOT_FOUND_JSON_RESPONSE =
+      "./src/test/exchange-data/bitstamp/order_status_not_found.json";
   private static final String CANCEL_ORDER_JSON_RESPONSE =
       "./src/test/exchange-data/bitstamp/cancel_order.json";
 
@@ -100,8 +110,11 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
   private static final String TICKER = "ticker/";
   private static final String BUY = "buy/";
   private static final String SELL = "sell/";
+  private static final String ORDER_STATUS = "order_status";
   private static final String CANCEL_ORDER = "cancel_order";
 
+  private static final String FEE_CACHE_TTL = "fee-cache-ttl";
+
   private static final String MARKET_ID = "btcusd";
   private static final BigDecimal BUY_ORDER_PRICE = new BigDecimal("200.18");
   private static final BigDecimal BUY_ORDER_QUANTITY = new BigDecimal("0.03");
@@ -116,6 +129,11 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
       "sendPublicRequestToExchange";
   private static final String MOCKED_CREATE_REQUEST_HEADER_MAP_METHOD = "createHeaderParamMap";
   private static final String MOCKED_MAKE_NETWORK_REQUEST_METHOD = "makeNetworkRequest";
+  private static final String MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD =
+      "sendAuthenticatedRequestToExchangeAsync";
+  private static final String MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_ASYNC_METHOD =
+      "sendPublicRequestToExchangeAsync";
+  private static final String MOCKED_MAKE_NETWORK_REQUEST_ASYNC_METHOD = "makeNetworkRequestAsync";
 
   private static final String CLIENT_ID = "clientId123";
   private static final String KEY = "key123";
@@ -148,11 +166,16 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
     expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
-    // optional config not needed for this adapter
+    // other config is optional for this adapter
+    expect(exchangeConfig.getOtherConfig()).andStubReturn(null);
   }
 
   // --------------------------------------------------------------------------
@@ -297,6 +320,45 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateOrderWithClientOrderIdSendsItToExchange() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("client_order_id", "client-1")).andReturn(null);
+    expect(requestParamMap.put(anyString(), anyString())).andStubReturn(null);
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BUY + MARKET_ID),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertTrue(exchangeAdapter.supportsClientOrderIds());
+    final String orderId =
+        exchangeAdapter.createOrder(
+            MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "client-1");
+    assertEquals("80890994", orderId);
+
+    PowerMock.verifyAll();
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testCreateOrderToSellIsSuccessful() throws Exception {
@@ -386,6 +448,111 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Order Id By Client Order Id tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingOrderIdByClientOrderIdSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("client_order_id", "client-1")).andReturn(null);
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_STATUS),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertEquals("80890994", exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-1"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testGettingOrderIdByClientOrderIdReturnsNullIfOrderNotFound() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_NOT_FOUND_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_STATUS),
+            anyObject(Map.class))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertNull(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-1"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testGettingOrderIdByClientOrderIdHandlesErrorResponse() throws Exception {
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", "{\"status\": \"error\", \"error\": \"Invalid nonce\"}");
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_STATUS),
+            anyObject(Map.class))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-1");
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = ExchangeNetworkException.class)
+  public void testGettingOrderIdByClientOrderIdHandlesExchangeNetworkException()
+      throws Exception {
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_STATUS),
+            anyObject(Map.class))
+        .andThrow(new ExchangeNetworkException("It's a trap!"));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, "client-1");
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Get Market Orders tests
   // --------------------------------------------------------------------------
@@ -437,6 +604,58 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_BOOK + MARKET_ID))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 2);
+
+    // assert some key stuff; we're not testing GSON here.
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+
+    final BigDecimal buyPrice = new BigDecimal("230.34");
+    final BigDecimal buyQuantity = new BigDecimal("7.22860000");
+    final BigDecimal buyTotal = buyPrice.multiply(buyQuantity);
+
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertSame(OrderType.BUY, marketOrderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(buyPrice));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(buyQuantity));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getTotal().compareTo(buyTotal));
+
+    final BigDecimal sellPrice = new BigDecimal("230.90");
+    final BigDecimal sellQuantity = new BigDecimal("0.62263188");
+    final BigDecimal sellTotal = sellPrice.multiply(sellQuantity);
+
+    assertEquals(2, marketOrderBook.getSellOrders().size());
+    assertSame(OrderType.SELL, marketOrderBook.getSellOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(sellPrice));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(sellQuantity));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getTotal().compareTo(sellTotal));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGettingMarketOrdersToDepthRejectsZeroLevels() throws Exception {
+    new BitstampExchangeAdapter().getMarketOrders(MARKET_ID, 0);
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
     final BitstampExchangeAdapter exchangeAdapter =
@@ -522,6 +741,9 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
             .getTotal()
             .compareTo(openOrders.get(0).getPrice().multiply(openOrders.get(0).getQuantity())));
 
+    assertEquals("client-52603560", openOrders.get(0).getClientOrderId());
+    assertNull(openOrders.get(1).getClientOrderId());
+
     // the values below are not provided by Bitstamp
     assertNull(openOrders.get(0).getOriginalQuantity());
 
@@ -868,6 +1090,159 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Fee cache tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testExchangeFeesAreCachedAndSharedWithBalanceInfo() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(exchangeResponse)
+        .once();
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getBalanceInfo();
+    assertEquals(
+        0,
+        exchangeAdapter
+            .getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)
+            .compareTo(new BigDecimal("0.0025")));
+    assertEquals(
+        0,
+        exchangeAdapter
+            .getPercentageOfSellOrderTakenForExchangeFee("ltcbtc")
+            .compareTo(new BigDecimal("0.0020")));
+    assertEquals(
+        0,
+        exchangeAdapter
+            .async(Runnable::run)
+            .getPercentageOfBuyOrderTakenForExchangeFee("xrpeur")
+            .get()
+            .compareTo(new BigDecimal("0.0022")));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testGettingExchangeFeeForUnknownMarketThrowsTradingApiException() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee("dogeusd");
+  }
+
+  @Test
+  public void testFeeCacheCanBeTurnedOff() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
+    expect(otherConfig.getItem(FEE_CACHE_TTL)).andReturn("0");
+    expect(otherConfig.getItem("base-url")).andReturn(null);
+    expect(exchangeConfig.getOtherConfig()).andReturn(otherConfig);
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(exchangeResponse)
+        .times(2);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+    exchangeAdapter.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID);
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(timeout = 10000)
+  public void testFeesAreRefreshedInBackgroundBeforeTheyExpire() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BALANCE_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+    final AbstractExchangeAdapter.ExchangeHttpResponse refreshedResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", "{\"btcusd_fee\": \"0.10\"}");
+
+    final OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
+    expect(otherConfig.getItem(FEE_CACHE_TTL)).andReturn("1");
+    expect(otherConfig.getItem("base-url")).andReturn(null);
+    expect(exchangeConfig.getOtherConfig()).andReturn(otherConfig);
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(exchangeResponse);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(CompletableFuture.completedFuture(refreshedResponse));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BigDecimal fee = exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+    assertEquals(0, fee.compareTo(new BigDecimal("0.0025")));
+
+    // Half way to expiring: the cached fee is returned and a fresh one is fetched.
+    Thread.sleep(600);
+    final BigDecimal cachedFee =
+        exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+    assertEquals(0, cachedFee.compareTo(new BigDecimal("0.0025")));
+
+    final BigDecimal refreshedFee =
+        exchangeAdapter.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID);
+    assertEquals(0, refreshedFee.compareTo(new BigDecimal("0.0010")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Get Ticker tests
   // --------------------------------------------------------------------------
@@ -937,6 +1312,34 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Best Bid/Ask tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingBestBidAskSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(TICKER + MARKET_ID))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(MARKET_ID);
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("230.69")));
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("230.34")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Non Exchange visiting tests
   // --------------------------------------------------------------------------
@@ -1018,6 +1421,239 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testExchangeAdapterThrowsExceptionIfBaseUrlConfigIsInvalid() {
+    final OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
+    expect(otherConfig.getItem(FEE_CACHE_TTL)).andReturn(null);
+    expect(otherConfig.getItem("base-url")).andReturn("localhost:8090/bitstamp");
+    expect(exchangeConfig.getOtherConfig()).andReturn(otherConfig);
+    PowerMock.replayAll();
+
+    final ExchangeAdapter exchangeAdapter = new BitstampExchangeAdapter();
+    exchangeAdapter.init(exchangeConfig);
+
+    PowerMock.verifyAll();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Async API tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingTickerAndMarketOrdersAsyncSuccessfully() throws Exception {
+    final byte[] tickerEncoded = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse tickerResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(tickerEncoded, StandardCharsets.UTF_8));
+    final byte[] orderBookEncoded = Files.readAllBytes(Paths.get(ORDER_BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse orderBookResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(orderBookEncoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_ASYNC_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(TICKER + MARKET_ID))
+        .andReturn(CompletableFuture.completedFuture(tickerResponse));
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(ORDER_BOOK + MARKET_ID))
+        .andReturn(CompletableFuture.completedFuture(orderBookResponse));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final AsyncTradingApi asyncTradingApi = exchangeAdapter.async(Runnable::run);
+    final CompletableFuture<Ticker> ticker = asyncTradingApi.getTicker(MARKET_ID);
+    final CompletableFuture<MarketOrderBook> marketOrderBook =
+        asyncTradingApi.getMarketOrders(MARKET_ID, 5);
+
+    assertEquals(0, ticker.get().getLast().compareTo(new BigDecimal("230.33")));
+    assertEquals(5, marketOrderBook.get().getBuyOrders().size());
+    assertEquals(5, marketOrderBook.get().getSellOrders().size());
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateOrderAsyncIsSuccessful() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(
+            requestParamMap.put(
+                "price",
+                new DecimalFormat("#.##", getDecimalFormatSymbols()).format(BUY_ORDER_PRICE)))
+        .andStubReturn(null);
+    expect(
+            requestParamMap.put(
+                "amount",
+                new DecimalFormat("#.########", getDecimalFormatSymbols())
+                    .format(BUY_ORDER_QUANTITY)))
+        .andStubReturn(null);
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(BUY + MARKET_ID),
+            eq(requestParamMap))
+        .andReturn(CompletableFuture.completedFuture(exchangeResponse));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final String orderId =
+        exchangeAdapter
+            .async(Runnable::run)
+            .createOrder(MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE)
+            .get();
+    assertEquals("80890994", orderId);
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateOrderAsyncSendsClientOrderIdToExchange() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("client_order_id", "client-1")).andReturn(null);
+    expect(requestParamMap.put(anyString(), anyString())).andStubReturn(null);
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(BUY + MARKET_ID),
+            eq(requestParamMap))
+        .andReturn(CompletableFuture.completedFuture(exchangeResponse));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final String orderId =
+        exchangeAdapter
+            .async(Runnable::run)
+            .createOrder(MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "client-1")
+            .get();
+    assertEquals("80890994", orderId);
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testAsyncCallCompletesWithExchangeNetworkException() throws Exception {
+    final ExchangeNetworkException exchangeNetworkException =
+        new ExchangeNetworkException("It's a trap!");
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(BALANCE),
+            eq(null))
+        .andReturn(CompletableFuture.failedFuture(exchangeNetworkException));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    try {
+      exchangeAdapter.async(Runnable::run).getBalanceInfo().get();
+      fail("Expected the call to complete exceptionally");
+    } catch (ExecutionException e) {
+      assertSame(exchangeNetworkException, e.getCause());
+    }
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testAsyncCallWrapsUnexpectedExceptionInTradingApiException() throws Exception {
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(200, "OK", "These aren't the droids");
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_ASYNC_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_ASYNC_METHOD,
+            eq(TICKER + MARKET_ID))
+        .andReturn(CompletableFuture.completedFuture(exchangeResponse));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    try {
+      exchangeAdapter.async(Runnable::run).getLatestMarketPrice(MARKET_ID).get();
+      fail("Expected the call to complete exceptionally");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TradingApiException);
+    }
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testSendingPublicRequestToExchangeAsyncSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_MAKE_NETWORK_REQUEST_ASYNC_METHOD);
+
+    final URL url = new URL(API_BASE_URL + TICKER + MARKET_ID);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_MAKE_NETWORK_REQUEST_ASYNC_METHOD,
+            eq(url),
+            eq("GET"),
+            eq(null),
+            eq(new HashMap<>()))
+        .andReturn(CompletableFuture.completedFuture(exchangeResponse));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk =
+        exchangeAdapter.async(Runnable::run).getBestBidAsk(MARKET_ID).get();
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("230.34")));
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("230.69")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Request sending tests
   // --------------------------------------------------------------------------
@@ -1052,6 +1688,41 @@ public class TestBitstampExchangeAdapter extends AbstractExchangeAdapter {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testSendingPublicRequestToBaseUrlInConfig() throws Exception {
+    final OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
+    expect(otherConfig.getItem(FEE_CACHE_TTL)).andReturn(null);
+    expect(otherConfig.getItem("base-url")).andReturn("http://localhost:8090/bitstamp");
+    expect(exchangeConfig.getOtherConfig()).andReturn(otherConfig);
+
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final BitstampExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            BitstampExchangeAdapter.class, MOCKED_MAKE_NETWORK_REQUEST_METHOD);
+
+    final URL url = new URL("http://localhost:8090/bitstamp/api/v2/" + TICKER + MARKET_ID);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_MAKE_NETWORK_REQUEST_METHOD,
+            eq(url),
+            eq("GET"),
+            eq(null),
+            eq(new HashMap<>()))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BigDecimal lastMarketPrice = exchangeAdapter.getLatestMarketPrice(MARKET_ID);
+    assertEquals(0, lastMarketPrice.compareTo(new BigDecimal("230.33")));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testSendingPublicRequestToExchangeHandlesExchangeNetworkException() throws Exception {
     final BitstampExchangeAdapter exchangeAdapter =
@@ -40,6 +40,7 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
@@ -55,6 +56,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -89,6 +91,8 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
   private static final String BOOK_JSON_RESPONSE = "./src/test/exchange-data/coinbasepro/book.json";
   private static final String ORDERS_JSON_RESPONSE =
       "./src/test/exchange-data/coinbasepro/orders.json";
+  private static final String ORDER_CLIENT_JSON_RESPONSE =
+      "./src/test/exchange-data/coinbasepro/order_client.json";
   private static final String ACCOUNTS_JSON_RESPONSE =
       "./src/test/exchange-data/coinbasepro/accounts.json";
   private static final String TICKER_JSON_RESPONSE =
@@ -110,9 +114,11 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
   private static final BigDecimal SELL_ORDER_PRICE = new BigDecimal("300.176");
   private static final BigDecimal SELL_ORDER_QUANTITY = new BigDecimal("0.01");
   private static final String ORDER_ID_TO_CANCEL = "3ecf7a12-fc89-4d3d-baef-f158f80b3bd3";
+  private static final String CLIENT_OID = "c2a3b4d5-e6f7-4a8b-9c0d-1e2f3a4b5c6d";
 
   private static final String BOOK = "products/" + MARKET_ID + "/book";
   private static final String ORDERS = "orders";
+  private static final String ORDERS_BY_CLIENT_OID = "orders/client:";
   private static final String ACCOUNTS = "accounts";
   private static final String TICKER = "products/" + MARKET_ID + "/ticker";
   private static final String NEW_ORDER = "orders";
@@ -157,11 +163,16 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
     expect(otherConfig.getItem("time-server-bias")).andReturn("82");
+    expect(otherConfig.getItem("base-url")).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -226,6 +237,46 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateOrderWithClientOrderIdSendsItToExchange() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(NEW_BUY_ORDER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("client_oid", "client-1")).andReturn(null);
+    expect(requestParamMap.put(anyString(), anyString())).andStubReturn(null);
+
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("POST"),
+            eq(NEW_ORDER),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertTrue(exchangeAdapter.supportsClientOrderIds());
+    final String orderId =
+        exchangeAdapter.createOrder(
+            MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "client-1");
+    assertEquals("193d2ad9-e671-4d66-9211-7f75f6380231", orderId);
+
+    PowerMock.verifyAll();
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testCreateOrderToSellIsSuccessful() throws Exception {
@@ -403,6 +454,96 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Order Id By Client Order Id tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingOrderIdByClientOrderIdFindsDoneOrder() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_CLIENT_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("GET"),
+            eq(ORDERS_BY_CLIENT_OID + CLIENT_OID),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertEquals(
+        "d0c5340b-6d6c-49d9-b567-48c4bfca13d2",
+        exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_OID));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testGettingOrderIdByClientOrderIdReturnsNullIfOrderNotFound() throws Exception {
+    final List<URL> invokedUrls = new ArrayList<>();
+    final CoinbaseProExchangeAdapter exchangeAdapter = new CoinbaseProExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          invokedUrls.add(url);
+          return new AbstractExchangeAdapter.ExchangeHttpResponse(
+              404, "Not Found", "{\"message\":\"NotFound\"}");
+        });
+
+    assertNull(exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_OID));
+    assertEquals(1, invokedUrls.size());
+    assertEquals("/" + ORDERS_BY_CLIENT_OID + CLIENT_OID, invokedUrls.get(0).getPath());
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = ExchangeNetworkException.class)
+  public void testGettingOrderIdByClientOrderIdStillTreats404FromOtherCallsAsNetworkError()
+      throws Exception {
+    final CoinbaseProExchangeAdapter exchangeAdapter = new CoinbaseProExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new AbstractExchangeAdapter.ExchangeHttpResponse(404, "Not Found", ""));
+
+    exchangeAdapter.getYourOpenOrders(MARKET_ID);
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testGettingOrderIdByClientOrderIdHandlesErrorResponse() throws Exception {
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            400, "Bad Request", "{\"message\": \"Invalid client_oid\"}");
+
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq("GET"),
+            eq(ORDERS_BY_CLIENT_OID + CLIENT_OID),
+            eq(null))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getOrderIdByClientOrderId(MARKET_ID, CLIENT_OID);
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Get Your Open Orders tests
   // --------------------------------------------------------------------------
@@ -449,6 +590,8 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
             .getTotal()
             .compareTo(
                 openOrders.get(0).getPrice().multiply(openOrders.get(0).getOriginalQuantity())));
+    assertEquals("5f1c9d3e-1b2a-4c3d-8e9f-0a1b2c3d4e5f", openOrders.get(0).getClientOrderId());
+    assertNull(openOrders.get(1).getClientOrderId());
 
     PowerMock.verifyAll();
   }
@@ -556,6 +699,63 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("level", "1")).andStubReturn(null);
+
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(BOOK),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 1);
+
+    // assert some key stuff; we're not testing GSON here.
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+
+    final BigDecimal buyPrice = new BigDecimal("165.87");
+    final BigDecimal buyQuantity = new BigDecimal("16.2373");
+    final BigDecimal buyTotal = buyPrice.multiply(buyQuantity);
+
+    assertEquals(1, marketOrderBook.getBuyOrders().size());
+    assertSame(OrderType.BUY, marketOrderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(buyPrice));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(buyQuantity));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getTotal().compareTo(buyTotal));
+
+    final BigDecimal sellPrice = new BigDecimal("165.96");
+    final BigDecimal sellQuantity = new BigDecimal("24.31");
+    final BigDecimal sellTotal = sellPrice.multiply(sellQuantity);
+
+    assertEquals(1, marketOrderBook.getSellOrders().size());
+    assertSame(OrderType.SELL, marketOrderBook.getSellOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(sellPrice));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(sellQuantity));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getTotal().compareTo(sellTotal));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
     final CoinbaseProExchangeAdapter exchangeAdapter =
@@ -850,6 +1050,36 @@ public class TestCoinbaseProExchangeAdapter extends AbstractExchangeAdapterTest
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Best Bid/Ask tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingBestBidAskSuccessfully() throws Exception {
+    final byte[] encodedTicker = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse tickerExchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encodedTicker, StandardCharsets.UTF_8));
+
+    final CoinbaseProExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            CoinbaseProExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    PowerMock.expectPrivate(
+            exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, eq(TICKER), eq(null))
+        .andReturn(tickerExchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(MARKET_ID);
+
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("14744.81")));
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("14744.8")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Non Exchange visiting tests
   // --------------------------------------------------------------------------
@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.exchange.api.ExchangeCallLatency;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Call;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Outcome;
+import com.gazbert.bxbot.exchange.api.ExchangeCallRecorder.Phase;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.net.URL;
+import org.junit.Test;
+
+/**
+ * Tests the call metrics and their use by the Abstract Exchange Adapter.
+ *
+ * @author gazbert
+ */
+public class TestExchangeCallMetrics {
+
+  private static final String CREATE_ORDER = "createOrder";
+
+  private long now = 1000L;
+
+  @Test
+  public void testCallIsSplitIntoFirstByteAndDecode() {
+    final ExchangeCallMetrics metrics = new ExchangeCallMetrics(() -> now);
+
+    final Call call = metrics.start(CREATE_ORDER);
+    metrics.recordFirstByte(metrics.currentCall(), 30, null);
+    now += 100;
+    call.stop(Outcome.OK);
+
+    assertLatency(metrics.getLatency(CREATE_ORDER, Outcome.OK, Phase.TOTAL), 1, 100);
+    assertLatency(metrics.getLatency(CREATE_ORDER, Outcome.OK, Phase.FIRST_BYTE), 1, 30);
+    assertLatency(metrics.getLatency(CREATE_ORDER, Outcome.OK, Phase.DECODE), 1, 70);
+    assertNull(metrics.getLatency(CREATE_ORDER, Outcome.NETWORK_ERROR, Phase.TOTAL));
+    assertNull(metrics.currentCall());
+    assertEquals(3, metrics.getLatencies().size());
+  }
+
+  @Test
+  public void testEveryRequestInCallIsRecordedAgainstCallOutcome() {
+    final ExchangeCallMetrics metrics = new ExchangeCallMetrics(() -> now);
+
+    final Call call = metrics.start("cancelOrder");
+    metrics.recordFirstByte(metrics.currentCall(), 20, null);
+    metrics.recordFirstByte(metrics.currentCall(), 40, new ExchangeNetworkException("502"));
+    now += 100;
+    call.stop(Outcome.NETWORK_ERROR);
+
+    assertLatency(metrics.getLatency("cancelOrder", Outcome.NETWORK_ERROR, Phase.TOTAL), 1, 100);
+    assertLatency(
+        metrics.getLatency("cancelOrder", Outcome.NETWORK_ERROR, Phase.FIRST_BYTE), 2, 40);
+    assertLatency(metrics.getLatency("cancelOrder", Outcome.NETWORK_ERROR, Phase.DECODE), 1, 40);
+    assertNull(metrics.getLatency("cancelOrder", Outcome.OK, Phase.FIRST_BYTE));
+  }
+
+  @Test
+  public void testCallWithNoResponseHasNoDecodePhase() {
+    final ExchangeCallMetrics metrics = new ExchangeCallMetrics(() -> now);
+
+    final Call call = metrics.start(CREATE_ORDER);
+    now += 5;
+    call.stop(Outcome.NETWORK_ERROR);
+    call.stop(Outcome.NETWORK_ERROR);
+
+    assertLatency(metrics.getLatency(CREATE_ORDER, Outcome.NETWORK_ERROR, Phase.TOTAL), 1, 5);
+    assertNull(metrics.getLatency(CREATE_ORDER, Outcome.NETWORK_ERROR, Phase.FIRST_BYTE));
+    assertNull(metrics.getLatency(CREATE_ORDER, Outcome.NETWORK_ERROR, Phase.DECODE));
+  }
+
+  @Test
+  public void testNestedCallRestoresEnclosingCall() {
+    final ExchangeCallMetrics metrics = new ExchangeCallMetrics(() -> now);
+
+    final Call outer = metrics.start("getBestBidAsk");
+    final Object outerCall = metrics.currentCall();
+    final Call inner = metrics.start("getMarketOrders");
+    inner.stop(Outcome.OK);
+    assertSame(outerCall, metrics.currentCall());
+    outer.stop(Outcome.OK);
+    assertNull(metrics.currentCall());
+  }
+
+  @Test
+  public void testRequestOutsideCallIsRecordedAsUntimed() {
+    final ExchangeCallMetrics metrics = new ExchangeCallMetrics(() -> now);
+
+    metrics.recordFirstByte(null, 10, null);
+    metrics.recordFirstByte(null, 10, new TradingApiException("400"));
+
+    final String untimed = ExchangeCallMetrics.UNTIMED_METHOD;
+    assertLatency(metrics.getLatency(untimed, Outcome.OK, Phase.FIRST_BYTE), 1, 10);
+    assertLatency(metrics.getLatency(untimed, Outcome.API_ERROR, Phase.FIRST_BYTE), 1, 10);
+    assertNull(metrics.getLatency(untimed, Outcome.OK, Phase.TOTAL));
+  }
+
+  @Test
+  public void testOutcomeOfError() {
+    assertEquals(Outcome.OK, ExchangeCallMetrics.outcomeOf(null));
+    assertEquals(
+        Outcome.NETWORK_ERROR, ExchangeCallMetrics.outcomeOf(new ExchangeNetworkException("")));
+    assertEquals(Outcome.API_ERROR, ExchangeCallMetrics.outcomeOf(new TradingApiException("")));
+    assertEquals(Outcome.API_ERROR, ExchangeCallMetrics.outcomeOf(new IllegalStateException()));
+  }
+
+  @Test
+  public void testAdapterRecordsFirstByteOfSyncAndAsyncRequests() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = new AbstractExchangeAdapter() {};
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            url.getPath().endsWith("missing")
+                ? new ExchangeHttpResponse(404, "Not Found", "")
+                : new ExchangeHttpResponse(200, "OK", "{}"));
+
+    final URL orderUrl = new URL("https://api.exchange.com/order");
+    final Call call = exchangeAdapter.getCallRecorder().start(CREATE_ORDER);
+    exchangeAdapter.sendNetworkRequest(orderUrl, "POST", "{}", null);
+    exchangeAdapter.sendNetworkRequestAsync(orderUrl, "GET", null, null).get();
+    call.stop(Outcome.OK);
+
+    try {
+      exchangeAdapter.sendNetworkRequest(
+          new URL("https://api.exchange.com/missing"), "GET", null, null);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      // expected
+    }
+
+    final ExchangeCallLatency firstByte =
+        exchangeAdapter.getCallRecorder().getLatency(CREATE_ORDER, Outcome.OK, Phase.FIRST_BYTE);
+    assertEquals(2, firstByte.getCount());
+    assertEquals(
+        1,
+        exchangeAdapter
+            .getCallRecorder()
+            .getLatency(ExchangeCallMetrics.UNTIMED_METHOD, Outcome.NETWORK_ERROR, Phase.FIRST_BYTE)
+            .getCount());
+    assertEquals(4, exchangeAdapter.getCallRecorder().getLatencies().size());
+  }
+
+  private static void assertLatency(ExchangeCallLatency latency, long count, long maxNanos) {
+    assertEquals(count, latency.getCount());
+    assertEquals(maxNanos, latency.getMaxNanos());
+    assertTrue(latency.getP50Nanos() <= latency.getP99Nanos());
+    assertTrue(latency.getP99Nanos() <= latency.getP999Nanos());
+    assertTrue(latency.getP999Nanos() <= latency.getMaxNanos());
+  }
+}
@@ -0,0 +1,490 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.exchange.api.CircuitBreakerConfig;
+import com.gazbert.bxbot.exchange.api.CircuitBreakerState;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests the circuit breaker and its use by the Abstract Exchange Adapter.
+ *
+ * @author gazbert
+ */
+public class TestExchangeCircuitBreaker {
+
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+  private static final String CIRCUIT_OPEN_ERROR_MSG =
+      "Circuit breaker is open - call was not sent to Exchange.";
+
+  private long now = 1000L;
+
+  @Test
+  public void testBreakerTripsWhenFailureRateReachesThreshold() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 4, 4);
+
+    recordSuccess(breaker);
+    recordFailure(breaker);
+    recordSuccess(breaker);
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState()); // below minimum calls
+
+    recordFailure(breaker);
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+    assertEquals(1, breaker.getTripCount());
+  }
+
+  @Test
+  public void testBreakerStaysClosedWhileFailureRateIsBelowThreshold() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 4, 4);
+
+    // The window only holds the 4 most recent calls: 1 in 4 of them fails.
+    for (int i = 0; i < 20; i++) {
+      if (i % 4 == 0) {
+        recordFailure(breaker);
+      } else {
+        recordSuccess(breaker);
+      }
+    }
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+    assertEquals(0, breaker.getTripCount());
+  }
+
+  @Test
+  public void testBreakerTripsWhenSlowCallRateReachesThreshold() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 2 * ONE_SECOND, 2, 2);
+
+    breaker.onSuccess(acquire(breaker), 3 * ONE_SECOND);
+    breaker.onSuccess(acquire(breaker), ONE_SECOND);
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState()); // 50% slow, threshold is 100%
+
+    breaker.onSuccess(acquire(breaker), 3 * ONE_SECOND);
+    breaker.onSuccess(acquire(breaker), 3 * ONE_SECOND);
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testSlowCallsAreIgnoredIfNoSlowCallDurationIsSet() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 2, 2);
+
+    for (int i = 0; i < 10; i++) {
+      breaker.onSuccess(acquire(breaker), 60 * ONE_SECOND);
+    }
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testOpenBreakerFailsFastUntilWaitDurationHasPassed() {
+    final ExchangeCircuitBreaker breaker = tripBreaker(createBreaker(50, 0, 2, 2));
+
+    assertRejected(breaker);
+    now += 9 * ONE_SECOND;
+    assertRejected(breaker);
+    assertEquals(2, breaker.getRejectedCount());
+
+    now += ONE_SECOND;
+    assertEquals(CircuitBreakerState.HALF_OPEN, breaker.getState());
+    acquire(breaker);
+  }
+
+  @Test
+  public void testHalfOpenBreakerLetsSingleProbeThroughAndClosesIfItSucceeds() {
+    final ExchangeCircuitBreaker breaker = tripBreaker(createBreaker(50, 0, 2, 2));
+    now += 10 * ONE_SECOND;
+
+    final long probe = acquire(breaker);
+    assertRejected(breaker); // probe in flight
+    breaker.onSuccess(probe, ONE_SECOND);
+
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+    final long firstCall = acquire(breaker);
+    final long secondCall = acquire(breaker);
+
+    // The window was reset on closing: it needs the minimum number of calls again to trip.
+    breaker.onFailure(firstCall, ONE_SECOND);
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+    breaker.onFailure(secondCall, ONE_SECOND);
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testHalfOpenBreakerOpensAgainIfProbeFails() {
+    final ExchangeCircuitBreaker breaker = tripBreaker(createBreaker(50, 0, 2, 2));
+    now += 10 * ONE_SECOND;
+
+    breaker.onFailure(acquire(breaker), ONE_SECOND);
+
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+    assertEquals(2, breaker.getTripCount());
+    assertRejected(breaker);
+  }
+
+  @Test
+  public void testReleasedProbePermissionLetsNextProbeThrough() {
+    final ExchangeCircuitBreaker breaker = tripBreaker(createBreaker(50, 0, 2, 2));
+    now += 10 * ONE_SECOND;
+
+    breaker.releasePermission(acquire(breaker));
+    assertEquals(CircuitBreakerState.HALF_OPEN, breaker.getState());
+    acquire(breaker);
+  }
+
+  @Test
+  public void testCallsSentBeforeBreakerTrippedAreNotCounted() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 2, 2);
+    final long firstCall = acquire(breaker);
+    final long secondCall = acquire(breaker);
+    final long lateCall = acquire(breaker);
+    breaker.onFailure(firstCall, ONE_SECOND);
+    breaker.onFailure(secondCall, ONE_SECOND);
+    breaker.onSuccess(lateCall, ONE_SECOND); // completes after the breaker tripped
+
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testLateCallsDoNotSettleTheProbe() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 2, 2);
+    final long lateSuccess = acquire(breaker);
+    final long lateFailure = acquire(breaker);
+    final long lateRelease = acquire(breaker);
+    tripBreaker(breaker);
+    now += 10 * ONE_SECOND;
+
+    final long probe = acquire(breaker);
+    breaker.onSuccess(lateSuccess, ONE_SECOND);
+    breaker.onFailure(lateFailure, ONE_SECOND);
+    breaker.releasePermission(lateRelease);
+    assertEquals(CircuitBreakerState.HALF_OPEN, breaker.getState());
+    assertRejected(breaker); // the probe is still in flight
+
+    breaker.onSuccess(probe, ONE_SECOND);
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testCallsSentBeforeBreakerTrippedAreNotCountedOnceItHasClosedAgain() {
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 2, 2);
+    final long firstLateCall = acquire(breaker);
+    final long secondLateCall = acquire(breaker);
+    tripBreaker(breaker);
+    now += 10 * ONE_SECOND;
+    breaker.onSuccess(acquire(breaker), ONE_SECOND);
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+
+    breaker.onFailure(firstLateCall, ONE_SECOND);
+    breaker.onFailure(secondLateCall, ONE_SECOND);
+    assertEquals(CircuitBreakerState.CLOSED, breaker.getState());
+  }
+
+  @Test(timeout = 10000)
+  public void testConcurrentLateCallsDoNotSettleTheProbeOrLetAnotherProbeThrough()
+      throws Exception {
+    final int threadCount = 8;
+    final int callsPerThread = 1000;
+    final ExchangeCircuitBreaker breaker = createBreaker(50, 0, 2, 2);
+    final long[][] lateCalls = new long[threadCount][callsPerThread];
+    for (final long[] threadCalls : lateCalls) {
+      for (int i = 0; i < callsPerThread; i++) {
+        threadCalls[i] = acquire(breaker);
+      }
+    }
+    tripBreaker(breaker);
+    now += 10 * ONE_SECOND;
+    final long probe = acquire(breaker);
+
+    // Each thread finishes its late calls, and tries to get another probe through as it goes.
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicInteger extraProbes = new AtomicInteger();
+    final List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      final long[] threadCalls = lateCalls[t];
+      final Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return;
+                }
+                for (int i = 0; i < callsPerThread; i++) {
+                  switch (i % 3) {
+                    case 0:
+                      breaker.onSuccess(threadCalls[i], ONE_SECOND);
+                      break;
+                    case 1:
+                      breaker.onFailure(threadCalls[i], ONE_SECOND);
+                      break;
+                    default:
+                      breaker.releasePermission(threadCalls[i]);
+                  }
+                  if (breaker.tryAcquirePermission() != ExchangeCircuitBreaker.NOT_PERMITTED) {
+                    extraProbes.incrementAndGet();
+                  }
+                }
+              });
+      thread.start();
+      threads.add(thread);
+    }
+    start.countDown();
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+
+    assertEquals(0, extraProbes.get());
+    assertEquals(CircuitBreakerState.HALF_OPEN, breaker.getState());
+    assertEquals(1, breaker.getTripCount());
+
+    breaker.onFailure(probe, ONE_SECOND);
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+    assertEquals(2, breaker.getTripCount());
+  }
+
+  @Test
+  public void testMinimumNumberOfCallsIsCappedAtWindowSize() {
+    final ExchangeCircuitBreaker breaker = createBreaker(100, 0, 2, 10);
+    recordFailure(breaker);
+    recordFailure(breaker);
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+    assertEquals(
+        "ExchangeCircuitBreaker{state=OPEN, failureRateThreshold=100%, slowCallDuration=0ms,"
+            + " slowCallRateThreshold=100%, slidingWindowSize=2, minimumNumberOfCalls=2,"
+            + " waitDurationInOpenState=10s}",
+        breaker.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFailureRateThresholdOver100IsRejected() {
+    createBreaker(101, 0, 2, 2);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroWindowSizeIsRejected() {
+    createBreaker(50, 0, 0, 1);
+  }
+
+  // --------------------------------------------------------------------------
+  //  Exchange Adapter tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testAdapterHasNoCircuitBreakerIfNoneConfigured() {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(null);
+    assertNull(exchangeAdapter.getCircuitBreaker());
+    assertNull(exchangeAdapter.getCircuitBreakerState());
+  }
+
+  @Test
+  public void testAdapterUsesDefaultsForMissingCircuitBreakerConfig() {
+    final AbstractExchangeAdapter exchangeAdapter =
+        createExchangeAdapter(createCircuitBreakerConfig(null, null, null));
+    assertEquals(CircuitBreakerState.CLOSED, exchangeAdapter.getCircuitBreakerState());
+    assertEquals(
+        "ExchangeCircuitBreaker{state=CLOSED, failureRateThreshold=50%, slowCallDuration=0ms,"
+            + " slowCallRateThreshold=100%, slidingWindowSize=20, minimumNumberOfCalls=10,"
+            + " waitDurationInOpenState=60s}",
+        exchangeAdapter.getCircuitBreaker().toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAdapterRejectsInvalidCircuitBreakerConfig() {
+    createExchangeAdapter(createCircuitBreakerConfig(0, 2, 2));
+  }
+
+  @Test
+  public void testAdapterFailsFastOnceNetworkErrorsTripBreaker() throws Exception {
+    final AtomicInteger callsSent = new AtomicInteger();
+    final AbstractExchangeAdapter exchangeAdapter =
+        createExchangeAdapter(createCircuitBreakerConfig(50, 2, 2));
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          callsSent.incrementAndGet();
+          return new ExchangeHttpResponse(404, "Not Found", "");
+        });
+
+    final URL url = new URL("https://api.exchange.com/ticker");
+    for (int i = 0; i < 3; i++) {
+      try {
+        exchangeAdapter.sendNetworkRequest(url, "GET", null, null);
+        fail("Expected ExchangeNetworkException");
+      } catch (ExchangeNetworkException e) {
+        assertEquals(i < 2, !CIRCUIT_OPEN_ERROR_MSG.equals(e.getMessage()));
+      }
+    }
+    assertEquals(2, callsSent.get());
+    assertEquals(CircuitBreakerState.OPEN, exchangeAdapter.getCircuitBreakerState());
+
+    try {
+      exchangeAdapter.sendNetworkRequestAsync(url, "GET", null, null).get();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ExchangeNetworkException);
+      assertEquals(CIRCUIT_OPEN_ERROR_MSG, e.getCause().getMessage());
+    }
+    assertEquals(2, callsSent.get());
+  }
+
+  @Test
+  public void testAdapterDoesNotCountTradingApiErrorsAsFailures() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter =
+        createExchangeAdapter(createCircuitBreakerConfig(50, 2, 2));
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new ExchangeHttpResponse(400, "Bad Request", "{\"error\":\"Invalid nonce\"}"));
+
+    final URL url = new URL("https://api.exchange.com/order");
+    for (int i = 0; i < 3; i++) {
+      try {
+        exchangeAdapter.sendNetworkRequest(url, "POST", "{}", null);
+        fail("Expected TradingApiException");
+      } catch (TradingApiException e) {
+        // expected - the exchange answered
+      }
+    }
+    assertEquals(CircuitBreakerState.CLOSED, exchangeAdapter.getCircuitBreakerState());
+  }
+
+  @Test
+  public void testAdapterRecordsAsyncCallOutcomes() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter =
+        createExchangeAdapter(createCircuitBreakerConfig(50, 2, 2));
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new ExchangeHttpResponse(410, "Gone", ""));
+
+    final URL url = new URL("https://api.exchange.com/ticker");
+    for (int i = 0; i < 2; i++) {
+      try {
+        exchangeAdapter.sendNetworkRequestAsync(url, "GET", null, null).get();
+        fail("Expected ExchangeNetworkException");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof ExchangeNetworkException);
+      }
+    }
+    assertEquals(CircuitBreakerState.OPEN, exchangeAdapter.getCircuitBreakerState());
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private ExchangeCircuitBreaker createBreaker(
+      int failureRateThreshold,
+      long slowCallDurationNanos,
+      int slidingWindowSize,
+      int minimumNumberOfCalls) {
+    return new ExchangeCircuitBreaker(
+        failureRateThreshold,
+        slowCallDurationNanos,
+        100,
+        slidingWindowSize,
+        minimumNumberOfCalls,
+        10 * ONE_SECOND,
+        () -> now);
+  }
+
+  private static ExchangeCircuitBreaker tripBreaker(ExchangeCircuitBreaker breaker) {
+    recordFailure(breaker);
+    recordFailure(breaker);
+    assertEquals(CircuitBreakerState.OPEN, breaker.getState());
+    return breaker;
+  }
+
+  private static long acquire(ExchangeCircuitBreaker breaker) {
+    final long permit = breaker.tryAcquirePermission();
+    assertNotEquals(ExchangeCircuitBreaker.NOT_PERMITTED, permit);
+    return permit;
+  }
+
+  private static void assertRejected(ExchangeCircuitBreaker breaker) {
+    assertEquals(ExchangeCircuitBreaker.NOT_PERMITTED, breaker.tryAcquirePermission());
+  }
+
+  private static void recordSuccess(ExchangeCircuitBreaker breaker) {
+    breaker.onSuccess(acquire(breaker), ONE_SECOND);
+  }
+
+  private static void recordFailure(ExchangeCircuitBreaker breaker) {
+    breaker.onFailure(acquire(breaker), ONE_SECOND);
+  }
+
+  private static CircuitBreakerConfig createCircuitBreakerConfig(
+      Integer failureRateThreshold, Integer slidingWindowSize, Integer minimumNumberOfCalls) {
+    final CircuitBreakerConfig circuitBreakerConfig = createMock(CircuitBreakerConfig.class);
+    expect(circuitBreakerConfig.getFailureRateThreshold())
+        .andReturn(failureRateThreshold)
+        .anyTimes();
+    expect(circuitBreakerConfig.getSlowCallDurationThreshold()).andReturn(null).anyTimes();
+    expect(circuitBreakerConfig.getSlowCallRateThreshold()).andReturn(null).anyTimes();
+    expect(circuitBreakerConfig.getSlidingWindowSize()).andReturn(slidingWindowSize).anyTimes();
+    expect(circuitBreakerConfig.getMinimumNumberOfCalls())
+        .andReturn(minimumNumberOfCalls)
+        .anyTimes();
+    expect(circuitBreakerConfig.getWaitDurationInOpenState()).andReturn(null).anyTimes();
+    replay(circuitBreakerConfig);
+    return circuitBreakerConfig;
+  }
+
+  private static AbstractExchangeAdapter createExchangeAdapter(
+      CircuitBreakerConfig circuitBreakerConfig) {
+    final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+    expect(networkConfig.getConnectionTimeout()).andReturn(30);
+    expect(networkConfig.getNonFatalErrorCodes()).andReturn(Collections.emptyList());
+    expect(networkConfig.getNonFatalErrorMessages()).andReturn(Collections.emptyList());
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(circuitBreakerConfig);
+
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+    replay(networkConfig, exchangeConfig);
+
+    final AbstractExchangeAdapter exchangeAdapter = new AbstractExchangeAdapter() {};
+    exchangeAdapter.setNetworkConfig(exchangeConfig);
+    return exchangeAdapter;
+  }
+}
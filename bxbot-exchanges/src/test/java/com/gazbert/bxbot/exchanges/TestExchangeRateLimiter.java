@@ -0,0 +1,302 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.RateLimitConfig;
+import com.gazbert.bxbot.exchange.api.RateLimiterMetrics;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Endpoint;
+import com.gazbert.bxbot.exchanges.ExchangeRateLimiter.Policy;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Tests the client-side rate limiter and its use by the Abstract Exchange Adapter.
+ *
+ * @author gazbert
+ */
+public class TestExchangeRateLimiter {
+
+  private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  // Only moved on by the tests; waiting callers don't advance it.
+  private long now = 1000L;
+  private final List<Long> sleeps = new ArrayList<>();
+
+  @Test
+  public void testBurstIsLetThroughThenCallsWaitForTheirToken() throws Exception {
+    final ExchangeRateLimiter limiter = createLimiter(Policy.WAIT, 5 * ONE_SECOND);
+    limiter.setRateLimit(Endpoint.PRIVATE, 2, 3);
+
+    assertTrue(limiter.acquire(Endpoint.PRIVATE));
+    assertTrue(limiter.acquire(Endpoint.PRIVATE));
+    assertTrue(limiter.acquire(Endpoint.PRIVATE));
+    assertTrue(sleeps.isEmpty());
+
+    // Bucket empty and no time has passed, as if the calls were made concurrently:
+    // the next token is due in 1/2 sec and the one reserved after it in 1 sec.
+    assertTrue(limiter.acquire(Endpoint.PRIVATE));
+    assertTrue(limiter.acquire(Endpoint.PRIVATE));
+    assertEquals(Arrays.asList(ONE_SECOND / 2, ONE_SECOND), sleeps);
+
+    assertEquals(2, limiter.getThrottledCount(Endpoint.PRIVATE));
+    assertEquals(ONE_SECOND + ONE_SECOND / 2, limiter.getThrottledNanos(Endpoint.PRIVATE));
+    assertEquals(0, limiter.getRejectedCount(Endpoint.PRIVATE));
+    assertEquals(2, limiter.getThrottledCount("private"));
+    assertEquals(ONE_SECOND + ONE_SECOND / 2, limiter.getThrottledNanos("private"));
+  }
+
+  @Test
+  public void testTokensAreRefilledUpToBurstSize() throws Exception {
+    final ExchangeRateLimiter limiter = createLimiter(Policy.FAIL_FAST, 0);
+    limiter.setRateLimit(Endpoint.PUBLIC, 1, 2);
+
+    assertTrue(limiter.acquire(Endpoint.PUBLIC));
+    assertTrue(limiter.acquire(Endpoint.PUBLIC));
+    assertFalse(limiter.acquire(Endpoint.PUBLIC));
+
+    now += 10 * ONE_SECOND;
+    assertTrue(limiter.acquire(Endpoint.PUBLIC));
+    assertTrue(limiter.acquire(Endpoint.PUBLIC));
+    assertFalse(limiter.acquire(Endpoint.PUBLIC));
+    assertEquals(2, limiter.getRejectedCount(Endpoint.PUBLIC));
+  }
+
+  @Test
+  public void testFailFastPolicyRejectsCallWithoutWaiting() throws Exception {
+    final ExchangeRateLimiter limiter = createLimiter(Policy.FAIL_FAST, 5 * ONE_SECOND);
+    limiter.setRateLimit(Endpoint.ORDER_ENTRY, 1, 1);
+
+    assertTrue(limiter.acquire(Endpoint.ORDER_ENTRY));
+    assertFalse(limiter.acquire(Endpoint.ORDER_ENTRY));
+
+    assertTrue(sleeps.isEmpty());
+    assertEquals(1, limiter.getRejectedCount(Endpoint.ORDER_ENTRY));
+    assertEquals(0, limiter.getThrottledCount(Endpoint.ORDER_ENTRY));
+  }
+
+  @Test
+  public void testCallIsRejectedIfWaitWouldExceedMaxWait() throws Exception {
+    final ExchangeRateLimiter limiter = createLimiter(Policy.WAIT, ONE_SECOND);
+    limiter.setRateLimit(Endpoint.PRIVATE, 1, 1);
+
+    assertTrue(limiter.acquire(Endpoint.PRIVATE));
+    assertTrue(limiter.acquire(Endpoint.PRIVATE)); // waits 1 sec
+    assertFalse(limiter.acquire(Endpoint.PRIVATE)); // would wait 2 secs
+
+    assertEquals(Collections.singletonList(ONE_SECOND), sleeps);
+    assertEquals(1, limiter.getRejectedCount(Endpoint.PRIVATE));
+  }
+
+  @Test
+  public void testReserveReturnsWaitWithoutSleeping() {
+    final ExchangeRateLimiter limiter = createLimiter(Policy.WAIT, ONE_SECOND);
+    limiter.setRateLimit(Endpoint.PUBLIC, 2, 1);
+
+    assertEquals(0, limiter.reserve(Endpoint.PUBLIC));
+    assertEquals(ONE_SECOND / 2, limiter.reserve(Endpoint.PUBLIC));
+    assertEquals(ONE_SECOND, limiter.reserve(Endpoint.PUBLIC));
+    assertEquals(ExchangeRateLimiter.NOT_PERMITTED, limiter.reserve(Endpoint.PUBLIC));
+
+    assertTrue(sleeps.isEmpty());
+    assertEquals(2, limiter.getThrottledCount(Endpoint.PUBLIC));
+    assertEquals(1, limiter.getRejectedCount(Endpoint.PUBLIC));
+  }
+
+  @Test
+  public void testEndpointsWithoutLimitAreNotThrottled() throws Exception {
+    final ExchangeRateLimiter limiter = createLimiter(Policy.FAIL_FAST, 0);
+    limiter.setRateLimit(Endpoint.ORDER_ENTRY, 1, 1);
+
+    for (int i = 0; i < 100; i++) {
+      assertTrue(limiter.acquire(Endpoint.PUBLIC));
+    }
+    assertFalse(limiter.isRateLimited(Endpoint.PUBLIC));
+    assertTrue(limiter.isRateLimited(Endpoint.ORDER_ENTRY));
+    assertEquals(0, limiter.getThrottledCount(Endpoint.PUBLIC));
+    assertEquals(0, limiter.getThrottledNanos(Endpoint.PUBLIC));
+    assertEquals(0, limiter.getRejectedCount(Endpoint.PUBLIC));
+    assertEquals(Collections.singletonList("order-entry"), limiter.getRateLimitedEndpoints());
+    assertEquals(0, limiter.getRejectedCount("public"));
+    assertEquals(
+        "ExchangeRateLimiter{policy=FAIL_FAST, limits={order-entry=1.0/s burst 1}}",
+        limiter.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroRequestsPerSecondIsRejected() {
+    createLimiter(Policy.WAIT, 0).setRateLimit(Endpoint.PUBLIC, 0, 1);
+  }
+
+  @Test
+  public void testEndpointAndPolicyAreParsedFromConfig() {
+    assertEquals(Endpoint.PUBLIC, Endpoint.fromConfig("public"));
+    assertEquals(Endpoint.PRIVATE, Endpoint.fromConfig(" Private "));
+    assertEquals(Endpoint.ORDER_ENTRY, Endpoint.fromConfig("order-entry"));
+    assertEquals("order-entry", Endpoint.ORDER_ENTRY.toString());
+
+    assertEquals(Policy.WAIT, Policy.fromConfig(null));
+    assertEquals(Policy.WAIT, Policy.fromConfig("wait"));
+    assertEquals(Policy.FAIL_FAST, Policy.fromConfig("fail-fast"));
+    assertEquals(Policy.FAIL_FAST, Policy.fromConfig("FAIL_FAST"));
+  }
+
+  // --------------------------------------------------------------------------
+  //  Exchange Adapter tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testAdapterHasNoRateLimiterIfNoneConfigured() {
+    assertNull(createExchangeAdapter(null, null).getRateLimiterMetrics());
+  }
+
+  @Test
+  public void testAdapterRejectsCallThatBreachesRateLimit() throws Exception {
+    final AtomicInteger callsSent = new AtomicInteger();
+    final AbstractExchangeAdapter exchangeAdapter =
+        createExchangeAdapter(
+            Collections.singletonMap("private", createRateLimitConfig(1.0, 1)), "fail-fast");
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          callsSent.incrementAndGet();
+          return new ExchangeHttpResponse(200, "OK", "{}");
+        });
+
+    final URL url = new URL("https://api.exchange.com/balance");
+    assertEquals("{}", exchangeAdapter.sendNetworkRequest(url, "GET", null, null).getPayload());
+    try {
+      exchangeAdapter.sendNetworkRequest(url, "GET", null, null);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertEquals(
+          "Rate limit for private endpoints reached - call was not sent to Exchange.",
+          e.getMessage());
+    }
+    assertEquals(1, callsSent.get());
+    final RateLimiterMetrics metrics = exchangeAdapter.getRateLimiterMetrics();
+    assertEquals(Collections.singletonList("private"), metrics.getRateLimitedEndpoints());
+    assertEquals(1, metrics.getRejectedCount("private"));
+    assertEquals(0, metrics.getThrottledCount("private"));
+    assertEquals(0, metrics.getThrottledNanos("private"));
+  }
+
+  @Test
+  public void testAdapterFailsAsyncCallThatBreachesRateLimit() throws Exception {
+    final AtomicInteger callsSent = new AtomicInteger();
+    final AbstractExchangeAdapter exchangeAdapter =
+        createExchangeAdapter(
+            Collections.singletonMap("private", createRateLimitConfig(1.0, 1)), "fail-fast");
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          callsSent.incrementAndGet();
+          return new ExchangeHttpResponse(200, "OK", "{}");
+        });
+
+    final URL url = new URL("https://api.exchange.com/balance");
+    assertEquals(
+        "{}", exchangeAdapter.sendNetworkRequestAsync(url, "GET", null, null).get().getPayload());
+    try {
+      exchangeAdapter.sendNetworkRequestAsync(url, "GET", null, null).get();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ExchangeNetworkException);
+      assertEquals(
+          "Rate limit for private endpoints reached - call was not sent to Exchange.",
+          e.getCause().getMessage());
+    }
+    assertEquals(1, callsSent.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAdapterRejectsUnknownEndpointClass() {
+    createExchangeAdapter(Collections.singletonMap("trading", createRateLimitConfig(1.0, 1)), null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAdapterRejectsRateLimitWithoutRequestsPerSecond() {
+    createExchangeAdapter(Collections.singletonMap("public", createRateLimitConfig(null, 1)), null);
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private ExchangeRateLimiter createLimiter(Policy policy, long maxWaitNanos) {
+    return new ExchangeRateLimiter(
+        policy,
+        maxWaitNanos,
+        () -> now,
+        sleeps::add);
+  }
+
+  private static RateLimitConfig createRateLimitConfig(Double requestsPerSecond, Integer burst) {
+    final RateLimitConfig rateLimitConfig = createMock(RateLimitConfig.class);
+    expect(rateLimitConfig.getRequestsPerSecond()).andReturn(requestsPerSecond).anyTimes();
+    expect(rateLimitConfig.getBurst()).andReturn(burst).anyTimes();
+    replay(rateLimitConfig);
+    return rateLimitConfig;
+  }
+
+  private static AbstractExchangeAdapter createExchangeAdapter(
+      Map<String, RateLimitConfig> rateLimits, String rateLimitPolicy) {
+    final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+    expect(networkConfig.getConnectionTimeout()).andReturn(30);
+    expect(networkConfig.getNonFatalErrorCodes()).andReturn(Collections.emptyList());
+    expect(networkConfig.getNonFatalErrorMessages()).andReturn(Collections.emptyList());
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(rateLimits);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
+    expect(networkConfig.getRateLimitPolicy()).andReturn(rateLimitPolicy).anyTimes();
+    expect(networkConfig.getMaxRateLimitWait()).andReturn(null).anyTimes();
+
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+    replay(networkConfig, exchangeConfig);
+
+    final AbstractExchangeAdapter exchangeAdapter = new AbstractExchangeAdapter() {};
+    exchangeAdapter.setNetworkConfig(exchangeConfig);
+    return exchangeAdapter;
+  }
+}
@@ -28,6 +28,7 @@ import static org.easymock.EasyMock.anyString;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -37,11 +38,16 @@ import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
 import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.trading.api.impl.BestBidAskImpl;
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
+import com.gazbert.bxbot.exchanges.trading.api.impl.TickerImpl;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApiException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -61,6 +67,7 @@ import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
+import org.powermock.reflect.Whitebox;
 
 /**
  * Tests the behaviour of the Gemini Exchange Adapter.
@@ -86,6 +93,8 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
   private static final String PUBTICKER_JSON_RESPONSE =
       "./src/test/exchange-data/gemini/pubticker.json";
   private static final String ORDERS_JSON_RESPONSE = "./src/test/exchange-data/gemini/orders.json";
+  private static final String ORDER_STATUS_JSON_RESPONSE =
+      "./src/test/exchange-data/gemini/order_status.json";
   private static final String ORDER_NEW_BUY_JSON_RESPONSE =
       "./src/test/exchange-data/gemini/order_new_buy.json";
   private static final String ORDER_NEW_SELL_JSON_RESPONSE =
@@ -97,6 +106,7 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
   private static final String BALANCES = "balances";
   private static final String PUBTICKER = "pubticker";
   private static final String ORDERS = "orders";
+  private static final String ORDER_STATUS = "order/status";
   private static final String ORDER_NEW = "order/new";
   private static final String ORDER_CANCEL = "order/cancel";
 
@@ -115,6 +125,7 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
       "sendPublicRequestToExchange";
   private static final String MOCKED_CREATE_REQUEST_HEADER_MAP_METHOD = "createHeaderParamMap";
   private static final String MOCKED_MAKE_NETWORK_REQUEST_METHOD = "makeNetworkRequest";
+  private static final String MOCKED_MARKET_DATA_FEED_FIELD_NAME = "marketDataFeed";
 
   private static final String KEY = "key123";
   private static final String SECRET = "notGonnaTellYa";
@@ -145,10 +156,16 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     final OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.25");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.25");
+    expect(otherConfig.getItem("market-data-stream")).andReturn(null);
+    expect(otherConfig.getItem("base-url")).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -209,6 +226,55 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+    // Load the canned response from the exchange
+    final byte[] encoded = Files.readAllBytes(Paths.get(BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    // Partial mock so we do not send stuff down the wire
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            BOOK + "/" + ETH_BTC_MARKET_ID + "?limit_bids=2&limit_asks=2")
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(ETH_BTC_MARKET_ID, 2);
+
+    // assert some key stuff; we're not testing GSON here.
+    assertEquals(ETH_BTC_MARKET_ID, marketOrderBook.getMarketId());
+
+    final BigDecimal buyPrice = new BigDecimal("603.01");
+    final BigDecimal buyQuantity = new BigDecimal("104.56720978");
+    final BigDecimal buyTotal = buyPrice.multiply(buyQuantity);
+
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertSame(OrderType.BUY, marketOrderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(buyPrice));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(buyQuantity));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getTotal().compareTo(buyTotal));
+
+    final BigDecimal sellPrice = new BigDecimal("603.02");
+    final BigDecimal sellQuantity = new BigDecimal("24.5498");
+    final BigDecimal sellTotal = sellPrice.multiply(sellQuantity);
+
+    assertEquals(2, marketOrderBook.getSellOrders().size());
+    assertSame(OrderType.SELL, marketOrderBook.getSellOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(sellPrice));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(sellQuantity));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getTotal().compareTo(sellTotal));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
     final GeminiExchangeAdapter exchangeAdapter =
@@ -303,6 +369,45 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateOrderWithClientOrderIdSendsItToExchange() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_NEW_BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("client_order_id", "client-1")).andReturn(null);
+    expect(requestParamMap.put(anyString(), anyString())).andStubReturn(null);
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_NEW),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    assertTrue(exchangeAdapter.supportsClientOrderIds());
+    final String orderId =
+        exchangeAdapter.createOrder(
+            BTC_USD_MARKET_ID, OrderType.BUY, BUY_ORDER_QUANTITY, BUY_ORDER_PRICE, "client-1");
+    assertEquals("196693745", orderId);
+
+    PowerMock.verifyAll();
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   public void testCreateOrderToSellIsSuccessful() throws Exception {
@@ -438,6 +543,22 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testCancelOrderReturnsFalseIfExchangeDoesNotRecogniseOrderId() throws Exception {
+    final GeminiExchangeAdapter exchangeAdapter = new GeminiExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                400, "Bad Request", "{\"result\":\"error\",\"reason\":\"OrderNotFound\"}"));
+
+    // marketId arg not needed for cancelling orders on this exchange.
+    assertFalse(exchangeAdapter.cancelOrder(ORDER_ID_TO_CANCEL, null));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testCancelOrderHandlesExchangeNetworkException() throws Exception {
     final GeminiExchangeAdapter exchangeAdapter =
@@ -639,6 +760,165 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Best Bid/Ask tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingBestBidAskSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(PUBTICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            PUBTICKER + "/" + ETH_BTC_MARKET_ID)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(ETH_BTC_MARKET_ID);
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("566.60")));
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("566.90")));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testGettingBestBidAskHandlesErrorResponse() throws Exception {
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(204, "No Content", "");
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            PUBTICKER + "/" + ETH_BTC_MARKET_ID)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.getBestBidAsk(ETH_BTC_MARKET_ID);
+
+    PowerMock.verifyAll();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Get Ticker tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingTickerSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(PUBTICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            PUBTICKER + "/" + ETH_BTC_MARKET_ID)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final Ticker ticker = exchangeAdapter.getTicker(ETH_BTC_MARKET_ID);
+    assertEquals(0, ticker.getLast().compareTo(new BigDecimal("567.22")));
+    assertEquals(0, ticker.getBid().compareTo(new BigDecimal("566.60")));
+    assertEquals(0, ticker.getAsk().compareTo(new BigDecimal("566.90")));
+    assertNull(ticker.getLow());
+    assertNull(ticker.getHigh());
+    assertNull(ticker.getOpen());
+    assertNull(ticker.getVolume());
+    assertNull(ticker.getVwap());
+    assertEquals(1470250800000L, (long) ticker.getTimestamp());
+
+    PowerMock.verifyAll();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Market data stream tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testMarketDataIsServedFromStreamWhenInSync() throws Exception {
+    final ColumnarMarketOrderBook streamedOrderBook =
+        new ColumnarMarketOrderBook(ETH_BTC_MARKET_ID);
+    final BestBidAsk streamedBestBidAsk =
+        new BestBidAskImpl(new BigDecimal("566.60"), new BigDecimal("566.90"));
+    final Ticker streamedTicker =
+        new TickerImpl(new BigDecimal("567.22"), null, null, null, null, null, null, null, null);
+
+    final MarketDataFeed marketDataFeed = PowerMock.createMock(MarketDataFeed.class);
+    expect(marketDataFeed.getMarketOrders(ETH_BTC_MARKET_ID, 1)).andReturn(streamedOrderBook);
+    expect(marketDataFeed.getBestBidAsk(ETH_BTC_MARKET_ID)).andReturn(streamedBestBidAsk);
+    expect(marketDataFeed.getLatestMarketPrice(ETH_BTC_MARKET_ID))
+        .andReturn(new BigDecimal("567.22"));
+    expect(marketDataFeed.getTicker(ETH_BTC_MARKET_ID)).andReturn(streamedTicker);
+
+    // No REST calls expected.
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    Whitebox.setInternalState(
+        exchangeAdapter, MOCKED_MARKET_DATA_FEED_FIELD_NAME, marketDataFeed);
+
+    assertSame(streamedOrderBook, exchangeAdapter.getMarketOrders(ETH_BTC_MARKET_ID, 1));
+    assertSame(streamedBestBidAsk, exchangeAdapter.getBestBidAsk(ETH_BTC_MARKET_ID));
+    assertEquals(
+        new BigDecimal("567.22"), exchangeAdapter.getLatestMarketPrice(ETH_BTC_MARKET_ID));
+    assertSame(streamedTicker, exchangeAdapter.getTicker(ETH_BTC_MARKET_ID));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testMarketDataFallsBackToRestWhenStreamIsNotInSync() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(PUBTICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final MarketDataFeed marketDataFeed = PowerMock.createMock(MarketDataFeed.class);
+    expect(marketDataFeed.getBestBidAsk(ETH_BTC_MARKET_ID)).andReturn(null);
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            PUBTICKER + "/" + ETH_BTC_MARKET_ID)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    Whitebox.setInternalState(
+        exchangeAdapter, MOCKED_MARKET_DATA_FEED_FIELD_NAME, marketDataFeed);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(ETH_BTC_MARKET_ID);
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("566.60")));
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("566.90")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Get Your Open Orders tests
   // --------------------------------------------------------------------------
@@ -681,7 +961,95 @@ public class TestGeminiExchangeAdapter extends AbstractExchangeAdapterTest {
             .getTotal()
             .compareTo(
                 openOrders.get(0).getPrice().multiply(openOrders.get(0).getOriginalQuantity())));
+    assertEquals("client-196267999", openOrders.get(0).getClientOrderId());
+    assertNull(openOrders.get(1).getClientOrderId());
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingOrderIdByClientOrderIdFindsClosedOrder() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_STATUS_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("client_order_id", "client-196267888")).andReturn(null);
+
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_STATUS),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    // marketId arg not needed for looking up orders on this exchange.
+    assertEquals("196267888", exchangeAdapter.getOrderIdByClientOrderId(null, "client-196267888"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testGettingOrderIdByClientOrderIdHandlesSingleOrderResponse() throws Exception {
+    final GeminiExchangeAdapter exchangeAdapter = new GeminiExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                200,
+                "OK",
+                "{\"order_id\":\"196267999\",\"symbol\":\"ethbtc\","
+                    + "\"client_order_id\":\"client-196267999\"}"));
+
+    assertEquals("196267999", exchangeAdapter.getOrderIdByClientOrderId(null, "client-196267999"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test
+  public void testGettingOrderIdByClientOrderIdReturnsNullIfOrderNotFound() throws Exception {
+    final GeminiExchangeAdapter exchangeAdapter = new GeminiExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                400, "Bad Request", "{\"result\":\"error\",\"reason\":\"OrderNotFound\"}"));
+
+    assertNull(exchangeAdapter.getOrderIdByClientOrderId(null, "client-unknown"));
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = ExchangeNetworkException.class)
+  public void testGettingOrderIdByClientOrderIdHandlesExchangeNetworkException() throws Exception {
+    final GeminiExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            GeminiExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ORDER_STATUS),
+            anyObject(Map.class))
+        .andThrow(new ExchangeNetworkException("Gone fishing."));
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
 
+    exchangeAdapter.getOrderIdByClientOrderId(null, "client-196267888");
     PowerMock.verifyAll();
   }
 
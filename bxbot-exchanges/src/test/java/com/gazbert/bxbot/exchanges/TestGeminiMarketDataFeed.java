@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.gazbert.bxbot.trading.api.BestBidAsk;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.Ticker;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the Gemini market data feed handler against a local stand-in for the exchange's stream
+ * that replays recorded frames.
+ *
+ * @author gazbert
+ */
+public class TestGeminiMarketDataFeed {
+
+  private static final String STREAM_RECORDING =
+      "./src/test/exchange-data/gemini/marketdata/btcusd_stream.txt";
+  private static final String STREAM_WITH_GAP_RECORDING =
+      "./src/test/exchange-data/gemini/marketdata/btcusd_stream_with_gap.txt";
+
+  private static final String MARKET_ID = "btcusd";
+  private static final Duration TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration STALE_AFTER = Duration.ofSeconds(15);
+  private static final Duration RESYNC_DELAY = Duration.ofMillis(10);
+
+  private static final BigDecimal LAST_BEST_BID = new BigDecimal("3641.65");
+
+  private final AtomicLong nanoClock = new AtomicLong();
+  private ReplayingWebSocketServer exchange;
+  private GeminiMarketDataFeed marketDataFeed;
+
+  /** Stops the feed and the stand-in exchange. */
+  @After
+  public void tearDownAfterEachTest() throws Exception {
+    if (marketDataFeed != null) {
+      marketDataFeed.close();
+    }
+    if (exchange != null) {
+      exchange.close();
+    }
+  }
+
+  @Test
+  public void testMarketIsNotServedUntilSnapshotHasArrived() throws Exception {
+    startExchange(Collections.emptyList());
+
+    assertNull(marketDataFeed.getMarketOrders(MARKET_ID, 10));
+    await().atMost(5, TimeUnit.SECONDS).until(() -> exchange.getConnectionCount() == 1);
+    assertEquals("/" + MARKET_ID + "?heartbeat=true", exchange.getRequestPaths().get(0));
+
+    assertNull(marketDataFeed.getMarketOrders(MARKET_ID, 10));
+    assertNull(marketDataFeed.getBestBidAsk(MARKET_ID));
+    assertNull(marketDataFeed.getLatestMarketPrice(MARKET_ID));
+    assertNull(marketDataFeed.getTicker(MARKET_ID));
+  }
+
+  @Test
+  public void testSnapshotAndDeltasAreAppliedToLocalOrderBook() throws Exception {
+    startExchange(ReplayingWebSocketServer.loadRecording(STREAM_RECORDING));
+    awaitBestBid(LAST_BEST_BID);
+
+    final MarketOrderBook orderBook = marketDataFeed.getMarketOrders(MARKET_ID, 10);
+    assertEquals(MARKET_ID, orderBook.getMarketId());
+    assertEquals(4, orderBook.getBuyOrders().size());
+    assertEquals(OrderType.BUY, orderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, orderBook.getBuyOrders().get(0).getPrice().compareTo(LAST_BEST_BID));
+    assertEquals(0, orderBook.getBuyOrders().get(0).getQuantity().compareTo(new BigDecimal("0.1")));
+    assertEquals(
+        0, orderBook.getBuyOrders().get(1).getPrice().compareTo(new BigDecimal("3641.61")));
+    assertEquals(
+        0, orderBook.getBuyOrders().get(1).getQuantity().compareTo(new BigDecimal("0.25")));
+
+    // The best ask was filled by the trade and removed.
+    assertEquals(2, orderBook.getSellOrders().size());
+    assertEquals(OrderType.SELL, orderBook.getSellOrders().get(0).getType());
+    assertEquals(
+        0, orderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("3641.70")));
+    assertEquals(
+        0, orderBook.getSellOrders().get(0).getQuantity().compareTo(new BigDecimal("1.25")));
+
+    assertEquals(1, marketDataFeed.getMarketOrders(MARKET_ID, 1).getBuyOrders().size());
+
+    final BestBidAsk bestBidAsk = marketDataFeed.getBestBidAsk(MARKET_ID);
+    assertEquals(0, bestBidAsk.getBid().compareTo(LAST_BEST_BID));
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("3641.70")));
+
+    assertEquals(new BigDecimal("3641.62"), marketDataFeed.getLatestMarketPrice(MARKET_ID));
+    final Ticker ticker = marketDataFeed.getTicker(MARKET_ID);
+    assertEquals(new BigDecimal("3641.62"), ticker.getLast());
+    assertEquals(0, ticker.getBid().compareTo(LAST_BEST_BID));
+    assertEquals(0, ticker.getAsk().compareTo(new BigDecimal("3641.70")));
+    assertNull(ticker.getVolume());
+
+    assertEquals(FixedPointDecimal.of(364162, 2), ticker.getFixedPointLast());
+    assertEquals(0, ticker.getFixedPointAsk().compareTo(FixedPointDecimal.of(364170, 2)));
+    assertEquals(0, bestBidAsk.getFixedPointAsk().compareTo(FixedPointDecimal.of(364170, 2)));
+  }
+
+  @Test
+  public void testGapInStreamResyncsOrderBook() throws Exception {
+    startExchange(
+        ReplayingWebSocketServer.loadRecording(STREAM_WITH_GAP_RECORDING),
+        ReplayingWebSocketServer.loadRecording(STREAM_RECORDING));
+    awaitBestBid(LAST_BEST_BID);
+
+    assertEquals(2, exchange.getConnectionCount());
+
+    // Nothing from the first connection is left in the book.
+    final MarketOrderBook orderBook = marketDataFeed.getMarketOrders(MARKET_ID, 10);
+    assertEquals(4, orderBook.getBuyOrders().size());
+    assertEquals(2, orderBook.getSellOrders().size());
+  }
+
+  @Test
+  public void testStreamClosedByExchangeIsReconnected() throws Exception {
+    startExchange(ReplayingWebSocketServer.loadRecording(STREAM_RECORDING));
+    awaitBestBid(LAST_BEST_BID);
+
+    exchange.closeClients();
+    await().atMost(5, TimeUnit.SECONDS).until(() -> exchange.getConnectionCount() == 2);
+    awaitBestBid(LAST_BEST_BID);
+  }
+
+  @Test
+  public void testStaleStreamFallsBackAndResyncs() throws Exception {
+    startExchange(ReplayingWebSocketServer.loadRecording(STREAM_RECORDING));
+    awaitBestBid(LAST_BEST_BID);
+
+    nanoClock.addAndGet(STALE_AFTER.plusSeconds(1).toNanos());
+    assertNull(marketDataFeed.getMarketOrders(MARKET_ID, 10));
+
+    await().atMost(5, TimeUnit.SECONDS).until(() -> exchange.getConnectionCount() == 2);
+    awaitBestBid(LAST_BEST_BID);
+  }
+
+  @Test
+  public void testClosedFeedIsNotServed() throws Exception {
+    startExchange(ReplayingWebSocketServer.loadRecording(STREAM_RECORDING));
+    awaitBestBid(LAST_BEST_BID);
+
+    marketDataFeed.close();
+    assertNull(marketDataFeed.getMarketOrders(MARKET_ID, 10));
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  @SafeVarargs
+  private void startExchange(List<String>... recordings) throws Exception {
+    exchange = new ReplayingWebSocketServer(Arrays.asList(recordings));
+    marketDataFeed =
+        new GeminiMarketDataFeed(
+            exchange.getUrl(), TIMEOUT, STALE_AFTER, RESYNC_DELAY, nanoClock::get);
+  }
+
+  private void awaitBestBid(BigDecimal bestBid) {
+    await()
+        .atMost(5, TimeUnit.SECONDS)
+        .until(
+            () -> {
+              final BestBidAsk bestBidAsk = marketDataFeed.getBestBidAsk(MARKET_ID);
+              return bestBidAsk != null && bestBid.compareTo(bestBidAsk.getBid()) == 0;
+            });
+    assertNotNull(marketDataFeed.getMarketOrders(MARKET_ID, 10));
+  }
+}
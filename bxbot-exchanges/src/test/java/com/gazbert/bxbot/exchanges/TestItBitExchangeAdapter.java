@@ -39,12 +39,14 @@ import com.gazbert.bxbot.exchange.api.ExchangeConfig;
 import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.Ticker;
 import com.gazbert.bxbot.trading.api.TradingApiException;
+import java.io.StringReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URL;
@@ -108,6 +110,8 @@ public class TestItBitExchangeAdapter extends AbstractExchangeAdapterTest {
 
   private static final String WALLETS = "wallets";
   private static final String ORDER_BOOK = "markets/" + MARKET_ID + "/order_book";
+  private static final String MAINTENANCE_RESPONSE =
+      "<html><body>The itBit API is currently undergoing maintenance</body></html>";
   private static final String OPEN_ORDERS = "wallets/" + WALLET_ID + "/orders";
   private static final String TICKER = "markets/" + MARKET_ID + "/ticker";
   private static final String NEW_ORDER =
@@ -158,11 +162,16 @@ public class TestItBitExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.5");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.5");
     expect(otherConfig.getItem("keep-alive-during-maintenance")).andReturn("false");
+    expect(otherConfig.getItem("base-url")).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -573,6 +582,51 @@ public class TestItBitExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ORDER_BOOK_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final ItBitExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            ItBitExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(
+            exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, ORDER_BOOK)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+
+    exchangeAdapter.init(exchangeConfig);
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 2);
+
+    // assert some key stuff; we're not testing GSON here.
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+
+    final BigDecimal buyPrice = new BigDecimal("236.73");
+    final BigDecimal buyQuantity = new BigDecimal("0.03");
+    final BigDecimal buyTotal = buyPrice.multiply(buyQuantity);
+
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertSame(OrderType.BUY, marketOrderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(buyPrice));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(buyQuantity));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getTotal().compareTo(buyTotal));
+
+    final BigDecimal sellPrice = new BigDecimal("236.84");
+    final BigDecimal sellQuantity = new BigDecimal("6.74");
+    final BigDecimal sellTotal = sellPrice.multiply(sellQuantity);
+
+    assertEquals(2, marketOrderBook.getSellOrders().size());
+    assertSame(OrderType.SELL, marketOrderBook.getSellOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(sellPrice));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(sellQuantity));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getTotal().compareTo(sellTotal));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = ExchangeNetworkException.class)
   public void testGettingMarketOrdersHandlesExchangeNetworkException() throws Exception {
     final ItBitExchangeAdapter exchangeAdapter =
@@ -593,6 +647,28 @@ public class TestItBitExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test(expected = ExchangeNetworkException.class)
+  public void testGettingMarketOrdersHandlesExchangeUndergoingMaintenance() throws Exception {
+    PowerMock.reset(otherConfig);
+    expect(otherConfig.getItem("buy-fee")).andReturn("0.5");
+    expect(otherConfig.getItem("sell-fee")).andReturn("0.5");
+    expect(otherConfig.getItem("keep-alive-during-maintenance")).andReturn("true");
+    expect(otherConfig.getItem("base-url")).andReturn(null);
+
+    final ItBitExchangeAdapter exchangeAdapter = new ItBitExchangeAdapter();
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new AbstractExchangeAdapter.ExchangeHttpResponse(
+                200,
+                "OK",
+                new StringReader(MAINTENANCE_RESPONSE)));
+
+    exchangeAdapter.getMarketOrders(MARKET_ID);
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   public void testGettingMarketOrdersHandlesUnexpectedException() throws Exception {
     final ItBitExchangeAdapter exchangeAdapter =
@@ -824,6 +900,33 @@ public class TestItBitExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Best Bid/Ask tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGettingBestBidAskSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final ItBitExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            ItBitExchangeAdapter.class, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD, TICKER)
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(MARKET_ID);
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("237.84")));
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("237.69")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Non Exchange visiting tests
   // --------------------------------------------------------------------------
@@ -42,7 +42,9 @@ import com.gazbert.bxbot.exchange.api.NetworkConfig;
 import com.gazbert.bxbot.exchange.api.OtherConfig;
 import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
 import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
 import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
@@ -172,11 +174,16 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     expect(networkConfig.getConnectionTimeout()).andReturn(30);
     expect(networkConfig.getNonFatalErrorCodes()).andReturn(nonFatalNetworkErrorCodes);
     expect(networkConfig.getNonFatalErrorMessages()).andReturn(nonFatalNetworkErrorMessages);
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
 
     OtherConfig otherConfig = PowerMock.createMock(OtherConfig.class);
     expect(otherConfig.getItem("buy-fee")).andReturn("0.1");
     expect(otherConfig.getItem("sell-fee")).andReturn("0.2");
     expect(otherConfig.getItem("keep-alive-during-maintenance")).andReturn("false");
+    expect(otherConfig.getItem("base-url")).andReturn(null);
 
     exchangeConfig = PowerMock.createMock(ExchangeConfig.class);
     expect(exchangeConfig.getAuthenticationConfig()).andReturn(authenticationConfig);
@@ -250,6 +257,69 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingMarketOrdersToDepthSuccessfully() throws Exception {
+    // Load the canned response from the exchange
+    final byte[] encoded = Files.readAllBytes(Paths.get(DEPTH_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    // Mock out param map so we can assert the contents passed to the transport layer are what we
+    // expect.
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("pair", MARKET_ID)).andStubReturn(null);
+    expect(requestParamMap.put("count", "2")).andStubReturn(null);
+
+    // Partial mock so we do not send stuff down the wire
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(DEPTH),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final MarketOrderBook marketOrderBook = exchangeAdapter.getMarketOrders(MARKET_ID, 2);
+
+    // assert some key stuff; we're not testing GSON here.
+    // assertTrue(marketOrderBook.getMarketId().equals(MARKET_ID));
+
+    final BigDecimal buyPrice = new BigDecimal("662.55000");
+    final BigDecimal buyQuantity = new BigDecimal("5.851");
+    final BigDecimal buyTotal = buyPrice.multiply(buyQuantity);
+
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertSame(OrderType.BUY, marketOrderBook.getBuyOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(buyPrice));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(buyQuantity));
+    assertEquals(0, marketOrderBook.getBuyOrders().get(0).getTotal().compareTo(buyTotal));
+
+    final BigDecimal sellPrice = new BigDecimal("664.53600");
+    final BigDecimal sellQuantity = new BigDecimal("0.888");
+    final BigDecimal sellTotal = sellPrice.multiply(sellQuantity);
+
+    assertEquals(2, marketOrderBook.getSellOrders().size());
+    assertSame(OrderType.SELL, marketOrderBook.getSellOrders().get(0).getType());
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(sellPrice));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(sellQuantity));
+    assertEquals(0, marketOrderBook.getSellOrders().get(0).getTotal().compareTo(sellTotal));
+
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   @SuppressWarnings("unchecked")
   public void testGettingMarketOrdersHandlesErrorResponse() throws Exception {
@@ -553,6 +623,71 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCreateOrderWithFixedPointValuesRoundsThemToPairPrecision() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(ADD_ORDER_BUY_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    // Same strings as the DecimalFormat used for BigDecimal orders.
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("pair", MARKET_ID)).andStubReturn(null);
+    expect(requestParamMap.put("type", "buy")).andStubReturn(null);
+    expect(requestParamMap.put("ordertype", "limit")).andStubReturn(null);
+    expect(requestParamMap.put("price", "456.4")).andStubReturn(null);
+    expect(requestParamMap.put("volume", "0.001")).andStubReturn(null);
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            eq(ADD_ORDER),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final String orderId =
+        exchangeAdapter.createOrder(
+            MARKET_ID,
+            OrderType.BUY,
+            FixedPointDecimal.of(1000, 6),
+            FixedPointDecimal.valueOf(BUY_ORDER_PRICE));
+    assertEquals("OLD2Z4-L4C9H-MKH5BX", orderId);
+
+    PowerMock.verifyAll();
+  }
+
+  @Test(expected = TradingApiException.class)
+  public void testCreateOrderWithFixedPointValuesHandlesUnknownPair() throws Exception {
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    exchangeAdapter.createOrder(
+        "UNKNOWN", OrderType.BUY, FixedPointDecimal.of(1, 3), FixedPointDecimal.of(45641, 2));
+    PowerMock.verifyAll();
+  }
+
   @Test(expected = TradingApiException.class)
   public void testCreateOrderExchangeErrorResponse() throws Exception {
     final byte[] encoded = Files.readAllBytes(Paths.get(ADD_ORDER_ERROR_JSON_RESPONSE));
@@ -562,7 +697,11 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
 
     final KrakenExchangeAdapter exchangeAdapter =
         PowerMock.createPartialMockAndInvokeDefaultConstructor(
-            KrakenExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
     PowerMock.expectPrivate(
             exchangeAdapter,
             MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
@@ -581,7 +720,11 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
   public void testCreateOrderHandlesExchangeNetworkException() throws Exception {
     final KrakenExchangeAdapter exchangeAdapter =
         PowerMock.createPartialMockAndInvokeDefaultConstructor(
-            KrakenExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
     PowerMock.expectPrivate(
             exchangeAdapter,
             MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
@@ -605,7 +748,11 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
   public void testCreateOrderHandlesUnexpectedException() throws Exception {
     final KrakenExchangeAdapter exchangeAdapter =
         PowerMock.createPartialMockAndInvokeDefaultConstructor(
-            KrakenExchangeAdapter.class, MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD);
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
     PowerMock.expectPrivate(
             exchangeAdapter,
             MOCKED_SEND_AUTHENTICATED_REQUEST_TO_EXCHANGE_METHOD,
@@ -1064,6 +1211,47 @@ public class TestKrakenExchangeAdapter extends AbstractExchangeAdapterTest {
     PowerMock.verifyAll();
   }
 
+  // --------------------------------------------------------------------------
+  //  Get Best Bid/Ask tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testGettingBestBidAskSuccessfully() throws Exception {
+    final byte[] encoded = Files.readAllBytes(Paths.get(TICKER_JSON_RESPONSE));
+    final AbstractExchangeAdapter.ExchangeHttpResponse exchangeResponse =
+        new AbstractExchangeAdapter.ExchangeHttpResponse(
+            200, "OK", new String(encoded, StandardCharsets.UTF_8));
+
+    final Map<String, String> requestParamMap = PowerMock.createMock(Map.class);
+    expect(requestParamMap.put("pair", MARKET_ID)).andStubReturn(null);
+
+    final KrakenExchangeAdapter exchangeAdapter =
+        PowerMock.createPartialMockAndInvokeDefaultConstructor(
+            KrakenExchangeAdapter.class,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD);
+
+    mockAssetPairsPublicRequest(exchangeAdapter);
+    PowerMock.expectPrivate(exchangeAdapter, MOCKED_CREATE_REQUEST_PARAM_MAP_METHOD)
+        .andReturn(requestParamMap);
+    PowerMock.expectPrivate(
+            exchangeAdapter,
+            MOCKED_SEND_PUBLIC_REQUEST_TO_EXCHANGE_METHOD,
+            eq(TICKER),
+            eq(requestParamMap))
+        .andReturn(exchangeResponse);
+
+    PowerMock.replayAll();
+    exchangeAdapter.init(exchangeConfig);
+
+    final BestBidAsk bestBidAsk = exchangeAdapter.getBestBidAsk(MARKET_ID);
+    assertEquals(0, bestBidAsk.getAsk().compareTo(new BigDecimal("657.99900")));
+    assertEquals(0, bestBidAsk.getBid().compareTo(new BigDecimal("655.20100")));
+
+    PowerMock.verifyAll();
+  }
+
   // --------------------------------------------------------------------------
   //  Non Exchange visiting tests
   // --------------------------------------------------------------------------
@@ -0,0 +1,130 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests the latency histogram behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestLatencyHistogram {
+
+  private static final double MAX_RELATIVE_ERROR = 1.0 / 64;
+
+  @Test
+  public void testEmptyHistogramReportsZero() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0, histogram.getValueAtPercentile(50));
+    assertEquals(0, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testSmallValuesAreRecordedExactly() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(i);
+    }
+    assertEquals(100, histogram.getCount());
+    assertEquals(50, histogram.getValueAtPercentile(50));
+    assertEquals(99, histogram.getValueAtPercentile(99));
+    assertEquals(100, histogram.getValueAtPercentile(99.9));
+    assertEquals(100, histogram.getMax());
+  }
+
+  @Test
+  public void testLargeValuesAreRecordedWithinPrecision() {
+    final long[] values = {1_000, 1_234_567, 250_000_000, 30_000_000_000L};
+    for (final long value : values) {
+      final LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(value);
+      histogram.record(value + 1);
+      assertWithinPrecision(value, histogram.getValueAtPercentile(50));
+    }
+  }
+
+  @Test
+  public void testTailPercentilesPickOutSlowCalls() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 998; i++) {
+      histogram.record(1_000_000);
+    }
+    histogram.record(50_000_000);
+    histogram.record(900_000_000);
+
+    assertWithinPrecision(1_000_000, histogram.getValueAtPercentile(50));
+    assertWithinPrecision(1_000_000, histogram.getValueAtPercentile(99));
+    assertWithinPrecision(50_000_000, histogram.getValueAtPercentile(99.9));
+    assertEquals(900_000_000, histogram.getValueAtPercentile(100));
+    assertEquals(900_000_000, histogram.getMax());
+  }
+
+  @Test
+  public void testValuesOutOfRangeAreClamped() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    assertEquals(0, histogram.getValueAtPercentile(100));
+
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(2, histogram.getCount());
+    assertEquals(Long.MAX_VALUE, histogram.getMax());
+    assertEquals(
+        LatencyHistogram.HIGHEST_TRACKABLE_VALUE, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void testBucketsCoverEveryValueWithoutGaps() {
+    final int topBucket = LatencyHistogram.indexOf(LatencyHistogram.HIGHEST_TRACKABLE_VALUE);
+    assertEquals(
+        LatencyHistogram.HIGHEST_TRACKABLE_VALUE, LatencyHistogram.highestValueIn(topBucket));
+
+    for (int i = 0; i <= topBucket; i++) {
+      final long lowest = LatencyHistogram.lowestValueIn(i);
+      final long highest = LatencyHistogram.highestValueIn(i);
+      assertEquals(i, LatencyHistogram.indexOf(lowest));
+      assertEquals(i, LatencyHistogram.indexOf(highest));
+      assertTrue(highest - lowest <= lowest * MAX_RELATIVE_ERROR);
+      if (i > 0) {
+        assertEquals(LatencyHistogram.highestValueIn(i - 1) + 1, lowest);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPercentileAbove100IsRejected() {
+    new LatencyHistogram().getValueAtPercentile(100.1);
+  }
+
+  private static void assertWithinPrecision(long expected, long actual) {
+    assertTrue(actual + " is below " + expected, actual >= expected);
+    assertTrue(actual + " is too far above " + expected, actual - expected <= expected / 64);
+  }
+}
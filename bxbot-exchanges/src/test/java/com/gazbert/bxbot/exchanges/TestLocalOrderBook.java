@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import org.junit.Test;
+
+/**
+ * Tests the local order book kept up to date from a market data stream.
+ *
+ * @author gazbert
+ */
+public class TestLocalOrderBook {
+
+  private static final String MARKET_ID = "btcusd";
+
+  @Test
+  public void testEmptyBookHasNoBestPrices() {
+    final LocalOrderBook orderBook = new LocalOrderBook(MARKET_ID);
+    assertNull(orderBook.getBestBid());
+    assertNull(orderBook.getBestAsk());
+
+    final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook(10);
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+    assertTrue(marketOrderBook.getBuyOrders().isEmpty());
+    assertTrue(marketOrderBook.getSellOrders().isEmpty());
+  }
+
+  @Test
+  public void testLevelsAreKeptBestPriceFirst() {
+    final LocalOrderBook orderBook = new LocalOrderBook(MARKET_ID);
+    orderBook.update(OrderType.BUY, new BigDecimal("99"), new BigDecimal("1"));
+    orderBook.update(OrderType.BUY, new BigDecimal("100"), new BigDecimal("2"));
+    orderBook.update(OrderType.BUY, new BigDecimal("98"), new BigDecimal("3"));
+    orderBook.update(OrderType.SELL, new BigDecimal("102"), new BigDecimal("4"));
+    orderBook.update(OrderType.SELL, new BigDecimal("101"), new BigDecimal("5"));
+
+    assertEquals(0, orderBook.getBestBid().compareTo(new BigDecimal("100")));
+    assertEquals(0, orderBook.getBestAsk().compareTo(new BigDecimal("101")));
+
+    final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook(2);
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertEquals(
+        0, marketOrderBook.getBuyOrders().get(0).getPrice().compareTo(new BigDecimal("100")));
+    assertEquals(
+        0, marketOrderBook.getBuyOrders().get(1).getPrice().compareTo(new BigDecimal("99")));
+    assertEquals(2, marketOrderBook.getSellOrders().size());
+    assertEquals(
+        0, marketOrderBook.getSellOrders().get(0).getPrice().compareTo(new BigDecimal("101")));
+    assertEquals(
+        0, marketOrderBook.getSellOrders().get(0).getQuantity().compareTo(new BigDecimal("5")));
+  }
+
+  @Test
+  public void testUpdatesReplaceAndRemoveLevels() {
+    final LocalOrderBook orderBook = new LocalOrderBook(MARKET_ID);
+    orderBook.update(OrderType.BUY, new BigDecimal("100"), new BigDecimal("2"));
+    orderBook.update(OrderType.BUY, new BigDecimal("100.00"), new BigDecimal("7"));
+    orderBook.update(OrderType.SELL, new BigDecimal("101"), new BigDecimal("5"));
+    orderBook.update(OrderType.SELL, new BigDecimal("101"), BigDecimal.ZERO);
+
+    final MarketOrderBook marketOrderBook = orderBook.toMarketOrderBook(10);
+    assertEquals(1, marketOrderBook.getBuyOrders().size());
+    assertEquals(
+        0, marketOrderBook.getBuyOrders().get(0).getQuantity().compareTo(new BigDecimal("7")));
+    assertTrue(marketOrderBook.getSellOrders().isEmpty());
+  }
+
+  @Test
+  public void testClearRemovesAllLevels() {
+    final LocalOrderBook orderBook = new LocalOrderBook(MARKET_ID);
+    orderBook.update(OrderType.BUY, new BigDecimal("100"), new BigDecimal("2"));
+    orderBook.update(OrderType.SELL, new BigDecimal("101"), new BigDecimal("5"));
+
+    orderBook.clear();
+
+    assertNull(orderBook.getBestBid());
+    assertNull(orderBook.getBestAsk());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+/**
+ * Tests the nonce generator.
+ *
+ * @author gazbert
+ */
+public class TestNonceGenerator {
+
+  @Test
+  public void testNonceIsTheClockTimeWhenTheClockHasMovedOn() {
+    final AtomicLong clock = new AtomicLong(1_000);
+    final NonceGenerator nonceGenerator = new NonceGenerator(clock::get);
+
+    assertEquals(1_000, nonceGenerator.next());
+    clock.set(5_000);
+    assertEquals(5_000, nonceGenerator.next());
+  }
+
+  @Test
+  public void testNonceKeepsIncreasingWhenTheClockHasNotMovedOn() {
+    final AtomicLong clock = new AtomicLong(1_000);
+    final NonceGenerator nonceGenerator = new NonceGenerator(clock::get);
+
+    assertEquals(1_000, nonceGenerator.next());
+    assertEquals(1_001, nonceGenerator.next());
+    clock.set(900); // clock stepped back, e.g. NTP adjustment
+    assertEquals(1_002, nonceGenerator.next());
+  }
+
+  /** Hammers one generator from several threads; every nonce must be unique and increasing. */
+  @Test
+  public void testConcurrentCallersGetUniqueIncreasingNonces() throws Exception {
+    final int threadCount = 8;
+    final int noncesPerThread = 10_000;
+    final NonceGenerator nonceGenerator = new NonceGenerator(() -> 42);
+    final Set<Long> nonces = ConcurrentHashMap.newKeySet();
+    final CountDownLatch start = new CountDownLatch(1);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      final List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < threadCount; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  long last = Long.MIN_VALUE;
+                  boolean increasing = true;
+                  for (int n = 0; n < noncesPerThread; n++) {
+                    final long nonce = nonceGenerator.next();
+                    increasing &= nonce > last;
+                    last = nonce;
+                    nonces.add(nonce);
+                  }
+                  return increasing;
+                }));
+      }
+      start.countDown();
+      for (final Future<Boolean> result : results) {
+        assertTrue(result.get(30, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(threadCount * noncesPerThread, nonces.size());
+  }
+}
@@ -0,0 +1,604 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.TradingApiException;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the pooled HTTP transport and the mapping of its responses and failures onto the Trading
+ * API exceptions by the Abstract Exchange Adapter.
+ *
+ * @author gazbert
+ */
+public class TestPooledHttpClientTransport {
+
+  private static final int TIMEOUT_IN_MILLIS = 5000;
+  private static final String JSON_RESPONSE = "{\"result\":\n\"ok\"}\n";
+  private static final String ORDER_BOOK_RESPONSE =
+      "{\"bids\":[[\"1.5\",\"2\"],\n[\"1.4\",\"3\"]],\n\"asks\":[[\"1.6\",\"1\"]]}\n";
+
+  private HttpServer exchange;
+  private ExecutorService exchangeThreads;
+  private String baseUrl;
+  private final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+  private volatile String lastRequestBody;
+  private volatile String lastUserAgent;
+  private volatile String lastApiKey;
+
+  /** Starts a local stand-in for the exchange on an ephemeral port. */
+  @Before
+  public void setupStubExchange() throws Exception {
+    exchange = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    exchange.createContext("/ticker", httpExchange -> respond(httpExchange, 200, JSON_RESPONSE));
+    exchange.createContext("/order", httpExchange -> respond(httpExchange, 200, JSON_RESPONSE));
+    exchange.createContext(
+        "/book", httpExchange -> respond(httpExchange, 200, ORDER_BOOK_RESPONSE));
+    exchange.createContext("/gone", httpExchange -> respond(httpExchange, 410, ""));
+    exchange.createContext("/busy", httpExchange -> respond(httpExchange, 503, "busy"));
+    exchange.createContext(
+        "/bad-request", httpExchange -> respond(httpExchange, 400, "{\"error\":\"Bad nonce\"}"));
+    exchange.createContext(
+        "/slow",
+        httpExchange -> {
+          try {
+            Thread.sleep(3000);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          respond(httpExchange, 200, JSON_RESPONSE);
+        });
+    exchange.createContext(
+        "/stalled",
+        httpExchange -> {
+          // Sends the headers and half the body, then stalls.
+          final byte[] responseBody = ORDER_BOOK_RESPONSE.getBytes(StandardCharsets.UTF_8);
+          final int half = responseBody.length / 2;
+          httpExchange.sendResponseHeaders(200, responseBody.length);
+          try (OutputStream responseStream = httpExchange.getResponseBody()) {
+            responseStream.write(responseBody, 0, half);
+            responseStream.flush();
+            Thread.sleep(3000);
+            responseStream.write(responseBody, half, responseBody.length - half);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    exchangeThreads = Executors.newCachedThreadPool();
+    exchange.setExecutor(exchangeThreads);
+    exchange.start();
+    baseUrl = "http://localhost:" + exchange.getAddress().getPort();
+  }
+
+  @After
+  public void stopStubExchange() {
+    exchange.stop(0);
+    exchangeThreads.shutdownNow();
+  }
+
+  // --------------------------------------------------------------------------
+  //  Transport tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testGetRequestIsSentAndResponseRead() throws Exception {
+    final PooledHttpClientTransport transport =
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, null, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(
+            new URL(baseUrl + "/ticker"),
+            "GET",
+            null,
+            Collections.singletonMap("API-Key", "key123"),
+            TIMEOUT_IN_MILLIS);
+
+    assertEquals(200, response.getStatusCode());
+    assertNull(response.getReasonPhrase());
+    assertEquals("{\"result\":\"ok\"}", response.getPayload());
+    assertEquals("key123", lastApiKey);
+  }
+
+  @Test
+  public void testPostRequestSendsBody() throws Exception {
+    final PooledHttpClientTransport transport =
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, 2, 60);
+
+    final ExchangeHttpResponse response =
+        transport.send(
+            new URL(baseUrl + "/order"),
+            "POST",
+            "pair=XBTUSD&type=buy",
+            Collections.singletonMap("Content-Type", "application/x-www-form-urlencoded"),
+            TIMEOUT_IN_MILLIS);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("pair=XBTUSD&type=buy", lastRequestBody);
+  }
+
+  @Test
+  public void testConnectionIsKeptAliveBetweenRequests() throws Exception {
+    final PooledHttpClientTransport transport =
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, 1, 60);
+
+    for (int i = 0; i < 3; i++) {
+      transport
+          .send(new URL(baseUrl + "/ticker"), "GET", null, new HashMap<>(), TIMEOUT_IN_MILLIS)
+          .getPayload(); // reading the body releases the connection back to the pool
+    }
+
+    assertEquals(3, clientPorts.size());
+    assertEquals(1, clientPorts.stream().distinct().count());
+  }
+
+  @Test
+  public void testErrorStatusIsReturnedNotThrown() throws Exception {
+    final PooledHttpClientTransport transport =
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, null, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(
+            new URL(baseUrl + "/busy"), "DELETE", null, new HashMap<>(), TIMEOUT_IN_MILLIS);
+
+    assertEquals(503, response.getStatusCode());
+    assertEquals("busy", response.getPayload());
+  }
+
+  @Test(timeout = 10000)
+  public void testStalledBodyReadTimesOutAndReleasesPermit() throws Exception {
+    final PooledHttpClientTransport transport = new PooledHttpClientTransport(1000, 1, null);
+
+    final ExchangeHttpResponse response =
+        transport.send(new URL(baseUrl + "/stalled"), "GET", null, new HashMap<>(), 1000);
+    assertEquals(200, response.getStatusCode());
+    try {
+      response.fromJson(new Gson(), OrderBook.class);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertEquals("Failed to read response from Exchange.", e.getMessage());
+      assertTrue(e.getCause().getCause() instanceof HttpTimeoutException);
+    }
+
+    // Would block forever if the stalled body had not given back the only permit.
+    assertEquals(
+        200,
+        transport
+            .send(new URL(baseUrl + "/ticker"), "GET", null, new HashMap<>(), 1000)
+            .getStatusCode());
+  }
+
+  // --------------------------------------------------------------------------
+  //  Error mapping tests
+  // --------------------------------------------------------------------------
+
+  @Test
+  public void testSuccessfulResponseIsReturnedAndUserAgentIsSet() throws Exception {
+    final ExchangeHttpResponse response =
+        createExchangeAdapter(30)
+            .sendNetworkRequest(new URL(baseUrl + "/ticker"), "GET", null, null);
+
+    assertEquals(200, response.getStatusCode());
+    assertEquals("{\"result\":\"ok\"}", response.getPayload());
+    assertTrue(lastUserAgent.startsWith("Mozilla/5.0"));
+  }
+
+  @Test
+  public void testGoneResponseMapsToExchangeNetworkException() throws Exception {
+    assertExchangeNetworkException(
+        createExchangeAdapter(30), "/gone", "Failed to connect to Exchange. It's dead Jim!");
+  }
+
+  @Test
+  public void testNonFatalErrorCodeMapsToExchangeNetworkException() throws Exception {
+    assertExchangeNetworkException(
+        createExchangeAdapter(30), "/busy", "Failed to connect to Exchange due to 5xx timeout.");
+  }
+
+  @Test
+  public void testTimeoutMapsToExchangeNetworkException() throws Exception {
+    assertExchangeNetworkException(
+        createExchangeAdapter(1), "/slow", "Failed to connect to Exchange due to socket timeout.");
+  }
+
+  @Test(timeout = 10000)
+  public void testStalledBodyMapsToExchangeNetworkException() throws Exception {
+    assertExchangeNetworkException(
+        createExchangeAdapter(1),
+        "/stalled",
+        "Failed to connect to Exchange due to socket timeout.");
+  }
+
+  @Test
+  public void testUnknownHostMapsToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    try {
+      exchangeAdapter.sendNetworkRequest(
+          new URL("http://no-such-exchange.invalid/ticker"), "GET", null, null);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertEquals("Failed to connect to Exchange. It's dead Jim!", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testOtherErrorCodeMapsToTradingApiExceptionWithResponse() throws Exception {
+    try {
+      createExchangeAdapter(30)
+          .sendNetworkRequest(new URL(baseUrl + "/bad-request"), "GET", null, null);
+      fail("Expected TradingApiException");
+    } catch (TradingApiException e) {
+      assertEquals(
+          "Failed to connect to Exchange due to unexpected IO error. "
+              + "ErrorStream Response: {\"error\":\"Bad nonce\"}",
+          e.getMessage());
+    }
+  }
+
+  @Test
+  public void testNonFatalErrorMessageInCauseMapsToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          throw new IOException("Send failed", new IOException("Connection reset"));
+        });
+
+    assertExchangeNetworkException(
+        exchangeAdapter,
+        "/ticker",
+        "Failed to connect to Exchange. SSL Connection was refused or reset by the server.");
+  }
+
+  @Test
+  public void testOtherIoErrorMapsToTradingApiException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          throw new IOException("Something unexpected");
+        });
+
+    try {
+      exchangeAdapter.sendNetworkRequest(new URL(baseUrl + "/ticker"), "GET", null, null);
+      fail("Expected TradingApiException");
+    } catch (TradingApiException e) {
+      assertEquals("Failed to connect to Exchange due to unexpected IO error.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testInterruptMapsToExchangeNetworkExceptionAndKeepsInterruptFlag()
+      throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          throw new InterruptedException();
+        });
+
+    try {
+      exchangeAdapter.sendNetworkRequest(new URL(baseUrl + "/ticker"), "GET", null, null);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertTrue(Thread.interrupted()); // also clears the flag for the next test
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  //  Async tests
+  // --------------------------------------------------------------------------
+
+  @Test(timeout = 10000)
+  public void testAsyncRequestsAreReadAndReleaseTheirPermits() throws Exception {
+    final PooledHttpClientTransport transport =
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, 1, 60);
+
+    final List<CompletableFuture<ExchangeHttpResponse>> responses = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      responses.add(
+          transport.sendAsync(
+              new URL(baseUrl + "/ticker"), "GET", null, new HashMap<>(), TIMEOUT_IN_MILLIS));
+    }
+
+    for (final CompletableFuture<ExchangeHttpResponse> response : responses) {
+      assertEquals(200, response.get().getStatusCode());
+      assertFalse(response.get().isPayloadStreamed());
+      assertEquals("{\"result\":\"ok\"}", response.get().getPayload());
+    }
+
+    // Would block forever if an async request had not given back the only permit.
+    assertEquals(
+        200,
+        transport
+            .send(new URL(baseUrl + "/ticker"), "GET", null, new HashMap<>(), TIMEOUT_IN_MILLIS)
+            .getStatusCode());
+  }
+
+  @Test
+  public void testAsyncErrorStatusMapsToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, null, null));
+
+    try {
+      exchangeAdapter.sendNetworkRequestAsync(new URL(baseUrl + "/busy"), "GET", null, null).get();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ExchangeNetworkException);
+      assertEquals(
+          "Failed to connect to Exchange due to 5xx timeout.", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testAsyncTimeoutMapsToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(1);
+    exchangeAdapter.setHttpTransport(
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, null, null));
+
+    try {
+      exchangeAdapter.sendNetworkRequestAsync(new URL(baseUrl + "/slow"), "GET", null, null).get();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ExchangeNetworkException);
+      assertEquals(
+          "Failed to connect to Exchange due to socket timeout.", e.getCause().getMessage());
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testAsyncStalledBodyMapsToExchangeNetworkException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(1);
+    exchangeAdapter.setHttpTransport(new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, 1, null));
+
+    try {
+      exchangeAdapter
+          .sendNetworkRequestAsync(new URL(baseUrl + "/stalled"), "GET", null, null)
+          .get();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ExchangeNetworkException);
+      assertEquals(
+          "Failed to connect to Exchange due to socket timeout.", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testBlockingTransportIsUsedForAsyncRequestsByDefault() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) ->
+            new ExchangeHttpResponse(200, "OK", new StringReader("{\"result\":\n\"ok\"}")));
+
+    final ExchangeHttpResponse response =
+        exchangeAdapter
+            .sendNetworkRequestAsync(new URL(baseUrl + "/ticker"), "GET", null, null)
+            .get();
+
+    assertFalse(response.isPayloadStreamed());
+    assertEquals("{\"result\":\"ok\"}", response.getPayload());
+  }
+
+  @Test
+  public void testAsyncIoErrorMapsToTradingApiException() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          throw new IOException("Something unexpected");
+        });
+
+    try {
+      exchangeAdapter
+          .sendNetworkRequestAsync(new URL(baseUrl + "/ticker"), "GET", null, null)
+          .get();
+      fail("Expected TradingApiException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TradingApiException);
+    }
+  }
+
+  @Test
+  public void testAsyncInterruptMapsToExchangeNetworkExceptionAndKeepsInterruptFlag()
+      throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter(30);
+    exchangeAdapter.setHttpTransport(
+        (url, httpMethod, postData, requestHeaders, timeoutInMillis) -> {
+          throw new InterruptedException();
+        });
+
+    final CompletableFuture<ExchangeHttpResponse> response =
+        exchangeAdapter.sendNetworkRequestAsync(new URL(baseUrl + "/ticker"), "GET", null, null);
+    assertTrue(Thread.interrupted()); // also clears the flag so get() does not throw
+    try {
+      response.get();
+      fail("Expected ExchangeNetworkException");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ExchangeNetworkException);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  //  Streaming tests
+  // --------------------------------------------------------------------------
+
+  @Test(timeout = 10000)
+  public void testStreamedResponseIsDecodedAndReleasesConnection() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createStreamingExchangeAdapter(1);
+
+    for (int i = 0; i < 3; i++) {
+      final ExchangeHttpResponse response =
+          exchangeAdapter.sendNetworkRequest(new URL(baseUrl + "/book"), "GET", null, null);
+      assertTrue(response.isPayloadStreamed());
+
+      final OrderBook orderBook = response.fromJson(new Gson(), OrderBook.class);
+      assertEquals(2, orderBook.bids.size());
+      assertEquals(new BigDecimal("1.4"), orderBook.bids.get(1).get(0));
+      assertEquals(new BigDecimal("1"), orderBook.asks.get(0).get(1));
+      assertEquals("<streamed>", response.getPayload());
+    }
+
+    // A pool of 1 would have blocked on the 2nd call if the 1st body had not been released.
+    assertEquals(1, clientPorts.stream().distinct().count());
+  }
+
+  @Test
+  public void testResponseIsReadIntoStringWhenNotStreamed() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createStreamingExchangeAdapter(1);
+
+    final ExchangeHttpResponse response =
+        exchangeAdapter.sendNetworkRequest(new URL(baseUrl + "/ticker"), "GET", null, null);
+
+    assertFalse(response.isPayloadStreamed());
+    assertEquals("{\"result\":\"ok\"}", response.getPayload());
+  }
+
+  @Test
+  public void testStringPayloadCanBeDecoded() throws Exception {
+    final ExchangeHttpResponse response =
+        new ExchangeHttpResponse(200, "OK", ORDER_BOOK_RESPONSE.replace("\n", ""));
+
+    final OrderBook orderBook = response.fromJson(new Gson(), OrderBook.class);
+    assertEquals(1, orderBook.asks.size());
+    assertEquals(ORDER_BOOK_RESPONSE.replace("\n", ""), response.getPayload());
+  }
+
+  @Test
+  public void testStreamedPayloadIsReadWhenLogged() throws Exception {
+    final ExchangeHttpResponse response =
+        new ExchangeHttpResponse(200, "OK", new StringReader("{\"result\":\n\"ok\"}"));
+
+    assertTrue(response.isPayloadStreamed());
+    assertEquals(
+        "ExchangeHttpResponse{statusCode=200, reasonPhrase=OK, payload={\"result\":\"ok\"}}",
+        response.toString());
+    assertFalse(response.isPayloadStreamed());
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  private void respond(HttpExchange httpExchange, int statusCode, String body)
+      throws IOException {
+    clientPorts.add(httpExchange.getRemoteAddress().getPort());
+    lastUserAgent = httpExchange.getRequestHeaders().getFirst("User-Agent");
+    lastApiKey = httpExchange.getRequestHeaders().getFirst("API-Key");
+    try (InputStream requestBody = httpExchange.getRequestBody()) {
+      lastRequestBody = new String(requestBody.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    final byte[] responseBody = body.getBytes(StandardCharsets.UTF_8);
+    httpExchange.sendResponseHeaders(
+        statusCode, responseBody.length == 0 ? -1 : responseBody.length);
+    try (OutputStream responseStream = httpExchange.getResponseBody()) {
+      responseStream.write(responseBody);
+    }
+  }
+
+  private static AbstractExchangeAdapter createExchangeAdapter(int connectionTimeout) {
+    final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+    expect(networkConfig.getConnectionTimeout()).andReturn(connectionTimeout);
+    expect(networkConfig.getNonFatalErrorCodes()).andReturn(Arrays.asList(502, 503, 504));
+    expect(networkConfig.getNonFatalErrorMessages())
+        .andReturn(Arrays.asList("Connection refused", "Connection reset"));
+    expect(networkConfig.getConnectionPoolSize()).andReturn(null);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
+
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+    replay(networkConfig, exchangeConfig);
+
+    final AbstractExchangeAdapter exchangeAdapter = new AbstractExchangeAdapter() {};
+    exchangeAdapter.setNetworkConfig(exchangeConfig);
+    return exchangeAdapter;
+  }
+
+  private static AbstractExchangeAdapter createStreamingExchangeAdapter(int connectionPoolSize) {
+    final AbstractExchangeAdapter exchangeAdapter =
+        new AbstractExchangeAdapter() {
+          @Override
+          boolean isStreamedResponse(URL url) {
+            return url.getPath().equals("/book");
+          }
+        };
+    exchangeAdapter.setHttpTransport(
+        new PooledHttpClientTransport(TIMEOUT_IN_MILLIS, connectionPoolSize, null));
+    return exchangeAdapter;
+  }
+
+  private void assertExchangeNetworkException(
+      AbstractExchangeAdapter exchangeAdapter, String path, String expectedMessage)
+      throws Exception {
+    try {
+      exchangeAdapter.sendNetworkRequest(new URL(baseUrl + path), "GET", null, null);
+      fail("Expected ExchangeNetworkException");
+    } catch (ExchangeNetworkException e) {
+      assertEquals(expectedMessage, e.getMessage());
+    }
+  }
+
+  /** Minimal order book, as most of the exchanges send it. */
+  private static class OrderBook {
+    List<List<BigDecimal>> bids;
+    List<List<BigDecimal>> asks;
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchanges.AbstractExchangeAdapter.ExchangeHttpResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the request signer, and that the Abstract Exchange Adapter's nonces and signing hold up
+ * when authenticated calls are made concurrently.
+ *
+ * @author gazbert
+ */
+public class TestRequestSigner {
+
+  private static final String HMAC_SHA256 = "HmacSHA256";
+  private static final String HMAC_SHA512 = "HmacSHA512";
+  private static final byte[] SECRET = "my-api-secret".getBytes(StandardCharsets.UTF_8);
+  private static final String PRIVATE_PATH = "/0/private/AddOrder";
+
+  private HttpServer exchange;
+  private ExecutorService exchangeExecutor;
+  private String baseUrl;
+  private final Set<String> noncesSeen = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger badSignatures = new AtomicInteger();
+  private final AtomicInteger replayedNonces = new AtomicInteger();
+
+  /**
+   * Starts a local stand-in for an exchange that checks every call's signature, Kraken style:
+   * HMAC-SHA512 of the URI path and SHA-256(nonce + POST data), and that no nonce is used twice.
+   */
+  @Before
+  public void setupStubExchange() throws Exception {
+    exchange = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    exchange.createContext(PRIVATE_PATH, this::checkSignedRequest);
+    exchangeExecutor = Executors.newFixedThreadPool(8);
+    exchange.setExecutor(exchangeExecutor);
+    exchange.start();
+    baseUrl = "http://localhost:" + exchange.getAddress().getPort();
+  }
+
+  @After
+  public void stopStubExchange() {
+    exchange.stop(0);
+    exchangeExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testSignatureMatchesRfc4231TestVector() throws Exception {
+    final byte[] key = new byte[20];
+    Arrays.fill(key, (byte) 0x0b);
+    final RequestSigner signer = new RequestSigner(HMAC_SHA256, key);
+
+    assertEquals(
+        "b0344c61d8db38535ca8afceaf0bf12b881dc200c9833da726e9376c2e32cff7",
+        toHex(signer.sign("Hi There".getBytes(StandardCharsets.UTF_8))));
+    // Signing again must not carry any state over from the last call.
+    assertEquals(
+        "b0344c61d8db38535ca8afceaf0bf12b881dc200c9833da726e9376c2e32cff7",
+        toHex(
+            signer.sign(
+                "Hi ".getBytes(StandardCharsets.UTF_8), "There".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  public void testSha256MatchesKnownDigest() {
+    assertEquals(
+        "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+        toHex(RequestSigner.sha256("abc".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test(expected = NoSuchAlgorithmException.class)
+  public void testUnknownAlgorithmFailsFast() throws Exception {
+    new RequestSigner("HmacUnknown", SECRET);
+  }
+
+  @Test
+  public void testAdapterRejectsSigningBeforeSignerIsInitialised() {
+    final AbstractExchangeAdapter exchangeAdapter = new AbstractExchangeAdapter() {};
+    try {
+      exchangeAdapter.getRequestSigner();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertEquals("MAC Message security layer has not been initialized.", e.getMessage());
+    }
+  }
+
+  /** Signs on many threads at once; every signature must match a single-threaded signer's. */
+  @Test
+  public void testConcurrentSigningGivesSameSignaturesAsSerialSigning() throws Exception {
+    final RequestSigner signer = new RequestSigner(HMAC_SHA512, SECRET);
+    final Mac referenceMac = Mac.getInstance(HMAC_SHA512);
+    referenceMac.init(new SecretKeySpec(SECRET, HMAC_SHA512));
+
+    final int messageCount = 2_000;
+    final byte[][] expected = new byte[messageCount][];
+    for (int i = 0; i < messageCount; i++) {
+      expected[i] = referenceMac.doFinal(("message-" + i).getBytes(StandardCharsets.UTF_8));
+    }
+
+    final List<Integer> mismatches =
+        runConcurrently(
+            8,
+            thread -> {
+              final List<Integer> badMessages = new ArrayList<>();
+              for (int i = thread; i < messageCount; i += 8) {
+                final byte[] part1 = "message-".getBytes(StandardCharsets.UTF_8);
+                final byte[] part2 = Integer.toString(i).getBytes(StandardCharsets.UTF_8);
+                if (!Arrays.equals(expected[i], signer.sign(part1, part2))) {
+                  badMessages.add(i);
+                }
+              }
+              return badMessages;
+            });
+
+    assertEquals(Collections.emptyList(), mismatches);
+  }
+
+  /**
+   * Sends authenticated calls to the stand-in exchange from many threads through one adapter. The
+   * exchange must accept every signature and never see a nonce twice.
+   */
+  @Test
+  public void testConcurrentAuthenticatedCallsAreAllAccepted() throws Exception {
+    final AbstractExchangeAdapter exchangeAdapter = createExchangeAdapter();
+    exchangeAdapter.initRequestSigner(HMAC_SHA512, SECRET);
+    final URL url = new URL(baseUrl + PRIVATE_PATH);
+
+    final int threadCount = 8;
+    final int callsPerThread = 50;
+    final List<Integer> statusCodes =
+        runConcurrently(
+            threadCount,
+            thread -> {
+              final List<Integer> codes = new ArrayList<>();
+              for (int i = 0; i < callsPerThread; i++) {
+                codes.add(sendSignedRequest(exchangeAdapter, url, thread, i).getStatusCode());
+              }
+              return codes;
+            });
+
+    assertEquals(threadCount * callsPerThread, statusCodes.size());
+    assertTrue(statusCodes.stream().allMatch(statusCode -> statusCode == 200));
+    assertEquals(0, badSignatures.get());
+    assertEquals(0, replayedNonces.get());
+    assertEquals(threadCount * callsPerThread, noncesSeen.size());
+  }
+
+  // --------------------------------------------------------------------------
+  //  Util methods
+  // --------------------------------------------------------------------------
+
+  /** Work run on one of the test threads. */
+  private interface ThreadWork {
+    List<Integer> run(int thread) throws Exception;
+  }
+
+  private static List<Integer> runConcurrently(int threadCount, ThreadWork work)
+      throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    try {
+      final List<Future<List<Integer>>> futures = new ArrayList<>();
+      for (int i = 0; i < threadCount; i++) {
+        final int thread = i;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return work.run(thread);
+                }));
+      }
+      start.countDown();
+      final List<Integer> results = new ArrayList<>();
+      for (final Future<List<Integer>> future : futures) {
+        results.addAll(future.get(60, TimeUnit.SECONDS));
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /* Signs and sends a call the way the Kraken adapter does. */
+  private static ExchangeHttpResponse sendSignedRequest(
+      AbstractExchangeAdapter exchangeAdapter, URL url, int thread, int call) throws Exception {
+    final long nonce = exchangeAdapter.nextNonce();
+    final String postData = "nonce=" + nonce + "&userref=" + thread + "-" + call;
+    final byte[] messageHash =
+        RequestSigner.sha256((nonce + postData).getBytes(StandardCharsets.UTF_8));
+    final String signature =
+        Base64.getEncoder()
+            .encodeToString(
+                exchangeAdapter
+                    .getRequestSigner()
+                    .sign(PRIVATE_PATH.getBytes(StandardCharsets.UTF_8), messageHash));
+    return exchangeAdapter.sendNetworkRequest(
+        url, "POST", postData, Collections.singletonMap("API-Sign", signature));
+  }
+
+  private void checkSignedRequest(HttpExchange httpExchange) throws IOException {
+    final String postData;
+    try (InputStream requestBody = httpExchange.getRequestBody()) {
+      postData = new String(requestBody.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    final String nonce = postData.substring("nonce=".length(), postData.indexOf('&'));
+
+    int statusCode = 200;
+    try {
+      final Mac mac = Mac.getInstance(HMAC_SHA512);
+      mac.init(new SecretKeySpec(SECRET, HMAC_SHA512));
+      mac.update(PRIVATE_PATH.getBytes(StandardCharsets.UTF_8));
+      mac.update(
+          MessageDigest.getInstance("SHA-256")
+              .digest((nonce + postData).getBytes(StandardCharsets.UTF_8)));
+      final byte[] expectedSignature = mac.doFinal();
+      final byte[] signature =
+          Base64.getDecoder().decode(httpExchange.getRequestHeaders().getFirst("API-Sign"));
+      if (!Arrays.equals(expectedSignature, signature)) {
+        badSignatures.incrementAndGet();
+        statusCode = 401;
+      }
+    } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+      throw new IOException(e);
+    }
+    if (!noncesSeen.add(nonce)) {
+      replayedNonces.incrementAndGet();
+      statusCode = 401;
+    }
+
+    final byte[] responseBody = "{\"error\":[]}".getBytes(StandardCharsets.UTF_8);
+    httpExchange.sendResponseHeaders(statusCode, responseBody.length);
+    try (OutputStream responseStream = httpExchange.getResponseBody()) {
+      responseStream.write(responseBody);
+    }
+  }
+
+  private static AbstractExchangeAdapter createExchangeAdapter() {
+    final NetworkConfig networkConfig = createMock(NetworkConfig.class);
+    expect(networkConfig.getConnectionTimeout()).andReturn(30);
+    expect(networkConfig.getNonFatalErrorCodes()).andReturn(Collections.emptyList());
+    expect(networkConfig.getNonFatalErrorMessages()).andReturn(Collections.emptyList());
+    expect(networkConfig.getConnectionPoolSize()).andReturn(8);
+    expect(networkConfig.getConnectionIdleTimeout()).andReturn(null);
+    expect(networkConfig.getRateLimits()).andReturn(null);
+    expect(networkConfig.getCircuitBreaker()).andReturn(null);
+
+    final ExchangeConfig exchangeConfig = createMock(ExchangeConfig.class);
+    expect(exchangeConfig.getNetworkConfig()).andReturn(networkConfig);
+    replay(networkConfig, exchangeConfig);
+
+    final AbstractExchangeAdapter exchangeAdapter = new AbstractExchangeAdapter() {};
+    exchangeAdapter.setNetworkConfig(exchangeConfig);
+    return exchangeAdapter;
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder hex = new StringBuilder();
+    for (final byte b : bytes) {
+      hex.append(String.format("%02x", b & 0xff));
+    }
+    return hex.toString();
+  }
+}
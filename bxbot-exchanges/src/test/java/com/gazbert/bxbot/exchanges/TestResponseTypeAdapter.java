@@ -0,0 +1,261 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchanges;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.gazbert.bxbot.exchanges.trading.api.impl.ColumnarMarketOrderBook;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests the base class for the exchange response type adapters.
+ *
+ * @author gazbert
+ */
+public class TestResponseTypeAdapter {
+
+  private static final String TICKER_JSON =
+      "{\"last\":\"230.33\",\"volume\":{\"BTC\":\"1.5\"},\"timestamp\":1441040860,"
+          + "\"high\":null,\"trades\":[1,2,[3]],\"live\":true}";
+
+  private final Gson gson =
+      new GsonBuilder()
+          .registerTypeAdapter(Ticker.class, new TickerTypeAdapter())
+          .registerTypeAdapter(Book.class, new BookTypeAdapter())
+          .registerTypeAdapter(
+              Tickers.class,
+              ResponseTypeAdapter.listAdapter(Tickers::new, new TickerTypeAdapter()::read))
+          .registerTypeAdapter(
+              Balances.class,
+              ResponseTypeAdapter.mapAdapter(Balances::new, ResponseTypeAdapter::nextBigDecimal))
+          .create();
+
+  @Test
+  public void testReadsFieldsAndSkipsTheRest() {
+    final Ticker ticker = gson.fromJson(TICKER_JSON, Ticker.class);
+
+    assertEquals(new BigDecimal("230.33"), ticker.last);
+    assertEquals(1441040860L, ticker.timestamp);
+    assertNull(ticker.high);
+    assertEquals("true", ticker.live);
+  }
+
+  @Test
+  public void testNullResponseIsReadAsNull() {
+    assertNull(gson.fromJson("null", Ticker.class));
+  }
+
+  @Test
+  public void testReadsArrayOfResponses() {
+    final Ticker[] tickers = gson.fromJson("[" + TICKER_JSON + ",null]", Ticker[].class);
+
+    assertEquals(2, tickers.length);
+    assertEquals(new BigDecimal("230.33"), tickers[0].last);
+    assertNull(tickers[1]);
+  }
+
+  @Test
+  public void testListAdapterReadsIntoTheListClass() {
+    final Tickers tickers =
+        gson.fromJson("[" + TICKER_JSON + "," + TICKER_JSON + "]", Tickers.class);
+
+    assertEquals(2, tickers.size());
+    assertEquals(new BigDecimal("230.33"), tickers.get(1).last);
+  }
+
+  @Test
+  public void testMapAdapterReadsIntoTheMapClass() {
+    final Balances balances =
+        gson.fromJson("{\"XXBT\":\"1.10\",\"ZUSD\":1000.12}", Balances.class);
+
+    assertEquals(2, balances.size());
+    assertEquals(new BigDecimal("1.10"), balances.get("XXBT"));
+    assertEquals(new BigDecimal("1000.12"), balances.get("ZUSD"));
+  }
+
+  @Test
+  public void testNextListReadsNestedLists() throws IOException {
+    final JsonReader in = new JsonReader(new StringReader("[[\"1.1\",\"2\"],[\"3\"]]"));
+
+    final List<List<BigDecimal>> orders =
+        ResponseTypeAdapter.nextList(
+            in,
+            reader -> ResponseTypeAdapter.nextList(reader, ResponseTypeAdapter::nextBigDecimal));
+
+    assertEquals(
+        Arrays.asList(
+            Arrays.asList(new BigDecimal("1.1"), new BigDecimal("2")),
+            Arrays.asList(new BigDecimal("3"))),
+        orders);
+  }
+
+  @Test
+  public void testNextArrayLevelsReadsPriceAndQuantityAndSkipsTheRest() throws IOException {
+    final JsonReader in =
+        new JsonReader(new StringReader("[[\"1.1\",\"2\",3],[\"4\",\"5.5\"]]"));
+    final List<String> levels = new ArrayList<>();
+
+    ResponseTypeAdapter.nextArrayLevels(
+        in, (price, quantity) -> levels.add(price + "@" + quantity));
+
+    assertEquals(Arrays.asList("1.1@2", "4@5.5"), levels);
+  }
+
+  @Test
+  public void testNextObjectLevelsReadsPriceAndQuantityAndSkipsTheRest() throws IOException {
+    final JsonReader in =
+        new JsonReader(
+            new StringReader("[{\"amount\":\"2\",\"price\":\"1.1\",\"timestamp\":1}]"));
+    final List<String> levels = new ArrayList<>();
+
+    ResponseTypeAdapter.nextObjectLevels(
+        in, "price", "amount", (price, quantity) -> levels.add(price + "@" + quantity));
+
+    assertEquals(Arrays.asList("1.1@2"), levels);
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void testLevelMissingItsQuantityFailsToParse() throws IOException {
+    final JsonReader in = new JsonReader(new StringReader("[[\"1.1\"]]"));
+    ResponseTypeAdapter.nextArrayLevels(in, (price, quantity) -> {});
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void testBadLevelFailsToParse() throws IOException {
+    final JsonReader in = new JsonReader(new StringReader("[[\"1.1\",\"not a quantity\"]]"));
+    ResponseTypeAdapter.nextArrayLevels(
+        in,
+        (price, quantity) -> {
+          throw new NumberFormatException(quantity);
+        });
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void testBadDecimalFailsToParse() {
+    gson.fromJson("{\"last\":\"not a price\"}", Ticker.class);
+  }
+
+  @Test
+  public void testResponsesAreWrittenByReflection() {
+    final Ticker ticker = new Ticker();
+    ticker.last = new BigDecimal("230.33");
+    ticker.timestamp = 1441040860L;
+
+    assertEquals("{\"last\":230.33,\"timestamp\":1441040860}", gson.toJson(ticker));
+    assertEquals("null", gson.toJson(null, Ticker.class));
+  }
+
+  @Test
+  public void testOrderBookLevelsAreWrittenAsTheirValues() {
+    final Book book = gson.fromJson("{\"bids\":[[\"1.1\",\"2\"]]}", Book.class);
+
+    assertEquals(
+        "{\"levels\":{\"buyOrders\":[{\"type\":\"BUY\",\"price\":1.1,\"quantity\":2}],"
+            + "\"sellOrders\":[]}}",
+        gson.toJson(book));
+  }
+
+  // --------------------------------------------------------------------------
+  //  Test response classes
+  // --------------------------------------------------------------------------
+
+  private static class Ticker {
+    BigDecimal last;
+    BigDecimal high;
+    long timestamp;
+    String live;
+  }
+
+  private static class Book {
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
+  }
+
+  private static class Tickers extends ArrayList<Ticker> {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static class Balances extends HashMap<String, BigDecimal> {
+    private static final long serialVersionUID = 1L;
+  }
+
+  private static class TickerTypeAdapter extends ResponseTypeAdapter<Ticker> {
+
+    @Override
+    Ticker readValue(JsonReader in) throws IOException {
+      final Ticker ticker = new Ticker();
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "last":
+            ticker.last = nextBigDecimal(in);
+            break;
+          case "high":
+            ticker.high = nextBigDecimal(in);
+            break;
+          case "timestamp":
+            ticker.timestamp = nextLong(in, 0);
+            break;
+          case "live":
+            ticker.live = nextString(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return ticker;
+    }
+  }
+
+  private static class BookTypeAdapter extends ResponseTypeAdapter<Book> {
+
+    @Override
+    Book readValue(JsonReader in) throws IOException {
+      final Book book = new Book();
+      in.beginObject();
+      while (in.hasNext()) {
+        if ("bids".equals(in.nextName())) {
+          nextArrayLevels(in, book.levels::addBuyOrder);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return book;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import java.math.BigDecimal;
+import org.junit.Test;
+
+/**
+ * Tests the BestBidAsk impl behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestBestBidAskImpl {
+
+  private static final BigDecimal BID = new BigDecimal("671.91");
+  private static final BigDecimal ASK = new BigDecimal("672.02");
+
+  @Test
+  public void testBestBidAskIsInitialisedAsExpected() {
+    final BestBidAskImpl bestBidAsk = new BestBidAskImpl(BID, ASK);
+
+    assertEquals(BID, bestBidAsk.getBid());
+    assertEquals(ASK, bestBidAsk.getAsk());
+    assertEquals("BestBidAskImpl{bid=671.91, ask=672.02}", bestBidAsk.toString());
+  }
+
+  @Test
+  public void testSettersWorkAsExpected() {
+    final BestBidAskImpl bestBidAsk = new BestBidAskImpl(null, null);
+    assertNull(bestBidAsk.getBid());
+    assertNull(bestBidAsk.getAsk());
+
+    bestBidAsk.setBid(BID);
+    assertEquals(BID, bestBidAsk.getBid());
+
+    bestBidAsk.setAsk(ASK);
+    assertEquals(ASK, bestBidAsk.getAsk());
+  }
+
+  @Test
+  public void testBestBidAskCreatedFromFixedPointPricesHandsThemBackAsTheyAre() {
+    final FixedPointDecimal bid = FixedPointDecimal.of(67191, 2);
+    final FixedPointDecimal ask = FixedPointDecimal.of(67202, 2);
+    final BestBidAskImpl bestBidAsk = BestBidAskImpl.fromFixedPoint(bid, ask);
+
+    assertSame(bid, bestBidAsk.getFixedPointBid());
+    assertSame(ask, bestBidAsk.getFixedPointAsk());
+    assertEquals(BID, bestBidAsk.getBid());
+    assertEquals(ASK, bestBidAsk.getAsk());
+    assertEquals("BestBidAskImpl{bid=671.91, ask=672.02}", bestBidAsk.toString());
+  }
+
+  @Test
+  public void testSettersReplaceFixedPointPrices() {
+    final BestBidAskImpl bestBidAsk =
+        BestBidAskImpl.fromFixedPoint(FixedPointDecimal.of(1, 0), FixedPointDecimal.of(2, 0));
+
+    bestBidAsk.setBid(BID);
+    bestBidAsk.setAsk(null);
+
+    assertEquals(BID, bestBidAsk.getBid());
+    assertEquals(FixedPointDecimal.of(67191, 2), bestBidAsk.getFixedPointBid());
+    assertNull(bestBidAsk.getAsk());
+    assertNull(bestBidAsk.getFixedPointAsk());
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests the Columnar Market Order Book behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestColumnarMarketOrderBook {
+
+  private static final String MARKET_ID = "BTC_USD";
+
+  private static final BigDecimal ORDER_1_PRICE = new BigDecimal("111.11");
+  private static final BigDecimal ORDER_1_QUANTITY = new BigDecimal("0.01614453");
+
+  private static final BigDecimal ORDER_2_PRICE = new BigDecimal("222.22");
+  private static final BigDecimal ORDER_2_QUANTITY = new BigDecimal("0.02423424");
+
+  private static final BigDecimal ORDER_3_PRICE = new BigDecimal("333.33");
+  private static final BigDecimal ORDER_3_QUANTITY = new BigDecimal("0.03435344");
+
+  private static final BigDecimal HUGE_QUANTITY =
+      new BigDecimal("123456789012345678901234567890.123456789");
+
+  @Test
+  public void testMarketOrderBookIsInitialisedAsExpected() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+    assertTrue(marketOrderBook.getBuyOrders().isEmpty());
+    assertTrue(marketOrderBook.getSellOrders().isEmpty());
+  }
+
+  @Test
+  public void testLevelsAreReturnedInTheOrderTheyWereAdded() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder(ORDER_2_PRICE, ORDER_2_QUANTITY);
+    marketOrderBook.addBuyOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    marketOrderBook.addSellOrder(ORDER_3_PRICE, ORDER_3_QUANTITY);
+
+    final List<MarketOrder> buyOrders = marketOrderBook.getBuyOrders();
+    assertEquals(2, buyOrders.size());
+    assertSame(OrderType.BUY, buyOrders.get(0).getType());
+    assertEquals(ORDER_2_PRICE, buyOrders.get(0).getPrice());
+    assertEquals(ORDER_2_QUANTITY, buyOrders.get(0).getQuantity());
+    assertEquals(ORDER_2_PRICE.multiply(ORDER_2_QUANTITY), buyOrders.get(0).getTotal());
+    assertEquals(ORDER_1_PRICE, buyOrders.get(1).getPrice());
+    assertEquals(ORDER_1_QUANTITY, buyOrders.get(1).getQuantity());
+    assertEquals(ORDER_1_PRICE.multiply(ORDER_1_QUANTITY), buyOrders.get(1).getTotal());
+
+    final List<MarketOrder> sellOrders = marketOrderBook.getSellOrders();
+    assertEquals(1, sellOrders.size());
+    assertSame(OrderType.SELL, sellOrders.get(0).getType());
+    assertEquals(ORDER_3_PRICE, sellOrders.get(0).getPrice());
+    assertEquals(ORDER_3_QUANTITY, sellOrders.get(0).getQuantity());
+    assertEquals(ORDER_3_PRICE.multiply(ORDER_3_QUANTITY), sellOrders.get(0).getTotal());
+  }
+
+  @Test
+  public void testBookGrowsBeyondItsExpectedSize() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID, 0, 1);
+    for (int i = 1; i <= 100; i++) {
+      marketOrderBook.addBuyOrder(BigDecimal.valueOf(1000 - i), BigDecimal.valueOf(i, 8));
+      marketOrderBook.addSellOrder(BigDecimal.valueOf(1000 + i), BigDecimal.valueOf(i, 8));
+    }
+
+    assertEquals(100, marketOrderBook.getBuyOrders().size());
+    assertEquals(100, marketOrderBook.getSellOrders().size());
+    assertEquals(new BigDecimal("900"), marketOrderBook.getBuyOrders().get(99).getPrice());
+    assertEquals(
+        new BigDecimal("0.00000100"), marketOrderBook.getSellOrders().get(99).getQuantity());
+  }
+
+  @Test
+  public void testValuesTooBigForFixedPointAreKeptExactly() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID, 1, 1);
+    marketOrderBook.addBuyOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    marketOrderBook.addBuyOrder(ORDER_2_PRICE, HUGE_QUANTITY);
+    marketOrderBook.addBuyOrder(ORDER_3_PRICE, ORDER_3_QUANTITY);
+
+    final List<MarketOrder> buyOrders = marketOrderBook.getBuyOrders();
+    assertEquals(ORDER_1_QUANTITY, buyOrders.get(0).getQuantity());
+    assertEquals(HUGE_QUANTITY, buyOrders.get(1).getQuantity());
+    assertEquals(ORDER_2_PRICE.multiply(HUGE_QUANTITY), buyOrders.get(1).getTotal());
+    assertEquals(ORDER_3_QUANTITY, buyOrders.get(2).getQuantity());
+  }
+
+  @Test
+  public void testLevelsCanBeReadAsFixedPoint() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    marketOrderBook.addSellOrder(new BigDecimal("1E+3"), ORDER_3_QUANTITY);
+
+    final MarketOrder buyOrder = marketOrderBook.getBuyOrders().get(0);
+    assertEquals(FixedPointDecimal.of(11111, 2), buyOrder.getFixedPointPrice());
+    assertEquals(FixedPointDecimal.of(1614453, 8), buyOrder.getFixedPointQuantity());
+
+    final MarketOrder sellOrder = marketOrderBook.getSellOrders().get(0);
+    assertEquals(FixedPointDecimal.of(1000, 0), sellOrder.getFixedPointPrice());
+    assertEquals(ORDER_3_QUANTITY, sellOrder.getFixedPointQuantity().toBigDecimal());
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testValuesTooBigForFixedPointCannotBeReadAsFixedPoint() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder(ORDER_2_PRICE, HUGE_QUANTITY);
+    marketOrderBook.getBuyOrders().get(0).getFixedPointQuantity();
+  }
+
+  @Test
+  public void testLevelsCanBeAddedAsDecimalStrings() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder("111.11", "0.01614453");
+    marketOrderBook.addBuyOrder("-1.5", ".5");
+    marketOrderBook.addSellOrder("1E+3", HUGE_QUANTITY.toPlainString());
+
+    final List<MarketOrder> buyOrders = marketOrderBook.getBuyOrders();
+    assertEquals(ORDER_1_PRICE, buyOrders.get(0).getPrice());
+    assertEquals(ORDER_1_QUANTITY, buyOrders.get(0).getQuantity());
+    assertEquals(FixedPointDecimal.of(1614453, 8), buyOrders.get(0).getFixedPointQuantity());
+    assertEquals(new BigDecimal("-1.5"), buyOrders.get(1).getPrice());
+    assertEquals(new BigDecimal("0.5"), buyOrders.get(1).getQuantity());
+
+    final MarketOrder sellOrder = marketOrderBook.getSellOrders().get(0);
+    assertEquals(new BigDecimal("1E+3"), sellOrder.getPrice());
+    assertEquals(HUGE_QUANTITY, sellOrder.getQuantity());
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testDecimalStringsThatAreNotNumbersAreRejected() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addSellOrder("111.11", "0.01x");
+  }
+
+  @Test
+  public void testLevelsCanBeAddedAsUnscaledValues() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder(11111, 2, 1614453, 8);
+    marketOrderBook.addSellOrder(33333, 2, 3435344, 8);
+
+    final MarketOrder buyOrder = marketOrderBook.getBuyOrders().get(0);
+    assertEquals(ORDER_1_PRICE, buyOrder.getPrice());
+    assertEquals(ORDER_1_QUANTITY, buyOrder.getQuantity());
+    assertEquals(FixedPointDecimal.of(11111, 2), buyOrder.getFixedPointPrice());
+
+    final MarketOrder sellOrder = marketOrderBook.getSellOrders().get(0);
+    assertEquals(ORDER_3_PRICE, sellOrder.getPrice());
+    assertEquals(ORDER_3_QUANTITY, sellOrder.getQuantity());
+  }
+
+  @Test
+  public void testForMarketCopiesTheTopOfTheBook() {
+    final ColumnarMarketOrderBook levels = new ColumnarMarketOrderBook(null);
+    levels.addBuyOrder(ORDER_2_PRICE, ORDER_2_QUANTITY);
+    levels.addBuyOrder(ORDER_1_PRICE, HUGE_QUANTITY);
+    levels.addSellOrder(ORDER_3_PRICE, ORDER_3_QUANTITY);
+
+    final ColumnarMarketOrderBook marketOrderBook = levels.forMarket(MARKET_ID, 2);
+    assertEquals(MARKET_ID, marketOrderBook.getMarketId());
+    assertEquals(2, marketOrderBook.getBuyOrders().size());
+    assertEquals(HUGE_QUANTITY, marketOrderBook.getBuyOrders().get(1).getQuantity());
+    assertEquals(1, marketOrderBook.getSellOrders().size());
+
+    final ColumnarMarketOrderBook topOfBook = levels.forMarket(MARKET_ID, 1);
+    assertEquals(1, topOfBook.getBuyOrders().size());
+    assertEquals(ORDER_2_PRICE, topOfBook.getBuyOrders().get(0).getPrice());
+    assertEquals(1, topOfBook.getSellOrders().size());
+
+    topOfBook.addBuyOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    assertEquals(2, topOfBook.getBuyOrders().size());
+    assertEquals(2, levels.getBuyOrders().size());
+  }
+
+  @Test
+  public void testSubListViewsCanBeTakenOfEachSide() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addSellOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    marketOrderBook.addSellOrder(ORDER_2_PRICE, ORDER_2_QUANTITY);
+    marketOrderBook.addSellOrder(ORDER_3_PRICE, ORDER_3_QUANTITY);
+
+    final List<MarketOrder> topOfBook = marketOrderBook.getSellOrders().subList(0, 1);
+    assertEquals(1, topOfBook.size());
+    assertEquals(ORDER_1_PRICE, topOfBook.get(0).getPrice());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGettingLevelBeyondEndOfBookIsRejected() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    marketOrderBook.getBuyOrders().get(1);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSidesCannotBeModifiedThroughTheListView() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.getBuyOrders().add(null);
+  }
+
+  @Test
+  public void testToStringDescribesEachLevel() {
+    final ColumnarMarketOrderBook marketOrderBook = new ColumnarMarketOrderBook(MARKET_ID);
+    marketOrderBook.addBuyOrder(ORDER_1_PRICE, ORDER_1_QUANTITY);
+    assertEquals(
+        "ColumnarMarketOrderBook{marketId=BTC_USD, sellOrders=[], buyOrders=[MarketOrder{"
+            + "type=BUY, price=111.11, quantity=0.01614453, total="
+            + ORDER_1_PRICE.multiply(ORDER_1_QUANTITY)
+            + "}]}",
+        marketOrderBook.toString());
+  }
+}
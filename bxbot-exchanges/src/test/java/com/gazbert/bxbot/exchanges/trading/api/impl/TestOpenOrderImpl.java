@@ -69,6 +69,9 @@ public class TestOpenOrderImpl {
     assertEquals(QUANTITY, openOrder.getQuantity());
     assertEquals(ORIGINAL_QUANTITY, openOrder.getOriginalQuantity());
     assertEquals(TOTAL, openOrder.getTotal());
+
+    openOrder.setClientOrderId("client-1");
+    assertEquals("client-1", openOrder.getClientOrderId());
   }
 
   @Test
@@ -83,6 +86,7 @@ public class TestOpenOrderImpl {
     assertNull(openOrder.getQuantity());
     assertNull(openOrder.getOriginalQuantity());
     assertNull(openOrder.getTotal());
+    assertNull(openOrder.getClientOrderId());
 
     openOrder.setId(ID);
     assertEquals(ID, openOrder.getId());
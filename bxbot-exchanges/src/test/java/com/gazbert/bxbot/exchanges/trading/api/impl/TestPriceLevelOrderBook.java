@@ -0,0 +1,280 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.exchanges.trading.api.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
+import com.gazbert.bxbot.trading.api.MarketOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.Test;
+
+/**
+ * Tests the Price Level Order Book behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestPriceLevelOrderBook {
+
+  private static final String MARKET_ID = "BTC_USD";
+  private static final int PRICE_SCALE = 2;
+  private static final int QUANTITY_SCALE = 8;
+
+  @Test
+  public void testEmptyBookIsInitialisedAsExpected() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    assertEquals(MARKET_ID, orderBook.getMarketId());
+    assertEquals(PRICE_SCALE, orderBook.getPriceScale());
+    assertEquals(QUANTITY_SCALE, orderBook.getQuantityScale());
+    assertNull(orderBook.getBestBid());
+    assertNull(orderBook.getBestAsk());
+    assertNull(orderBook.getFixedPointBestBid());
+    assertNull(orderBook.getFixedPointBestAsk());
+    assertTrue(orderBook.getBuyOrders().isEmpty());
+    assertTrue(orderBook.getSellOrders().isEmpty());
+    assertEquals(0, orderBook.getLevelCount(OrderType.BUY));
+  }
+
+  @Test
+  public void testLevelsAreServedBestPriceFirst() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("99.50"), new BigDecimal("1"));
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("100.25"), new BigDecimal("0.5"));
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("98"), new BigDecimal("2"));
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("101.5"), new BigDecimal("3"));
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("100.75"), new BigDecimal("0.25"));
+
+    assertEquals(new BigDecimal("100.25"), orderBook.getBestBid());
+    assertEquals(new BigDecimal("100.75"), orderBook.getBestAsk());
+    assertEquals(FixedPointDecimal.of(10025, PRICE_SCALE), orderBook.getFixedPointBestBid());
+    assertEquals(FixedPointDecimal.of(10075, PRICE_SCALE), orderBook.getFixedPointBestAsk());
+
+    final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
+    assertEquals(3, buyOrders.size());
+    assertSame(OrderType.BUY, buyOrders.get(0).getType());
+    assertEquals(new BigDecimal("100.25"), buyOrders.get(0).getPrice());
+    assertEquals(new BigDecimal("0.50000000"), buyOrders.get(0).getQuantity());
+    assertEquals(0, buyOrders.get(0).getTotal().compareTo(new BigDecimal("50.125")));
+    assertEquals(new BigDecimal("99.50"), buyOrders.get(1).getPrice());
+    assertEquals(new BigDecimal("98.00"), buyOrders.get(2).getPrice());
+
+    final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+    assertEquals(2, sellOrders.size());
+    assertSame(OrderType.SELL, sellOrders.get(0).getType());
+    assertEquals(new BigDecimal("100.75"), sellOrders.get(0).getPrice());
+    assertEquals(new BigDecimal("101.50"), sellOrders.get(1).getPrice());
+  }
+
+  @Test
+  public void testLevelsCanBeReplacedAndRemoved() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("101"), new BigDecimal("3"));
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("102"), new BigDecimal("4"));
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("101.00"), new BigDecimal("5"));
+    assertEquals(2, orderBook.getLevelCount(OrderType.SELL));
+    assertEquals(new BigDecimal("5.00000000"), orderBook.getSellOrders().get(0).getQuantity());
+
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("101"), BigDecimal.ZERO);
+    assertEquals(1, orderBook.getLevelCount(OrderType.SELL));
+    assertEquals(new BigDecimal("102.00"), orderBook.getBestAsk());
+
+    // Removing a level that is not there is a no-op.
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("200"), BigDecimal.ZERO);
+    assertEquals(1, orderBook.getLevelCount(OrderType.SELL));
+
+    orderBook.clear();
+    assertNull(orderBook.getBestAsk());
+    assertTrue(orderBook.getSellOrders().isEmpty());
+  }
+
+  @Test
+  public void testTopLevelsCanBeVisitedInFixedPoint() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.BUY, 10_000L, 100_000_000L);
+    orderBook.setLevel(OrderType.BUY, 10_100L, 200_000_000L);
+    orderBook.setLevel(OrderType.BUY, 9_900L, 300_000_000L);
+
+    final List<Long> prices = new ArrayList<>();
+    final int visited =
+        orderBook.forEachLevel(OrderType.BUY, 2, (price, quantity) -> prices.add(price));
+    assertEquals(2, visited);
+    assertEquals(List.of(10_100L, 10_000L), prices);
+    assertEquals(new BigDecimal("101.00"), orderBook.getBestBid());
+  }
+
+  @Test
+  public void testCumulativeQuantityIsSummedFromBestPrice() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("100"), new BigDecimal("1"));
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("99"), new BigDecimal("2"));
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("98"), new BigDecimal("4"));
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("101"), new BigDecimal("1.5"));
+    orderBook.setLevel(OrderType.SELL, new BigDecimal("102"), new BigDecimal("2.5"));
+
+    assertEquals(
+        0,
+        orderBook.getCumulativeQuantity(OrderType.BUY, new BigDecimal("99")).compareTo(
+            new BigDecimal("3")));
+    assertEquals(
+        0,
+        orderBook.getCumulativeQuantity(OrderType.BUY, new BigDecimal("97")).compareTo(
+            new BigDecimal("7")));
+    assertEquals(
+        0,
+        orderBook.getCumulativeQuantity(OrderType.BUY, new BigDecimal("101")).compareTo(
+            BigDecimal.ZERO));
+    assertEquals(
+        0,
+        orderBook.getCumulativeQuantity(OrderType.SELL, new BigDecimal("101.5")).compareTo(
+            new BigDecimal("1.5")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testPriceWithTooManyDecimalPlacesIsRejected() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.BUY, new BigDecimal("100.001"), BigDecimal.ONE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeQuantityIsRejected() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.BUY, 100L, -1L);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testBookCannotBeModifiedThroughTheListView() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.getBuyOrders().add(null);
+  }
+
+  @Test(expected = ConcurrentModificationException.class)
+  public void testIteratingWhileUpdatingIsDetected() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.BUY, 100L, 1L);
+    orderBook.setLevel(OrderType.BUY, 99L, 1L);
+
+    final Iterator<MarketOrder> levels = orderBook.getBuyOrders().iterator();
+    levels.next();
+    orderBook.setLevel(OrderType.BUY, 98L, 1L);
+    levels.next();
+  }
+
+  @Test
+  public void testToStringDescribesEachLevel() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    orderBook.setLevel(OrderType.SELL, 10_000L, 100_000_000L);
+    assertEquals(
+        "PriceLevelOrderBook{marketId=BTC_USD, sellOrders=[MarketOrder{type=SELL, price=100.00, "
+            + "quantity=1.00000000, total=100.0000000000}], buyOrders=[]}",
+        orderBook.toString());
+  }
+
+  /**
+   * Applies a long run of random deltas, as a stream would, and checks the book matches a simple
+   * sorted map after every one.
+   */
+  @Test
+  public void testRandomDeltasMatchReferenceBook() {
+    final PriceLevelOrderBook orderBook =
+        new PriceLevelOrderBook(MARKET_ID, PRICE_SCALE, QUANTITY_SCALE);
+    final NavigableMap<Long, Long> bids = new TreeMap<>(Collections.reverseOrder());
+    final NavigableMap<Long, Long> asks = new TreeMap<>();
+    final Random random = new Random(42);
+
+    for (int i = 0; i < 20_000; i++) {
+      final boolean buy = random.nextBoolean();
+      final long price = buy ? 9_000 + random.nextInt(500) : 9_500 + random.nextInt(500);
+      final long quantity = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(1_000_000);
+      final NavigableMap<Long, Long> reference = buy ? bids : asks;
+      if (quantity == 0) {
+        reference.remove(price);
+      } else {
+        reference.put(price, quantity);
+      }
+      orderBook.setLevel(buy ? OrderType.BUY : OrderType.SELL, price, quantity);
+
+      if (i % 100 == 0) {
+        assertMatches(bids, orderBook, OrderType.BUY);
+        assertMatches(asks, orderBook, OrderType.SELL);
+      }
+    }
+    assertMatches(bids, orderBook, OrderType.BUY);
+    assertMatches(asks, orderBook, OrderType.SELL);
+  }
+
+  private static void assertMatches(
+      NavigableMap<Long, Long> reference, PriceLevelOrderBook orderBook, OrderType side) {
+    assertEquals(reference.size(), orderBook.getLevelCount(side));
+
+    final List<long[]> levels = new ArrayList<>();
+    orderBook.forEachLevel(
+        side, Integer.MAX_VALUE, (price, quantity) -> levels.add(new long[] {price, quantity}));
+    int index = 0;
+    long cumulative = 0;
+    for (final Map.Entry<Long, Long> level : reference.entrySet()) {
+      assertEquals((long) level.getKey(), levels.get(index)[0]);
+      assertEquals((long) level.getValue(), levels.get(index)[1]);
+      index++;
+
+      cumulative += level.getValue();
+      if (index % 10 == 0) {
+        assertEquals(
+            BigDecimal.valueOf(cumulative, QUANTITY_SCALE),
+            orderBook.getCumulativeQuantity(
+                side, BigDecimal.valueOf(level.getKey(), PRICE_SCALE)));
+      }
+    }
+
+    final BigDecimal bestPrice =
+        side == OrderType.BUY ? orderBook.getBestBid() : orderBook.getBestAsk();
+    if (reference.isEmpty()) {
+      assertNull(bestPrice);
+    } else {
+      assertEquals(BigDecimal.valueOf(reference.firstKey(), PRICE_SCALE), bestPrice);
+    }
+  }
+}
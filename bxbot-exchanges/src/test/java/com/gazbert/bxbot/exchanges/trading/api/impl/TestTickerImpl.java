@@ -25,7 +25,9 @@ package com.gazbert.bxbot.exchanges.trading.api.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
 import java.math.BigDecimal;
 import org.junit.Test;
 
@@ -105,4 +107,29 @@ public class TestTickerImpl {
     ticker.setTimestamp(TIMESTAMP);
     assertEquals(TIMESTAMP, ticker.getTimestamp());
   }
+
+  @Test
+  public void testTickerCreatedFromFixedPointPricesHandsThemBackAsTheyAre() {
+    final FixedPointDecimal last = FixedPointDecimal.of(1878958, 2);
+    final FixedPointDecimal bid = FixedPointDecimal.of(1877825, 2);
+    final FixedPointDecimal ask = FixedPointDecimal.of(1878333, 2);
+    final TickerImpl ticker = TickerImpl.fromFixedPoint(last, bid, ask, TIMESTAMP);
+
+    assertSame(last, ticker.getFixedPointLast());
+    assertSame(bid, ticker.getFixedPointBid());
+    assertSame(ask, ticker.getFixedPointAsk());
+    assertEquals(LAST, ticker.getLast());
+    assertEquals(BID, ticker.getBid());
+    assertEquals(ASK, ticker.getAsk());
+    assertNull(ticker.getLow());
+    assertNull(ticker.getHigh());
+    assertNull(ticker.getOpen());
+    assertNull(ticker.getVolume());
+    assertNull(ticker.getVwap());
+    assertEquals(TIMESTAMP, ticker.getTimestamp());
+
+    ticker.setLast(null);
+    assertNull(ticker.getLast());
+    assertNull(ticker.getFixedPointLast());
+  }
 }
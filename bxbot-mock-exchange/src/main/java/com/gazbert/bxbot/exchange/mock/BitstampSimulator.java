@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Simulates the Bitstamp v2 REST API used by the BitstampExchangeAdapter.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class BitstampSimulator extends ExchangeSimulator {
+
+  private static final String API_PATH = "api/v2/";
+  private static final String TICKER = "ticker/";
+  private static final String ORDER_BOOK = "order_book/";
+  private static final String OPEN_ORDERS = "open_orders/";
+  private static final String BUY = "buy/";
+  private static final String SELL = "sell/";
+
+  BitstampSimulator(Path exchangeDataDir, MatchingEngine matchingEngine) {
+    super("bitstamp", exchangeDataDir, matchingEngine);
+  }
+
+  @Override
+  BigDecimal seedPrice() {
+    return template("ticker.json").getAsJsonObject().get("last").getAsBigDecimal();
+  }
+
+  @Override
+  MockHttpResponse handle(MockHttpRequest request, String apiPath) {
+    if (!apiPath.startsWith(API_PATH)) {
+      return notFound(request);
+    }
+    final String method = apiPath.substring(API_PATH.length());
+
+    if (method.startsWith(TICKER)) {
+      return ticker(method.substring(TICKER.length()));
+    } else if (method.startsWith(ORDER_BOOK)) {
+      return MockHttpResponse.ok(template("order_book.json"));
+    } else if (method.equals("balance")) {
+      return MockHttpResponse.ok(template("balance.json"));
+    } else if (method.startsWith(OPEN_ORDERS)) {
+      return openOrders(method.substring(OPEN_ORDERS.length()));
+    } else if (method.startsWith(BUY)) {
+      return createOrder(request, method.substring(BUY.length()), MockOrder.Side.BUY);
+    } else if (method.startsWith(SELL)) {
+      return createOrder(request, method.substring(SELL.length()), MockOrder.Side.SELL);
+    } else if (method.equals("cancel_order")) {
+      return cancelOrder(request);
+    }
+    return notFound(request);
+  }
+
+  private MockHttpResponse ticker(String marketId) {
+    final MatchingEngine.Quote quote = quote(marketId);
+    final JsonObject ticker = template("ticker.json").getAsJsonObject();
+    ticker.addProperty("last", quote.getLast().toPlainString());
+    ticker.addProperty("bid", quote.getBid().toPlainString());
+    ticker.addProperty("ask", quote.getAsk().toPlainString());
+    ticker.addProperty("timestamp", Long.toString(System.currentTimeMillis() / 1000));
+    return MockHttpResponse.ok(ticker);
+  }
+
+  private MockHttpResponse openOrders(String marketId) {
+    final JsonArray openOrders = new JsonArray();
+    for (final MockOrder order : matchingEngine.getOpenOrders(marketId)) {
+      final JsonObject openOrder = toJson(order);
+      if (order.getClientOrderId() != null) {
+        openOrder.addProperty("client_order_id", order.getClientOrderId());
+      }
+      openOrders.add(openOrder);
+    }
+    return MockHttpResponse.ok(openOrders);
+  }
+
+  private MockHttpResponse createOrder(
+      MockHttpRequest request, String marketId, MockOrder.Side side) {
+    final MockOrder order =
+        matchingEngine.placeOrder(
+            Long.toString(nextOrderNumber()),
+            request.getParam("client_order_id"),
+            marketId,
+            side,
+            decimalParam(request, "price"),
+            decimalParam(request, "amount"),
+            seedPrice());
+    return MockHttpResponse.ok(toJson(order));
+  }
+
+  private MockHttpResponse cancelOrder(MockHttpRequest request) {
+    final MockOrder order = matchingEngine.cancelOrder(request.getParam("id"));
+    if (order == null) {
+      final JsonObject error = new JsonObject();
+      error.addProperty("error", "Order not found");
+      return MockHttpResponse.ok(error);
+    }
+    final JsonObject cancelledOrder = new JsonObject();
+    cancelledOrder.addProperty("price", order.getPrice());
+    cancelledOrder.addProperty("amount", order.getAmount());
+    cancelledOrder.addProperty("type", order.getSide() == MockOrder.Side.BUY ? 0 : 1);
+    cancelledOrder.addProperty("id", Long.parseLong(order.getId()));
+    return MockHttpResponse.ok(cancelledOrder);
+  }
+
+  private static JsonObject toJson(MockOrder order) {
+    final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+    final JsonObject json = new JsonObject();
+    json.addProperty("price", order.getPrice().toPlainString());
+    json.addProperty("amount", order.getAmount().toPlainString());
+    json.addProperty("type", order.getSide() == MockOrder.Side.BUY ? 0 : 1);
+    json.addProperty("id", Long.parseLong(order.getId()));
+    json.addProperty("datetime", dateFormat.format(new Date(order.getCreatedMillis())));
+    return json;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Simulates the Coinbase Pro REST API used by the CoinbaseProExchangeAdapter.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class CoinbaseProSimulator extends ExchangeSimulator {
+
+  private static final String PRODUCTS = "products/";
+  private static final String ORDERS = "orders";
+
+  CoinbaseProSimulator(Path exchangeDataDir, MatchingEngine matchingEngine) {
+    super("coinbasepro", exchangeDataDir, matchingEngine);
+  }
+
+  @Override
+  BigDecimal seedPrice() {
+    return template("ticker.json").getAsJsonObject().get("price").getAsBigDecimal();
+  }
+
+  @Override
+  MockHttpResponse handle(MockHttpRequest request, String apiPath) {
+    if (apiPath.startsWith(PRODUCTS)) {
+      final String[] productAndResource = apiPath.substring(PRODUCTS.length()).split("/");
+      if (productAndResource.length == 2) {
+        final String marketId = productAndResource[0];
+        switch (productAndResource[1]) {
+          case "ticker":
+            return ticker(marketId);
+          case "book":
+            return MockHttpResponse.ok(template("book.json"));
+          case "stats":
+            return stats(marketId);
+          default:
+            return notFound(request);
+        }
+      }
+
+    } else if (apiPath.equals(ORDERS)) {
+      return "POST".equals(request.getMethod()) ? createOrder(request) : openOrders();
+
+    } else if (apiPath.startsWith(ORDERS + "/") && "DELETE".equals(request.getMethod())) {
+      return cancelOrder(apiPath.substring(ORDERS.length() + 1));
+
+    } else if (apiPath.equals("accounts")) {
+      return MockHttpResponse.ok(template("accounts.json"));
+    }
+    return notFound(request);
+  }
+
+  private MockHttpResponse ticker(String marketId) {
+    final MatchingEngine.Quote quote = quote(marketId);
+    final JsonObject ticker = template("ticker.json").getAsJsonObject();
+    ticker.addProperty("price", quote.getLast().toPlainString());
+    ticker.addProperty("bid", quote.getBid().toPlainString());
+    ticker.addProperty("ask", quote.getAsk().toPlainString());
+    ticker.addProperty("time", Instant.now().toString());
+    return MockHttpResponse.ok(ticker);
+  }
+
+  private MockHttpResponse stats(String marketId) {
+    final JsonObject stats = template("stats.json").getAsJsonObject();
+    stats.addProperty("last", quote(marketId).getLast().toPlainString());
+    return MockHttpResponse.ok(stats);
+  }
+
+  private MockHttpResponse openOrders() {
+    final JsonArray openOrders = new JsonArray();
+    for (final MockOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(toJson(order));
+    }
+    return MockHttpResponse.ok(openOrders);
+  }
+
+  private MockHttpResponse createOrder(MockHttpRequest request) {
+    final MockOrder order =
+        matchingEngine.placeOrder(
+            UUID.randomUUID().toString(),
+            request.getParam("client_oid"),
+            request.getParam("product_id"),
+            sideParam(request, "side"),
+            decimalParam(request, "price"),
+            decimalParam(request, "size"),
+            seedPrice());
+    return MockHttpResponse.ok(toJson(order));
+  }
+
+  private MockHttpResponse cancelOrder(String orderId) {
+    final MockOrder order = matchingEngine.cancelOrder(orderId);
+    if (order == null) {
+      return MockHttpResponse.error(400, "Order already done");
+    }
+    final JsonArray cancelledOrderIds = new JsonArray();
+    cancelledOrderIds.add(order.getId());
+    return MockHttpResponse.ok(cancelledOrderIds);
+  }
+
+  private JsonObject toJson(MockOrder order) {
+    final boolean filled = order.getStatus() == MockOrder.Status.FILLED;
+    final JsonObject json = template("new_buy_order.json").getAsJsonObject();
+    json.addProperty("id", order.getId());
+    json.addProperty("price", order.getPrice().toPlainString());
+    json.addProperty("size", order.getAmount().toPlainString());
+    json.addProperty("product_id", order.getMarketId());
+    json.addProperty("side", order.getSide() == MockOrder.Side.BUY ? "buy" : "sell");
+    json.addProperty("created_at", Instant.ofEpochMilli(order.getCreatedMillis()).toString());
+    json.addProperty("filled_size", filled ? order.getAmount().toPlainString() : "0.00000000");
+    json.addProperty("status", order.getStatus() == MockOrder.Status.OPEN ? "open" : "done");
+    json.addProperty("settled", filled);
+    if (order.getClientOrderId() != null) {
+      json.addProperty("client_oid", order.getClientOrderId());
+    }
+    return json;
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for the simulation of an exchange's REST API.
+ *
+ * <p>Responses are built from the recorded exchange JSON in the exchange's data directory. Each
+ * recording is parsed once and used as a template: handlers take a copy and overwrite the fields
+ * that come from the {@link MatchingEngine}.
+ *
+ * <p>Request signatures are not checked.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+abstract class ExchangeSimulator {
+
+  private final String name;
+  private final Path dataDir;
+  private final Map<String, JsonElement> templates = new ConcurrentHashMap<>();
+  private final AtomicLong orderNumberSequence;
+
+  final MatchingEngine matchingEngine;
+
+  /**
+   * Creates a simulator.
+   *
+   * @param name the exchange name; also the name of its data directory and base URL path.
+   * @param exchangeDataDir the directory holding the recorded JSON for all the exchanges.
+   * @param matchingEngine the matching engine for created orders.
+   */
+  ExchangeSimulator(String name, Path exchangeDataDir, MatchingEngine matchingEngine) {
+    this.name = name;
+    this.dataDir = exchangeDataDir.resolve(name);
+    this.matchingEngine = matchingEngine;
+    orderNumberSequence = new AtomicLong(System.currentTimeMillis());
+  }
+
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Handles a request.
+   *
+   * @param request the request.
+   * @param apiPath the request path after the exchange name, without leading or trailing slashes,
+   *     e.g. {@code api/v2/ticker/btcusd}.
+   * @return the response.
+   */
+  abstract MockHttpResponse handle(MockHttpRequest request, String apiPath);
+
+  /**
+   * Returns a copy of a recorded response that the caller is free to change.
+   *
+   * @param fileName the recording's file name in the exchange's data directory.
+   * @return the recorded JSON.
+   */
+  JsonElement template(String fileName) {
+    return templates.computeIfAbsent(fileName, this::loadTemplate).deepCopy();
+  }
+
+  /**
+   * Returns the price a market starts at, taken from a recorded response.
+   *
+   * @return the seed price.
+   */
+  abstract BigDecimal seedPrice();
+
+  /**
+   * Quotes a market, moving its price one step.
+   *
+   * @param marketId the market id.
+   * @return the market's new prices.
+   */
+  MatchingEngine.Quote quote(String marketId) {
+    return matchingEngine.quote(marketId, seedPrice());
+  }
+
+  /**
+   * Returns a unique, increasing order number for building exchange order ids.
+   *
+   * @return the order number.
+   */
+  long nextOrderNumber() {
+    return orderNumberSequence.incrementAndGet();
+  }
+
+  static MockHttpResponse notFound(MockHttpRequest request) {
+    return MockHttpResponse.error(404, "No mock for " + request);
+  }
+
+  static BigDecimal decimalParam(MockHttpRequest request, String name) {
+    final String value = request.getParam(name);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing request param: " + name);
+    }
+    return new BigDecimal(value);
+  }
+
+  static MockOrder.Side sideParam(MockHttpRequest request, String name) {
+    return "sell".equalsIgnoreCase(request.getParam(name))
+        ? MockOrder.Side.SELL
+        : MockOrder.Side.BUY;
+  }
+
+  private JsonElement loadTemplate(String fileName) {
+    try {
+      return JsonParser.parseString(
+          new String(Files.readAllBytes(dataDir.resolve(fileName)), StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to load exchange data: " + fileName, e);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import java.util.Random;
+
+/**
+ * Decides which fault, if any, the mock exchange injects into a response.
+ *
+ * <p>Each fault has its own rate, the fraction of requests it is injected into. The rates are
+ * cumulative, so their sum must not exceed 1.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class FaultInjector {
+
+  /** The faults the mock exchange can inject. */
+  public enum Fault {
+    /** No fault; the request is handled normally. */
+    NONE,
+
+    /** A 503 Service Unavailable response. */
+    SERVER_ERROR,
+
+    /** A 429 Too Many Requests response. */
+    TOO_MANY_REQUESTS,
+
+    /**
+     * The connection is reset instead of being answered. Clients see an IOException with a
+     * "Connection reset" or "Connection reset by peer" message, which match the default
+     * nonFatalErrorMessages config.
+     */
+    CONNECTION_RESET
+  }
+
+  private final double serverErrorRate;
+  private final double tooManyRequestsRate;
+  private final double connectionResetRate;
+
+  /**
+   * Creates a fault injector.
+   *
+   * @param serverErrorRate the fraction of requests that get a 503 response.
+   * @param tooManyRequestsRate the fraction of requests that get a 429 response.
+   * @param connectionResetRate the fraction of requests that get their connection reset.
+   */
+  public FaultInjector(
+      double serverErrorRate, double tooManyRequestsRate, double connectionResetRate) {
+    this.serverErrorRate = assertRate("server-error-rate", serverErrorRate);
+    this.tooManyRequestsRate = assertRate("too-many-requests-rate", tooManyRequestsRate);
+    this.connectionResetRate = assertRate("connection-reset-rate", connectionResetRate);
+    if (serverErrorRate + tooManyRequestsRate + connectionResetRate > 1) {
+      throw new IllegalArgumentException("Sum of fault rates must not exceed 1");
+    }
+  }
+
+  /**
+   * Picks the fault for the next request.
+   *
+   * @param random the source of randomness.
+   * @return the fault to inject; {@link Fault#NONE} if the request should be handled normally.
+   */
+  public Fault nextFault(Random random) {
+    final double roll = random.nextDouble();
+    if (roll < serverErrorRate) {
+      return Fault.SERVER_ERROR;
+    } else if (roll < serverErrorRate + tooManyRequestsRate) {
+      return Fault.TOO_MANY_REQUESTS;
+    } else if (roll < serverErrorRate + tooManyRequestsRate + connectionResetRate) {
+      return Fault.CONNECTION_RESET;
+    }
+    return Fault.NONE;
+  }
+
+  private static double assertRate(String name, double rate) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException(name + " must be between 0 and 1: " + rate);
+    }
+    return rate;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+/**
+ * Simulates the Gemini v1 REST API used by the GeminiExchangeAdapter.
+ *
+ * <p>The Gemini market data WebSocket feed is not simulated.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class GeminiSimulator extends ExchangeSimulator {
+
+  private static final String API_PATH = "v1/";
+  private static final String PUB_TICKER = "pubticker/";
+  private static final String BOOK = "book/";
+
+  GeminiSimulator(Path exchangeDataDir, MatchingEngine matchingEngine) {
+    super("gemini", exchangeDataDir, matchingEngine);
+  }
+
+  @Override
+  BigDecimal seedPrice() {
+    return template("pubticker.json").getAsJsonObject().get("last").getAsBigDecimal();
+  }
+
+  @Override
+  MockHttpResponse handle(MockHttpRequest request, String apiPath) {
+    if (!apiPath.startsWith(API_PATH)) {
+      return notFound(request);
+    }
+    final String method = apiPath.substring(API_PATH.length());
+
+    if (method.startsWith(PUB_TICKER)) {
+      return ticker(method.substring(PUB_TICKER.length()));
+    } else if (method.startsWith(BOOK)) {
+      return MockHttpResponse.ok(template("book.json"));
+    }
+
+    switch (method) {
+      case "orders":
+        return openOrders();
+      case "order/new":
+        return createOrder(request);
+      case "order/cancel":
+        return cancelOrder(request);
+      case "balances":
+        return MockHttpResponse.ok(template("balances.json"));
+      default:
+        return notFound(request);
+    }
+  }
+
+  private MockHttpResponse ticker(String marketId) {
+    final MatchingEngine.Quote quote = quote(marketId);
+    final JsonObject ticker = template("pubticker.json").getAsJsonObject();
+    ticker.addProperty("last", quote.getLast().toPlainString());
+    ticker.addProperty("bid", quote.getBid().toPlainString());
+    ticker.addProperty("ask", quote.getAsk().toPlainString());
+    ticker.getAsJsonObject("volume").addProperty("timestamp", System.currentTimeMillis());
+    return MockHttpResponse.ok(ticker);
+  }
+
+  private MockHttpResponse openOrders() {
+    final JsonArray openOrders = new JsonArray();
+    for (final MockOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(toJson(order));
+    }
+    return MockHttpResponse.ok(openOrders);
+  }
+
+  private MockHttpResponse createOrder(MockHttpRequest request) {
+    final MockOrder order =
+        matchingEngine.placeOrder(
+            Long.toString(nextOrderNumber()),
+            request.getParam("client_order_id"),
+            request.getParam("symbol"),
+            sideParam(request, "side"),
+            decimalParam(request, "price"),
+            decimalParam(request, "amount"),
+            seedPrice());
+    return MockHttpResponse.ok(toJson(order));
+  }
+
+  private MockHttpResponse cancelOrder(MockHttpRequest request) {
+    final MockOrder order = matchingEngine.cancelOrder(request.getParam("order_id"));
+    if (order == null) {
+      return MockHttpResponse.error(400, "Order could not be cancelled.");
+    }
+    return MockHttpResponse.ok(toJson(order));
+  }
+
+  private JsonObject toJson(MockOrder order) {
+    final boolean filled = order.getStatus() == MockOrder.Status.FILLED;
+    final JsonObject json = template("order_new_buy.json").getAsJsonObject();
+    json.addProperty("order_id", order.getId());
+    json.addProperty("id", order.getId());
+    json.addProperty("symbol", order.getMarketId());
+    json.addProperty("price", order.getPrice().toPlainString());
+    json.addProperty("avg_execution_price", filled ? order.getPrice().toPlainString() : "0");
+    json.addProperty("side", order.getSide() == MockOrder.Side.BUY ? "buy" : "sell");
+    json.addProperty("timestamp", Long.toString(order.getCreatedMillis() / 1000));
+    json.addProperty("timestampms", order.getCreatedMillis());
+    json.addProperty("is_live", order.getStatus() == MockOrder.Status.OPEN);
+    json.addProperty("is_cancelled", order.getStatus() == MockOrder.Status.CANCELLED);
+    json.addProperty("original_amount", order.getAmount().toPlainString());
+    json.addProperty("remaining_amount", filled ? "0" : order.getAmount().toPlainString());
+    json.addProperty("executed_amount", filled ? order.getAmount().toPlainString() : "0");
+    if (order.getClientOrderId() != null) {
+      json.addProperty("client_order_id", order.getClientOrderId());
+    }
+    return json;
+  }
+}
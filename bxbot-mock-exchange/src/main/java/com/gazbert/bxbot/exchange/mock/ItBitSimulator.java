@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Simulates the itBit v1 REST API used by the ItBitExchangeAdapter.
+ *
+ * <p>Orders are placed against whichever wallet id is in the request path; the wallets themselves
+ * come from the recording.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class ItBitSimulator extends ExchangeSimulator {
+
+  private static final String API_PATH = "v1/";
+  private static final String MARKETS = "markets/";
+  private static final String WALLETS = "wallets";
+
+  ItBitSimulator(Path exchangeDataDir, MatchingEngine matchingEngine) {
+    super("itbit", exchangeDataDir, matchingEngine);
+  }
+
+  @Override
+  BigDecimal seedPrice() {
+    return template("ticker.json").getAsJsonObject().get("lastPrice").getAsBigDecimal();
+  }
+
+  @Override
+  MockHttpResponse handle(MockHttpRequest request, String apiPath) {
+    if (!apiPath.startsWith(API_PATH)) {
+      return notFound(request);
+    }
+    final String resource = apiPath.substring(API_PATH.length());
+
+    if (resource.startsWith(MARKETS)) {
+      final String[] marketAndResource = resource.substring(MARKETS.length()).split("/");
+      if (marketAndResource.length == 2 && "ticker".equals(marketAndResource[1])) {
+        return ticker(marketAndResource[0]);
+      } else if (marketAndResource.length == 2 && "order_book".equals(marketAndResource[1])) {
+        return MockHttpResponse.ok(template("order_book.json"));
+      }
+
+    } else if (resource.equals(WALLETS)) {
+      return MockHttpResponse.ok(template("wallets.json"));
+
+    } else if (resource.startsWith(WALLETS + "/")) {
+      // wallets/{walletId}/orders[/{orderId}]
+      final String[] walletResource = resource.split("/");
+      if (walletResource.length == 3 && "orders".equals(walletResource[2])) {
+        return "POST".equals(request.getMethod())
+            ? createOrder(request, walletResource[1])
+            : openOrders(walletResource[1]);
+      } else if (walletResource.length == 4 && "DELETE".equals(request.getMethod())) {
+        return cancelOrder(walletResource[3]);
+      }
+    }
+    return notFound(request);
+  }
+
+  private MockHttpResponse ticker(String marketId) {
+    final MatchingEngine.Quote quote = quote(marketId);
+    final JsonObject ticker = template("ticker.json").getAsJsonObject();
+    ticker.addProperty("pair", marketId);
+    ticker.addProperty("lastPrice", quote.getLast().toPlainString());
+    ticker.addProperty("bid", quote.getBid().toPlainString());
+    ticker.addProperty("ask", quote.getAsk().toPlainString());
+    ticker.addProperty("serverTimeUTC", Instant.now().toString());
+    return MockHttpResponse.ok(ticker);
+  }
+
+  private MockHttpResponse openOrders(String walletId) {
+    final JsonArray openOrders = new JsonArray();
+    for (final MockOrder order : matchingEngine.getOpenOrders(null)) {
+      openOrders.add(toJson(order, walletId));
+    }
+    return MockHttpResponse.ok(openOrders);
+  }
+
+  private MockHttpResponse createOrder(MockHttpRequest request, String walletId) {
+    final MockOrder order =
+        matchingEngine.placeOrder(
+            UUID.randomUUID().toString(),
+            null,
+            request.getParam("instrument"),
+            sideParam(request, "side"),
+            decimalParam(request, "price"),
+            decimalParam(request, "amount"),
+            seedPrice());
+    return new MockHttpResponse(201, toJson(order, walletId).toString());
+  }
+
+  private MockHttpResponse cancelOrder(String orderId) {
+    if (matchingEngine.cancelOrder(orderId) == null) {
+      return MockHttpResponse.error(400, "Order not found or already closed");
+    }
+    return new MockHttpResponse(202, template("cancel_order.json").toString());
+  }
+
+  private JsonObject toJson(MockOrder order, String walletId) {
+    final boolean filled = order.getStatus() == MockOrder.Status.FILLED;
+    final JsonObject json = template("new_order_buy.json").getAsJsonObject();
+    json.addProperty("id", order.getId());
+    json.addProperty("walletId", walletId);
+    json.addProperty("side", order.getSide() == MockOrder.Side.BUY ? "buy" : "sell");
+    json.addProperty("instrument", order.getMarketId());
+    json.addProperty("amount", order.getAmount().toPlainString());
+    json.addProperty("displayAmount", order.getAmount().toPlainString());
+    json.addProperty("price", order.getPrice().toPlainString());
+    json.addProperty("amountFilled", filled ? order.getAmount().toPlainString() : "0");
+    json.addProperty("createdTime", Instant.ofEpochMilli(order.getCreatedMillis()).toString());
+    json.addProperty("status", filled ? "filled" : "open");
+    return json;
+  }
+}
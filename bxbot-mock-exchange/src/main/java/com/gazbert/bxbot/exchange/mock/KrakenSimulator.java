@@ -0,0 +1,188 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Simulates the Kraken v0 REST API used by the KrakenExchangeAdapter.
+ *
+ * <p>Every response uses Kraken's {@code {"error":[],"result":{}}} envelope; API errors are sent
+ * with a 200 status, as the real exchange does.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+class KrakenSimulator extends ExchangeSimulator {
+
+  private static final String PUBLIC_PATH = "0/public/";
+  private static final String PRIVATE_PATH = "0/private/";
+  private static final String RESULT = "result";
+
+  KrakenSimulator(Path exchangeDataDir, MatchingEngine matchingEngine) {
+    super("kraken", exchangeDataDir, matchingEngine);
+  }
+
+  @Override
+  BigDecimal seedPrice() {
+    return firstTickerEntry(template("Ticker.json")).getAsJsonArray("c").get(0).getAsBigDecimal();
+  }
+
+  @Override
+  MockHttpResponse handle(MockHttpRequest request, String apiPath) {
+    switch (apiPath) {
+      case PUBLIC_PATH + "Ticker":
+        return ticker(request.getParam("pair"));
+      case PUBLIC_PATH + "Depth":
+        return MockHttpResponse.ok(template("Depth.json"));
+      case PUBLIC_PATH + "AssetPairs":
+        return MockHttpResponse.ok(template("AssetPairs.json"));
+      case PRIVATE_PATH + "OpenOrders":
+        return openOrders();
+      case PRIVATE_PATH + "AddOrder":
+        return createOrder(request);
+      case PRIVATE_PATH + "CancelOrder":
+        return cancelOrder(request);
+      case PRIVATE_PATH + "Balance":
+        return MockHttpResponse.ok(template("Balance.json"));
+      default:
+        return notFound(request);
+    }
+  }
+
+  private MockHttpResponse ticker(String marketId) {
+    final MatchingEngine.Quote quote = quote(marketId);
+    final JsonObject ticker = template("Ticker.json").getAsJsonObject();
+    final JsonObject pairTicker = firstTickerEntry(ticker);
+    pairTicker.getAsJsonArray("a").set(0, toJsonString(quote.getAsk()));
+    pairTicker.getAsJsonArray("b").set(0, toJsonString(quote.getBid()));
+    pairTicker.getAsJsonArray("c").set(0, toJsonString(quote.getLast()));
+    return MockHttpResponse.ok(ticker);
+  }
+
+  private MockHttpResponse openOrders() {
+    final JsonObject open = new JsonObject();
+    for (final MockOrder order : matchingEngine.getOpenOrders(null)) {
+      open.add(order.getId(), toJson(order));
+    }
+    final JsonObject result = new JsonObject();
+    result.add("open", open);
+    return MockHttpResponse.ok(envelope(result));
+  }
+
+  private MockHttpResponse createOrder(MockHttpRequest request) {
+    final MockOrder order =
+        matchingEngine.placeOrder(
+            nextTxId(),
+            null,
+            request.getParam("pair"),
+            sideParam(request, "type"),
+            decimalParam(request, "price"),
+            decimalParam(request, "volume"),
+            seedPrice());
+
+    final JsonObject description = new JsonObject();
+    description.addProperty("order", describe(order));
+    final JsonArray txIds = new JsonArray();
+    txIds.add(order.getId());
+
+    final JsonObject result = new JsonObject();
+    result.add("descr", description);
+    result.add("txid", txIds);
+    return MockHttpResponse.ok(envelope(result));
+  }
+
+  private MockHttpResponse cancelOrder(MockHttpRequest request) {
+    if (matchingEngine.cancelOrder(request.getParam("txid")) == null) {
+      final JsonObject error = template("CancelOrder-error.json").getAsJsonObject();
+      final JsonArray errors = new JsonArray();
+      errors.add("EOrder:Unknown order");
+      error.add("error", errors);
+      return MockHttpResponse.ok(error);
+    }
+    return MockHttpResponse.ok(template("CancelOrder.json"));
+  }
+
+  private JsonObject toJson(MockOrder order) {
+    final JsonObject json = firstOpenOrder(template("OpenOrders.json"));
+    json.addProperty("opentm", order.getCreatedMillis() / 1000.0);
+
+    final JsonObject description = json.getAsJsonObject("descr");
+    description.addProperty("pair", order.getMarketId());
+    description.addProperty("type", order.getSide() == MockOrder.Side.BUY ? "buy" : "sell");
+    description.addProperty("price", order.getPrice().toPlainString());
+    description.addProperty("order", describe(order));
+
+    json.addProperty("vol", order.getAmount().toPlainString());
+    json.addProperty("vol_exec", "0.00000000");
+    return json;
+  }
+
+  private String nextTxId() {
+    // Kraken txids look like OLD2Z4-L4C9H-MKH5BX
+    final String number = Long.toString(nextOrderNumber(), 36).toUpperCase(Locale.ENGLISH);
+    final String padded = "O" + "0".repeat(Math.max(0, 16 - number.length())) + number;
+    return padded.substring(0, 6) + "-" + padded.substring(6, 11) + "-" + padded.substring(11);
+  }
+
+  private static String describe(MockOrder order) {
+    return (order.getSide() == MockOrder.Side.BUY ? "buy " : "sell ")
+        + order.getAmount().toPlainString()
+        + " "
+        + order.getMarketId()
+        + " @ limit "
+        + order.getPrice().toPlainString();
+  }
+
+  private static JsonObject envelope(JsonElement result) {
+    final JsonObject envelope = new JsonObject();
+    envelope.add("error", new JsonArray());
+    envelope.add(RESULT, result);
+    return envelope;
+  }
+
+  private static JsonObject firstTickerEntry(JsonElement ticker) {
+    final Map.Entry<String, JsonElement> entry =
+        ticker.getAsJsonObject().getAsJsonObject(RESULT).entrySet().iterator().next();
+    return entry.getValue().getAsJsonObject();
+  }
+
+  private static JsonObject firstOpenOrder(JsonElement openOrders) {
+    final JsonObject open =
+        openOrders.getAsJsonObject().getAsJsonObject(RESULT).getAsJsonObject("open");
+    return open.entrySet().iterator().next().getValue().getAsJsonObject();
+  }
+
+  private static JsonPrimitive toJsonString(BigDecimal price) {
+    return new JsonPrimitive(price.toPlainString());
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A distribution of the extra latency, in millis, the mock exchange adds to each response.
+ *
+ * <p>Distributions are created from a spec string:
+ *
+ * <ul>
+ *   <li>{@code none} - no added latency.
+ *   <li>{@code fixed:<millis>} - the same latency for every response.
+ *   <li>{@code uniform:<min>,<max>} - uniformly distributed between min and max.
+ *   <li>{@code normal:<mean>,<stddev>} - normally distributed; negative samples are clamped to 0.
+ *   <li>{@code lognormal:<median>,<sigma>} - log-normally distributed, which gives the long tail
+ *       real exchanges show.
+ * </ul>
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+  /** Adds no latency. */
+  LatencyDistribution NONE = random -> 0;
+
+  /**
+   * Samples the distribution.
+   *
+   * @param random the source of randomness.
+   * @return the latency to add in millis; never negative.
+   */
+  long sampleMillis(Random random);
+
+  /**
+   * Creates a latency distribution from its spec.
+   *
+   * @param spec the spec, e.g. {@code lognormal:50,0.5}.
+   * @return the latency distribution.
+   * @throws IllegalArgumentException if the spec is not recognised.
+   */
+  static LatencyDistribution parse(String spec) {
+    if (spec == null || spec.isBlank() || "none".equalsIgnoreCase(spec.trim())) {
+      return NONE;
+    }
+
+    final String[] typeAndArgs = spec.trim().split(":", 2);
+    final String type = typeAndArgs[0].trim().toLowerCase(Locale.ENGLISH);
+    final double[] args = parseArgs(spec, typeAndArgs.length == 2 ? typeAndArgs[1] : "");
+
+    switch (type) {
+      case "fixed":
+        assertArgCount(spec, args, 1);
+        final long fixedMillis = Math.max(0, Math.round(args[0]));
+        return random -> fixedMillis;
+
+      case "uniform":
+        assertArgCount(spec, args, 2);
+        final double min = Math.max(0, args[0]);
+        final double max = Math.max(min, args[1]);
+        return random -> Math.round(min + random.nextDouble() * (max - min));
+
+      case "normal":
+        assertArgCount(spec, args, 2);
+        final double mean = args[0];
+        final double stddev = args[1];
+        return random -> Math.max(0, Math.round(mean + random.nextGaussian() * stddev));
+
+      case "lognormal":
+        assertArgCount(spec, args, 2);
+        final double mu = Math.log(Math.max(args[0], 1));
+        final double sigma = args[1];
+        return random -> Math.round(Math.exp(mu + random.nextGaussian() * sigma));
+
+      default:
+        throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+    }
+  }
+
+  /**
+   * Parses the comma separated args of a latency distribution spec.
+   *
+   * @param spec the whole spec, used in the error message.
+   * @param argsString the args part of the spec, e.g. {@code 50,0.5}.
+   * @return the args, or an empty array if there are none.
+   * @throws IllegalArgumentException if an arg is not a number.
+   */
+  private static double[] parseArgs(String spec, String argsString) {
+    if (argsString.isBlank()) {
+      return new double[0];
+    }
+    final String[] argStrings = argsString.split(",");
+    final double[] args = new double[argStrings.length];
+    try {
+      for (int i = 0; i < argStrings.length; i++) {
+        args[i] = Double.parseDouble(argStrings[i].trim());
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid latency distribution args: " + spec, e);
+    }
+    return args;
+  }
+
+  /**
+   * Checks a latency distribution has been given the right number of args.
+   *
+   * @param spec the whole spec, used in the error message.
+   * @param args the parsed args.
+   * @param expectedCount the number of args the distribution needs.
+   * @throws IllegalArgumentException if the number of args is wrong.
+   */
+  private static void assertArgCount(String spec, double[] args, int expectedCount) {
+    if (args.length != expectedCount) {
+      throw new IllegalArgumentException(
+          "Latency distribution needs " + expectedCount + " arg(s): " + spec);
+    }
+  }
+}
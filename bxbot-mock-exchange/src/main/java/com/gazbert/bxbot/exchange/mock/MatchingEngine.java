@@ -0,0 +1,231 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * A simple matching engine for the orders created on the mock exchange.
+ *
+ * <p>Each market has a simulated last price. It starts at the price in the recorded ticker and
+ * takes a random walk every time the market is quoted. The bid and ask sit a fixed spread either
+ * side of the last price.
+ *
+ * <p>A new buy order priced at or above the ask, or sell order priced at or below the bid, fills
+ * straight away. Other orders rest on the book and fill in full when the price moves through them.
+ * Only open orders are kept; once filled or cancelled an order is forgotten, so the engine's memory
+ * stays flat however long the bot runs.
+ *
+ * <p>This class is thread safe.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class MatchingEngine {
+
+  /** Half the bid/ask spread, as a fraction of the last price. */
+  private static final double HALF_SPREAD = 0.0005;
+
+  private static final int MIN_PRICE_SCALE = 2;
+
+  private final Random random;
+  private final double volatility;
+  private final LongSupplier clock;
+  private final Map<String, Market> markets = new HashMap<>();
+  private final Map<String, MockOrder> openOrders = new LinkedHashMap<>();
+
+  /** A snapshot of a market's prices. */
+  public static class Quote {
+    private final BigDecimal last;
+    private final BigDecimal bid;
+    private final BigDecimal ask;
+
+    Quote(BigDecimal last, BigDecimal bid, BigDecimal ask) {
+      this.last = last;
+      this.bid = bid;
+      this.ask = ask;
+    }
+
+    public BigDecimal getLast() {
+      return last;
+    }
+
+    public BigDecimal getBid() {
+      return bid;
+    }
+
+    public BigDecimal getAsk() {
+      return ask;
+    }
+  }
+
+  private static class Market {
+    private final int scale;
+    private double lastPrice;
+
+    Market(BigDecimal seedPrice) {
+      scale = Math.max(MIN_PRICE_SCALE, seedPrice.scale());
+      lastPrice = seedPrice.doubleValue();
+    }
+
+    BigDecimal last() {
+      return toPrice(lastPrice);
+    }
+
+    BigDecimal bid() {
+      return toPrice(lastPrice * (1 - HALF_SPREAD));
+    }
+
+    BigDecimal ask() {
+      return toPrice(lastPrice * (1 + HALF_SPREAD));
+    }
+
+    private BigDecimal toPrice(double price) {
+      return BigDecimal.valueOf(price).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+  }
+
+  /**
+   * Creates a matching engine.
+   *
+   * @param random the source of randomness for the price walk.
+   * @param volatility the standard deviation of the relative price move per quote, e.g. 0.001.
+   * @param clock supplies the current time in millis for new orders.
+   */
+  public MatchingEngine(Random random, double volatility, LongSupplier clock) {
+    if (volatility < 0) {
+      throw new IllegalArgumentException("Volatility must not be negative: " + volatility);
+    }
+    this.random = random;
+    this.volatility = volatility;
+    this.clock = clock;
+  }
+
+  /**
+   * Moves the market's price one step and fills any resting orders it crosses.
+   *
+   * @param marketId the market id.
+   * @param seedPrice the starting price, used if this is the first time the market is seen.
+   * @return the market's new prices.
+   */
+  public synchronized Quote quote(String marketId, BigDecimal seedPrice) {
+    final Market market = getMarket(marketId, seedPrice);
+    market.lastPrice *= Math.exp(random.nextGaussian() * volatility);
+    matchRestingOrders(marketId, market);
+    return new Quote(market.last(), market.bid(), market.ask());
+  }
+
+  /**
+   * Places a limit order. The order fills straight away if it crosses the spread, else it rests.
+   *
+   * @param id the exchange order id; the caller picks it so it can match the exchange's format.
+   * @param clientOrderId the client order id; null if the client did not send one.
+   * @param marketId the market id.
+   * @param side buy or sell.
+   * @param price the limit price.
+   * @param amount the amount.
+   * @param seedPrice the starting price, used if this is the first time the market is seen.
+   * @return the order.
+   */
+  public synchronized MockOrder placeOrder(
+      String id,
+      String clientOrderId,
+      String marketId,
+      MockOrder.Side side,
+      BigDecimal price,
+      BigDecimal amount,
+      BigDecimal seedPrice) {
+    final Market market = getMarket(marketId, seedPrice);
+    final MockOrder order =
+        new MockOrder(id, clientOrderId, marketId, side, price, amount, clock.getAsLong());
+    if (crosses(order, market)) {
+      order.setStatus(MockOrder.Status.FILLED);
+    } else {
+      openOrders.put(id, order);
+    }
+    return order;
+  }
+
+  /**
+   * Cancels an open order.
+   *
+   * @param id the exchange order id.
+   * @return the cancelled order, or null if there is no open order with the id.
+   */
+  public synchronized MockOrder cancelOrder(String id) {
+    final MockOrder order = openOrders.remove(id);
+    if (order != null) {
+      order.setStatus(MockOrder.Status.CANCELLED);
+    }
+    return order;
+  }
+
+  /**
+   * Returns the open orders, oldest first.
+   *
+   * @param marketId the market to return orders for; null for all markets.
+   * @return the open orders.
+   */
+  public synchronized List<MockOrder> getOpenOrders(String marketId) {
+    final List<MockOrder> orders = new ArrayList<>();
+    for (final MockOrder order : openOrders.values()) {
+      if (marketId == null || marketId.equalsIgnoreCase(order.getMarketId())) {
+        orders.add(order);
+      }
+    }
+    return orders;
+  }
+
+  private Market getMarket(String marketId, BigDecimal seedPrice) {
+    return markets.computeIfAbsent(marketId, id -> new Market(seedPrice));
+  }
+
+  private void matchRestingOrders(String marketId, Market market) {
+    openOrders
+        .values()
+        .removeIf(
+            order -> {
+              if (order.getMarketId().equals(marketId) && crosses(order, market)) {
+                order.setStatus(MockOrder.Status.FILLED);
+                return true;
+              }
+              return false;
+            });
+  }
+
+  private static boolean crosses(MockOrder order, Market market) {
+    return order.getSide() == MockOrder.Side.BUY
+        ? order.getPrice().compareTo(market.ask()) >= 0
+        : order.getPrice().compareTo(market.bid()) <= 0;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.common.base.MoreObjects;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The mock exchange server's config.
+ *
+ * <p>Config is loaded from a properties file; every item is optional:
+ *
+ * <ul>
+ *   <li>{@code port} - the port to listen on; 0 picks a free port. Default 8090.
+ *   <li>{@code exchange-data-dir} - the directory holding the recorded exchange JSON. Default
+ *       {@code bxbot-exchanges/src/test/exchange-data}, relative to the working directory.
+ *   <li>{@code latency} - the added latency distribution, see {@link LatencyDistribution}.
+ *       Default none.
+ *   <li>{@code server-error-rate} - the fraction of requests that get a 503. Default 0.
+ *   <li>{@code too-many-requests-rate} - the fraction of requests that get a 429. Default 0.
+ *   <li>{@code connection-reset-rate} - the fraction of requests that get their connection reset.
+ *       Default 0.
+ *   <li>{@code price-volatility} - the standard deviation of the relative price move each time a
+ *       market is quoted. Default 0.001.
+ *   <li>{@code seed} - the seed for the random number generator, for repeatable runs. Default is a
+ *       different seed for every run.
+ * </ul>
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class MockExchangeConfig {
+
+  private static final int DEFAULT_PORT = 8090;
+  private static final String DEFAULT_EXCHANGE_DATA_DIR = "bxbot-exchanges/src/test/exchange-data";
+  private static final double DEFAULT_PRICE_VOLATILITY = 0.001;
+
+  private int port = DEFAULT_PORT;
+  private Path exchangeDataDir = Paths.get(DEFAULT_EXCHANGE_DATA_DIR);
+  private String latency = "none";
+  private double serverErrorRate;
+  private double tooManyRequestsRate;
+  private double connectionResetRate;
+  private double priceVolatility = DEFAULT_PRICE_VOLATILITY;
+  private Long seed;
+
+  /**
+   * Creates the config from properties.
+   *
+   * @param properties the properties.
+   * @return the config.
+   * @throws IllegalArgumentException if a property value is invalid.
+   */
+  public static MockExchangeConfig fromProperties(Properties properties) {
+    final MockExchangeConfig config = new MockExchangeConfig();
+    try {
+      config.setPort(Integer.parseInt(properties.getProperty("port", "" + DEFAULT_PORT).trim()));
+      config.setExchangeDataDir(
+          Paths.get(properties.getProperty("exchange-data-dir", DEFAULT_EXCHANGE_DATA_DIR).trim()));
+      config.setLatency(properties.getProperty("latency", "none"));
+      config.setServerErrorRate(parseDouble(properties, "server-error-rate", 0));
+      config.setTooManyRequestsRate(parseDouble(properties, "too-many-requests-rate", 0));
+      config.setConnectionResetRate(parseDouble(properties, "connection-reset-rate", 0));
+      config.setPriceVolatility(
+          parseDouble(properties, "price-volatility", DEFAULT_PRICE_VOLATILITY));
+      final String seed = properties.getProperty("seed");
+      if (seed != null && !seed.isBlank()) {
+        config.setSeed(Long.parseLong(seed.trim()));
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid mock exchange config: " + e.getMessage(), e);
+    }
+    return config;
+  }
+
+  public int getPort() {
+    return port;
+  }
+
+  public void setPort(int port) {
+    this.port = port;
+  }
+
+  public Path getExchangeDataDir() {
+    return exchangeDataDir;
+  }
+
+  public void setExchangeDataDir(Path exchangeDataDir) {
+    this.exchangeDataDir = exchangeDataDir;
+  }
+
+  public String getLatency() {
+    return latency;
+  }
+
+  public void setLatency(String latency) {
+    this.latency = latency;
+  }
+
+  public double getServerErrorRate() {
+    return serverErrorRate;
+  }
+
+  public void setServerErrorRate(double serverErrorRate) {
+    this.serverErrorRate = serverErrorRate;
+  }
+
+  public double getTooManyRequestsRate() {
+    return tooManyRequestsRate;
+  }
+
+  public void setTooManyRequestsRate(double tooManyRequestsRate) {
+    this.tooManyRequestsRate = tooManyRequestsRate;
+  }
+
+  public double getConnectionResetRate() {
+    return connectionResetRate;
+  }
+
+  public void setConnectionResetRate(double connectionResetRate) {
+    this.connectionResetRate = connectionResetRate;
+  }
+
+  public double getPriceVolatility() {
+    return priceVolatility;
+  }
+
+  public void setPriceVolatility(double priceVolatility) {
+    this.priceVolatility = priceVolatility;
+  }
+
+  public Long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(Long seed) {
+    this.seed = seed;
+  }
+
+  private static double parseDouble(Properties properties, String name, double defaultValue) {
+    final String value = properties.getProperty(name);
+    return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("port", port)
+        .add("exchangeDataDir", exchangeDataDir)
+        .add("latency", latency)
+        .add("serverErrorRate", serverErrorRate)
+        .add("tooManyRequestsRate", tooManyRequestsRate)
+        .add("connectionResetRate", connectionResetRate)
+        .add("priceVolatility", priceVolatility)
+        .add("seed", seed)
+        .toString();
+  }
+}
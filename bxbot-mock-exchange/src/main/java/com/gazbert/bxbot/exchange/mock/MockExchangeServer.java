@@ -0,0 +1,378 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A stand-alone HTTP server that mocks the REST APIs of the exchanges BX-bot has adapters for.
+ *
+ * <p>The first segment of the request path picks the exchange, so an adapter is pointed at the
+ * server by setting its {@code base-url} otherConfig item to e.g. {@code
+ * http://localhost:8090/bitstamp}. The supported exchanges are bitfinex, bitstamp, coinbasepro,
+ * gemini, itbit and kraken.
+ *
+ * <p>Only plain HTTP/1.1 is spoken; connections are kept alive between requests. Before each
+ * response the server waits for a latency sampled from the configured {@link
+ * LatencyDistribution}, then asks the {@link FaultInjector} whether to send an error or reset the
+ * connection instead.
+ *
+ * <p>Run it from the project root with: {@code java -cp <classpath>
+ * com.gazbert.bxbot.exchange.mock.MockExchangeServer [mock-exchange.properties]}
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class MockExchangeServer {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final int MAX_HEADER_LINE_LENGTH = 8192;
+  private static final String CRLF = "\r\n";
+
+  private final MockExchangeConfig config;
+  private final LatencyDistribution latencyDistribution;
+  private final FaultInjector faultInjector;
+  private final Random random;
+  private final Map<String, ExchangeSimulator> simulators = new HashMap<>();
+  private final Set<Socket> openConnections = ConcurrentHashMap.newKeySet();
+
+  private ServerSocket serverSocket;
+  private ExecutorService connectionExecutor;
+  private volatile boolean running;
+
+  /**
+   * Creates the server.
+   *
+   * @param config the config.
+   * @throws IllegalArgumentException if the config is invalid.
+   */
+  public MockExchangeServer(MockExchangeConfig config) {
+    this.config = config;
+    latencyDistribution = LatencyDistribution.parse(config.getLatency());
+    faultInjector =
+        new FaultInjector(
+            config.getServerErrorRate(),
+            config.getTooManyRequestsRate(),
+            config.getConnectionResetRate());
+    random = config.getSeed() == null ? new Random() : new Random(config.getSeed());
+
+    final MatchingEngine matchingEngine =
+        new MatchingEngine(random, config.getPriceVolatility(), System::currentTimeMillis);
+    addSimulator(new BitfinexSimulator(config.getExchangeDataDir(), matchingEngine));
+    addSimulator(new BitstampSimulator(config.getExchangeDataDir(), matchingEngine));
+    addSimulator(new CoinbaseProSimulator(config.getExchangeDataDir(), matchingEngine));
+    addSimulator(new GeminiSimulator(config.getExchangeDataDir(), matchingEngine));
+    addSimulator(new ItBitSimulator(config.getExchangeDataDir(), matchingEngine));
+    addSimulator(new KrakenSimulator(config.getExchangeDataDir(), matchingEngine));
+  }
+
+  /**
+   * Starts the server listening on localhost.
+   *
+   * @throws IOException if the server socket cannot be opened.
+   */
+  public synchronized void start() throws IOException {
+    if (running) {
+      return;
+    }
+    serverSocket = new ServerSocket();
+    serverSocket.setReuseAddress(true);
+    serverSocket.bind(new InetSocketAddress("localhost", config.getPort()));
+
+    final AtomicInteger threadCount = new AtomicInteger();
+    connectionExecutor =
+        Executors.newCachedThreadPool(
+            runnable -> {
+              final Thread thread =
+                  new Thread(runnable, "mock-exchange-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    running = true;
+    connectionExecutor.execute(this::acceptConnections);
+    LOG.info(() -> "Mock exchange listening on port " + getPort() + " with " + config);
+  }
+
+  /** Stops the server and closes all open connections. */
+  public synchronized void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    closeQuietly(serverSocket);
+    openConnections.forEach(MockExchangeServer::closeQuietly);
+    connectionExecutor.shutdownNow();
+    LOG.info(() -> "Mock exchange stopped");
+  }
+
+  /**
+   * Returns the port the server is listening on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Starts a mock exchange server.
+   *
+   * @param args an optional path to a properties file with the {@link MockExchangeConfig}.
+   * @throws IOException if the config cannot be read or the server cannot be started.
+   */
+  public static void main(String[] args) throws IOException {
+    final Properties properties = new Properties();
+    if (args.length > 0) {
+      try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+        properties.load(reader);
+      }
+    }
+    final MockExchangeServer server =
+        new MockExchangeServer(MockExchangeConfig.fromProperties(properties));
+    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    server.start();
+  }
+
+  private void addSimulator(ExchangeSimulator simulator) {
+    simulators.put(simulator.getName(), simulator);
+  }
+
+  private void acceptConnections() {
+    while (running) {
+      try {
+        final Socket socket = serverSocket.accept();
+        socket.setTcpNoDelay(true);
+        openConnections.add(socket);
+        connectionExecutor.execute(() -> serveConnection(socket));
+      } catch (IOException e) {
+        if (running) {
+          LOG.error("Failed to accept connection", e);
+        }
+      }
+    }
+  }
+
+  private void serveConnection(Socket socket) {
+    try (socket) {
+      final InputStream in = new BufferedInputStream(socket.getInputStream());
+      final OutputStream out = socket.getOutputStream();
+
+      while (running) {
+        final MockHttpRequest request = readRequest(in);
+        if (request == null) {
+          return; // client closed the connection
+        }
+
+        sleep(latencyDistribution.sampleMillis(random));
+
+        final FaultInjector.Fault fault = faultInjector.nextFault(random);
+        if (fault == FaultInjector.Fault.CONNECTION_RESET) {
+          LOG.debug(() -> "Resetting connection for " + request);
+          socket.setSoLinger(true, 0); // close() now sends a RST
+          return;
+        }
+
+        final MockHttpResponse response = respond(request, fault);
+        writeResponse(out, response);
+        if ("close".equalsIgnoreCase(request.getHeader("Connection"))) {
+          return;
+        }
+      }
+
+    } catch (SocketException e) {
+      LOG.debug(() -> "Connection closed: " + e.getMessage());
+    } catch (IOException e) {
+      LOG.warn("Connection failed", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      openConnections.remove(socket);
+    }
+  }
+
+  private MockHttpResponse respond(MockHttpRequest request, FaultInjector.Fault fault) {
+    switch (fault) {
+      case SERVER_ERROR:
+        return MockHttpResponse.error(503, "Service Unavailable");
+      case TOO_MANY_REQUESTS:
+        return MockHttpResponse.error(429, "Rate limit exceeded");
+      default:
+        break;
+    }
+
+    // The first path segment picks the exchange
+    final String path = stripSlashes(request.getPath());
+    final int exchangeEnd = path.indexOf('/');
+    final String exchange = exchangeEnd == -1 ? path : path.substring(0, exchangeEnd);
+    final ExchangeSimulator simulator = simulators.get(exchange);
+    if (simulator == null) {
+      return ExchangeSimulator.notFound(request);
+    }
+
+    try {
+      final String apiPath = exchangeEnd == -1 ? "" : path.substring(exchangeEnd + 1);
+      final MockHttpResponse response = simulator.handle(request, apiPath);
+      LOG.debug(() -> request + " -> " + response.getStatusCode());
+      return response;
+
+    } catch (IllegalArgumentException e) {
+      LOG.warn(() -> "Bad request " + request + ": " + e.getMessage());
+      return MockHttpResponse.error(400, e.getMessage());
+
+    } catch (RuntimeException e) {
+      LOG.error("Failed to handle " + request, e);
+      return MockHttpResponse.error(500, e.getMessage() == null ? e.toString() : e.getMessage());
+    }
+  }
+
+  private static MockHttpRequest readRequest(InputStream in) throws IOException {
+    final String requestLine = readLine(in);
+    if (requestLine == null || requestLine.isEmpty()) {
+      return null;
+    }
+    final String[] requestLineParts = requestLine.split(" ");
+    if (requestLineParts.length != 3) {
+      throw new IOException("Malformed request line: " + requestLine);
+    }
+
+    final Map<String, String> headers = new LinkedHashMap<>();
+    String headerLine;
+    while ((headerLine = readLine(in)) != null && !headerLine.isEmpty()) {
+      final int colon = headerLine.indexOf(':');
+      if (colon > 0) {
+        headers.put(headerLine.substring(0, colon).trim(), headerLine.substring(colon + 1).trim());
+      }
+    }
+
+    String body = "";
+    final String contentLength = findHeader(headers, "Content-Length");
+    if (contentLength != null) {
+      final byte[] bodyBytes = in.readNBytes(Integer.parseInt(contentLength));
+      body = new String(bodyBytes, StandardCharsets.UTF_8);
+    }
+    return new MockHttpRequest(requestLineParts[0], requestLineParts[1], headers, body);
+  }
+
+  private static void writeResponse(OutputStream out, MockHttpResponse response)
+      throws IOException {
+    final byte[] body = response.getBody().getBytes(StandardCharsets.UTF_8);
+    final StringBuilder head = new StringBuilder();
+    head.append("HTTP/1.1 ")
+        .append(response.getStatusCode())
+        .append(' ')
+        .append(response.getReasonPhrase())
+        .append(CRLF);
+    head.append("Content-Type: application/json").append(CRLF);
+    head.append("Content-Length: ").append(body.length).append(CRLF);
+    if (response.getStatusCode() == 429) {
+      head.append("Retry-After: 1").append(CRLF);
+    }
+    head.append(CRLF);
+    out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+    out.write(body);
+    out.flush();
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int b;
+    while ((b = in.read()) != -1) {
+      if (b == '\n') {
+        break;
+      }
+      if (b != '\r') {
+        line.write(b);
+      }
+      if (line.size() > MAX_HEADER_LINE_LENGTH) {
+        throw new IOException("Request header line too long");
+      }
+    }
+    if (b == -1 && line.size() == 0) {
+      return null;
+    }
+    return line.toString(StandardCharsets.ISO_8859_1);
+  }
+
+  private static String findHeader(Map<String, String> headers, String name) {
+    for (final Map.Entry<String, String> header : headers.entrySet()) {
+      if (header.getKey().equalsIgnoreCase(name)) {
+        return header.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static String stripSlashes(String path) {
+    int start = 0;
+    int end = path.length();
+    while (start < end && path.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      end--;
+    }
+    return path.substring(start, end);
+  }
+
+  private static void sleep(long millis) throws InterruptedException {
+    if (millis > 0) {
+      Thread.sleep(millis);
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // ignore - we're shutting down
+    }
+  }
+}
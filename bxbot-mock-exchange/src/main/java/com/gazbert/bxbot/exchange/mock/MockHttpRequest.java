@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An HTTP request received by the mock exchange.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class MockHttpRequest {
+
+  private final String method;
+  private final String path;
+  private final Map<String, String> queryParams;
+  private final Map<String, String> headers;
+  private final String body;
+  private Map<String, String> bodyParams;
+
+  /**
+   * Creates a request.
+   *
+   * @param method the HTTP method, e.g. GET.
+   * @param target the request target: the path plus optional query string.
+   * @param headers the request headers.
+   * @param body the request body; empty if there is none.
+   */
+  public MockHttpRequest(String method, String target, Map<String, String> headers, String body) {
+    this.method = method.toUpperCase(Locale.ENGLISH);
+    final int queryStart = target.indexOf('?');
+    if (queryStart == -1) {
+      path = target;
+      queryParams = Collections.emptyMap();
+    } else {
+      path = target.substring(0, queryStart);
+      queryParams = parseUrlEncoded(target.substring(queryStart + 1));
+    }
+    this.headers = new HashMap<>();
+    headers.forEach((name, value) -> this.headers.put(name.toLowerCase(Locale.ENGLISH), value));
+    this.body = body == null ? "" : body;
+  }
+
+  public String getMethod() {
+    return method;
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  /**
+   * Returns a request header.
+   *
+   * @param name the header name; case insensitive.
+   * @return the header value, or null if the request does not have it.
+   */
+  public String getHeader(String name) {
+    return headers.get(name.toLowerCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Returns a request param. The query string is checked first, then the body. Form encoded and
+   * JSON object bodies are supported; only top level JSON values are returned.
+   *
+   * @param name the param name.
+   * @return the param value, or null if the request does not have it.
+   */
+  public String getParam(String name) {
+    final String queryParam = queryParams.get(name);
+    if (queryParam != null) {
+      return queryParam;
+    }
+    return getBodyParams().get(name);
+  }
+
+  private synchronized Map<String, String> getBodyParams() {
+    if (bodyParams == null) {
+      bodyParams = parseBody(body);
+    }
+    return bodyParams;
+  }
+
+  private static Map<String, String> parseBody(String body) {
+    final String trimmedBody = body.trim();
+    if (trimmedBody.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    if (!trimmedBody.startsWith("{")) {
+      return parseUrlEncoded(trimmedBody);
+    }
+
+    final Map<String, String> params = new HashMap<>();
+    try {
+      final JsonObject json = JsonParser.parseString(trimmedBody).getAsJsonObject();
+      for (final Map.Entry<String, JsonElement> member : json.entrySet()) {
+        if (member.getValue().isJsonPrimitive()) {
+          params.put(member.getKey(), member.getValue().getAsString());
+        }
+      }
+    } catch (JsonParseException | IllegalStateException e) {
+      // Not a JSON object; treat as having no params.
+    }
+    return params;
+  }
+
+  private static Map<String, String> parseUrlEncoded(String encoded) {
+    final Map<String, String> params = new HashMap<>();
+    for (final String pair : encoded.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      final int equalsIndex = pair.indexOf('=');
+      final String name = equalsIndex == -1 ? pair : pair.substring(0, equalsIndex);
+      final String value = equalsIndex == -1 ? "" : pair.substring(equalsIndex + 1);
+      params.put(
+          URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return params;
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + path;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import com.google.gson.JsonElement;
+
+/**
+ * An HTTP response sent by the mock exchange. Bodies are always JSON.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class MockHttpResponse {
+
+  private final int statusCode;
+  private final String body;
+
+  /**
+   * Creates a response.
+   *
+   * @param statusCode the HTTP status code.
+   * @param body the JSON body.
+   */
+  public MockHttpResponse(int statusCode, String body) {
+    this.statusCode = statusCode;
+    this.body = body;
+  }
+
+  /**
+   * Creates a 200 OK response.
+   *
+   * @param body the JSON body.
+   * @return the response.
+   */
+  public static MockHttpResponse ok(JsonElement body) {
+    return new MockHttpResponse(200, body.toString());
+  }
+
+  /**
+   * Creates an error response with a JSON message body.
+   *
+   * @param statusCode the HTTP status code.
+   * @param message the error message.
+   * @return the response.
+   */
+  public static MockHttpResponse error(int statusCode, String message) {
+    return new MockHttpResponse(
+        statusCode, "{\"message\":\"" + message.replace("\"", "'") + "\"}");
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public String getBody() {
+    return body;
+  }
+
+  /**
+   * Returns the reason phrase for the status code.
+   *
+   * @return the reason phrase.
+   */
+  public String getReasonPhrase() {
+    switch (statusCode) {
+      case 200:
+        return "OK";
+      case 201:
+        return "Created";
+      case 202:
+        return "Accepted";
+      case 400:
+        return "Bad Request";
+      case 404:
+        return "Not Found";
+      case 429:
+        return "Too Many Requests";
+      case 500:
+        return "Internal Server Error";
+      case 503:
+        return "Service Unavailable";
+      default:
+        return "Status " + statusCode;
+    }
+  }
+}
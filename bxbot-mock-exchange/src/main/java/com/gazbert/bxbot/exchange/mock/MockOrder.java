@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import java.math.BigDecimal;
+
+/**
+ * An order held by the mock exchange's {@link MatchingEngine}.
+ *
+ * <p>Orders are filled in full or not at all. The status fields are guarded by the matching
+ * engine's lock.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public class MockOrder {
+
+  /** The side of the book an order is on. */
+  public enum Side {
+    BUY,
+    SELL
+  }
+
+  /** The status of an order. */
+  public enum Status {
+    OPEN,
+    FILLED,
+    CANCELLED
+  }
+
+  private final String id;
+  private final String clientOrderId;
+  private final String marketId;
+  private final Side side;
+  private final BigDecimal price;
+  private final BigDecimal amount;
+  private final long createdMillis;
+  private volatile Status status = Status.OPEN;
+
+  MockOrder(
+      String id,
+      String clientOrderId,
+      String marketId,
+      Side side,
+      BigDecimal price,
+      BigDecimal amount,
+      long createdMillis) {
+    this.id = id;
+    this.clientOrderId = clientOrderId;
+    this.marketId = marketId;
+    this.side = side;
+    this.price = price;
+    this.amount = amount;
+    this.createdMillis = createdMillis;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getClientOrderId() {
+    return clientOrderId;
+  }
+
+  public String getMarketId() {
+    return marketId;
+  }
+
+  public Side getSide() {
+    return side;
+  }
+
+  public BigDecimal getPrice() {
+    return price;
+  }
+
+  public BigDecimal getAmount() {
+    return amount;
+  }
+
+  public long getCreatedMillis() {
+    return createdMillis;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  void setStatus(Status status) {
+    this.status = status;
+  }
+
+  @Override
+  public String toString() {
+    return side + " " + amount + " " + marketId + " @ " + price + " [" + id + ", " + status + "]";
+  }
+}
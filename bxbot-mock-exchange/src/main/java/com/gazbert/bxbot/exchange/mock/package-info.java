@@ -0,0 +1,40 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+/**
+ * A stand-alone mock exchange HTTP server for load and soak testing the bot.
+ *
+ * <p>The server speaks just enough of the REST APIs used by the bundled Exchange Adapters to run a
+ * whole bot against it. Responses are built from the recorded exchange JSON the adapter unit tests
+ * use. Created orders go into a simple matching engine and fill as the simulated price moves.
+ * Latency and faults (5xx, 429, connection resets) can be injected to exercise the adapters'
+ * retry and backoff handling.
+ *
+ * <p>Point an adapter at the server by setting the {@code base-url} item in its {@code
+ * otherConfig} section of the exchange.yaml config, e.g. {@code http://localhost:8090/bitstamp}.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+package com.gazbert.bxbot.exchange.mock;
@@ -0,0 +1,123 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Tests the mock exchange's latency distributions and fault injector behave as expected.
+ *
+ * @author gazbert
+ */
+public class TestLatencyDistribution {
+
+  private static final int SAMPLE_COUNT = 10_000;
+
+  @Test
+  public void testNoneAddsNoLatency() {
+    assertEquals(0, LatencyDistribution.parse("none").sampleMillis(new Random()));
+    assertEquals(0, LatencyDistribution.parse(null).sampleMillis(new Random()));
+    assertEquals(0, LatencyDistribution.parse(" ").sampleMillis(new Random()));
+  }
+
+  @Test
+  public void testFixedLatency() {
+    assertEquals(50, LatencyDistribution.parse("fixed:50").sampleMillis(new Random()));
+  }
+
+  @Test
+  public void testUniformLatencyStaysInRange() {
+    final LatencyDistribution distribution = LatencyDistribution.parse("uniform:10, 20");
+    final Random random = new Random(1);
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      final long latency = distribution.sampleMillis(random);
+      assertTrue(latency >= 10 && latency <= 20);
+    }
+  }
+
+  @Test
+  public void testNormalLatencyIsNeverNegative() {
+    final LatencyDistribution distribution = LatencyDistribution.parse("NORMAL:5,50");
+    final Random random = new Random(1);
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      assertTrue(distribution.sampleMillis(random) >= 0);
+    }
+  }
+
+  @Test
+  public void testLogNormalLatencyHasMedianAndLongTail() {
+    final LatencyDistribution distribution = LatencyDistribution.parse("lognormal:50,0.5");
+    final Random random = new Random(1);
+    int belowMedian = 0;
+    long max = 0;
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      final long latency = distribution.sampleMillis(random);
+      if (latency < 50) {
+        belowMedian++;
+      }
+      max = Math.max(max, latency);
+    }
+    assertTrue(belowMedian > SAMPLE_COUNT * 0.45 && belowMedian < SAMPLE_COUNT * 0.55);
+    assertTrue(max > 150);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownDistributionIsRejected() {
+    LatencyDistribution.parse("pareto:1,2");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrongArgCountIsRejected() {
+    LatencyDistribution.parse("uniform:10");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonNumericArgIsRejected() {
+    LatencyDistribution.parse("fixed:fast");
+  }
+
+  @Test
+  public void testFaultInjectorPicksFaultsAtConfiguredRates() {
+    final FaultInjector faultInjector = new FaultInjector(0.1, 0.2, 0.3);
+    final Random random = new Random(1);
+    final int[] counts = new int[FaultInjector.Fault.values().length];
+    for (int i = 0; i < SAMPLE_COUNT; i++) {
+      counts[faultInjector.nextFault(random).ordinal()]++;
+    }
+    assertEquals(0.1, counts[FaultInjector.Fault.SERVER_ERROR.ordinal()] / 10_000.0, 0.02);
+    assertEquals(0.2, counts[FaultInjector.Fault.TOO_MANY_REQUESTS.ordinal()] / 10_000.0, 0.02);
+    assertEquals(0.3, counts[FaultInjector.Fault.CONNECTION_RESET.ordinal()] / 10_000.0, 0.02);
+    assertEquals(0.4, counts[FaultInjector.Fault.NONE.ordinal()] / 10_000.0, 0.02);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFaultRatesMustNotSumToMoreThanOne() {
+    new FaultInjector(0.5, 0.5, 0.1);
+  }
+}
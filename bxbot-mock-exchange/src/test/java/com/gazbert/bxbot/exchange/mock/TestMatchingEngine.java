@@ -0,0 +1,136 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the mock exchange's matching engine behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestMatchingEngine {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final BigDecimal SEED_PRICE = new BigDecimal("100.00");
+  private static final BigDecimal AMOUNT = new BigDecimal("0.5");
+
+  private MatchingEngine matchingEngine;
+
+  @Before
+  public void setupForEachTest() {
+    // Zero volatility keeps the price at the seed: bid 99.95, ask 100.05
+    matchingEngine = new MatchingEngine(new Random(42), 0, () -> 1000L);
+  }
+
+  @Test
+  public void testQuoteStartsAtSeedPrice() {
+    final MatchingEngine.Quote quote = matchingEngine.quote(MARKET_ID, SEED_PRICE);
+    assertEquals(0, quote.getLast().compareTo(SEED_PRICE));
+    assertEquals(0, quote.getBid().compareTo(new BigDecimal("99.95")));
+    assertEquals(0, quote.getAsk().compareTo(new BigDecimal("100.05")));
+  }
+
+  @Test
+  public void testPriceWalksWhenVolatilityIsSet() {
+    matchingEngine = new MatchingEngine(new Random(42), 0.01, () -> 1000L);
+    final BigDecimal firstPrice = matchingEngine.quote(MARKET_ID, SEED_PRICE).getLast();
+    final BigDecimal secondPrice = matchingEngine.quote(MARKET_ID, SEED_PRICE).getLast();
+    assertTrue(firstPrice.compareTo(secondPrice) != 0);
+  }
+
+  @Test
+  public void testBuyOrderAtOrAboveAskFillsImmediately() {
+    final MockOrder order = placeOrder("1", MockOrder.Side.BUY, "100.05");
+    assertEquals(MockOrder.Status.FILLED, order.getStatus());
+    assertTrue(matchingEngine.getOpenOrders(MARKET_ID).isEmpty());
+  }
+
+  @Test
+  public void testSellOrderAtOrBelowBidFillsImmediately() {
+    final MockOrder order = placeOrder("1", MockOrder.Side.SELL, "99.95");
+    assertEquals(MockOrder.Status.FILLED, order.getStatus());
+    assertTrue(matchingEngine.getOpenOrders(MARKET_ID).isEmpty());
+  }
+
+  @Test
+  public void testOrdersInsideTheSpreadRest() {
+    final MockOrder buyOrder = placeOrder("1", MockOrder.Side.BUY, "99.00");
+    final MockOrder sellOrder = placeOrder("2", MockOrder.Side.SELL, "101.00");
+
+    final List<MockOrder> openOrders = matchingEngine.getOpenOrders(MARKET_ID);
+    assertEquals(2, openOrders.size());
+    assertSame(buyOrder, openOrders.get(0));
+    assertSame(sellOrder, openOrders.get(1));
+    assertEquals(MockOrder.Status.OPEN, buyOrder.getStatus());
+    assertEquals(1000L, buyOrder.getCreatedMillis());
+    assertTrue(matchingEngine.getOpenOrders("ltcusd").isEmpty());
+    assertEquals(2, matchingEngine.getOpenOrders(null).size());
+  }
+
+  @Test
+  public void testRestingOrderFillsWhenPriceMovesThroughIt() {
+    matchingEngine = new MatchingEngine(new Random(42), 0.05, () -> 1000L);
+    final MockOrder order = placeOrder("1", MockOrder.Side.BUY, "99.00");
+    assertEquals(MockOrder.Status.OPEN, order.getStatus());
+
+    // Keep quoting until the random walk takes the ask down through the order
+    for (int i = 0; i < 1000 && order.getStatus() == MockOrder.Status.OPEN; i++) {
+      matchingEngine.quote(MARKET_ID, SEED_PRICE);
+    }
+
+    assertEquals(MockOrder.Status.FILLED, order.getStatus());
+    assertTrue(matchingEngine.getOpenOrders(MARKET_ID).isEmpty());
+  }
+
+  @Test
+  public void testCancelOpenOrder() {
+    final MockOrder order = placeOrder("1", MockOrder.Side.SELL, "101.00");
+    assertSame(order, matchingEngine.cancelOrder("1"));
+    assertEquals(MockOrder.Status.CANCELLED, order.getStatus());
+    assertTrue(matchingEngine.getOpenOrders(MARKET_ID).isEmpty());
+  }
+
+  @Test
+  public void testCancelUnknownOrFilledOrderReturnsNull() {
+    placeOrder("1", MockOrder.Side.BUY, "200.00");
+    assertNull(matchingEngine.cancelOrder("1"));
+    assertNull(matchingEngine.cancelOrder("unknown-id"));
+  }
+
+  private MockOrder placeOrder(String id, MockOrder.Side side, String price) {
+    return matchingEngine.placeOrder(
+        id, null, MARKET_ID, side, new BigDecimal(price), AMOUNT, SEED_PRICE);
+  }
+}
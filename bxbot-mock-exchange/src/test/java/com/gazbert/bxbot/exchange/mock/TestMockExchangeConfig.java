@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.file.Paths;
+import java.util.Properties;
+import org.junit.Test;
+
+/**
+ * Tests the mock exchange config is loaded as expected.
+ *
+ * @author gazbert
+ */
+public class TestMockExchangeConfig {
+
+  @Test
+  public void testDefaultsAreUsedForMissingProperties() {
+    final MockExchangeConfig config = MockExchangeConfig.fromProperties(new Properties());
+    assertEquals(8090, config.getPort());
+    assertEquals(Paths.get("bxbot-exchanges/src/test/exchange-data"), config.getExchangeDataDir());
+    assertEquals("none", config.getLatency());
+    assertEquals(0, config.getServerErrorRate(), 0);
+    assertEquals(0, config.getTooManyRequestsRate(), 0);
+    assertEquals(0, config.getConnectionResetRate(), 0);
+    assertEquals(0.001, config.getPriceVolatility(), 0);
+    assertNull(config.getSeed());
+  }
+
+  @Test
+  public void testPropertiesAreLoaded() {
+    final Properties properties = new Properties();
+    properties.setProperty("port", "9000");
+    properties.setProperty("exchange-data-dir", "/tmp/exchange-data");
+    properties.setProperty("latency", "lognormal:50,0.5");
+    properties.setProperty("server-error-rate", "0.01");
+    properties.setProperty("too-many-requests-rate", "0.02");
+    properties.setProperty("connection-reset-rate", " 0.03 ");
+    properties.setProperty("price-volatility", "0.005");
+    properties.setProperty("seed", "42");
+
+    final MockExchangeConfig config = MockExchangeConfig.fromProperties(properties);
+    assertEquals(9000, config.getPort());
+    assertEquals(Paths.get("/tmp/exchange-data"), config.getExchangeDataDir());
+    assertEquals("lognormal:50,0.5", config.getLatency());
+    assertEquals(0.01, config.getServerErrorRate(), 0);
+    assertEquals(0.02, config.getTooManyRequestsRate(), 0);
+    assertEquals(0.03, config.getConnectionResetRate(), 0);
+    assertEquals(0.005, config.getPriceVolatility(), 0);
+    assertEquals(Long.valueOf(42), config.getSeed());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidNumberIsRejected() {
+    final Properties properties = new Properties();
+    properties.setProperty("server-error-rate", "lots");
+    MockExchangeConfig.fromProperties(properties);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testServerRejectsInvalidFaultRate() {
+    final MockExchangeConfig config = new MockExchangeConfig();
+    config.setConnectionResetRate(1.5);
+    new MockExchangeServer(config);
+  }
+}
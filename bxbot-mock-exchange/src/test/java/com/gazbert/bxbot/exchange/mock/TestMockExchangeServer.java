@@ -0,0 +1,297 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.exchange.mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.gazbert.bxbot.exchange.api.AuthenticationConfig;
+import com.gazbert.bxbot.exchange.api.ExchangeAdapter;
+import com.gazbert.bxbot.exchange.api.ExchangeConfig;
+import com.gazbert.bxbot.exchange.api.NetworkConfig;
+import com.gazbert.bxbot.exchange.api.OtherConfig;
+import com.gazbert.bxbot.exchanges.BitfinexExchangeAdapter;
+import com.gazbert.bxbot.exchanges.BitstampExchangeAdapter;
+import com.gazbert.bxbot.exchanges.CoinbaseProExchangeAdapter;
+import com.gazbert.bxbot.exchanges.GeminiExchangeAdapter;
+import com.gazbert.bxbot.exchanges.ItBitExchangeAdapter;
+import com.gazbert.bxbot.exchanges.KrakenExchangeAdapter;
+import com.gazbert.bxbot.trading.api.BalanceInfo;
+import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.MarketOrderBook;
+import com.gazbert.bxbot.trading.api.OpenOrder;
+import com.gazbert.bxbot.trading.api.OrderType;
+import com.gazbert.bxbot.trading.api.TradingApi;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the mock exchange server by running the real Exchange Adapters against it.
+ *
+ * @author gazbert
+ */
+public class TestMockExchangeServer {
+
+  // Base64 so that it can be used as the Coinbase Pro and Kraken secret too.
+  private static final String SECRET = "bW9jay1leGNoYW5nZS1zZWNyZXQ=";
+
+  private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+  private MockExchangeServer server;
+
+  /** Stops the mock exchange server after each test. */
+  @After
+  public void tearDownAfterEachTest() {
+    if (server != null) {
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testBitfinexTradingCycle() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertTradingCycle(createAdapter(new BitfinexExchangeAdapter(), "bitfinex"), "btcusd");
+  }
+
+  @Test
+  public void testBitstampTradingCycle() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertTradingCycle(createAdapter(new BitstampExchangeAdapter(), "bitstamp"), "btcusd");
+  }
+
+  @Test
+  public void testCoinbaseProTradingCycle() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertTradingCycle(createAdapter(new CoinbaseProExchangeAdapter(), "coinbasepro"), "BTC-GBP");
+  }
+
+  @Test
+  public void testGeminiTradingCycle() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertTradingCycle(createAdapter(new GeminiExchangeAdapter(), "gemini"), "btcusd");
+  }
+
+  @Test
+  public void testItBitTradingCycle() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertTradingCycle(createAdapter(new ItBitExchangeAdapter(), "itbit"), "XBTUSD");
+  }
+
+  @Test
+  public void testKrakenTradingCycle() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertTradingCycle(createAdapter(new KrakenExchangeAdapter(), "kraken"), "XBTUSD");
+  }
+
+  @Test
+  public void testUnknownExchangeGets404() throws Exception {
+    startServer(new MockExchangeConfig());
+    assertEquals(404, getStatusCode("/unknown/ticker"));
+    assertEquals(404, getStatusCode("/bitstamp/api/v2/unknown"));
+  }
+
+  @Test
+  public void testRequestWithMissingParamGets400() throws Exception {
+    startServer(new MockExchangeConfig());
+    final HttpURLConnection connection =
+        (HttpURLConnection)
+            new URL("http://localhost:" + server.getPort() + "/bitstamp/api/v2/buy/btcusd/")
+                .openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    try (OutputStream out = connection.getOutputStream()) {
+      out.write("amount=0.1".getBytes(StandardCharsets.UTF_8));
+    }
+    assertEquals(400, connection.getResponseCode());
+    connection.disconnect();
+  }
+
+  @Test
+  public void testServerErrorsAreInjected() throws Exception {
+    final MockExchangeConfig config = new MockExchangeConfig();
+    config.setServerErrorRate(1);
+    startServer(config);
+    assertEquals(503, getStatusCode("/bitstamp/api/v2/ticker/btcusd"));
+  }
+
+  @Test
+  public void testTooManyRequestsErrorsAreInjected() throws Exception {
+    final MockExchangeConfig config = new MockExchangeConfig();
+    config.setTooManyRequestsRate(1);
+    startServer(config);
+    assertEquals(429, getStatusCode("/bitstamp/api/v2/ticker/btcusd"));
+  }
+
+  @Test(expected = ExchangeNetworkException.class)
+  public void testConnectionResetsMatchNonFatalErrorMessages() throws Exception {
+    final MockExchangeConfig config = new MockExchangeConfig();
+    config.setConnectionResetRate(1);
+    startServer(config);
+    createAdapter(new BitstampExchangeAdapter(), "bitstamp").getLatestMarketPrice("btcusd");
+  }
+
+  @Test
+  public void testLatencyIsAdded() throws Exception {
+    final MockExchangeConfig config = new MockExchangeConfig();
+    config.setLatency("fixed:100");
+    startServer(config);
+
+    final long startMillis = System.currentTimeMillis();
+    assertEquals(200, getStatusCode("/bitstamp/api/v2/ticker/btcusd"));
+    assertTrue(System.currentTimeMillis() - startMillis >= 100);
+  }
+
+  private void startServer(MockExchangeConfig config) throws IOException {
+    config.setPort(0);
+    // Tests run from the module directory
+    config.setExchangeDataDir(Paths.get("../bxbot-exchanges/src/test/exchange-data"));
+    config.setSeed(42L);
+    server = new MockExchangeServer(config);
+    server.start();
+  }
+
+  private TradingApi createAdapter(ExchangeAdapter exchangeAdapter, String exchange) {
+    exchangeAdapter.init(
+        new MockExchangeAdapterConfig("http://localhost:" + server.getPort() + "/" + exchange));
+    return exchangeAdapter;
+  }
+
+  private static void assertTradingCycle(TradingApi tradingApi, String marketId)
+      throws Exception {
+    final BigDecimal lastPrice = tradingApi.getLatestMarketPrice(marketId);
+    assertTrue(lastPrice.compareTo(BigDecimal.ZERO) > 0);
+
+    final MarketOrderBook orderBook = tradingApi.getMarketOrders(marketId);
+    assertFalse(orderBook.getBuyOrders().isEmpty());
+    assertFalse(orderBook.getSellOrders().isEmpty());
+
+    final BalanceInfo balanceInfo = tradingApi.getBalanceInfo();
+    assertNotNull(balanceInfo.getBalancesAvailable());
+
+    // A buy well under the market rests on the book until cancelled...
+    final BigDecimal lowPrice = lastPrice.divide(new BigDecimal("2"), 2, RoundingMode.HALF_EVEN);
+    final String restingOrderId = tradingApi.createOrder(marketId, OrderType.BUY, AMOUNT, lowPrice);
+    assertTrue(containsOrder(tradingApi.getYourOpenOrders(marketId), restingOrderId));
+    assertTrue(tradingApi.cancelOrder(restingOrderId, marketId));
+    assertFalse(containsOrder(tradingApi.getYourOpenOrders(marketId), restingOrderId));
+
+    // ...and a buy well over the market fills straight away.
+    final BigDecimal highPrice = lastPrice.multiply(new BigDecimal("2"));
+    final String filledOrderId = tradingApi.createOrder(marketId, OrderType.BUY, AMOUNT, highPrice);
+    assertFalse(containsOrder(tradingApi.getYourOpenOrders(marketId), filledOrderId));
+  }
+
+  private static boolean containsOrder(List<OpenOrder> openOrders, String orderId) {
+    return openOrders.stream().anyMatch(openOrder -> openOrder.getId().equals(orderId));
+  }
+
+  private int getStatusCode(String path) throws IOException {
+    final HttpURLConnection connection =
+        (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    try {
+      return connection.getResponseCode();
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+  /** Exchange config pointing an adapter at the mock exchange. */
+  private static class MockExchangeAdapterConfig
+      implements ExchangeConfig, AuthenticationConfig, NetworkConfig, OtherConfig {
+
+    private final Map<String, String> items = new HashMap<>();
+
+    MockExchangeAdapterConfig(String baseUrl) {
+      items.put("key", "mock-api-key");
+      items.put("secret", SECRET);
+      items.put("client-id", "123456");
+      items.put("userId", "mock-user-id");
+      items.put("passphrase", "mock-passphrase");
+      items.put("buy-fee", "0.25");
+      items.put("sell-fee", "0.25");
+      items.put("time-server-bias", "0");
+      items.put("keep-alive-during-maintenance", "false");
+      items.put("base-url", baseUrl);
+    }
+
+    @Override
+    public String getExchangeName() {
+      return "Mock Exchange";
+    }
+
+    @Override
+    public String getExchangeAdapter() {
+      return null;
+    }
+
+    @Override
+    public AuthenticationConfig getAuthenticationConfig() {
+      return this;
+    }
+
+    @Override
+    public NetworkConfig getNetworkConfig() {
+      return this;
+    }
+
+    @Override
+    public OtherConfig getOtherConfig() {
+      return this;
+    }
+
+    @Override
+    public String getItem(String name) {
+      return items.get(name);
+    }
+
+    @Override
+    public List<Integer> getNonFatalErrorCodes() {
+      return List.of(429, 503);
+    }
+
+    @Override
+    public List<String> getNonFatalErrorMessages() {
+      return List.of("Connection reset", "Connection reset by peer");
+    }
+
+    @Override
+    public Integer getConnectionTimeout() {
+      return 10;
+    }
+  }
+}
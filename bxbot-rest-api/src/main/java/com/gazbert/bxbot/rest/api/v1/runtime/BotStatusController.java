@@ -86,6 +86,7 @@ public class BotStatusController {
     botStatus.setDisplayName(engineConfig.getBotName());
     botStatus.setStatus(status);
     botStatus.setDatetime(new Date());
+    botStatus.setExchangeCircuitBreakerState(botStatusService.getExchangeCircuitBreakerState());
 
     LOG.info(() -> "Response: " + botStatus);
     return botStatus;
@@ -0,0 +1,87 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.rest.api.v1.runtime;
+
+import static com.gazbert.bxbot.rest.api.v1.EndpointLocations.RUNTIME_ENDPOINT_BASE_URI;
+
+import com.gazbert.bxbot.domain.bot.ExchangeLatency;
+import com.gazbert.bxbot.services.runtime.ExchangeLatencyService;
+import io.swagger.annotations.Api;
+import java.security.Principal;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import springfox.documentation.annotations.ApiIgnore;
+
+/**
+ * Controller for directing Exchange Latency requests.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+@Api(tags = {"Exchange Latency"})
+@RestController
+@RequestMapping(RUNTIME_ENDPOINT_BASE_URI)
+public class ExchangeLatencyController {
+
+  private static final Logger LOG = LogManager.getLogger();
+  private static final String EXCHANGE_LATENCY_RESOURCE_PATH = "/exchange-latency";
+
+  private final ExchangeLatencyService exchangeLatencyService;
+
+  @Autowired
+  public ExchangeLatencyController(ExchangeLatencyService exchangeLatencyService) {
+    this.exchangeLatencyService = exchangeLatencyService;
+  }
+
+  /**
+   * Returns the latency of the Exchange Adapter's Trading API calls: the p50, p99, p999 and max in
+   * millis, for every method, outcome and phase timed since the bot started.
+   *
+   * @param principal the authenticated user making the request.
+   * @return the latencies.
+   */
+  @PreAuthorize("hasRole('USER')")
+  @GetMapping(value = EXCHANGE_LATENCY_RESOURCE_PATH)
+  public List<ExchangeLatency> getExchangeLatencies(@ApiIgnore Principal principal) {
+
+    LOG.info(
+        () ->
+            "GET "
+                + EXCHANGE_LATENCY_RESOURCE_PATH
+                + " - getExchangeLatencies() - caller: "
+                + principal.getName());
+
+    final List<ExchangeLatency> exchangeLatencies = exchangeLatencyService.getExchangeLatencies();
+
+    LOG.info(() -> "Response: " + exchangeLatencies);
+    return exchangeLatencies;
+  }
+}
@@ -65,6 +65,7 @@ public class TestBotStatusController extends AbstractRuntimeControllerTest {
   private static final String BOT_ID = "avro-707_1";
   private static final String BOT_NAME = "Avro 707";
   private static final String BOT_STATUS = "UP";
+  private static final String EXCHANGE_CIRCUIT_BREAKER_STATE = "CLOSED";
 
   private static final String ENGINE_EMERGENCY_STOP_CURRENCY = "BTC";
   private static final BigDecimal ENGINE_EMERGENCY_STOP_BALANCE = new BigDecimal("0.9232320");
@@ -88,6 +89,8 @@ public class TestBotStatusController extends AbstractRuntimeControllerTest {
   @Test
   public void testGetBotStatusWithValidToken() throws Exception {
     given(botStatusService.getStatus()).willReturn(BOT_STATUS);
+    given(botStatusService.getExchangeCircuitBreakerState())
+        .willReturn(EXCHANGE_CIRCUIT_BREAKER_STATE);
     given(engineConfigService.getEngineConfig()).willReturn(someEngineConfig());
 
     mockMvc
@@ -100,7 +103,8 @@ public class TestBotStatusController extends AbstractRuntimeControllerTest {
         .andExpect(jsonPath("$.botId").value(BOT_ID))
         .andExpect(jsonPath("$.displayName").value(BOT_NAME))
         .andExpect(jsonPath("$.status").value(BOT_STATUS))
-        .andExpect(jsonPath("$.datetime").isNotEmpty());
+        .andExpect(jsonPath("$.datetime").isNotEmpty())
+        .andExpect(jsonPath("$.exchangeCircuitBreakerState").value(EXCHANGE_CIRCUIT_BREAKER_STATE));
 
     verify(engineConfigService, times(1)).getEngineConfig();
   }
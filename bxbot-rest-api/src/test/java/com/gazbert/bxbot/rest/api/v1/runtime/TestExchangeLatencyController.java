@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.rest.api.v1.runtime;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.gazbert.bxbot.core.engine.TradingEngine;
+import com.gazbert.bxbot.core.mail.EmailAlerter;
+import com.gazbert.bxbot.domain.bot.ExchangeLatency;
+import com.gazbert.bxbot.services.runtime.ExchangeLatencyService;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.actuate.logging.LogFileWebEndpoint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.context.restart.RestartEndpoint;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+/**
+ * Tests the Exchange Latency controller behaviour.
+ *
+ * @author gazbert
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@WebAppConfiguration
+public class TestExchangeLatencyController extends AbstractRuntimeControllerTest {
+
+  private static final String EXCHANGE_LATENCY_ENDPOINT_URI =
+      RUNTIME_ENDPOINT_BASE_URI + "/exchange-latency";
+
+  private static final String ADAPTER = "Bitstamp REST API v2";
+  private static final String TRADING_API_METHOD = "createOrder";
+  private static final String OUTCOME = "OK";
+  private static final String PHASE = "FIRST_BYTE";
+  private static final int COUNT = 120;
+  private static final double P50_MILLIS = 41.5;
+  private static final double P99_MILLIS = 180.0;
+  private static final double P999_MILLIS = 950.25;
+  private static final double MAX_MILLIS = 1203.5;
+
+  @MockBean private ExchangeLatencyService exchangeLatencyService;
+
+  // Need these even though not used in the test directly because Spring loads it on startup...
+  @MockBean private TradingEngine tradingEngine;
+  @MockBean private EmailAlerter emailAlerter;
+  @MockBean private RestartEndpoint restartEndpoint;
+  @MockBean private LogFileWebEndpoint logFileWebEndpoint;
+  @MockBean private AuthenticationManager authenticationManager;
+
+  @Before
+  public void setupBeforeEachTest() {
+    mockMvc = MockMvcBuilders.webAppContextSetup(ctx).addFilter(springSecurityFilterChain).build();
+  }
+
+  @Test
+  public void testGetExchangeLatenciesWithValidToken() throws Exception {
+    given(exchangeLatencyService.getExchangeLatencies())
+        .willReturn(Collections.singletonList(someExchangeLatency()));
+
+    mockMvc
+        .perform(
+            get(EXCHANGE_LATENCY_ENDPOINT_URI)
+                .header(
+                    "Authorization", "Bearer " + getJwt(VALID_USER_NAME, VALID_USER_PASSWORD)))
+        .andDo(print())
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.[0].adapter").value(ADAPTER))
+        .andExpect(jsonPath("$.[0].tradingApiMethod").value(TRADING_API_METHOD))
+        .andExpect(jsonPath("$.[0].outcome").value(OUTCOME))
+        .andExpect(jsonPath("$.[0].phase").value(PHASE))
+        .andExpect(jsonPath("$.[0].count").value(COUNT))
+        .andExpect(jsonPath("$.[0].p50Millis").value(P50_MILLIS))
+        .andExpect(jsonPath("$.[0].p99Millis").value(P99_MILLIS))
+        .andExpect(jsonPath("$.[0].p999Millis").value(P999_MILLIS))
+        .andExpect(jsonPath("$.[0].maxMillis").value(MAX_MILLIS));
+
+    verify(exchangeLatencyService, times(1)).getExchangeLatencies();
+  }
+
+  @Test
+  public void testGetExchangeLatenciesWhenUnauthorizedWithInvalidToken() throws Exception {
+    mockMvc
+        .perform(
+            get(EXCHANGE_LATENCY_ENDPOINT_URI)
+                .header("Authorization", "Bearer junk.web.token")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  public void testGetExchangeLatenciesWhenUnauthorizedWithMissingToken() throws Exception {
+    mockMvc
+        .perform(get(EXCHANGE_LATENCY_ENDPOINT_URI).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isUnauthorized());
+  }
+
+  // --------------------------------------------------------------------------
+  // Private utils
+  // --------------------------------------------------------------------------
+
+  private static ExchangeLatency someExchangeLatency() {
+    final ExchangeLatency exchangeLatency = new ExchangeLatency();
+    exchangeLatency.setAdapter(ADAPTER);
+    exchangeLatency.setTradingApiMethod(TRADING_API_METHOD);
+    exchangeLatency.setOutcome(OUTCOME);
+    exchangeLatency.setPhase(PHASE);
+    exchangeLatency.setCount(COUNT);
+    exchangeLatency.setP50Millis(P50_MILLIS);
+    exchangeLatency.setP99Millis(P99_MILLIS);
+    exchangeLatency.setP999Millis(P999_MILLIS);
+    exchangeLatency.setMaxMillis(MAX_MILLIS);
+    return exchangeLatency;
+  }
+}
@@ -36,4 +36,12 @@ public interface BotStatusService {
    * @return UP if the bot is running, DOWN if the bot is not running.
    */
   String getStatus();
+
+  /**
+   * Returns the state of the Exchange Adapter's circuit breaker.
+   *
+   * @return CLOSED, OPEN or HALF_OPEN, DISABLED if the adapter has no circuit breaker, or null if
+   *     the bot does not report it.
+   */
+  String getExchangeCircuitBreakerState();
 }
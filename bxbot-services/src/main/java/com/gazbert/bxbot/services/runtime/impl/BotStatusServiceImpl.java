@@ -41,6 +41,9 @@ import org.springframework.stereotype.Service;
 public class BotStatusServiceImpl implements BotStatusService {
 
   private static final Logger LOG = LogManager.getLogger();
+  private static final String EXCHANGE_HEALTH_KEY = "exchange";
+  private static final String CIRCUIT_BREAKER_DETAIL = "circuitBreaker";
+
   private HealthEndpoint healthEndpoint;
 
   @Autowired
@@ -55,4 +58,15 @@ public class BotStatusServiceImpl implements BotStatusService {
     LOG.info(() -> "Health Status: " + status);
     return status.getCode();
   }
+
+  @Override
+  public String getExchangeCircuitBreakerState() {
+    final Object exchangeHealth = healthEndpoint.health().getDetails().get(EXCHANGE_HEALTH_KEY);
+    if (!(exchangeHealth instanceof Health)) {
+      return null;
+    }
+    final Object state = ((Health) exchangeHealth).getDetails().get(CIRCUIT_BREAKER_DETAIL);
+    LOG.info(() -> "Exchange Circuit Breaker State: " + state);
+    return state != null ? state.toString() : null;
+  }
 }
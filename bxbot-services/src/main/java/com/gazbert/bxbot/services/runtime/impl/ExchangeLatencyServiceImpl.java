@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.services.runtime.impl;
+
+import com.gazbert.bxbot.domain.bot.ExchangeLatency;
+import com.gazbert.bxbot.services.runtime.ExchangeLatencyService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implementation of the Exchange latency service. It reads the latency meters the Trading Engine
+ * publishes to Micrometer.
+ *
+ * @author gazbert
+ */
+@Service("exchangeLatencyService")
+public class ExchangeLatencyServiceImpl implements ExchangeLatencyService {
+
+  private static final Logger LOG = LogManager.getLogger();
+  private static final String LATENCY_PERCENTILE_METRIC = "bxbot.exchange.call.latency.percentile";
+  private static final String LATENCY_MAX_METRIC = "bxbot.exchange.call.latency.max";
+  private static final String LATENCY_COUNT_METRIC = "bxbot.exchange.call.latency.count";
+  private static final String ADAPTER_TAG = "adapter";
+  private static final String METHOD_TAG = "method";
+  private static final String OUTCOME_TAG = "outcome";
+  private static final String PHASE_TAG = "phase";
+  private static final String PERCENTILE_TAG = "phi";
+  private static final double MILLIS_PER_SECOND = 1000.0;
+
+  private final MeterRegistry meterRegistry;
+
+  @Autowired
+  public ExchangeLatencyServiceImpl(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public List<ExchangeLatency> getExchangeLatencies() {
+    final List<ExchangeLatency> latencies = new ArrayList<>();
+    for (final FunctionCounter counter :
+        meterRegistry.find(LATENCY_COUNT_METRIC).functionCounters()) {
+      final long count = (long) counter.count();
+      if (count == 0) {
+        continue; // registered, but nothing timed yet
+      }
+      final Meter.Id id = counter.getId();
+      final ExchangeLatency latency = new ExchangeLatency();
+      latency.setAdapter(id.getTag(ADAPTER_TAG));
+      latency.setTradingApiMethod(id.getTag(METHOD_TAG));
+      latency.setOutcome(id.getTag(OUTCOME_TAG));
+      latency.setPhase(id.getTag(PHASE_TAG));
+      latency.setCount(count);
+      latency.setP50Millis(getPercentileMillis(id, "0.5"));
+      latency.setP99Millis(getPercentileMillis(id, "0.99"));
+      latency.setP999Millis(getPercentileMillis(id, "0.999"));
+      latency.setMaxMillis(toMillis(meterRegistry.find(LATENCY_MAX_METRIC).tags(id.getTags())));
+      latencies.add(latency);
+    }
+    latencies.sort(
+        Comparator.comparing(ExchangeLatency::getTradingApiMethod)
+            .thenComparing(ExchangeLatency::getOutcome)
+            .thenComparing(ExchangeLatency::getPhase));
+    LOG.info(() -> "Exchange latencies timed: " + latencies.size());
+    return latencies;
+  }
+
+  private double getPercentileMillis(Meter.Id id, String percentile) {
+    return toMillis(
+        meterRegistry
+            .find(LATENCY_PERCENTILE_METRIC)
+            .tags(id.getTags())
+            .tag(PERCENTILE_TAG, percentile));
+  }
+
+  private static double toMillis(Search search) {
+    final Gauge gauge = search.gauge();
+    return gauge == null ? Double.NaN : gauge.value() * MILLIS_PER_SECOND;
+  }
+}
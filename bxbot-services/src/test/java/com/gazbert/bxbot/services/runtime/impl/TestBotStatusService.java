@@ -57,4 +57,30 @@ public class TestBotStatusService {
     assertThat(fetchedBotStatus).isEqualTo(botStatus);
     verify(healthEndpoint);
   }
+
+  @Test
+  public void whenGetExchangeCircuitBreakerStateCalledThenExpectStateToBeReturned() {
+    final Health exchangeHealth = Health.up().withDetail("circuitBreaker", "HALF_OPEN").build();
+    final Health health = Health.up().withDetail("exchange", exchangeHealth).build();
+    final HealthEndpoint healthEndpoint = EasyMock.createMock(HealthEndpoint.class);
+
+    expect(healthEndpoint.health()).andReturn(health);
+    replay(healthEndpoint);
+
+    final BotStatusServiceImpl botStatusService = new BotStatusServiceImpl(healthEndpoint);
+    assertThat(botStatusService.getExchangeCircuitBreakerState()).isEqualTo("HALF_OPEN");
+    verify(healthEndpoint);
+  }
+
+  @Test
+  public void whenExchangeHealthIsNotReportedThenExpectNullCircuitBreakerState() {
+    final HealthEndpoint healthEndpoint = EasyMock.createMock(HealthEndpoint.class);
+
+    expect(healthEndpoint.health()).andReturn(Health.up().build());
+    replay(healthEndpoint);
+
+    final BotStatusServiceImpl botStatusService = new BotStatusServiceImpl(healthEndpoint);
+    assertThat(botStatusService.getExchangeCircuitBreakerState()).isNull();
+    verify(healthEndpoint);
+  }
 }
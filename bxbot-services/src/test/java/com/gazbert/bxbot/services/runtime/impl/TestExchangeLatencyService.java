@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.services.runtime.impl;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.gazbert.bxbot.domain.bot.ExchangeLatency;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests Exchange latency service behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestExchangeLatencyService {
+
+  private static final String ADAPTER = "Bitstamp REST API v2";
+
+  @Test
+  public void whenGetExchangeLatenciesCalledThenExpectTimedLatenciesToBeReturned() {
+    final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    registerLatency(meterRegistry, "getTicker", "OK", "TOTAL", 10, 0.0625);
+    registerLatency(meterRegistry, "createOrder", "NETWORK_ERROR", "TOTAL", 2, 0.5);
+    registerLatency(meterRegistry, "createOrder", "NETWORK_ERROR", "DECODE", 0, Double.NaN);
+
+    final ExchangeLatencyServiceImpl exchangeLatencyService =
+        new ExchangeLatencyServiceImpl(meterRegistry);
+    final List<ExchangeLatency> latencies = exchangeLatencyService.getExchangeLatencies();
+
+    assertThat(latencies).hasSize(2);
+    final ExchangeLatency createOrder = latencies.get(0);
+    assertThat(createOrder.getAdapter()).isEqualTo(ADAPTER);
+    assertThat(createOrder.getTradingApiMethod()).isEqualTo("createOrder");
+    assertThat(createOrder.getOutcome()).isEqualTo("NETWORK_ERROR");
+    assertThat(createOrder.getPhase()).isEqualTo("TOTAL");
+    assertThat(createOrder.getCount()).isEqualTo(2);
+    assertThat(createOrder.getP50Millis()).isEqualTo(500.0);
+    assertThat(createOrder.getP99Millis()).isEqualTo(750.0);
+    assertThat(createOrder.getP999Millis()).isEqualTo(875.0);
+    assertThat(createOrder.getMaxMillis()).isEqualTo(1000.0);
+
+    final ExchangeLatency getTicker = latencies.get(1);
+    assertThat(getTicker.getTradingApiMethod()).isEqualTo("getTicker");
+    assertThat(getTicker.getCount()).isEqualTo(10);
+    assertThat(getTicker.getP50Millis()).isEqualTo(62.5);
+  }
+
+  @Test
+  public void whenNoCallsHaveBeenTimedThenExpectNoLatencies() {
+    final ExchangeLatencyServiceImpl exchangeLatencyService =
+        new ExchangeLatencyServiceImpl(new SimpleMeterRegistry());
+    assertThat(exchangeLatencyService.getExchangeLatencies()).isEmpty();
+  }
+
+  /*
+   * Registers the meters the Trading Engine publishes, with the p99, p999 and max set to 1.5, 1.75
+   * and 2 times the median.
+   */
+  private static void registerLatency(
+      MeterRegistry meterRegistry,
+      String method,
+      String outcome,
+      String phase,
+      long count,
+      double medianSecs) {
+
+    final Tags tags =
+        Tags.of("adapter", ADAPTER, "method", method, "outcome", outcome, "phase", phase);
+    final String[] percentiles = {"0.5", "0.99", "0.999"};
+    final double[] multipliers = {1, 1.5, 1.75};
+    for (int i = 0; i < percentiles.length; i++) {
+      final double value = medianSecs * multipliers[i];
+      Gauge.builder("bxbot.exchange.call.latency.percentile", () -> value)
+          .tags(tags)
+          .tag("phi", percentiles[i])
+          .register(meterRegistry);
+    }
+    Gauge.builder("bxbot.exchange.call.latency.max", () -> medianSecs * 2)
+        .tags(tags)
+        .register(meterRegistry);
+    FunctionCounter.builder("bxbot.exchange.call.latency.count", meterRegistry, r -> count)
+        .tags(tags)
+        .register(meterRegistry);
+  }
+}
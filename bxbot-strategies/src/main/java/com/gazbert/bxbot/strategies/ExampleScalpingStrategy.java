@@ -26,10 +26,10 @@ package com.gazbert.bxbot.strategies;
 import com.gazbert.bxbot.strategy.api.StrategyConfig;
 import com.gazbert.bxbot.strategy.api.StrategyException;
 import com.gazbert.bxbot.strategy.api.TradingStrategy;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
+import com.gazbert.bxbot.trading.api.FixedPointDecimal;
 import com.gazbert.bxbot.trading.api.Market;
-import com.gazbert.bxbot.trading.api.MarketOrder;
-import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.TradingApi;
@@ -37,7 +37,6 @@ import com.gazbert.bxbot.trading.api.TradingApiException;
 import com.google.common.base.MoreObjects;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -134,8 +133,8 @@ public class ExampleScalpingStrategy implements TradingStrategy {
 
   private static final Logger LOG = LogManager.getLogger();
 
-  /** The decimal format for the logs. */
-  private static final String DECIMAL_FORMAT = "#.########";
+  /** The number of decimal places used for prices and amounts in the logs. */
+  private static final int LOG_DECIMAL_PLACES = 8;
 
   /** Reference to the main Trading API. */
   private TradingApi tradingApi;
@@ -155,8 +154,11 @@ public class ExampleScalpingStrategy implements TradingStrategy {
   /**
    * The minimum % gain was to achieve before placing a SELL oder. This was loaded from the strategy
    * entry in the {project-root}/config/strategies.yaml config file.
+   *
+   * <p>It is held as a fixed-point decimal because it is used in the sell price calculation every
+   * time a buy order fills; fixed-point arithmetic does not create BigDecimals.
    */
-  private BigDecimal minimumPercentageGain;
+  private FixedPointDecimal minimumPercentageGain;
 
   /**
    * Initialises the Trading Strategy. Called once by the Trading Engine when the bot starts up;
@@ -191,41 +193,30 @@ public class ExampleScalpingStrategy implements TradingStrategy {
     LOG.info(() -> market.getName() + " Checking order status...");
 
     try {
-      // Grab the latest order book for the market.
-      final MarketOrderBook orderBook = tradingApi.getMarketOrders(market.getId());
+      // Grab the current BID and ASK spot prices. We only need the top of the order book, so
+      // there's no point downloading the whole thing.
+      final BestBidAsk bestBidAsk = tradingApi.getBestBidAsk(market.getId());
 
-      final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
-      if (buyOrders.isEmpty()) {
+      final BigDecimal currentBidPrice = bestBidAsk.getBid();
+      if (currentBidPrice == null) {
         LOG.warn(
             () ->
-                "Exchange returned empty Buy Orders. Ignoring this trade window. OrderBook: "
-                    + orderBook);
+                "Exchange returned no Buy Orders. Ignoring this trade window. BestBidAsk: "
+                    + bestBidAsk);
         return;
       }
 
-      final List<MarketOrder> sellOrders = orderBook.getSellOrders();
-      if (sellOrders.isEmpty()) {
+      final BigDecimal currentAskPrice = bestBidAsk.getAsk();
+      if (currentAskPrice == null) {
         LOG.warn(
             () ->
-                "Exchange returned empty Sell Orders. Ignoring this trade window. OrderBook: "
-                    + orderBook);
+                "Exchange returned no Sell Orders. Ignoring this trade window. BestBidAsk: "
+                    + bestBidAsk);
         return;
       }
 
-      // Get the current BID and ASK spot prices.
-      final BigDecimal currentBidPrice = buyOrders.get(0).getPrice();
-      final BigDecimal currentAskPrice = sellOrders.get(0).getPrice();
-
-      LOG.info(
-          () ->
-              market.getName()
-                  + " Current BID price="
-                  + new DecimalFormat(DECIMAL_FORMAT).format(currentBidPrice));
-      LOG.info(
-          () ->
-              market.getName()
-                  + " Current ASK price="
-                  + new DecimalFormat(DECIMAL_FORMAT).format(currentAskPrice));
+      LOG.info(() -> market.getName() + " Current BID price=" + format(currentBidPrice));
+      LOG.info(() -> market.getName() + " Current ASK price=" + format(currentAskPrice));
 
       // Is this the first time the Strategy has been called? If yes, we initialise the OrderState
       // so we can keep
@@ -289,7 +280,7 @@ public class ExampleScalpingStrategy implements TradingStrategy {
         () ->
             market.getName()
                 + " OrderType is NONE - placing new BUY order at ["
-                + new DecimalFormat(DECIMAL_FORMAT).format(currentBidPrice)
+                + format(currentBidPrice)
                 + "]");
 
     try {
@@ -314,8 +305,10 @@ public class ExampleScalpingStrategy implements TradingStrategy {
       lastOrder.amount = amountOfBaseCurrencyToBuy;
 
     } catch (ExchangeNetworkException e) {
-      // Your timeout handling code could go here, e.g. you might want to check if the order
-      // actually made it to the exchange? And if not, resend it...
+      // Don't just resend the order - it may have reached the exchange, and even filled.
+      // If the exchange supports client order ids, the Trading Engine has already looked it up on
+      // the exchange - it only throws this if it could not find it. To retry safely, send the
+      // order with your own client order id and reuse that id when you retry it.
       // We are just going to log it and swallow it, and wait for next trade cycle.
       LOG.error(
           () ->
@@ -397,19 +390,21 @@ public class ExampleScalpingStrategy implements TradingStrategy {
                     + " Percentage profit (in decimal) to make for the sell order is: "
                     + minimumPercentageGain);
 
-        final BigDecimal amountToAdd = lastOrder.price.multiply(minimumPercentageGain);
+        // Most exchanges (if not all) use 8 decimal places.
+        // It's usually best to round up the ASK price in your calculations to maximise gains.
+        final FixedPointDecimal lastBuyPrice = FixedPointDecimal.valueOf(lastOrder.price);
+        final FixedPointDecimal amountToAdd =
+            lastBuyPrice.multiply(minimumPercentageGain, 8, RoundingMode.HALF_UP);
         LOG.info(
             () -> market.getName() + " Amount to add to last buy order fill price: " + amountToAdd);
 
-        // Most exchanges (if not all) use 8 decimal places.
-        // It's usually best to round up the ASK price in your calculations to maximise gains.
         final BigDecimal newAskPrice =
-            lastOrder.price.add(amountToAdd).setScale(8, RoundingMode.HALF_UP);
+            lastBuyPrice.add(amountToAdd).setScale(8, RoundingMode.HALF_UP).toBigDecimal();
         LOG.info(
             () ->
                 market.getName()
                     + " Placing new SELL order at ask price ["
-                    + new DecimalFormat(DECIMAL_FORMAT).format(newAskPrice)
+                    + format(newAskPrice)
                     + "]");
 
         LOG.info(() -> market.getName() + " Sending new SELL order to exchange --->");
@@ -443,9 +438,10 @@ public class ExampleScalpingStrategy implements TradingStrategy {
       }
 
     } catch (ExchangeNetworkException e) {
-      // Your timeout handling code could go here, e.g. you might want to check if the order
-      // actually
-      // made it to the exchange? And if not, resend it...
+      // Don't just resend the order - it may have reached the exchange, and even filled.
+      // If the exchange supports client order ids, the Trading Engine has already looked it up on
+      // the exchange - it only throws this if it could not find it. To retry safely, send the
+      // order with your own client order id and reuse that id when you retry it.
       // We are just going to log it and swallow it, and wait for next trade cycle.
       LOG.error(
           () ->
@@ -512,7 +508,7 @@ public class ExampleScalpingStrategy implements TradingStrategy {
             () ->
                 market.getName()
                     + " Placing new BUY order at bid price ["
-                    + new DecimalFormat(DECIMAL_FORMAT).format(currentBidPrice)
+                    + format(currentBidPrice)
                     + "]");
 
         LOG.info(() -> market.getName() + " Sending new BUY order to exchange --->");
@@ -569,8 +565,10 @@ public class ExampleScalpingStrategy implements TradingStrategy {
         }
       }
     } catch (ExchangeNetworkException e) {
-      // Your timeout handling code could go here, e.g. you might want to check if the order
-      // actually made it to the exchange? And if not, resend it...
+      // Don't just resend the order - it may have reached the exchange, and even filled.
+      // If the exchange supports client order ids, the Trading Engine has already looked it up on
+      // the exchange - it only throws this if it could not find it. To retry safely, send the
+      // order with your own client order id and reuse that id when you retry it.
       // We are just going to log it and swallow it, and wait for next trade cycle.
       LOG.error(
           () ->
@@ -615,7 +613,7 @@ public class ExampleScalpingStrategy implements TradingStrategy {
             market.getName()
                 + " Calculating amount of base currency (BTC) to buy for amount of counter "
                 + "currency "
-                + new DecimalFormat(DECIMAL_FORMAT).format(amountOfCounterCurrencyToTrade)
+                + format(amountOfCounterCurrencyToTrade)
                 + " "
                 + market.getCounterCurrency());
 
@@ -627,7 +625,7 @@ public class ExampleScalpingStrategy implements TradingStrategy {
                 + " Last trade price for 1 "
                 + market.getBaseCurrency()
                 + " was: "
-                + new DecimalFormat(DECIMAL_FORMAT).format(lastTradePriceInUsdForOneBtc)
+                + format(lastTradePriceInUsdForOneBtc)
                 + " "
                 + market.getCounterCurrency());
 
@@ -645,7 +643,7 @@ public class ExampleScalpingStrategy implements TradingStrategy {
                 + " Amount of base currency ("
                 + market.getBaseCurrency()
                 + ") to BUY for "
-                + new DecimalFormat(DECIMAL_FORMAT).format(amountOfCounterCurrencyToTrade)
+                + format(amountOfCounterCurrencyToTrade)
                 + " "
                 + market.getCounterCurrency()
                 + " based on last market trade price: "
@@ -697,11 +695,30 @@ public class ExampleScalpingStrategy implements TradingStrategy {
     final BigDecimal minimumPercentageGainFromConfig =
         new BigDecimal(minimumPercentageGainFromConfigAsString);
     minimumPercentageGain =
-        minimumPercentageGainFromConfig.divide(new BigDecimal(100), 8, RoundingMode.HALF_UP);
+        FixedPointDecimal.valueOf(
+            minimumPercentageGainFromConfig.divide(new BigDecimal(100), 8, RoundingMode.HALF_UP));
 
     LOG.info(() -> "minimumPercentageGain in decimal is: " + minimumPercentageGain);
   }
 
+  /**
+   * Formats a price or amount for the logs, to at most 8 decimal places. This is called for most
+   * log lines, so it avoids creating a new DecimalFormat each time.
+   *
+   * @param value the value to format.
+   * @return the formatted value.
+   */
+  private static String format(BigDecimal value) {
+    try {
+      return FixedPointDecimal.valueOf(value, LOG_DECIMAL_PLACES, RoundingMode.HALF_EVEN)
+          .stripTrailingZeros()
+          .toString();
+    } catch (ArithmeticException e) {
+      // too big for a fixed-point decimal
+      return value.toPlainString();
+    }
+  }
+
   /**
    * Models the state of an Order placed on the exchange.
    *
@@ -30,10 +30,9 @@ import static org.easymock.EasyMock.verify;
 
 import com.gazbert.bxbot.strategy.api.StrategyConfig;
 import com.gazbert.bxbot.strategy.api.StrategyException;
+import com.gazbert.bxbot.trading.api.BestBidAsk;
 import com.gazbert.bxbot.trading.api.ExchangeNetworkException;
 import com.gazbert.bxbot.trading.api.Market;
-import com.gazbert.bxbot.trading.api.MarketOrder;
-import com.gazbert.bxbot.trading.api.MarketOrderBook;
 import com.gazbert.bxbot.trading.api.OpenOrder;
 import com.gazbert.bxbot.trading.api.OrderType;
 import com.gazbert.bxbot.trading.api.TradingApi;
@@ -66,28 +65,17 @@ public class TestExampleScalpingStrategy {
   private Market market;
   private StrategyConfig config;
 
-  private MarketOrderBook marketOrderBook;
-  private MarketOrder marketBuyOrder;
-  private MarketOrder marketSellOrder;
+  private BestBidAsk bestBidAsk;
 
-  private List<MarketOrder> marketBuyOrders;
-  private List<MarketOrder> marketSellOrders;
-
-  /** Each test will be the same up to the point of fetching the order book. */
+  /** Each test will be the same up to the point of fetching the best bid and ask prices. */
   @Before
   public void setUpBeforeEachTest() throws Exception {
     tradingApi = createMock(TradingApi.class);
     market = createMock(Market.class);
     config = createMock(StrategyConfig.class);
 
-    // setup market order book
-    marketOrderBook = createMock(MarketOrderBook.class);
-    marketBuyOrder = createMock(MarketOrder.class);
-    marketBuyOrders = new ArrayList<>();
-    marketBuyOrders.add(marketBuyOrder);
-    marketSellOrders = new ArrayList<>();
-    marketSellOrder = createMock(MarketOrder.class);
-    marketSellOrders.add(marketSellOrder);
+    // setup best bid and ask prices
+    bestBidAsk = createMock(BestBidAsk.class);
 
     // expect config to be loaded
     expect(config.getConfigItem("counter-currency-buy-order-amount"))
@@ -99,11 +87,9 @@ public class TestExampleScalpingStrategy {
     // cosmetic.
     expect(market.getName()).andReturn("BTC_USD").anyTimes();
 
-    // expect market order book to be fetched
+    // expect best bid and ask prices to be fetched
     expect(market.getId()).andReturn(MARKET_ID);
-    expect(tradingApi.getMarketOrders(MARKET_ID)).andReturn(marketOrderBook);
-    expect(marketOrderBook.getBuyOrders()).andReturn(marketBuyOrders);
-    expect(marketOrderBook.getSellOrders()).andReturn(marketSellOrders);
+    expect(tradingApi.getBestBidAsk(MARKET_ID)).andReturn(bestBidAsk);
   }
 
   /*
@@ -117,9 +103,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategySendsInitialBuyOrderWhenItIsFirstCalled() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // expect to get amount of base currency to buy for given counter currency amount
     expect(market.getId()).andReturn(MARKET_ID);
@@ -135,13 +121,13 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.BUY, amountOfUnitsToBuy, bidSpotPrice))
         .andReturn(orderId);
 
-    replay(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder);
+    replay(tradingApi, market, config, bestBidAsk);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder);
+    verify(tradingApi, market, config, bestBidAsk);
   }
 
   /*
@@ -156,9 +142,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategySendsNewSellOrderToExchangeWhenCurrentBuyOrderFilled() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing buy order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -188,8 +174,7 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.SELL, lastOrderAmount, newAskPrice))
         .andReturn(orderId);
 
-    replay(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    replay(tradingApi, market, config, bestBidAsk, orderState);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -200,8 +185,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    verify(tradingApi, market, config, bestBidAsk, orderState);
   }
 
   /*
@@ -216,9 +200,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHoldsWhenCurrentBuyOrderIsNotFilled() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing buy order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -241,15 +225,7 @@ public class TestExampleScalpingStrategy {
     // expect strategy to find existing open order and hold current position
     expect(openOrders.get(0).getId()).andReturn("45345346");
 
-    replay(
-        tradingApi,
-        market,
-        config,
-        marketOrderBook,
-        marketBuyOrder,
-        marketSellOrder,
-        orderState,
-        unfilledOrder);
+    replay(tradingApi, market, config, bestBidAsk, orderState, unfilledOrder);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -260,15 +236,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi,
-        market,
-        config,
-        marketOrderBook,
-        marketBuyOrder,
-        marketSellOrder,
-        orderState,
-        unfilledOrder);
+    verify(tradingApi, market, config, bestBidAsk, orderState, unfilledOrder);
   }
 
   /*
@@ -283,9 +251,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategySendsNewBuyOrderToExchangeWhenCurrentSellOrderFilled() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing sell order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -317,8 +285,7 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.BUY, amountOfUnitsToBuy, bidSpotPrice))
         .andReturn(orderId);
 
-    replay(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    replay(tradingApi, market, config, bestBidAsk, orderState);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -329,8 +296,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    verify(tradingApi, market, config, bestBidAsk, orderState);
   }
 
   /*
@@ -345,9 +311,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHoldsWhenCurrentSellOrderIsNotFilled() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing sell order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -370,15 +336,7 @@ public class TestExampleScalpingStrategy {
     // expect strategy to find existing open order and hold current position
     expect(openOrders.get(0).getId()).andReturn("45345346");
 
-    replay(
-        tradingApi,
-        market,
-        config,
-        marketOrderBook,
-        marketBuyOrder,
-        marketSellOrder,
-        orderState,
-        unfilledOrder);
+    replay(tradingApi, market, config, bestBidAsk, orderState, unfilledOrder);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -389,15 +347,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi,
-        market,
-        config,
-        marketOrderBook,
-        marketBuyOrder,
-        marketSellOrder,
-        orderState,
-        unfilledOrder);
+    verify(tradingApi, market, config, bestBidAsk, orderState, unfilledOrder);
   }
 
   // ------------------------------------------------------------------------
@@ -416,9 +366,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHandlesTimeoutExceptionWhenPlacingInitialBuyOrder() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // expect to get amount of base currency to buy for given counter currency amount
     expect(market.getId()).andReturn(MARKET_ID);
@@ -433,13 +383,13 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.BUY, amountOfUnitsToBuy, bidSpotPrice))
         .andThrow(new ExchangeNetworkException("Timeout waiting for exchange!"));
 
-    replay(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder);
+    replay(tradingApi, market, config, bestBidAsk);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder);
+    verify(tradingApi, market, config, bestBidAsk);
   }
 
   /*
@@ -454,9 +404,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHandlesTimeoutExceptionWhenPlacingBuyOrder() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing sell order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -487,8 +437,7 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.BUY, amountOfUnitsToBuy, bidSpotPrice))
         .andThrow(new ExchangeNetworkException("Timeout waiting for exchange!"));
 
-    replay(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    replay(tradingApi, market, config, bestBidAsk, orderState);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -499,8 +448,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    verify(tradingApi, market, config, bestBidAsk, orderState);
   }
 
   /*
@@ -515,9 +463,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHandlesTimeoutExceptionWhenPlacingSellOrder() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing buy order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -546,8 +494,7 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.SELL, lastOrderAmount, newAskPrice))
         .andThrow(new ExchangeNetworkException("Timeout waiting for exchange!"));
 
-    replay(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    replay(tradingApi, market, config, bestBidAsk, orderState);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -558,8 +505,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    verify(tradingApi, market, config, bestBidAsk, orderState);
   }
 
   // ------------------------------------------------------------------------
@@ -579,9 +525,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHandlesTradingApiExceptionWhenPlacingInitialBuyOrder() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // expect to get amount of base currency to buy for given counter currency amount
     expect(market.getId()).andReturn(MARKET_ID);
@@ -596,13 +542,13 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.BUY, amountOfUnitsToBuy, bidSpotPrice))
         .andThrow(new TradingApiException("Exchange returned a 500 status code!"));
 
-    replay(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder);
+    replay(tradingApi, market, config, bestBidAsk);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder);
+    verify(tradingApi, market, config, bestBidAsk);
   }
 
   /*
@@ -617,9 +563,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHandlesTradingApiExceptionWhenPlacingBuyOrder() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing sell order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -650,8 +596,7 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.BUY, amountOfUnitsToBuy, bidSpotPrice))
         .andThrow(new TradingApiException("Exchange returned a 500 status code!"));
 
-    replay(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    replay(tradingApi, market, config, bestBidAsk, orderState);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -662,8 +607,7 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    verify(tradingApi, market, config, bestBidAsk, orderState);
   }
 
   /*
@@ -678,9 +622,9 @@ public class TestExampleScalpingStrategy {
   public void testStrategyHandlesTradingApiExceptionWhenPlacingSellOrder() throws Exception {
     // expect to get current bid and ask spot prices
     final BigDecimal bidSpotPrice = new BigDecimal("1453.014");
-    expect(marketBuyOrders.get(0).getPrice()).andReturn(bidSpotPrice);
+    expect(bestBidAsk.getBid()).andReturn(bidSpotPrice);
     final BigDecimal askSpotPrice = new BigDecimal("1455.016");
-    expect(marketSellOrders.get(0).getPrice()).andReturn(askSpotPrice);
+    expect(bestBidAsk.getAsk()).andReturn(askSpotPrice);
 
     // mock an existing buy order state
     final BigDecimal lastOrderAmount = new BigDecimal("35");
@@ -709,8 +653,7 @@ public class TestExampleScalpingStrategy {
     expect(tradingApi.createOrder(MARKET_ID, OrderType.SELL, lastOrderAmount, newAskPrice))
         .andThrow(new TradingApiException("Exchange returned a 500 status code!"));
 
-    replay(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    replay(tradingApi, market, config, bestBidAsk, orderState);
 
     final ExampleScalpingStrategy strategy = new ExampleScalpingStrategy();
 
@@ -721,7 +664,6 @@ public class TestExampleScalpingStrategy {
     strategy.init(tradingApi, market, config);
     strategy.execute();
 
-    verify(
-        tradingApi, market, config, marketOrderBook, marketBuyOrder, marketSellOrder, orderState);
+    verify(tradingApi, market, config, bestBidAsk, orderState);
   }
 }
@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The asynchronous version of BX-bot's {@link TradingApi}.
+ *
+ * <p>Every call returns straight away with a {@link CompletableFuture}, so a Trading Strategy can
+ * fan out the calls it needs each trade cycle, e.g. the order book, its open orders and its
+ * balances, and then wait once for all of them:
+ *
+ * <pre>
+ * final AsyncTradingApi asyncApi = tradingApi.async(executor);
+ * final CompletableFuture&lt;MarketOrderBook&gt; book = asyncApi.getMarketOrders(marketId, 5);
+ * final CompletableFuture&lt;List&lt;OpenOrder&gt;&gt; orders =
+ *     asyncApi.getYourOpenOrders(marketId);
+ * final CompletableFuture&lt;BalanceInfo&gt; balances = asyncApi.getBalanceInfo();
+ * CompletableFuture.allOf(book, orders, balances).join();
+ * </pre>
+ *
+ * <p>The methods behave the same as their {@link TradingApi} namesakes, except that failures
+ * complete the returned future exceptionally instead of being thrown: with an {@link
+ * ExchangeNetworkException} or a {@link TradingApiException} under the same conditions as the
+ * blocking call. {@link CompletableFuture#join()} wraps these in a {@link
+ * java.util.concurrent.CompletionException}, and {@link CompletableFuture#get()} in an {@link
+ * java.util.concurrent.ExecutionException}; the cause is the Trading API exception.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public interface AsyncTradingApi {
+
+  /**
+   * Returns the API implementation name.
+   *
+   * @return the API implementation name.
+   */
+  String getImplName();
+
+  /**
+   * Fetches latest <em>market</em> orders for a given market.
+   *
+   * @param marketId the id of the market.
+   * @return the market order book.
+   * @see TradingApi#getMarketOrders(String)
+   */
+  CompletableFuture<MarketOrderBook> getMarketOrders(String marketId);
+
+  /**
+   * Fetches latest <em>market</em> orders for a given market, up to the given number of price
+   * levels on each side of the book.
+   *
+   * @param marketId the id of the market.
+   * @param maxLevels the max number of price levels to return on each side of the book. Must be at
+   *     least 1.
+   * @return the market order book, with at most maxLevels buy orders and maxLevels sell orders.
+   * @see TradingApi#getMarketOrders(String, int)
+   */
+  CompletableFuture<MarketOrderBook> getMarketOrders(String marketId, int maxLevels);
+
+  /**
+   * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
+   *
+   * @param marketId the id of the market.
+   * @return your current open orders.
+   * @see TradingApi#getYourOpenOrders(String)
+   */
+  CompletableFuture<List<OpenOrder>> getYourOpenOrders(String marketId);
+
+  /**
+   * Places an order on the exchange.
+   *
+   * @param marketId the id of the market.
+   * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+   * @param quantity amount of units you are buying/selling in this order.
+   * @param price the price per unit you are buying/selling at.
+   * @return the id of the order.
+   * @see TradingApi#createOrder(String, OrderType, BigDecimal, BigDecimal)
+   */
+  CompletableFuture<String> createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price);
+
+  /**
+   * Places an order on the exchange, tagged with a client order id.
+   *
+   * <p>The default implementation ignores the client order id and delegates to {@link
+   * #createOrder(String, OrderType, BigDecimal, BigDecimal)}.
+   *
+   * @param marketId the id of the market.
+   * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+   * @param quantity amount of units you are buying/selling in this order.
+   * @param price the price per unit you are buying/selling at.
+   * @param clientOrderId the client order id, or null to let the exchange assign the order id only.
+   * @return the id of the order.
+   * @see TradingApi#createOrder(String, OrderType, BigDecimal, BigDecimal, String)
+   */
+  default CompletableFuture<String> createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId) {
+    return createOrder(marketId, orderType, quantity, price);
+  }
+
+  /**
+   * Cancels your existing order on the exchange.
+   *
+   * @param orderId your order Id.
+   * @param marketId the id of the market the order was placed on, e.g. btc_usd
+   * @return true if order cancelled ok, false otherwise.
+   * @see TradingApi#cancelOrder(String, String)
+   */
+  CompletableFuture<Boolean> cancelOrder(String orderId, String marketId);
+
+  /**
+   * Fetches the latest price for a given market.
+   *
+   * @param marketId the id of the market.
+   * @return the latest market price.
+   * @see TradingApi#getLatestMarketPrice(String)
+   */
+  CompletableFuture<BigDecimal> getLatestMarketPrice(String marketId);
+
+  /**
+   * Fetches the balance of your wallets on the exchange.
+   *
+   * @return your wallet balance info.
+   * @see TradingApi#getBalanceInfo()
+   */
+  CompletableFuture<BalanceInfo> getBalanceInfo();
+
+  /**
+   * Returns the exchange BUY order fee for a given market id.
+   *
+   * @param marketId the id of the market.
+   * @return the % of the BUY order that the exchange uses to calculate its fee.
+   * @see TradingApi#getPercentageOfBuyOrderTakenForExchangeFee(String)
+   */
+  CompletableFuture<BigDecimal> getPercentageOfBuyOrderTakenForExchangeFee(String marketId);
+
+  /**
+   * Returns the exchange SELL order fee for a given market id.
+   *
+   * @param marketId the id of the market.
+   * @return the % of the SELL order that the exchange uses to calculate its fee.
+   * @see TradingApi#getPercentageOfSellOrderTakenForExchangeFee(String)
+   */
+  CompletableFuture<BigDecimal> getPercentageOfSellOrderTakenForExchangeFee(String marketId);
+
+  /**
+   * Returns the exchange Ticker a given market id.
+   *
+   * @param marketId the id of the market.
+   * @return the exchange Ticker for a given market.
+   * @see TradingApi#getTicker(String)
+   */
+  CompletableFuture<Ticker> getTicker(String marketId);
+
+  /**
+   * Fetches the best bid and ask prices for a given market.
+   *
+   * @param marketId the id of the market.
+   * @return the best bid and ask prices.
+   * @see TradingApi#getBestBidAsk(String)
+   */
+  CompletableFuture<BestBidAsk> getBestBidAsk(String marketId);
+}
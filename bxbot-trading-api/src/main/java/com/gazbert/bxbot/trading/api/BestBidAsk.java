@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+
+/**
+ * Holds the best (top of book) bid and ask prices for a market.
+ *
+ * <p>If a side of the book is empty, its price is null.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public interface BestBidAsk {
+
+  /**
+   * Returns the highest buy order price.
+   *
+   * @return the highest buy order price, or null if there are no buy orders.
+   */
+  BigDecimal getBid();
+
+  /**
+   * Returns the lowest sell order price.
+   *
+   * @return the lowest sell order price, or null if there are no sell orders.
+   */
+  BigDecimal getAsk();
+
+  /**
+   * Returns the highest buy order price as a fixed-point decimal.
+   *
+   * <p>The default implementation converts {@link #getBid()}; implementations that hold fixed-point
+   * values should override it.
+   *
+   * @return the highest buy order price, or null if there are no buy orders.
+   * @throws ArithmeticException if the price cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointBid() {
+    final BigDecimal bid = getBid();
+    return bid == null ? null : FixedPointDecimal.valueOf(bid);
+  }
+
+  /**
+   * Returns the lowest sell order price as a fixed-point decimal.
+   *
+   * <p>The default implementation converts {@link #getAsk()}; implementations that hold fixed-point
+   * values should override it.
+   *
+   * @return the lowest sell order price, or null if there are no sell orders.
+   * @throws ArithmeticException if the price cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointAsk() {
+    final BigDecimal ask = getAsk();
+    return ask == null ? null : FixedPointDecimal.valueOf(ask);
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An {@link AsyncTradingApi} that runs the calls of a blocking {@link TradingApi} on an executor.
+ *
+ * <p>Each call takes up one of the executor's threads until the exchange has answered, so the
+ * executor should be bounded, e.g. a fixed thread pool sized to the number of calls a Trading
+ * Strategy makes at once. A call the executor rejects completes exceptionally with the {@link
+ * RejectedExecutionException}.
+ *
+ * <p>The blocking Trading API must be safe for concurrent use, as the Exchange Adapters are.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public final class ExecutorAsyncTradingApi implements AsyncTradingApi {
+
+  /** A blocking Trading API call. */
+  @FunctionalInterface
+  private interface TradingApiCall<T> {
+    T call() throws ExchangeNetworkException, TradingApiException;
+  }
+
+  private final TradingApi tradingApi;
+  private final Executor executor;
+
+  /**
+   * Creates the async Trading API.
+   *
+   * @param tradingApi the blocking Trading API to call.
+   * @param executor runs the blocking calls.
+   */
+  public ExecutorAsyncTradingApi(TradingApi tradingApi, Executor executor) {
+    this.tradingApi = tradingApi;
+    this.executor = executor;
+  }
+
+  @Override
+  public String getImplName() {
+    return tradingApi.getImplName();
+  }
+
+  @Override
+  public CompletableFuture<MarketOrderBook> getMarketOrders(String marketId) {
+    return run(() -> tradingApi.getMarketOrders(marketId));
+  }
+
+  @Override
+  public CompletableFuture<MarketOrderBook> getMarketOrders(String marketId, int maxLevels) {
+    return run(() -> tradingApi.getMarketOrders(marketId, maxLevels));
+  }
+
+  @Override
+  public CompletableFuture<List<OpenOrder>> getYourOpenOrders(String marketId) {
+    return run(() -> tradingApi.getYourOpenOrders(marketId));
+  }
+
+  @Override
+  public CompletableFuture<String> createOrder(
+      String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+    return run(() -> tradingApi.createOrder(marketId, orderType, quantity, price));
+  }
+
+  @Override
+  public CompletableFuture<String> createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId) {
+    return run(() -> tradingApi.createOrder(marketId, orderType, quantity, price, clientOrderId));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> cancelOrder(String orderId, String marketId) {
+    return run(() -> tradingApi.cancelOrder(orderId, marketId));
+  }
+
+  @Override
+  public CompletableFuture<BigDecimal> getLatestMarketPrice(String marketId) {
+    return run(() -> tradingApi.getLatestMarketPrice(marketId));
+  }
+
+  @Override
+  public CompletableFuture<BalanceInfo> getBalanceInfo() {
+    return run(tradingApi::getBalanceInfo);
+  }
+
+  @Override
+  public CompletableFuture<BigDecimal> getPercentageOfBuyOrderTakenForExchangeFee(
+      String marketId) {
+    return run(() -> tradingApi.getPercentageOfBuyOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public CompletableFuture<BigDecimal> getPercentageOfSellOrderTakenForExchangeFee(
+      String marketId) {
+    return run(() -> tradingApi.getPercentageOfSellOrderTakenForExchangeFee(marketId));
+  }
+
+  @Override
+  public CompletableFuture<Ticker> getTicker(String marketId) {
+    return run(() -> tradingApi.getTicker(marketId));
+  }
+
+  @Override
+  public CompletableFuture<BestBidAsk> getBestBidAsk(String marketId) {
+    return run(() -> tradingApi.getBestBidAsk(marketId));
+  }
+
+  /*
+   * Completes the future with whatever the call throws, rather than wrapping it the way
+   * CompletableFuture.supplyAsync would, so the cause seen by the caller is the Trading API
+   * exception itself.
+   */
+  private <T> CompletableFuture<T> run(TradingApiCall<T> call) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              future.complete(call.call());
+            } catch (Exception e) {
+              future.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+}
@@ -0,0 +1,494 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.trading.api;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An immutable fixed-point decimal: a long unscaled value and a scale, i.e. the number of decimal
+ * places. The value is {@code unscaledValue / 10^scale}.
+ *
+ * <p>It is a lighter alternative to {@link BigDecimal} for prices and quantities on the trading hot
+ * path. Arithmetic is done on longs and only falls back to {@link BigDecimal} if an intermediate
+ * result does not fit in a long. The scale is usually the market's price or volume precision, e.g.
+ * from the Exchange Adapter's {@code PairPrecisionConfig}, and must be between 0 and {@link
+ * #MAX_SCALE}.
+ *
+ * <p>Conversion to and from {@link BigDecimal} is lossless: a value that cannot be held exactly
+ * throws an {@link ArithmeticException} rather than being silently rounded, unless a {@link
+ * RoundingMode} is given.
+ *
+ * <p>Like {@link BigDecimal}, {@link #equals(Object)} takes the scale into account - 2.0 and 2.00
+ * are not equal - but {@link #compareTo(FixedPointDecimal)} does not.
+ *
+ * @author gazbert
+ * @since 1.2
+ */
+public final class FixedPointDecimal implements Comparable<FixedPointDecimal> {
+
+  /** The largest scale supported. 10^18 is the largest power of ten that fits in a long. */
+  public static final int MAX_SCALE = 18;
+
+  private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1L;
+    for (int i = 1; i <= MAX_SCALE; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final long unscaledValue;
+  private final int scale;
+
+  private FixedPointDecimal(long unscaledValue, int scale) {
+    this.unscaledValue = unscaledValue;
+    this.scale = scale;
+  }
+
+  /**
+   * Creates a fixed-point decimal from an unscaled value and a scale.
+   *
+   * @param unscaledValue the unscaled value.
+   * @param scale the number of decimal places.
+   * @return the fixed-point decimal {@code unscaledValue / 10^scale}.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public static FixedPointDecimal of(long unscaledValue, int scale) {
+    return new FixedPointDecimal(unscaledValue, checkScale(scale));
+  }
+
+  /**
+   * Creates a fixed-point decimal from a BigDecimal, keeping its scale. Trailing zeros are dropped
+   * if the BigDecimal's scale is above {@link #MAX_SCALE}, and a negative scale becomes 0.
+   *
+   * @param value the value.
+   * @return the fixed-point decimal.
+   * @throws ArithmeticException if the value cannot be held exactly.
+   */
+  public static FixedPointDecimal valueOf(BigDecimal value) {
+    BigDecimal exactValue = value;
+    if (exactValue.scale() > MAX_SCALE) {
+      exactValue = exactValue.stripTrailingZeros();
+    }
+    return valueOf(exactValue, Math.max(0, exactValue.scale()));
+  }
+
+  /**
+   * Creates a fixed-point decimal from a BigDecimal at the given scale.
+   *
+   * @param value the value.
+   * @param scale the number of decimal places.
+   * @return the fixed-point decimal.
+   * @throws ArithmeticException if the value cannot be held exactly at the given scale.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public static FixedPointDecimal valueOf(BigDecimal value, int scale) {
+    return valueOf(value, scale, RoundingMode.UNNECESSARY);
+  }
+
+  /**
+   * Creates a fixed-point decimal from a BigDecimal at the given scale, rounding if needed.
+   *
+   * @param value the value.
+   * @param scale the number of decimal places.
+   * @param roundingMode how to round the value if it has more decimal places than the scale.
+   * @return the fixed-point decimal.
+   * @throws ArithmeticException if the rounded value does not fit in a long, or rounding is needed
+   *     and the rounding mode is {@link RoundingMode#UNNECESSARY}.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public static FixedPointDecimal valueOf(BigDecimal value, int scale, RoundingMode roundingMode) {
+    checkScale(scale);
+    return new FixedPointDecimal(
+        value.setScale(scale, roundingMode).unscaledValue().longValueExact(), scale);
+  }
+
+  /**
+   * Parses a plain decimal string, e.g. "-1234.5678", at the given scale without creating a
+   * BigDecimal. Extra decimal places are only allowed if they are zeros.
+   *
+   * @param text the decimal string.
+   * @param scale the number of decimal places.
+   * @return the fixed-point decimal.
+   * @throws NumberFormatException if the text is not a plain decimal number.
+   * @throws ArithmeticException if the value cannot be held exactly at the given scale.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public static FixedPointDecimal parse(CharSequence text, int scale) {
+    checkScale(scale);
+    final int length = text.length();
+    int index = 0;
+    boolean negative = false;
+    if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+      negative = text.charAt(0) == '-';
+      index++;
+    }
+
+    // accumulated as a negative number so that Long.MIN_VALUE can be parsed
+    long value = 0;
+    int decimalPlaces = -1;
+    boolean hasDigits = false;
+    for (; index < length; index++) {
+      final char c = text.charAt(index);
+      if (c == '.' && decimalPlaces < 0) {
+        decimalPlaces = 0;
+        continue;
+      }
+      if (c < '0' || c > '9') {
+        throw new NumberFormatException("Not a plain decimal number: " + text);
+      }
+      hasDigits = true;
+      final int digit = c - '0';
+      if (decimalPlaces >= scale) {
+        if (digit != 0) {
+          throw new ArithmeticException(text + " has more than " + scale + " decimal places");
+        }
+        continue;
+      }
+      if (decimalPlaces >= 0) {
+        decimalPlaces++;
+      }
+      value = Math.subtractExact(Math.multiplyExact(value, 10), digit);
+    }
+    if (!hasDigits) {
+      throw new NumberFormatException("Not a plain decimal number: " + text);
+    }
+
+    value = Math.multiplyExact(value, POWERS_OF_TEN[scale - Math.max(0, decimalPlaces)]);
+    return new FixedPointDecimal(negative ? value : Math.negateExact(value), scale);
+  }
+
+  /**
+   * Returns the unscaled value.
+   *
+   * @return the unscaled value.
+   */
+  public long getUnscaledValue() {
+    return unscaledValue;
+  }
+
+  /**
+   * Returns the scale, i.e. the number of decimal places.
+   *
+   * @return the scale.
+   */
+  public int getScale() {
+    return scale;
+  }
+
+  /**
+   * Returns the signum of the value.
+   *
+   * @return -1, 0, or 1 as the value is negative, zero, or positive.
+   */
+  public int signum() {
+    return Long.signum(unscaledValue);
+  }
+
+  /**
+   * Returns the value as a BigDecimal with the same scale.
+   *
+   * @return the BigDecimal value.
+   */
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(unscaledValue, scale);
+  }
+
+  /**
+   * Returns the value at a different scale.
+   *
+   * @param newScale the new number of decimal places.
+   * @param roundingMode how to round if the new scale is smaller.
+   * @return the value at the new scale.
+   * @throws ArithmeticException if the value does not fit in a long at the new scale, or rounding
+   *     is needed and the rounding mode is {@link RoundingMode#UNNECESSARY}.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public FixedPointDecimal setScale(int newScale, RoundingMode roundingMode) {
+    checkScale(newScale);
+    if (newScale == scale) {
+      return this;
+    }
+    return new FixedPointDecimal(rescale(unscaledValue, scale, newScale, roundingMode), newScale);
+  }
+
+  /**
+   * Returns the value with any trailing zero decimal places removed, e.g. 1.2300 becomes 1.23.
+   *
+   * @return the value with trailing zeros removed.
+   */
+  public FixedPointDecimal stripTrailingZeros() {
+    long value = unscaledValue;
+    int newScale = scale;
+    while (newScale > 0 && value % 10 == 0) {
+      value /= 10;
+      newScale--;
+    }
+    return newScale == scale ? this : new FixedPointDecimal(value, newScale);
+  }
+
+  /**
+   * Returns this + augend, at the larger of the two scales.
+   *
+   * @param augend the value to add.
+   * @return the sum.
+   * @throws ArithmeticException if the sum does not fit in a long.
+   */
+  public FixedPointDecimal add(FixedPointDecimal augend) {
+    final int resultScale = Math.max(scale, augend.scale);
+    return new FixedPointDecimal(
+        Math.addExact(
+            upscale(unscaledValue, resultScale - scale),
+            upscale(augend.unscaledValue, resultScale - augend.scale)),
+        resultScale);
+  }
+
+  /**
+   * Returns this - subtrahend, at the larger of the two scales.
+   *
+   * @param subtrahend the value to subtract.
+   * @return the difference.
+   * @throws ArithmeticException if the difference does not fit in a long.
+   */
+  public FixedPointDecimal subtract(FixedPointDecimal subtrahend) {
+    final int resultScale = Math.max(scale, subtrahend.scale);
+    return new FixedPointDecimal(
+        Math.subtractExact(
+            upscale(unscaledValue, resultScale - scale),
+            upscale(subtrahend.unscaledValue, resultScale - subtrahend.scale)),
+        resultScale);
+  }
+
+  /**
+   * Returns -this.
+   *
+   * @return the negated value.
+   * @throws ArithmeticException if the value is the smallest long.
+   */
+  public FixedPointDecimal negate() {
+    return new FixedPointDecimal(Math.negateExact(unscaledValue), scale);
+  }
+
+  /**
+   * Returns this * multiplicand, rounded to the given scale.
+   *
+   * @param multiplicand the value to multiply by.
+   * @param resultScale the number of decimal places of the result.
+   * @param roundingMode how to round the result.
+   * @return the product.
+   * @throws ArithmeticException if the product does not fit in a long, or rounding is needed and
+   *     the rounding mode is {@link RoundingMode#UNNECESSARY}.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public FixedPointDecimal multiply(
+      FixedPointDecimal multiplicand, int resultScale, RoundingMode roundingMode) {
+    checkScale(resultScale);
+    final int productScale = scale + multiplicand.scale;
+    if (fitsInLong(unscaledValue, multiplicand.unscaledValue)
+        && Math.abs(productScale - resultScale) <= MAX_SCALE) {
+      return new FixedPointDecimal(
+          rescale(
+              unscaledValue * multiplicand.unscaledValue, productScale, resultScale, roundingMode),
+          resultScale);
+    }
+    return valueOf(toBigDecimal().multiply(multiplicand.toBigDecimal()), resultScale, roundingMode);
+  }
+
+  /**
+   * Returns this / divisor, rounded to the given scale.
+   *
+   * @param divisor the value to divide by.
+   * @param resultScale the number of decimal places of the result.
+   * @param roundingMode how to round the result.
+   * @return the quotient.
+   * @throws ArithmeticException if the divisor is zero, the quotient does not fit in a long, or
+   *     rounding is needed and the rounding mode is {@link RoundingMode#UNNECESSARY}.
+   * @throws IllegalArgumentException if the scale is not between 0 and {@link #MAX_SCALE}.
+   */
+  public FixedPointDecimal divide(
+      FixedPointDecimal divisor, int resultScale, RoundingMode roundingMode) {
+    checkScale(resultScale);
+    if (divisor.unscaledValue == 0) {
+      throw new ArithmeticException("Division by zero");
+    }
+
+    // this / divisor = (unscaledValue * 10^shift / divisor.unscaledValue) / 10^resultScale
+    final int shift = resultScale - scale + divisor.scale;
+    if (shift >= 0 && shift <= MAX_SCALE && fitsInLong(unscaledValue, POWERS_OF_TEN[shift])) {
+      return new FixedPointDecimal(
+          divideAndRound(
+              unscaledValue * POWERS_OF_TEN[shift], divisor.unscaledValue, roundingMode),
+          resultScale);
+    }
+    if (shift < 0
+        && -shift <= MAX_SCALE
+        && fitsInLong(divisor.unscaledValue, POWERS_OF_TEN[-shift])) {
+      return new FixedPointDecimal(
+          divideAndRound(
+              unscaledValue, divisor.unscaledValue * POWERS_OF_TEN[-shift], roundingMode),
+          resultScale);
+    }
+    return valueOf(
+        toBigDecimal().divide(divisor.toBigDecimal(), resultScale, roundingMode),
+        resultScale,
+        roundingMode);
+  }
+
+  @Override
+  public int compareTo(FixedPointDecimal other) {
+    if (scale == other.scale) {
+      return Long.compare(unscaledValue, other.unscaledValue);
+    }
+    final int commonScale = Math.max(scale, other.scale);
+    final long thisFactor = POWERS_OF_TEN[commonScale - scale];
+    final long otherFactor = POWERS_OF_TEN[commonScale - other.scale];
+    if (fitsInLong(unscaledValue, thisFactor) && fitsInLong(other.unscaledValue, otherFactor)) {
+      return Long.compare(unscaledValue * thisFactor, other.unscaledValue * otherFactor);
+    }
+    return toBigDecimal().compareTo(other.toBigDecimal());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    final FixedPointDecimal that = (FixedPointDecimal) o;
+    return unscaledValue == that.unscaledValue && scale == that.scale;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Long.hashCode(unscaledValue) + scale;
+  }
+
+  /**
+   * Returns the value as a plain decimal string, without an exponent, e.g. "-1234.50".
+   *
+   * @return the plain decimal string.
+   */
+  @Override
+  public String toString() {
+    if (scale == 0) {
+      return Long.toString(unscaledValue);
+    }
+    if (unscaledValue == Long.MIN_VALUE) {
+      return toBigDecimal().toPlainString();
+    }
+
+    final String digits = Long.toString(Math.abs(unscaledValue));
+    final StringBuilder sb = new StringBuilder(digits.length() + scale + 3);
+    if (unscaledValue < 0) {
+      sb.append('-');
+    }
+    final int integerDigits = digits.length() - scale;
+    if (integerDigits > 0) {
+      sb.append(digits, 0, integerDigits)
+          .append('.')
+          .append(digits, integerDigits, digits.length());
+    } else {
+      sb.append("0.");
+      for (int i = integerDigits; i < 0; i++) {
+        sb.append('0');
+      }
+      sb.append(digits);
+    }
+    return sb.toString();
+  }
+
+  private static int checkScale(int scale) {
+    if (scale < 0 || scale > MAX_SCALE) {
+      throw new IllegalArgumentException(
+          "Scale must be between 0 and " + MAX_SCALE + ". Value: " + scale);
+    }
+    return scale;
+  }
+
+  private static boolean fitsInLong(long x, long y) {
+    final long high = Math.multiplyHigh(x, y);
+    final long low = x * y;
+    return (high == 0 && low >= 0) || (high == -1 && low < 0);
+  }
+
+  private static long upscale(long value, int extraDecimalPlaces) {
+    return Math.multiplyExact(value, POWERS_OF_TEN[extraDecimalPlaces]);
+  }
+
+  private static long rescale(long value, int fromScale, int toScale, RoundingMode roundingMode) {
+    if (toScale >= fromScale) {
+      return upscale(value, toScale - fromScale);
+    }
+    return divideAndRound(value, POWERS_OF_TEN[fromScale - toScale], roundingMode);
+  }
+
+  private static long divideAndRound(long dividend, long divisor, RoundingMode roundingMode) {
+    final long quotient = dividend / divisor;
+    final long remainder = dividend % divisor;
+    if (remainder == 0) {
+      return quotient;
+    }
+
+    final int resultSign = Long.signum(dividend) * Long.signum(divisor);
+    final boolean increment;
+    switch (roundingMode) {
+      case UP:
+        increment = true;
+        break;
+      case DOWN:
+        increment = false;
+        break;
+      case CEILING:
+        increment = resultSign > 0;
+        break;
+      case FLOOR:
+        increment = resultSign < 0;
+        break;
+      case HALF_UP:
+      case HALF_DOWN:
+      case HALF_EVEN:
+        // compares the remainder with half the divisor without overflowing
+        final long absRemainder = Math.abs(remainder);
+        final int half = Long.compare(absRemainder, Math.abs(divisor) - absRemainder);
+        if (half != 0) {
+          increment = half > 0;
+        } else if (roundingMode == RoundingMode.HALF_UP) {
+          increment = true;
+        } else if (roundingMode == RoundingMode.HALF_DOWN) {
+          increment = false;
+        } else {
+          increment = (quotient & 1) != 0;
+        }
+        break;
+      default:
+        throw new ArithmeticException("Rounding necessary");
+    }
+    return increment ? quotient + resultSign : quotient;
+  }
+}
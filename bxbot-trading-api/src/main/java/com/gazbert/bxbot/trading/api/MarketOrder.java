@@ -63,4 +63,32 @@ public interface MarketOrder {
    * @return Total value of order (price * quantity).
    */
   BigDecimal getTotal();
+
+  /**
+   * Returns the price of the order as a fixed-point decimal, at the scale the exchange sent it.
+   *
+   * <p>The default implementation converts {@link #getPrice()}; Market Order Books that hold
+   * fixed-point values should override it.
+   *
+   * @return Price of the order.
+   * @throws ArithmeticException if the price cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointPrice() {
+    return FixedPointDecimal.valueOf(getPrice());
+  }
+
+  /**
+   * Returns the quantity of the order as a fixed-point decimal, at the scale the exchange sent it.
+   *
+   * <p>The default implementation converts {@link #getQuantity()}; Market Order Books that hold
+   * fixed-point values should override it.
+   *
+   * @return Quantity of the order.
+   * @throws ArithmeticException if the quantity cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointQuantity() {
+    return FixedPointDecimal.valueOf(getQuantity());
+  }
 }
@@ -93,4 +93,15 @@ public interface OpenOrder {
    * @return the Total value of order (price * quantity).
    */
   BigDecimal getTotal();
+
+  /**
+   * Returns the client order id the order was placed with. If the order was placed without one, or
+   * the Exchange does not provide this information, the value will be null.
+   *
+   * @return the client order id if known, null otherwise.
+   * @since 1.2
+   */
+  default String getClientOrderId() {
+    return null;
+  }
 }
@@ -101,4 +101,49 @@ public interface Ticker {
    * @return the current time on the exchange if provided, null otherwise.
    */
   Long getTimestamp();
+
+  /**
+   * Returns the last trade price as a fixed-point decimal.
+   *
+   * <p>The default implementation converts {@link #getLast()}; Tickers that hold fixed-point values
+   * should override it.
+   *
+   * @return the last trade price if the exchange provides it, null otherwise.
+   * @throws ArithmeticException if the price cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointLast() {
+    final BigDecimal last = getLast();
+    return last == null ? null : FixedPointDecimal.valueOf(last);
+  }
+
+  /**
+   * Returns the highest buy order price as a fixed-point decimal.
+   *
+   * <p>The default implementation converts {@link #getBid()}; Tickers that hold fixed-point values
+   * should override it.
+   *
+   * @return the highest buy order price if the exchange provides it, null otherwise.
+   * @throws ArithmeticException if the price cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointBid() {
+    final BigDecimal bid = getBid();
+    return bid == null ? null : FixedPointDecimal.valueOf(bid);
+  }
+
+  /**
+   * Returns the lowest sell order price as a fixed-point decimal.
+   *
+   * <p>The default implementation converts {@link #getAsk()}; Tickers that hold fixed-point values
+   * should override it.
+   *
+   * @return the lowest sell order price if the exchange provides it, null otherwise.
+   * @throws ArithmeticException if the price cannot be held exactly as a fixed-point decimal.
+   * @since 1.2
+   */
+  default FixedPointDecimal getFixedPointAsk() {
+    final BigDecimal ask = getAsk();
+    return ask == null ? null : FixedPointDecimal.valueOf(ask);
+  }
 }
@@ -25,6 +25,7 @@ package com.gazbert.bxbot.trading.api;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * BX-bot's Trading API.
@@ -80,6 +81,59 @@ public interface TradingApi {
   MarketOrderBook getMarketOrders(String marketId)
       throws ExchangeNetworkException, TradingApiException;
 
+  /**
+   * Fetches latest <em>market</em> orders for a given market, up to the given number of price
+   * levels on each side of the book.
+   *
+   * <p>Trading Strategies that only look at the top of the book should use this instead of {@link
+   * #getMarketOrders(String)}: less data is downloaded, parsed and held each trade cycle. The
+   * default implementation fetches the full order book and truncates it; Exchange Adapters
+   * override it to use the exchange's own depth parameter where it has one.
+   *
+   * @param marketId the id of the market.
+   * @param maxLevels the max number of price levels to return on each side of the book. Must be at
+   *     least 1.
+   * @return the market order book, with at most maxLevels buy orders and maxLevels sell orders.
+   * @throws IllegalArgumentException if maxLevels is less than 1.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.2
+   */
+  default MarketOrderBook getMarketOrders(String marketId, int maxLevels)
+      throws ExchangeNetworkException, TradingApiException {
+
+    if (maxLevels < 1) {
+      throw new IllegalArgumentException("maxLevels must be at least 1 but was: " + maxLevels);
+    }
+
+    final MarketOrderBook orderBook = getMarketOrders(marketId);
+    final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
+    final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+
+    return new MarketOrderBook() {
+      @Override
+      public String getMarketId() {
+        return orderBook.getMarketId();
+      }
+
+      @Override
+      public List<MarketOrder> getSellOrders() {
+        return sellOrders.size() > maxLevels ? sellOrders.subList(0, maxLevels) : sellOrders;
+      }
+
+      @Override
+      public List<MarketOrder> getBuyOrders() {
+        return buyOrders.size() > maxLevels ? buyOrders.subList(0, maxLevels) : buyOrders;
+      }
+    };
+  }
+
   /**
    * Fetches <em>your</em> current open orders, i.e. the orders placed by the bot.
    *
@@ -119,6 +173,142 @@ public interface TradingApi {
   String createOrder(String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price)
       throws ExchangeNetworkException, TradingApiException;
 
+  /**
+   * Places an order on the exchange, using fixed-point decimals for the quantity and price.
+   *
+   * <p>The default implementation converts them to BigDecimals and delegates to {@link
+   * #createOrder(String, OrderType, BigDecimal, BigDecimal)}; Exchange Adapters should override it
+   * if they can send fixed-point values to the exchange as they are.
+   *
+   * @param marketId the id of the market.
+   * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+   * @param quantity amount of units you are buying/selling in this order.
+   * @param price the price per unit you are buying/selling at.
+   * @return the id of the order.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.2
+   */
+  default String createOrder(
+      String marketId, OrderType orderType, FixedPointDecimal quantity, FixedPointDecimal price)
+      throws ExchangeNetworkException, TradingApiException {
+    return createOrder(marketId, orderType, quantity.toBigDecimal(), price.toBigDecimal());
+  }
+
+  /**
+   * Places an order on the exchange, tagged with a client order id.
+   *
+   * <p>The client order id is generated by the caller and sent with the order, so that if the call
+   * fails with an {@link ExchangeNetworkException} the order can be looked up using {@link
+   * #getOrderIdByClientOrderId(String, String)} to find out whether it reached the exchange. To
+   * retry the order safely, retry it with the same client order id; never resend it with a new one,
+   * as the first order may already have been placed, or even filled.
+   *
+   * <p>Exchange Adapters that do not support client order ids ignore it - see {@link
+   * #supportsClientOrderIds()}. The default implementation delegates to {@link
+   * #createOrder(String, OrderType, BigDecimal, BigDecimal)}.
+   *
+   * @param marketId the id of the market.
+   * @param orderType Value must be {@link OrderType#BUY} or {@link OrderType#SELL}.
+   * @param quantity amount of units you are buying/selling in this order.
+   * @param price the price per unit you are buying/selling at.
+   * @param clientOrderId the client order id, or null to let the exchange assign the order id only.
+   * @return the id of the order.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could look the order up by its client order id, or exit from
+   *     your Trading Strategy and let the Trading Engine execute your Trading Strategy at the next
+   *     trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.2
+   */
+  default String createOrder(
+      String marketId,
+      OrderType orderType,
+      BigDecimal quantity,
+      BigDecimal price,
+      String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    return createOrder(marketId, orderType, quantity, price);
+  }
+
+  /**
+   * Returns true if the Exchange Adapter sends client order ids to the exchange and can look orders
+   * up by them. The default implementation returns false.
+   *
+   * @return true if client order ids are supported, false otherwise.
+   * @since 1.2
+   */
+  default boolean supportsClientOrderIds() {
+    return false;
+  }
+
+  /**
+   * Fetches your open order with the given client order id.
+   *
+   * <p>The default implementation scans {@link #getYourOpenOrders(String)}; Exchange Adapters
+   * should override it if the exchange can look orders up by client order id directly.
+   *
+   * @param marketId the id of the market the order was placed on, e.g. btc_usd
+   * @param clientOrderId the client order id the order was placed with.
+   * @return the open order, or null if there is no open order with the given client order id.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.2
+   */
+  default OpenOrder getOpenOrderByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    for (final OpenOrder openOrder : getYourOpenOrders(marketId)) {
+      if (clientOrderId.equals(openOrder.getClientOrderId())) {
+        return openOrder;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Fetches the id of the order placed with the given client order id, whether it is still open,
+   * has been filled, or has been cancelled.
+   *
+   * <p>The default implementation only finds open orders, using {@link
+   * #getOpenOrderByClientOrderId(String, String)}; Exchange Adapters that support client order ids
+   * should override it to look in the exchange's order history too.
+   *
+   * @param marketId the id of the market the order was placed on, e.g. btc_usd
+   * @param clientOrderId the client order id the order was placed with.
+   * @return the id of the order, or null if the exchange has no order with the given client order
+   *     id.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.2
+   */
+  default String getOrderIdByClientOrderId(String marketId, String clientOrderId)
+      throws ExchangeNetworkException, TradingApiException {
+    final OpenOrder openOrder = getOpenOrderByClientOrderId(marketId, clientOrderId);
+    return openOrder == null ? null : openOrder.getId();
+  }
+
   /**
    * Cancels your existing order on the exchange.
    *
@@ -284,4 +474,62 @@ public interface TradingApi {
       }
     };
   }
+
+  /**
+   * Fetches the best bid and ask prices for a given market.
+   *
+   * <p>Trading Strategies that only need the spread should use this instead of {@link
+   * #getMarketOrders(String)}. The default implementation takes the prices from the top of the
+   * full order book; Exchange Adapters override it to use the exchange's cheapest endpoint, e.g.
+   * its ticker, so a lot less data is downloaded each trade cycle.
+   *
+   * @param marketId the id of the market.
+   * @return the best bid and ask prices.
+   * @throws ExchangeNetworkException if a network error occurred trying to connect to the exchange.
+   *     This is implementation specific for each Exchange Adapter - see the documentation for the
+   *     adapter you are using. You could retry the API call, or exit from your Trading Strategy and
+   *     let the Trading Engine execute your Trading Strategy at the next trade cycle.
+   * @throws TradingApiException if the API call failed for any reason other than a network error.
+   *     This means something bad as happened; you would probably want to wrap this exception in a
+   *     StrategyException and let the Trading Engine shutdown the bot immediately to prevent
+   *     unexpected losses.
+   * @since 1.2
+   */
+  default BestBidAsk getBestBidAsk(String marketId)
+      throws ExchangeNetworkException, TradingApiException {
+
+    final MarketOrderBook orderBook = getMarketOrders(marketId);
+    final List<MarketOrder> buyOrders = orderBook.getBuyOrders();
+    final List<MarketOrder> sellOrders = orderBook.getSellOrders();
+    final BigDecimal bid = buyOrders.isEmpty() ? null : buyOrders.get(0).getPrice();
+    final BigDecimal ask = sellOrders.isEmpty() ? null : sellOrders.get(0).getPrice();
+
+    return new BestBidAsk() {
+      @Override
+      public BigDecimal getBid() {
+        return bid;
+      }
+
+      @Override
+      public BigDecimal getAsk() {
+        return ask;
+      }
+    };
+  }
+
+  /**
+   * Returns the asynchronous version of this Trading API, so a Trading Strategy can make several
+   * calls at once and then wait for them together.
+   *
+   * <p>The default implementation runs the blocking calls on the given executor, which should be
+   * bounded. Exchange Adapters can override it to send calls without blocking a thread while the
+   * exchange answers, and only use the executor to adapt the responses.
+   *
+   * @param executor runs the calls, or adapts their responses.
+   * @return the asynchronous Trading API.
+   * @since 1.2
+   */
+  default AsyncTradingApi async(Executor executor) {
+    return new ExecutorAsyncTradingApi(this, executor);
+  }
 }
@@ -0,0 +1,238 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.gazbert.bxbot.trading.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the executor backed async Trading API.
+ *
+ * @author gazbert
+ */
+public class TestExecutorAsyncTradingApi {
+
+  private static final String MARKET_ID = "btcusd";
+  private static final BigDecimal PRICE = new BigDecimal("9000.12");
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+  @After
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testCallsAreDelegatedToBlockingApi() throws Exception {
+    final AsyncTradingApi asyncApi = new StubApi().async(executor);
+
+    assertEquals("stub", asyncApi.getImplName());
+    assertEquals(MARKET_ID, get(asyncApi.getMarketOrders(MARKET_ID)).getMarketId());
+    assertEquals(MARKET_ID, get(asyncApi.getMarketOrders(MARKET_ID, 1)).getMarketId());
+    assertTrue(get(asyncApi.getYourOpenOrders(MARKET_ID)).isEmpty());
+    assertEquals(
+        "order-1",
+        get(asyncApi.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, PRICE)));
+    assertEquals(
+        "order-client-1",
+        get(asyncApi.createOrder(MARKET_ID, OrderType.BUY, BigDecimal.ONE, PRICE, "client-1")));
+    assertTrue(get(asyncApi.cancelOrder("order-1", MARKET_ID)));
+    assertEquals(PRICE, get(asyncApi.getLatestMarketPrice(MARKET_ID)));
+    assertNull(get(asyncApi.getBalanceInfo()));
+    assertEquals(
+        new BigDecimal("0.0025"),
+        get(asyncApi.getPercentageOfBuyOrderTakenForExchangeFee(MARKET_ID)));
+    assertEquals(
+        new BigDecimal("0.0026"),
+        get(asyncApi.getPercentageOfSellOrderTakenForExchangeFee(MARKET_ID)));
+    assertNull(get(asyncApi.getTicker(MARKET_ID)).getLast());
+    assertNull(get(asyncApi.getBestBidAsk(MARKET_ID)).getBid());
+  }
+
+  /** Three calls are made at once; each blocks until all three are running on the executor. */
+  @Test
+  public void testCallsRunConcurrently() throws Exception {
+    final CountDownLatch allRunning = new CountDownLatch(3);
+    final Set<String> threads = ConcurrentHashMap.newKeySet();
+    final StubApi blockingApi =
+        new StubApi() {
+          @Override
+          public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException {
+            threads.add(Thread.currentThread().getName());
+            allRunning.countDown();
+            try {
+              if (!allRunning.await(5, TimeUnit.SECONDS)) {
+                throw new ExchangeNetworkException("Calls did not run concurrently");
+              }
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return PRICE;
+          }
+        };
+    final AsyncTradingApi asyncApi = new ExecutorAsyncTradingApi(blockingApi, executor);
+
+    final CompletableFuture<BigDecimal> call1 = asyncApi.getLatestMarketPrice(MARKET_ID);
+    final CompletableFuture<BigDecimal> call2 = asyncApi.getLatestMarketPrice(MARKET_ID);
+    final CompletableFuture<BigDecimal> call3 = asyncApi.getLatestMarketPrice(MARKET_ID);
+    CompletableFuture.allOf(call1, call2, call3).get(10, TimeUnit.SECONDS);
+
+    assertEquals(PRICE, call3.get());
+    assertEquals(3, threads.size());
+  }
+
+  @Test
+  public void testTradingApiExceptionCompletesFutureExceptionally() throws Exception {
+    final TradingApiException failure = new TradingApiException("Exchange said no");
+    final StubApi blockingApi =
+        new StubApi() {
+          @Override
+          public BalanceInfo getBalanceInfo() throws TradingApiException {
+            throw failure;
+          }
+        };
+
+    final CompletableFuture<BalanceInfo> balances = blockingApi.async(executor).getBalanceInfo();
+    try {
+      balances.get(10, TimeUnit.SECONDS);
+      fail("Expected ExecutionException");
+    } catch (ExecutionException e) {
+      assertSame(failure, e.getCause());
+    }
+  }
+
+  @Test
+  public void testRejectedCallCompletesFutureExceptionally() {
+    executor.shutdown();
+    final CompletableFuture<BigDecimal> price =
+        new StubApi().async(executor).getLatestMarketPrice(MARKET_ID);
+
+    assertTrue(price.isCompletedExceptionally());
+    try {
+      price.join();
+      fail("Expected CompletionException");
+    } catch (RuntimeException e) {
+      assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+    assertFalse(price.isCancelled());
+  }
+
+  private static <T> T get(CompletableFuture<T> future) throws Exception {
+    return future.get(10, TimeUnit.SECONDS);
+  }
+
+  /** Blocking Trading API that answers straight away. */
+  private static class StubApi implements TradingApi {
+
+    @Override
+    public String getImplName() {
+      return "stub";
+    }
+
+    @Override
+    public MarketOrderBook getMarketOrders(String marketId) {
+      return new MarketOrderBook() {
+        @Override
+        public String getMarketId() {
+          return marketId;
+        }
+
+        @Override
+        public List<MarketOrder> getSellOrders() {
+          return Collections.emptyList();
+        }
+
+        @Override
+        public List<MarketOrder> getBuyOrders() {
+          return Collections.emptyList();
+        }
+      };
+    }
+
+    @Override
+    public List<OpenOrder> getYourOpenOrders(String marketId) {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public String createOrder(
+        String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+      return "order-1";
+    }
+
+    @Override
+    public String createOrder(
+        String marketId,
+        OrderType orderType,
+        BigDecimal quantity,
+        BigDecimal price,
+        String clientOrderId) {
+      return "order-" + clientOrderId;
+    }
+
+    @Override
+    public boolean cancelOrder(String orderId, String marketId) {
+      return true;
+    }
+
+    @Override
+    public BigDecimal getLatestMarketPrice(String marketId) throws ExchangeNetworkException {
+      return PRICE;
+    }
+
+    @Override
+    public BalanceInfo getBalanceInfo() throws TradingApiException {
+      return null;
+    }
+
+    @Override
+    public BigDecimal getPercentageOfBuyOrderTakenForExchangeFee(String marketId) {
+      return new BigDecimal("0.0025");
+    }
+
+    @Override
+    public BigDecimal getPercentageOfSellOrderTakenForExchangeFee(String marketId) {
+      return new BigDecimal("0.0026");
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 gazbert
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package com.gazbert.bxbot.trading.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import org.junit.Test;
+
+/**
+ * Tests the FixedPointDecimal behaves as expected.
+ *
+ * @author gazbert
+ */
+public class TestFixedPointDecimal {
+
+  private static final RoundingMode[] ROUNDING_MODES = {
+    RoundingMode.UP,
+    RoundingMode.DOWN,
+    RoundingMode.CEILING,
+    RoundingMode.FLOOR,
+    RoundingMode.HALF_UP,
+    RoundingMode.HALF_DOWN,
+    RoundingMode.HALF_EVEN
+  };
+
+  private static final String[] VALUES = {
+    "0", "1", "-1", "0.5", "-0.5", "2.5", "-2.5", "1454.018", "0.02", "-0.0001", "35",
+    "123.87654321", "-98765.4321"
+  };
+
+  @Test
+  public void testCreationFromUnscaledValueAndScale() {
+    final FixedPointDecimal value = FixedPointDecimal.of(145401800, 5);
+    assertEquals(145401800, value.getUnscaledValue());
+    assertEquals(5, value.getScale());
+    assertEquals(1, value.signum());
+    assertEquals(new BigDecimal("1454.01800"), value.toBigDecimal());
+    assertEquals("1454.01800", value.toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeScaleIsRejected() {
+    FixedPointDecimal.of(1, -1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testScaleAboveMaxIsRejected() {
+    FixedPointDecimal.of(1, FixedPointDecimal.MAX_SCALE + 1);
+  }
+
+  @Test
+  public void testConversionToAndFromBigDecimalIsLossless() {
+    for (final String text : VALUES) {
+      final BigDecimal value = new BigDecimal(text);
+      assertEquals(value, FixedPointDecimal.valueOf(value).toBigDecimal());
+      assertEquals(text, FixedPointDecimal.valueOf(value).toString());
+    }
+    assertEquals(FixedPointDecimal.of(1000, 0), FixedPointDecimal.valueOf(new BigDecimal("1E+3")));
+    assertEquals(
+        FixedPointDecimal.of(5, 1),
+        FixedPointDecimal.valueOf(new BigDecimal("0.50000000000000000000")));
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testBigDecimalThatNeedsRoundingIsRejected() {
+    FixedPointDecimal.valueOf(new BigDecimal("1.23456789"), 2);
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testBigDecimalTooBigForLongIsRejected() {
+    FixedPointDecimal.valueOf(new BigDecimal("123456789012345678901234567890"));
+  }
+
+  @Test
+  public void testBigDecimalCanBeRoundedToScale() {
+    assertEquals(
+        FixedPointDecimal.of(123, 2),
+        FixedPointDecimal.valueOf(new BigDecimal("1.23456789"), 2, RoundingMode.HALF_UP));
+    assertEquals(
+        FixedPointDecimal.of(12300, 4),
+        FixedPointDecimal.valueOf(new BigDecimal("1.23"), 4, RoundingMode.UNNECESSARY));
+  }
+
+  @Test
+  public void testParsing() {
+    assertEquals(FixedPointDecimal.of(145401800, 5), FixedPointDecimal.parse("1454.018", 5));
+    assertEquals(FixedPointDecimal.of(-50, 2), FixedPointDecimal.parse("-0.5000", 2));
+    assertEquals(FixedPointDecimal.of(500, 2), FixedPointDecimal.parse("+5", 2));
+    assertEquals(FixedPointDecimal.of(5, 1), FixedPointDecimal.parse(".5", 1));
+    assertEquals(FixedPointDecimal.of(5, 0), FixedPointDecimal.parse("5.", 0));
+    assertEquals(
+        FixedPointDecimal.of(Long.MIN_VALUE, 0),
+        FixedPointDecimal.parse(Long.toString(Long.MIN_VALUE), 0));
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testParsingValueWithTooManyDecimalPlacesIsRejected() {
+    FixedPointDecimal.parse("1.234", 2);
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testParsingValueTooBigForLongIsRejected() {
+    FixedPointDecimal.parse("92233720368547758.08", 2);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParsingMalformedValueIsRejected() {
+    FixedPointDecimal.parse("1.2.3", 2);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParsingSignWithoutDigitsIsRejected() {
+    FixedPointDecimal.parse("-", 2);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParsingExponentIsRejected() {
+    FixedPointDecimal.parse("1E+3", 2);
+  }
+
+  @Test
+  public void testArithmeticMatchesBigDecimal() {
+    for (final String left : VALUES) {
+      for (final String right : VALUES) {
+        final BigDecimal x = new BigDecimal(left);
+        final BigDecimal y = new BigDecimal(right);
+        final FixedPointDecimal fx = FixedPointDecimal.valueOf(x);
+        final FixedPointDecimal fy = FixedPointDecimal.valueOf(y);
+
+        assertEquals(x.add(y), fx.add(fy).toBigDecimal());
+        assertEquals(x.subtract(y), fx.subtract(fy).toBigDecimal());
+        assertEquals(x.compareTo(y), fx.compareTo(fy));
+
+        for (final RoundingMode roundingMode : ROUNDING_MODES) {
+          for (int scale = 0; scale <= 8; scale++) {
+            assertEquals(
+                x.multiply(y).setScale(scale, roundingMode),
+                fx.multiply(fy, scale, roundingMode).toBigDecimal());
+            if (y.signum() != 0) {
+              assertEquals(
+                  x.divide(y, scale, roundingMode),
+                  fx.divide(fy, scale, roundingMode).toBigDecimal());
+            }
+            assertEquals(
+                x.setScale(scale, roundingMode), fx.setScale(scale, roundingMode).toBigDecimal());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMultiplyFallsBackToBigDecimalWhenProductOverflowsLong() {
+    final FixedPointDecimal price = FixedPointDecimal.of(5000012345678901L, 12);
+    final FixedPointDecimal quantity = FixedPointDecimal.of(123456789012L, 8);
+    assertEquals(
+        price.toBigDecimal().multiply(quantity.toBigDecimal()).setScale(8, RoundingMode.HALF_UP),
+        price.multiply(quantity, 8, RoundingMode.HALF_UP).toBigDecimal());
+  }
+
+  @Test
+  public void testDivideFallsBackToBigDecimalWhenDividendOverflowsLong() {
+    final FixedPointDecimal amount = FixedPointDecimal.of(9_000_000_000_000_001L, 2);
+    final FixedPointDecimal price = FixedPointDecimal.of(300, 2);
+    assertEquals(
+        amount.toBigDecimal().divide(price.toBigDecimal(), 4, RoundingMode.HALF_DOWN),
+        amount.divide(price, 4, RoundingMode.HALF_DOWN).toBigDecimal());
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testDivideByZeroIsRejected() {
+    FixedPointDecimal.of(1, 0).divide(FixedPointDecimal.of(0, 2), 2, RoundingMode.HALF_UP);
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testRoundingIsRejectedWhenUnnecessaryRoundingModeIsUsed() {
+    FixedPointDecimal.of(125, 2).setScale(1, RoundingMode.UNNECESSARY);
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testAddOverflowIsRejected() {
+    FixedPointDecimal.of(Long.MAX_VALUE, 0).add(FixedPointDecimal.of(1, 0));
+  }
+
+  @Test
+  public void testStripTrailingZeros() {
+    assertEquals(
+        FixedPointDecimal.of(123, 2), FixedPointDecimal.of(1230000, 6).stripTrailingZeros());
+    assertEquals(FixedPointDecimal.of(0, 0), FixedPointDecimal.of(0, 8).stripTrailingZeros());
+    assertEquals(FixedPointDecimal.of(100, 0), FixedPointDecimal.of(100, 0).stripTrailingZeros());
+
+    final FixedPointDecimal noTrailingZeros = FixedPointDecimal.of(123, 2);
+    assertSame(noTrailingZeros, noTrailingZeros.stripTrailingZeros());
+  }
+
+  @Test
+  public void testEqualsTakesScaleIntoAccountButCompareToDoesNot() {
+    final FixedPointDecimal twoPointZero = FixedPointDecimal.of(20, 1);
+    final FixedPointDecimal twoPointZeroZero = FixedPointDecimal.of(200, 2);
+
+    assertNotEquals(twoPointZero, twoPointZeroZero);
+    assertEquals(0, twoPointZero.compareTo(twoPointZeroZero));
+    assertEquals(twoPointZero, FixedPointDecimal.of(20, 1));
+    assertEquals(twoPointZero.hashCode(), FixedPointDecimal.of(20, 1).hashCode());
+    assertTrue(FixedPointDecimal.of(-1, 18).compareTo(FixedPointDecimal.of(0, 0)) < 0);
+  }
+
+  @Test
+  public void testToStringIsPlain() {
+    assertEquals("0.00000001", FixedPointDecimal.of(1, 8).toString());
+    assertEquals("-0.00000001", FixedPointDecimal.of(-1, 8).toString());
+    assertEquals("-12.5", FixedPointDecimal.of(-125, 1).toString());
+    assertEquals("42", FixedPointDecimal.of(42, 0).toString());
+    assertEquals("-9.223372036854775808", FixedPointDecimal.of(Long.MIN_VALUE, 18).toString());
+  }
+}
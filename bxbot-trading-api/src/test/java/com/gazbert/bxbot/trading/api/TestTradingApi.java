@@ -24,10 +24,13 @@
 package com.gazbert.bxbot.trading.api;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import org.junit.Test;
 
@@ -59,6 +62,251 @@ public class TestTradingApi {
     assertNull(ticker.getVolume());
     assertNull(ticker.getVwap());
     assertNull(ticker.getTimestamp());
+    assertNull(ticker.getFixedPointLast());
+    assertNull(ticker.getFixedPointBid());
+    assertNull(ticker.getFixedPointAsk());
+  }
+
+  @Test
+  public void testGetBestBidAskFallsBackToTopOfOrderBook() throws Exception {
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public MarketOrderBook getMarketOrders(String marketId) {
+            return createOrderBook(
+                marketId,
+                List.of(
+                    createMarketOrder(OrderType.BUY, "100.5"),
+                    createMarketOrder(OrderType.BUY, "100.4")),
+                List.of(
+                    createMarketOrder(OrderType.SELL, "100.6"),
+                    createMarketOrder(OrderType.SELL, "100.7")));
+          }
+        };
+
+    final BestBidAsk bestBidAsk = myApi.getBestBidAsk("market-123");
+    assertEquals(new BigDecimal("100.5"), bestBidAsk.getBid());
+    assertEquals(new BigDecimal("100.6"), bestBidAsk.getAsk());
+    assertEquals(FixedPointDecimal.of(1005, 1), bestBidAsk.getFixedPointBid());
+    assertEquals(FixedPointDecimal.of(1006, 1), bestBidAsk.getFixedPointAsk());
+  }
+
+  @Test
+  public void testGetBestBidAskReturnsNullPricesForEmptyOrderBook() throws Exception {
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public MarketOrderBook getMarketOrders(String marketId) {
+            return createOrderBook(marketId, Collections.emptyList(), Collections.emptyList());
+          }
+        };
+
+    final BestBidAsk bestBidAsk = myApi.getBestBidAsk("market-123");
+    assertNull(bestBidAsk.getBid());
+    assertNull(bestBidAsk.getAsk());
+    assertNull(bestBidAsk.getFixedPointBid());
+    assertNull(bestBidAsk.getFixedPointAsk());
+  }
+
+  @Test
+  public void testGetMarketOrdersWithMaxLevelsTruncatesFullOrderBook() throws Exception {
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public MarketOrderBook getMarketOrders(String marketId) {
+            return createOrderBook(
+                marketId,
+                List.of(
+                    createMarketOrder(OrderType.BUY, "100.5"),
+                    createMarketOrder(OrderType.BUY, "100.4"),
+                    createMarketOrder(OrderType.BUY, "100.3")),
+                List.of(createMarketOrder(OrderType.SELL, "100.6")));
+          }
+        };
+
+    final MarketOrderBook orderBook = myApi.getMarketOrders("market-123", 2);
+    assertEquals("market-123", orderBook.getMarketId());
+    assertEquals(2, orderBook.getBuyOrders().size());
+    assertEquals(new BigDecimal("100.4"), orderBook.getBuyOrders().get(1).getPrice());
+    assertEquals(1, orderBook.getSellOrders().size());
+    assertEquals(new BigDecimal("100.6"), orderBook.getSellOrders().get(0).getPrice());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetMarketOrdersWithMaxLevelsRejectsZeroLevels() throws Exception {
+    new MyApiImpl().getMarketOrders("market-123", 0);
+  }
+
+  @Test
+  public void testMarketOrderCanBeReadAsFixedPoint() {
+    final MarketOrder marketOrder = createMarketOrder(OrderType.BUY, "100.50");
+    assertEquals(FixedPointDecimal.of(10050, 2), marketOrder.getFixedPointPrice());
+    assertEquals(FixedPointDecimal.of(1, 0), marketOrder.getFixedPointQuantity());
+  }
+
+  @Test
+  public void testCreateOrderWithFixedPointValuesDelegatesToBigDecimalCreateOrder()
+      throws Exception {
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public String createOrder(
+              String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            assertEquals(new BigDecimal("0.01500000"), quantity);
+            assertEquals(new BigDecimal("100.50"), price);
+            return "order-1";
+          }
+        };
+
+    assertEquals(
+        "order-1",
+        myApi.createOrder(
+            "market-123",
+            OrderType.BUY,
+            FixedPointDecimal.of(1500000, 8),
+            FixedPointDecimal.of(10050, 2)));
+  }
+
+  @Test
+  public void testCreateOrderWithClientOrderIdIgnoresItByDefault() throws Exception {
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public String createOrder(
+              String marketId, OrderType orderType, BigDecimal quantity, BigDecimal price) {
+            return "order-1";
+          }
+        };
+
+    assertFalse(myApi.supportsClientOrderIds());
+    assertEquals(
+        "order-1",
+        myApi.createOrder("market-123", OrderType.BUY, BigDecimal.ONE, BigDecimal.TEN, "client-1"));
+  }
+
+  @Test
+  public void testGetOpenOrderByClientOrderIdScansOpenOrders() throws Exception {
+    final OpenOrder untagged = createOpenOrder("order-1", null);
+    final OpenOrder tagged = createOpenOrder("order-2", "client-2");
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public List<OpenOrder> getYourOpenOrders(String marketId) {
+            return List.of(untagged, tagged);
+          }
+        };
+
+    assertEquals(tagged, myApi.getOpenOrderByClientOrderId("market-123", "client-2"));
+    assertNull(myApi.getOpenOrderByClientOrderId("market-123", "client-3"));
+    assertNull(untagged.getClientOrderId());
+  }
+
+  @Test
+  public void testGetOrderIdByClientOrderIdFindsOpenOrdersByDefault() throws Exception {
+    final OpenOrder tagged = createOpenOrder("order-2", "client-2");
+    final MyApiImpl myApi =
+        new MyApiImpl() {
+          @Override
+          public List<OpenOrder> getYourOpenOrders(String marketId) {
+            return List.of(tagged);
+          }
+        };
+
+    assertEquals("order-2", myApi.getOrderIdByClientOrderId("market-123", "client-2"));
+    assertNull(myApi.getOrderIdByClientOrderId("market-123", "client-3"));
+  }
+
+  private static OpenOrder createOpenOrder(String id, String clientOrderId) {
+    return new OpenOrder() {
+      @Override
+      public String getId() {
+        return id;
+      }
+
+      @Override
+      public Date getCreationDate() {
+        return null;
+      }
+
+      @Override
+      public String getMarketId() {
+        return "market-123";
+      }
+
+      @Override
+      public OrderType getType() {
+        return OrderType.BUY;
+      }
+
+      @Override
+      public BigDecimal getPrice() {
+        return null;
+      }
+
+      @Override
+      public BigDecimal getQuantity() {
+        return null;
+      }
+
+      @Override
+      public BigDecimal getOriginalQuantity() {
+        return null;
+      }
+
+      @Override
+      public BigDecimal getTotal() {
+        return null;
+      }
+
+      @Override
+      public String getClientOrderId() {
+        return clientOrderId == null ? OpenOrder.super.getClientOrderId() : clientOrderId;
+      }
+    };
+  }
+
+  private static MarketOrderBook createOrderBook(
+      String marketId, List<MarketOrder> buyOrders, List<MarketOrder> sellOrders) {
+    return new MarketOrderBook() {
+      @Override
+      public String getMarketId() {
+        return marketId;
+      }
+
+      @Override
+      public List<MarketOrder> getSellOrders() {
+        return sellOrders;
+      }
+
+      @Override
+      public List<MarketOrder> getBuyOrders() {
+        return buyOrders;
+      }
+    };
+  }
+
+  private static MarketOrder createMarketOrder(OrderType type, String price) {
+    return new MarketOrder() {
+      @Override
+      public OrderType getType() {
+        return type;
+      }
+
+      @Override
+      public BigDecimal getPrice() {
+        return new BigDecimal(price);
+      }
+
+      @Override
+      public BigDecimal getQuantity() {
+        return BigDecimal.ONE;
+      }
+
+      @Override
+      public BigDecimal getTotal() {
+        return getPrice();
+      }
+    };
   }
 
   /** Test class. */
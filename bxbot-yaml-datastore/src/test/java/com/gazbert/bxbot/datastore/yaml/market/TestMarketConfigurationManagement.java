@@ -26,6 +26,7 @@ package com.gazbert.bxbot.datastore.yaml.market;
 import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.gazbert.bxbot.datastore.yaml.ConfigurationManager;
@@ -79,6 +80,8 @@ public class TestMarketConfigurationManagement {
     assertEquals("USD", marketsType.getMarkets().get(0).getCounterCurrency());
     assertTrue(marketsType.getMarkets().get(0).isEnabled());
     assertEquals("scalping-strategy", marketsType.getMarkets().get(0).getTradingStrategyId());
+    assertNull(marketsType.getMarkets().get(0).getTradeCycleInterval());
+    assertNull(marketsType.getMarkets().get(0).getPriority());
 
     assertEquals("ltc_usd", marketsType.getMarkets().get(1).getId());
     assertEquals("LTC/BTC", marketsType.getMarkets().get(1).getName());
@@ -86,6 +89,8 @@ public class TestMarketConfigurationManagement {
     assertEquals("BTC", marketsType.getMarkets().get(1).getCounterCurrency());
     assertFalse(marketsType.getMarkets().get(1).isEnabled());
     assertEquals("scalping-strategy", marketsType.getMarkets().get(1).getTradingStrategyId());
+    assertEquals(Integer.valueOf(120), marketsType.getMarkets().get(1).getTradeCycleInterval());
+    assertEquals(Integer.valueOf(5), marketsType.getMarkets().get(1).getPriority());
   }
 
   @Test(expected = IllegalStateException.class)